@@ -177,6 +177,14 @@ public interface Box extends SecurableByProfile, Barcodable, Locatable, Deletabl
    */
   public int getTubeCount();
 
+  /**
+   * Sets the number of tubes stored in this box, for a box that was loaded without its contents. Changing the contents discards this count.
+   * 
+   * @param tubeCount
+   *          the number of occupied positions
+   */
+  public void setTubeCount(int tubeCount);
+
   /**
    * Returns true/false is the position is free or not
    * 
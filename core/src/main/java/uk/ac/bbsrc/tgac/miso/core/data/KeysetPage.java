@@ -0,0 +1,67 @@
+package uk.ac.bbsrc.tgac.miso.core.data;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * One page of a listing keyed on ID. Besides the items that may be shown, it records how many rows the store scanned for the page and the
+ * ID of the last of them, so that the next page carries on from the last scanned row even when access checks have removed items from this
+ * one.
+ */
+public class KeysetPage<T> implements Iterable<T> {
+  private final List<T> items;
+  private final int scannedCount;
+  private final long lastScannedId;
+
+  /**
+   * @param items
+   *          the items on the page that may be shown
+   * @param scannedCount
+   *          the number of rows the store returned for the page, before any were removed
+   * @param lastScannedId
+   *          the ID of the last row the store returned, or the cursor the page was requested with if it returned none
+   */
+  public KeysetPage(List<T> items, int scannedCount, long lastScannedId) {
+    this.items = Collections.unmodifiableList(items);
+    this.scannedCount = scannedCount;
+    this.lastScannedId = lastScannedId;
+  }
+
+  /**
+   * @param items
+   *          every row the store returned for the page
+   * @param lastScannedId
+   *          the ID of the last row, or the cursor the page was requested with if there are none
+   */
+  public KeysetPage(List<T> items, long lastScannedId) {
+    this(items, items.size(), lastScannedId);
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  public int getScannedCount() {
+    return scannedCount;
+  }
+
+  /**
+   * @return the cursor to request the next page with
+   */
+  public long getLastScannedId() {
+    return lastScannedId;
+  }
+
+  /**
+   * @return true if the store had no more rows; a page whose items were all removed is not exhausted
+   */
+  public boolean isExhausted() {
+    return scannedCount == 0;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return items.iterator();
+  }
+}
@@ -0,0 +1,230 @@
+package uk.ac.bbsrc.tgac.miso.core.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The members of a {@link Project} that its graph view draws, reduced to their IDs, names and the edges between them, so that the whole
+ * tree can be loaded with a fixed number of queries however large the project is. Every member keeps the ID of its SecurityProfile, so
+ * that a graph can be loaded once and then restricted to what each user may read.
+ */
+public class ProjectGraph implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * One member of the graph
+   */
+  public static class Node implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long id;
+    private final Long parentId;
+    private final String name;
+    private final String alias;
+    private final Long securityProfileId;
+    private final boolean passed;
+
+    public Node(long id, Long parentId, String name, String alias, Long securityProfileId, boolean passed) {
+      this.id = id;
+      this.parentId = parentId;
+      this.name = name;
+      this.alias = alias;
+      this.securityProfileId = securityProfileId;
+      this.passed = passed;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    /**
+     * @return the ID of the study of an experiment, or of the sample of a library; null for other members
+     */
+    public Long getParentId() {
+      return parentId;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getAlias() {
+      return alias;
+    }
+
+    public Long getSecurityProfileId() {
+      return securityProfileId;
+    }
+
+    /**
+     * @return for a sample, whether it has passed QC; for a library, whether it has been QCed; for a run, whether it has completed; false
+     *         for other members
+     */
+    public boolean isPassed() {
+      return passed;
+    }
+  }
+
+  private long projectId;
+  private String name;
+  private String alias;
+  private Long securityProfileId;
+  private List<Node> studies = new ArrayList<>();
+  private List<Node> experiments = new ArrayList<>();
+  private List<Node> samples = new ArrayList<>();
+  private List<Node> libraries = new ArrayList<>();
+  private List<Node> runs = new ArrayList<>();
+
+  public long getProjectId() {
+    return projectId;
+  }
+
+  public void setProjectId(long projectId) {
+    this.projectId = projectId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getAlias() {
+    return alias;
+  }
+
+  public void setAlias(String alias) {
+    this.alias = alias;
+  }
+
+  public Long getSecurityProfileId() {
+    return securityProfileId;
+  }
+
+  public void setSecurityProfileId(Long securityProfileId) {
+    this.securityProfileId = securityProfileId;
+  }
+
+  public List<Node> getStudies() {
+    return studies;
+  }
+
+  public void setStudies(List<Node> studies) {
+    this.studies = studies;
+  }
+
+  public List<Node> getExperiments() {
+    return experiments;
+  }
+
+  public void setExperiments(List<Node> experiments) {
+    this.experiments = experiments;
+  }
+
+  public List<Node> getSamples() {
+    return samples;
+  }
+
+  public void setSamples(List<Node> samples) {
+    this.samples = samples;
+  }
+
+  public List<Node> getLibraries() {
+    return libraries;
+  }
+
+  public void setLibraries(List<Node> libraries) {
+    this.libraries = libraries;
+  }
+
+  public List<Node> getRuns() {
+    return runs;
+  }
+
+  public void setRuns(List<Node> runs) {
+    this.runs = runs;
+  }
+
+  /**
+   * @return the experiments of the project, keyed by the ID of their study
+   */
+  public Map<Long, List<Node>> getExperimentsByStudyId() {
+    return byParentId(experiments);
+  }
+
+  /**
+   * @return the libraries of the project, keyed by the ID of their sample
+   */
+  public Map<Long, List<Node>> getLibrariesBySampleId() {
+    return byParentId(libraries);
+  }
+
+  /**
+   * Copies this graph, keeping only the members whose SecurityProfile is one of those given. The project itself is copied whatever its
+   * profile, as it is checked on its own.
+   *
+   * @param readableProfileIds
+   *          the IDs of the SecurityProfiles whose members are kept
+   * @return the restricted copy
+   */
+  public ProjectGraph restrictTo(Collection<Long> readableProfileIds) {
+    ProjectGraph restricted = new ProjectGraph();
+    restricted.setProjectId(projectId);
+    restricted.setName(name);
+    restricted.setAlias(alias);
+    restricted.setSecurityProfileId(securityProfileId);
+    restricted.setStudies(restrict(studies, readableProfileIds));
+    restricted.setExperiments(restrict(experiments, readableProfileIds));
+    restricted.setSamples(restrict(samples, readableProfileIds));
+    restricted.setLibraries(restrict(libraries, readableProfileIds));
+    restricted.setRuns(restrict(runs, readableProfileIds));
+    return restricted;
+  }
+
+  /**
+   * @return the IDs of the SecurityProfiles of every member of the graph, including the project
+   */
+  public Collection<Long> getSecurityProfileIds() {
+    Set<Long> ids = new LinkedHashSet<>();
+    ids.add(securityProfileId);
+    for (List<Node> nodes : Arrays.asList(studies, experiments, samples, libraries, runs)) {
+      for (Node node : nodes) {
+        ids.add(node.getSecurityProfileId());
+      }
+    }
+    ids.remove(null);
+    return ids;
+  }
+
+  private static List<Node> restrict(List<Node> nodes, Collection<Long> readableProfileIds) {
+    List<Node> restricted = new ArrayList<>();
+    for (Node node : nodes) {
+      if (readableProfileIds.contains(node.getSecurityProfileId())) {
+        restricted.add(node);
+      }
+    }
+    return restricted;
+  }
+
+  private static Map<Long, List<Node>> byParentId(List<Node> nodes) {
+    Map<Long, List<Node>> children = new LinkedHashMap<>();
+    for (Node node : nodes) {
+      List<Node> siblings = children.get(node.getParentId());
+      if (siblings == null) {
+        siblings = new ArrayList<>();
+        children.put(node.getParentId(), siblings);
+      }
+      siblings.add(node);
+    }
+    return children;
+  }
+}
@@ -0,0 +1,111 @@
+package uk.ac.bbsrc.tgac.miso.core.data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import uk.ac.bbsrc.tgac.miso.core.data.type.HealthType;
+
+/**
+ * A read-only summary of a {@link Run}: its own scalar fields plus those of its Status and SequencerReference, for pages that list many
+ * runs without needing their containers, QCs, notes or watchers.
+ */
+public class RunSummary implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private long id;
+  private String name;
+  private String alias;
+  private String description;
+  private HealthType health;
+  private Date startDate;
+  private Date completionDate;
+  private Long sequencerReferenceId;
+  private String sequencerReferenceName;
+  private String instrumentModel;
+
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getAlias() {
+    return alias;
+  }
+
+  public void setAlias(String alias) {
+    this.alias = alias;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  /**
+   * @return the health of the run's Status, or null if it has no Status
+   */
+  public HealthType getHealth() {
+    return health;
+  }
+
+  public void setHealth(HealthType health) {
+    this.health = health;
+  }
+
+  public Date getStartDate() {
+    return startDate;
+  }
+
+  public void setStartDate(Date startDate) {
+    this.startDate = startDate;
+  }
+
+  public Date getCompletionDate() {
+    return completionDate;
+  }
+
+  public void setCompletionDate(Date completionDate) {
+    this.completionDate = completionDate;
+  }
+
+  public Long getSequencerReferenceId() {
+    return sequencerReferenceId;
+  }
+
+  public void setSequencerReferenceId(Long sequencerReferenceId) {
+    this.sequencerReferenceId = sequencerReferenceId;
+  }
+
+  public String getSequencerReferenceName() {
+    return sequencerReferenceName;
+  }
+
+  public void setSequencerReferenceName(String sequencerReferenceName) {
+    this.sequencerReferenceName = sequencerReferenceName;
+  }
+
+  /**
+   * @return the instrument model of the sequencer reference's platform
+   */
+  public String getInstrumentModel() {
+    return instrumentModel;
+  }
+
+  public void setInstrumentModel(String instrumentModel) {
+    this.instrumentModel = instrumentModel;
+  }
+}
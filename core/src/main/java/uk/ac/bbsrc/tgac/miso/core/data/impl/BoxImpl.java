@@ -24,6 +24,9 @@ public class BoxImpl extends AbstractBox implements Serializable {
   // The contents of the Box
   private Map<String, Boxable> boxableItems = new HashMap<String, Boxable>();
 
+  // The number of occupied positions, when the contents were not loaded
+  private Integer tubeCount;
+
   /*
    * Construct new Box with defaults, and an empty SecurityProfile
    */
@@ -76,7 +79,12 @@ public class BoxImpl extends AbstractBox implements Serializable {
   
   @Override
   public int getTubeCount() {
-    return boxableItems.size();
+    return tubeCount == null ? boxableItems.size() : tubeCount;
+  }
+
+  @Override
+  public void setTubeCount(int tubeCount) {
+    this.tubeCount = tubeCount;
   }
 
   @Override
@@ -88,6 +96,7 @@ public class BoxImpl extends AbstractBox implements Serializable {
   @Override
   public void setBoxables(Map<String, Boxable> items) {
     this.boxableItems = items;
+    this.tubeCount = null;
   }
 
   @Override
@@ -104,6 +113,7 @@ public class BoxImpl extends AbstractBox implements Serializable {
   public void setBoxable(String position, Boxable item) {
     validate(position);
     boxableItems.put(position, item);
+    tubeCount = null;
   }
 
   @Override
@@ -122,6 +132,7 @@ public class BoxImpl extends AbstractBox implements Serializable {
   public void removeBoxable(Boxable boxable) {
     // boxable.setLocationBarcode(""); // TODO: GLT-219
     boxableItems.values().remove(boxable);
+    tubeCount = null;
   }
 
   @Override
@@ -132,6 +143,7 @@ public class BoxImpl extends AbstractBox implements Serializable {
       // box.setLocationBarcode(""); // TODO: GLT-219
       i.remove();
     }
+    tubeCount = null;
   }
 
   @Override
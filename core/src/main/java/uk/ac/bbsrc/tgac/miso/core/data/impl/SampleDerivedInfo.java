@@ -4,15 +4,16 @@ import java.util.Date;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Table;
 
 import org.hibernate.annotations.Immutable;
-import org.hibernate.annotations.Subselect;
-import org.hibernate.annotations.Synchronize;
 
+/**
+ * Read-only values that the database maintains for a Sample. lastModified is kept in step with SampleChangeLog by triggers.
+ */
 @Entity
 @Immutable
-@Subselect("SELECT sampleId, MAX(changeTime) as lastModified FROM SampleChangeLog GROUP BY sampleId")
-@Synchronize("Sample")
+@Table(name = "Sample")
 public class SampleDerivedInfo {
 
   @Id
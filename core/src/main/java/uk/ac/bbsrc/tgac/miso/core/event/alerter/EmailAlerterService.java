@@ -23,7 +23,25 @@
 
 package uk.ac.bbsrc.tgac.miso.core.event.alerter;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.mail.MessagingException;
 
@@ -38,7 +56,18 @@ import uk.ac.bbsrc.tgac.miso.core.util.EmailUtils;
 /**
  * uk.ac.bbsrc.tgac.miso.core.event.service
  * <p/>
- * Info
+ * Sends alerts by email. Raising an alert only queues it; a background sender collects the queue every digest period and sends each
+ * recipient a single email covering all of their alerts. Failed sends are retried with exponential backoff. If a spool file is configured,
+ * unsent alerts are written there and picked up again on the next start.
+ * <p/>
+ * Configured from the mail properties:
+ * <ul>
+ * <li>mail.alert.digestPeriod - seconds between sends (default 60)</li>
+ * <li>mail.alert.retryDelay - seconds before the first retry, doubling on each failure (default 30)</li>
+ * <li>mail.alert.maxRetryDelay - upper bound on the retry delay, in seconds (default 3600)</li>
+ * <li>mail.alert.maxAttempts - attempts before an alert is dropped (default 8)</li>
+ * <li>mail.alert.spoolFile - file holding unsent alerts across restarts (default none)</li>
+ * </ul>
  * 
  * @author Rob Davey
  * @date 29/09/11
@@ -49,27 +78,328 @@ public class EmailAlerterService implements AlerterService {
 
   private Properties mailProps = new Properties();
 
+  private final BlockingQueue<QueuedEmail> incoming = new LinkedBlockingQueue<>();
+  // guarded by itself; the sender never holds it while talking to the SMTP host
+  private final List<QueuedEmail> pending = new ArrayList<>();
+  private volatile ScheduledExecutorService sender;
+  // guarded by this
+  private boolean stopped = false;
+
+  private long digestPeriod;
+  private long retryDelay;
+  private long maxRetryDelay;
+  private int maxAttempts;
+  private File spoolFile;
+
   public void setMailProps(Properties mailProps) {
     this.mailProps = mailProps;
   }
 
+  /**
+   * Reloads any spooled alerts and starts the background sender. Does nothing once the service has been stopped.
+   */
+  public synchronized void start() {
+    if (sender != null) {
+      return;
+    }
+    if (stopped) {
+      log.warn("The email alerter has been stopped and will not restart");
+      return;
+    }
+    digestPeriod = TimeUnit.SECONDS.toMillis(parseLong("mail.alert.digestPeriod", 60L));
+    retryDelay = TimeUnit.SECONDS.toMillis(parseLong("mail.alert.retryDelay", 30L));
+    maxRetryDelay = TimeUnit.SECONDS.toMillis(parseLong("mail.alert.maxRetryDelay", 3600L));
+    maxAttempts = (int) parseLong("mail.alert.maxAttempts", 8L);
+    String spool = mailProps.getProperty("mail.alert.spoolFile");
+    spoolFile = spool == null || spool.trim().isEmpty() ? null : new File(spool.trim());
+    if (spoolFile != null) {
+      List<QueuedEmail> spooled = readSpool(spoolFile);
+      synchronized (pending) {
+        pending.addAll(spooled);
+      }
+      if (!spooled.isEmpty()) {
+        log.info("Reloaded " + spooled.size() + " unsent email alerts from " + spoolFile);
+      }
+    }
+
+    sender = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "miso-email-alerter");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    sender.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          flush();
+        } catch (Exception e) {
+          log.error("Email alert sender failed", e);
+        }
+      }
+    }, digestPeriod, digestPeriod, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the background sender, spooling any alerts that have not yet been sent. This is final: the service does not restart, and alerts
+   * raised afterwards are rejected.
+   */
+  public synchronized void stop() {
+    stopped = true;
+    if (sender == null) {
+      return;
+    }
+    sender.shutdownNow();
+    try {
+      if (!sender.awaitTermination(10, TimeUnit.SECONDS)) {
+        log.warn("The email alert sender did not stop within 10 seconds");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (pending) {
+      incoming.drainTo(pending);
+      if (spoolFile != null) {
+        writeSpool();
+      } else if (!pending.isEmpty()) {
+        log.warn("Discarding " + pending.size() + " unsent email alerts: no mail.alert.spoolFile configured");
+      }
+    }
+    sender = null;
+  }
+
+  /**
+   * @return the number of alerts waiting to be sent
+   */
+  public int getQueuedCount() {
+    synchronized (pending) {
+      return incoming.size() + pending.size();
+    }
+  }
+
   @Override
   public void raiseAlert(Alert a) throws AlertingException {
     if (!mailProps.containsKey("mail.smtp.host")) {
       log.error("No SMTP host specified in the mail.properties configuration file. Cannot send email.");
       throw new AlertingException("No SMTP host specified in the mail.properties configuration file. Cannot send email.");
+    } else if (a.getAlertUser() == null || a.getAlertUser().getEmail() == null) {
+      throw new AlertingException("Alert '" + a.getAlertTitle() + "' has no recipient email address");
     } else {
-      String from = mailProps.getProperty("mail.from", "miso@your.miso.server");
-      String to = a.getAlertUser().getEmail();
-      String subject = "MISO ALERT: " + a.getAlertTitle();
-      String text = "Hello " + a.getAlertUser().getFullName() + ",\n\nMISO would like to tell you about something:\n\n" + a.getAlertTitle()
-          + " (" + a.getAlertDate() + ")" + "\n\n" + a.getAlertText();
+      QueuedEmail email = new QueuedEmail(a.getAlertUser().getEmail(), a.getAlertUser().getFullName(), a.getAlertTitle(),
+          a.getAlertDate(), a.getAlertText());
+      synchronized (this) {
+        if (stopped) {
+          throw new AlertingException("Cannot send alert '" + a.getAlertTitle() + "': the email alerter has been stopped");
+        }
+        if (sender == null) {
+          start();
+        }
+        incoming.add(email);
+      }
+    }
+  }
+
+  /**
+   * Sends one digest to each recipient with alerts due, and reschedules the alerts of any digest that fails
+   */
+  void flush() {
+    long now = System.currentTimeMillis();
+    Map<String, List<QueuedEmail>> byRecipient = new LinkedHashMap<>();
+    boolean changed;
+    synchronized (pending) {
+      int before = pending.size();
+      incoming.drainTo(pending);
+      changed = pending.size() != before;
+
+      for (QueuedEmail e : pending) {
+        if (e.nextAttempt <= now) {
+          List<QueuedEmail> emails = byRecipient.get(e.to);
+          if (emails == null) {
+            emails = new ArrayList<>();
+            byRecipient.put(e.to, emails);
+          }
+          emails.add(e);
+        }
+      }
+      if (spoolFile != null && changed && !byRecipient.isEmpty()) {
+        // spool before talking to the SMTP host, in case it hangs until the webapp is killed
+        writeSpool();
+      }
+    }
+
+    String from = mailProps.getProperty("mail.from", "miso@your.miso.server");
+    for (Map.Entry<String, List<QueuedEmail>> entry : byRecipient.entrySet()) {
+      if (Thread.currentThread().isInterrupted()) {
+        break;
+      }
+      List<QueuedEmail> emails = entry.getValue();
+      boolean sent;
       try {
-        EmailUtils.send(to, from, subject, text, mailProps);
+        send(entry.getKey(), from, subjectOf(emails), textOf(emails));
+        sent = true;
       } catch (MessagingException e) {
-        log.error("Cannot send email to alert recipients", e);
-        throw new AlertingException("Cannot send email to alert recipients", e);
+        log.error("Cannot send email to alert recipient " + entry.getKey(), e);
+        sent = false;
+      }
+      synchronized (pending) {
+        if (sent) {
+          pending.removeAll(emails);
+        } else {
+          reschedule(emails, now);
+        }
+      }
+      changed = true;
+    }
+
+    if (spoolFile != null && changed) {
+      synchronized (pending) {
+        writeSpool();
+      }
+    }
+  }
+
+  /**
+   * Sends a single email through the configured SMTP host
+   */
+  void send(String to, String from, String subject, String text) throws MessagingException {
+    EmailUtils.send(to, from, subject, text, mailProps);
+  }
+
+  // call holding the pending lock
+  private void reschedule(List<QueuedEmail> emails, long now) {
+    for (QueuedEmail e : emails) {
+      e.attempts++;
+      if (e.attempts >= maxAttempts) {
+        log.error("Giving up on email alert '" + e.title + "' to " + e.to + " after " + e.attempts + " attempts");
+        pending.remove(e);
+      } else {
+        e.nextAttempt = now + Math.min(maxRetryDelay, retryDelay << Math.min(e.attempts - 1, 20));
+      }
+    }
+  }
+
+  private static String subjectOf(List<QueuedEmail> emails) {
+    if (emails.size() == 1) {
+      return "MISO ALERT: " + emails.get(0).title;
+    }
+    return "MISO ALERT: " + emails.size() + " alerts";
+  }
+
+  private static String textOf(List<QueuedEmail> emails) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Hello ").append(emails.get(0).name).append(",\n\n");
+    if (emails.size() == 1) {
+      sb.append("MISO would like to tell you about something:\n\n");
+    } else {
+      sb.append("MISO would like to tell you about ").append(emails.size()).append(" things:\n\n");
+    }
+    for (Iterator<QueuedEmail> it = emails.iterator(); it.hasNext();) {
+      QueuedEmail e = it.next();
+      sb.append(e.title).append(" (").append(e.date).append(")").append("\n\n").append(e.text);
+      if (it.hasNext()) {
+        sb.append("\n\n----------\n\n");
+      }
+    }
+    return sb.toString();
+  }
+
+  private long parseLong(String key, long defaultValue) {
+    String value = mailProps.getProperty(key);
+    if (value != null) {
+      try {
+        return Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        log.warn("Ignoring non-numeric " + key + ": " + value);
+      }
+    }
+    return defaultValue;
+  }
+
+  // call holding the pending lock
+  private void writeSpool() {
+    Properties props = new Properties();
+    int i = 0;
+    for (QueuedEmail e : pending) {
+      e.store(props, "alert." + i++ + ".");
+    }
+    props.setProperty("alert.count", String.valueOf(i));
+    File tmp = new File(spoolFile.getPath() + ".tmp");
+    try (OutputStream out = new FileOutputStream(tmp)) {
+      props.store(out, "Unsent MISO email alerts");
+    } catch (IOException e) {
+      log.error("Cannot write email alert spool " + tmp, e);
+      return;
+    }
+    if (!tmp.renameTo(spoolFile) && !(spoolFile.delete() && tmp.renameTo(spoolFile))) {
+      log.error("Cannot replace email alert spool " + spoolFile);
+    }
+  }
+
+  private static List<QueuedEmail> readSpool(File file) {
+    List<QueuedEmail> emails = new ArrayList<>();
+    if (file.exists()) {
+      Properties props = new Properties();
+      try (InputStream in = new FileInputStream(file)) {
+        props.load(in);
+        int count = Integer.parseInt(props.getProperty("alert.count", "0"));
+        for (int i = 0; i < count; i++) {
+          QueuedEmail e = QueuedEmail.load(props, "alert." + i + ".");
+          if (e != null) {
+            emails.add(e);
+          }
+        }
+      } catch (IOException | NumberFormatException e) {
+        log.error("Cannot read email alert spool " + file, e);
+      }
+    }
+    return emails;
+  }
+
+  /**
+   * An alert email waiting to be sent, with its retry state
+   */
+  static final class QueuedEmail {
+    final String to;
+    final String name;
+    final String title;
+    final Date date;
+    final String text;
+    int attempts;
+    long nextAttempt;
+
+    QueuedEmail(String to, String name, String title, Date date, String text) {
+      this.to = to;
+      this.name = name;
+      this.title = title;
+      this.date = date;
+      this.text = text;
+    }
+
+    void store(Properties props, String prefix) {
+      props.setProperty(prefix + "to", to);
+      props.setProperty(prefix + "name", name == null ? "" : name);
+      props.setProperty(prefix + "title", title == null ? "" : title);
+      props.setProperty(prefix + "text", text == null ? "" : text);
+      if (date != null) {
+        props.setProperty(prefix + "date", String.valueOf(date.getTime()));
+      }
+      props.setProperty(prefix + "attempts", String.valueOf(attempts));
+      props.setProperty(prefix + "nextAttempt", String.valueOf(nextAttempt));
+    }
+
+    static QueuedEmail load(Properties props, String prefix) {
+      String to = props.getProperty(prefix + "to");
+      if (to == null) {
+        return null;
       }
+      String date = props.getProperty(prefix + "date");
+      QueuedEmail e = new QueuedEmail(to, props.getProperty(prefix + "name"), props.getProperty(prefix + "title"),
+          date == null ? null : new Date(Long.parseLong(date)), props.getProperty(prefix + "text"));
+      e.attempts = Integer.parseInt(props.getProperty(prefix + "attempts", "0"));
+      e.nextAttempt = Long.parseLong(props.getProperty(prefix + "nextAttempt", "0"));
+      return e;
     }
   }
 }
@@ -24,10 +24,12 @@
 package uk.ac.bbsrc.tgac.miso.core.event.manager;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,7 +47,10 @@ import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
 /**
  * uk.ac.bbsrc.tgac.miso.core.event.manager
  * <p/>
- * Info
+ * Tracks the state of watched pools so that changes can be alerted on. Only an immutable snapshot of each pool is held (ID, name, alias,
+ * ready state and watcher IDs). When an update makes a pool ready to run, a transient copy of the pool is built from its snapshot and the
+ * pool listener is attached to it, so the usual pool events are fired to the snapshot's watchers. Snapshots are replaced atomically, so the
+ * manager is safe to use from concurrent request threads.
  * 
  * @author Rob Davey
  * @date 11/11/11
@@ -53,11 +58,11 @@ import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
  */
 public class PoolAlertManager {
   protected static final Logger log = LoggerFactory.getLogger(PoolAlertManager.class);
-  final Map<Long, Pool<? extends Poolable<?, ?>>> pools = new HashMap<>();
-  final Set<User> poolWatchers = new HashSet<User>();
+  final ConcurrentMap<Long, PoolSnapshot> pools = new ConcurrentHashMap<>();
+  volatile Set<User> poolWatchers = Collections.emptySet();
 
   private RequestManager misoRequestManager;
-  private boolean enabled = true;
+  private volatile boolean enabled = true;
 
   @Autowired
   private SecurityManager securityManager;
@@ -95,21 +100,12 @@ public class PoolAlertManager {
 
   public <P extends Poolable<?, ?>> void push(Pool<P> pool) {
     if (enabled) {
-      if (pool != null) {
-        Pool<P> clone = partialCopy(pool);
-        log.debug("Attempting to clone pool " + pool.getId());
-        try {
-          if (clone != null) {
-            applyListeners(clone);
-            if (pools.containsKey(pool.getId())) {
-              log.debug("Not replacing Pool " + clone.getId() + ": Ready? " + clone.getReadyToRun());
-            } else {
-              pools.put(pool.getId(), clone);
-              log.debug("Queued Pool " + clone.getId() + ": Ready? " + clone.getReadyToRun());
-            }
-          }
-        } catch (Exception e) {
-          log.error("push", e);
+      if (pool != null && !pools.containsKey(pool.getId())) {
+        PoolSnapshot snapshot = new PoolSnapshot(pool);
+        if (pools.putIfAbsent(pool.getId(), snapshot) == null) {
+          log.debug("Queued Pool " + snapshot.id + ": Ready? " + snapshot.readyToRun);
+        } else {
+          log.debug("Not replacing Pool " + snapshot.id + ": Ready? " + snapshot.readyToRun);
         }
       }
     } else {
@@ -119,14 +115,8 @@ public class PoolAlertManager {
 
   public void pop(Pool<? extends Poolable<?, ?>> pool) {
     if (enabled) {
-      if (pool != null) {
-        Pool<? extends Poolable<?, ?>> clone = pools.get(pool.getId());
-        if (clone != null) {
-          removeListeners(clone);
-          clone = null;
-          pools.remove(pool.getId());
-          log.debug("Dequeued " + pool.getId());
-        }
+      if (pool != null && pools.remove(pool.getId()) != null) {
+        log.debug("Dequeued " + pool.getId());
       }
     } else {
       log.warn("Alerting system disabled.");
@@ -139,19 +129,32 @@ public class PoolAlertManager {
 
   private void update(Pool<? extends Poolable<?, ?>> p) throws IOException {
     if (enabled) {
-      Pool<? extends Poolable<?, ?>> clone = pools.get(p.getId());
-      if (clone == null) {
-        log.debug("Update: no clone - pushing");
-        // new run - add all PoolWatchers!
-        for (User u : securityManager.listUsersByGroupName("PoolWatchers")) {
-          p.addWatcher(u);
+      while (true) {
+        PoolSnapshot previous = pools.get(p.getId());
+        if (previous == null) {
+          log.debug("Update: no snapshot - pushing");
+          // new pool - add all PoolWatchers!
+          for (User u : securityManager.listUsersByGroupName("PoolWatchers")) {
+            p.addWatcher(u);
+          }
+          push(p);
+          return;
+        }
+
+        // only the thread that replaces the snapshot fires events, so each change is alerted once
+        if (pools.replace(p.getId(), previous, new PoolSnapshot(p))) {
+          log.debug("Update: replaced snapshot of " + previous.id);
+          if (!previous.readyToRun && p.getReadyToRun()) {
+            Pool<Poolable<?, ?>> tracked = previous.toPool(WatcherSnapshots.resolve(previous.watcherIds, p.getWatchers(), securityManager));
+            applyListeners(tracked);
+            try {
+              tracked.setReadyToRun(true);
+            } finally {
+              removeListeners(tracked);
+            }
+          }
+          return;
         }
-        push(p);
-      } else {
-        log.debug("Update: got clone of " + clone.getId());
-        clone.setReadyToRun(p.getReadyToRun());
-        pop(clone);
-        push(p);
       }
     }
   }
@@ -159,12 +162,11 @@ public class PoolAlertManager {
   public <P extends Poolable<?, ?>> void addWatcher(Pool<P> pool, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null) {
-      Pool<? extends Poolable<?, ?>> clone = pools.get(pool.getId());
-      if (clone == null) {
+      if (!pools.containsKey(pool.getId())) {
         pool.addWatcher(user);
         push(pool);
       } else {
-        clone.addWatcher(user);
+        addWatcherId(pool.getId(), userId);
       }
     }
   }
@@ -172,49 +174,93 @@ public class PoolAlertManager {
   public void removeWatcher(Pool<? extends Poolable<?, ?>> pool, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null && pool.getWatchers().contains(user)) {
-      Pool<? extends Poolable<?, ?>> clone = pools.get(pool.getId());
-      if (clone == null) {
+      if (!pools.containsKey(pool.getId())) {
         pool.removeWatcher(user);
         push(pool);
       } else {
-        clone.removeWatcher(user);
+        removeWatcherId(pool.getId(), userId);
       }
     }
   }
 
   public void updateGroupWatcher(Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
-    if (user != null) {
-      poolWatchers.clear();
-      poolWatchers.addAll(securityManager.listUsersByGroupName("PoolWatchers"));
+    if (user != null && user.getGroups() != null) {
+      poolWatchers = Collections.unmodifiableSet(new HashSet<User>(securityManager.listUsersByGroupName("PoolWatchers")));
 
-      for (Pool<? extends Poolable<?, ?>> p : pools.values()) {
-        if (user.getGroups() != null && user.getGroups().contains(securityManager.getGroupByName("PoolWatchers"))) {
-          addWatcher(p, userId);
-        } else {
-          if (p.getSecurityProfile() != null && p.getSecurityProfile().getOwner() != null
-              && !p.getSecurityProfile().getOwner().equals(user)) {
-            removeWatcher(p, userId);
-          }
+      boolean watching = user.getGroups().contains(securityManager.getGroupByName("PoolWatchers"));
+      for (PoolSnapshot snapshot : pools.values()) {
+        if (watching) {
+          addWatcherId(snapshot.id, userId);
+        } else if (WatcherSnapshots.isRemovedOnLeavingGroup(snapshot.ownerId, userId)) {
+          removeWatcherId(snapshot.id, userId);
         }
       }
     }
   }
 
+  private void addWatcherId(Long poolId, Long userId) {
+    PoolSnapshot current;
+    do {
+      current = pools.get(poolId);
+      if (current == null || current.watcherIds.contains(userId)) return;
+    } while (!pools.replace(poolId, current, current.withWatcherIds(WatcherSnapshots.with(current.watcherIds, userId))));
+  }
+
+  private void removeWatcherId(Long poolId, Long userId) {
+    PoolSnapshot current;
+    do {
+      current = pools.get(poolId);
+      if (current == null || !current.watcherIds.contains(userId)) return;
+    } while (!pools.replace(poolId, current, current.withWatcherIds(WatcherSnapshots.without(current.watcherIds, userId))));
+  }
+
   /**
-   * Creates a minimal copy of the pool to be used for change tracking in the alerting system. Only relevant fields are copied
-   * 
-   * @param pool
-   *          the pool to copy
-   * @return the copy
+   * Immutable record of the pool fields relevant to alerting
    */
-  private <P extends Poolable<?, ?>> Pool<P> partialCopy(Pool<P> pool) {
-    Pool<P> clone = new PoolImpl<>();
-    clone.setId(pool.getId());
-    clone.setAlias(pool.getAlias());
-    clone.setName(pool.getName());
-    clone.setReadyToRun(pool.getReadyToRun());
-    return clone;
-  }
+  static final class PoolSnapshot {
+    final long id;
+    final String name;
+    final String alias;
+    final boolean readyToRun;
+    final Long ownerId;
+    final Set<Long> watcherIds;
 
+    PoolSnapshot(Pool<? extends Poolable<?, ?>> pool) {
+      this.id = pool.getId();
+      this.name = pool.getName();
+      this.alias = pool.getAlias();
+      this.readyToRun = pool.getReadyToRun();
+      this.ownerId = WatcherSnapshots.ownerIdOf(pool.getSecurityProfile());
+      this.watcherIds = WatcherSnapshots.idsOf(pool.getWatchers());
+    }
+
+    private PoolSnapshot(PoolSnapshot other, Set<Long> watcherIds) {
+      this.id = other.id;
+      this.name = other.name;
+      this.alias = other.alias;
+      this.readyToRun = other.readyToRun;
+      this.ownerId = other.ownerId;
+      this.watcherIds = watcherIds;
+    }
+
+    PoolSnapshot withWatcherIds(Set<Long> watcherIds) {
+      return new PoolSnapshot(this, watcherIds);
+    }
+
+    /**
+     * Builds a transient Pool in this snapshot's state, for firing events
+     */
+    Pool<Poolable<?, ?>> toPool(Collection<User> watchers) {
+      Pool<Poolable<?, ?>> pool = new PoolImpl<>();
+      pool.setId(id);
+      pool.setName(name);
+      pool.setAlias(alias);
+      pool.setReadyToRun(readyToRun);
+      for (User u : watchers) {
+        pool.addWatcher(u);
+      }
+      return pool;
+    }
+  }
 }
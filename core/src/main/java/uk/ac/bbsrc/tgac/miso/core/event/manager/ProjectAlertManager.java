@@ -24,9 +24,13 @@
 package uk.ac.bbsrc.tgac.miso.core.event.manager;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,18 +38,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.manager.SecurityManager;
-import com.google.common.collect.Sets;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectImpl;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview;
+import uk.ac.bbsrc.tgac.miso.core.data.type.ProgressType;
 import uk.ac.bbsrc.tgac.miso.core.event.listener.MisoListener;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
 
 /**
  * uk.ac.bbsrc.tgac.miso.core.event.manager
  * <p/>
- * Info
+ * Tracks the state of watched projects and their overviews so that changes can be alerted on. Only an immutable snapshot of each project
+ * is held (ID, name, alias, progress, overview flags and watcher IDs). When an update completes an overview milestone, a transient copy of
+ * the overview is built from its snapshot and the overview listener is attached to it, so the usual overview events are fired to the
+ * snapshot's watchers. Snapshots are replaced atomically, so the manager is safe to use from concurrent request threads.
  * 
  * @author Rob Davey
  * @date 11/11/11
@@ -53,10 +60,10 @@ import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
  */
 public class ProjectAlertManager {
   protected static final Logger log = LoggerFactory.getLogger(ProjectAlertManager.class);
-  final Map<Long, Project> projects = new HashMap<Long, Project>();
+  final ConcurrentMap<Long, ProjectSnapshot> projects = new ConcurrentHashMap<>();
 
   private RequestManager misoRequestManager;
-  private boolean enabled = true;
+  private volatile boolean enabled = true;
 
   @Autowired
   private MisoListener projectListener;
@@ -111,25 +118,12 @@ public class ProjectAlertManager {
 
   public void push(Project project) {
     if (enabled) {
-      if (project != null) {
-        Project clone = partialCopy(project);
-        if (clone != null) {
-          if (projects.containsKey(project.getId())) {
-            if (clone.getProgress() != null) {
-              log.debug("Not replacing Project " + clone.getId() + ": " + clone.getProgress().name());
-            }
-          } else {
-            applyListeners(clone);
-
-            for (ProjectOverview po : clone.getOverviews()) {
-              applyListeners(po);
-            }
-
-            projects.put(project.getId(), clone);
-            if (clone.getProgress() != null) {
-              log.debug("Queued Project " + clone.getId() + ": " + clone.getProgress().name());
-            }
-          }
+      if (project != null && !projects.containsKey(project.getId())) {
+        ProjectSnapshot snapshot = new ProjectSnapshot(project);
+        if (projects.putIfAbsent(project.getId(), snapshot) == null) {
+          log.debug("Queued Project " + snapshot.id + ": " + snapshot.progress);
+        } else {
+          log.debug("Not replacing Project " + snapshot.id + ": " + snapshot.progress);
         }
       }
     } else {
@@ -139,19 +133,8 @@ public class ProjectAlertManager {
 
   public void pop(Project project) {
     if (enabled) {
-      if (project != null) {
-        Project clone = projects.get(project.getId());
-        if (clone != null) {
-          removeListeners(clone);
-          for (ProjectOverview po : clone.getOverviews()) {
-            removeListeners(po);
-            po = null;
-          }
-
-          clone = null;
-          projects.remove(project.getId());
-          log.debug("Dequeued " + project.getId());
-        }
+      if (project != null && projects.remove(project.getId()) != null) {
+        log.debug("Dequeued " + project.getId());
       }
     } else {
       log.warn("Alerting system disabled.");
@@ -164,38 +147,54 @@ public class ProjectAlertManager {
 
   private void update(Project p) throws IOException {
     if (enabled) {
-      // don't just replace the object - set required fields otherwise we have to reset all the object's listeners
-      Project clone = projects.get(p.getId());
-      if (clone == null) {
-        log.debug("Update: no clone - pushing");
-        // new project - add all ProjectWatchers!
-        for (User u : securityManager.listUsersByGroupName("ProjectWatchers")) {
-          p.addWatcher(u);
-          for (ProjectOverview po : p.getOverviews()) {
-            po.addWatcher(u);
+      while (true) {
+        ProjectSnapshot previous = projects.get(p.getId());
+        if (previous == null) {
+          log.debug("Update: no snapshot - pushing");
+          // new project - add all ProjectWatchers!
+          for (User u : securityManager.listUsersByGroupName("ProjectWatchers")) {
+            p.addWatcher(u);
+            for (ProjectOverview po : p.getOverviews()) {
+              po.addWatcher(u);
+            }
           }
+          push(p);
+          return;
         }
-        push(p);
-      } else {
-        log.debug("Update: got clone of " + clone.getId());
-        clone.setProgress(p.getProgress());
-
-        for (ProjectOverview po : p.getOverviews()) {
-          ProjectOverview cloneOverview = clone.getOverviewById(po.getOverviewId());
-          if (cloneOverview != null) {
-            cloneOverview.setAllSampleQcPassed(po.getAllSampleQcPassed());
-            cloneOverview.setLibraryPreparationComplete(po.getLibraryPreparationComplete());
-            cloneOverview.setAllLibrariesQcPassed(po.getAllLibrariesQcPassed());
-            cloneOverview.setAllPoolsConstructed(po.getAllPoolsConstructed());
-            cloneOverview.setAllRunsCompleted(po.getAllRunsCompleted());
-            cloneOverview.setPrimaryAnalysisCompleted(po.getPrimaryAnalysisCompleted());
-          } else {
-            log.debug("Original project has an overview, but it seems it hasn't been cloned.");
-          }
+
+        // only the thread that replaces the snapshot fires events, so each change is alerted once
+        if (projects.replace(p.getId(), previous, new ProjectSnapshot(p))) {
+          log.debug("Update: replaced snapshot of " + previous.id);
+          fireChanges(previous, p);
+          return;
         }
+      }
+    }
+  }
 
-        pop(clone);
-        push(p);
+  private void fireChanges(ProjectSnapshot previous, Project p) throws IOException {
+    Project trackedProject = null;
+    for (ProjectOverview po : p.getOverviews()) {
+      OverviewSnapshot overview = previous.overviews.get(po.getOverviewId());
+      if (overview == null) {
+        log.debug("Original project has an overview, but it seems it hasn't been tracked.");
+      } else if (overview.completesMilestone(po)) {
+        if (trackedProject == null) {
+          trackedProject = previous.toProject(WatcherSnapshots.resolve(previous.watcherIds, p.getWatchers(), securityManager));
+        }
+        ProjectOverview tracked = overview.toOverview(trackedProject,
+            WatcherSnapshots.resolve(overview.watcherIds, po.getWatchers(), securityManager));
+        applyListeners(tracked);
+        try {
+          tracked.setAllSampleQcPassed(po.getAllSampleQcPassed());
+          tracked.setLibraryPreparationComplete(po.getLibraryPreparationComplete());
+          tracked.setAllLibrariesQcPassed(po.getAllLibrariesQcPassed());
+          tracked.setAllPoolsConstructed(po.getAllPoolsConstructed());
+          tracked.setAllRunsCompleted(po.getAllRunsCompleted());
+          tracked.setPrimaryAnalysisCompleted(po.getPrimaryAnalysisCompleted());
+        } finally {
+          removeListeners(tracked);
+        }
       }
     }
   }
@@ -203,12 +202,10 @@ public class ProjectAlertManager {
   public void addWatcher(ProjectOverview overview, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null) {
-      for (Project clone : projects.values()) {
-        ProjectOverview cloneOverview = clone.getOverviewById(overview.getOverviewId());
-        if (cloneOverview != null) {
+      for (ProjectSnapshot snapshot : projects.values()) {
+        if (snapshot.overviews.containsKey(overview.getOverviewId())) {
           log.debug("Added watcher " + userId + " to overview " + overview.getOverviewId());
-          cloneOverview.addWatcher(user);
-          clone.addWatcher(user);
+          updateWatchers(snapshot.id, overview.getOverviewId(), userId, true);
           break;
         }
       }
@@ -218,12 +215,10 @@ public class ProjectAlertManager {
   public void removeWatcher(ProjectOverview overview, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null) {
-      for (Project clone : projects.values()) {
-        ProjectOverview cloneOverview = clone.getOverviewById(overview.getOverviewId());
-        if (cloneOverview != null) {
+      for (ProjectSnapshot snapshot : projects.values()) {
+        if (snapshot.overviews.containsKey(overview.getOverviewId())) {
           log.debug("Removed watcher " + userId + " from overview " + overview.getOverviewId());
-          cloneOverview.removeWatcher(user);
-          clone.removeWatcher(user);
+          updateWatchers(snapshot.id, overview.getOverviewId(), userId, false);
           break;
         }
       }
@@ -233,26 +228,15 @@ public class ProjectAlertManager {
   public void addWatcher(Project project, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null) {
-      Project clone = projects.get(project.getId());
       log.debug("Added watcher " + userId + " to project " + project.getId());
-      if (clone == null) {
+      if (!projects.containsKey(project.getId())) {
         project.addWatcher(user);
         for (ProjectOverview po : project.getOverviews()) {
-          ProjectOverview pOverview = project.getOverviewById(po.getOverviewId());
-          if (pOverview != null) {
-            pOverview.addWatcher(user);
-          }
+          po.addWatcher(user);
         }
-
         push(project);
       } else {
-        clone.addWatcher(user);
-        for (ProjectOverview po : clone.getOverviews()) {
-          ProjectOverview cloneOverview = clone.getOverviewById(po.getOverviewId());
-          if (cloneOverview != null) {
-            cloneOverview.addWatcher(user);
-          }
-        }
+        updateWatchers(project.getId(), null, userId, true);
       }
     }
   }
@@ -260,85 +244,170 @@ public class ProjectAlertManager {
   public void removeWatcher(Project project, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null) {
-      Project clone = projects.get(project.getId());
-      if (clone == null) {
+      if (!projects.containsKey(project.getId())) {
         project.removeWatcher(user);
         for (ProjectOverview po : project.getOverviews()) {
-          ProjectOverview pOverview = project.getOverviewById(po.getOverviewId());
-          if (pOverview != null) {
-            pOverview.removeWatcher(user);
-          }
+          po.removeWatcher(user);
         }
-
         push(project);
       } else {
-        clone.removeWatcher(user);
-        for (ProjectOverview po : clone.getOverviews()) {
-          ProjectOverview cloneOverview = clone.getOverviewById(po.getOverviewId());
-          if (cloneOverview != null) {
-            cloneOverview.removeWatcher(user);
-          }
-        }
+        updateWatchers(project.getId(), null, userId, false);
       }
     }
   }
 
   public void updateGroupWatcher(Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
-    for (Project p : projects.values()) {
-      if (user.getGroups() != null && user.getGroups().contains(securityManager.getGroupByName("ProjectWatchers"))) {
-        addWatcher(p, userId);
-      } else {
-        if (p.getSecurityProfile() != null && p.getSecurityProfile().getOwner() != null
-            && !p.getSecurityProfile().getOwner().equals(user)) {
-          removeWatcher(p, userId);
+    if (user != null && user.getGroups() != null) {
+      boolean watching = user.getGroups().contains(securityManager.getGroupByName("ProjectWatchers"));
+      for (ProjectSnapshot snapshot : projects.values()) {
+        if (watching) {
+          updateWatchers(snapshot.id, null, userId, true);
+        } else if (WatcherSnapshots.isRemovedOnLeavingGroup(snapshot.ownerId, userId)) {
+          updateWatchers(snapshot.id, null, userId, false);
         }
       }
     }
   }
 
   /**
-   * Creates a minimal copy of the project to be used for change tracking in the alerting system. Only relevant fields are copied
-   * 
-   * @param project
-   *          the project to copy
-   * @return the copy
+   * Atomically adds or removes a watcher on a tracked project and on one of its overviews, or on all of its overviews if overviewId is
+   * null
+   */
+  private void updateWatchers(Long projectId, Long overviewId, Long userId, boolean add) {
+    ProjectSnapshot current;
+    do {
+      current = projects.get(projectId);
+      if (current == null) return;
+    } while (!projects.replace(projectId, current, current.withWatcher(overviewId, userId, add)));
+  }
+
+  /**
+   * Immutable record of the project fields relevant to alerting
    */
-  private Project partialCopy(Project project) {
-    Project clone = new ProjectImpl();
-    clone.setId(project.getId());
-    clone.setAlias(project.getAlias());
-    clone.setName(project.getName());
-    clone.setProgress(project.getProgress());
-    Set<ProjectOverview> projectOverviews = Sets.newHashSet();
-    for (ProjectOverview projectOverview : project.getOverviews()) {
-      projectOverviews.add(partialCopy(projectOverview));
+  static final class ProjectSnapshot {
+    final long id;
+    final String name;
+    final String alias;
+    final ProgressType progress;
+    final Long ownerId;
+    final Set<Long> watcherIds;
+    final Map<Long, OverviewSnapshot> overviews;
+
+    ProjectSnapshot(Project project) {
+      this.id = project.getId();
+      this.name = project.getName();
+      this.alias = project.getAlias();
+      this.progress = project.getProgress();
+      this.ownerId = WatcherSnapshots.ownerIdOf(project.getSecurityProfile());
+      this.watcherIds = WatcherSnapshots.idsOf(project.getWatchers());
+      Map<Long, OverviewSnapshot> map = new HashMap<>();
+      for (ProjectOverview po : project.getOverviews()) {
+        map.put(po.getOverviewId(), new OverviewSnapshot(po));
+      }
+      this.overviews = Collections.unmodifiableMap(map);
+    }
+
+    private ProjectSnapshot(ProjectSnapshot other, Set<Long> watcherIds, Map<Long, OverviewSnapshot> overviews) {
+      this.id = other.id;
+      this.name = other.name;
+      this.alias = other.alias;
+      this.progress = other.progress;
+      this.ownerId = other.ownerId;
+      this.watcherIds = watcherIds;
+      this.overviews = overviews;
+    }
+
+    ProjectSnapshot withWatcher(Long overviewId, Long userId, boolean add) {
+      Set<Long> projectWatchers = add ? WatcherSnapshots.with(watcherIds, userId) : WatcherSnapshots.without(watcherIds, userId);
+      Map<Long, OverviewSnapshot> map = new HashMap<>(overviews);
+      for (OverviewSnapshot overview : overviews.values()) {
+        if (overviewId == null || overviewId.equals(overview.id)) {
+          Set<Long> ids = add ? WatcherSnapshots.with(overview.watcherIds, userId) : WatcherSnapshots.without(overview.watcherIds, userId);
+          map.put(overview.id, overview.withWatcherIds(ids));
+        }
+      }
+      return new ProjectSnapshot(this, projectWatchers, Collections.unmodifiableMap(map));
     }
-    clone.setOverviews(projectOverviews);
 
-    for (User u : project.getWatchers()) {
-      clone.addWatcher(u);
+    /**
+     * Builds a transient Project in this snapshot's state, without overviews, for use as the parent of event-firing overviews
+     */
+    Project toProject(Collection<User> watchers) {
+      ProjectImpl project = new ProjectImpl();
+      project.setId(id);
+      project.setName(name);
+      project.setAlias(alias);
+      project.setProgress(progress);
+      for (User u : watchers) {
+        project.addWatcher(u);
+      }
+      return project;
     }
-    return clone;
   }
 
   /**
-   * Creates a minimal copy of the ProjectOverview to be used for change tracking in the alerting system. Only relevant fields are copied
-   * 
-   * @param projectOverview
-   *          The ProjectOverview to copy
-   * @return the copy
+   * Immutable record of the project overview fields relevant to alerting
    */
-  private ProjectOverview partialCopy(ProjectOverview projectOverview) {
-    ProjectOverview clone = new ProjectOverview();
-    clone.setId(projectOverview.getId());
-    clone.setProject(projectOverview.getProject());
-    clone.setAllSampleQcPassed(projectOverview.getAllSampleQcPassed());
-    clone.setLibraryPreparationComplete(projectOverview.getLibraryPreparationComplete());
-    clone.setAllLibrariesQcPassed(projectOverview.getAllLibrariesQcPassed());
-    clone.setAllPoolsConstructed(projectOverview.getAllPoolsConstructed());
-    clone.setAllRunsCompleted(projectOverview.getAllRunsCompleted());
-    clone.setPrimaryAnalysisCompleted(projectOverview.getPrimaryAnalysisCompleted());
-    return clone;
+  static final class OverviewSnapshot {
+    final Long id;
+    final boolean allSampleQcPassed;
+    final boolean libraryPreparationComplete;
+    final boolean allLibrariesQcPassed;
+    final boolean allPoolsConstructed;
+    final boolean allRunsCompleted;
+    final boolean primaryAnalysisCompleted;
+    final Set<Long> watcherIds;
+
+    OverviewSnapshot(ProjectOverview po) {
+      this(po.getOverviewId(), po.getAllSampleQcPassed(), po.getLibraryPreparationComplete(), po.getAllLibrariesQcPassed(),
+          po.getAllPoolsConstructed(), po.getAllRunsCompleted(), po.getPrimaryAnalysisCompleted(),
+          WatcherSnapshots.idsOf(po.getWatchers()));
+    }
+
+    private OverviewSnapshot(Long id, boolean allSampleQcPassed, boolean libraryPreparationComplete, boolean allLibrariesQcPassed,
+        boolean allPoolsConstructed, boolean allRunsCompleted, boolean primaryAnalysisCompleted, Set<Long> watcherIds) {
+      this.id = id;
+      this.allSampleQcPassed = allSampleQcPassed;
+      this.libraryPreparationComplete = libraryPreparationComplete;
+      this.allLibrariesQcPassed = allLibrariesQcPassed;
+      this.allPoolsConstructed = allPoolsConstructed;
+      this.allRunsCompleted = allRunsCompleted;
+      this.primaryAnalysisCompleted = primaryAnalysisCompleted;
+      this.watcherIds = watcherIds;
+    }
+
+    OverviewSnapshot withWatcherIds(Set<Long> watcherIds) {
+      return new OverviewSnapshot(id, allSampleQcPassed, libraryPreparationComplete, allLibrariesQcPassed, allPoolsConstructed,
+          allRunsCompleted, primaryAnalysisCompleted, watcherIds);
+    }
+
+    /**
+     * @return true if any milestone that was incomplete in this snapshot is complete in the given overview
+     */
+    boolean completesMilestone(ProjectOverview po) {
+      return (!allSampleQcPassed && po.getAllSampleQcPassed()) || (!libraryPreparationComplete && po.getLibraryPreparationComplete())
+          || (!allLibrariesQcPassed && po.getAllLibrariesQcPassed()) || (!allPoolsConstructed && po.getAllPoolsConstructed())
+          || (!allRunsCompleted && po.getAllRunsCompleted()) || (!primaryAnalysisCompleted && po.getPrimaryAnalysisCompleted());
+    }
+
+    /**
+     * Builds a transient ProjectOverview in this snapshot's state, for firing events
+     */
+    ProjectOverview toOverview(Project project, Collection<User> watchers) {
+      ProjectOverview overview = new ProjectOverview();
+      overview.setId(id);
+      overview.setProject(project);
+      overview.setAllSampleQcPassed(allSampleQcPassed);
+      overview.setLibraryPreparationComplete(libraryPreparationComplete);
+      overview.setAllLibrariesQcPassed(allLibrariesQcPassed);
+      overview.setAllPoolsConstructed(allPoolsConstructed);
+      overview.setAllRunsCompleted(allRunsCompleted);
+      overview.setPrimaryAnalysisCompleted(primaryAnalysisCompleted);
+      for (User u : watchers) {
+        overview.addWatcher(u);
+      }
+      return overview;
+    }
   }
 }
@@ -24,20 +24,28 @@
 package uk.ac.bbsrc.tgac.miso.core.event.manager;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.eaglegenomics.simlims.core.Group;
 import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.manager.SecurityManager;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.RunQC;
+import uk.ac.bbsrc.tgac.miso.core.data.Status;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.RunImpl;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.RunQCImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.StatusImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.type.HealthType;
 import uk.ac.bbsrc.tgac.miso.core.event.listener.MisoListener;
 import uk.ac.bbsrc.tgac.miso.core.exception.MalformedRunQcException;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
@@ -45,7 +53,10 @@ import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
 /**
  * uk.ac.bbsrc.tgac.miso.core.event.manager
  * <p/>
- * Info
+ * Tracks the state of watched runs so that changes can be alerted on. Only an immutable snapshot of each run is held (ID, alias, health,
+ * QC IDs, owner ID and watcher IDs). When an update changes a run's health or adds QCs, a transient copy of the run is built from its
+ * snapshot and the run listener is attached to it, so the usual run events are fired to the snapshot's watchers. Snapshots are replaced
+ * atomically, so the manager is safe to use from concurrent request threads.
  * 
  * @author Rob Davey
  * @date 11/11/11
@@ -53,10 +64,10 @@ import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
  */
 public class RunAlertManager {
   protected static final Logger log = LoggerFactory.getLogger(RunAlertManager.class);
-  Map<Long, Run> runs = new HashMap<Long, Run>();
+  final ConcurrentMap<Long, RunSnapshot> runs = new ConcurrentHashMap<>();
 
   private RequestManager misoRequestManager;
-  private boolean enabled = true;
+  private volatile boolean enabled = true;
 
   @Autowired
   private SecurityManager securityManager;
@@ -93,20 +104,12 @@ public class RunAlertManager {
 
   public void push(Run run) {
     if (enabled) {
-      if (run != null) {
-        Run clone = partialCopy(run);
-        if (clone != null) {
-          applyListeners(clone);
-          if (runs.containsKey(run.getId())) {
-            if (clone.getStatus() != null) {
-              log.debug("Not replacing Run " + clone.getId() + ": " + clone.getStatus().getHealth().name());
-            }
-          } else {
-            runs.put(run.getId(), clone);
-            if (clone.getStatus() != null) {
-              log.debug("Queued Run " + clone.getId() + ": " + clone.getStatus().getHealth().name());
-            }
-          }
+      if (run != null && !runs.containsKey(run.getId())) {
+        RunSnapshot snapshot = new RunSnapshot(run);
+        if (runs.putIfAbsent(run.getId(), snapshot) == null) {
+          log.debug("Queued Run " + snapshot.id + ": " + snapshot.health);
+        } else {
+          log.debug("Not replacing Run " + snapshot.id + ": " + snapshot.health);
         }
       }
     } else {
@@ -116,14 +119,8 @@ public class RunAlertManager {
 
   public void pop(Run run) {
     if (enabled) {
-      if (run != null) {
-        Run clone = runs.get(run.getId());
-        if (clone != null) {
-          removeListeners(clone);
-          clone = null;
-          runs.remove(run.getId());
-          log.debug("Dequeued " + run.getId());
-        }
+      if (run != null && runs.remove(run.getId()) != null) {
+        log.debug("Dequeued " + run.getId());
       }
     } else {
       log.warn("Alerting system disabled.");
@@ -133,7 +130,7 @@ public class RunAlertManager {
   public void update(Long runId) throws IOException {
     update(misoRequestManager.getRunById(runId));
   }
-  
+
   public void updateQcs(Long runQcId) throws IOException {
     Run run = misoRequestManager.getRunQCById(runQcId).getRun();
     update(run);
@@ -141,52 +138,67 @@ public class RunAlertManager {
 
   private void update(Run r) throws IOException {
     if (enabled) {
-      Run clone = runs.get(r.getId());
-      if (clone == null) {
-        log.debug("Update: no clone - pushing");
-        // new run - add all RunWatchers!
-        for (User u : securityManager.listUsersByGroupName("RunWatchers")) {
-          r.addWatcher(u);
-        }
-        push(r);
-      } else {
-        log.debug("Update: got clone of " + clone.getId());
-        if (r.getStatus() != null) {
-          clone.setStatus(r.getStatus());
+      while (true) {
+        RunSnapshot previous = runs.get(r.getId());
+        if (previous == null) {
+          log.debug("Update: no snapshot - pushing");
+          // new run - add all RunWatchers!
+          for (User u : securityManager.listUsersByGroupName("RunWatchers")) {
+            r.addWatcher(u);
+          }
+          push(r);
+          return;
         }
 
-        // run QC added
-        if (r.getRunQCs().size() > clone.getRunQCs().size()) {
-          Map<Long, RunQC> clonedQCs = new HashMap<>();
-          for (RunQC qc : clone.getRunQCs()) {
-            clonedQCs.put(qc.getId(), qc);
-          }
-          for (RunQC qc : r.getRunQCs()) {
-            if (!clonedQCs.containsKey(qc.getId())) {
-              try {
-                clone.addQc(partialCopy(qc));
-              } catch (MalformedRunQcException e) {
-                throw new IOException(e);
-              }
-            }
-          }
+        // only the thread that replaces the snapshot fires events, so each change is alerted once
+        if (runs.replace(r.getId(), previous, new RunSnapshot(r))) {
+          log.debug("Update: replaced snapshot of " + previous.id);
+          fireChanges(previous, r);
+          return;
         }
+      }
+    }
+  }
 
-        pop(clone);
-        push(r);
+  private void fireChanges(RunSnapshot previous, Run r) throws IOException {
+    boolean healthChanged = previous.health != null && r.getStatus() != null && r.getStatus().getHealth() != null
+        && !r.getStatus().getHealth().equals(previous.health);
+    Set<RunQC> addedQcs = new HashSet<>();
+    for (RunQC qc : r.getRunQCs()) {
+      if (!previous.qcIds.contains(qc.getId())) {
+        addedQcs.add(qc);
       }
     }
+    if (!healthChanged && addedQcs.isEmpty()) {
+      return;
+    }
+
+    Run tracked = previous.toRun(WatcherSnapshots.resolve(previous.watcherIds, r.getWatchers(), securityManager));
+    applyListeners(tracked);
+    try {
+      if (healthChanged) {
+        tracked.setStatus(r.getStatus());
+      }
+      for (RunQC qc : addedQcs) {
+        try {
+          tracked.addQc(partialCopy(qc));
+        } catch (MalformedRunQcException e) {
+          throw new IOException(e);
+        }
+      }
+    } finally {
+      removeListeners(tracked);
+    }
   }
 
   public void addWatcher(Run run, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null) {
-      Run clone = runs.get(run.getId());
-      if (clone == null) {
+      if (!runs.containsKey(run.getId())) {
         run.addWatcher(user);
         push(run);
       } else {
-        clone.addWatcher(user);
+        addWatcherId(run.getId(), userId);
       }
     }
   }
@@ -194,57 +206,46 @@ public class RunAlertManager {
   public void removeWatcher(Run run, Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
     if (user != null) {
-      Run clone = runs.get(run.getId());
-      if (clone == null) {
+      if (!runs.containsKey(run.getId())) {
         run.removeWatcher(user);
         push(run);
       } else {
-        clone.removeWatcher(user);
+        removeWatcherId(run.getId(), userId);
       }
     }
   }
 
   public void updateGroupWatcher(Long userId) throws IOException {
     User user = securityManager.getUserById(userId);
-    if (user != null) {
-      for (Run r : runs.values()) {
-        if (user.getGroups() != null && user.getGroups().contains(securityManager.getGroupByName("RunWatchers"))) {
-          addWatcher(r, userId);
-        } else {
-          if (r.getSecurityProfile() != null && r.getSecurityProfile().getOwner() != null
-              && !r.getSecurityProfile().getOwner().equals(user)) {
-            removeWatcher(r, userId);
-          }
+    if (user != null && user.getGroups() != null) {
+      Group runWatchers = securityManager.getGroupByName("RunWatchers");
+      boolean watching = user.getGroups().contains(runWatchers);
+      for (RunSnapshot snapshot : runs.values()) {
+        if (watching) {
+          addWatcherId(snapshot.id, userId);
+        } else if (WatcherSnapshots.isRemovedOnLeavingGroup(snapshot.ownerId, userId)) {
+          removeWatcherId(snapshot.id, userId);
         }
       }
     }
   }
-  
-  /**
-   * Creates a minimal copy of the run to be used for change tracking in the alerting system. Only relevant 
-   * fields are copied
-   * 
-   * @param run the run to copy
-   * @return the copy
-   */
-  private Run partialCopy(Run run) {
-    Run clone = new RunImpl();
-    clone.setId(run.getId());
-    clone.setAlias(run.getAlias());
-    clone.setStatus(run.getStatus());
-    for (RunQC qc : run.getRunQCs()) {
-      try {
-        clone.addQc(partialCopy(qc));
-      } catch (MalformedRunQcException e) {
-        log.error("Can't track Malformed RunQC", e);
-      }
-    }
-    for (User u : run.getWatchers()) {
-      clone.addWatcher(u);
-    }
-    return clone;
+
+  private void addWatcherId(Long runId, Long userId) {
+    RunSnapshot current;
+    do {
+      current = runs.get(runId);
+      if (current == null || current.watcherIds.contains(userId)) return;
+    } while (!runs.replace(runId, current, current.withWatcherIds(WatcherSnapshots.with(current.watcherIds, userId))));
   }
-  
+
+  private void removeWatcherId(Long runId, Long userId) {
+    RunSnapshot current;
+    do {
+      current = runs.get(runId);
+      if (current == null || !current.watcherIds.contains(userId)) return;
+    } while (!runs.replace(runId, current, current.withWatcherIds(WatcherSnapshots.without(current.watcherIds, userId))));
+  }
+
   /**
    * Creates a minimal copy of the RunQC to be used for change tracking in the alerting system. Only relevant
    * fields are copied
@@ -261,4 +262,60 @@ public class RunAlertManager {
     clone.setInformation(runQc.getInformation());
     return clone;
   }
-}
\ No newline at end of file
+
+  /**
+   * Immutable record of the run fields relevant to alerting
+   */
+  static final class RunSnapshot {
+    final long id;
+    final String alias;
+    final HealthType health;
+    final Set<Long> qcIds;
+    final Long ownerId;
+    final Set<Long> watcherIds;
+
+    RunSnapshot(Run run) {
+      this.id = run.getId();
+      this.alias = run.getAlias();
+      this.ownerId = WatcherSnapshots.ownerIdOf(run.getSecurityProfile());
+      this.health = run.getStatus() == null ? null : run.getStatus().getHealth();
+      Set<Long> qcs = new HashSet<>();
+      for (RunQC qc : run.getRunQCs()) {
+        qcs.add(qc.getId());
+      }
+      this.qcIds = Collections.unmodifiableSet(qcs);
+      this.watcherIds = WatcherSnapshots.idsOf(run.getWatchers());
+    }
+
+    private RunSnapshot(RunSnapshot other, Set<Long> watcherIds) {
+      this.id = other.id;
+      this.alias = other.alias;
+      this.health = other.health;
+      this.qcIds = other.qcIds;
+      this.ownerId = other.ownerId;
+      this.watcherIds = watcherIds;
+    }
+
+    RunSnapshot withWatcherIds(Set<Long> watcherIds) {
+      return new RunSnapshot(this, watcherIds);
+    }
+
+    /**
+     * Builds a transient Run in this snapshot's state, for firing events. QCs are not copied; events are fired for new QCs only.
+     */
+    Run toRun(Collection<User> watchers) {
+      Run run = new RunImpl();
+      run.setId(id);
+      run.setAlias(alias);
+      if (health != null) {
+        Status status = new StatusImpl();
+        status.setHealth(health);
+        run.setStatus(status);
+      }
+      for (User u : watchers) {
+        run.addWatcher(u);
+      }
+      return run;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package uk.ac.bbsrc.tgac.miso.core.event.manager;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
+import com.eaglegenomics.simlims.core.manager.SecurityManager;
+
+/**
+ * Helpers for the immutable sets of watcher user IDs held by the alert managers' snapshots
+ */
+final class WatcherSnapshots {
+
+  private WatcherSnapshots() {
+  }
+
+  static Set<Long> idsOf(Collection<User> users) {
+    if (users == null || users.isEmpty()) {
+      return Collections.emptySet();
+    }
+    Set<Long> ids = new HashSet<>();
+    for (User u : users) {
+      ids.add(u.getUserId());
+    }
+    return Collections.unmodifiableSet(ids);
+  }
+
+  /**
+   * @return the user ID of the profile's owner, or null if there is no profile or owner
+   */
+  static Long ownerIdOf(SecurityProfile profile) {
+    return profile == null || profile.getOwner() == null ? null : profile.getOwner().getUserId();
+  }
+
+  /**
+   * A user who leaves a watchers group stops watching an entity, unless they own it. As before, nobody is removed from an entity whose
+   * owner is unknown.
+   */
+  static boolean isRemovedOnLeavingGroup(Long ownerId, Long userId) {
+    return ownerId != null && !ownerId.equals(userId);
+  }
+
+  static Set<Long> with(Set<Long> ids, Long id) {
+    if (ids.contains(id)) {
+      return ids;
+    }
+    Set<Long> copy = new HashSet<>(ids);
+    copy.add(id);
+    return Collections.unmodifiableSet(copy);
+  }
+
+  static Set<Long> without(Set<Long> ids, Long id) {
+    if (!ids.contains(id)) {
+      return ids;
+    }
+    Set<Long> copy = new HashSet<>(ids);
+    copy.remove(id);
+    return Collections.unmodifiableSet(copy);
+  }
+
+  /**
+   * Turns watcher IDs back into Users, preferring Users already loaded on an entity over security manager lookups
+   *
+   * @param ids
+   *          the watcher IDs to resolve
+   * @param known
+   *          Users that are already loaded, e.g. the watchers of a freshly retrieved entity
+   * @param securityManager
+   *          used to look up any remaining IDs
+   * @return the resolved Users. IDs that no longer match a User are skipped.
+   */
+  static Set<User> resolve(Set<Long> ids, Collection<User> known, SecurityManager securityManager) throws IOException {
+    Map<Long, User> byId = new HashMap<>();
+    if (known != null) {
+      for (User u : known) {
+        byId.put(u.getUserId(), u);
+      }
+    }
+    Set<User> users = new HashSet<>();
+    for (Long id : ids) {
+      User u = byId.get(id);
+      if (u == null) {
+        u = securityManager.getUserById(id);
+      }
+      if (u != null) {
+        users.add(u);
+      }
+    }
+    return users;
+  }
+}
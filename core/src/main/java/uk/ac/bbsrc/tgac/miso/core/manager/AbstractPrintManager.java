@@ -115,6 +115,9 @@ public abstract class AbstractPrintManager<C> implements PrintManager<MisoPrintS
   @Override
   public abstract PrintJob print(C content, String printServiceName, User user) throws MisoPrintException;
 
+  @Override
+  public abstract PrintJob print(DeferredPrintContent<C> content, String printServiceName, User user) throws MisoPrintException;
+
   @Override
   public Set<Class<? extends Barcodable>> getBarcodableEntities() {
     if (barcodableMap == null) {
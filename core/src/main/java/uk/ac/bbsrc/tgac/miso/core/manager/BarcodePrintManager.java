@@ -25,8 +25,17 @@ package uk.ac.bbsrc.tgac.miso.core.manager;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,11 +47,14 @@ import uk.ac.bbsrc.tgac.miso.core.data.impl.MisoPrintJob;
 import uk.ac.bbsrc.tgac.miso.core.exception.MisoPrintException;
 import uk.ac.bbsrc.tgac.miso.core.service.printing.MisoPrintService;
 import uk.ac.bbsrc.tgac.miso.core.service.printing.PrintContextResolverService;
+import uk.ac.bbsrc.tgac.miso.core.service.printing.context.BatchPrintContext;
 
 /**
  * uk.ac.bbsrc.tgac.miso.core.manager
  * <p/>
- * Manages specified MisoPrintServices and allows construction of a print job that will be persisted on print()
+ * Manages specified MisoPrintServices and spools print jobs to them. A job is persisted as QUEUED and returned as soon as print() is
+ * called, and is then prepared, if its content was deferred, and sent by a worker belonging to its print service, one job at a time,
+ * updating the persisted status to PRINTING and then OK or FAIL so that it can be polled.
  * 
  * @author Rob Davey
  * @date 30-Jun-2011
@@ -51,54 +63,169 @@ import uk.ac.bbsrc.tgac.miso.core.service.printing.PrintContextResolverService;
 public class BarcodePrintManager extends AbstractPrintManager<Queue<File>> {
   protected static final Logger log = LoggerFactory.getLogger(BarcodePrintManager.class);
 
+  public static final String STATUS_QUEUED = "QUEUED";
+  public static final String STATUS_PRINTING = "PRINTING";
+  public static final String STATUS_OK = "OK";
+  public static final String STATUS_FAIL = "FAIL";
+
+  private final Map<String, ExecutorService> workers = new HashMap<>();
+  private boolean stopped = false;
+
   public BarcodePrintManager(PrintContextResolverService pcrs) {
     setPrintContextResolverService(pcrs);
   }
 
   @Override
   public PrintJob print(Queue<File> barcodesToPrint, String printServiceName, User user) throws MisoPrintException {
+    final Queue<File> labels = new LinkedList<>(barcodesToPrint);
+    return print(new DeferredPrintContent<Queue<File>>() {
+      @Override
+      public Queue<File> prepare() {
+        return labels;
+      }
+    }, labels, printServiceName, user);
+  }
+
+  @Override
+  public PrintJob print(DeferredPrintContent<Queue<File>> content, String printServiceName, User user) throws MisoPrintException {
+    return print(content, new LinkedList<File>(), printServiceName, user);
+  }
+
+  /**
+   * Stores a QUEUED job for the content, with the labels already known, and queues it to be prepared and sent by the print service's
+   * worker
+   */
+  private PrintJob print(DeferredPrintContent<Queue<File>> content, Queue<File> queuedElements, String printServiceName, User user)
+      throws MisoPrintException {
+    MisoPrintService mps;
+    try {
+      mps = getPrintService(printServiceName);
+    } catch (IOException e) {
+      log.error("Could not store print barcodes", e);
+      throw new MisoPrintException("Cannot retrieve PrintService: " + printServiceName);
+    }
+    if (mps == null) {
+      throw new MisoPrintException("No such PrintService: " + printServiceName);
+    }
+
+    MisoPrintJob job = new MisoPrintJob();
+    job.setPrintDate(new Date());
+    job.setPrintService(mps);
+    job.setPrintUser(user);
+    job.setQueuedElements(queuedElements);
+    job.setStatus(STATUS_QUEUED);
     try {
-      MisoPrintService mps = getPrintService(printServiceName);
-      if (mps != null) {
-        MisoPrintJob job = new MisoPrintJob();
-        job.setPrintDate(new Date());
-        job.setPrintService(mps);
-        job.setPrintUser(user);
-        job.setQueuedElements(barcodesToPrint);
-        job.setStatus("QUEUED");
-        try {
-          long jobId = storePrintJob(job);
-          job.setId(jobId);
-        } catch (IOException e) {
-          log.error("Could not store print job", e);
+      long jobId = storePrintJob(job);
+      job.setId(jobId);
+    } catch (IOException e) {
+      log.error("Could not store print job", e);
+    }
+
+    workerFor(mps.getName()).execute(new PrintTask(mps, job, content));
+    return job;
+  }
+
+  private synchronized ExecutorService workerFor(final String printServiceName) throws MisoPrintException {
+    if (stopped) {
+      throw new MisoPrintException("Print spooler has been stopped");
+    }
+    ExecutorService worker = workers.get(printServiceName);
+    if (worker == null) {
+      worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "miso-print-" + printServiceName);
+          t.setDaemon(true);
+          return t;
         }
+      });
+      workers.put(printServiceName, worker);
+    }
+    return worker;
+  }
 
-        try {
-          boolean jobOK = true;
-          for (File barcodeFile : barcodesToPrint) {
-            if (!mps.print(barcodeFile)) {
-              jobOK = false;
-            }
-          }
-
-          if (jobOK) {
-            job.setStatus("OK");
-          } else {
-            job.setStatus("FAIL");
-          }
-
-          storePrintJob(job);
-        } catch (IOException e) {
-          log.error("Could not store print barcodes", e);
-          throw new MisoPrintException("Could not print barcodes to " + printServiceName + ": " + e.getMessage(), e);
+  /**
+   * Stops the print workers, waiting briefly for any job being sent to finish. Jobs still queued are left with that status.
+   */
+  public void stop() {
+    List<ExecutorService> stopping;
+    synchronized (this) {
+      stopped = true;
+      stopping = new ArrayList<>(workers.values());
+      workers.clear();
+    }
+    for (ExecutorService worker : stopping) {
+      worker.shutdownNow();
+    }
+    for (ExecutorService worker : stopping) {
+      try {
+        worker.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Prepares one job's labels and sends them to its print service, as a single transfer if the service's PrintContext allows it
+   */
+  private class PrintTask implements Runnable {
+    private final MisoPrintService mps;
+    private final MisoPrintJob job;
+    private final DeferredPrintContent<Queue<File>> content;
+    private List<File> barcodes;
+
+    public PrintTask(MisoPrintService mps, MisoPrintJob job, DeferredPrintContent<Queue<File>> content) {
+      this.mps = mps;
+      this.job = job;
+      this.content = content;
+    }
+
+    @Override
+    public void run() {
+      Queue<File> prepared;
+      try {
+        prepared = content.prepare();
+      } catch (Exception e) {
+        log.error("Could not prepare barcodes for print job " + job.getId(), e);
+        updateStatus(STATUS_FAIL);
+        return;
+      }
+      barcodes = new ArrayList<>(prepared);
+      job.setQueuedElements(prepared);
+      updateStatus(STATUS_PRINTING);
+      boolean jobOK;
+      try {
+        jobOK = send();
+      } catch (Exception e) {
+        log.error("Could not print barcodes to " + mps.getName(), e);
+        jobOK = false;
+      }
+      updateStatus(jobOK ? STATUS_OK : STATUS_FAIL);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean send() throws IOException {
+      if (mps.isEnabled() && mps.getPrintContext() instanceof BatchPrintContext) {
+        return ((BatchPrintContext<File>) mps.getPrintContext()).printAll(barcodes);
+      }
+      boolean jobOK = true;
+      for (File barcodeFile : barcodes) {
+        if (!mps.print(barcodeFile)) {
+          jobOK = false;
         }
-        return job;
-      } else {
-        throw new MisoPrintException("No such PrintService: " + printServiceName);
       }
-    } catch (IOException e) {
-      log.error("Could not store print barcodes", e);
-      throw new MisoPrintException("Cannot retrieve PrintService: " + printServiceName);
+      return jobOK;
+    }
+
+    private void updateStatus(String status) {
+      job.setStatus(status);
+      try {
+        storePrintJob(job);
+      } catch (IOException e) {
+        log.error("Could not store print job", e);
+      }
     }
   }
 }
@@ -0,0 +1,17 @@
+package uk.ac.bbsrc.tgac.miso.core.manager;
+
+import java.io.IOException;
+
+/**
+ * Content for a print job that is too slow to prepare while the user waits, such as the labels for every sample in a project, and so is
+ * prepared by the print spooler when the job's turn comes
+ */
+public interface DeferredPrintContent<C> {
+  /**
+   * Prepares the content to print. This is called on a print worker thread, not the thread that queued the job.
+   *
+   * @return the content to print
+   * @throws IOException if the content cannot be prepared, which fails the job
+   */
+  C prepare() throws IOException;
+}
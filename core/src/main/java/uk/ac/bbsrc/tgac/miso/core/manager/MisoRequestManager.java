@@ -29,6 +29,7 @@ import static uk.ac.bbsrc.tgac.miso.core.util.LimsUtils.isStringEmptyOrNull;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +51,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.ChangeLog;
 import uk.ac.bbsrc.tgac.miso.core.data.Dilution;
 import uk.ac.bbsrc.tgac.miso.core.data.EntityGroup;
 import uk.ac.bbsrc.tgac.miso.core.data.Experiment;
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Kit;
 import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.LibraryDesign;
@@ -62,8 +64,10 @@ import uk.ac.bbsrc.tgac.miso.core.data.Pool;
 import uk.ac.bbsrc.tgac.miso.core.data.PoolQC;
 import uk.ac.bbsrc.tgac.miso.core.data.Poolable;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.RunQC;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleAdditionalInfo;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleClass;
@@ -111,6 +115,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.RunQcStore;
 import uk.ac.bbsrc.tgac.miso.core.store.RunStore;
 import uk.ac.bbsrc.tgac.miso.core.store.SampleQcStore;
 import uk.ac.bbsrc.tgac.miso.core.store.SampleStore;
+import uk.ac.bbsrc.tgac.miso.core.store.SecurityProfileStore;
 import uk.ac.bbsrc.tgac.miso.core.store.SecurityStore;
 import uk.ac.bbsrc.tgac.miso.core.store.SequencerPartitionContainerStore;
 import uk.ac.bbsrc.tgac.miso.core.store.SequencerReferenceStore;
@@ -320,6 +325,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Project> listProjectsAfterId(long afterId, int limit) throws IOException {
+    if (projectStore != null) {
+      return keysetPage(projectStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No projectStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Project> listAllProjectsWithLimit(long limit) throws IOException {
     if (projectStore != null) {
@@ -338,6 +352,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Project> listProjectsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (projectStore != null) {
+      return keysetPage(projectStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No projectStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @SuppressWarnings("rawtypes")
   @Override
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPoolsBySearch(String query) throws IOException {
@@ -348,6 +371,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Pool<? extends Poolable<?, ?>>> listPoolsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (poolStore != null) {
+      return keysetPage(poolStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No poolStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @SuppressWarnings("rawtypes")
   @Override
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPoolsWithLimit(int limit) throws IOException {
@@ -376,6 +408,24 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Run> listRunsAfterId(long afterId, int limit) throws IOException {
+    if (runStore != null) {
+      return keysetPage(runStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No runStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
+  @Override
+  public List<Run> listRunsByIdList(List<Long> idList) throws IOException {
+    if (runStore != null) {
+      return runStore.listByIdList(idList);
+    } else {
+      throw new IOException("No runStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Run> listAllRunsWithLimit(long limit) throws IOException {
     if (runStore != null) {
@@ -394,6 +444,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Run> listRunsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (runStore != null) {
+      return keysetPage(runStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No runStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Run> listAllRunsByProjectId(long projectId) throws IOException {
     if (runStore != null) {
@@ -484,6 +543,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Sample> listSamplesAfterId(long afterId, int limit) throws IOException {
+    if (sampleStore != null) {
+      return keysetPage(sampleStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No sampleStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Sample> listAllSamplesWithLimit(long limit) throws IOException {
     if (sampleStore != null) {
@@ -511,6 +579,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Sample> listSamplesBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (sampleStore != null) {
+      return keysetPage(sampleStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No sampleStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Sample> listAllSamplesByProjectId(long projectId) throws IOException {
     if (sampleStore != null) {
@@ -538,6 +615,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public Collection<Sample> listSamplesByAliasList(List<String> aliasList) throws IOException {
+    if (sampleStore != null) {
+      return sampleStore.listByAliasList(aliasList);
+    } else {
+      throw new IOException("No sampleStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Sample> getSamplesByIdList(List<Long> idList) throws IOException {
     if (sampleStore != null) {
@@ -574,6 +660,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public List<Library> listLibrariesByIdList(List<Long> idList) throws IOException {
+    if (libraryStore != null) {
+      return libraryStore.listByIdList(idList);
+    } else {
+      throw new IOException("No libraryStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Library> listAllLibrariesWithLimit(long limit) throws IOException {
     if (libraryStore != null) {
@@ -592,6 +687,24 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Library> listLibrariesBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (libraryStore != null) {
+      return keysetPage(libraryStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No libraryStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
+  @Override
+  public KeysetPage<Library> listLibrariesAfterId(long afterId, int limit) throws IOException {
+    if (libraryStore != null) {
+      return keysetPage(libraryStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No libraryStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Library> listAllLibrariesByProjectId(long projectId) throws IOException {
     if (libraryStore != null) {
@@ -651,6 +764,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Pool<? extends Poolable<?, ?>>> listPoolsAfterId(long afterId, int limit) throws IOException {
+    if (poolStore != null) {
+      return keysetPage(poolStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No poolStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPoolsByPlatform(PlatformType platformType) throws IOException {
     if (poolStore != null) {
@@ -796,6 +918,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<LibraryDilution> listLibraryDilutionsAfterId(long afterId, int limit) throws IOException {
+    if (libraryDilutionStore != null) {
+      return keysetPage(libraryDilutionStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No libraryDilutionStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<LibraryDilution> listAllLibraryDilutionsWithLimit(long limit) throws IOException {
     if (libraryDilutionStore != null) {
@@ -841,6 +972,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<LibraryDilution> listLibraryDilutionsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (libraryDilutionStore != null) {
+      return keysetPage(libraryDilutionStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No libraryDilutionStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<LibraryDilution> listAllLibraryDilutionsByProjectAndPlatform(long projectId, PlatformType platformType)
       throws IOException {
@@ -860,6 +1000,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<emPCRDilution> listEmPCRDilutionsAfterId(long afterId, int limit) throws IOException {
+    if (emPCRDilutionStore != null) {
+      return keysetPage(emPCRDilutionStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No emPCRDilutionStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<emPCRDilution> listAllEmPCRDilutionsByPlatform(PlatformType platformType) throws IOException {
     if (emPCRDilutionStore != null) {
@@ -950,6 +1099,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Experiment> listExperimentsAfterId(long afterId, int limit) throws IOException {
+    if (experimentStore != null) {
+      return keysetPage(experimentStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No experimentStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Experiment> listAllExperimentsWithLimit(long limit) throws IOException {
     if (experimentStore != null) {
@@ -968,6 +1126,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Experiment> listExperimentsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (experimentStore != null) {
+      return keysetPage(experimentStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No experimentStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Experiment> listAllExperimentsByStudyId(long studyId) throws IOException {
     if (experimentStore != null) {
@@ -986,6 +1153,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Study> listStudiesAfterId(long afterId, int limit) throws IOException {
+    if (studyStore != null) {
+      return keysetPage(studyStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No studyStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Study> listAllStudiesWithLimit(long limit) throws IOException {
     if (studyStore != null) {
@@ -1004,6 +1180,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Study> listStudiesBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    if (studyStore != null) {
+      return keysetPage(studyStore.listBySearchBeforeId(query, beforeId, limit), beforeId);
+    } else {
+      throw new IOException("No studyStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Study> listAllStudiesByLibraryId(long libraryId) throws IOException {
     if (studyStore != null) {
@@ -1042,6 +1227,16 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public Collection<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByBarcodeList(
+      List<String> barcodeList) throws IOException {
+    if (sequencerPartitionContainerStore != null) {
+      return sequencerPartitionContainerStore.listByBarcodeList(barcodeList);
+    } else {
+      throw new IOException("No sequencerPartitionContainerStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<SequencerPoolPartition> listAllSequencerPoolPartitions() throws IOException {
     if (partitionStore != null) {
@@ -1069,6 +1264,26 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersAfterId(long afterId, int limit)
+      throws IOException {
+    if (sequencerPartitionContainerStore != null) {
+      return keysetPage(sequencerPartitionContainerStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No sequencerPartitionContainerStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
+  @Override
+  public List<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByIdList(List<Long> idList)
+      throws IOException {
+    if (sequencerPartitionContainerStore != null) {
+      return sequencerPartitionContainerStore.listByIdList(idList);
+    } else {
+      throw new IOException("No sequencerPartitionContainerStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Platform> listAllPlatforms() throws IOException {
     if (platformStore != null) {
@@ -1151,6 +1366,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public List<RunSummary> listRunSummaries(Long sequencerReferenceId, Date from, Date to) throws IOException {
+    if (runStore != null) {
+      return runStore.listSummaries(sequencerReferenceId, from, to);
+    } else {
+      throw new IOException("No runStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<SequencerReference> listAllSequencerReferences() throws IOException {
     if (sequencerReferenceStore != null) {
@@ -1286,6 +1510,16 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public KeysetPage<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listPlatesAfterId(long afterId, int limit)
+      throws IOException {
+    if (plateStore != null) {
+      return keysetPage(plateStore.listAfterId(afterId, limit), afterId);
+    } else {
+      throw new IOException("No plateStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listAllPlatesByProjectId(long projectId)
       throws IOException {
@@ -1810,6 +2044,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public void saveStatuses(Collection<Status> statuses) throws IOException {
+    if (statusStore != null) {
+      statusStore.saveAll(statuses);
+    } else {
+      throw new IOException("No statusStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public long saveSecurityProfile(SecurityProfile profile) throws IOException {
     if (securityProfileStore != null) {
@@ -1819,6 +2062,24 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public Collection<SecurityProfile> listSecurityProfilesByIdList(List<Long> idList) throws IOException {
+    if (securityProfileStore instanceof SecurityProfileStore) {
+      return ((SecurityProfileStore) securityProfileStore).listByIds(idList);
+    } else if (securityProfileStore != null) {
+      List<SecurityProfile> profiles = new ArrayList<>();
+      for (Long id : idList) {
+        SecurityProfile profile = securityProfileStore.get(id);
+        if (profile != null) {
+          profiles.add(profile);
+        }
+      }
+      return profiles;
+    } else {
+      throw new IOException("No securityProfileStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public long saveSubmission(Submission submission) throws IOException {
     if (submissionStore != null) {
@@ -1901,6 +2162,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public ProjectGraph getProjectGraph(long projectId) throws IOException {
+    if (projectStore != null) {
+      return projectStore.getGraph(projectId);
+    } else {
+      throw new IOException("No projectStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public ProjectOverview getProjectOverviewById(long overviewId) throws IOException {
     if (projectStore != null) {
@@ -1928,6 +2198,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public Collection<Run> listRunsByAliasList(List<String> aliasList) throws IOException {
+    if (runStore != null) {
+      return runStore.listByAliasList(aliasList);
+    } else {
+      throw new IOException("No runStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public RunQC getRunQCById(long runQcId) throws IOException {
     if (runQcStore != null) {
@@ -2556,6 +2835,15 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public Collection<Box> listAllBoxesWithOccupancy() throws IOException {
+    if (boxStore != null) {
+      return boxStore.listAllWithOccupancy();
+    } else {
+      throw new IOException("No boxStore available. Check that it has been declared in the Spring config.");
+    }
+  }
+
   @Override
   public Collection<Box> listAllBoxesWithLimit(long limit) throws IOException {
     if (boxStore != null) {
@@ -2982,4 +3270,16 @@ public class MisoRequestManager implements RequestManager {
     }
   }
 
+  /**
+   * Wraps a page of rows read from a store, all of which are returned
+   * 
+   * @param rows
+   *          the page, in the order it was read
+   * @param cursor
+   *          the ID the page was requested after or before
+   */
+  private static <T extends Nameable> KeysetPage<T> keysetPage(List<T> rows, long cursor) {
+    return new KeysetPage<>(rows, rows.isEmpty() ? cursor : rows.get(rows.size() - 1).getId());
+  }
+
 }
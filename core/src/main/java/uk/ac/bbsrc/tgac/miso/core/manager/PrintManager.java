@@ -74,6 +74,8 @@ public interface PrintManager<T, C> {
 
   public PrintJob print(C content, String printServiceName, User user) throws MisoPrintException;
 
+  public PrintJob print(DeferredPrintContent<C> content, String printServiceName, User user) throws MisoPrintException;
+
   public Collection<BarcodableSchema> getBarcodableSchemas();
 
   public BarcodableSchema getBarcodableSchema(String barcodableStateName) throws IOException;
@@ -25,6 +25,7 @@ package uk.ac.bbsrc.tgac.miso.core.manager;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +40,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.ChangeLog;
 import uk.ac.bbsrc.tgac.miso.core.data.Dilution;
 import uk.ac.bbsrc.tgac.miso.core.data.EntityGroup;
 import uk.ac.bbsrc.tgac.miso.core.data.Experiment;
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Kit;
 import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.LibraryDesign;
@@ -51,8 +53,10 @@ import uk.ac.bbsrc.tgac.miso.core.data.Pool;
 import uk.ac.bbsrc.tgac.miso.core.data.PoolQC;
 import uk.ac.bbsrc.tgac.miso.core.data.Poolable;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.RunQC;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleClass;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleQC;
@@ -132,8 +136,19 @@ public interface RequestManager {
 
   public long saveStatus(Status status) throws IOException;
 
+  /**
+   * Saves several Statuses in one batch
+   */
+  public void saveStatuses(Collection<Status> statuses) throws IOException;
+
   public long saveSecurityProfile(SecurityProfile profile) throws IOException;
 
+  /**
+   * Lists the SecurityProfiles with the given IDs that the user can read, complete with their owners, users and groups, in as few queries
+   * as possible. IDs with no profile are omitted.
+   */
+  public Collection<SecurityProfile> listSecurityProfilesByIdList(List<Long> idList) throws IOException;
+
   public long saveSubmission(Submission submission) throws IOException;
 
   public long saveSequencerReference(SequencerReference sequencerReference) throws IOException;
@@ -219,12 +234,22 @@ public interface RequestManager {
 
   public Project getProjectByAlias(String projectAlias) throws IOException;
 
+  /**
+   * Obtain the graph of a Project's studies, experiments, samples, libraries and runs, as IDs, names and the edges between them
+   */
+  public ProjectGraph getProjectGraph(long projectId) throws IOException;
+
   public ProjectOverview getProjectOverviewById(long overviewId) throws IOException;
 
   public Run getRunById(long runId) throws IOException;
 
   public Run getRunByAlias(String alias) throws IOException;
 
+  /**
+   * Lists the Runs with any of the given aliases in one lookup, for resolving many aliases at once
+   */
+  public Collection<Run> listRunsByAliasList(List<String> aliasList) throws IOException;
+
   public RunQC getRunQCById(long runQcId) throws IOException;
 
   public Sample getSampleById(long sampleId) throws IOException;
@@ -297,38 +322,65 @@ public interface RequestManager {
    */
   public Collection<Project> listAllProjects() throws IOException;
 
+  public KeysetPage<Project> listProjectsAfterId(long afterId, int limit) throws IOException;
+
   public Collection<Project> listAllProjectsWithLimit(long limit) throws IOException;
 
   public Collection<Project> listAllProjectsBySearch(String query) throws IOException;
 
+  /**
+   * Lists one page of the Projects matching a search, newest first. Pages are keyed on ID: pass Long.MAX_VALUE for the first page, then the
+   * last scanned ID of the previous page, which may be lower than that of any Project it shows if some could not be read.
+   */
+  public KeysetPage<Project> listProjectsBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
   public Collection<ProjectOverview> listAllOverviewsByProjectId(long projectId) throws IOException;
 
   public Collection<Study> listAllStudies() throws IOException;
 
+  public KeysetPage<Study> listStudiesAfterId(long afterId, int limit) throws IOException;
+
   public Collection<Study> listAllStudiesWithLimit(long limit) throws IOException;
 
   public Collection<Study> listAllStudiesBySearch(String query) throws IOException;
 
+  public KeysetPage<Study> listStudiesBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
   public Collection<Study> listAllStudiesByLibraryId(long libraryId) throws IOException;
 
   public Collection<Experiment> listAllExperiments() throws IOException;
 
+  public KeysetPage<Experiment> listExperimentsAfterId(long afterId, int limit) throws IOException;
+
   public Collection<Experiment> listAllExperimentsWithLimit(long limit) throws IOException;
 
   public Collection<Experiment> listAllExperimentsBySearch(String query) throws IOException;
 
+  public KeysetPage<Experiment> listExperimentsBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
   public Collection<Box> listAllBoxes() throws IOException;
 
+  public Collection<Box> listAllBoxesWithOccupancy() throws IOException;
+
   public Collection<Box> listAllBoxesWithLimit(long limit) throws IOException;
 
   public Collection<Box> listAllBoxesByAlias(String alias) throws IOException;
 
   public Collection<Run> listAllRuns() throws IOException;
 
+  public KeysetPage<Run> listRunsAfterId(long afterId, int limit) throws IOException;
+
+  /**
+   * Lists the Runs with the given IDs that the user can read, each fully loaded, in as few queries as possible
+   */
+  public List<Run> listRunsByIdList(List<Long> idList) throws IOException;
+
   public Collection<Run> listAllRunsWithLimit(long limit) throws IOException;
 
   public Collection<Run> listAllRunsBySearch(String query) throws IOException;
 
+  public KeysetPage<Run> listRunsBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
   public Collection<Run> listAllRunsByProjectId(long projectId) throws IOException;
 
   public Collection<Run> listRunsByPoolId(long poolId) throws IOException;
@@ -349,28 +401,52 @@ public interface RequestManager {
   public Collection<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByBarcode(String barcode)
       throws IOException;
 
+  /**
+   * Lists the SequencerPartitionContainers with any of the given barcodes in one lookup, for resolving many barcodes at once
+   */
+  public Collection<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByBarcodeList(
+      List<String> barcodeList) throws IOException;
+
   public Collection<SequencerPoolPartition> listAllSequencerPoolPartitions() throws IOException;
 
   public Collection<? extends SequencerPoolPartition> listPartitionsBySequencerPartitionContainerId(long containerId) throws IOException;
 
   public Collection<SequencerPartitionContainer<SequencerPoolPartition>> listAllSequencerPartitionContainers() throws IOException;
 
+  public KeysetPage<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersAfterId(long afterId, int limit)
+      throws IOException;
+
+  /**
+   * Lists the SequencerPartitionContainers with the given IDs that the user can read, each fully loaded, in as few queries as possible
+   */
+  public List<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByIdList(List<Long> idList)
+      throws IOException;
+
   public Collection<ChangeLog> listAllChanges(String type) throws IOException;
 
   public Collection<Sample> listAllSamples() throws IOException;
 
+  public KeysetPage<Sample> listSamplesAfterId(long afterId, int limit) throws IOException;
+
   public Collection<Sample> listAllSamplesWithLimit(long limit) throws IOException;
 
   public Collection<Sample> listAllSamplesByReceivedDate(long limit) throws IOException;
 
   public Collection<Sample> listAllSamplesBySearch(String query) throws IOException;
 
+  public KeysetPage<Sample> listSamplesBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
   public Collection<Sample> listAllSamplesByProjectId(long projectId) throws IOException;
 
   public Collection<Sample> listAllSamplesByExperimentId(long experimentId) throws IOException;
 
   public Collection<Sample> listSamplesByAlias(String alias) throws IOException;
 
+  /**
+   * Lists the Samples with any of the given aliases in one lookup, for resolving many aliases at once
+   */
+  public Collection<Sample> listSamplesByAliasList(List<String> aliasList) throws IOException;
+
   /**
    * throws AuthorizationIOException if user cannot read one of the requested samples
    */
@@ -382,10 +458,19 @@ public interface RequestManager {
 
   public Collection<Library> listAllLibraries() throws IOException;
 
+  /**
+   * Lists the Libraries with the given IDs that the user can read, each fully loaded, in as few queries as possible
+   */
+  public List<Library> listLibrariesByIdList(List<Long> idList) throws IOException;
+
   public Collection<Library> listAllLibrariesWithLimit(long limit) throws IOException;
 
   public Collection<Library> listAllLibrariesBySearch(String query) throws IOException;
 
+  public KeysetPage<Library> listLibrariesBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  public KeysetPage<Library> listLibrariesAfterId(long afterId, int limit) throws IOException;
+
   public Collection<Library> listAllLibrariesByProjectId(long projectId) throws IOException;
 
   public Collection<Library> listAllLibrariesBySampleId(long sampleId) throws IOException;
@@ -411,6 +496,8 @@ public interface RequestManager {
 
   public Collection<LibraryDilution> listAllLibraryDilutions() throws IOException;
 
+  public KeysetPage<LibraryDilution> listLibraryDilutionsAfterId(long afterId, int limit) throws IOException;
+
   public Collection<LibraryDilution> listAllLibraryDilutionsWithLimit(long limit) throws IOException;
 
   public Collection<LibraryDilution> listAllLibraryDilutionsByLibraryId(long libraryId) throws IOException;
@@ -421,6 +508,8 @@ public interface RequestManager {
 
   public Collection<LibraryDilution> listAllLibraryDilutionsBySearchOnly(String query) throws IOException;
 
+  public KeysetPage<LibraryDilution> listLibraryDilutionsBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
   public Collection<LibraryDilution> listAllLibraryDilutionsByProjectAndPlatform(long projectId, PlatformType platformType)
       throws IOException;
 
@@ -428,6 +517,8 @@ public interface RequestManager {
 
   public Collection<emPCRDilution> listAllEmPCRDilutions() throws IOException;
 
+  public KeysetPage<emPCRDilution> listEmPCRDilutionsAfterId(long afterId, int limit) throws IOException;
+
   public Collection<emPCRDilution> listAllEmPCRDilutionsByEmPcrId(long pcrId) throws IOException;
 
   public Collection<emPCRDilution> listAllEmPCRDilutionsByPlatform(PlatformType platformType) throws IOException;
@@ -448,8 +539,12 @@ public interface RequestManager {
 
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPools() throws IOException;
 
+  public KeysetPage<Pool<? extends Poolable<?, ?>>> listPoolsAfterId(long afterId, int limit) throws IOException;
+
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPoolsBySearch(String query) throws IOException;
 
+  public KeysetPage<Pool<? extends Poolable<?, ?>>> listPoolsBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPoolsWithLimit(int limit) throws IOException;
 
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPoolsByPlatform(PlatformType platformType) throws IOException;
@@ -516,6 +611,16 @@ public interface RequestManager {
 
   public Collection<Run> listRunsBySequencerId(Long sequencerReferenceId) throws IOException;
 
+  /**
+   * Lists lightweight summaries of runs, optionally for one sequencer and within a range of start dates, without loading any of their
+   * related objects
+   *
+   * @param sequencerReferenceId the sequencer to list runs for, or null for all
+   * @param from earliest start date to include, or null for no lower bound
+   * @param to latest start date to include, or null for no upper bound
+   */
+  public List<RunSummary> listRunSummaries(Long sequencerReferenceId, Date from, Date to) throws IOException;
+
   /**
    * Obtain a list of Boxables by supplied identificationBarcode list
    */
@@ -555,6 +660,9 @@ public interface RequestManager {
 
   public Collection<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listAllPlates() throws IOException;
 
+  public KeysetPage<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listPlatesAfterId(long afterId, int limit)
+      throws IOException;
+
   public Collection<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listAllPlatesByProjectId(long projectId)
       throws IOException;
 
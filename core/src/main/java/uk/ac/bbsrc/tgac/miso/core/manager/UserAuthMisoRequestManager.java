@@ -27,9 +27,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +52,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.ChangeLog;
 import uk.ac.bbsrc.tgac.miso.core.data.Dilution;
 import uk.ac.bbsrc.tgac.miso.core.data.EntityGroup;
 import uk.ac.bbsrc.tgac.miso.core.data.Experiment;
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Kit;
 import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.LibraryDesign;
@@ -62,8 +65,10 @@ import uk.ac.bbsrc.tgac.miso.core.data.Pool;
 import uk.ac.bbsrc.tgac.miso.core.data.PoolQC;
 import uk.ac.bbsrc.tgac.miso.core.data.Poolable;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.RunQC;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleClass;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleQC;
@@ -89,6 +94,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
 import uk.ac.bbsrc.tgac.miso.core.data.type.QcType;
 import uk.ac.bbsrc.tgac.miso.core.event.Alert;
 import uk.ac.bbsrc.tgac.miso.core.exception.AuthorizationIOException;
+import uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction;
 import uk.ac.bbsrc.tgac.miso.core.security.SecurableByProfile;
 
 /**
@@ -614,6 +620,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
       throw new AuthorizationIOException("User " + getCurrentUsername() + " cannot read Project " + projectAlias);
   }
 
+  /**
+   * The backing manager loads and caches each graph whole, so it is restricted here: the project must be readable, and every other member
+   * is kept only if its own SecurityProfile is readable
+   */
+  @Override
+  public ProjectGraph getProjectGraph(long projectId) throws IOException {
+    ProjectGraph graph = backingManager.getProjectGraph(projectId);
+    if (graph == null) return null;
+    Set<Long> readableProfileIds = new HashSet<>();
+    for (SecurityProfile profile : listSecurityProfilesByIdList(new ArrayList<>(graph.getSecurityProfileIds()))) {
+      readableProfileIds.add(profile.getProfileId());
+    }
+    if (!readableProfileIds.contains(graph.getSecurityProfileId())) {
+      throw new AuthorizationIOException("User " + getCurrentUsername() + " cannot read Project " + projectId);
+    }
+    return graph.restrictTo(readableProfileIds);
+  }
+
   @Override
   public ProjectOverview getProjectOverviewById(long overviewId) throws IOException {
     ProjectOverview o = backingManager.getProjectOverviewById(overviewId);
@@ -642,6 +666,18 @@ public class UserAuthMisoRequestManager implements RequestManager {
       throw new AuthorizationIOException("User " + getCurrentUsername() + " cannot read Run " + o.getId());
   }
 
+  @Override
+  public Collection<Run> listRunsByAliasList(List<String> aliasList) throws IOException {
+    User user = getCurrentUser();
+    Collection<Run> accessibles = new HashSet<>();
+    for (Run run : backingManager.listRunsByAliasList(aliasList)) {
+      if (run.userCanRead(user)) {
+        accessibles.add(run);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public RunQC getRunQCById(long runQcId) throws IOException {
     RunQC o = backingManager.getRunQCById(runQcId);
@@ -744,6 +780,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Project> listProjectsAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Project> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Project> page = backingManager.listProjectsAfterId(afterId, limit);
+      for (Project project : page) {
+        if (project.userCanRead(user)) {
+          accessibles.add(project);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Project> listAllProjectsWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -760,14 +814,37 @@ public class UserAuthMisoRequestManager implements RequestManager {
   public Collection<Project> listAllProjectsBySearch(String query) throws IOException {
     User user = getCurrentUser();
     Collection<Project> accessibles = new HashSet<>();
-    for (Project project : backingManager.listAllProjectsBySearch(query)) {
-      if (project.userCanRead(user)) {
-        accessibles.add(project);
+    ReadRestriction.restrictTo(user);
+    try {
+      for (Project project : backingManager.listAllProjectsBySearch(query)) {
+        if (project.userCanRead(user)) {
+          accessibles.add(project);
+        }
       }
+    } finally {
+      ReadRestriction.clear();
     }
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Project> listProjectsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Project> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Project> page = backingManager.listProjectsBySearchBeforeId(query, beforeId, limit);
+      for (Project project : page) {
+        if (project.userCanRead(user)) {
+          accessibles.add(project);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<ProjectOverview> listAllOverviewsByProjectId(long projectId) throws IOException {
     User user = getCurrentUser();
@@ -801,6 +878,36 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Run> listRunsAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Run> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Run> page = backingManager.listRunsAfterId(afterId, limit);
+      for (Run run : page) {
+        if (run.userCanRead(user)) {
+          accessibles.add(run);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
+  @Override
+  public List<Run> listRunsByIdList(List<Long> idList) throws IOException {
+    User user = getCurrentUser();
+    List<Run> accessibles = new ArrayList<>();
+    for (Run run : backingManager.listRunsByIdList(idList)) {
+      if (run.userCanRead(user)) {
+        accessibles.add(run);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public Collection<Run> listAllRunsWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -826,14 +933,37 @@ public class UserAuthMisoRequestManager implements RequestManager {
   public Collection<Run> listAllRunsBySearch(String query) throws IOException {
     User user = getCurrentUser();
     Collection<Run> accessibles = new HashSet<>();
-    for (Run run : backingManager.listAllRunsBySearch(query)) {
-      if (run.userCanRead(user)) {
-        accessibles.add(run);
+    ReadRestriction.restrictTo(user);
+    try {
+      for (Run run : backingManager.listAllRunsBySearch(query)) {
+        if (run.userCanRead(user)) {
+          accessibles.add(run);
+        }
       }
+    } finally {
+      ReadRestriction.clear();
     }
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Run> listRunsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Run> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Run> page = backingManager.listRunsBySearchBeforeId(query, beforeId, limit);
+      for (Run run : page) {
+        if (run.userCanRead(user)) {
+          accessibles.add(run);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Run> listAllRunsByProjectId(long projectId) throws IOException {
     User user = getCurrentUser();
@@ -945,6 +1075,20 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public Collection<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByBarcodeList(
+      List<String> barcodeList) throws IOException {
+    User user = getCurrentUser();
+    Collection<SequencerPartitionContainer<SequencerPoolPartition>> accessibles = new HashSet<>();
+    for (SequencerPartitionContainer<SequencerPoolPartition> container : backingManager
+        .listSequencerPartitionContainersByBarcodeList(barcodeList)) {
+      if (container.userCanRead(user)) {
+        accessibles.add(container);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public Collection<Sample> listAllSamples() throws IOException {
     User user = getCurrentUser();
@@ -957,6 +1101,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Sample> listSamplesAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Sample> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Sample> page = backingManager.listSamplesAfterId(afterId, limit);
+      for (Sample sample : page) {
+        if (sample.userCanRead(user)) {
+          accessibles.add(sample);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Sample> listAllSamplesWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -986,14 +1148,37 @@ public class UserAuthMisoRequestManager implements RequestManager {
   public Collection<Sample> listAllSamplesBySearch(String query) throws IOException {
     User user = getCurrentUser();
     Collection<Sample> accessibles = new HashSet<>();
-    for (Sample sample : backingManager.listAllSamplesBySearch(query)) {
-      if (sample.userCanRead(user)) {
-        accessibles.add(sample);
+    ReadRestriction.restrictTo(user);
+    try {
+      for (Sample sample : backingManager.listAllSamplesBySearch(query)) {
+        if (sample.userCanRead(user)) {
+          accessibles.add(sample);
+        }
       }
+    } finally {
+      ReadRestriction.clear();
     }
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Sample> listSamplesBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Sample> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Sample> page = backingManager.listSamplesBySearchBeforeId(query, beforeId, limit);
+      for (Sample sample : page) {
+        if (sample.userCanRead(user)) {
+          accessibles.add(sample);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Sample> listAllSamplesByProjectId(long projectId) throws IOException {
     User user = getCurrentUser();
@@ -1030,6 +1215,18 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public Collection<Sample> listSamplesByAliasList(List<String> aliasList) throws IOException {
+    User user = getCurrentUser();
+    Collection<Sample> accessibles = new HashSet<>();
+    for (Sample sample : backingManager.listSamplesByAliasList(aliasList)) {
+      if (sample.userCanRead(user)) {
+        accessibles.add(sample);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public Collection<Sample> getSamplesByIdList(List<Long> idList) throws IOException {
     User user = getCurrentUser();
@@ -1069,6 +1266,18 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public List<Library> listLibrariesByIdList(List<Long> idList) throws IOException {
+    User user = getCurrentUser();
+    List<Library> accessibles = new ArrayList<>();
+    for (Library library : backingManager.listLibrariesByIdList(idList)) {
+      if (library.userCanRead(user)) {
+        accessibles.add(library);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public Collection<Library> listAllLibrariesWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -1085,14 +1294,55 @@ public class UserAuthMisoRequestManager implements RequestManager {
   public Collection<Library> listAllLibrariesBySearch(String query) throws IOException {
     User user = getCurrentUser();
     Collection<Library> accessibles = new HashSet<>();
-    for (Library library : backingManager.listAllLibrariesBySearch(query)) {
-      if (library.userCanRead(user)) {
-        accessibles.add(library);
+    ReadRestriction.restrictTo(user);
+    try {
+      for (Library library : backingManager.listAllLibrariesBySearch(query)) {
+        if (library.userCanRead(user)) {
+          accessibles.add(library);
+        }
       }
+    } finally {
+      ReadRestriction.clear();
     }
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Library> listLibrariesBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Library> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Library> page = backingManager.listLibrariesBySearchBeforeId(query, beforeId, limit);
+      for (Library library : page) {
+        if (library.userCanRead(user)) {
+          accessibles.add(library);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
+  @Override
+  public KeysetPage<Library> listLibrariesAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Library> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Library> page = backingManager.listLibrariesAfterId(afterId, limit);
+      for (Library library : page) {
+        if (library.userCanRead(user)) {
+          accessibles.add(library);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Library> listAllLibrariesByProjectId(long projectId) throws IOException {
     User user = getCurrentUser();
@@ -1180,6 +1430,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<LibraryDilution> listLibraryDilutionsAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<LibraryDilution> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<LibraryDilution> page = backingManager.listLibraryDilutionsAfterId(afterId, limit);
+      for (LibraryDilution dilution : page) {
+        if (dilution.userCanRead(user)) {
+          accessibles.add(dilution);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<LibraryDilution> listAllLibraryDilutionsWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -1240,6 +1508,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<LibraryDilution> listLibraryDilutionsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<LibraryDilution> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<LibraryDilution> page = backingManager.listLibraryDilutionsBySearchBeforeId(query, beforeId, limit);
+      for (LibraryDilution dilution : page) {
+        if (dilution.userCanRead(user)) {
+          accessibles.add(dilution);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<LibraryDilution> listAllLibraryDilutionsByProjectAndPlatform(long projectId, PlatformType platformType)
       throws IOException {
@@ -1265,6 +1551,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<emPCRDilution> listEmPCRDilutionsAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<emPCRDilution> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<emPCRDilution> page = backingManager.listEmPCRDilutionsAfterId(afterId, limit);
+      for (emPCRDilution dilution : page) {
+        if (dilution.userCanRead(user)) {
+          accessibles.add(dilution);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<emPCRDilution> listAllEmPCRDilutionsByEmPcrId(long pcrId) throws IOException {
     User user = getCurrentUser();
@@ -1374,6 +1678,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Pool<? extends Poolable<?, ?>>> listPoolsAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Pool<? extends Poolable<?, ?>>> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Pool<? extends Poolable<?, ?>>> page = backingManager.listPoolsAfterId(afterId, limit);
+      for (Pool<? extends Poolable<?, ?>> pool : page) {
+        if (pool.userCanRead(user)) {
+          accessibles.add(pool);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Pool<? extends Poolable<?, ?>>> listAllPoolsByPlatform(PlatformType platformType) throws IOException {
     User user = getCurrentUser();
@@ -1479,6 +1801,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Experiment> listExperimentsAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Experiment> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Experiment> page = backingManager.listExperimentsAfterId(afterId, limit);
+      for (Experiment experiment : page) {
+        if (experiment.userCanRead(user)) {
+          accessibles.add(experiment);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Experiment> listAllExperimentsWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -1495,14 +1835,37 @@ public class UserAuthMisoRequestManager implements RequestManager {
   public Collection<Experiment> listAllExperimentsBySearch(String query) throws IOException {
     User user = getCurrentUser();
     Collection<Experiment> accessibles = new HashSet<>();
-    for (Experiment experiment : backingManager.listAllExperimentsBySearch(query)) {
-      if (experiment.userCanRead(user)) {
-        accessibles.add(experiment);
+    ReadRestriction.restrictTo(user);
+    try {
+      for (Experiment experiment : backingManager.listAllExperimentsBySearch(query)) {
+        if (experiment.userCanRead(user)) {
+          accessibles.add(experiment);
+        }
       }
+    } finally {
+      ReadRestriction.clear();
     }
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Experiment> listExperimentsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Experiment> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Experiment> page = backingManager.listExperimentsBySearchBeforeId(query, beforeId, limit);
+      for (Experiment experiment : page) {
+        if (experiment.userCanRead(user)) {
+          accessibles.add(experiment);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Experiment> listAllExperimentsByStudyId(long studyId) throws IOException {
     User user = getCurrentUser();
@@ -1527,6 +1890,24 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Study> listStudiesAfterId(long afterId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Study> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Study> page = backingManager.listStudiesAfterId(afterId, limit);
+      for (Study study : page) {
+        if (study.userCanRead(user)) {
+          accessibles.add(study);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Study> listAllStudiesWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -1543,14 +1924,37 @@ public class UserAuthMisoRequestManager implements RequestManager {
   public Collection<Study> listAllStudiesBySearch(String query) throws IOException {
     User user = getCurrentUser();
     Collection<Study> accessibles = new HashSet<>();
-    for (Study study : backingManager.listAllStudiesBySearch(query)) {
-      if (study.userCanRead(user)) {
-        accessibles.add(study);
+    ReadRestriction.restrictTo(user);
+    try {
+      for (Study study : backingManager.listAllStudiesBySearch(query)) {
+        if (study.userCanRead(user)) {
+          accessibles.add(study);
+        }
       }
+    } finally {
+      ReadRestriction.clear();
     }
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Study> listStudiesBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Study> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Study> page = backingManager.listStudiesBySearchBeforeId(query, beforeId, limit);
+      for (Study study : page) {
+        if (study.userCanRead(user)) {
+          accessibles.add(study);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Study> listAllStudiesByProjectId(long projectId) throws IOException {
     User user = getCurrentUser();
@@ -1611,6 +2015,39 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersAfterId(long afterId, int limit)
+      throws IOException {
+    User user = getCurrentUser();
+    List<SequencerPartitionContainer<SequencerPoolPartition>> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<SequencerPartitionContainer<SequencerPoolPartition>> page = backingManager
+          .listSequencerPartitionContainersAfterId(afterId, limit);
+      for (SequencerPartitionContainer<SequencerPoolPartition> container : page) {
+        if (container.userCanRead(user)) {
+          accessibles.add(container);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
+  @Override
+  public List<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByIdList(List<Long> idList)
+      throws IOException {
+    User user = getCurrentUser();
+    List<SequencerPartitionContainer<SequencerPoolPartition>> accessibles = new ArrayList<>();
+    for (SequencerPartitionContainer<SequencerPoolPartition> container : backingManager.listSequencerPartitionContainersByIdList(idList)) {
+      if (container.userCanRead(user)) {
+        accessibles.add(container);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public Collection<Submission> listAllSubmissions() throws IOException {
     User user = getCurrentUser();
@@ -1648,6 +2085,19 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  /**
+   * Summaries carry no SecurityProfile to check, so this relies entirely on the store applying the read restriction in its query
+   */
+  @Override
+  public List<RunSummary> listRunSummaries(Long sequencerReferenceId, Date from, Date to) throws IOException {
+    ReadRestriction.restrictTo(getCurrentUser());
+    try {
+      return backingManager.listRunSummaries(sequencerReferenceId, from, to);
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listAllPlates() throws IOException {
     User user = getCurrentUser();
@@ -1660,6 +2110,25 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listPlatesAfterId(long afterId, int limit)
+      throws IOException {
+    User user = getCurrentUser();
+    List<Plate<? extends List<? extends Plateable>, ? extends Plateable>> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Plate<? extends List<? extends Plateable>, ? extends Plateable>> page = backingManager.listPlatesAfterId(afterId, limit);
+      for (Plate<? extends List<? extends Plateable>, ? extends Plateable> plate : page) {
+        if (plate.userCanRead(user)) {
+          accessibles.add(plate);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Collection<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listAllPlatesByProjectId(long projectId)
       throws IOException {
@@ -1886,6 +2355,15 @@ public class UserAuthMisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public void saveStatuses(Collection<Status> statuses) throws IOException {
+    if (getCurrentUser().isInternal()) {
+      backingManager.saveStatuses(statuses);
+    } else {
+      throw new IOException("User " + getCurrentUser().getFullName() + " cannot write to these Statuses");
+    }
+  }
+
   @Override
   public long saveSecurityProfile(SecurityProfile profile) throws IOException {
     if (getCurrentUser().isAdmin()) {
@@ -1895,6 +2373,18 @@ public class UserAuthMisoRequestManager implements RequestManager {
     }
   }
 
+  @Override
+  public Collection<SecurityProfile> listSecurityProfilesByIdList(List<Long> idList) throws IOException {
+    User user = getCurrentUser();
+    List<SecurityProfile> accessibles = new ArrayList<>();
+    for (SecurityProfile profile : backingManager.listSecurityProfilesByIdList(idList)) {
+      if (profile.userCanRead(user)) {
+        accessibles.add(profile);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public long saveSequencerReference(SequencerReference sequencerReference) throws IOException {
     if (getCurrentUser().isAdmin()) {
@@ -2130,6 +2620,18 @@ public class UserAuthMisoRequestManager implements RequestManager {
     return accessibles;
   }
 
+  @Override
+  public Collection<Box> listAllBoxesWithOccupancy() throws IOException {
+    User user = getCurrentUser();
+    Collection<Box> accessibles = new HashSet<>();
+    for (Box o : backingManager.listAllBoxesWithOccupancy()) {
+      if (o.userCanRead(user)) {
+        accessibles.add(o);
+      }
+    }
+    return accessibles;
+  }
+
   @Override
   public Collection<Box> listAllBoxesWithLimit(long limit) throws IOException {
     User user = getCurrentUser();
@@ -2491,14 +2993,37 @@ public class UserAuthMisoRequestManager implements RequestManager {
   public List<Pool<? extends Poolable<?, ?>>> listAllPoolsBySearch(String query) throws IOException {
     User user = getCurrentUser();
     List<Pool<? extends Poolable<?, ?>>> accessibles = new ArrayList<>();
-    for (Pool<? extends Poolable<?, ?>> pool : backingManager.listAllPoolsBySearch(query)) {
-      if (pool.userCanRead(user)) {
-        accessibles.add(pool);
+    ReadRestriction.restrictTo(user);
+    try {
+      for (Pool<? extends Poolable<?, ?>> pool : backingManager.listAllPoolsBySearch(query)) {
+        if (pool.userCanRead(user)) {
+          accessibles.add(pool);
+        }
       }
+    } finally {
+      ReadRestriction.clear();
     }
     return accessibles;
   }
 
+  @Override
+  public KeysetPage<Pool<? extends Poolable<?, ?>>> listPoolsBySearchBeforeId(String query, long beforeId, int limit) throws IOException {
+    User user = getCurrentUser();
+    List<Pool<? extends Poolable<?, ?>>> accessibles = new ArrayList<>();
+    ReadRestriction.restrictTo(user);
+    try {
+      KeysetPage<Pool<? extends Poolable<?, ?>>> page = backingManager.listPoolsBySearchBeforeId(query, beforeId, limit);
+      for (Pool<? extends Poolable<?, ?>> pool : page) {
+        if (pool.userCanRead(user)) {
+          accessibles.add(pool);
+        }
+      }
+      return new KeysetPage<>(accessibles, page.getScannedCount(), page.getLastScannedId());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public List<Pool<? extends Poolable<?, ?>>> listAllPoolsWithLimit(int limit) throws IOException {
     User user = getCurrentUser();
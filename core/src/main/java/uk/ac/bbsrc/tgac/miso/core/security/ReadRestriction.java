@@ -0,0 +1,44 @@
+package uk.ac.bbsrc.tgac.miso.core.security;
+
+import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
+
+/**
+ * Thread-bound record of the User whose read permissions should be applied by stores when they list {@link SecurableByProfile} objects.
+ * While a reader is set, stores that support it restrict their queries with the equivalent of {@link SecurityProfile#userCanRead(User)},
+ * so that rows the User cannot read are never fetched or mapped. Callers must still perform their own access checks.
+ */
+public final class ReadRestriction {
+  private static final ThreadLocal<User> reader = new ThreadLocal<User>();
+
+  private ReadRestriction() {
+  }
+
+  /**
+   * Restrict store queries on this thread to objects readable by the given User. Admins and null users are unrestricted.
+   * 
+   * @param user
+   *          of type User
+   */
+  public static void restrictTo(User user) {
+    if (user == null || user.isAdmin()) {
+      reader.remove();
+    } else {
+      reader.set(user);
+    }
+  }
+
+  /**
+   * @return the User whose read permissions apply on this thread, or null if queries are unrestricted
+   */
+  public static User getReader() {
+    return reader.get();
+  }
+
+  /**
+   * Remove any restriction on this thread
+   */
+  public static void clear() {
+    reader.remove();
+  }
+}
@@ -0,0 +1,17 @@
+package uk.ac.bbsrc.tgac.miso.core.service.printing.context;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A PrintContext whose printer language allows many labels to be sent as one job, so that a print job can be sent to the printer in a
+ * single transfer rather than one per label
+ */
+public interface BatchPrintContext<T> extends PrintContext<T> {
+  /**
+   * Prints every label, in order, as one job
+   *
+   * @return true if the printer accepted the job
+   */
+  boolean printAll(List<T> contents) throws IOException;
+}
@@ -25,12 +25,13 @@ package uk.ac.bbsrc.tgac.miso.core.service.printing.context.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sourceforge.fluxion.spi.ServiceProvider;
-import uk.ac.bbsrc.tgac.miso.core.service.printing.context.PrintContext;
+import uk.ac.bbsrc.tgac.miso.core.service.printing.context.BatchPrintContext;
 import uk.ac.bbsrc.tgac.miso.core.service.printing.strategy.impl.BradyFtpPrintStrategy;
 
 /**
@@ -43,7 +44,7 @@ import uk.ac.bbsrc.tgac.miso.core.service.printing.strategy.impl.BradyFtpPrintSt
  * @since 0.0.3
  */
 @ServiceProvider
-public class BradyFtpPrintContext implements PrintContext<File> {
+public class BradyFtpPrintContext implements BatchPrintContext<File> {
   protected static final Logger log = LoggerFactory.getLogger(BradyFtpPrintContext.class);
   private BradyFtpPrintStrategy ps = new BradyFtpPrintStrategy();
   public String host;
@@ -93,4 +94,9 @@ public class BradyFtpPrintContext implements PrintContext<File> {
   public boolean print(File content) throws IOException {
     return ps.print(content, this);
   }
+
+  @Override
+  public boolean printAll(List<File> contents) throws IOException {
+    return ps.printAll(contents, this);
+  }
 }
@@ -24,22 +24,29 @@
 package uk.ac.bbsrc.tgac.miso.core.service.printing.strategy.impl;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 
+import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.ac.bbsrc.tgac.miso.core.service.printing.context.impl.BradyFtpPrintContext;
 import uk.ac.bbsrc.tgac.miso.core.service.printing.strategy.PrintStrategy;
-import uk.ac.bbsrc.tgac.miso.core.util.TransmissionUtils;
+import uk.ac.bbsrc.tgac.miso.core.util.FtpConnectionPool;
 
 /**
  * uk.ac.bbsrc.tgac.miso.core.service.printing.strategy.impl
  * <p/>
- * Info
+ * Sends JScript labels to a Mach4-type printer by uploading them to its /execute directory. Connections to each printer are pooled, and
+ * several labels can be sent as one job file, as JScript jobs may simply be concatenated.
  * 
  * @author Rob Davey
  * @date 30-Jun-2011
@@ -48,21 +55,76 @@ import uk.ac.bbsrc.tgac.miso.core.util.TransmissionUtils;
 public class BradyFtpPrintStrategy implements PrintStrategy<File, BradyFtpPrintContext> {
   protected static final Logger log = LoggerFactory.getLogger(BradyFtpPrintStrategy.class);
 
+  // a printer only handles one upload at a time
+  private static final FtpConnectionPool pool = new FtpConnectionPool(1);
+
   @Override
   public boolean print(File content, BradyFtpPrintContext context) throws IOException {
-    if (context.getHost() != null && context.getUsername() != null && context.getPassword() != null) {
-      FTPClient ftp = TransmissionUtils.ftpConnect(context.getHost(), context.getUsername(), context.getPassword());
-      List<File> files = new ArrayList<File>();
-      files.add(content);
-      if (TransmissionUtils.ftpPut(ftp, "/execute", files, true, false)) {
+    return printAll(Collections.singletonList(content), context);
+  }
+
+  /**
+   * Merges the labels into one job file and uploads it over a pooled connection
+   */
+  public boolean printAll(List<File> contents, BradyFtpPrintContext context) throws IOException {
+    if (context.getHost() == null || context.getUsername() == null || context.getPassword() == null) {
+      throw new IOException("Invalid parameters supplied for FTP connection");
+    }
+    if (contents.isEmpty()) {
+      return true;
+    }
+    File job = contents.size() == 1 ? contents.get(0) : merge(contents);
+    try {
+      FTPClient ftp = pool.borrow(context.getHost(), FTP.DEFAULT_PORT, context.getUsername(), context.getPassword());
+      boolean ok = false;
+      try {
+        ok = upload(ftp, job);
+      } finally {
+        pool.release(ftp, ok);
+      }
+      if (ok) {
         log.info("Printing successful");
-        return true;
       } else {
         log.error("Printing unsuccessful");
       }
-    } else {
-      throw new IOException("Invalid parameters supplied for FTP connection");
+      return ok;
+    } finally {
+      if (job != contents.get(0) && !job.delete()) {
+        log.warn("Could not delete merged print job " + job);
+      }
+    }
+  }
+
+  private static boolean upload(FTPClient ftp, File job) throws IOException {
+    if (!ftp.changeWorkingDirectory("/execute")) {
+      log.error("Desired path does not exist on the server");
+      return false;
+    }
+    try (InputStream in = new FileInputStream(job)) {
+      if (!ftp.storeFile(job.getName(), in) || !FTPReply.isPositiveCompletion(ftp.getReplyCode())) {
+        log.error("Error storing file: " + job.getName() + " (" + ftp.getReplyString() + ")");
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static File merge(List<File> contents) throws IOException {
+    File merged = File.createTempFile("merged-", ".printjob", contents.get(0).getAbsoluteFile().getParentFile());
+    try (OutputStream out = new FileOutputStream(merged)) {
+      for (File label : contents) {
+        try (InputStream in = new FileInputStream(label)) {
+          byte[] buffer = new byte[8192];
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+          }
+        }
+      }
+    } catch (IOException e) {
+      merged.delete();
+      throw e;
     }
-    return false;
+    return merged;
   }
 }
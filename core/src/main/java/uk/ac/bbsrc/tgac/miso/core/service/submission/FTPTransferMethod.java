@@ -23,26 +23,54 @@
 
 package uk.ac.bbsrc.tgac.miso.core.service.submission;
 
+import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.ac.bbsrc.tgac.miso.core.exception.SubmissionException;
-import uk.ac.bbsrc.tgac.miso.core.util.TransmissionUtils;
+import uk.ac.bbsrc.tgac.miso.core.util.FtpConnectionPool;
 
 /**
- * Created by IntelliJ IDEA. User: collesa Date: 26/03/12 Time: 13:10 To change this template use File | Settings | File Templates.
+ * Uploads data files to an FTP endpoint in the background, several at a time over a bounded pool of connections. The returned report
+ * tracks each file's progress as it is sent.
+ *
+ * A file that is already partly on the server, from an earlier interrupted upload, is resumed from where it stopped using a REST offset,
+ * and a failed upload is retried from wherever the server's copy then ends. A file the server already holds in full is not sent again. The
+ * MD5 checksum of each file is computed as it is read for sending.
  */
 public class FTPTransferMethod implements TransferMethod {
-  protected static final Logger log = LoggerFactory.getLogger(TransmissionUtils.class);
+  protected static final Logger log = LoggerFactory.getLogger(FTPTransferMethod.class);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
 
   private String username;
   private String password;
+  private String remoteDirectory = "anon";
+  private int maxConnections = 4;
+  private int maxAttempts = 3;
+  private FtpConnectionPool pool;
 
   public FTPTransferMethod() {
   }
@@ -60,37 +88,209 @@ public class FTPTransferMethod implements TransferMethod {
     this.password = password;
   }
 
+  /**
+   * @param remoteDirectory
+   *          the directory, relative to the login directory, that files are uploaded to; null to upload to the login directory itself
+   */
+  public void setRemoteDirectory(String remoteDirectory) {
+    this.remoteDirectory = remoteDirectory;
+  }
+
+  /**
+   * @param maxConnections
+   *          the number of files uploaded at once
+   */
+  public synchronized void setMaxConnections(int maxConnections) {
+    this.maxConnections = maxConnections;
+    this.pool = null;
+  }
+
+  /**
+   * @param maxAttempts
+   *          the number of times each file is tried before its upload is abandoned
+   */
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
   @Override
   public FTPUploadReport uploadSequenceData(Set<File> dataFiles, EndPoint endpoint) throws SubmissionException {
-    List<FTPUploadJob> FTPUploadList = new ArrayList<FTPUploadJob>();
-    try {
-      for (File f : dataFiles) {
-        FTPClient ftpClient = TransmissionUtils.ftpConnect(endpoint.getDestination().getHost(), username, password);
+    URI destination = endpoint.getDestination();
+    if (destination == null || destination.getHost() == null) {
+      throw new SubmissionException("No FTP host given for the upload endpoint");
+    }
+    final String host = destination.getHost();
+    final int port = destination.getPort() == -1 ? FTP.DEFAULT_PORT : destination.getPort();
 
-        FTPUploadJob FTPUploadJob = new FTPUploadJob(f);
+    final List<FTPUploadJob> FTPUploadList = new ArrayList<FTPUploadJob>();
+    for (File f : dataFiles) {
+      if (!f.isFile()) {
+        log.error("The specified datafiles could not be found: " + f);
+        throw new SubmissionException("DataFiles could not be found:" + f);
+      }
+      FTPUploadList.add(new FTPUploadJob(f));
+    }
+
+    final FTPUploadReport report = new FTPUploadReport(FTPUploadList);
+    report.setStatus("uploading");
+    report.setMessage("uploading " + FTPUploadList.size() + " files.");
+    if (FTPUploadList.isEmpty()) {
+      report.finish("complete", "no files to upload.");
+      return report;
+    }
+
+    final FtpConnectionPool connections = getPool();
+    ExecutorService uploaders = Executors.newFixedThreadPool(Math.min(connections.getMaxConnections(), FTPUploadList.size()),
+        new ThreadFactory() {
+          private final AtomicInteger count = new AtomicInteger();
 
-        boolean success = TransmissionUtils.ftpPutListen(ftpClient, "anon/", FTPUploadJob.getFile(), false, false,
-            FTPUploadJob.getListener());
-        if (success) {
-          log.info("FTPTransferMethod: upload of " + f.getName() + " successful.");
-        } else {
-          log.info("FTPTransferMethod: upload of " + f.getName() + " failed.");
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "miso-ftp-upload-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    final AtomicInteger remaining = new AtomicInteger(FTPUploadList.size());
+    final AtomicInteger failures = new AtomicInteger();
+    for (final FTPUploadJob job : FTPUploadList) {
+      uploaders.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (!upload(connections, host, port, job)) {
+              failures.incrementAndGet();
+            }
+          } catch (RuntimeException e) {
+            log.error("upload sequence data", e);
+            job.attemptFailed(e.getMessage());
+            job.failed();
+            failures.incrementAndGet();
+          } finally {
+            if (remaining.decrementAndGet() == 0) {
+              connections.close();
+              int failed = failures.get();
+              if (failed == 0) {
+                report.finish("complete", "uploaded " + FTPUploadList.size() + " files.");
+              } else {
+                report.finish("failed", failed + " of " + FTPUploadList.size() + " files could not be uploaded.");
+              }
+            }
+          }
         }
+      });
+    }
+    // the threads finish once the queued uploads have been sent
+    uploaders.shutdown();
+    return report;
+  }
+
+  private synchronized FtpConnectionPool getPool() {
+    if (pool == null) {
+      pool = new FtpConnectionPool(maxConnections);
+    }
+    return pool;
+  }
 
-        FTPUploadList.add(FTPUploadJob);
+  private boolean upload(FtpConnectionPool connections, String host, int port, FTPUploadJob job) {
+    File file = job.getFile();
+    String remoteName = remoteDirectory == null ? file.getName() : remoteDirectory + "/" + file.getName();
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      FTPClient ftp = null;
+      boolean reusable = false;
+      try {
+        ftp = connections.borrow(host, port, username, password);
+        String checksum = send(ftp, file, remoteName, job);
+        reusable = true;
+        job.completed(checksum);
+        log.info("FTPTransferMethod: upload of " + file.getName() + " successful.");
+        return true;
+      } catch (IOException e) {
+        log.warn("FTPTransferMethod: attempt " + attempt + " to upload " + file.getName() + " failed.", e);
+        job.attemptFailed(e.getMessage());
+      } finally {
+        if (ftp != null) {
+          connections.release(ftp, reusable);
+        }
+      }
+    }
+    log.error("FTPTransferMethod: upload of " + file.getName() + " failed.");
+    job.failed();
+    return false;
+  }
+
+  /**
+   * Sends whatever part of the file the server does not yet have, hashing the whole file on the way
+   *
+   * @return the file's MD5 checksum as a hex string
+   */
+  private static String send(FTPClient ftp, File file, String remoteName, FTPUploadJob job) throws IOException {
+    long length = file.length();
+    long offset = remoteSize(ftp, remoteName);
+    if (offset > length) {
+      // not a partial copy of this file, so replace it
+      offset = 0L;
+    }
+    job.resumed(offset);
+
+    MessageDigest md5;
+    try {
+      md5 = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException("MD5 is not available", e);
+    }
+    UploadListener listener = job.getListener();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream in = new DigestInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE), md5)) {
+      // the part already on the server still has to be read for the checksum
+      long skipped = 0L;
+      while (skipped < offset) {
+        int read = in.read(buffer, 0, (int) Math.min(buffer.length, offset - skipped));
+        if (read == -1) {
+          throw new EOFException("File " + file + " is shorter than expected");
+        }
+        skipped += read;
       }
+      listener.bytesTransferred(offset, 0, length);
 
-      FTPUploadReport report = new FTPUploadReport(FTPUploadList);
-      report.setStatus("uploading");
-      report.setMessage("uploading " + FTPUploadList.size() + " files.");
-
-      return (report);
-    } catch (java.io.FileNotFoundException j) {
-      log.error("The specified datafiles could not be found.", j);
-      throw new SubmissionException("DataFiles could not be found:" + j.getMessage());
-    } catch (Exception e) {
-      log.error("upload sequence data", e);
-      throw new SubmissionException(e.getMessage());
+      if (offset < length) {
+        ftp.setRestartOffset(offset);
+        OutputStream out = ftp.storeFileStream(remoteName);
+        if (out == null) {
+          throw new IOException("Server refused upload of " + remoteName + ": " + ftp.getReplyString());
+        }
+        long sent = offset;
+        try {
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            sent += read;
+            listener.bytesTransferred(sent, read, length);
+          }
+        } finally {
+          out.close();
+        }
+        if (!ftp.completePendingCommand()) {
+          throw new IOException("Upload of " + remoteName + " was not completed: " + ftp.getReplyString());
+        }
+      }
+    }
+    return new String(Hex.encodeHex(md5.digest()));
+  }
+
+  /**
+   * @return the size of the file on the server, or 0 if it is not there
+   */
+  private static long remoteSize(FTPClient ftp, String remoteName) throws IOException {
+    if (ftp.sendCommand("SIZE", remoteName) != FTPReply.FILE_STATUS) {
+      return 0L;
+    }
+    String[] reply = ftp.getReplyString().trim().split("\\s+");
+    try {
+      return Long.parseLong(reply[reply.length - 1]);
+    } catch (NumberFormatException e) {
+      log.warn("Unexpected reply to SIZE " + remoteName + ": " + ftp.getReplyString());
+      return 0L;
     }
   }
 }
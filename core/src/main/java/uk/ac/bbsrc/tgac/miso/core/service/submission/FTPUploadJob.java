@@ -32,6 +32,11 @@ public class FTPUploadJob implements UploadJob {
 
   private File file;
   private UploadListener uploadListener = new UploadListener();
+  private volatile boolean complete = false;
+  private volatile boolean failed = false;
+  private volatile long startOffset = 0L;
+  private volatile String checksum;
+  private volatile String error;
 
   public FTPUploadJob(File file) {
     this.file = file;
@@ -55,18 +60,64 @@ public class FTPUploadJob implements UploadJob {
 
   @Override
   public int getPercentageTransferred() {
-    if (file != null) {
-      return 100 * (int) (uploadListener.getTotalBT() / uploadListener.getStreamSize());
+    if (complete) {
+      return 100;
+    }
+    long streamSize = uploadListener.getStreamSize();
+    if (file != null && streamSize > 0) {
+      return (int) (100 * uploadListener.getTotalBT() / streamSize);
     } else
       return 0; // To change body of implemented methods use File | Settings | File Templates.
   }
 
   @Override
   public boolean isComplete() {
-    if (getPercentageTransferred() == 100)
-      return true;
-    else
-      return false; // To change body of implemented methods use File | Settings | File Templates.
+    return complete;
+  }
+
+  /**
+   * @return true if the upload was abandoned after its last attempt failed
+   */
+  public boolean isFailed() {
+    return failed;
+  }
+
+  /**
+   * @return the number of bytes that were already on the server when the upload last resumed
+   */
+  public long getStartOffset() {
+    return startOffset;
+  }
+
+  /**
+   * @return the MD5 checksum of the file, as a hex string, once it has been uploaded
+   */
+  public String getChecksum() {
+    return checksum;
+  }
+
+  /**
+   * @return the reason the last attempt to upload the file failed, if it did
+   */
+  public String getError() {
+    return error;
+  }
+
+  void resumed(long startOffset) {
+    this.startOffset = startOffset;
+  }
+
+  void completed(String checksum) {
+    this.checksum = checksum;
+    this.complete = true;
+  }
+
+  void attemptFailed(String error) {
+    this.error = error;
+  }
+
+  void failed() {
+    this.failed = true;
   }
 
   public UploadListener getListener() {
@@ -27,6 +27,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,8 +40,9 @@ public class FTPUploadReport implements UploadReport {
   private List<UploadJob> uploadJobs = new ArrayList<UploadJob>() {
   };
 
-  private String status;
-  private String message;
+  private volatile String status;
+  private volatile String message;
+  private final CountDownLatch finished = new CountDownLatch(1);
   protected static final Logger log = LoggerFactory.getLogger(FTPUploadReport.class);
 
   public FTPUploadReport(List<FTPUploadJob> FTPUploadJobs) {
@@ -98,4 +101,18 @@ public class FTPUploadReport implements UploadReport {
     return null; // To change body of implemented methods use File | Settings | File Templates.
   }
 
+  /**
+   * Waits for every upload in the report to complete or fail
+   *
+   * @return false if the uploads were still running when the wait timed out
+   */
+  public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+    return finished.await(timeout, unit);
+  }
+
+  void finish(String status, String message) {
+    setStatus(status);
+    setMessage(message);
+    finished.countDown();
+  }
 }
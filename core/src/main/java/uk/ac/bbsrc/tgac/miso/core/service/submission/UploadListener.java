@@ -30,9 +30,10 @@ import org.apache.commons.net.io.CopyStreamListener;
  * Created by IntelliJ IDEA. User: collesa Date: 26/04/12 Time: 16:31 To change this template use File | Settings | File Templates.
  */
 public class UploadListener implements CopyStreamListener {
-  private int calls;
-  private long streamSZ;
-  private long totalBT;
+  // written by the uploading thread and read by whoever polls for progress
+  private volatile int calls;
+  private volatile long streamSZ;
+  private volatile long totalBT;
 
   @Override
   public void bytesTransferred(CopyStreamEvent event) {
@@ -44,6 +44,14 @@ public interface BoxStore extends Store<Box>, Remover<Box>, NamingSchemeAware<Bo
   @Override
   Collection<Box> listAll() throws IOException;
 
+  /**
+   * List all the boxes without loading their contents. Each box only knows how many of its positions are occupied.
+   * 
+   * @return Collection<Box> boxes
+   * @throws IOException
+   */
+  Collection<Box> listAllWithOccupancy() throws IOException;
+
   /**
    * List all the boxes with a limit.
    * 
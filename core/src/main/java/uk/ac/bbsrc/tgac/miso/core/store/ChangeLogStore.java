@@ -1,6 +1,8 @@
 package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import uk.ac.bbsrc.tgac.miso.core.data.ChangeLog;
 
@@ -15,6 +17,13 @@ public interface ChangeLogStore {
   public Collection<ChangeLog> listAll(String type);
 
   public Collection<ChangeLog> listAllById(String type, long id);
+
+  /**
+   * Lists the change logs of several entities of one type in as few queries as possible
+   * 
+   * @return the change logs of each entity that has any, keyed by entity ID, newest first
+   */
+  public Map<Long, List<ChangeLog>> listAllByIds(String type, Collection<Long> ids);
   
   public void deleteAllById(String type, long id);
   
@@ -158,4 +158,17 @@ public interface EmPCRDilutionStore extends Store<emPCRDilution>, Remover<emPCRD
    *           when
    */
   emPCRDilution getEmPcrDilutionByBarcodeAndPlatform(String barcode, PlatformType platformType) throws IOException;
+
+  /**
+   * List one page of all emPCRDilutions, oldest first, so that every one can be read without holding them all in memory. Pages are keyed on
+   * ID, so each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only emPCRDilutions with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of emPCRDilutions to list
+   * @return up to limit emPCRDilutions, in ascending ID order
+   * @throws IOException
+   */
+  List<emPCRDilution> listAfterId(long afterId, int limit) throws IOException;
 }
@@ -25,6 +25,7 @@ package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Experiment;
@@ -48,6 +49,34 @@ public interface ExperimentStore extends Store<Experiment>, Cascadable, Remover<
    */
   Collection<Experiment> listBySearch(String query) throws IOException;
 
+  /**
+   * List one page of the Experiments matched by {@link #listBySearch(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only Experiments with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of Experiments to list
+   * @return up to limit Experiments, in descending ID order
+   * @throws IOException
+   */
+  List<Experiment> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all Experiments, oldest first, so that every one can be read without holding them all in memory. Pages are keyed on
+   * ID, so each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Experiments with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Experiments to list
+   * @return up to limit Experiments, in ascending ID order
+   * @throws IOException
+   */
+  List<Experiment> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * List all Experiments that are part of a Study given a Study ID
    * 
@@ -81,6 +110,18 @@ public interface ExperimentStore extends Store<Experiment>, Cascadable, Remover<
    */
   Collection<Experiment> listByPoolId(long poolId) throws IOException;
 
+  /**
+   * List all Experiments that are related to any of a given set of Pools, keyed by Pool ID. Pools with no related Experiments are absent
+   * from the returned map.
+   * 
+   * @param poolIds
+   *          of type Collection<Long>
+   * @return Map<Long, Collection<Experiment>>
+   * @throws IOException
+   *           when
+   */
+  Map<Long, Collection<Experiment>> listByPoolIds(Collection<Long> poolIds) throws IOException;
+
   /**
    * List all persisted objects
    * 
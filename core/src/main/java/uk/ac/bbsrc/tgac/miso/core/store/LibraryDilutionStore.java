@@ -25,6 +25,7 @@ package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 
 import uk.ac.bbsrc.tgac.miso.core.data.impl.LibraryDilution;
 import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
@@ -82,6 +83,34 @@ public interface LibraryDilutionStore extends Store<LibraryDilution>, Remover<Li
 
   Collection<LibraryDilution> listAllLibraryDilutionsBySearchOnly(String query) throws IOException;
 
+  /**
+   * List one page of the LibraryDilutions matched by {@link #listAllLibraryDilutionsBySearchOnly(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only LibraryDilutions with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of LibraryDilutions to list
+   * @return up to limit LibraryDilutions, in descending ID order
+   * @throws IOException
+   */
+  List<LibraryDilution> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all LibraryDilutions, oldest first, so that every one can be read without holding them all in memory. Pages are keyed
+   * on ID, so each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only LibraryDilutions with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of LibraryDilutions to list
+   * @return up to limit LibraryDilutions, in ascending ID order
+   * @throws IOException
+   */
+  List<LibraryDilution> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * List all emPCRDilutions prepared for a given PlatformType within a given Project
    * 
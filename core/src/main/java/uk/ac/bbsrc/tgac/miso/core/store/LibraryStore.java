@@ -62,6 +62,34 @@ public interface LibraryStore extends Store<Library>, Remover<Library>, NamingSc
    */
   Collection<Library> listBySearch(String query) throws IOException;
 
+  /**
+   * List one page of the Libraries matched by {@link #listBySearch(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only Libraries with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of Libraries to list
+   * @return up to limit Libraries, in descending ID order
+   * @throws IOException
+   */
+  List<Library> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all Libraries, oldest first, for exporting every Library without holding them all in memory. Pages are keyed on
+   * ID, so each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Libraries with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Libraries to list
+   * @return up to limit Libraries, in ascending ID order
+   * @throws IOException
+   */
+  List<Library> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * Get a Library given a Library alias
    * 
@@ -97,6 +125,17 @@ public interface LibraryStore extends Store<Library>, Remover<Library>, NamingSc
    */
   Collection<Library> getByIdList(List<Long> idList) throws IOException;
 
+  /**
+   * List the Libraries with the given IDs, each loaded in full as by {@link #get(long)}, in as few queries as possible
+   * 
+   * @param idList
+   *          of type List<Long>
+   * @return List<Library>
+   * @throws IOException
+   *           when the objects cannot be retrieved
+   */
+  List<Library> listByIdList(List<Long> idList) throws IOException;
+
   /**
    * Get a LibraryType given a LibraryType ID
    * 
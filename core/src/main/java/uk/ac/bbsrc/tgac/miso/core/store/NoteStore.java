@@ -24,7 +24,9 @@
 package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import com.eaglegenomics.simlims.core.Note;
 
@@ -184,6 +186,17 @@ public interface NoteStore extends Store<Note> {
    */
   List<Note> listByPool(Long poolId) throws IOException;
 
+  /**
+   * List all Notes related to any of a given set of Pools, keyed by Pool ID. Pools with no Notes are absent from the returned map.
+   *
+   * @param poolIds
+   *          of type Collection<Long>
+   * @return Map<Long, List<Note>>
+   * @throws IOException
+   *           when
+   */
+  Map<Long, List<Note>> listByPoolIds(Collection<Long> poolIds) throws IOException;
+
   /**
    * Save a Pool Note
    *
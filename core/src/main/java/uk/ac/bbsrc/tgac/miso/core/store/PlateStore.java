@@ -48,6 +48,19 @@ public interface PlateStore extends Store<Plate<? extends List<? extends Plateab
 
   public List<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listBySearch(String str) throws IOException;
 
+  /**
+   * List one page of all Plates, oldest first, so that every one can be read without holding them all in memory. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Plates with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Plates to list
+   * @return up to limit Plates, in ascending ID order
+   * @throws IOException
+   */
+  public List<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * Retrieve a Plate from an underlying data store given an identification barcode
    * 
@@ -25,6 +25,7 @@ package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Map;
 
 import uk.ac.bbsrc.tgac.miso.core.data.PoolQC;
 import uk.ac.bbsrc.tgac.miso.core.data.type.QcType;
@@ -47,6 +48,17 @@ public interface PoolQcStore extends Store<PoolQC>, Remover<PoolQC> {
    */
   Collection<PoolQC> listByPoolId(long poolId) throws IOException;
 
+  /**
+   * List all PoolQCs performed on any of a given set of Pools, keyed by parent Pool ID. Pools with no QCs are absent from the returned map.
+   * 
+   * @param poolIds
+   *          of type Collection<Long>
+   * @return Map<Long, Collection<PoolQC>>
+   * @throws java.io.IOException
+   *           when
+   */
+  Map<Long, Collection<PoolQC>> listByPoolIds(Collection<Long> poolIds) throws IOException;
+
   /**
    * Get the QcType descriptor for a given type ID
    * 
@@ -111,6 +111,34 @@ public interface PoolStore extends Store<Pool<? extends Poolable<?, ?>>>, Remove
    */
   public Collection<Pool<? extends Poolable<?, ?>>> listBySearch(String query);
 
+  /**
+   * List one page of the Pools matched by {@link #listBySearch(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only Pools with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of Pools to list
+   * @return up to limit Pools, in descending ID order
+   * @throws IOException
+   */
+  public List<Pool<? extends Poolable<?, ?>>> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all Pools, oldest first, so that every one can be read without holding them all in memory. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Pools with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Pools to list
+   * @return up to limit Pools, in ascending ID order
+   * @throws IOException
+   */
+  public List<Pool<? extends Poolable<?, ?>>> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * List all Pools up to a maximum limit.
    *
@@ -187,6 +215,15 @@ public interface PoolStore extends Store<Pool<? extends Poolable<?, ?>>>, Remove
    */
   Collection<Pool<? extends Poolable<?, ?>>> getByBarcodeList(List<String> barcodeList) throws IOException;
 
+  /**
+   * List all Pools associated with ids from the given id list. The Pools are loaded lazily.
+   *
+   * @return Collection<Pool>
+   * @throws IOException
+   *           when the objects cannot be retrieved
+   */
+  Collection<Pool<? extends Poolable<?, ?>>> getByIdList(List<Long> idList) throws IOException;
+
   /**
    * List the Pool associated with a given identificationBarcode
    * 
@@ -25,9 +25,11 @@ package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview;
 import uk.ac.bbsrc.tgac.miso.core.service.naming.NamingSchemeAware;
 
@@ -71,6 +73,34 @@ public interface ProjectStore extends Store<Project>, Cascadable, Remover<Projec
    */
   Collection<Project> listBySearch(String query) throws IOException;
 
+  /**
+   * List one page of the Projects matched by {@link #listBySearch(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only Projects with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of Projects to list
+   * @return up to limit Projects, in descending ID order
+   * @throws IOException
+   */
+  List<Project> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all Projects, oldest first, so that every one can be read without holding them all in memory. Pages are keyed on ID,
+   * so each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Projects with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Projects to list
+   * @return up to limit Projects, in ascending ID order
+   * @throws IOException
+   */
+  List<Project> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * Get a ProjectOverview given a ProjectOverview ID
    * 
@@ -82,6 +112,18 @@ public interface ProjectStore extends Store<Project>, Cascadable, Remover<Projec
    */
   ProjectOverview getProjectOverviewById(long overviewId) throws IOException;
 
+  /**
+   * Get the graph of a Project's studies, experiments, samples, libraries and runs, with every member of the Project unrestricted by any
+   * read access
+   * 
+   * @param projectId
+   *          of type long
+   * @return ProjectGraph, or null if there is no such Project
+   * @throws IOException
+   *           when
+   */
+  ProjectGraph getGraph(long projectId) throws IOException;
+
   /**
    * Get ProjectOverviews given a Project ID
    * 
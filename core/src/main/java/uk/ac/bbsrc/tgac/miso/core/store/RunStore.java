@@ -25,10 +25,12 @@ package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.service.naming.NamingSchemeAware;
 
 /**
@@ -66,6 +68,34 @@ public interface RunStore extends Store<Run>, Cascadable, Remover<Run>, NamingSc
    */
   Collection<Run> listBySearch(String query) throws IOException;
 
+  /**
+   * List one page of the Runs matched by {@link #listBySearch(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only Runs with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of Runs to list
+   * @return up to limit Runs, in descending ID order
+   * @throws IOException
+   */
+  List<Run> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all Runs, oldest first, so that every one can be read without holding them all in memory. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Runs with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Runs to list
+   * @return up to limit Runs, in ascending ID order
+   * @throws IOException
+   */
+  List<Run> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * Retrieve a Run from an underlying data store given a Run alias
    *
@@ -75,6 +105,26 @@ public interface RunStore extends Store<Run>, Cascadable, Remover<Run>, NamingSc
    */
   Run getByAlias(String alias) throws IOException;
 
+  /**
+   * List all Runs with any of the given aliases, in as few queries as possible
+   *
+   * @param aliasList of type List<String>
+   * @return List<Run>
+   * @throws IOException when the objects cannot be retrieved
+   */
+  List<Run> listByAliasList(List<String> aliasList) throws IOException;
+
+  /**
+   * List the Runs with the given IDs, each loaded in full as by {@link #get(long)}, in as few queries as possible
+   * 
+   * @param idList
+   *          of type List<Long>
+   * @return List<Run>
+   * @throws IOException
+   *           when the objects cannot be retrieved
+   */
+  List<Run> listByIdList(List<Long> idList) throws IOException;
+
   /**
    * List all Runs related to an Experiment given an Experiment ID
    *
@@ -138,6 +188,18 @@ public interface RunStore extends Store<Run>, Cascadable, Remover<Run>, NamingSc
    */
   List<Run> listBySequencerId(long sequencerReferenceId) throws IOException;
 
+  /**
+   * List summaries of runs, read with a single query that loads none of the runs' related objects. Runs started outside the given dates,
+   * or with no start date at all, are excluded if either bound is set. Honours any
+   * {@link uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction} on the current thread.
+   * 
+   * @param sequencerReferenceId id of the sequencer reference to list runs for, or null for all sequencers
+   * @param from earliest start date to include, or null for no lower bound
+   * @param to latest start date to include, or null for no upper bound
+   * @return the matching run summaries, ordered by run id
+   */
+  List<RunSummary> listSummaries(Long sequencerReferenceId, Date from, Date to) throws IOException;
+
   /**
    * List all persisted objects
    *
@@ -51,6 +51,34 @@ public interface SampleStore extends Store<Sample>, Cascadable, Remover<Sample>,
    */
   Collection<Sample> listBySearch(String query) throws IOException;
 
+  /**
+   * List one page of the Samples matched by {@link #listBySearch(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only Samples with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of Samples to list
+   * @return up to limit Samples, in descending ID order
+   * @throws IOException
+   */
+  List<Sample> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all Samples, oldest first, for exporting every Sample without holding them all in memory. Pages are keyed on ID,
+   * so each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Samples with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Samples to list
+   * @return up to limit Samples, in ascending ID order
+   * @throws IOException
+   */
+  List<Sample> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * Retrieve a Sample from an underlying data store given a Sample ID barcode
    * <p/>
@@ -97,6 +125,17 @@ public interface SampleStore extends Store<Sample>, Cascadable, Remover<Sample>,
    */
   Collection<Sample> listByAlias(String alias) throws IOException;
 
+  /**
+   * List all Samples with any of the given aliases, in a single query
+   * 
+   * @param aliasList
+   *          of type List<String>
+   * @return Collection<Sample>
+   * @throws IOException
+   *           when the objects cannot be retrieved
+   */
+  Collection<Sample> listByAliasList(List<String> aliasList) throws IOException;
+
   /**
    * List all Samples that are part of a Submission given a Submission ID
    * 
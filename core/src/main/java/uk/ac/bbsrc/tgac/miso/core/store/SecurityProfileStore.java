@@ -0,0 +1,22 @@
+package uk.ac.bbsrc.tgac.miso.core.store;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import com.eaglegenomics.simlims.core.SecurityProfile;
+
+/**
+ * Defines a DAO interface for storing SecurityProfiles
+ */
+public interface SecurityProfileStore extends Store<SecurityProfile> {
+  /**
+   * Retrieves several SecurityProfiles, complete with their owners, users and groups, using a fixed number of queries however many are
+   * requested. IDs with no profile are omitted from the result.
+   *
+   * @param profileIds
+   *          the IDs of the SecurityProfiles to retrieve
+   * @return the SecurityProfiles found
+   * @throws IOException
+   */
+  public Collection<SecurityProfile> listByIds(Collection<Long> profileIds) throws IOException;
+}
@@ -72,6 +72,41 @@ public interface SequencerPartitionContainerStore extends Store<SequencerPartiti
    */
   List<SequencerPartitionContainer<SequencerPoolPartition>> listSequencerPartitionContainersByBarcode(String barcode) throws IOException;
 
+  /**
+   * List all SequencerPartitionContainers with any of the given ID barcodes, in as few queries as possible
+   * 
+   * @param barcodeList
+   *          of type List<String>
+   * @return List<SequencerPartitionContainer>
+   * @throws java.io.IOException
+   *           when the objects cannot be retrieved
+   */
+  List<SequencerPartitionContainer<SequencerPoolPartition>> listByBarcodeList(List<String> barcodeList) throws IOException;
+
+  /**
+   * List one page of all SequencerPartitionContainers, oldest first, so that every one can be read without holding them all in memory.
+   * Pages are keyed on ID, so each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only SequencerPartitionContainers with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of SequencerPartitionContainers to list
+   * @return up to limit SequencerPartitionContainers, in ascending ID order
+   * @throws IOException
+   */
+  List<SequencerPartitionContainer<SequencerPoolPartition>> listAfterId(long afterId, int limit) throws IOException;
+
+  /**
+   * List the SequencerPartitionContainers with the given IDs, each loaded in full as by {@link #get(long)}, in as few queries as possible
+   * 
+   * @param idList
+   *          of type List<Long>
+   * @return List<SequencerPartitionContainer>
+   * @throws IOException
+   *           when the objects cannot be retrieved
+   */
+  List<SequencerPartitionContainer<SequencerPoolPartition>> listByIdList(List<Long> idList) throws IOException;
+
   /**
    * List all SequencerPoolPartitions that are contained by a given {@link SequencerPartitionContainer}
    * 
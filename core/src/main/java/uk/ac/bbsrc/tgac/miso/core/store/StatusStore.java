@@ -62,4 +62,14 @@ public interface StatusStore extends Store<Status> {
    * @return List<Status>
    */
   public Collection<Status> listAllBySequencerName(String sequencerName);
+
+  /**
+   * Saves several Statuses, with one lookup for any that may already have been saved under the same run name, one batch of inserts and one
+   * batch of updates. Each Status is given its ID.
+   * 
+   * @param statuses
+   *          the Statuses to save
+   * @throws IOException
+   */
+  public void saveAll(Collection<Status> statuses) throws IOException;
 }
@@ -25,6 +25,7 @@ package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Study;
@@ -48,6 +49,34 @@ public interface StudyStore extends Store<Study>, Cascadable, Remover<Study>, Na
    */
   Collection<Study> listBySearch(String query) throws IOException;
 
+  /**
+   * List one page of the Studies matched by {@link #listBySearch(String)}, newest first. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param query
+   *          the search string
+   * @param beforeId
+   *          only Studies with a lower ID than this are listed; use Long.MAX_VALUE for the first page
+   * @param limit
+   *          the maximum number of Studies to list
+   * @return up to limit Studies, in descending ID order
+   * @throws IOException
+   */
+  List<Study> listBySearchBeforeId(String query, long beforeId, int limit) throws IOException;
+
+  /**
+   * List one page of all Studies, oldest first, so that every one can be read without holding them all in memory. Pages are keyed on ID, so
+   * each page costs the same however deep into the results it is.
+   * 
+   * @param afterId
+   *          only Studies with a higher ID than this are listed; use 0 for the first page
+   * @param limit
+   *          the maximum number of Studies to list
+   * @return up to limit Studies, in ascending ID order
+   * @throws IOException
+   */
+  List<Study> listAfterId(long afterId, int limit) throws IOException;
+
   /**
    * Get a Study related to an Experiment given an Experiment ID
    * 
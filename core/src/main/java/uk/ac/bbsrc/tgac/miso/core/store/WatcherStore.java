@@ -25,6 +25,7 @@ package uk.ac.bbsrc.tgac.miso.core.store;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Map;
 
 import com.eaglegenomics.simlims.core.User;
 
@@ -51,6 +52,17 @@ public interface WatcherStore {
    */
   Collection<User> getWatchersByEntityName(String entityName) throws IOException;
 
+  /**
+   * Get the Users that are watching each of a set of entities, keyed by entity name. Entities with no watchers are absent from the
+   * returned map.
+   * 
+   * @param entityNames
+   *          of type Collection<String>
+   * @return Map<String, Collection<User>>
+   * @throws IOException
+   */
+  Map<String, Collection<User>> getWatchersByEntityNames(Collection<String> entityNames) throws IOException;
+
   /**
    * Get the list of Users that are in a given watcher group
    * 
@@ -24,6 +24,7 @@
 package uk.ac.bbsrc.tgac.miso.core.util;
 
 import static uk.ac.bbsrc.tgac.miso.core.util.LimsUtils.isStringEmptyOrNull;
+import static uk.ac.bbsrc.tgac.miso.core.util.XlsxRowReader.getCell;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -37,9 +38,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -115,6 +121,11 @@ public class FormUtils {
   private static final Pattern digitPattern = Pattern.compile("(^[0-9]+)[\\.0-9]*");
   private static final Pattern samplePattern = Pattern.compile("([A-z0-9]+)_S([A-z0-9]+)_(.*)");
 
+  /**
+   * The number of samples or libraries written between progress reports when importing a sheet
+   */
+  private static final int IMPORT_CHUNK_SIZE = 100;
+
   public static void createSampleInputSpreadsheet(Collection<Sample> samples, File outpath) throws Exception {
     Collections.sort(new ArrayList<Sample>(samples), new AliasComparator(Sample.class));
 
@@ -3183,90 +3194,156 @@ public class FormUtils {
     return pools;
   }
 
-  public static JSONArray preProcessSampleSheetImport(File inPath, User u, RequestManager manager) throws Exception {
-    if (inPath.getName().endsWith(".xlsx")) {
-      XSSFWorkbook wb = new XSSFWorkbook(new FileInputStream(inPath));
-      JSONArray jsonArray = new JSONArray();
-      XSSFSheet sheet = wb.getSheetAt(0);
-      int rows = sheet.getPhysicalNumberOfRows();
-      for (int ri = 5; ri < rows; ri++) {
-        XSSFRow row = sheet.getRow(ri);
-        XSSFCell sampleAliasCell = row.getCell(3);
-        Sample s = null;
-        if (getCellValueAsString(sampleAliasCell) != null) {
-          String salias = getCellValueAsString(sampleAliasCell);
-          Collection<Sample> ss = manager.listSamplesByAlias(salias);
-          if (!ss.isEmpty()) {
-            if (ss.size() == 1) {
-              s = ss.iterator().next();
-              log.info("Got sample: " + s.getAlias());
-            } else {
-              throw new InputFormException("Multiple samples retrieved with this alias: '" + salias + "'. Cannot process.");
-            }
-          } else {
-            throw new InputFormException(
-                "No such sample '" + salias + "'in database. Samples need to be created before using the form input functionality");
-          }
-        } else {
+  /**
+   * Receives the rows of an import sheet one at a time as the sheet is streamed
+   */
+  private interface ImportRowHandler {
+    void handleRow(int rowIndex, List<String> row) throws Exception;
+  }
+
+  /**
+   * Streams the rows of the first sheet of an xlsx import sheet, from firstRow onwards, to the handler as they are read, rather than
+   * loading the workbook or collecting the rows. Reading stops at the first row that has no sample alias.
+   */
+  private static void readImportSheet(File inPath, final int firstRow, final int aliasColumn, final ImportRowHandler handler)
+      throws Exception {
+    XlsxRowReader.read(inPath, new XlsxRowReader.RowHandler() {
+      @Override
+      public boolean handleRow(int rowIndex, List<String> cells) throws Exception {
+        if (rowIndex < firstRow) {
+          return true;
+        }
+        if (getCell(cells, aliasColumn) == null) {
           log.info("Blank sample row found. Ending import.");
-          break;
+          return false;
         }
+        handler.handleRow(rowIndex, cells);
+        return true;
+      }
+    });
+  }
 
-        // sample OK - good to go
-        if (s != null) {
+  /**
+   * Reads a single header row of an xlsx import sheet, stopping as soon as it has been read
+   *
+   * @return the row, or null if the sheet ends before it
+   */
+  private static List<String> readImportHeaderRow(File inPath, final int rowIndex) throws Exception {
+    final List<List<String>> header = new ArrayList<List<String>>();
+    XlsxRowReader.read(inPath, new XlsxRowReader.RowHandler() {
+      @Override
+      public boolean handleRow(int index, List<String> cells) {
+        if (index == rowIndex) {
+          header.add(cells);
+          return false;
+        }
+        return true;
+      }
+    });
+    return header.isEmpty() ? null : header.get(0);
+  }
+
+  /**
+   * Streams an import sheet to collect its sample aliases, so that they can be looked up before its rows are processed
+   */
+  private static Set<String> readImportAliases(File inPath, int firstRow, final int aliasColumn) throws Exception {
+    final Set<String> aliases = new LinkedHashSet<String>();
+    readImportSheet(inPath, firstRow, aliasColumn, new ImportRowHandler() {
+      @Override
+      public void handleRow(int rowIndex, List<String> row) {
+        aliases.add(getCell(row, aliasColumn));
+      }
+    });
+    return aliases;
+  }
+
+  /**
+   * Looks up the samples named in the alias column of an import sheet with one query for the whole sheet, rather than one per row. The
+   * sheet is rejected if any alias does not match exactly one sample, with the error for the first such row.
+   *
+   * @return the sample for each alias, matched case-insensitively as the database does
+   */
+  private static Map<String, Sample> resolveImportSamples(Set<String> aliases, RequestManager manager) throws Exception {
+    Map<String, List<Sample>> matches = new TreeMap<String, List<Sample>>(String.CASE_INSENSITIVE_ORDER);
+    if (!aliases.isEmpty()) {
+      for (Sample s : manager.listSamplesByAliasList(new ArrayList<String>(aliases))) {
+        List<Sample> ss = matches.get(s.getAlias());
+        if (ss == null) {
+          ss = new ArrayList<Sample>();
+          matches.put(s.getAlias(), ss);
+        }
+        ss.add(s);
+      }
+    }
+    Map<String, Sample> samples = new TreeMap<String, Sample>(String.CASE_INSENSITIVE_ORDER);
+    for (String salias : aliases) {
+      List<Sample> ss = matches.get(salias);
+      if (ss == null) {
+        throw new InputFormException(
+            "No such sample '" + salias + "'in database. Samples need to be created before using the form input functionality");
+      } else if (ss.size() > 1) {
+        throw new InputFormException("Multiple samples retrieved with this alias: '" + salias + "'. Cannot process.");
+      }
+      samples.put(salias, ss.get(0));
+    }
+    log.info("Resolved " + samples.size() + " samples from import sheet");
+    return samples;
+  }
+
+  public static JSONArray preProcessSampleSheetImport(File inPath, User u, RequestManager manager) throws Exception {
+    if (inPath.getName().endsWith(".xlsx")) {
+      final JSONArray jsonArray = new JSONArray();
+      final Map<String, Sample> samples = resolveImportSamples(readImportAliases(inPath, 5, 3), manager);
+      readImportSheet(inPath, 5, 3, new ImportRowHandler() {
+        @Override
+        public void handleRow(int ri, List<String> row) throws Exception {
+          String sampleAlias = getCell(row, 3);
+          Sample s = samples.get(sampleAlias);
+
+          // sample OK - good to go
           JSONArray sampleArray = new JSONArray();
 
-          XSSFCell projectNameCell = row.getCell(0);
-          XSSFCell projectAliasCell = row.getCell(1);
-          XSSFCell sampleNameCell = row.getCell(2);
-          XSSFCell wellCell = row.getCell(4);
-          XSSFCell adaptorCell = row.getCell(5);
-          XSSFCell qcPassedCell = row.getCell(13);
-
-          sampleArray.add(getCellValueAsString(projectNameCell));
-          sampleArray.add(getCellValueAsString(projectAliasCell));
-          sampleArray.add(getCellValueAsString(sampleNameCell));
-          sampleArray.add(getCellValueAsString(sampleAliasCell));
-          sampleArray.add(getCellValueAsString(wellCell));
-          if ((getCellValueAsString(adaptorCell)) != null) {
-            sampleArray.add(getCellValueAsString(adaptorCell));
+          String qcPassed = getCell(row, 13);
+
+          sampleArray.add(getCell(row, 0));
+          sampleArray.add(getCell(row, 1));
+          sampleArray.add(getCell(row, 2));
+          sampleArray.add(sampleAlias);
+          sampleArray.add(getCell(row, 4));
+          if (getCell(row, 5) != null) {
+            sampleArray.add(getCell(row, 5));
           } else {
             sampleArray.add("");
-
           }
 
-          XSSFCell qcResultCell = null;
+          String qcResult = null;
 
           if ("GENOMIC".equals(s.getSampleType()) || "METAGENOMIC".equals(s.getSampleType())) {
-            qcResultCell = row.getCell(6);
+            qcResult = getCell(row, 6);
           } else if ("NON GENOMIC".equals(s.getSampleType()) || "VIRAL RNA".equals(s.getSampleType())
               || "TRANSCRIPTOMIC".equals(s.getSampleType()) || "METATRANSCRIPTOMIC".equals(s.getSampleType())) {
-            qcResultCell = row.getCell(7);
+            qcResult = getCell(row, 7);
           } else {
-
-            if (!"NA".equals(getCellValueAsString(row.getCell(6)))) {
-              qcResultCell = row.getCell(6);
-            } else if (!"NA".equals(getCellValueAsString(row.getCell(7)))) {
-              qcResultCell = row.getCell(7);
+            if (!"NA".equals(getCell(row, 6))) {
+              qcResult = getCell(row, 6);
+            } else if (!"NA".equals(getCell(row, 7))) {
+              qcResult = getCell(row, 7);
             }
           }
 
-          XSSFCell rinCell = row.getCell(8);
-          XSSFCell sample260280Cell = row.getCell(9);
-          XSSFCell sample260230Cell = row.getCell(10);
-          Date date = new Date();
+          String rin = getCell(row, 8);
+          String sample260280 = getCell(row, 9);
+          String sample260230 = getCell(row, 10);
 
           try {
-            if (getCellValueAsString(qcResultCell) != null && !"NA".equals(getCellValueAsString(qcResultCell))) {
-
-              sampleArray.add(Double.valueOf(getCellValueAsString(qcResultCell)));
-              if (getCellValueAsString(qcPassedCell) != null) {
-                if ("Y".equals(getCellValueAsString(qcPassedCell)) || "y".equals(getCellValueAsString(qcPassedCell))) {
+            if (qcResult != null && !"NA".equals(qcResult)) {
+              sampleArray.add(Double.valueOf(qcResult));
+              if (qcPassed != null) {
+                if ("Y".equals(qcPassed) || "y".equals(qcPassed)) {
                   sampleArray.add("true");
-                } else if ("N".equals(getCellValueAsString(qcPassedCell)) || "n".equals(getCellValueAsString(qcPassedCell))) {
+                } else if ("N".equals(qcPassed) || "n".equals(qcPassed)) {
                   sampleArray.add("false");
                 }
-
               }
             } else {
               sampleArray.add("");
@@ -3274,180 +3351,157 @@ public class FormUtils {
             }
 
             StringBuilder noteSB = new StringBuilder();
-            if (!isStringEmptyOrNull(getCellValueAsString(rinCell)) && !"NA".equals(getCellValueAsString(rinCell))) {
-              noteSB.append("RIN:" + getCellValueAsString(rinCell) + ";");
+            if (!isStringEmptyOrNull(rin) && !"NA".equals(rin)) {
+              noteSB.append("RIN:" + rin + ";");
             }
-            if (!isStringEmptyOrNull(getCellValueAsString(sample260280Cell))) {
-              noteSB.append("260/280:" + getCellValueAsString(sample260280Cell) + ";");
+            if (!isStringEmptyOrNull(sample260280)) {
+              noteSB.append("260/280:" + sample260280 + ";");
             }
-            if (!isStringEmptyOrNull(getCellValueAsString(sample260230Cell))) {
-              noteSB.append("260/230:" + getCellValueAsString(sample260230Cell) + ";");
+            if (!isStringEmptyOrNull(sample260230)) {
+              noteSB.append("260/230:" + sample260230 + ";");
             }
             sampleArray.add(noteSB.toString());
           } catch (NumberFormatException nfe) {
-            throw new InputFormException(
-                "Supplied Sample QC concentration for sample '" + getCellValueAsString(sampleAliasCell) + "' is invalid", nfe);
+            throw new InputFormException("Supplied Sample QC concentration for sample '" + sampleAlias + "' is invalid", nfe);
           }
           jsonArray.add(sampleArray);
         }
-      }
+      });
       return jsonArray;
     } else {
       throw new UnsupportedOperationException("Cannot process bulk input files other than xls, xlsx, and ods.");
     }
   }
 
-  public static JSONArray processSampleSheetImport(File inPath, User u, RequestManager manager) throws Exception {
+  /**
+   * The QCs and notes added to one sample by an import, held until the whole sheet has been read
+   */
+  private static class PendingSampleChanges {
+    private final Sample sample;
+    private final List<SampleQC> qcs = new ArrayList<SampleQC>();
+    private final List<Note> notes = new ArrayList<Note>();
+
+    private PendingSampleChanges(Sample sample) {
+      this.sample = sample;
+    }
+  }
+
+  private static void addImportNote(PendingSampleChanges changes, User u, Date date, String text) {
+    Note note = new Note();
+    note.setCreationDate(date);
+    note.setOwner(u);
+    note.setText(text);
+    if (!changes.sample.getNotes().contains(note)) {
+      changes.sample.addNote(note);
+      changes.notes.add(note);
+      log.debug("Added sample Note: " + note.toString());
+    }
+  }
+
+  public static JSONArray processSampleSheetImport(File inPath, final User u, RequestManager manager) throws Exception {
     if (inPath.getName().endsWith(".xlsx")) {
-      XSSFWorkbook wb = new XSSFWorkbook(new FileInputStream(inPath));
-      JSONArray jsonArray = new JSONArray();
-      XSSFSheet sheet = wb.getSheetAt(0);
-      int rows = sheet.getPhysicalNumberOfRows();
-      for (int ri = 5; ri < rows; ri++) {
-        XSSFRow row = sheet.getRow(ri);
-        XSSFCell sampleAliasCell = row.getCell(3);
-        Sample s = null;
-        if (getCellValueAsString(sampleAliasCell) != null) {
-          String salias = getCellValueAsString(sampleAliasCell);
-          Collection<Sample> ss = manager.listSamplesByAlias(salias);
-          if (!ss.isEmpty()) {
-            if (ss.size() == 1) {
-              s = ss.iterator().next();
-              log.info("Got sample: " + s.getAlias());
-            } else {
-              throw new InputFormException("Multiple samples retrieved with this alias: '" + salias + "'. Cannot process.");
-            }
-          } else {
-            throw new InputFormException(
-                "No such sample '" + salias + "'in database. Samples need to be created before using the form input functionality");
+      final JSONArray jsonArray = new JSONArray();
+      final Map<String, Sample> samples = resolveImportSamples(readImportAliases(inPath, 5, 3), manager);
+
+      QcType picogreen = manager.getSampleQcTypeByName("Picogreen");
+      final QcType qcType = picogreen != null ? picogreen : manager.getSampleQcTypeByName("QuBit");
+
+      // apply every row to the samples in memory first, so that a bad row rejects the sheet before anything is written
+      final Map<Long, PendingSampleChanges> pending = new LinkedHashMap<Long, PendingSampleChanges>();
+      final Date date = new Date();
+      readImportSheet(inPath, 5, 3, new ImportRowHandler() {
+        @Override
+        public void handleRow(int ri, List<String> row) throws Exception {
+          String sampleAlias = getCell(row, 3);
+          Sample s = samples.get(sampleAlias);
+          PendingSampleChanges changes = pending.get(s.getId());
+          if (changes == null) {
+            changes = new PendingSampleChanges(s);
+            pending.put(s.getId(), changes);
           }
-        } else {
-          log.info("Blank sample row found. Ending import.");
-          break;
-        }
 
-        // sample OK - good to go
-        if (s != null) {
+          // sample OK - good to go
           JSONObject jsonObject = new JSONObject();
 
-          XSSFCell projectNameCell = row.getCell(0);
-          XSSFCell projectAliasCell = row.getCell(1);
-          XSSFCell sampleNameCell = row.getCell(2);
-          XSSFCell wellCell = row.getCell(4);
-          XSSFCell adaptorCell = row.getCell(5);
-          XSSFCell qcPassedCell = row.getCell(13);
+          String well = getCell(row, 4);
+          String qcPassed = getCell(row, 13);
 
           jsonObject.put("row", ri);
-          jsonObject.put("projectName", getCellValueAsString(projectNameCell));
-          jsonObject.put("projectAlias", getCellValueAsString(projectAliasCell));
-          jsonObject.put("sampleName", getCellValueAsString(sampleNameCell));
-          jsonObject.put("sampleAlias", getCellValueAsString(sampleAliasCell));
-          jsonObject.put("well", getCellValueAsString(wellCell));
-          if ((getCellValueAsString(adaptorCell)) != null) {
-            jsonObject.put("adaptor", getCellValueAsString(adaptorCell));
+          jsonObject.put("projectName", getCell(row, 0));
+          jsonObject.put("projectAlias", getCell(row, 1));
+          jsonObject.put("sampleName", getCell(row, 2));
+          jsonObject.put("sampleAlias", sampleAlias);
+          jsonObject.put("well", well);
+          if (getCell(row, 5) != null) {
+            jsonObject.put("adaptor", getCell(row, 5));
           } else {
             jsonObject.put("adaptor", "");
-
           }
 
           jsonArray.add(jsonObject);
-          XSSFCell qcResultCell = null;
-          if (!"NA".equals(getCellValueAsString(row.getCell(6)))) {
-            qcResultCell = row.getCell(6);
-          } else if (!"NA".equals(getCellValueAsString(row.getCell(7)))) {
-            qcResultCell = row.getCell(7);
+          String qcResult = null;
+          if (!"NA".equals(getCell(row, 6))) {
+            qcResult = getCell(row, 6);
+          } else if (!"NA".equals(getCell(row, 7))) {
+            qcResult = getCell(row, 7);
           }
-          XSSFCell rinCell = row.getCell(8);
-          XSSFCell sample260280Cell = row.getCell(9);
-          XSSFCell sample260230Cell = row.getCell(10);
-          Date date = new Date();
+          String rin = getCell(row, 8);
+          String sample260280 = getCell(row, 9);
+          String sample260230 = getCell(row, 10);
 
           try {
-            if (getCellValueAsString(qcResultCell) != null && !"NA".equals(getCellValueAsString(qcResultCell))) {
-
+            if (qcResult != null && !"NA".equals(qcResult)) {
               SampleQC sqc = new SampleQCImpl();
               sqc.setSample(s);
-              sqc.setResults(Double.valueOf(getCellValueAsString(qcResultCell)));
+              sqc.setResults(Double.valueOf(qcResult));
               sqc.setQcCreator(u.getLoginName());
               sqc.setQcDate(date);
-              if (manager.getSampleQcTypeByName("Picogreen") != null) {
-                sqc.setQcType(manager.getSampleQcTypeByName("Picogreen"));
-              } else {
-                sqc.setQcType(manager.getSampleQcTypeByName("QuBit"));
-              }
+              sqc.setQcType(qcType);
               if (!s.getSampleQCs().contains(sqc)) {
                 s.addQc(sqc);
-                manager.saveSampleQC(sqc);
-                manager.saveSample(s);
-                log.info("Added sample QC: " + sqc.toString());
+                changes.qcs.add(sqc);
+                log.debug("Added sample QC: " + sqc.toString());
               }
-              if (getCellValueAsString(qcPassedCell) != null) {
-                if ("Y".equals(getCellValueAsString(qcPassedCell)) || "y".equals(getCellValueAsString(qcPassedCell))) {
+              if (qcPassed != null) {
+                if ("Y".equals(qcPassed) || "y".equals(qcPassed)) {
                   s.setQcPassed(true);
-                  manager.saveSample(s);
-                  log.info("Marked sample QC Passed as True");
-                } else if ("N".equals(getCellValueAsString(qcPassedCell)) || "n".equals(getCellValueAsString(qcPassedCell))) {
+                } else if ("N".equals(qcPassed) || "n".equals(qcPassed)) {
                   s.setQcPassed(false);
-                  manager.saveSample(s);
-                  log.info("Marked sample QC Passed as False");
                 }
-
               }
             }
-            if (!isStringEmptyOrNull(getCellValueAsString(wellCell)) && !"NA".equals(getCellValueAsString(wellCell))) {
-              Note note = new Note();
-              note.setCreationDate(date);
-              note.setOwner(u);
-              note.setText("Well: " + getCellValueAsString(wellCell));
-              if (!s.getNotes().contains(note)) {
-                s.addNote(note);
-                manager.saveSampleNote(s, note);
-                manager.saveSample(s);
-                log.info("Added sample Note for Well: " + note.toString());
-              }
+            if (!isStringEmptyOrNull(well) && !"NA".equals(well)) {
+              addImportNote(changes, u, date, "Well: " + well);
             }
-            if (!isStringEmptyOrNull(getCellValueAsString(rinCell)) && !"NA".equals(getCellValueAsString(rinCell))) {
-              Note note = new Note();
-              note.setCreationDate(date);
-              note.setOwner(u);
-              note.setText("RIN: " + getCellValueAsString(rinCell));
-              if (!s.getNotes().contains(note)) {
-                s.addNote(note);
-                manager.saveSampleNote(s, note);
-                manager.saveSample(s);
-                log.info("Added sample Note for RIN: " + note.toString());
-              }
+            if (!isStringEmptyOrNull(rin) && !"NA".equals(rin)) {
+              addImportNote(changes, u, date, "RIN: " + rin);
             }
-            if (!isStringEmptyOrNull(getCellValueAsString(sample260280Cell))) {
-              Note note = new Note();
-              note.setCreationDate(date);
-              note.setOwner(u);
-              note.setText("260/280: " + getCellValueAsString(sample260280Cell));
-              if (!s.getNotes().contains(note)) {
-                s.addNote(note);
-                manager.saveSampleNote(s, note);
-                manager.saveSample(s);
-                log.info("Added sample Note for 260/280: " + note.toString());
-              }
+            if (!isStringEmptyOrNull(sample260280)) {
+              addImportNote(changes, u, date, "260/280: " + sample260280);
             }
-            if (!isStringEmptyOrNull(getCellValueAsString(sample260230Cell))) {
-              Note note = new Note();
-              note.setCreationDate(date);
-              note.setOwner(u);
-              note.setText("260/230: " + getCellValueAsString(sample260230Cell));
-              if (!s.getNotes().contains(note)) {
-                s.addNote(note);
-                manager.saveSampleNote(s, note);
-                manager.saveSample(s);
-                log.info("Added sample Note for 260/230: " + note.toString());
-              }
+            if (!isStringEmptyOrNull(sample260230)) {
+              addImportNote(changes, u, date, "260/230: " + sample260230);
             }
-
           } catch (NumberFormatException nfe) {
-            throw new InputFormException(
-                "Supplied Sample QC concentration for sample '" + getCellValueAsString(sampleAliasCell) + "' is invalid", nfe);
+            throw new InputFormException("Supplied Sample QC concentration for sample '" + sampleAlias + "' is invalid", nfe);
           }
         }
+      });
+
+      // then write each sample once, with its new QCs and notes, a chunk at a time
+      int saved = 0;
+      for (PendingSampleChanges changes : pending.values()) {
+        for (SampleQC sqc : changes.qcs) {
+          manager.saveSampleQC(sqc);
+        }
+        for (Note note : changes.notes) {
+          manager.saveSampleNote(changes.sample, note);
+        }
+        manager.saveSample(changes.sample);
+        saved++;
+        if (saved % IMPORT_CHUNK_SIZE == 0 || saved == pending.size()) {
+          log.info("Imported " + saved + " of " + pending.size() + " samples");
+        }
       }
       return jsonArray;
     } else {
@@ -3458,102 +3512,81 @@ public class FormUtils {
   public static JSONObject preProcessLibraryPoolSheetImport(File inPath, User u, RequestManager manager) throws Exception {
     if (inPath.getName().endsWith(".xlsx")) {
       JSONObject jsonObject = new JSONObject();
-      JSONArray sampleArray = new JSONArray();
-      XSSFWorkbook wb = new XSSFWorkbook(new FileInputStream(inPath));
-      XSSFSheet sheet = wb.getSheetAt(0);
-
-      XSSFRow glrow = sheet.getRow(1);
+      final JSONArray sampleArray = new JSONArray();
+      List<String> glrow = readImportHeaderRow(inPath, 1);
+      if (glrow == null) {
+        throw new InputFormException("Cannot find the global headers in the import sheet");
+      }
 
       // process global headers
-      XSSFCell pairedCell = glrow.getCell(0);
-      jsonObject.put("paired", getCellValueAsString(pairedCell));
+      jsonObject.put("paired", getCell(glrow, 0));
 
-      XSSFCell platformCell = glrow.getCell(1);
-      if (getCellValueAsString(platformCell) != null) {
-        jsonObject.put("platform", getCellValueAsString(platformCell));
+      String platform = getCell(glrow, 1);
+      if (platform != null) {
+        jsonObject.put("platform", platform);
       } else {
-        throw new InputFormException("Cannot resolve Platform type from: '" + getCellValueAsString(platformCell) + "'");
+        throw new InputFormException("Cannot resolve Platform type from: '" + platform + "'");
       }
 
-      XSSFCell typeCell = glrow.getCell(2);
-      if (getCellValueAsString(typeCell) != null) {
-        String[] split = getCellValueAsString(typeCell).split("-");
+      String libraryType = getCell(glrow, 2);
+      if (libraryType != null) {
+        String[] split = libraryType.split("-");
         String plat = split[0];
         String type = split[1];
-        if (getCellValueAsString(platformCell).equals(plat)) {
+        if (platform.equals(plat)) {
           jsonObject.put("type", type);
         } else {
-          throw new InputFormException("Selected library type '" + getCellValueAsString(typeCell) + "' doesn't match platform type: '"
-              + getCellValueAsString(platformCell) + "'");
+          throw new InputFormException("Selected library type '" + libraryType + "' doesn't match platform type: '" + platform + "'");
         }
       } else {
-        throw new InputFormException("Cannot resolve Library type from: '" + getCellValueAsString(typeCell) + "'");
+        throw new InputFormException("Cannot resolve Library type from: '" + libraryType + "'");
       }
 
-      XSSFCell selectionCell = glrow.getCell(3);
-      if (getCellValueAsString(selectionCell) != null) {
-        jsonObject.put("selection", getCellValueAsString(selectionCell));
+      String selection = getCell(glrow, 3);
+      if (selection != null) {
+        jsonObject.put("selection", selection);
       } else {
-        throw new InputFormException("Cannot resolve Library Selection type from: '" + getCellValueAsString(selectionCell) + "'");
+        throw new InputFormException("Cannot resolve Library Selection type from: '" + selection + "'");
       }
 
-      XSSFCell strategyCell = glrow.getCell(4);
-      if (getCellValueAsString(strategyCell) != null) {
-        jsonObject.put("strategy", getCellValueAsString(strategyCell));
+      String strategy = getCell(glrow, 4);
+      if (strategy != null) {
+        jsonObject.put("strategy", strategy);
       } else {
-        throw new InputFormException("Cannot resolve Library Strategy type from: '" + getCellValueAsString(strategyCell) + "'");
+        throw new InputFormException("Cannot resolve Library Strategy type from: '" + strategy + "'");
       }
 
-      int rows = sheet.getPhysicalNumberOfRows();
-      for (int ri = 6; ri < rows; ri++) {
-        JSONArray rowsJSONArray = new JSONArray();
-        XSSFRow row = sheet.getRow(ri);
-        XSSFCell sampleNameCell = row.getCell(2);
-        XSSFCell sampleAliasCell = row.getCell(3);
-        Sample s = null;
-        if (getCellValueAsString(sampleAliasCell) != null) {
-          String salias = getCellValueAsString(sampleAliasCell);
-          Collection<Sample> ss = manager.listSamplesByAlias(salias);
-          if (!ss.isEmpty()) {
-            if (ss.size() == 1) {
-              s = ss.iterator().next();
-              log.info("Got sample: " + s.getAlias());
-            } else {
-              throw new InputFormException("Multiple samples retrieved with this alias: '" + salias + "'. Cannot process.");
-            }
-          } else {
-            throw new InputFormException(
-                "No such sample '" + salias + "'in database. Samples need to be created before using the form input functionality");
-          }
-        } else {
-          log.info("Blank sample row found. Ending import.");
-          break;
-        }
-
-        // sample OK - good to go
-        if (s != null) {
-          XSSFCell barcodeKitCell = row.getCell(9);
-          XSSFCell barcodeTagsCell = row.getCell(10);
-          XSSFCell libraryQubitCell = row.getCell(6);
-          XSSFCell libraryQcInsertSizeCell = row.getCell(7);
-          XSSFCell libraryQcMolarityCell = row.getCell(8);
-          XSSFCell qcPassedCell = row.getCell(11);
-          XSSFCell libraryDescriptionCell = row.getCell(12);
-          XSSFCell wellCell = row.getCell(4);
-          XSSFCell dilutionMolarityCell = row.getCell(16);
-          XSSFCell poolNameCell = row.getCell(21);
-          XSSFCell poolConvertedMolarityCell = row.getCell(20);
-
-          rowsJSONArray.add(getCellValueAsString(sampleNameCell));
-          rowsJSONArray.add(getCellValueAsString(sampleAliasCell));
-          rowsJSONArray.add(getCellValueAsString(wellCell).replaceAll("\\s", ""));
-
-          XSSFCell proceedKeyCell = row.getCell(22);
+      final Map<String, Sample> samples = resolveImportSamples(readImportAliases(inPath, 6, 3), manager);
+      readImportSheet(inPath, 6, 3, new ImportRowHandler() {
+        @Override
+        public void handleRow(int ri, List<String> row) throws Exception {
+          JSONArray rowsJSONArray = new JSONArray();
+          String sampleAlias = getCell(row, 3);
+          Sample s = samples.get(sampleAlias);
+
+          // sample OK - good to go
+          String barcodeKit = getCell(row, 9);
+          String barcodeTags = getCell(row, 10);
+          String libraryQubit = getCell(row, 6);
+          String libraryQcInsertSize = getCell(row, 7);
+          String libraryQcMolarity = getCell(row, 8);
+          String qcPassed = getCell(row, 11);
+          String libraryDescription = getCell(row, 12);
+          String well = getCell(row, 4);
+          String dilutionMolarity = getCell(row, 16);
+          String poolName = getCell(row, 21);
+          String poolConvertedMolarity = getCell(row, 20);
+
+          rowsJSONArray.add(getCell(row, 2));
+          rowsJSONArray.add(sampleAlias);
+          rowsJSONArray.add(well.replaceAll("\\s", ""));
+
+          String proceedKeyCell = getCell(row, 22);
 
           String proceedKey = "A";
 
-          if (getCellValueAsString(proceedKeyCell) != null) {
-            String proceedKeyString = getCellValueAsString(proceedKeyCell).toUpperCase().replaceAll("\\s", "");
+          if (proceedKeyCell != null) {
+            String proceedKeyString = proceedKeyCell.toUpperCase().replaceAll("\\s", "");
             if ("L".equals(proceedKeyString)) {
               proceedKey = "L";
             } else if ("U".equals(proceedKeyString)) {
@@ -3562,87 +3595,45 @@ public class FormUtils {
               proceedKey = "P";
             }
           }
+          boolean importLibrary = "A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey);
+          boolean importPool = "A".equals(proceedKey) || "P".equals(proceedKey);
 
           String libAlias = "";
-          Matcher mat = samplePattern.matcher(getCellValueAsString(sampleAliasCell));
+          Matcher mat = samplePattern.matcher(sampleAlias);
           if (mat.matches()) {
-            String platePos = getCellValueAsString(wellCell);
-            libAlias = mat.group(1) + "_" + "L" + mat.group(2) + "-" + platePos.toUpperCase() + "_" + mat.group(3);
+            libAlias = mat.group(1) + "_" + "L" + mat.group(2) + "-" + well.toUpperCase() + "_" + mat.group(3);
           }
           rowsJSONArray.add(libAlias);
 
-          if ("A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey)) {
+          if (importLibrary) {
             String libDesc = s.getDescription();
-            if (!isStringEmptyOrNull(getCellValueAsString(libraryDescriptionCell))) {
-              libDesc = getCellValueAsString(libraryDescriptionCell);
+            if (!isStringEmptyOrNull(libraryDescription)) {
+              libDesc = libraryDescription;
             }
             rowsJSONArray.add(libDesc);
           } else {
             rowsJSONArray.add("");
           }
 
-          if (getCellValueAsString(libraryQubitCell) != null
-              && ("A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(libraryQubitCell));
-          } else {
-            rowsJSONArray.add("");
-          }
+          rowsJSONArray.add(libraryQubit != null && importLibrary ? libraryQubit : "");
+          rowsJSONArray.add(libraryQcInsertSize != null && importLibrary ? libraryQcInsertSize : "");
+          rowsJSONArray.add(libraryQcMolarity != null && importLibrary ? libraryQcMolarity : "");
 
-          if (getCellValueAsString(libraryQcInsertSizeCell) != null
-              && ("A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(libraryQcInsertSizeCell));
-          } else {
-            rowsJSONArray.add("");
-          }
-
-          if (getCellValueAsString(libraryQcMolarityCell) != null
-              && ("A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(libraryQcMolarityCell));
-          } else {
-            rowsJSONArray.add("");
-          }
-
-          if (getCellValueAsString(qcPassedCell) != null && ("A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey))) {
-            if ("Y".equals(getCellValueAsString(qcPassedCell)) || "y".equals(getCellValueAsString(qcPassedCell))) {
+          if (qcPassed != null && importLibrary) {
+            if ("Y".equals(qcPassed) || "y".equals(qcPassed)) {
               rowsJSONArray.add("true");
-            } else if ("N".equals(getCellValueAsString(qcPassedCell)) || "n".equals(getCellValueAsString(qcPassedCell))) {
+            } else if ("N".equals(qcPassed) || "n".equals(qcPassed)) {
               rowsJSONArray.add("false");
             }
           } else {
             rowsJSONArray.add("");
           }
 
-          if (getCellValueAsString(barcodeKitCell) != null
-              && ("A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(barcodeKitCell));
-          } else {
-            rowsJSONArray.add("");
-          }
-
-          if (getCellValueAsString(barcodeTagsCell) != null
-              && ("A".equals(proceedKey) || "L".equals(proceedKey) || "U".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(barcodeTagsCell));
-          } else {
-            rowsJSONArray.add("");
-          }
-
-          if (getCellValueAsString(dilutionMolarityCell) != null && ("A".equals(proceedKey) || "P".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(dilutionMolarityCell));
-          } else {
-            rowsJSONArray.add("");
-          }
-
-          if (getCellValueAsString(poolNameCell) != null && ("A".equals(proceedKey) || "P".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(poolNameCell));
-          } else {
-            rowsJSONArray.add("");
-          }
-
-          if (getCellValueAsString(poolConvertedMolarityCell) != null && ("A".equals(proceedKey) || "P".equals(proceedKey))) {
-            rowsJSONArray.add(getCellValueAsString(poolConvertedMolarityCell));
-          } else {
-            rowsJSONArray.add("");
-          }
+          rowsJSONArray.add(barcodeKit != null && importLibrary ? barcodeKit : "");
+          rowsJSONArray.add(barcodeTags != null && importLibrary ? barcodeTags : "");
+          rowsJSONArray.add(dilutionMolarity != null && importPool ? dilutionMolarity : "");
+          rowsJSONArray.add(poolName != null && importPool ? poolName : "");
+          rowsJSONArray.add(poolConvertedMolarity != null && importPool ? poolConvertedMolarity : "");
 
           rowsJSONArray.add(proceedKey);
           if ("A".equals(proceedKey)) {
@@ -3654,9 +3645,9 @@ public class FormUtils {
           } else if ("P".equals(proceedKey)) {
             rowsJSONArray.add("P: import the library dilution and pool based on the library info");
           }
+          sampleArray.add(rowsJSONArray);
         }
-        sampleArray.add(rowsJSONArray);
-      }
+      });
       jsonObject.put("rows", sampleArray);
       return jsonObject;
     } else {
@@ -3664,116 +3655,138 @@ public class FormUtils {
     }
   }
 
-  public static String processLibraryPoolSheetImport(File inPath, User u, RequestManager manager, TagBarcodeService tagBarcodeService)
-      throws Exception {
-    if (inPath.getName().endsWith(".xlsx")) {
-      XSSFWorkbook wb = new XSSFWorkbook(new FileInputStream(inPath));
-      XSSFSheet sheet = wb.getSheetAt(0);
+  /**
+   * Adds a library QC read from an import sheet, and sets whether the library passed QC
+   */
+  private static void addImportLibraryQc(Library library, Sample s, String libAlias, String insertSizeValue, String resultValue,
+      String qcPassed, QcType qcType, User u, RequestManager manager) throws Exception {
+    int insertSize = 0;
+    try {
+      Matcher m = digitPattern.matcher(insertSizeValue);
+      if (m.matches()) {
+        insertSize = Integer.valueOf(m.group(1));
+      } else {
+        throw new InputFormException("Supplied Library insert size for library '" + libAlias + "' (" + s.getAlias() + ") is invalid");
+      }
+    } catch (NumberFormatException nfe) {
+      throw new InputFormException("Supplied Library insert size for library '" + libAlias + "' (" + s.getAlias() + ") is invalid", nfe);
+    }
 
-      XSSFRow glrow = sheet.getRow(1);
+    try {
+      LibraryQC lqc = new LibraryQCImpl();
+      lqc.setLibrary(library);
+      lqc.setInsertSize(insertSize);
+      lqc.setResults(Double.valueOf(resultValue));
+      lqc.setQcCreator(u.getLoginName());
+      lqc.setQcDate(new Date());
+      lqc.setQcType(qcType);
+      if (!library.getLibraryQCs().contains(lqc)) {
+        library.addQc(lqc);
+        manager.saveLibraryQC(lqc);
+        log.debug("Added library QC: " + lqc.toString());
+      }
+
+      if (insertSize == 0 && lqc.getResults() == 0) {
+        library.setQcPassed(false);
+      } else if (qcPassed != null) {
+        if ("Y".equals(qcPassed) || "y".equals(qcPassed)) {
+          library.setQcPassed(true);
+        } else if ("N".equals(qcPassed) || "n".equals(qcPassed)) {
+          library.setQcPassed(false);
+        }
+      }
+    } catch (NumberFormatException nfe) {
+      throw new InputFormException("Supplied Library QC concentration for library '" + libAlias + "' (" + s.getAlias() + ") is invalid",
+          nfe);
+    }
+  }
+
+  public static String processLibraryPoolSheetImport(File inPath, final User u, final RequestManager manager,
+      final TagBarcodeService tagBarcodeService) throws Exception {
+    if (inPath.getName().endsWith(".xlsx")) {
+      List<String> glrow = readImportHeaderRow(inPath, 1);
+      if (glrow == null) {
+        throw new InputFormException("Cannot find the global headers in the import sheet");
+      }
 
       // process global headers
-      XSSFCell pairedCell = glrow.getCell(0);
-      boolean paired = Boolean.parseBoolean(getCellValueAsString(pairedCell));
+      final boolean paired = Boolean.parseBoolean(getCell(glrow, 0));
       log.info("Got paired: " + paired);
 
-      XSSFCell platformCell = glrow.getCell(1);
-      PlatformType pt = null;
-      if (getCellValueAsString(platformCell) != null) {
-        pt = PlatformType.get(getCellValueAsString(platformCell));
-      }
+      String platform = getCell(glrow, 1);
+      final PlatformType pt = platform != null ? PlatformType.get(platform) : null;
       if (pt == null) {
-        throw new InputFormException("Cannot resolve Platform type from: '" + getCellValueAsString(platformCell) + "'");
+        throw new InputFormException("Cannot resolve Platform type from: '" + platform + "'");
       } else {
         log.info("Got platform type: " + pt.getKey());
       }
 
-      XSSFCell typeCell = glrow.getCell(2);
-      LibraryType lt = null;
-      if (getCellValueAsString(typeCell) != null) {
-        String[] split = getCellValueAsString(typeCell).split("-");
+      String libraryType = getCell(glrow, 2);
+      LibraryType matchedType = null;
+      if (libraryType != null) {
+        String[] split = libraryType.split("-");
         String plat = split[0];
         String type = split[1];
-        if (getCellValueAsString(platformCell).equals(plat)) {
-          lt = manager.getLibraryTypeByDescriptionAndPlatform(type, pt);
+        if (platform.equals(plat)) {
+          matchedType = manager.getLibraryTypeByDescriptionAndPlatform(type, pt);
         } else {
-          throw new InputFormException("Selected library type '" + getCellValueAsString(typeCell) + "' doesn't match platform type: '"
-              + getCellValueAsString(platformCell) + "'");
+          throw new InputFormException("Selected library type '" + libraryType + "' doesn't match platform type: '" + platform + "'");
         }
       }
+      final LibraryType lt = matchedType;
       if (lt == null) {
-        throw new InputFormException("Cannot resolve Library type from: '" + getCellValueAsString(typeCell) + "'");
+        throw new InputFormException("Cannot resolve Library type from: '" + libraryType + "'");
       } else {
         log.info("Got library type: " + lt.getDescription());
       }
 
-      XSSFCell selectionCell = glrow.getCell(3);
-      LibrarySelectionType ls = null;
-      if (getCellValueAsString(selectionCell) != null) {
-        ls = manager.getLibrarySelectionTypeByName(getCellValueAsString(selectionCell));
-      }
+      String selection = getCell(glrow, 3);
+      final LibrarySelectionType ls = selection != null ? manager.getLibrarySelectionTypeByName(selection) : null;
       if (ls == null) {
-        throw new InputFormException("Cannot resolve Library Selection type from: '" + getCellValueAsString(selectionCell) + "'");
+        throw new InputFormException("Cannot resolve Library Selection type from: '" + selection + "'");
       } else {
         log.info("Got library selection type: " + ls.getName());
       }
 
-      XSSFCell strategyCell = glrow.getCell(4);
-      LibraryStrategyType lst = null;
-      if (getCellValueAsString(strategyCell) != null) {
-        lst = manager.getLibraryStrategyTypeByName(getCellValueAsString(strategyCell));
-      }
+      String strategy = getCell(glrow, 4);
+      final LibraryStrategyType lst = strategy != null ? manager.getLibraryStrategyTypeByName(strategy) : null;
       if (lst == null) {
-        throw new InputFormException("Cannot resolve Library Strategy type from: '" + getCellValueAsString(strategyCell) + "'");
+        throw new InputFormException("Cannot resolve Library Strategy type from: '" + strategy + "'");
       } else {
         log.info("Got library strategy type: " + lst.getName());
       }
 
-      Map<String, Pool> pools = new HashMap<String, Pool>();
-      int rows = sheet.getPhysicalNumberOfRows();
-      for (int ri = 6; ri < rows; ri++) {
-        XSSFRow row = sheet.getRow(ri);
-        XSSFCell sampleAliasCell = row.getCell(3);
-        Sample s = null;
-        if (getCellValueAsString(sampleAliasCell) != null) {
-          String salias = getCellValueAsString(sampleAliasCell);
-          Collection<Sample> ss = manager.listSamplesByAlias(salias);
-          if (!ss.isEmpty()) {
-            if (ss.size() == 1) {
-              s = ss.iterator().next();
-              log.info("Got sample: " + s.getAlias());
-            } else {
-              throw new InputFormException("Multiple samples retrieved with this alias: '" + salias + "'. Cannot process.");
-            }
-          } else {
-            throw new InputFormException(
-                "No such sample '" + salias + "'in database. Samples need to be created before using the form input functionality");
-          }
-        } else {
-          log.info("Blank sample row found. Ending import.");
-          break;
-        }
-
-        // sample OK - good to go
-        if (s != null) {
+      final Map<String, Sample> samples = resolveImportSamples(readImportAliases(inPath, 6, 3), manager);
+
+      // reference data is looked up once per import rather than once per row
+      final QcType bioanalyzerQcType = manager.getLibraryQcTypeByName("Bioanalyzer");
+      final QcType qubitQcType = manager.getLibraryQcTypeByName("Qubit");
+      final Map<String, TagBarcodeFamily> barcodeFamilies = new HashMap<String, TagBarcodeFamily>();
+
+      // pools collect their dilutions across the sheet and are each saved once at the end
+      final Map<String, Pool> pools = new LinkedHashMap<String, Pool>();
+      final AtomicInteger libraries = new AtomicInteger();
+      readImportSheet(inPath, 6, 3, new ImportRowHandler() {
+        @Override
+        public void handleRow(int ri, List<String> row) throws Exception {
+          Sample s = samples.get(getCell(row, 3));
+
+          // sample OK - good to go
+          String barcodeKit = getCell(row, 9);
+          String barcodeTags = getCell(row, 10);
+          String libraryQubit = getCell(row, 6);
+          String libraryQcInsertSize = getCell(row, 7);
+          String libraryQcMolarity = getCell(row, 8);
+          String qcPassed = getCell(row, 11);
+          String libraryDescription = getCell(row, 12);
+          String platePos = getCell(row, 4);
+          String dilutionMolarity = getCell(row, 16);
+          String poolNum = getCell(row, 21);
+          String poolConvertedMolarity = getCell(row, 20);
 
-          XSSFCell barcodeKitCell = row.getCell(9);
-          XSSFCell barcodeTagsCell = row.getCell(10);
-          XSSFCell libraryQubitCell = row.getCell(6);
-          XSSFCell libraryQcInsertSizeCell = row.getCell(7);
-          XSSFCell libraryQcMolarityCell = row.getCell(8);
-          XSSFCell qcPassedCell = row.getCell(11);
-          XSSFCell libraryDescriptionCell = row.getCell(12);
-          XSSFCell wellCell = row.getCell(4);
-          XSSFCell dilutionMolarityCell = row.getCell(16);
-          XSSFCell poolNumberCell = row.getCell(21);
-          XSSFCell poolConvertedMolarityCell = row.getCell(20);
-
-          String platePos = getCellValueAsString(wellCell);
           LibraryDilution ldi = new LibraryDilution();
 
-          Date date = new Date();
-          if (getCellValueAsString(barcodeKitCell) != null && getCellValueAsString(barcodeTagsCell) != null) {
+          if (barcodeKit != null && barcodeTags != null) {
             // create library
             Library library = new LibraryImpl();
             library.setSample(s);
@@ -3784,8 +3797,8 @@ public class FormUtils {
 
               library.setAlias(libAlias);
               library.setSecurityProfile(s.getSecurityProfile());
-              if (!isStringEmptyOrNull(getCellValueAsString(libraryDescriptionCell))) {
-                library.setDescription(getCellValueAsString(libraryDescriptionCell));
+              if (!isStringEmptyOrNull(libraryDescription)) {
+                library.setDescription(libraryDescription);
               } else {
                 library.setDescription(s.getDescription());
               }
@@ -3796,130 +3809,41 @@ public class FormUtils {
               library.setLibraryStrategyType(lst);
               library.setPaired(paired);
 
-              if (getCellValueAsString(libraryQcMolarityCell) != null) {
-                int insertSize = 0;
-                try {
-                  String bp = getCellValueAsString(libraryQcInsertSizeCell);
-                  Matcher m = digitPattern.matcher(bp);
-                  if (m.matches()) {
-                    insertSize = Integer.valueOf(m.group(1));
-                  } else {
-                    throw new InputFormException(
-                        "Supplied Library insert size for library '" + libAlias + "' (" + s.getAlias() + ") is invalid");
-                  }
-                } catch (NumberFormatException nfe) {
-                  throw new InputFormException(
-                      "Supplied Library insert size for library '" + libAlias + "' (" + s.getAlias() + ") is invalid", nfe);
-                }
-
-                try {
-                  LibraryQC lqc = new LibraryQCImpl();
-                  lqc.setLibrary(library);
-                  lqc.setInsertSize(insertSize);
-                  lqc.setResults(Double.valueOf(getCellValueAsString(libraryQcMolarityCell)));
-                  lqc.setQcCreator(u.getLoginName());
-                  lqc.setQcDate(new Date());
-                  lqc.setQcType(manager.getLibraryQcTypeByName("Bioanalyzer"));
-                  if (!library.getLibraryQCs().contains(lqc)) {
-                    library.addQc(lqc);
-                    manager.saveLibraryQC(lqc);
-                    log.info("Added library QC: " + lqc.toString());
-                  }
-
-                  if (insertSize == 0 && lqc.getResults() == 0) {
-                    library.setQcPassed(false);
-                  } else {
-                    if (getCellValueAsString(qcPassedCell) != null) {
-                      if ("Y".equals(getCellValueAsString(qcPassedCell)) || "y".equals(getCellValueAsString(qcPassedCell))) {
-                        library.setQcPassed(true);
-                        log.info("Marked library QC Passed as True");
-                      } else if ("N".equals(getCellValueAsString(qcPassedCell)) || "n".equals(getCellValueAsString(qcPassedCell))) {
-                        library.setQcPassed(false);
-                        log.info("Marked library QC Passed as False");
-                      }
-                    }
-                  }
-                } catch (NumberFormatException nfe) {
-                  throw new InputFormException(
-                      "Supplied Library QC concentration for library '" + libAlias + "' (" + s.getAlias() + ") is invalid", nfe);
-                }
+              if (libraryQcMolarity != null) {
+                addImportLibraryQc(library, s, libAlias, libraryQcInsertSize, libraryQcMolarity, qcPassed, bioanalyzerQcType, u, manager);
               }
 
-              if (getCellValueAsString(libraryQubitCell) != null) {
-                int insertSize = 0;
-                try {
-                  String bp = getCellValueAsString(libraryQcInsertSizeCell);
-                  Matcher m = digitPattern.matcher(bp);
-                  if (m.matches()) {
-                    insertSize = Integer.valueOf(m.group(1));
-                  } else {
-                    throw new InputFormException(
-                        "Supplied Library insert size for library '" + libAlias + "' (" + s.getAlias() + ") is invalid");
-                  }
-                } catch (NumberFormatException nfe) {
-                  throw new InputFormException(
-                      "Supplied Library insert size for library '" + libAlias + "' (" + s.getAlias() + ") is invalid", nfe);
-                }
-
-                try {
-                  LibraryQC lqc = new LibraryQCImpl();
-                  lqc.setLibrary(library);
-                  lqc.setInsertSize(insertSize);
-                  lqc.setResults(Double.valueOf(getCellValueAsString(libraryQubitCell)));
-                  lqc.setQcCreator(u.getLoginName());
-                  lqc.setQcDate(new Date());
-                  lqc.setQcType(manager.getLibraryQcTypeByName("Qubit"));
-                  if (!library.getLibraryQCs().contains(lqc)) {
-                    library.addQc(lqc);
-                    manager.saveLibraryQC(lqc);
-                    log.info("Added library QC: " + lqc.toString());
-                  }
-
-                  if (insertSize == 0 && lqc.getResults() == 0) {
-                    library.setQcPassed(false);
-                  } else {
-                    if (getCellValueAsString(qcPassedCell) != null) {
-                      if ("Y".equals(getCellValueAsString(qcPassedCell)) || "y".equals(getCellValueAsString(qcPassedCell))) {
-                        library.setQcPassed(true);
-                        log.info("Marked library QC Passed as True");
-                      } else if ("N".equals(getCellValueAsString(qcPassedCell)) || "n".equals(getCellValueAsString(qcPassedCell))) {
-                        library.setQcPassed(false);
-                        log.info("Marked library QC Passed as False");
-                      }
-                    }
-                  }
-                } catch (NumberFormatException nfe) {
-                  throw new InputFormException(
-                      "Supplied Library QC concentration for library '" + libAlias + "' (" + s.getAlias() + ") is invalid", nfe);
-                }
+              if (libraryQubit != null) {
+                addImportLibraryQc(library, s, libAlias, libraryQcInsertSize, libraryQubit, qcPassed, qubitQcType, u, manager);
               }
 
-              if (getCellValueAsString(barcodeKitCell) != null) {
-                TagBarcodeFamily bcs = tagBarcodeService.getTagBarcodeFamilyByName(getCellValueAsString(barcodeKitCell));
-                if (bcs != null) {
-                  String tags = getCellValueAsString(barcodeTagsCell);
-                  if (!isStringEmptyOrNull(tags)) {
-                    library.setTagBarcodes(matchBarcodesFromText(bcs.getBarcodes(), tags));
-                  } else {
-                    throw new InputFormException("Barcode Kit specified but no tag barcodes entered for: '" + s.getAlias() + "'.");
-                  }
+              TagBarcodeFamily bcs = barcodeFamilies.get(barcodeKit);
+              if (bcs == null && !barcodeFamilies.containsKey(barcodeKit)) {
+                bcs = tagBarcodeService.getTagBarcodeFamilyByName(barcodeKit);
+                barcodeFamilies.put(barcodeKit, bcs);
+              }
+              if (bcs != null) {
+                if (!isStringEmptyOrNull(barcodeTags)) {
+                  library.setTagBarcodes(matchBarcodesFromText(bcs.getBarcodes(), barcodeTags));
                 } else {
-                  throw new InputFormException("No tag barcodes associated with the kit definition '" + getCellValueAsString(barcodeKitCell)
-                      + "' for sample: '" + s.getAlias() + "'.");
+                  throw new InputFormException("Barcode Kit specified but no tag barcodes entered for: '" + s.getAlias() + "'.");
                 }
+              } else {
+                throw new InputFormException(
+                    "No tag barcodes associated with the kit definition '" + barcodeKit + "' for sample: '" + s.getAlias() + "'.");
               }
 
-              if (getCellValueAsString(dilutionMolarityCell) != null) {
+              if (dilutionMolarity != null) {
                 try {
                   ldi.setLibrary(library);
                   ldi.setSecurityProfile(library.getSecurityProfile());
-                  ldi.setConcentration(Double.valueOf(getCellValueAsString(dilutionMolarityCell)));
+                  ldi.setConcentration(Double.valueOf(dilutionMolarity));
                   ldi.setCreationDate(new Date());
                   ldi.setLastModified(ldi.getCreationDate());
                   ldi.setDilutionCreator(u.getLoginName());
                   if (!library.getLibraryDilutions().contains(ldi)) {
                     library.addDilution(ldi);
-                    log.info("Added library dilution: " + ldi.toString());
+                    log.debug("Added library dilution: " + ldi.toString());
                   }
                   manager.saveLibraryDilution(ldi);
                 } catch (NumberFormatException nfe) {
@@ -3928,42 +3852,46 @@ public class FormUtils {
                 }
               }
 
-              log.info("Added library: " + library.toString());
+              log.debug("Added library: " + library.toString());
               manager.saveLibrary(library);
+              if (libraries.incrementAndGet() % IMPORT_CHUNK_SIZE == 0) {
+                log.info("Imported " + libraries + " libraries");
+              }
             } else {
               log.error("Cannot generate library alias from specified parent sample alias. Does it match the required schema?");
             }
           }
 
-          if (getCellValueAsString(poolNumberCell) != null) {
-            String poolNum = getCellValueAsString(poolNumberCell);
-            Pool pool = new PoolImpl();
-            if (!pools.containsKey(poolNum)) {
+          if (poolNum != null) {
+            Pool pool = pools.get(poolNum);
+            if (pool == null) {
+              pool = new PoolImpl();
               pool.setAlias("pool" + poolNum);
               pool.setPlatformType(pt);
               pool.setReadyToRun(true);
               pool.setCreationDate(new Date());
-              if (getCellValueAsString(poolConvertedMolarityCell) != null) {
-                pool.setConcentration(poolConvertedMolarityCell.getNumericCellValue());
+              if (poolConvertedMolarity != null) {
+                try {
+                  pool.setConcentration(Double.valueOf(poolConvertedMolarity));
+                } catch (NumberFormatException nfe) {
+                  throw new InputFormException("Supplied Pool concentration for pool '" + poolNum + "' is invalid", nfe);
+                }
               } else {
                 pool.setConcentration(0.0);
               }
               pools.put(poolNum, pool);
               log.info("Added pool: " + poolNum);
-              if (ldi != null) {
-                pool.addPoolableElement(ldi);
-              }
-              manager.savePool(pool);
-            } else {
-              pool = pools.get(poolNum);
-              if (ldi != null) {
-                pool.addPoolableElement(ldi);
-                manager.savePool(pool);
-              }
             }
+            pool.addPoolableElement(ldi);
           }
         }
+      });
+      log.info("Imported " + libraries + " libraries");
+
+      for (Pool pool : pools.values()) {
+        manager.savePool(pool);
       }
+      log.info("Imported " + pools.size() + " pools");
       return "ok";
     } else {
       throw new UnsupportedOperationException("Cannot process bulk input files other than xls, xlsx, and ods.");
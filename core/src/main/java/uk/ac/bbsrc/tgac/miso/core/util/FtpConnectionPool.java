@@ -0,0 +1,169 @@
+package uk.ac.bbsrc.tgac.miso.core.util;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps logged-in FTP connections open between transfers, so that a series of transfers to the same server does not pay for a new
+ * connection and login each time. Connections are kept per host, port and user, and at most a fixed number to each may be borrowed at
+ * once; further borrowers wait for one to be released.
+ *
+ * An idle connection is checked with a NOOP before it is lent again, and replaced if the server has closed it.
+ */
+public class FtpConnectionPool {
+  protected static final Logger log = LoggerFactory.getLogger(FtpConnectionPool.class);
+
+  private final int maxConnections;
+  private final Map<String, Semaphore> permits = new HashMap<>();
+  private final Map<String, Deque<FTPClient>> idle = new HashMap<>();
+  private final Map<FTPClient, String> borrowed = new IdentityHashMap<>();
+
+  /**
+   * @param maxConnections
+   *          the greatest number of connections that may be borrowed at once to any one host, port and user
+   */
+  public FtpConnectionPool(int maxConnections) {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("An FTP connection pool must allow at least one connection");
+    }
+    this.maxConnections = maxConnections;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Borrows a logged-in connection, waiting if as many as are allowed are already borrowed. Every connection borrowed must be handed back
+   * through {@link #release(FTPClient, boolean)}.
+   *
+   * @throws IOException
+   *           if no connection can be made, or the wait is interrupted
+   */
+  public FTPClient borrow(String host, int port, String username, String password) throws IOException {
+    String key = key(host, port, username);
+    Semaphore semaphore;
+    synchronized (this) {
+      semaphore = permits.get(key);
+      if (semaphore == null) {
+        semaphore = new Semaphore(maxConnections, true);
+        permits.put(key, semaphore);
+      }
+    }
+    try {
+      semaphore.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted waiting for an FTP connection to " + host, e);
+    }
+
+    try {
+      FTPClient ftp;
+      while ((ftp = takeIdle(key)) != null) {
+        if (isAlive(ftp)) {
+          break;
+        }
+        disconnect(ftp);
+      }
+      if (ftp == null) {
+        ftp = TransmissionUtils.ftpConnect(host, port, username, password);
+      }
+      synchronized (this) {
+        borrowed.put(ftp, key);
+      }
+      return ftp;
+    } catch (IOException | RuntimeException e) {
+      semaphore.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Hands back a borrowed connection
+   *
+   * @param reusable
+   *          false if the connection is in an unknown state, such as after a failed transfer, so that it is closed rather than lent again
+   */
+  public void release(FTPClient ftp, boolean reusable) {
+    String key;
+    Semaphore semaphore;
+    synchronized (this) {
+      key = borrowed.remove(ftp);
+      if (key == null) {
+        log.warn("Released an FTP connection that was not borrowed from this pool");
+        return;
+      }
+      semaphore = permits.get(key);
+      if (reusable && ftp.isConnected()) {
+        Deque<FTPClient> clients = idle.get(key);
+        if (clients == null) {
+          clients = new ArrayDeque<>();
+          idle.put(key, clients);
+        }
+        clients.push(ftp);
+        ftp = null;
+      }
+    }
+    if (ftp != null) {
+      disconnect(ftp);
+    }
+    semaphore.release();
+  }
+
+  /**
+   * Logs out of and closes every idle connection. Borrowed connections are closed as they are released, if unusable, or else kept.
+   */
+  public void close() {
+    Deque<FTPClient> clients = new ArrayDeque<>();
+    synchronized (this) {
+      for (Deque<FTPClient> key : idle.values()) {
+        clients.addAll(key);
+      }
+      idle.clear();
+    }
+    for (FTPClient ftp : clients) {
+      disconnect(ftp);
+    }
+  }
+
+  private synchronized FTPClient takeIdle(String key) {
+    Deque<FTPClient> clients = idle.get(key);
+    return clients == null ? null : clients.poll();
+  }
+
+  private static boolean isAlive(FTPClient ftp) {
+    try {
+      return ftp.isConnected() && ftp.sendNoOp();
+    } catch (IOException e) {
+      log.debug("Idle FTP connection has been closed", e);
+      return false;
+    }
+  }
+
+  private static void disconnect(FTPClient ftp) {
+    try {
+      if (ftp.isConnected()) {
+        try {
+          ftp.logout();
+        } finally {
+          ftp.disconnect();
+        }
+      }
+    } catch (IOException e) {
+      log.debug("Error closing FTP connection", e);
+    }
+  }
+
+  private static String key(String host, int port, String username) {
+    return username + "@" + host + ":" + port;
+  }
+}
@@ -68,7 +68,11 @@ public class TransmissionUtils {
         log.info("Connected");
       }
 
-      ftp.login(username, password);
+      if (!ftp.login(username, password)) {
+        String loginReply = ftp.getReplyString();
+        ftp.disconnect();
+        throw new IOException("FTP server refused login: " + loginReply);
+      }
       ftp.setFileType(FTP.BINARY_FILE_TYPE);
       ftp.enterLocalPassiveMode();
     } catch (NoRouteToHostException e) {
@@ -93,7 +97,11 @@ public class TransmissionUtils {
         log.debug("Connected");
       }
 
-      ftp.login(username, password);
+      if (!ftp.login(username, password)) {
+        String loginReply = ftp.getReplyString();
+        ftp.disconnect();
+        throw new IOException("FTP server refused login: " + loginReply);
+      }
       ftp.setFileType(FTP.BINARY_FILE_TYPE);
       ftp.enterLocalPassiveMode();
     } catch (NoRouteToHostException e) {
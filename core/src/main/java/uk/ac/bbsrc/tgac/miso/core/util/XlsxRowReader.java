@@ -0,0 +1,265 @@
+package uk.ac.bbsrc.tgac.miso.core.util;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the first sheet of an xlsx workbook row by row through the SAX event API, without building the workbook in memory. Only the shared
+ * strings table and the current row are held at any time, so large sheets can be read in roughly constant memory.
+ * <p/>
+ * Cell values are given as strings in the same form as {@link org.apache.poi.xssf.usermodel.XSSFCell} would give them: blank cells are
+ * null, numbers are formatted as doubles (e.g. "12.0"), booleans as "true" or "false", and formulae as their cached value.
+ */
+public class XlsxRowReader {
+
+  /**
+   * Receives each row of a sheet in order
+   */
+  public interface RowHandler {
+    /**
+     * @param rowIndex
+     *          the zero-based index of the row in the sheet
+     * @param cells
+     *          the cell values of the row, indexed by zero-based column; use {@link XlsxRowReader#getCell(List, int)} to read them
+     * @return true to carry on reading, or false to stop
+     */
+    boolean handleRow(int rowIndex, List<String> cells) throws Exception;
+  }
+
+  private XlsxRowReader() {
+  }
+
+  /**
+   * Reads the first sheet of a workbook, passing every row to the handler until the sheet ends or the handler returns false. Rows that are
+   * missing from the sheet are passed as empty rows, so row indices are always consecutive.
+   */
+  public static void read(File file, RowHandler handler) throws Exception {
+    OPCPackage pkg = OPCPackage.open(file.getAbsolutePath(), PackageAccess.READ);
+    try {
+      XSSFReader reader = new XSSFReader(pkg);
+      SAXParser parser = newParser();
+
+      List<String> sharedStrings = Collections.emptyList();
+      try (InputStream sst = reader.getSharedStringsData()) {
+        // a workbook with no text cells has no shared strings part
+        if (sst != null) {
+          SharedStringsHandler sstHandler = new SharedStringsHandler();
+          parser.parse(sst, sstHandler);
+          sharedStrings = sstHandler.strings;
+        }
+      }
+
+      Iterator<InputStream> sheets = reader.getSheetsData();
+      if (!sheets.hasNext()) {
+        return;
+      }
+      try (InputStream sheet = sheets.next()) {
+        parser.reset();
+        parser.parse(sheet, new SheetHandler(sharedStrings, handler));
+      } catch (StopReading e) {
+        if (e.cause != null) {
+          throw e.cause;
+        }
+      }
+    } finally {
+      // opened read-only, so nothing is written back to the file
+      pkg.revert();
+    }
+  }
+
+  /**
+   * @return the value of a cell in a row given to a {@link RowHandler}, or null if the cell is blank or beyond the end of the row
+   */
+  public static String getCell(List<String> cells, int column) {
+    return column < cells.size() ? cells.get(column) : null;
+  }
+
+  private static SAXParser newParser() throws ParserConfigurationException, SAXException {
+    SAXParserFactory factory = SAXParserFactory.newInstance();
+    factory.setNamespaceAware(false);
+    factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+    factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+    return factory.newSAXParser();
+  }
+
+  /**
+   * @return the zero-based column of a cell reference such as "AB12"
+   */
+  static int columnOf(String cellRef) {
+    int column = 0;
+    for (int i = 0; i < cellRef.length(); i++) {
+      char c = cellRef.charAt(i);
+      if (c < 'A' || c > 'Z') break;
+      column = column * 26 + (c - 'A' + 1);
+    }
+    return column - 1;
+  }
+
+  /**
+   * Thrown to abandon parsing when the handler has seen enough, or to carry an exception thrown by the handler out of the parser
+   */
+  private static final class StopReading extends SAXException {
+    private static final long serialVersionUID = 1L;
+    private final Exception cause;
+
+    private StopReading(Exception cause) {
+      this.cause = cause;
+    }
+  }
+
+  private static final class SharedStringsHandler extends DefaultHandler {
+    private final List<String> strings = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+    private boolean inText;
+    private boolean inPhonetic;
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      if ("si".equals(qName)) {
+        text.setLength(0);
+      } else if ("rPh".equals(qName)) {
+        inPhonetic = true;
+      } else if ("t".equals(qName) && !inPhonetic) {
+        inText = true;
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+      if ("si".equals(qName)) {
+        strings.add(text.toString());
+      } else if ("rPh".equals(qName)) {
+        inPhonetic = false;
+      } else if ("t".equals(qName)) {
+        inText = false;
+      }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      if (inText) {
+        text.append(ch, start, length);
+      }
+    }
+  }
+
+  private static final class SheetHandler extends DefaultHandler {
+    private final List<String> sharedStrings;
+    private final RowHandler handler;
+    private final StringBuilder value = new StringBuilder();
+    private List<String> cells = new ArrayList<>();
+    private int nextRow = 0;
+    private int rowIndex;
+    private int column;
+    private String cellType;
+    private boolean formula;
+    private boolean inValue;
+    private boolean inInlineText;
+
+    private SheetHandler(List<String> sharedStrings, RowHandler handler) {
+      this.sharedStrings = sharedStrings;
+      this.handler = handler;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+      if ("row".equals(qName)) {
+        String r = attributes.getValue("r");
+        rowIndex = r == null ? nextRow : Integer.parseInt(r) - 1;
+        while (nextRow < rowIndex) {
+          emit(nextRow, new ArrayList<String>());
+        }
+        cells = new ArrayList<>();
+      } else if ("c".equals(qName)) {
+        String r = attributes.getValue("r");
+        column = r == null ? cells.size() : columnOf(r);
+        cellType = attributes.getValue("t");
+        formula = false;
+        value.setLength(0);
+      } else if ("f".equals(qName)) {
+        formula = true;
+      } else if ("v".equals(qName)) {
+        inValue = true;
+      } else if ("t".equals(qName) && "inlineStr".equals(cellType)) {
+        inInlineText = true;
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      if ("v".equals(qName)) {
+        inValue = false;
+      } else if ("t".equals(qName)) {
+        inInlineText = false;
+      } else if ("c".equals(qName)) {
+        while (cells.size() <= column) {
+          cells.add(null);
+        }
+        cells.set(column, cellValue());
+      } else if ("row".equals(qName)) {
+        emit(rowIndex, cells);
+      }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      if (inValue || inInlineText) {
+        value.append(ch, start, length);
+      }
+    }
+
+    private String cellValue() {
+      if (value.length() == 0 && !"inlineStr".equals(cellType)) {
+        return null;
+      }
+      String raw = value.toString();
+      if (formula) {
+        return raw;
+      }
+      if (cellType == null || "n".equals(cellType)) {
+        try {
+          return String.valueOf(Double.parseDouble(raw));
+        } catch (NumberFormatException e) {
+          return raw;
+        }
+      }
+      switch (cellType) {
+      case "s":
+        return sharedStrings.get(Integer.parseInt(raw));
+      case "b":
+        return String.valueOf("1".equals(raw));
+      default:
+        // inline strings, formula strings and errors are given as they are
+        return raw;
+      }
+    }
+
+    private void emit(int index, List<String> row) throws SAXException {
+      nextRow = index + 1;
+      boolean carryOn;
+      try {
+        carryOn = handler.handleRow(index, row);
+      } catch (Exception e) {
+        throw new StopReading(e);
+      }
+      if (!carryOn) {
+        throw new StopReading(null);
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package uk.ac.bbsrc.tgac.miso.core.util.jackson;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Writes a JSON array to a stream one element at a time, so that a large list can be sent without first building it, or its JSON, in
+ * memory. The array is opened on construction and closed by {@link #close()}, which does not close the underlying stream.
+ */
+public class JsonArrayWriter implements Closeable {
+
+  private final ObjectMapper mapper;
+  private final OutputStream out;
+  private final JsonGenerator generator;
+
+  /**
+   * @param mapper
+   *          the configured mapper to serialise each element with
+   * @param out
+   *          the stream to write UTF-8 JSON to
+   */
+  public JsonArrayWriter(ObjectMapper mapper, OutputStream out) throws IOException {
+    this.mapper = mapper;
+    this.out = out;
+    // ObjectMapper flushes after every value it writes, which would send each element to a servlet response as its own chunk
+    this.generator = mapper.getJsonFactory().createJsonGenerator(new FilterOutputStream(out) {
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        super.out.write(b, off, len);
+      }
+
+      @Override
+      public void flush() {
+      }
+    }, JsonEncoding.UTF8);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.writeStartArray();
+  }
+
+  /**
+   * Writes one element of the array
+   */
+  public void write(Object element) throws IOException {
+    mapper.writeValue(generator, element);
+  }
+
+  /**
+   * Ends the array and flushes it to the underlying stream
+   */
+  @Override
+  public void close() throws IOException {
+    generator.writeEndArray();
+    generator.close();
+    out.flush();
+  }
+}
@@ -0,0 +1,69 @@
+package uk.ac.bbsrc.tgac.miso.core.util.jackson;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.eaglegenomics.simlims.core.User;
+
+import uk.ac.bbsrc.tgac.miso.core.data.Library;
+import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.Sample;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
+
+/**
+ * Preconfigured Jackson mappers for serialising MISO entities, one for each combination of recursion-avoiding mixins in use. A mapper is
+ * expensive to build but safe to share between threads once configured, so these are built once and must not be reconfigured by callers.
+ */
+public final class ObjectMappers {
+
+  /**
+   * For entities with no mixins, such as DTOs
+   */
+  public static final ObjectMapper PLAIN = new ObjectMapper();
+
+  /**
+   * For libraries: hides each library's sample's project's samples and sample's libraries
+   */
+  public static final ObjectMapper LIBRARY = new ObjectMapper();
+
+  /**
+   * For samples: hides each sample's project's samples and libraries' samples
+   */
+  public static final ObjectMapper SAMPLE = new ObjectMapper();
+
+  /**
+   * For projects: hides each project's samples' projects and libraries' samples
+   */
+  public static final ObjectMapper PROJECT = new ObjectMapper();
+
+  /**
+   * For runs: hides each run's containers' runs
+   */
+  public static final ObjectMapper RUN = new ObjectMapper();
+
+  /**
+   * For pools and anything else which only needs sensitive user information hidden
+   */
+  public static final ObjectMapper USER_INFO = new ObjectMapper();
+
+  static {
+    LIBRARY.getSerializationConfig().addMixInAnnotations(Project.class, ProjectSampleRecursionAvoidanceMixin.class);
+    LIBRARY.getSerializationConfig().addMixInAnnotations(Sample.class, SampleRecursionAvoidanceMixin.class);
+    LIBRARY.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
+
+    SAMPLE.getSerializationConfig().addMixInAnnotations(Project.class, ProjectSampleRecursionAvoidanceMixin.class);
+    SAMPLE.getSerializationConfig().addMixInAnnotations(Library.class, LibraryRecursionAvoidanceMixin.class);
+    SAMPLE.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
+
+    PROJECT.getSerializationConfig().addMixInAnnotations(Sample.class, SampleProjectAvoidanceMixin.class);
+    PROJECT.getSerializationConfig().addMixInAnnotations(Library.class, LibraryRecursionAvoidanceMixin.class);
+    PROJECT.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
+
+    RUN.getSerializationConfig().addMixInAnnotations(SequencerPartitionContainer.class, ContainerRecursionAvoidanceMixin.class);
+    RUN.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
+
+    USER_INFO.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
+  }
+
+  private ObjectMappers() {
+  }
+}
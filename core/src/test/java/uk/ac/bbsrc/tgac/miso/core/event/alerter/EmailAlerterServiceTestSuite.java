@@ -0,0 +1,218 @@
+package uk.ac.bbsrc.tgac.miso.core.event.alerter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.MessagingException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.eaglegenomics.simlims.core.User;
+
+import uk.ac.bbsrc.tgac.miso.core.data.impl.UserImpl;
+import uk.ac.bbsrc.tgac.miso.core.event.Alert;
+import uk.ac.bbsrc.tgac.miso.core.event.impl.DefaultAlert;
+import uk.ac.bbsrc.tgac.miso.core.exception.AlertingException;
+
+public class EmailAlerterServiceTestSuite {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Properties mailProps;
+  private RecordingEmailAlerterService sut;
+
+  /**
+   * Records the emails it is asked to send instead of sending them
+   */
+  private static class RecordingEmailAlerterService extends EmailAlerterService {
+    private final List<String> sent = new ArrayList<>();
+    private volatile boolean failing = false;
+    private volatile CountDownLatch sending;
+    private volatile CountDownLatch release;
+
+    @Override
+    void send(String to, String from, String subject, String text) throws MessagingException {
+      if (sending != null) {
+        sending.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      synchronized (sent) {
+        sent.add(to + ": " + subject);
+      }
+      if (failing) {
+        throw new MessagingException("SMTP host unavailable");
+      }
+    }
+
+    private List<String> getSent() {
+      synchronized (sent) {
+        return new ArrayList<>(sent);
+      }
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    mailProps = new Properties();
+    mailProps.setProperty("mail.smtp.host", "localhost");
+    // long enough that only the test sends the queue
+    mailProps.setProperty("mail.alert.digestPeriod", "3600");
+    mailProps.setProperty("mail.alert.retryDelay", "0");
+    mailProps.setProperty("mail.alert.maxAttempts", "2");
+    sut = service();
+  }
+
+  @After
+  public void tearDown() {
+    sut.stop();
+  }
+
+  private RecordingEmailAlerterService service() {
+    RecordingEmailAlerterService service = new RecordingEmailAlerterService();
+    service.setMailProps(mailProps);
+    return service;
+  }
+
+  private static Alert alert(String email, String title) {
+    User user = new UserImpl();
+    user.setEmail(email);
+    user.setFullName("User " + email);
+    DefaultAlert alert = new DefaultAlert(user);
+    alert.setAlertTitle(title);
+    alert.setAlertText("Something happened to " + title);
+    return alert;
+  }
+
+  @Test
+  public void testAlertsAreSentAsDigests() throws Exception {
+    sut.raiseAlert(alert("alice@example.com", "Run 1 completed"));
+    sut.raiseAlert(alert("bob@example.com", "Run 1 completed"));
+    sut.raiseAlert(alert("alice@example.com", "Pool 2 ready"));
+    assertEquals(3, sut.getQueuedCount());
+
+    sut.flush();
+    List<String> sent = sut.getSent();
+    assertEquals(2, sent.size());
+    assertTrue(sent.toString(), sent.contains("alice@example.com: MISO ALERT: 2 alerts"));
+    assertTrue(sent.toString(), sent.contains("bob@example.com: MISO ALERT: Run 1 completed"));
+    assertEquals(0, sut.getQueuedCount());
+  }
+
+  @Test
+  public void testFailedSendIsRetriedThenDropped() throws Exception {
+    sut.failing = true;
+    sut.raiseAlert(alert("alice@example.com", "Run 1 completed"));
+
+    sut.flush();
+    assertEquals(1, sut.getQueuedCount());
+    sut.flush();
+    assertEquals(0, sut.getQueuedCount());
+    assertEquals(2, sut.getSent().size());
+
+    sut.flush();
+    assertEquals(2, sut.getSent().size());
+  }
+
+  @Test
+  public void testFailedSendWaitsBeforeRetrying() throws Exception {
+    mailProps.setProperty("mail.alert.retryDelay", "3600");
+    sut.failing = true;
+    sut.raiseAlert(alert("alice@example.com", "Run 1 completed"));
+
+    sut.flush();
+    sut.flush();
+    assertEquals(1, sut.getSent().size());
+    assertEquals(1, sut.getQueuedCount());
+  }
+
+  @Test
+  public void testStopSpoolsUnsentAlerts() throws Exception {
+    File spool = new File(temp.getRoot(), "alerts.properties");
+    mailProps.setProperty("mail.alert.spoolFile", spool.getAbsolutePath());
+    sut.raiseAlert(alert("alice@example.com", "Run 1 completed"));
+    sut.stop();
+    assertTrue(spool.exists());
+
+    RecordingEmailAlerterService restarted = service();
+    restarted.start();
+    try {
+      assertEquals(1, restarted.getQueuedCount());
+      restarted.flush();
+      assertEquals(1, restarted.getSent().size());
+      assertEquals(0, restarted.getQueuedCount());
+    } finally {
+      restarted.stop();
+    }
+  }
+
+  @Test
+  public void testAlertsAfterStopAreRejected() throws Exception {
+    sut.raiseAlert(alert("alice@example.com", "Run 1 completed"));
+    sut.stop();
+    assertEquals(1, sut.getQueuedCount());
+
+    // stopping is final, so neither a new alert nor start() brings the sender back
+    sut.start();
+    try {
+      sut.raiseAlert(alert("alice@example.com", "Pool 2 ready"));
+      fail("An alert raised after stop() should be rejected");
+    } catch (AlertingException e) {
+      // expected
+    }
+    assertEquals(1, sut.getQueuedCount());
+  }
+
+  @Test(expected = AlertingException.class)
+  public void testNoSmtpHost() throws Exception {
+    mailProps.remove("mail.smtp.host");
+    sut.raiseAlert(alert("alice@example.com", "Run 1 completed"));
+  }
+
+  @Test
+  public void testQueuedCountDuringSlowSend() throws Exception {
+    sut.sending = new CountDownLatch(1);
+    sut.release = new CountDownLatch(1);
+    sut.raiseAlert(alert("alice@example.com", "Run 1 completed"));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> flush = executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          sut.flush();
+        }
+      });
+      assertTrue(sut.sending.await(10, TimeUnit.SECONDS));
+      // counting must not wait for the SMTP host
+      sut.raiseAlert(alert("bob@example.com", "Pool 2 ready"));
+      assertEquals(2, sut.getQueuedCount());
+
+      sut.release.countDown();
+      flush.get(10, TimeUnit.SECONDS);
+      assertEquals(1, sut.getQueuedCount());
+    } finally {
+      sut.release.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package uk.ac.bbsrc.tgac.miso.core.event.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eaglegenomics.simlims.core.Group;
+import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
+import com.eaglegenomics.simlims.core.manager.SecurityManager;
+
+import uk.ac.bbsrc.tgac.miso.core.data.Pool;
+import uk.ac.bbsrc.tgac.miso.core.data.Poolable;
+import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.PoolImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.RunImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.UserImpl;
+
+public class GroupWatcherTestSuite {
+
+  private static final long OWNER_ID = 1L;
+  private static final long USER_ID = 2L;
+  private static final long OVERVIEW_ID = 7L;
+
+  private SecurityManager securityManager;
+  private User owner;
+  private User user;
+  private final Group runWatchers = new Group();
+  private final Group poolWatchers = new Group();
+  private final Group projectWatchers = new Group();
+
+  @Before
+  public void setUp() throws Exception {
+    owner = user(OWNER_ID);
+    user = user(USER_ID);
+    securityManager = mock(SecurityManager.class);
+    when(securityManager.getUserById(OWNER_ID)).thenReturn(owner);
+    when(securityManager.getUserById(USER_ID)).thenReturn(user);
+    when(securityManager.getGroupByName("RunWatchers")).thenReturn(runWatchers);
+    when(securityManager.getGroupByName("PoolWatchers")).thenReturn(poolWatchers);
+    when(securityManager.getGroupByName("ProjectWatchers")).thenReturn(projectWatchers);
+  }
+
+  private static User user(long id) {
+    User u = new UserImpl();
+    u.setUserId(id);
+    u.setLoginName("user" + id);
+    u.setGroups(new HashSet<Group>());
+    return u;
+  }
+
+  private static void setGroups(User u, Group... groups) {
+    u.setGroups(new HashSet<Group>(Arrays.asList(groups)));
+  }
+
+  private Run run(long id, User runOwner) {
+    Run run = new RunImpl();
+    run.setId(id);
+    run.setAlias("RUN" + id);
+    run.setSecurityProfile(runOwner == null ? new SecurityProfile() : new SecurityProfile(runOwner));
+    if (runOwner != null) {
+      run.addWatcher(runOwner);
+    }
+    return run;
+  }
+
+  @Test
+  public void testRunGroupJoinAndLeave() throws Exception {
+    RunAlertManager manager = new RunAlertManager();
+    manager.setSecurityManager(securityManager);
+    manager.push(run(10L, owner));
+
+    setGroups(user, runWatchers);
+    manager.updateGroupWatcher(USER_ID);
+    assertTrue(manager.runs.get(10L).watcherIds.contains(USER_ID));
+
+    setGroups(user);
+    manager.updateGroupWatcher(USER_ID);
+    assertFalse(manager.runs.get(10L).watcherIds.contains(USER_ID));
+    assertTrue(manager.runs.get(10L).watcherIds.contains(OWNER_ID));
+  }
+
+  @Test
+  public void testRunOwnerIsRetained() throws Exception {
+    RunAlertManager manager = new RunAlertManager();
+    manager.setSecurityManager(securityManager);
+    manager.push(run(10L, owner));
+
+    // the owner is not in the group, but keeps watching their own run
+    manager.updateGroupWatcher(OWNER_ID);
+    assertTrue(manager.runs.get(10L).watcherIds.contains(OWNER_ID));
+  }
+
+  @Test
+  public void testRunWithoutOwnerKeepsWatchers() throws Exception {
+    RunAlertManager manager = new RunAlertManager();
+    manager.setSecurityManager(securityManager);
+    Run run = run(10L, null);
+    run.addWatcher(user);
+    manager.push(run);
+
+    manager.updateGroupWatcher(USER_ID);
+    assertTrue(manager.runs.get(10L).watcherIds.contains(USER_ID));
+  }
+
+  @Test
+  public void testPoolGroupJoinAndLeave() throws Exception {
+    PoolAlertManager manager = new PoolAlertManager();
+    manager.setSecurityManager(securityManager);
+    Pool<Poolable<?, ?>> pool = new PoolImpl<>();
+    pool.setId(20L);
+    pool.setSecurityProfile(new SecurityProfile(owner));
+    pool.addWatcher(owner);
+    manager.push(pool);
+
+    setGroups(user, poolWatchers);
+    Collection<User> members = Collections.singleton(user);
+    when(securityManager.listUsersByGroupName("PoolWatchers")).thenReturn(members);
+    manager.updateGroupWatcher(USER_ID);
+    assertTrue(manager.pools.get(20L).watcherIds.contains(USER_ID));
+    assertEquals(Collections.singleton(user), manager.poolWatchers);
+
+    setGroups(user);
+    when(securityManager.listUsersByGroupName("PoolWatchers")).thenReturn(Collections.<User> emptySet());
+    manager.updateGroupWatcher(USER_ID);
+    assertFalse(manager.pools.get(20L).watcherIds.contains(USER_ID));
+    assertTrue(manager.poolWatchers.isEmpty());
+
+    manager.updateGroupWatcher(OWNER_ID);
+    assertTrue(manager.pools.get(20L).watcherIds.contains(OWNER_ID));
+  }
+
+  @Test
+  public void testProjectGroupJoinAndLeave() throws Exception {
+    ProjectAlertManager manager = new ProjectAlertManager();
+    manager.setSecurityManager(securityManager);
+    Project project = new ProjectImpl();
+    project.setId(30L);
+    project.setSecurityProfile(new SecurityProfile(owner));
+    project.addWatcher(owner);
+    ProjectOverview overview = new ProjectOverview();
+    overview.setOverviewId(OVERVIEW_ID);
+    overview.addWatcher(owner);
+    project.getOverviews().add(overview);
+    manager.push(project);
+
+    setGroups(user, projectWatchers);
+    manager.updateGroupWatcher(USER_ID);
+    assertTrue(manager.projects.get(30L).watcherIds.contains(USER_ID));
+    assertTrue(manager.projects.get(30L).overviews.get(OVERVIEW_ID).watcherIds.contains(USER_ID));
+
+    setGroups(user);
+    manager.updateGroupWatcher(USER_ID);
+    assertFalse(manager.projects.get(30L).watcherIds.contains(USER_ID));
+    assertFalse(manager.projects.get(30L).overviews.get(OVERVIEW_ID).watcherIds.contains(USER_ID));
+
+    manager.updateGroupWatcher(OWNER_ID);
+    assertTrue(manager.projects.get(30L).watcherIds.contains(OWNER_ID));
+    assertTrue(manager.projects.get(30L).overviews.get(OVERVIEW_ID).watcherIds.contains(OWNER_ID));
+  }
+}
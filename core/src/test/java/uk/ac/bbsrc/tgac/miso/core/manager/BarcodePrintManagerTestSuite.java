@@ -0,0 +1,151 @@
+package uk.ac.bbsrc.tgac.miso.core.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import uk.ac.bbsrc.tgac.miso.core.data.PrintJob;
+import uk.ac.bbsrc.tgac.miso.core.service.printing.MisoPrintService;
+import uk.ac.bbsrc.tgac.miso.core.service.printing.PrintContextResolverService;
+import uk.ac.bbsrc.tgac.miso.core.service.printing.context.BatchPrintContext;
+import uk.ac.bbsrc.tgac.miso.core.service.printing.context.PrintContext;
+import uk.ac.bbsrc.tgac.miso.core.store.PrintJobStore;
+import uk.ac.bbsrc.tgac.miso.core.store.PrintServiceStore;
+
+public class BarcodePrintManagerTestSuite {
+
+  private BarcodePrintManager manager;
+  private PrintServiceStore printServiceStore;
+  private MisoPrintService mps;
+  private final List<String> statuses = Collections.synchronizedList(new ArrayList<String>());
+  private final CountDownLatch finished = new CountDownLatch(1);
+
+  @Before
+  public void setUp() throws Exception {
+    printServiceStore = mock(PrintServiceStore.class);
+    PrintJobStore printJobStore = mock(PrintJobStore.class);
+    when(printJobStore.save(any(PrintJob.class))).thenAnswer(new Answer<Long>() {
+      @Override
+      public Long answer(InvocationOnMock invocation) throws Throwable {
+        String status = ((PrintJob) invocation.getArguments()[0]).getStatus();
+        statuses.add(status);
+        if (BarcodePrintManager.STATUS_OK.equals(status) || BarcodePrintManager.STATUS_FAIL.equals(status)) {
+          finished.countDown();
+        }
+        return 5L;
+      }
+    });
+    mps = mock(MisoPrintService.class);
+    when(mps.getName()).thenReturn("printer");
+    when(mps.isEnabled()).thenReturn(true);
+    when(printServiceStore.getByName("printer")).thenReturn(mps);
+
+    manager = new BarcodePrintManager(mock(PrintContextResolverService.class));
+    manager.setPrintServiceStore(printServiceStore);
+    manager.setPrintJobStore(printJobStore);
+  }
+
+  @After
+  public void tearDown() {
+    manager.stop();
+  }
+
+  private static Queue<File> labels() {
+    return new LinkedList<>(Arrays.asList(new File("a.printjob"), new File("b.printjob")));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testBatchContextPrintsJobInOneTransfer() throws Exception {
+    BatchPrintContext<File> context = mock(BatchPrintContext.class);
+    when(context.printAll(anyListOf(File.class))).thenReturn(true);
+    when(mps.getPrintContext()).thenReturn(context);
+
+    PrintJob job = manager.print(labels(), "printer", null);
+    assertEquals(Long.valueOf(5L), job.getId());
+
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(BarcodePrintManager.STATUS_QUEUED, BarcodePrintManager.STATUS_PRINTING, BarcodePrintManager.STATUS_OK),
+        statuses);
+    verify(context).printAll(Arrays.asList(new File("a.printjob"), new File("b.printjob")));
+    verify(mps, never()).print(any(File.class));
+  }
+
+  @Test
+  public void testOtherContextsPrintEachLabel() throws Exception {
+    when(mps.getPrintContext()).thenReturn(mock(PrintContext.class));
+    when(mps.print(new File("a.printjob"))).thenReturn(true);
+    when(mps.print(new File("b.printjob"))).thenReturn(false);
+
+    manager.print(labels(), "printer", null);
+
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+    assertEquals(BarcodePrintManager.STATUS_FAIL, statuses.get(statuses.size() - 1));
+    verify(mps).print(new File("a.printjob"));
+    verify(mps).print(new File("b.printjob"));
+  }
+
+  @Test
+  public void testDeferredContentIsPreparedByWorker() throws Exception {
+    when(mps.getPrintContext()).thenReturn(mock(PrintContext.class));
+    when(mps.print(any(File.class))).thenReturn(true);
+    final AtomicReference<String> preparedBy = new AtomicReference<>();
+
+    PrintJob job = manager.print(new DeferredPrintContent<Queue<File>>() {
+      @Override
+      public Queue<File> prepare() {
+        preparedBy.set(Thread.currentThread().getName());
+        return labels();
+      }
+    }, "printer", null);
+    assertEquals(BarcodePrintManager.STATUS_QUEUED, statuses.get(0));
+
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(BarcodePrintManager.STATUS_QUEUED, BarcodePrintManager.STATUS_PRINTING, BarcodePrintManager.STATUS_OK),
+        statuses);
+    assertEquals("miso-print-printer", preparedBy.get());
+    assertEquals(2, job.getQueuedElements().size());
+    verify(mps).print(new File("a.printjob"));
+    verify(mps).print(new File("b.printjob"));
+  }
+
+  @Test
+  public void testFailedPreparationFailsJob() throws Exception {
+    final AtomicReference<String> preparedBy = new AtomicReference<>();
+    manager.print(new DeferredPrintContent<Queue<File>>() {
+      @Override
+      public Queue<File> prepare() throws IOException {
+        preparedBy.set(Thread.currentThread().getName());
+        throw new IOException("Cannot save barcodes");
+      }
+    }, "printer", null);
+
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(BarcodePrintManager.STATUS_QUEUED, BarcodePrintManager.STATUS_FAIL), statuses);
+    assertEquals("miso-print-printer", preparedBy.get());
+    verify(mps, never()).print(any(File.class));
+  }
+}
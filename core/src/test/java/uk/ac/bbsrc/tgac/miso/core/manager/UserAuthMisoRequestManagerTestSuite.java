@@ -2,6 +2,7 @@ package uk.ac.bbsrc.tgac.miso.core.manager;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -9,6 +10,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -29,6 +31,7 @@ import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.security.core.context.SecurityContextImpl;
 
 import com.eaglegenomics.simlims.core.Note;
+import com.eaglegenomics.simlims.core.SecurityProfile;
 import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.manager.SecurityManager;
 
@@ -41,6 +44,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.Plate;
 import uk.ac.bbsrc.tgac.miso.core.data.Pool;
 import uk.ac.bbsrc.tgac.miso.core.data.PoolQC;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.RunQC;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
@@ -198,6 +202,32 @@ public class UserAuthMisoRequestManagerTestSuite {
     verify(backingManager, never()).saveProject(project);
   }
 
+  /**
+   * Test method for {@link uk.ac.bbsrc.tgac.miso.core.manager.UserAuthMisoRequestManager#getProjectGraph(long)} . Tests that the
+   * SecurityProfiles of the graph are loaded with one bulk lookup and the unreadable members are removed.
+   */
+  @Test
+  public void testGetProjectGraph() throws IOException {
+    ProjectGraph graph = new ProjectGraph();
+    graph.setProjectId(1L);
+    graph.setSecurityProfileId(10L);
+    graph.getStudies().add(new ProjectGraph.Node(2L, 1L, "STU2", "readable", 10L, false));
+    graph.getStudies().add(new ProjectGraph.Node(3L, 1L, "STU3", "unreadable", 11L, false));
+    when(backingManager.getProjectGraph(1L)).thenReturn(graph);
+    SecurityProfile readable = mock(SecurityProfile.class);
+    when(readable.getProfileId()).thenReturn(10L);
+    when(readable.userCanRead(user)).thenReturn(true);
+    SecurityProfile unreadable = mock(SecurityProfile.class);
+    when(unreadable.getProfileId()).thenReturn(11L);
+    when(backingManager.listSecurityProfilesByIdList(Arrays.asList(10L, 11L))).thenReturn(Arrays.asList(readable, unreadable));
+
+    ProjectGraph restricted = userAuthMisoRequestManager.getProjectGraph(1L);
+    assertEquals(1, restricted.getStudies().size());
+    assertEquals(2L, restricted.getStudies().get(0).getId());
+    verify(backingManager).listSecurityProfilesByIdList(Arrays.asList(10L, 11L));
+    verify(securityManager, never()).getSecurityProfileById(anyLong());
+  }
+
   /**
    * Test method for
    * {@link uk.ac.bbsrc.tgac.miso.core.manager.UserAuthMisoRequestManager#saveProjectOverview(uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview)}
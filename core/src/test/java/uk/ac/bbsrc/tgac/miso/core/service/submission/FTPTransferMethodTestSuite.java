@@ -0,0 +1,167 @@
+package uk.ac.bbsrc.tgac.miso.core.service.submission;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.ConcurrentLoginPermission;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FTPTransferMethodTestSuite {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private FtpServer server;
+  private File remoteDirectory;
+  private EndPoint endpoint;
+  private FTPTransferMethod transfer;
+
+  @Before
+  public void setUp() throws Exception {
+    File home = temp.newFolder("home");
+    remoteDirectory = new File(home, "anon");
+    assertTrue(remoteDirectory.mkdir());
+
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    FtpServerFactory serverFactory = new FtpServerFactory();
+    ListenerFactory listenerFactory = new ListenerFactory();
+    listenerFactory.setPort(port);
+    serverFactory.addListener("default", listenerFactory.createListener());
+
+    UserManager userManager = new PropertiesUserManagerFactory().createUserManager();
+    BaseUser user = new BaseUser();
+    user.setName("miso");
+    user.setPassword("secret");
+    user.setHomeDirectory(home.getAbsolutePath());
+    user.setAuthorities(Arrays.<Authority> asList(new WritePermission(), new ConcurrentLoginPermission(10, 10)));
+    userManager.save(user);
+    serverFactory.setUserManager(userManager);
+
+    server = serverFactory.createServer();
+    server.start();
+
+    endpoint = new ERAEndpoint();
+    endpoint.setDestination(URI.create("ftp://localhost:" + port));
+    transfer = new FTPTransferMethod("miso", "secret");
+    transfer.setMaxConnections(3);
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  private File dataFile(String name, int size) throws IOException {
+    byte[] data = new byte[size];
+    new Random(name.hashCode()).nextBytes(data);
+    File file = temp.newFile(name);
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write(data);
+    }
+    return file;
+  }
+
+  private static byte[] read(File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      byte[] data = new byte[(int) raf.length()];
+      raf.readFully(data);
+      return data;
+    }
+  }
+
+  private static String md5(File file) throws Exception {
+    return new String(Hex.encodeHex(MessageDigest.getInstance("MD5").digest(read(file))));
+  }
+
+  @Test
+  public void testUploadsFilesConcurrently() throws Exception {
+    Set<File> files = new LinkedHashSet<>();
+    for (int i = 0; i < 5; i++) {
+      files.add(dataFile("run_" + i + ".fastq.gz", 300 * 1024 + i));
+    }
+
+    FTPUploadReport report = transfer.uploadSequenceData(files, endpoint);
+    assertTrue(report.awaitCompletion(60, TimeUnit.SECONDS));
+
+    assertEquals("complete", report.getStatus());
+    assertEquals(5, report.getUploadJobs().size());
+    for (UploadJob upload : report.getUploadJobs()) {
+      FTPUploadJob job = (FTPUploadJob) upload;
+      assertTrue(job.isComplete());
+      assertFalse(job.isFailed());
+      assertEquals(100, job.getPercentageTransferred());
+      assertEquals(0L, job.getStartOffset());
+      assertEquals(md5(job.getFile()), job.getChecksum());
+      assertArrayEquals(read(job.getFile()), read(new File(remoteDirectory, job.getFile().getName())));
+    }
+  }
+
+  @Test
+  public void testResumesPartialUpload() throws Exception {
+    File file = dataFile("partial.fastq.gz", 500 * 1024);
+    byte[] data = read(file);
+    int sent = 200 * 1024;
+    try (OutputStream out = new FileOutputStream(new File(remoteDirectory, file.getName()))) {
+      out.write(data, 0, sent);
+    }
+
+    FTPUploadReport report = transfer.uploadSequenceData(new LinkedHashSet<>(Arrays.asList(file)), endpoint);
+    assertTrue(report.awaitCompletion(60, TimeUnit.SECONDS));
+
+    FTPUploadJob job = (FTPUploadJob) report.getUploadJobs().get(0);
+    assertEquals("complete", report.getStatus());
+    assertTrue(job.isComplete());
+    assertEquals(sent, job.getStartOffset());
+    assertEquals(md5(file), job.getChecksum());
+    assertArrayEquals(data, read(new File(remoteDirectory, file.getName())));
+  }
+
+  @Test
+  public void testReportsFailedLogin() throws Exception {
+    transfer.setPassword("wrong");
+    transfer.setMaxAttempts(1);
+
+    FTPUploadReport report = transfer.uploadSequenceData(new LinkedHashSet<>(Arrays.asList(dataFile("denied.fastq.gz", 1024))), endpoint);
+    assertTrue(report.awaitCompletion(60, TimeUnit.SECONDS));
+
+    FTPUploadJob job = (FTPUploadJob) report.getUploadJobs().get(0);
+    assertEquals("failed", report.getStatus());
+    assertTrue(job.isFailed());
+    assertFalse(job.isComplete());
+    // the server's reply is kept for the error, rather than read after disconnecting
+    assertTrue(job.getError(), job.getError().contains("530"));
+    assertFalse(new File(remoteDirectory, job.getFile().getName()).exists());
+  }
+}
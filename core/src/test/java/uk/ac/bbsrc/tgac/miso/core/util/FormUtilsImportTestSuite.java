@@ -0,0 +1,251 @@
+package uk.ac.bbsrc.tgac.miso.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.eaglegenomics.simlims.core.Note;
+import com.eaglegenomics.simlims.core.User;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import uk.ac.bbsrc.tgac.miso.core.data.Sample;
+import uk.ac.bbsrc.tgac.miso.core.data.SampleQC;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.SampleImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.UserImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.type.QcType;
+import uk.ac.bbsrc.tgac.miso.core.exception.InputFormException;
+import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+
+/**
+ * Writes sample and library import sheets as xlsx workbooks and imports them again through the streaming reader
+ */
+public class FormUtilsImportTestSuite {
+
+  private static final int SAMPLE_FIRST_ROW = 5;
+  private static final int LIBRARY_FIRST_ROW = 6;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private RequestManager manager;
+  private User user;
+  private Sample genomic;
+  private Sample transcriptomic;
+
+  @Before
+  public void setUp() throws Exception {
+    genomic = sample(1L, "PRO1_S1_genomic", "GENOMIC");
+    transcriptomic = sample(2L, "PRO1_S2_transcriptomic", "TRANSCRIPTOMIC");
+    manager = mock(RequestManager.class);
+    when(manager.listSamplesByAliasList(anyListOf(String.class))).thenReturn(Arrays.asList(genomic, transcriptomic));
+    QcType picogreen = new QcType();
+    picogreen.setName("Picogreen");
+    when(manager.getSampleQcTypeByName("Picogreen")).thenReturn(picogreen);
+
+    user = new UserImpl();
+    user.setLoginName("importer");
+  }
+
+  private static Sample sample(long id, String alias, String type) {
+    Sample sample = new SampleImpl();
+    sample.setId(id);
+    sample.setAlias(alias);
+    sample.setSampleType(type);
+    return sample;
+  }
+
+  /**
+   * Writes a sheet with the given rows, as cell values by column, below a block of header rows; numbers are written as numeric cells
+   */
+  private File writeSheet(int firstRow, List<String> globalHeaders, Object[]... rows) throws IOException {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    Sheet sheet = workbook.createSheet("Import");
+    sheet.createRow(0).createCell(0).setCellValue("Import sheet");
+    if (globalHeaders != null) {
+      Row headers = sheet.createRow(1);
+      for (int i = 0; i < globalHeaders.size(); i++) {
+        headers.createCell(i).setCellValue(globalHeaders.get(i));
+      }
+    }
+    sheet.createRow(firstRow - 1).createCell(3).setCellValue("Sample Alias");
+    for (int ri = 0; ri < rows.length; ri++) {
+      Row row = sheet.createRow(firstRow + ri);
+      for (int ci = 0; ci < rows[ri].length; ci++) {
+        Object value = rows[ri][ci];
+        if (value instanceof Number) {
+          row.createCell(ci).setCellValue(((Number) value).doubleValue());
+        } else if (value != null) {
+          row.createCell(ci).setCellValue((String) value);
+        }
+      }
+    }
+    File file = temp.newFile("import.xlsx");
+    try (OutputStream out = new FileOutputStream(file)) {
+      workbook.write(out);
+    }
+    return file;
+  }
+
+  private File writeSampleSheet(Object[]... rows) throws IOException {
+    return writeSheet(SAMPLE_FIRST_ROW, null, rows);
+  }
+
+  private static Object[] sampleRow(String alias, String well, Object qc, Object rin, String qcPassed) {
+    return new Object[] { "PRO1", "Project One", "SAM", alias, well, null, qc, null, rin, null, null, null, null, qcPassed };
+  }
+
+  @Test
+  public void testPreProcessSampleSheet() throws Exception {
+    File file = writeSampleSheet(
+        new Object[] { "PRO1", "Project One", "SAM", "PRO1_S1_genomic", "A01", null, 12.5, null, 8, 1.8, null, null, null, "Y" },
+        new Object[] { "PRO1", "Project One", "SAM", "PRO1_S2_transcriptomic", "A02", "AD1", "NA", 3, null, null, null, null, null,
+            "N" });
+
+    JSONArray rows = FormUtils.preProcessSampleSheetImport(file, user, manager);
+
+    assertEquals(2, rows.size());
+    assertEquals(JSONArray.fromObject(Arrays.asList("PRO1", "Project One", "SAM", "PRO1_S1_genomic", "A01", "", 12.5, "true",
+        "RIN:8.0;260/280:1.8;")).toString(), rows.getJSONArray(0).toString());
+    // transcriptomic samples take their QC from the second concentration column
+    JSONArray second = rows.getJSONArray(1);
+    assertEquals("AD1", second.getString(5));
+    assertEquals(3.0, second.getDouble(6), 0.0);
+    assertEquals("false", second.getString(7));
+    verify(manager).listSamplesByAliasList(Arrays.asList("PRO1_S1_genomic", "PRO1_S2_transcriptomic"));
+  }
+
+  @Test
+  public void testProcessSampleSheetSavesEachSampleOnce() throws Exception {
+    File file = writeSampleSheet(sampleRow("PRO1_S1_genomic", "A01", 12.5, 8, "Y"),
+        sampleRow("PRO1_S2_transcriptomic", "A02", 4, null, "N"),
+        // a second row for the same sample adds notes without a QC
+        sampleRow("pro1_s1_GENOMIC", "B01", null, null, null));
+
+    JSONArray rows = FormUtils.processSampleSheetImport(file, user, manager);
+
+    assertEquals(3, rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      JSONObject row = rows.getJSONObject(i);
+      assertEquals(SAMPLE_FIRST_ROW + i, row.getInt("row"));
+      assertEquals("", row.getString("adaptor"));
+    }
+    assertEquals("B01", rows.getJSONObject(2).getString("well"));
+
+    ArgumentCaptor<SampleQC> qcs = ArgumentCaptor.forClass(SampleQC.class);
+    verify(manager, times(2)).saveSampleQC(qcs.capture());
+    assertEquals(Double.valueOf(12.5), qcs.getAllValues().get(0).getResults());
+    assertEquals("importer", qcs.getAllValues().get(0).getQcCreator());
+    assertEquals("Picogreen", qcs.getAllValues().get(0).getQcType().getName());
+    assertEquals(Double.valueOf(4.0), qcs.getAllValues().get(1).getResults());
+    assertTrue(genomic.getQcPassed());
+    assertFalse(transcriptomic.getQcPassed());
+
+    ArgumentCaptor<Note> notes = ArgumentCaptor.forClass(Note.class);
+    verify(manager, atLeastOnce()).saveSampleNote(eq(genomic), notes.capture());
+    List<String> noteTexts = new ArrayList<>();
+    for (Note note : notes.getAllValues()) {
+      noteTexts.add(note.getText());
+    }
+    assertTrue(noteTexts.toString(), noteTexts.contains("Well: A01"));
+
+    verify(manager, times(1)).saveSample(genomic);
+    verify(manager, times(1)).saveSample(transcriptomic);
+  }
+
+  @Test
+  public void testSampleSheetEndsAtBlankAlias() throws Exception {
+    File file = writeSampleSheet(sampleRow("PRO1_S1_genomic", "A01", 12.5, null, null), sampleRow(null, "A02", 1, null, null),
+        sampleRow("PRO1_S9_unknown", "A03", 1, null, null));
+
+    JSONArray rows = FormUtils.processSampleSheetImport(file, user, manager);
+
+    assertEquals(1, rows.size());
+    verify(manager).listSamplesByAliasList(Arrays.asList("PRO1_S1_genomic"));
+    verify(manager).saveSample(genomic);
+    verify(manager, never()).saveSample(transcriptomic);
+  }
+
+  @Test
+  public void testUnknownSampleRejectsSheet() throws Exception {
+    File file = writeSampleSheet(sampleRow("PRO1_S1_genomic", "A01", 12.5, 8, "Y"), sampleRow("PRO1_S9_unknown", "A02", 1, null, null));
+
+    try {
+      FormUtils.processSampleSheetImport(file, user, manager);
+      fail("A sheet naming an unknown sample should be rejected");
+    } catch (InputFormException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("PRO1_S9_unknown"));
+    }
+    verify(manager, never()).saveSample(any(Sample.class));
+    verify(manager, never()).saveSampleQC(any(SampleQC.class));
+  }
+
+  @Test
+  public void testPreProcessLibraryPoolSheet() throws Exception {
+    File file = writeSheet(LIBRARY_FIRST_ROW, Arrays.asList("true", "Illumina", "Illumina-Paired End", "PCR", "WGS"),
+        new Object[] { "PRO1", "Project One", "SAM", "PRO1_S1_genomic", "A01", null, 2.5, "300", 10, "Kit", "A", "Y", "Library one",
+            null, null, null, 2, null, null, null, 4, "1", "L" });
+
+    JSONObject result = FormUtils.preProcessLibraryPoolSheetImport(file, user, manager);
+
+    assertEquals("true", result.getString("paired"));
+    assertEquals("Illumina", result.getString("platform"));
+    assertEquals("Paired End", result.getString("type"));
+    assertEquals("PCR", result.getString("selection"));
+    assertEquals("WGS", result.getString("strategy"));
+    JSONArray rows = result.getJSONArray("rows");
+    assertEquals(1, rows.size());
+    JSONArray row = rows.getJSONArray(0);
+    assertEquals("PRO1_S1_genomic", row.getString(1));
+    assertEquals("PRO1_L1-A01_genomic", row.getString(3));
+    assertEquals("Library one", row.getString(4));
+    assertEquals("2.5", row.getString(5));
+    // libraries only: no dilution or pool
+    assertEquals("", row.getString(11));
+    assertEquals("L", row.getString(14));
+  }
+
+  @Test
+  public void testLibraryPoolSheetWithoutGlobalHeaders() throws Exception {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    workbook.createSheet("Import").createRow(0).createCell(0).setCellValue("Import sheet");
+    File file = temp.newFile("empty.xlsx");
+    try (OutputStream out = new FileOutputStream(file)) {
+      workbook.write(out);
+    }
+
+    try {
+      FormUtils.preProcessLibraryPoolSheetImport(file, user, manager);
+      fail("A sheet without global headers should be rejected");
+    } catch (InputFormException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("global headers"));
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package uk.ac.bbsrc.tgac.miso.core.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.ConcurrentLoginPermission;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FtpConnectionPoolTestSuite {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private FtpServer server;
+  private int port;
+  private FtpConnectionPool pool;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws Exception {
+    File home = temp.newFolder("home");
+
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    FtpServerFactory serverFactory = new FtpServerFactory();
+    ListenerFactory listenerFactory = new ListenerFactory();
+    listenerFactory.setPort(port);
+    serverFactory.addListener("default", listenerFactory.createListener());
+
+    UserManager userManager = new PropertiesUserManagerFactory().createUserManager();
+    BaseUser user = new BaseUser();
+    user.setName("miso");
+    user.setPassword("secret");
+    user.setHomeDirectory(home.getAbsolutePath());
+    user.setAuthorities(Arrays.<Authority> asList(new WritePermission(), new ConcurrentLoginPermission(10, 10)));
+    userManager.save(user);
+    serverFactory.setUserManager(userManager);
+
+    server = serverFactory.createServer();
+    server.start();
+
+    pool = new FtpConnectionPool(1);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    pool.close();
+    server.stop();
+  }
+
+  private FTPClient borrow() throws IOException {
+    return pool.borrow("localhost", port, "miso", "secret");
+  }
+
+  private Future<FTPClient> borrowLater() {
+    return executor.submit(new Callable<FTPClient>() {
+      @Override
+      public FTPClient call() throws Exception {
+        return borrow();
+      }
+    });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoConnectionsAllowed() {
+    new FtpConnectionPool(0);
+  }
+
+  @Test
+  public void testReusesReleasedConnection() throws Exception {
+    FTPClient first = borrow();
+    assertTrue(first.isConnected());
+    pool.release(first, true);
+
+    FTPClient second = borrow();
+    assertSame(first, second);
+    assertTrue(second.sendNoOp());
+    pool.release(second, true);
+  }
+
+  @Test
+  public void testUnusableConnectionIsClosed() throws Exception {
+    FTPClient first = borrow();
+    pool.release(first, false);
+    assertFalse(first.isConnected());
+
+    FTPClient second = borrow();
+    assertNotSame(first, second);
+    assertTrue(second.isConnected());
+    pool.release(second, true);
+  }
+
+  @Test
+  public void testClosedIdleConnectionIsReplaced() throws Exception {
+    FTPClient first = borrow();
+    pool.release(first, true);
+    // as when the server drops a connection while it is idle
+    first.disconnect();
+
+    FTPClient second = borrow();
+    assertNotSame(first, second);
+    assertTrue(second.sendNoOp());
+    pool.release(second, true);
+  }
+
+  @Test
+  public void testWaitsForBorrowedConnection() throws Exception {
+    FTPClient first = borrow();
+    Future<FTPClient> waiting = borrowLater();
+    try {
+      waiting.get(500, TimeUnit.MILLISECONDS);
+      fail("A second connection should not be lent while the only one allowed is borrowed");
+    } catch (TimeoutException e) {
+      // expected
+    }
+
+    pool.release(first, true);
+    FTPClient second = waiting.get(10, TimeUnit.SECONDS);
+    assertSame(first, second);
+    pool.release(second, true);
+  }
+
+  @Test
+  public void testFailedLoginDoesNotHoldConnection() throws Exception {
+    try {
+      pool.borrow("localhost", port, "miso", "wrong");
+      fail("Login with the wrong password should fail");
+    } catch (IOException e) {
+      // expected
+    }
+
+    FTPClient ftp = borrowLater().get(10, TimeUnit.SECONDS);
+    assertTrue(ftp.isConnected());
+    pool.release(ftp, true);
+  }
+
+  @Test
+  public void testCloseDisconnectsIdleConnections() throws Exception {
+    FTPClient ftp = borrow();
+    pool.release(ftp, true);
+
+    pool.close();
+    assertFalse(ftp.isConnected());
+    FTPClient replacement = borrow();
+    assertNotSame(ftp, replacement);
+    pool.release(replacement, true);
+  }
+}
@@ -0,0 +1,237 @@
+package uk.ac.bbsrc.tgac.miso.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class XlsxRowReaderTestSuite {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  /**
+   * Collects the rows read, stopping after a given number
+   */
+  private static class Rows implements XlsxRowReader.RowHandler {
+    private final List<List<String>> rows = new ArrayList<>();
+    private final int limit;
+
+    private Rows(int limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    public boolean handleRow(int rowIndex, List<String> cells) {
+      assertEquals(rows.size(), rowIndex);
+      rows.add(cells);
+      return rows.size() < limit;
+    }
+  }
+
+  private List<List<String>> read(File file) throws Exception {
+    Rows rows = new Rows(Integer.MAX_VALUE);
+    XlsxRowReader.read(file, rows);
+    return rows.rows;
+  }
+
+  private File write(XSSFWorkbook workbook) throws IOException {
+    File file = temp.newFile("sheet.xlsx");
+    try (OutputStream out = new FileOutputStream(file)) {
+      workbook.write(out);
+    }
+    return file;
+  }
+
+  @Test
+  public void testSharedStrings() throws Exception {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    Sheet sheet = workbook.createSheet("Import");
+    Row header = sheet.createRow(0);
+    header.createCell(0).setCellValue("Sample Alias");
+    header.createCell(1).setCellValue("Well");
+    Row row = sheet.createRow(1);
+    row.createCell(0).setCellValue("PRO1_S1_a");
+    // a repeated string is stored once in the shared strings table
+    row.createCell(1).setCellValue("Well");
+
+    List<List<String>> rows = read(write(workbook));
+    assertEquals(2, rows.size());
+    assertEquals(Arrays.asList("Sample Alias", "Well"), rows.get(0));
+    assertEquals(Arrays.asList("PRO1_S1_a", "Well"), rows.get(1));
+  }
+
+  @Test
+  public void testBlankCellsAndRows() throws Exception {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    Sheet sheet = workbook.createSheet("Import");
+    Row first = sheet.createRow(0);
+    first.createCell(0).setCellValue("a");
+    // a cell with a style but no value
+    first.createCell(2).setCellStyle(workbook.createCellStyle());
+    first.createCell(3).setCellValue("d");
+    sheet.createRow(2).createCell(1).setCellValue("b");
+
+    List<List<String>> rows = read(write(workbook));
+    assertEquals(3, rows.size());
+    assertEquals(Arrays.asList("a", null, null, "d"), rows.get(0));
+    assertEquals(Collections.<String> emptyList(), rows.get(1));
+    assertEquals(Arrays.asList(null, "b"), rows.get(2));
+    assertNull(XlsxRowReader.getCell(rows.get(0), 1));
+    assertNull(XlsxRowReader.getCell(rows.get(0), 10));
+    assertNull(XlsxRowReader.getCell(rows.get(1), 0));
+  }
+
+  @Test
+  public void testNumericAndBooleanCells() throws Exception {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    Row row = workbook.createSheet("Import").createRow(0);
+    row.createCell(0).setCellValue(12);
+    row.createCell(1).setCellValue(0.25);
+    row.createCell(2).setCellValue(-3.5);
+    row.createCell(3).setCellValue(true);
+    row.createCell(4).setCellValue(false);
+
+    List<List<String>> rows = read(write(workbook));
+    // as XSSFCell gives them, so that the import reads the same values as it did from the workbook
+    assertEquals(Arrays.asList("12.0", "0.25", "-3.5", "true", "false"), rows.get(0));
+  }
+
+  @Test
+  public void testDateCells() throws Exception {
+    Calendar calendar = Calendar.getInstance();
+    calendar.clear();
+    calendar.set(2016, Calendar.JANUARY, 1);
+    Date date = calendar.getTime();
+
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    CellStyle dateStyle = workbook.createCellStyle();
+    dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+    Row row = workbook.createSheet("Import").createRow(0);
+    row.createCell(0).setCellValue(date);
+    row.getCell(0).setCellStyle(dateStyle);
+
+    List<List<String>> rows = read(write(workbook));
+    // dates are stored as numbers, and styles are not read, so a date is given as its serial number
+    assertEquals("42370.0", rows.get(0).get(0));
+    assertEquals(String.valueOf(DateUtil.getExcelDate(date)), rows.get(0).get(0));
+  }
+
+  @Test
+  public void testInlineStrings() throws Exception {
+    File file = temp.newFile("inline.xlsx");
+    writeInlineStringWorkbook(file);
+
+    List<List<String>> rows = read(file);
+    assertEquals(2, rows.size());
+    assertEquals(Arrays.asList("inline alias", "shared well", null), rows.get(0));
+    assertEquals(Arrays.asList("", "7.0"), rows.get(1));
+  }
+
+  @Test
+  public void testHandlerStopsReading() throws Exception {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    Sheet sheet = workbook.createSheet("Import");
+    for (int i = 0; i < 10; i++) {
+      sheet.createRow(i).createCell(0).setCellValue(i);
+    }
+
+    Rows rows = new Rows(3);
+    XlsxRowReader.read(write(workbook), rows);
+    assertEquals(3, rows.rows.size());
+    assertEquals("2.0", rows.rows.get(2).get(0));
+  }
+
+  @Test
+  public void testHandlerExceptionIsThrown() throws Exception {
+    XSSFWorkbook workbook = new XSSFWorkbook();
+    workbook.createSheet("Import").createRow(0).createCell(0).setCellValue("bad");
+    File file = write(workbook);
+
+    exception.expect(IOException.class);
+    exception.expectMessage("Bad row 0");
+    XlsxRowReader.read(file, new XlsxRowReader.RowHandler() {
+      @Override
+      public boolean handleRow(int rowIndex, List<String> cells) throws Exception {
+        throw new IOException("Bad row " + rowIndex);
+      }
+    });
+  }
+
+  @Test
+  public void testColumnOf() {
+    assertEquals(0, XlsxRowReader.columnOf("A1"));
+    assertEquals(25, XlsxRowReader.columnOf("Z9"));
+    assertEquals(26, XlsxRowReader.columnOf("AA10"));
+    assertEquals(27, XlsxRowReader.columnOf("AB12"));
+    assertEquals(16383, XlsxRowReader.columnOf("XFD1048576"));
+  }
+
+  /**
+   * Writes a workbook by hand, as POI only writes shared strings, with a sheet mixing inline and shared strings: A1 is inline, B1 shared,
+   * C1 an empty value, A2 an empty inline string and B2 a number without an explicit type
+   */
+  private static void writeInlineStringWorkbook(File file) throws IOException {
+    String ns = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    String rels = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+      entry(zip, "[Content_Types].xml", "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+          + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+          + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+          + "<Override PartName=\"/xl/workbook.xml\" "
+          + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+          + "<Override PartName=\"/xl/worksheets/sheet1.xml\" "
+          + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+          + "<Override PartName=\"/xl/sharedStrings.xml\" "
+          + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>"
+          + "</Types>");
+      entry(zip, "_rels/.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+          + "<Relationship Id=\"rId1\" Type=\"" + rels + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+          + "</Relationships>");
+      entry(zip, "xl/workbook.xml", "<workbook xmlns=\"" + ns + "\" xmlns:r=\"" + rels + "\">"
+          + "<sheets><sheet name=\"Import\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+      entry(zip, "xl/_rels/workbook.xml.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+          + "<Relationship Id=\"rId1\" Type=\"" + rels + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+          + "<Relationship Id=\"rId2\" Type=\"" + rels + "/sharedStrings\" Target=\"sharedStrings.xml\"/>"
+          + "</Relationships>");
+      entry(zip, "xl/sharedStrings.xml", "<sst xmlns=\"" + ns + "\" count=\"1\" uniqueCount=\"1\">"
+          + "<si><r><t>shared </t></r><r><t>well</t></r><rPh><t>ignored</t></rPh></si></sst>");
+      entry(zip, "xl/worksheets/sheet1.xml", "<worksheet xmlns=\"" + ns + "\"><sheetData>"
+          + "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>inline alias</t></is></c><c r=\"B1\" t=\"s\"><v>0</v></c>"
+          + "<c r=\"C1\"><v></v></c></row>"
+          + "<row r=\"2\"><c r=\"A2\" t=\"inlineStr\"><is><t></t></is></c><c r=\"B2\"><v>7</v></c></row>"
+          + "</sheetData></worksheet>");
+    }
+  }
+
+  private static void entry(ZipOutputStream zip, String name, String xml) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" + xml).getBytes(StandardCharsets.UTF_8));
+    zip.closeEntry();
+  }
+}
@@ -0,0 +1,381 @@
+package uk.ac.bbsrc.tgac.miso.migration.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.log4j.Logger;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import uk.ac.bbsrc.tgac.miso.core.data.Box;
+import uk.ac.bbsrc.tgac.miso.core.data.Pool;
+import uk.ac.bbsrc.tgac.miso.core.data.Poolable;
+import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
+import uk.ac.bbsrc.tgac.miso.core.manager.MisoRequestManager;
+import uk.ac.bbsrc.tgac.miso.migration.MigrationData;
+import uk.ac.bbsrc.tgac.miso.migration.MigrationProperties;
+import uk.ac.bbsrc.tgac.miso.migration.destination.DefaultMigrationTarget;
+import uk.ac.bbsrc.tgac.miso.migration.destination.MisoServiceManager;
+import uk.ac.bbsrc.tgac.miso.migration.destination.MisoTargetUtils;
+import uk.ac.bbsrc.tgac.miso.migration.source.LoadGeneratorSource;
+import uk.ac.bbsrc.tgac.miso.migration.source.MigrationException;
+import uk.ac.bbsrc.tgac.miso.persistence.SampleDao;
+
+/**
+ * Benchmark for comparing the performance of MISO releases. Generated data is loaded by the {@link LoadGeneratorSource} through the
+ * {@link DefaultMigrationTarget}, either into an embedded H2 database in MySQL mode or into the MySQL database given by the target.db
+ * properties. A fixed set of scenarios is then timed through the real DAOs and a {@link MisoRequestManager}, and the latency
+ * percentiles and number of queries of each scenario are written to a JSON report.
+ * <p/>
+ * No caching proxies are set up, so every scenario goes to the database.
+ */
+public class Benchmark {
+
+  private static final Logger log = Logger.getLogger(Benchmark.class);
+
+  private static final String OPT_EMBEDDED = "benchmark.embedded";
+  private static final String OPT_EMBEDDED_LOCATIONS = "benchmark.embedded.locations";
+  private static final String OPT_LOAD = "benchmark.load";
+  private static final String OPT_WARMUP = "benchmark.warmup";
+  private static final String OPT_ITERATIONS = "benchmark.iterations";
+  private static final String OPT_PAGE_SIZE = "benchmark.pageSize";
+  private static final String OPT_QUERY = "benchmark.query";
+  private static final String OPT_SCENARIOS = "benchmark.scenarios";
+  private static final String OPT_REPORT = "benchmark.report";
+  private static final String OPT_MISO_USER = "target.miso.user";
+
+  private static final String EMBEDDED_URL = "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;"
+      + "INIT=CREATE SCHEMA IF NOT EXISTS \"public\"";
+
+  private static final PlatformType PLATFORM = PlatformType.ILLUMINA;
+
+  private final MigrationProperties properties;
+  private final boolean embedded;
+  private final int warmup;
+  private final int iterations;
+  private final int pageSize;
+  private final String query;
+  private final Set<String> selectedScenarios;
+  private final String reportFile;
+
+  private QueryCountingDataSource dataSource;
+  private SessionFactory sessionFactory;
+  private MisoServiceManager serviceManager;
+  private MisoRequestManager requestManager;
+
+  public Benchmark(MigrationProperties properties) {
+    this.properties = properties;
+    this.embedded = properties.getBoolean(OPT_EMBEDDED, true);
+    this.warmup = properties.getInt(OPT_WARMUP, 5);
+    this.iterations = properties.getInt(OPT_ITERATIONS, 50);
+    this.pageSize = properties.getInt(OPT_PAGE_SIZE, 25);
+    String queryProp = properties.getStringOrNull(OPT_QUERY);
+    this.query = queryProp == null ? "LT1" : queryProp;
+    String scenariosProp = properties.getStringOrNull(OPT_SCENARIOS);
+    this.selectedScenarios = scenariosProp == null ? null : new HashSet<>(Arrays.asList(scenariosProp.split("\\s*,\\s*")));
+    String reportProp = properties.getStringOrNull(OPT_REPORT);
+    this.reportFile = reportProp == null ? "benchmark-report.json" : reportProp;
+  }
+
+  public static void main(String[] args) {
+    if (args.length != 1) {
+      System.out.println(
+          String.format("Usage: java -cp <migration-jar-with-dependencies> %s <properties-file>", Benchmark.class.getName()));
+      System.exit(1);
+    }
+    try {
+      new Benchmark(new MigrationProperties(args[0])).run();
+    } catch (IOException | MigrationException e) {
+      System.err.println("Benchmark failed");
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  public void run() throws IOException, MigrationException {
+    dataSource = new QueryCountingDataSource(embedded ? makeEmbeddedDataSource() : DefaultMigrationTarget.makeDataSource(properties));
+    if (properties.getBoolean(OPT_LOAD, true)) {
+      log.info("Loading generated data...");
+      MigrationData data = new LoadGeneratorSource(properties).getMigrationData();
+      new DefaultMigrationTarget(properties, dataSource).migrate(data);
+    }
+    setUp();
+
+    List<ScenarioResult> results = new ArrayList<>();
+    for (Scenario scenario : makeScenarios()) {
+      if (selectedScenarios == null || selectedScenarios.contains(scenario.name)) {
+        ScenarioResult result = measure(scenario);
+        log.info(String.format("%s: p50 %.2fms, p99 %.2fms, %.1f queries", scenario.name, result.getLatencyPercentile(50),
+            result.getLatencyPercentile(99), result.getMeanQueries()));
+        results.add(result);
+      }
+    }
+    writeReport(results);
+  }
+
+  private DataSource makeEmbeddedDataSource() {
+    BasicDataSource embeddedDataSource = new BasicDataSource();
+    embeddedDataSource.setDriverClassName("org.h2.Driver");
+    embeddedDataSource.setUrl(EMBEDDED_URL);
+    Flyway flyway = new Flyway();
+    flyway.setDataSource(embeddedDataSource);
+    flyway.setSqlMigrationSuffix(".test.sql");
+    // the schema and test data translated for H2 by the sqlstore test build must be given, as well as classpath:db/benchmark
+    flyway.setLocations(properties.getRequiredString(OPT_EMBEDDED_LOCATIONS).split("\\s*,\\s*"));
+    log.info("Creating embedded database...");
+    flyway.migrate();
+    return embeddedDataSource;
+  }
+
+  private void setUp() throws IOException {
+    sessionFactory = MisoTargetUtils.makeSessionFactory(new TransactionAwareDataSourceProxy(dataSource));
+    serviceManager = MisoServiceManager.buildWithDefaults(new JdbcTemplate(dataSource), sessionFactory,
+        properties.getRequiredString(OPT_MISO_USER));
+    // Hibernate and the JDBC DAOs share a connection, as in the migration target (which may already have done this)
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.initSynchronization();
+    }
+
+    requestManager = new MisoRequestManager();
+    requestManager.setSecurityStore(serviceManager.getsecurityStore());
+    requestManager.setProjectStore(serviceManager.getProjectDao());
+    requestManager.setSampleStore(serviceManager.getSampleDao());
+    requestManager.setLibraryStore(serviceManager.getLibraryDao());
+    requestManager.setLibraryDilutionStore(serviceManager.getDilutionDao());
+    requestManager.setPoolStore(serviceManager.getPoolDao());
+    requestManager.setRunStore(serviceManager.getRunDao());
+    requestManager.setSequencerPartitionContainerStore(serviceManager.getSequencerPartitionContainerDao());
+    requestManager.setBoxStore(serviceManager.getBoxDao());
+    requestManager.setChangeLogStore(serviceManager.getChangeLogDao());
+    requestManager.setStudyStore(serviceManager.getStudyDao());
+    requestManager.setExperimentStore(serviceManager.getExperimentDao());
+    requestManager.setPlatformStore(serviceManager.getPlatformDao());
+  }
+
+  /**
+   * A timed unit of work. Each iteration runs in its own transaction, which is committed so that saves are included in the timing
+   */
+  private abstract static class Scenario {
+    private final String name;
+
+    public Scenario(String name) {
+      this.name = name;
+    }
+
+    protected abstract void run() throws IOException;
+  }
+
+  private List<Scenario> makeScenarios() throws IOException {
+    final SampleDao sampleDao = serviceManager.getSampleDao();
+    List<Scenario> scenarios = new ArrayList<>();
+
+    scenarios.add(new Scenario("projects.list") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.listAllProjects();
+      }
+    });
+    scenarios.add(new Scenario("samples.page") {
+      @Override
+      protected void run() throws IOException {
+        sampleDao.listByOffsetAndNumResults(0, pageSize, "id", "desc");
+        sampleDao.countAll();
+      }
+    });
+    scenarios.add(new Scenario("samples.search") {
+      @Override
+      protected void run() throws IOException {
+        sampleDao.listBySearchOffsetAndNumResults(0, pageSize, query, "id", "desc");
+        sampleDao.countBySearch(query, null);
+      }
+    });
+    scenarios.add(new Scenario("libraries.page") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.getLibrariesByPageAndSize(0, pageSize, "desc", "id");
+        requestManager.countLibraries();
+      }
+    });
+    scenarios.add(new Scenario("libraries.search") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.getLibrariesByPageSizeSearch(0, pageSize, query, "desc", "id");
+        requestManager.countLibrariesBySearch(query);
+      }
+    });
+    scenarios.add(new Scenario("pools.page") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.getPoolsByPageAndSize(0, pageSize, "desc", "id", PLATFORM);
+        requestManager.countPoolsByPlatform(PLATFORM);
+      }
+    });
+    scenarios.add(new Scenario("pools.search") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.getPoolsByPageSizeSearchPlatform(0, pageSize, query, "desc", "id", PLATFORM);
+        requestManager.getNumPoolsBySearch(PLATFORM, query);
+      }
+    });
+    scenarios.add(new Scenario("runs.page") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.getRunsByPageAndSize(0, pageSize, "desc", "id");
+        requestManager.countRuns();
+      }
+    });
+    scenarios.add(new Scenario("runs.search") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.getRunsByPageSizeSearch(0, pageSize, query, "desc", "id");
+        requestManager.countRunsBySearch(query);
+      }
+    });
+    scenarios.add(new Scenario("containers.search") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.getContainersByPageSizeSearch(0, pageSize, query, "desc", "id");
+        requestManager.countContainersBySearch(query);
+      }
+    });
+    scenarios.add(new Scenario("dashboard.search") {
+      @Override
+      protected void run() throws IOException {
+        // one page of each of the dashboard's search widgets, as loaded together on the front page
+        requestManager.listProjectsBySearchBeforeId(query, Long.MAX_VALUE, pageSize + 1);
+        requestManager.listSamplesBySearchBeforeId(query, Long.MAX_VALUE, pageSize + 1);
+        requestManager.listLibrariesBySearchBeforeId(query, Long.MAX_VALUE, pageSize + 1);
+        requestManager.listLibraryDilutionsBySearchBeforeId(query, Long.MAX_VALUE, pageSize + 1);
+        requestManager.listPoolsBySearchBeforeId(query, Long.MAX_VALUE, pageSize + 1);
+        requestManager.listRunsBySearchBeforeId(query, Long.MAX_VALUE, pageSize + 1);
+      }
+    });
+    scenarios.add(new Scenario("boxes.list") {
+      @Override
+      protected void run() throws IOException {
+        requestManager.listAllBoxesWithOccupancy();
+      }
+    });
+
+    Transaction tx = sessionFactory.getCurrentSession().beginTransaction();
+    try {
+      Iterator<Box> boxes = requestManager.listAllBoxesWithOccupancy().iterator();
+      if (boxes.hasNext()) {
+        final long boxId = boxes.next().getId();
+        scenarios.add(new Scenario("box.view") {
+          @Override
+          protected void run() throws IOException {
+            requestManager.getBoxById(boxId);
+          }
+        });
+      } else {
+        log.warn("No boxes in the database. Skipping scenario box.view");
+      }
+      List<Pool<? extends Poolable<?, ?>>> pools = requestManager.getPoolsByPageAndSize(0, 1, "desc", "id", PLATFORM);
+      if (!pools.isEmpty()) {
+        final long poolId = pools.get(0).getId();
+        scenarios.add(new Scenario("pool.save") {
+          @Override
+          protected void run() throws IOException {
+            requestManager.savePool(requestManager.getPoolById(poolId));
+          }
+        });
+      } else {
+        log.warn("No pools in the database. Skipping scenario pool.save");
+      }
+      List<Run> runs = requestManager.getRunsByPageAndSize(0, 1, "desc", "id");
+      if (!runs.isEmpty()) {
+        final long runId = runs.get(0).getId();
+        scenarios.add(new Scenario("run.save") {
+          @Override
+          protected void run() throws IOException {
+            requestManager.saveRun(requestManager.getRunById(runId));
+          }
+        });
+      } else {
+        log.warn("No runs in the database. Skipping scenario run.save");
+      }
+    } finally {
+      tx.rollback();
+    }
+    return scenarios;
+  }
+
+  private ScenarioResult measure(Scenario scenario) throws IOException {
+    log.info("Running scenario " + scenario.name + "...");
+    ScenarioResult result = new ScenarioResult(scenario.name);
+    for (int i = 0; i < warmup + iterations; i++) {
+      long queriesBefore = dataSource.getQueryCount();
+      long start = System.nanoTime();
+      Transaction tx = sessionFactory.getCurrentSession().beginTransaction();
+      try {
+        scenario.run();
+        tx.commit();
+      } catch (IOException | RuntimeException e) {
+        tx.rollback();
+        throw e;
+      }
+      long elapsed = System.nanoTime() - start;
+      if (i >= warmup) {
+        result.add(elapsed, dataSource.getQueryCount() - queriesBefore);
+      }
+    }
+    return result;
+  }
+
+  private Map<String, Object> describeDataset() throws IOException {
+    Map<String, Object> dataset = new LinkedHashMap<>();
+    Transaction tx = sessionFactory.getCurrentSession().beginTransaction();
+    try {
+      dataset.put("projects", requestManager.listAllProjects().size());
+      dataset.put("samples", serviceManager.getSampleDao().countAll());
+      dataset.put("libraries", requestManager.countLibraries());
+      dataset.put("pools", requestManager.countPoolsByPlatform(PLATFORM));
+      dataset.put("runs", requestManager.countRuns());
+      dataset.put("containers", requestManager.countContainers());
+    } finally {
+      tx.rollback();
+    }
+    return dataset;
+  }
+
+  private void writeReport(List<ScenarioResult> results) throws IOException {
+    String version = Benchmark.class.getPackage().getImplementationVersion();
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("created", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date()));
+    report.put("misoVersion", version == null ? "unknown" : version);
+    report.put("database", embedded ? "h2 (MySQL mode)" : "mysql");
+    report.put("dataset", describeDataset());
+    report.put("warmupIterations", warmup);
+    report.put("iterations", iterations);
+    report.put("pageSize", pageSize);
+    report.put("query", query);
+    List<Map<String, Object>> scenarios = new ArrayList<>();
+    for (ScenarioResult result : results) {
+      scenarios.add(result.toReport());
+    }
+    report.put("scenarios", scenarios);
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(reportFile), report);
+    log.info("Benchmark report written to " + reportFile);
+  }
+
+}
@@ -75,6 +75,24 @@ public class MigrationProperties extends Properties {
     }
   }
   
+  /**
+   * Retrieves an int value from the Properties
+   * 
+   * @param property key of the property to retrieve
+   * @param defaultValue value to return if the property is not found
+   * @return the int property value if found; defaultValue otherwise
+   * @throws IllegalArgumentException if the property is not an int
+   */
+  public int getInt(String property, int defaultValue) {
+    String prop = getStringOrNull(property);
+    if (prop == null) return defaultValue;
+    try {
+      return Integer.parseInt(prop);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Property " + property + " expected type: int");
+    }
+  }
+  
   /**
    * Retrieves a long value from the Properties or throws an exception if it is missing
    * 
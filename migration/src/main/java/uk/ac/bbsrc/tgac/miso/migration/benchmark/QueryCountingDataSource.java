@@ -0,0 +1,85 @@
+package uk.ac.bbsrc.tgac.miso.migration.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource that counts the statements executed through its connections, whether by Hibernate or by JDBC DAOs. A batch counts as a
+ * single statement, since it is sent to the database in one round trip.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+  private final AtomicLong queryCount = new AtomicLong();
+
+  public QueryCountingDataSource(DataSource targetDataSource) {
+    super(targetDataSource);
+  }
+
+  /**
+   * @return the number of statements executed since this DataSource was created
+   */
+  public long getQueryCount() {
+    return queryCount.get();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return wrap(getTargetDataSource().getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return wrap(getTargetDataSource().getConnection(username, password));
+  }
+
+  private Connection wrap(final Connection connection) {
+    return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(connection, method, args);
+            if (result instanceof CallableStatement) {
+              return wrap((Statement) result, CallableStatement.class);
+            } else if (result instanceof PreparedStatement) {
+              return wrap((Statement) result, PreparedStatement.class);
+            } else if (result instanceof Statement) {
+              return wrap((Statement) result, Statement.class);
+            }
+            return result;
+          }
+        });
+  }
+
+  private Statement wrap(final Statement statement, Class<? extends Statement> type) {
+    return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().startsWith("execute")) {
+          queryCount.incrementAndGet();
+        }
+        return invokeTarget(statement, method, args);
+      }
+    });
+  }
+
+  private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+
+}
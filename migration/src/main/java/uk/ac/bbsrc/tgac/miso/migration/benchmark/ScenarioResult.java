@@ -0,0 +1,106 @@
+package uk.ac.bbsrc.tgac.miso.migration.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings and query counts collected over the measured iterations of one benchmark scenario
+ */
+public class ScenarioResult {
+
+  private static final double[] PERCENTILES = { 50, 90, 95, 99 };
+
+  private final String name;
+  private final List<Long> latenciesNanos = new ArrayList<>();
+  private final List<Long> queryCounts = new ArrayList<>();
+
+  public ScenarioResult(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Records one iteration of the scenario
+   *
+   * @param latencyNanos time taken, in nanoseconds
+   * @param queries number of statements executed
+   */
+  public void add(long latencyNanos, long queries) {
+    latenciesNanos.add(latencyNanos);
+    queryCounts.add(queries);
+  }
+
+  public int getIterations() {
+    return latenciesNanos.size();
+  }
+
+  /**
+   * @param percentile between 0 (exclusive) and 100 (inclusive)
+   * @return the latency in milliseconds at the given percentile, using the nearest-rank method, or 0 if nothing has been recorded
+   */
+  public double getLatencyPercentile(double percentile) {
+    if (percentile <= 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be greater than 0 and at most 100");
+    }
+    if (latenciesNanos.isEmpty()) return 0;
+    List<Long> sorted = new ArrayList<>(latenciesNanos);
+    Collections.sort(sorted);
+    int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+    return toMillis(sorted.get(Math.max(rank, 1) - 1));
+  }
+
+  public double getMeanLatency() {
+    return latenciesNanos.isEmpty() ? 0 : toMillis(sum(latenciesNanos)) / latenciesNanos.size();
+  }
+
+  public double getMeanQueries() {
+    return queryCounts.isEmpty() ? 0 : (double) sum(queryCounts) / queryCounts.size();
+  }
+
+  public long getMaxQueries() {
+    return queryCounts.isEmpty() ? 0 : Collections.max(queryCounts);
+  }
+
+  /**
+   * @return the result in the form written to the benchmark report
+   */
+  public Map<String, Object> toReport() {
+    Map<String, Object> latency = new LinkedHashMap<>();
+    latency.put("min", latenciesNanos.isEmpty() ? 0 : toMillis(Collections.min(latenciesNanos)));
+    latency.put("mean", getMeanLatency());
+    for (double percentile : PERCENTILES) {
+      latency.put("p" + (int) percentile, getLatencyPercentile(percentile));
+    }
+    latency.put("max", latenciesNanos.isEmpty() ? 0 : toMillis(Collections.max(latenciesNanos)));
+
+    Map<String, Object> queries = new LinkedHashMap<>();
+    queries.put("mean", getMeanQueries());
+    queries.put("max", getMaxQueries());
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("name", name);
+    report.put("iterations", getIterations());
+    report.put("latencyMs", latency);
+    report.put("queries", queries);
+    return report;
+  }
+
+  private static long sum(List<Long> values) {
+    long total = 0;
+    for (Long value : values) {
+      total += value;
+    }
+    return total;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1000000D;
+  }
+
+}
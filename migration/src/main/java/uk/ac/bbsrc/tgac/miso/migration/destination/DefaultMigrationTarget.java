@@ -1,9 +1,24 @@
 package uk.ac.bbsrc.tgac.miso.migration.destination;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.sql.DataSource;
 
@@ -13,6 +28,9 @@ import org.hibernate.Transaction;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 import org.springframework.orm.hibernate4.HibernateTransactionManager;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.eaglegenomics.simlims.core.SecurityProfile;
@@ -47,23 +65,41 @@ public class DefaultMigrationTarget implements MigrationTarget {
   private static final String OPT_DRY_RUN = "target.dryrun";
   private static final String OPT_REPLACE_CHANGELOGS = "target.replaceChangeLogs";
   
+  private static final String OPT_CHUNK_SIZE = "target.chunkSize";
+  private static final String OPT_THREADS = "target.threads";
+  private static final String OPT_CHECKPOINT_FILE = "target.checkpointFile";
+  private static final String OPT_JDBC_BATCH_SIZE = "target.jdbcBatchSize";
+  
   private final SessionFactory sessionFactory;
+  private final JdbcTemplate jdbcTemplate;
   private final MisoServiceManager serviceManager;
   private final ValueTypeLookup valueTypeLookup;
   
   private boolean dryrun = false;
   private boolean replaceChangeLogs = false;
+  private int chunkSize = 0;
+  private int threads = 1;
+  private String checkpointFile = null;
   
   private Date timeStamp;
   
   public DefaultMigrationTarget(MigrationProperties properties) throws IOException {
+    this(properties, makeDataSource(properties));
+  }
+  
+  /**
+   * Creates a target that saves to the given DataSource instead of the database described by the target.db properties
+   */
+  public DefaultMigrationTarget(MigrationProperties properties, DataSource datasource) throws IOException {
     this.timeStamp = new Date();
     this.dryrun = properties.getBoolean(OPT_DRY_RUN, false);
     this.replaceChangeLogs = properties.getBoolean(OPT_REPLACE_CHANGELOGS, false);
-    DataSource datasource = makeDataSource(properties);
+    this.chunkSize = properties.getInt(OPT_CHUNK_SIZE, 0);
+    this.threads = Math.max(1, properties.getInt(OPT_THREADS, 1));
+    this.checkpointFile = properties.getStringOrNull(OPT_CHECKPOINT_FILE);
     DataSource dsProxy = new TransactionAwareDataSourceProxy(datasource);
-    this.sessionFactory = MisoTargetUtils.makeSessionFactory(dsProxy);
-    JdbcTemplate jdbcTemplate = new JdbcTemplate(datasource);
+    this.sessionFactory = MisoTargetUtils.makeSessionFactory(dsProxy, properties.getInt(OPT_JDBC_BATCH_SIZE, 0));
+    this.jdbcTemplate = new JdbcTemplate(datasource);
     this.serviceManager = MisoServiceManager.buildWithDefaults(jdbcTemplate, sessionFactory,
         properties.getRequiredString(OPT_MISO_USER));
     this.valueTypeLookup = readInTransaction(new TransactionWork<ValueTypeLookup>() {
@@ -78,7 +114,10 @@ public class DefaultMigrationTarget implements MigrationTarget {
     TransactionSynchronizationManager.initSynchronization();
   }
   
-  private static DataSource makeDataSource(MigrationProperties properties) {
+  /**
+   * Creates a DataSource for the MySQL database described by the target.db properties
+   */
+  public static DataSource makeDataSource(MigrationProperties properties) {
     String dbHost = properties.getRequiredString(OPT_DB_HOST);
     String dbPort = properties.getRequiredString(OPT_DB_PORT);
     String dbName = properties.getRequiredString(OPT_DB_NAME);
@@ -91,6 +130,14 @@ public class DefaultMigrationTarget implements MigrationTarget {
 
   @Override
   public void migrate(final MigrationData data) throws IOException {
+    if (chunkSize > 0) {
+      if (dryrun) {
+        log.warn("A dry run cannot be committed in chunks. Ignoring " + OPT_CHUNK_SIZE + " and using a single transaction");
+      } else {
+        migrateInChunks(data);
+        return;
+      }
+    }
     log.info(dryrun ? "Doing a dry run" : "Changes will be saved");
     
     Transaction tx = sessionFactory.getCurrentSession().beginTransaction();
@@ -121,12 +168,16 @@ public class DefaultMigrationTarget implements MigrationTarget {
     log.info("Migrating projects...");
     User user = serviceManager.getAuthorizationManager().getCurrentUser();
     for (Project project : projects) {
-      project.setSecurityProfile(new SecurityProfile(user));
-      serviceManager.getProjectDao().save(project);
-      log.debug("Saved project " + project.getAlias());
+      saveProject(project, user);
     }
     log.info(projects.size() + " projects migrated.");
   }
+  
+  private void saveProject(Project project, User user) throws IOException {
+    project.setSecurityProfile(new SecurityProfile(user));
+    serviceManager.getProjectDao().save(project);
+    log.debug("Saved project " + project.getAlias());
+  }
 
   public void saveSamples(final Collection<Sample> samples) throws IOException {
     log.info("Migrating samples...");
@@ -175,26 +226,30 @@ public class DefaultMigrationTarget implements MigrationTarget {
     log.info("Migrating libraries...");
     User user = serviceManager.getAuthorizationManager().getCurrentUser();
     for (Library library : libraries) {
-      library.inheritPermissions(library.getSample());
-      valueTypeLookup.resolveAll(library);
-      library.setLastModifier(user);
-      library.setLastUpdated(timeStamp);
-      library.getLibraryAdditionalInfo().setCreatedBy(user);
-      library.getLibraryAdditionalInfo().setCreationDate(timeStamp);
-      library.getLibraryAdditionalInfo().setUpdatedBy(user);
-      library.getLibraryAdditionalInfo().setLastUpdated(timeStamp);
-      if (replaceChangeLogs) {
-        Collection<ChangeLog> changes = library.getChangeLog();
-        library.setId(serviceManager.getLibraryDao().save(library));
-        saveLibraryChangeLog(library, changes);
-      } else {
-        library.setId(serviceManager.getLibraryDao().save(library));
-      }
-      log.debug("Saved library " + library.getAlias());
+      saveLibrary(library, user);
     }
     log.info(libraries.size() + " libraries migrated.");
   }
   
+  private void saveLibrary(Library library, User user) throws IOException {
+    library.inheritPermissions(library.getSample());
+    valueTypeLookup.resolveAll(library);
+    library.setLastModifier(user);
+    library.setLastUpdated(timeStamp);
+    library.getLibraryAdditionalInfo().setCreatedBy(user);
+    library.getLibraryAdditionalInfo().setCreationDate(timeStamp);
+    library.getLibraryAdditionalInfo().setUpdatedBy(user);
+    library.getLibraryAdditionalInfo().setLastUpdated(timeStamp);
+    if (replaceChangeLogs) {
+      Collection<ChangeLog> changes = library.getChangeLog();
+      library.setId(serviceManager.getLibraryDao().save(library));
+      saveLibraryChangeLog(library, changes);
+    } else {
+      library.setId(serviceManager.getLibraryDao().save(library));
+    }
+    log.debug("Saved library " + library.getAlias());
+  }
+  
   private void saveLibraryChangeLog(Library library, Collection<ChangeLog> changes) throws IOException {
     if (changes == null || changes.isEmpty()) throw new IOException("Cannot save library due to missing changelogs");
     serviceManager.getChangeLogDao().deleteAllById("library", library.getId());
@@ -207,48 +262,415 @@ public class DefaultMigrationTarget implements MigrationTarget {
   public void saveLibraryDilutions(final Collection<LibraryDilution> libraryDilutions) throws IOException {
     log.info("Migrating library dilutions...");
     for (LibraryDilution ldi : libraryDilutions) {
-      if (replaceChangeLogs) {
-        if (ldi.getCreationDate() == null || ldi.getLastModified() == null) {
-          throw new IOException("Cannot save dilution due to missing timestamps");
-        }
-      } else {
-        ldi.setCreationDate(timeStamp);
-        ldi.setLastModified(timeStamp);
-      }
-      
-      ldi.setId(serviceManager.getDilutionDao().save(ldi));
-      log.debug("Saved library dilution " + ldi.getName());
+      saveLibraryDilution(ldi);
     }
     log.info(libraryDilutions.size() + " library dilutions migrated.");
   }
+  
+  private void saveLibraryDilution(LibraryDilution ldi) throws IOException {
+    if (replaceChangeLogs) {
+      if (ldi.getCreationDate() == null || ldi.getLastModified() == null) {
+        throw new IOException("Cannot save dilution due to missing timestamps");
+      }
+    } else {
+      ldi.setCreationDate(timeStamp);
+      ldi.setLastModified(timeStamp);
+    }
+    
+    ldi.setId(serviceManager.getDilutionDao().save(ldi));
+    log.debug("Saved library dilution " + ldi.getName());
+  }
 
   public void savePools(final Collection<Pool<LibraryDilution>> pools) throws IOException {
     log.info("Migrating pools...");
     User user = serviceManager.getAuthorizationManager().getCurrentUser();
     for (Pool<LibraryDilution> pool : pools) {
-      pool.setCreationDate(timeStamp);
-      pool.setLastModifier(user);
-      pool.setLastUpdated(timeStamp);
-      pool.setId(serviceManager.getPoolDao().save(pool));
-      log.debug("Saved pool " + pool.getAlias());
+      savePool(pool, user);
     }
     log.info(pools.size() + " pools migrated.");
   }
+  
+  private void savePool(Pool<LibraryDilution> pool, User user) throws IOException {
+    pool.setCreationDate(timeStamp);
+    pool.setLastModifier(user);
+    pool.setLastUpdated(timeStamp);
+    pool.setId(serviceManager.getPoolDao().save(pool));
+    log.debug("Saved pool " + pool.getAlias());
+  }
 
   public void saveRuns(final Collection<Run> runs) throws IOException {
     log.info("Migrating runs...");
     User user = serviceManager.getAuthorizationManager().getCurrentUser();
     for (Run run : runs) {
-      for (SequencerPartitionContainer<SequencerPoolPartition> container : run.getSequencerPartitionContainers()) {
-        container.setLastModifier(user);
-      }
-      run.setLastModifier(user);
-      run.setId(serviceManager.getRunDao().save(run));
-      log.debug("Saved run " + run.getAlias());
+      saveRun(run, user);
     }
     log.info(runs.size() + " runs migrated.");
   }
   
+  private void saveRun(Run run, User user) throws IOException {
+    for (SequencerPartitionContainer<SequencerPoolPartition> container : run.getSequencerPartitionContainers()) {
+      container.setLastModifier(user);
+    }
+    run.setLastModifier(user);
+    run.setId(serviceManager.getRunDao().save(run));
+    log.debug("Saved run " + run.getAlias());
+  }
+  
+  /**
+   * Migrates in a series of short transactions instead of one, each saving at most chunkSize entities of a single type. Each chunk
+   * gets a new Hibernate session, which is flushed and closed when the chunk commits, so the session never grows beyond one chunk.
+   * The JDBC DAOs share the session's connection (see constructor), so their writes are committed or rolled back with the chunk.
+   * <p/>
+   * The types depend on each other in order (samples on projects, libraries on samples, and so on), so they are still migrated one
+   * after another. Within a type, chunks are run in parallel on up to {@link #threads} threads only where saves do not depend on
+   * each other's generated values: samples by project, one level of the sample hierarchy at a time, and runs, whose IDs are
+   * reserved safely. Libraries, dilutions, and pools predict their own IDs, so they are saved by one thread.
+   * <p/>
+   * Each committed chunk is recorded in the {@link MigrationCheckpoint}, so if {@link #checkpointFile} is set, a migration that fails
+   * can be run again with the same source and will skip everything that was already saved.
+   */
+  private void migrateInChunks(MigrationData data) throws IOException {
+    log.info("Changes will be saved in chunks of " + chunkSize + " using " + threads + " thread(s)");
+    final User user = readInTransaction(new TransactionWork<User>() {
+      @Override
+      public User doWork() throws IOException {
+        return serviceManager.getAuthorizationManager().getCurrentUser();
+      }
+    });
+    MigrationCheckpoint checkpoint = checkpointFile == null ? MigrationCheckpoint.inMemory()
+        : MigrationCheckpoint.open(new File(checkpointFile));
+    ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    try {
+      log.info("Migrating projects...");
+      List<Project> projects = new ArrayList<>(data.getProjects());
+      EntityType<Project> projectType = new EntityType<Project>("project", "Project", "projectId") {
+        @Override
+        protected long save(Project item) throws IOException {
+          saveProject(item, user);
+          return item.getId();
+        }
+
+        @Override
+        protected void restore(Project item, SavedEntity saved) {
+          item.setId(saved.id);
+          item.setName(saved.name);
+          item.setAlias(saved.alias);
+          item.setSecurityProfile(saved.securityProfile);
+        }
+      };
+      saveChunks(projects, unsaved(projects, projectType, checkpoint), projectType, checkpoint, new AtomicBoolean());
+      log.info(projects.size() + " projects migrated.");
+
+      saveSamplesInChunks(data.getSamples(), checkpoint, executor);
+
+      log.info("Migrating libraries...");
+      List<Library> libraries = new ArrayList<>(data.getLibraries());
+      EntityType<Library> libraryType = new EntityType<Library>("library", "Library", "libraryId") {
+        @Override
+        protected long save(Library item) throws IOException {
+          saveLibrary(item, user);
+          return item.getId();
+        }
+
+        @Override
+        protected void restore(Library item, SavedEntity saved) {
+          item.setId(saved.id);
+          item.setName(saved.name);
+          item.setAlias(saved.alias);
+          item.setSecurityProfile(saved.securityProfile);
+        }
+      };
+      saveChunks(libraries, unsaved(libraries, libraryType, checkpoint), libraryType, checkpoint, new AtomicBoolean());
+      log.info(libraries.size() + " libraries migrated.");
+
+      log.info("Migrating library dilutions...");
+      List<LibraryDilution> dilutions = new ArrayList<>(data.getDilutions());
+      EntityType<LibraryDilution> dilutionType = new EntityType<LibraryDilution>("dilution", "LibraryDilution", "dilutionId") {
+        @Override
+        protected long save(LibraryDilution item) throws IOException {
+          saveLibraryDilution(item);
+          return item.getId();
+        }
+
+        @Override
+        protected void restore(LibraryDilution item, SavedEntity saved) {
+          item.setId(saved.id);
+          item.setName(saved.name);
+          item.setSecurityProfile(saved.securityProfile);
+        }
+      };
+      saveChunks(dilutions, unsaved(dilutions, dilutionType, checkpoint), dilutionType, checkpoint, new AtomicBoolean());
+      log.info(dilutions.size() + " library dilutions migrated.");
+
+      log.info("Migrating pools...");
+      List<Pool<LibraryDilution>> pools = new ArrayList<>(data.getPools());
+      EntityType<Pool<LibraryDilution>> poolType = new EntityType<Pool<LibraryDilution>>("pool", "Pool", "poolId") {
+        @Override
+        protected long save(Pool<LibraryDilution> item) throws IOException {
+          savePool(item, user);
+          return item.getId();
+        }
+
+        @Override
+        protected void restore(Pool<LibraryDilution> item, SavedEntity saved) {
+          item.setId(saved.id);
+          item.setName(saved.name);
+          item.setAlias(saved.alias);
+          item.setSecurityProfile(saved.securityProfile);
+        }
+      };
+      saveChunks(pools, unsaved(pools, poolType, checkpoint), poolType, checkpoint, new AtomicBoolean());
+      log.info(pools.size() + " pools migrated.");
+
+      log.info("Migrating runs...");
+      List<Run> runs = new ArrayList<>(data.getRuns());
+      EntityType<Run> runType = new EntityType<Run>("run", "Run", "runId") {
+        @Override
+        protected long save(Run item) throws IOException {
+          saveRun(item, user);
+          return item.getId();
+        }
+
+        @Override
+        protected void restore(Run item, SavedEntity saved) {
+          item.setId(saved.id);
+          item.setName(saved.name);
+          item.setAlias(saved.alias);
+          item.setSecurityProfile(saved.securityProfile);
+        }
+      };
+      List<Integer> unsavedRuns = unsaved(runs, runType, checkpoint);
+      List<List<Integer>> runChunks = new ArrayList<>();
+      for (int from = 0; from < unsavedRuns.size(); from += chunkSize) {
+        runChunks.add(unsavedRuns.subList(from, Math.min(from + chunkSize, unsavedRuns.size())));
+      }
+      savePartitions(runs, runChunks, runType, checkpoint, executor);
+      log.info(runs.size() + " runs migrated.");
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      checkpoint.close();
+    }
+    if (checkpointFile != null) {
+      log.info("Migration complete. Checkpoint file " + checkpointFile + " may now be deleted");
+    }
+  }
+
+  private void saveSamplesInChunks(Collection<Sample> samples, MigrationCheckpoint checkpoint, ExecutorService executor)
+      throws IOException {
+    log.info("Migrating samples...");
+    List<Sample> items = new ArrayList<>(samples);
+    // parents that the source did not list themselves are appended, so they are numbered the same way each time
+    Set<Sample> listed = Collections.newSetFromMap(new IdentityHashMap<Sample, Boolean>());
+    listed.addAll(items);
+    for (int i = 0; i < items.size(); i++) {
+      if (hasParent(items.get(i))) {
+        Sample parent = ((SampleAdditionalInfo) items.get(i)).getParent();
+        if (listed.add(parent)) {
+          items.add(parent);
+        }
+      }
+    }
+    EntityType<Sample> sampleType = new EntityType<Sample>("sample", "Sample", "sampleId") {
+      @Override
+      protected long save(Sample item) throws IOException {
+        saveSample(item);
+        return item.getId();
+      }
+
+      @Override
+      protected void restore(Sample item, SavedEntity saved) {
+        item.setId(saved.id);
+        item.setName(saved.name);
+        item.setAlias(saved.alias);
+        item.setSecurityProfile(saved.securityProfile);
+      }
+    };
+
+    // every parent is saved in an earlier level than its children, and each level is split by project because sample numbers and
+    // aliases are generated per project
+    Map<Sample, Integer> depths = new IdentityHashMap<>();
+    TreeMap<Integer, Map<Long, List<Integer>>> levels = new TreeMap<>();
+    for (Integer index : unsaved(items, sampleType, checkpoint)) {
+      Sample sample = items.get(index);
+      int depth = depthOf(sample, depths);
+      Map<Long, List<Integer>> byProject = levels.get(depth);
+      if (byProject == null) {
+        byProject = new LinkedHashMap<>();
+        levels.put(depth, byProject);
+      }
+      Long projectId = sample.getProject() == null ? null : sample.getProject().getId();
+      List<Integer> projectSamples = byProject.get(projectId);
+      if (projectSamples == null) {
+        projectSamples = new ArrayList<>();
+        byProject.put(projectId, projectSamples);
+      }
+      projectSamples.add(index);
+    }
+    for (Map.Entry<Integer, Map<Long, List<Integer>>> level : levels.entrySet()) {
+      log.debug("Migrating samples at hierarchy level " + level.getKey());
+      savePartitions(items, new ArrayList<>(level.getValue().values()), sampleType, checkpoint, executor);
+    }
+    log.info(items.size() + " samples migrated.");
+  }
+
+  private static int depthOf(Sample sample, Map<Sample, Integer> depths) {
+    Integer depth = depths.get(sample);
+    if (depth == null) {
+      depth = hasParent(sample) ? depthOf(((SampleAdditionalInfo) sample).getParent(), depths) + 1 : 0;
+      depths.put(sample, depth);
+    }
+    return depth;
+  }
+
+  /**
+   * Gives entities that were saved by a previous attempt the IDs they were saved with, along with the generated names, aliases and
+   * security profiles that the entities saved after them depend on (a child sample or library cannot inherit permissions from a
+   * parent with no profile owner)
+   * 
+   * @return the positions of the entities that still need to be saved
+   * @throws IOException if a saved entity can no longer be read
+   */
+  private <T> List<Integer> unsaved(final List<T> items, final EntityType<T> type, final MigrationCheckpoint checkpoint)
+      throws IOException {
+    final List<Integer> unsaved = new ArrayList<>();
+    final Map<Integer, Long> saved = new TreeMap<>();
+    for (int i = 0; i < items.size(); i++) {
+      Long id = checkpoint.getSavedId(type.name, i);
+      if (id == null) {
+        unsaved.add(i);
+      } else {
+        saved.put(i, id);
+      }
+    }
+    if (!saved.isEmpty()) {
+      log.info("Skipping " + saved.size() + " " + type.name + " entities saved by a previous attempt");
+      readInTransaction(new TransactionWork<Void>() {
+        @Override
+        public Void doWork() throws IOException {
+          Map<Long, SecurityProfile> profiles = new HashMap<>();
+          for (Map.Entry<Integer, Long> entry : saved.entrySet()) {
+            type.restore(items.get(entry.getKey()), loadSaved(type, entry.getValue(), profiles));
+          }
+          return null;
+        }
+      });
+    }
+    return unsaved;
+  }
+
+  /**
+   * Reads back the generated values of an entity saved by a previous attempt
+   * 
+   * @param profiles security profiles already read, by ID, as most entities share their profile with others
+   */
+  private SavedEntity loadSaved(EntityType<?> type, long id, Map<Long, SecurityProfile> profiles) throws IOException {
+    List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT * FROM " + type.table + " WHERE " + type.idColumn + " = ?", id);
+    if (rows.isEmpty()) {
+      throw new IOException("The checkpoint records " + type.name + " " + id + " as saved, but it is not in the database");
+    }
+    Map<String, Object> row = rows.get(0);
+    Number profileId = (Number) row.get("securityProfile_profileId");
+    SecurityProfile profile = null;
+    if (profileId != null) {
+      profile = profiles.get(profileId.longValue());
+      if (profile == null) {
+        profile = serviceManager.getSecurityProfileDao().get(profileId.longValue());
+        profiles.put(profileId.longValue(), profile);
+      }
+    }
+    return new SavedEntity(id, (String) row.get("name"), (String) row.get("alias"), profile);
+  }
+
+  /**
+   * Saves several partitions of entities, each in chunks, using the executor if there is one. Each partition's chunks are saved in
+   * order, but the partitions are saved in parallel, so a partition must not depend on any other.
+   */
+  private <T> void savePartitions(final List<T> items, List<List<Integer>> partitions, final EntityType<T> type,
+      final MigrationCheckpoint checkpoint, ExecutorService executor) throws IOException {
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    if (executor == null || partitions.size() < 2) {
+      for (List<Integer> partition : partitions) {
+        saveChunks(items, partition, type, checkpoint, failed);
+      }
+      return;
+    }
+    final SecurityContext securityContext = SecurityContextHolder.getContext();
+    List<Future<Void>> futures = new ArrayList<>();
+    for (final List<Integer> partition : partitions) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          SecurityContextHolder.setContext(securityContext);
+          TransactionSynchronizationManager.initSynchronization();
+          try {
+            saveChunks(items, partition, type, checkpoint, failed);
+          } catch (IOException | RuntimeException e) {
+            failed.set(true);
+            throw e;
+          } finally {
+            releaseThreadConnection();
+            SecurityContextHolder.clearContext();
+          }
+          return null;
+        }
+      }));
+    }
+    IOException failure = null;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while migrating " + type.name + " entities", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof IOException ? (IOException) e.getCause()
+              : new IOException("Failed to migrate " + type.name + " entities", e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Releases the connection that a worker thread's Hibernate sessions and JDBC DAOs shared while synchronization was active
+   */
+  private static void releaseThreadConnection() {
+    List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    for (TransactionSynchronization synchronization : synchronizations) {
+      synchronization.afterCompletion(TransactionSynchronization.STATUS_UNKNOWN);
+    }
+  }
+
+  /**
+   * Saves entities in chunks of at most chunkSize, each in its own transaction, stopping early if another partition has failed
+   */
+  private <T> void saveChunks(List<T> items, List<Integer> indices, EntityType<T> type, MigrationCheckpoint checkpoint,
+      AtomicBoolean failed) throws IOException {
+    for (int from = 0; from < indices.size() && !failed.get(); from += chunkSize) {
+      List<Integer> chunk = indices.subList(from, Math.min(from + chunkSize, indices.size()));
+      Map<Integer, Long> ids = new HashMap<>();
+      Transaction tx = sessionFactory.getCurrentSession().beginTransaction();
+      try {
+        for (Integer index : chunk) {
+          T item = items.get(index);
+          ids.put(index, type.save(item));
+        }
+        tx.commit();
+      } catch (IOException | RuntimeException e) {
+        tx.rollback();
+        throw e;
+      }
+      checkpoint.record(type.name, ids);
+      log.debug("Committed " + ids.size() + " " + type.name + " entities");
+    }
+  }
+  
   /**
    * Performs work in a transaction, rolling back after it completes
    * 
@@ -266,6 +688,57 @@ public class DefaultMigrationTarget implements MigrationTarget {
     }
   }
   
+  /**
+   * A type of entity that can be migrated in chunks
+   * 
+   * @param <T> entity type
+   */
+  private static abstract class EntityType<T> {
+    private final String name;
+    private final String table;
+    private final String idColumn;
+
+    /**
+     * @param name the name of the type in the checkpoint
+     * @param table the table that the entities are saved in
+     * @param idColumn the primary key column of the table
+     */
+    public EntityType(String name, String table, String idColumn) {
+      this.name = name;
+      this.table = table;
+      this.idColumn = idColumn;
+    }
+
+    /**
+     * Saves an entity, setting its ID
+     * 
+     * @return the ID of the saved entity
+     */
+    protected abstract long save(T item) throws IOException;
+
+    /**
+     * Restores the ID and generated values of an entity that was saved by a previous attempt
+     */
+    protected abstract void restore(T item, SavedEntity saved);
+  }
+
+  /**
+   * The values of a saved entity that are generated when it is saved, rather than given by the migration source
+   */
+  private static class SavedEntity {
+    private final long id;
+    private final String name;
+    private final String alias;
+    private final SecurityProfile securityProfile;
+
+    public SavedEntity(long id, String name, String alias, SecurityProfile securityProfile) {
+      this.id = id;
+      this.name = name;
+      this.alias = alias;
+      this.securityProfile = securityProfile;
+    }
+  }
+
   /**
    * Functional interface for work to be done in a transaction
    * 
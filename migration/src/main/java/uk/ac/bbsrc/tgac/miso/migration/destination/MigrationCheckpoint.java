@@ -0,0 +1,123 @@
+package uk.ac.bbsrc.tgac.miso.migration.destination;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Record of the entities saved by a chunked migration, so that a failed migration can be resumed rather than restarted. Each entity is
+ * identified by its type and its position in the list provided by the migration source, and the ID it was saved with is kept so that
+ * entities saved later can still refer to it. The source must therefore produce its entities in the same order each time it is run.
+ * <p/>
+ * The checkpoint file is appended to after each chunk is committed, one line per entity, so it is never left describing a chunk that
+ * was rolled back.
+ */
+public class MigrationCheckpoint {
+
+  private static final Logger log = Logger.getLogger(MigrationCheckpoint.class);
+
+  private static final String SEPARATOR = "\t";
+
+  private final Map<String, Map<Integer, Long>> savedIds = new HashMap<>();
+  private final Writer writer;
+
+  private MigrationCheckpoint(Writer writer) {
+    this.writer = writer;
+  }
+
+  /**
+   * @return a checkpoint that is kept in memory only, for migrations that are not resumable
+   */
+  public static MigrationCheckpoint inMemory() {
+    return new MigrationCheckpoint(null);
+  }
+
+  /**
+   * Opens a checkpoint file, reading the entities recorded by any previous attempt at the same migration
+   *
+   * @param file the checkpoint file, which is created if it does not exist
+   * @return the checkpoint
+   * @throws IOException if the file cannot be read or written, or is not a checkpoint file
+   */
+  public static MigrationCheckpoint open(File file) throws IOException {
+    Map<String, Map<Integer, Long>> previous = new HashMap<>();
+    if (file.exists()) {
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+          lineNumber++;
+          if (line.isEmpty()) continue;
+          String[] parts = line.split(SEPARATOR);
+          try {
+            if (parts.length != 3) throw new NumberFormatException();
+            put(previous, parts[0], Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+          } catch (NumberFormatException e) {
+            throw new IOException("Invalid checkpoint file " + file + " at line " + lineNumber);
+          }
+        }
+      }
+    }
+    MigrationCheckpoint checkpoint = new MigrationCheckpoint(
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)));
+    checkpoint.savedIds.putAll(previous);
+    for (Map.Entry<String, Map<Integer, Long>> entry : previous.entrySet()) {
+      log.info("Resuming with " + entry.getValue().size() + " " + entry.getKey() + " entities already saved");
+    }
+    return checkpoint;
+  }
+
+  private static void put(Map<String, Map<Integer, Long>> ids, String type, int index, long id) {
+    Map<Integer, Long> typeIds = ids.get(type);
+    if (typeIds == null) {
+      typeIds = new HashMap<>();
+      ids.put(type, typeIds);
+    }
+    typeIds.put(index, id);
+  }
+
+  /**
+   * @return the ID that an entity was saved with, or null if it has not been saved
+   */
+  public synchronized Long getSavedId(String type, int index) {
+    Map<Integer, Long> typeIds = savedIds.get(type);
+    return typeIds == null ? null : typeIds.get(index);
+  }
+
+  /**
+   * Records a committed chunk of entities
+   *
+   * @param type the entity type
+   * @param ids the ID of each entity, keyed by its position in the source's list
+   * @throws IOException if the checkpoint file cannot be written
+   */
+  public synchronized void record(String type, Map<Integer, Long> ids) throws IOException {
+    for (Map.Entry<Integer, Long> entry : ids.entrySet()) {
+      put(savedIds, type, entry.getKey(), entry.getValue());
+      if (writer != null) {
+        writer.write(type + SEPARATOR + entry.getKey() + SEPARATOR + entry.getValue() + "\n");
+      }
+    }
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  public synchronized void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+    }
+  }
+
+}
@@ -65,6 +65,13 @@ public class MisoTargetUtils {
   }
   
   public static SessionFactory makeSessionFactory(DataSource datasource) throws IOException {
+    return makeSessionFactory(datasource, 0);
+  }
+
+  /**
+   * @param jdbcBatchSize number of statements Hibernate may send to the database in one JDBC batch, or 0 to send them one at a time
+   */
+  public static SessionFactory makeSessionFactory(DataSource datasource, int jdbcBatchSize) throws IOException {
     LocalSessionFactoryBean bean = new LocalSessionFactoryBean();
     bean.setDataSource(datasource);
     // TODO: use setPackagesToScan instead after fixing annotations
@@ -109,6 +116,11 @@ public class MisoTargetUtils {
     properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5InnoDBDialect");
     properties.setProperty("hibernate.show_sql", "false");
     properties.setProperty("hibernate.current_session_context_class", "thread");
+    if (jdbcBatchSize > 0) {
+      properties.setProperty("hibernate.jdbc.batch_size", Integer.toString(jdbcBatchSize));
+      properties.setProperty("hibernate.order_inserts", "true");
+      properties.setProperty("hibernate.order_updates", "true");
+    }
     bean.setHibernateProperties(properties);
     bean.afterPropertiesSet();
     return bean.getObject();
@@ -0,0 +1,9 @@
+-- Reference data needed by the load generator in addition to the sqlstore test data, for benchmarking with an embedded database
+INSERT INTO `SampleClass`(`sampleClassId`, `alias`, `sampleCategory`, `createdBy`, `creationDate`, `updatedBy`, `lastUpdated`)
+VALUES (11,'Benchmark Stock','Stock',1,'2016-09-01 12:00:00',1,'2016-09-01 12:00:00'),
+(15,'Benchmark Aliquot','Aliquot',1,'2016-09-01 12:00:00',1,'2016-09-01 12:00:00');
+
+INSERT INTO `SampleValidRelationship`(`parentId`, `childId`, `createdBy`, `creationDate`, `updatedBy`, `lastUpdated`)
+VALUES (1,2,1,'2016-09-01 12:00:00',1,'2016-09-01 12:00:00'),
+(2,11,1,'2016-09-01 12:00:00',1,'2016-09-01 12:00:00'),
+(11,15,1,'2016-09-01 12:00:00',1,'2016-09-01 12:00:00');
@@ -124,6 +124,28 @@ public class MigrationPropertiesTestSuite {
     sut.getRequiredInt(SPACES_PROPERTY);
   }
   
+  @Test
+  public void testGetIntValid() {
+    assertEquals(VALID_INT_VALUE, sut.getInt(VALID_INT, 0));
+  }
+  
+  @Test
+  public void testGetIntNeedsTrimmed() {
+    assertEquals(VALID_INT_VALUE, sut.getInt(NEEDS_TRIMMED_INT, 0));
+  }
+  
+  @Test
+  public void testGetIntMissing() {
+    assertEquals(7, sut.getInt(MISSING_PROPERTY, 7));
+    assertEquals(7, sut.getInt(EMPTY_PROPERTY, 7));
+  }
+  
+  @Test
+  public void testGetIntInvalid() {
+    exception.expect(IllegalArgumentException.class);
+    sut.getInt(VALID_STRING, 0);
+  }
+  
   @Test
   public void testGetRequiredLongValid() {
     assertEquals(VALID_LONG_VALUE, sut.getRequiredLong(VALID_LONG));
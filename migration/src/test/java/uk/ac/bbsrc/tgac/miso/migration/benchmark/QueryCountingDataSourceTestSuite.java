@@ -0,0 +1,53 @@
+package uk.ac.bbsrc.tgac.miso.migration.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+public class QueryCountingDataSourceTestSuite {
+
+  private QueryCountingDataSource sut;
+
+  @Before
+  public void setUp() {
+    sut = new QueryCountingDataSource(
+        new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:queryCountingTest;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+    new JdbcTemplate(sut).execute("CREATE TABLE IF NOT EXISTS counted (id bigint)");
+  }
+
+  @Test
+  public void testCountsJdbcTemplateQueries() {
+    long before = sut.getQueryCount();
+    JdbcTemplate template = new JdbcTemplate(sut);
+    template.update("INSERT INTO counted (id) VALUES (?)", 1L);
+    template.queryForList("SELECT id FROM counted");
+    assertEquals(2, sut.getQueryCount() - before);
+  }
+
+  @Test
+  public void testCountsStatementsAndBatches() throws SQLException {
+    long before = sut.getQueryCount();
+    try (Connection connection = sut.getConnection()) {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeQuery("SELECT COUNT(*) FROM counted").close();
+      }
+      try (PreparedStatement statement = connection.prepareStatement("INSERT INTO counted (id) VALUES (?)")) {
+        for (long i = 0; i < 3; i++) {
+          statement.setLong(1, i);
+          statement.addBatch();
+        }
+        statement.executeBatch();
+      }
+    }
+    assertEquals(2, sut.getQueryCount() - before);
+  }
+
+}
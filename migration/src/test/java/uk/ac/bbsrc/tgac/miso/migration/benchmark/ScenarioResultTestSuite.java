@@ -0,0 +1,76 @@
+package uk.ac.bbsrc.tgac.miso.migration.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ScenarioResultTestSuite {
+
+  private static final double DELTA = 0.000001;
+
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  private ScenarioResult sut;
+
+  @Before
+  public void setUp() {
+    sut = new ScenarioResult("test");
+    // 1ms to 10ms, added out of order
+    for (int i : new int[] { 7, 3, 10, 1, 5, 9, 2, 8, 4, 6 }) {
+      sut.add(i * 1000000L, i);
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    assertEquals(5, sut.getLatencyPercentile(50), DELTA);
+    assertEquals(9, sut.getLatencyPercentile(90), DELTA);
+    assertEquals(10, sut.getLatencyPercentile(99), DELTA);
+    assertEquals(10, sut.getLatencyPercentile(100), DELTA);
+    assertEquals(1, sut.getLatencyPercentile(1), DELTA);
+  }
+
+  @Test
+  public void testInvalidPercentile() {
+    exception.expect(IllegalArgumentException.class);
+    sut.getLatencyPercentile(0);
+  }
+
+  @Test
+  public void testMeans() {
+    assertEquals(10, sut.getIterations());
+    assertEquals(5.5, sut.getMeanLatency(), DELTA);
+    assertEquals(5.5, sut.getMeanQueries(), DELTA);
+    assertEquals(10, sut.getMaxQueries());
+  }
+
+  @Test
+  public void testEmpty() {
+    ScenarioResult empty = new ScenarioResult("empty");
+    assertEquals(0, empty.getIterations());
+    assertEquals(0, empty.getLatencyPercentile(50), DELTA);
+    assertEquals(0, empty.getMeanLatency(), DELTA);
+    assertEquals(0, empty.getMaxQueries());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testToReport() {
+    Map<String, Object> report = sut.toReport();
+    assertEquals("test", report.get("name"));
+    assertEquals(10, report.get("iterations"));
+    Map<String, Object> latency = (Map<String, Object>) report.get("latencyMs");
+    assertEquals(1.0, latency.get("min"));
+    assertEquals(5.0, latency.get("p50"));
+    assertEquals(10.0, latency.get("max"));
+    Map<String, Object> queries = (Map<String, Object>) report.get("queries");
+    assertEquals(10L, queries.get("max"));
+  }
+
+}
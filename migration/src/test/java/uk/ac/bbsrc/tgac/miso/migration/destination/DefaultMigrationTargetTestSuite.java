@@ -0,0 +1,152 @@
+package uk.ac.bbsrc.tgac.miso.migration.destination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import uk.ac.bbsrc.tgac.miso.core.data.Library;
+import uk.ac.bbsrc.tgac.miso.core.data.Sample;
+import uk.ac.bbsrc.tgac.miso.migration.MigrationData;
+import uk.ac.bbsrc.tgac.miso.migration.MigrationProperties;
+import uk.ac.bbsrc.tgac.miso.migration.source.LoadGeneratorSource;
+
+/**
+ * Migrates generated data in chunks into an embedded database built as for the benchmark: from the schema and test data translated for
+ * H2 by the sqlstore test build, and the load generator's reference data
+ */
+public class DefaultMigrationTargetTestSuite {
+
+  private static final String[] LOCATIONS = { "filesystem:../sqlstore/target/test-classes/db/test_migration", "classpath:db/benchmark" };
+
+  private static final int PROJECTS = 2;
+  private static final int LIBRARIES = 10;
+  private static final int POOLS = 4;
+  private static final int RUNS = 2;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private DataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private MigrationProperties properties;
+  private File checkpointFile;
+
+  @Before
+  public void setUp() throws IOException {
+    BasicDataSource embedded = new BasicDataSource();
+    embedded.setDriverClassName("org.h2.Driver");
+    embedded.setUrl("jdbc:h2:mem:migrationTargetTest;MODE=MySQL;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS \"public\"");
+    Flyway flyway = new Flyway();
+    flyway.setDataSource(embedded);
+    flyway.setSqlMigrationSuffix(".test.sql");
+    flyway.setLocations(LOCATIONS);
+    flyway.migrate();
+    dataSource = embedded;
+    jdbcTemplate = new JdbcTemplate(dataSource);
+
+    checkpointFile = new File(temp.getRoot(), "checkpoint");
+    Properties props = new Properties();
+    props.setProperty("target.miso.user", "admin");
+    props.setProperty("target.chunkSize", "4");
+    props.setProperty("target.checkpointFile", checkpointFile.getAbsolutePath());
+    props.setProperty("source.load-generator.projectCount", Integer.toString(PROJECTS));
+    props.setProperty("source.load-generator.sampleCount", "40");
+    props.setProperty("source.load-generator.libraryCount", Integer.toString(LIBRARIES));
+    props.setProperty("source.load-generator.poolCount", Integer.toString(POOLS));
+    props.setProperty("source.load-generator.poolSize", "2");
+    props.setProperty("source.load-generator.runCount", Integer.toString(RUNS));
+    props.setProperty("source.load-generator.runSize", "2");
+    props.setProperty("source.load-generator.rootSampleClassId", "1");
+    props.setProperty("source.load-generator.tissueSampleClassId", "2");
+    props.setProperty("source.load-generator.stockSampleClassId", "11");
+    props.setProperty("source.load-generator.aliquotSampleClassId", "15");
+    props.setProperty("source.load-generator.tissueOriginId", "1");
+    props.setProperty("source.load-generator.tissueTypeId", "1");
+    props.setProperty("source.load-generator.libraryTypeId", "1");
+    props.setProperty("source.load-generator.librarySelectionTypeId", "1");
+    props.setProperty("source.load-generator.libraryStrategyTypeId", "1");
+    props.setProperty("source.load-generator.runSequencerId", "1");
+    props.setProperty("source.load-generator.runPlatformId", "16");
+    File propertiesFile = temp.newFile("migration.properties");
+    try (OutputStream out = new FileOutputStream(propertiesFile)) {
+      props.store(out, null);
+    }
+    properties = new MigrationProperties(propertiesFile.getAbsolutePath());
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private int count(String table) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+  }
+
+  /**
+   * @return a new target, as a rerun of the migration would create
+   */
+  private DefaultMigrationTarget newTarget() throws IOException {
+    tearDown();
+    return new DefaultMigrationTarget(properties, dataSource);
+  }
+
+  @Test
+  public void testResumeAfterFailedChunk() throws IOException {
+    int projectsBefore = count("Project");
+    int samplesBefore = count("Sample");
+    int librariesBefore = count("Library");
+    int runsBefore = count("Run");
+
+    // the first attempt commits every project and sample, then fails on the first chunk of libraries
+    MigrationData first = new LoadGeneratorSource(properties).getMigrationData();
+    first.getLibraries().iterator().next().setSample(null);
+    try {
+      newTarget().migrate(first);
+      fail("Migration with a broken library should fail");
+    } catch (IOException | RuntimeException e) {
+      // expected
+    }
+    assertEquals(projectsBefore + PROJECTS, count("Project"));
+    int samplesSaved = count("Sample") - samplesBefore;
+    assertEquals(librariesBefore, count("Library"));
+
+    // the second attempt reads the same source again, and must pick up the saved projects' and samples' permissions and names
+    MigrationData second = new LoadGeneratorSource(properties).getMigrationData();
+    newTarget().migrate(second);
+
+    assertEquals(projectsBefore + PROJECTS, count("Project"));
+    assertEquals(samplesBefore + samplesSaved, count("Sample"));
+    assertEquals(librariesBefore + LIBRARIES, count("Library"));
+    assertEquals(runsBefore + RUNS, count("Run"));
+
+    for (Sample sample : second.getSamples()) {
+      assertNotNull(sample.getSecurityProfile().getOwner());
+      assertEquals(jdbcTemplate.queryForObject("SELECT name FROM Sample WHERE sampleId = ?", String.class, sample.getId()),
+          sample.getName());
+    }
+    for (Library library : second.getLibraries()) {
+      assertEquals(library.getSample().getSecurityProfile().getProfileId(), library.getSecurityProfile().getProfileId());
+    }
+  }
+}
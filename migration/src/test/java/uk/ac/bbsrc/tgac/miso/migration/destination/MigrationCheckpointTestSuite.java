@@ -0,0 +1,103 @@
+package uk.ac.bbsrc.tgac.miso.migration.destination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class MigrationCheckpointTestSuite {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  private static Map<Integer, Long> ids(int firstIndex, long firstId, int count) {
+    Map<Integer, Long> ids = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      ids.put(firstIndex + i, firstId + i);
+    }
+    return ids;
+  }
+
+  @Test
+  public void testInMemory() throws IOException {
+    MigrationCheckpoint sut = MigrationCheckpoint.inMemory();
+    assertNull(sut.getSavedId("sample", 0));
+    sut.record("sample", ids(0, 100L, 3));
+    assertEquals(Long.valueOf(102L), sut.getSavedId("sample", 2));
+    assertNull(sut.getSavedId("sample", 3));
+    assertNull(sut.getSavedId("library", 0));
+    sut.close();
+  }
+
+  @Test
+  public void testNewFile() throws IOException {
+    File file = new File(temp.getRoot(), "checkpoint");
+    assertFalse(file.exists());
+    MigrationCheckpoint sut = MigrationCheckpoint.open(file);
+    assertNull(sut.getSavedId("project", 0));
+    sut.close();
+  }
+
+  @Test
+  public void testReopenResumesRecordedChunks() throws IOException {
+    File file = new File(temp.getRoot(), "checkpoint");
+    MigrationCheckpoint first = MigrationCheckpoint.open(file);
+    first.record("project", ids(0, 10L, 2));
+    first.record("sample", ids(0, 100L, 5));
+    first.record("sample", ids(5, 200L, 2));
+    first.close();
+
+    MigrationCheckpoint second = MigrationCheckpoint.open(file);
+    assertEquals(Long.valueOf(11L), second.getSavedId("project", 1));
+    assertEquals(Long.valueOf(104L), second.getSavedId("sample", 4));
+    assertEquals(Long.valueOf(201L), second.getSavedId("sample", 6));
+    assertNull(second.getSavedId("sample", 7));
+
+    // later chunks are appended to what was read
+    second.record("library", ids(0, 1000L, 1));
+    second.close();
+    MigrationCheckpoint third = MigrationCheckpoint.open(file);
+    assertEquals(Long.valueOf(10L), third.getSavedId("project", 0));
+    assertEquals(Long.valueOf(1000L), third.getSavedId("library", 0));
+    third.close();
+  }
+
+  @Test
+  public void testRecordedBeforeFailureIsKept() throws IOException {
+    File file = new File(temp.getRoot(), "checkpoint");
+    MigrationCheckpoint sut = MigrationCheckpoint.open(file);
+    sut.record("project", ids(0, 10L, 1));
+    // not closed, as when a migration dies: each chunk must already be on disk
+
+    MigrationCheckpoint resumed = MigrationCheckpoint.open(file);
+    assertEquals(Long.valueOf(10L), resumed.getSavedId("project", 0));
+    resumed.close();
+    sut.close();
+  }
+
+  @Test
+  public void testInvalidFile() throws IOException {
+    File file = temp.newFile("checkpoint");
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write("project\t0\t10\nproject\tone\t11\n".getBytes(StandardCharsets.UTF_8));
+    }
+    exception.expect(IOException.class);
+    exception.expectMessage("line 2");
+    MigrationCheckpoint.open(file);
+  }
+}
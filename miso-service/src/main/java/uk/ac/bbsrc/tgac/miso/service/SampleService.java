@@ -3,6 +3,7 @@ package uk.ac.bbsrc.tgac.miso.service;
 import java.io.IOException;
 import java.util.List;
 
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 
 public interface SampleService {
@@ -15,6 +16,8 @@ public interface SampleService {
 
   List<Sample> getAll() throws IOException;
 
+  KeysetPage<Sample> getAfterId(long afterId, int limit) throws IOException;
+
   List<Sample> getByPageAndSize(int page, int size, String sortCol, String sortDir) throws IOException;
 
   List<Sample> getByPageAndSizeAndSearch(int page, int size, String querystr, String sortCol, String sortDir) throws IOException;
@@ -25,4 +28,6 @@ public interface SampleService {
 
   Long countAll() throws IOException;
 
+  Long countBySearch(String querystr) throws IOException;
+
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.eaglegenomics.simlims.core.User;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Identity;
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleAdditionalInfo;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleAliquot;
@@ -33,6 +34,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.SampleTissueProcessing;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleValidRelationship;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.IdentityImpl.IdentityBuilder;
 import uk.ac.bbsrc.tgac.miso.core.exception.MisoNamingException;
+import uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction;
 import uk.ac.bbsrc.tgac.miso.core.service.naming.MisoNamingScheme;
 import uk.ac.bbsrc.tgac.miso.core.store.KitStore;
 import uk.ac.bbsrc.tgac.miso.core.store.ProjectStore;
@@ -549,11 +551,33 @@ public class DefaultSampleService implements SampleService {
     return authorizationManager.filterUnreadable(allSamples);
   }
 
+  @Override
+  public KeysetPage<Sample> getAfterId(long afterId, int limit) throws IOException {
+    ReadRestriction.restrictTo(authorizationManager.getCurrentUser());
+    try {
+      List<Sample> page = sampleDao.listAfterId(afterId, limit);
+      long lastId = page.isEmpty() ? afterId : page.get(page.size() - 1).getId();
+      return new KeysetPage<>(authorizationManager.filterUnreadable(page), page.size(), lastId);
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public Long countAll() throws IOException {
     return sampleDao.countAll();
   }
 
+  @Override
+  public Long countBySearch(String querystr) throws IOException {
+    ReadRestriction.restrictTo(authorizationManager.getCurrentUser());
+    try {
+      return sampleDao.countBySearch(querystr, ReadRestriction.getReader());
+    } finally {
+      ReadRestriction.clear();
+    }
+  }
+
   @Override
   public void delete(Long sampleId) throws IOException {
     authorizationManager.throwIfNonAdmin();
@@ -0,0 +1,407 @@
+package uk.ac.bbsrc.tgac.miso.webapp.context;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
+import uk.ac.bbsrc.tgac.miso.core.data.Nameable;
+import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+
+/**
+ * Warms the MISO caches in the background at startup, so that the webapp can serve requests while entities are still being loaded. Each
+ * entity type is loaded by its own task on a bounded pool of daemon threads, reading fixed-size chunks keyed on ID. Types whose full
+ * mappers fill a separate cache have each chunk reloaded in full with one bulk query, and types with a list cache have it filled once
+ * their entities are cached. Requests for entities that are not yet cached simply fall through to the database.
+ * <p>
+ * Each type remembers the ID it has reached, so after {@link #stop()}, or if a type fails, {@link #start()} carries on from there. The
+ * caches themselves do not outlive the webapp, so a restarted webapp warms them from the beginning.
+ */
+public class CacheWarmer {
+  protected static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+  public static final int DEFAULT_THREADS = 4;
+  public static final int DEFAULT_PAGE_SIZE = 500;
+
+  private final RequestManager requestManager;
+  private final Authentication authentication;
+  private final int threads;
+  private final int pageSize;
+
+  private final List<WarmupTask> tasks = new ArrayList<>();
+  private final Map<String, Progress> progress = new LinkedHashMap<>();
+  private final AtomicInteger remaining = new AtomicInteger();
+  private volatile long startTime;
+  private ExecutorService executor;
+
+  /**
+   * @param requestManager
+   *          the RequestManager whose caches should be warmed
+   * @param authentication
+   *          the Authentication under which the warm-up threads make their requests
+   * @param threads
+   *          the maximum number of entity types to load concurrently
+   * @param pageSize
+   *          the number of entities to read per query
+   */
+  public CacheWarmer(RequestManager requestManager, Authentication authentication, int threads, int pageSize) {
+    if (threads < 1) throw new IllegalArgumentException("Warm-up needs at least one thread");
+    if (pageSize < 1) throw new IllegalArgumentException("Warm-up page size must be positive");
+    this.requestManager = requestManager;
+    this.authentication = authentication;
+    this.threads = threads;
+    this.pageSize = pageSize;
+    registerTasks();
+    for (WarmupTask task : tasks) {
+      progress.put(task.name, new Progress(task.name));
+    }
+  }
+
+  private void registerTasks() {
+    tasks.add(new WarmupTask("projects") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listProjectsAfterId(afterId, limit);
+      }
+
+      @Override
+      protected void fillListCache() throws IOException {
+        requestManager.listAllProjects();
+      }
+    });
+    tasks.add(new WarmupTask("studies") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listStudiesAfterId(afterId, limit);
+      }
+
+      @Override
+      protected void fillListCache() throws IOException {
+        requestManager.listAllStudies();
+      }
+    });
+    tasks.add(new WarmupTask("experiments") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listExperimentsAfterId(afterId, limit);
+      }
+
+      @Override
+      protected void fillListCache() throws IOException {
+        requestManager.listAllExperiments();
+      }
+    });
+    tasks.add(new WarmupTask("samples") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listSamplesAfterId(afterId, limit);
+      }
+    });
+    tasks.add(new WarmupTask("libraries") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listLibrariesAfterId(afterId, limit);
+      }
+
+      @Override
+      protected void loadFull(List<Long> ids) throws IOException {
+        requestManager.listLibrariesByIdList(ids);
+      }
+
+      @Override
+      protected void fillListCache() throws IOException {
+        requestManager.listAllLibraries();
+      }
+    });
+    tasks.add(new WarmupTask("library dilutions") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listLibraryDilutionsAfterId(afterId, limit);
+      }
+    });
+    tasks.add(new WarmupTask("emPCR dilutions") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listEmPCRDilutionsAfterId(afterId, limit);
+      }
+    });
+    tasks.add(new WarmupTask("pools") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listPoolsAfterId(afterId, limit);
+      }
+
+      @Override
+      protected void fillListCache() throws IOException {
+        requestManager.listAllPools();
+      }
+    });
+    tasks.add(new WarmupTask("plates") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listPlatesAfterId(afterId, limit);
+      }
+    });
+    tasks.add(new WarmupTask("sequencer partition containers") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listSequencerPartitionContainersAfterId(afterId, limit);
+      }
+
+      @Override
+      protected void loadFull(List<Long> ids) throws IOException {
+        requestManager.listSequencerPartitionContainersByIdList(ids);
+      }
+
+      @Override
+      protected void fillListCache() throws IOException {
+        requestManager.listAllSequencerPartitionContainers();
+      }
+    });
+    tasks.add(new WarmupTask("runs") {
+      @Override
+      protected KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException {
+        return requestManager.listRunsAfterId(afterId, limit);
+      }
+
+      @Override
+      protected void loadFull(List<Long> ids) throws IOException {
+        requestManager.listRunsByIdList(ids);
+      }
+
+      @Override
+      protected void fillListCache() throws IOException {
+        requestManager.listAllRuns();
+      }
+    });
+  }
+
+  /**
+   * Submits every warm-up task that has not yet completed and returns immediately. Types that were stopped or failed carry on after the
+   * last ID they reached.
+   */
+  public synchronized void start() {
+    if (executor != null && remaining.get() > 0 && !executor.isTerminated()) {
+      throw new IllegalStateException("Cache warm-up is already running");
+    }
+    List<WarmupTask> pending = new ArrayList<>();
+    for (WarmupTask task : tasks) {
+      Progress p = progress.get(task.name);
+      if (!p.complete) {
+        p.failed = false;
+        p.endTime = 0;
+        pending.add(task);
+      }
+    }
+    executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "miso-cache-warmer-" + count.incrementAndGet());
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+      }
+    });
+    startTime = System.currentTimeMillis();
+    remaining.set(pending.size());
+    log.info("Warming caches for " + pending.size() + " entity types on " + threads + " threads, " + pageSize + " per page");
+    for (final WarmupTask task : pending) {
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          execute(task);
+        }
+      });
+    }
+    executor.shutdown();
+  }
+
+  /**
+   * Abandons any warm-up still in progress. Entities already loaded stay cached.
+   */
+  public synchronized void stop() {
+    if (executor != null && !executor.isTerminated()) {
+      log.info("Stopping cache warm-up");
+      executor.shutdownNow();
+      try {
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return true if every entity type submitted by the last {@link #start()} has finished loading, successfully or otherwise
+   */
+  public boolean isFinished() {
+    return executor != null && remaining.get() == 0;
+  }
+
+  /**
+   * @return the progress of each entity type, in the order they were submitted
+   */
+  public Map<String, Progress> getProgress() {
+    return Collections.unmodifiableMap(progress);
+  }
+
+  private void execute(WarmupTask task) {
+    Progress p = progress.get(task.name);
+    SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+    securityContext.setAuthentication(authentication);
+    SecurityContextHolder.setContext(securityContext);
+    if (p.startTime == 0) {
+      p.startTime = System.currentTimeMillis();
+    }
+    try {
+      task.warm(p);
+      log.info((p.complete ? "Warmed " : "Stopped warming ") + p);
+    } catch (Exception e) {
+      p.failed = true;
+      log.error("Failed to warm " + task.name + " cache after " + p.getLoaded() + " entities", e);
+    } finally {
+      p.endTime = System.currentTimeMillis();
+      SecurityContextHolder.clearContext();
+      if (remaining.decrementAndGet() == 0) {
+        log.info("Cache warm-up finished in " + (System.currentTimeMillis() - startTime) + "ms");
+      }
+    }
+  }
+
+  /**
+   * Loading and timing state for a single entity type
+   */
+  public static final class Progress {
+    private final String name;
+    private final AtomicLong loaded = new AtomicLong();
+    private volatile long total = -1;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile boolean failed;
+    private volatile boolean complete;
+    private volatile long cursor;
+
+    private Progress(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getLoaded() {
+      return loaded.get();
+    }
+
+    /**
+     * @return the number of entities loaded in all, or -1 until loading is complete
+     */
+    public long getTotal() {
+      return total;
+    }
+
+    public boolean isStarted() {
+      return startTime != 0;
+    }
+
+    public boolean isFinished() {
+      return endTime != 0;
+    }
+
+    public boolean isFailed() {
+      return failed;
+    }
+
+    /**
+     * @return true once every entity of this type has been loaded
+     */
+    public boolean isComplete() {
+      return complete;
+    }
+
+    /**
+     * @return the ID that loading has reached, from which it carries on if restarted
+     */
+    public long getCursor() {
+      return cursor;
+    }
+
+    /**
+     * @return milliseconds spent loading so far, or in total once finished
+     */
+    public long getElapsedMillis() {
+      if (startTime == 0) return 0;
+      return (endTime == 0 ? System.currentTimeMillis() : endTime) - startTime;
+    }
+
+    @Override
+    public String toString() {
+      return name + ": " + loaded.get() + (total < 0 ? "" : "/" + total) + " in " + getElapsedMillis() + "ms" + (failed ? " (failed)" : "");
+    }
+  }
+
+  /**
+   * Loads an entity type one page at a time, stopping between pages if the warm-up is interrupted. Pages are read with the lazy mappers,
+   * which only fill the lazy cache, so types with a separate full cache reload each page in full with one more query.
+   */
+  private abstract class WarmupTask {
+    protected final String name;
+
+    protected WarmupTask(String name) {
+      this.name = name;
+    }
+
+    protected abstract KeysetPage<? extends Nameable> loadPage(long afterId, int limit) throws IOException;
+
+    /**
+     * Loads the given entities through their full mappers. Does nothing unless overridden.
+     */
+    protected void loadFull(List<Long> ids) throws IOException {
+    }
+
+    /**
+     * Fills the cache of the listing of every entity of this type. Does nothing unless overridden.
+     */
+    protected void fillListCache() throws IOException {
+    }
+
+    protected void warm(Progress progress) throws IOException {
+      while (!Thread.currentThread().isInterrupted()) {
+        KeysetPage<? extends Nameable> page = loadPage(progress.cursor, pageSize);
+        if (page.isExhausted()) {
+          fillListCache();
+          progress.total = progress.loaded.get();
+          progress.complete = true;
+          return;
+        }
+        if (!page.getItems().isEmpty()) {
+          List<Long> ids = new ArrayList<>();
+          for (Nameable entity : page) {
+            ids.add(entity.getId());
+          }
+          loadFull(ids);
+          progress.loaded.addAndGet(ids.size());
+        }
+        progress.cursor = page.getLastScannedId();
+        log.debug("Warming " + progress);
+      }
+    }
+  }
+}
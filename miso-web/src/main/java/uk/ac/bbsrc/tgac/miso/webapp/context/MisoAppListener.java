@@ -25,12 +25,12 @@ package uk.ac.bbsrc.tgac.miso.webapp.context;
 
 import static uk.ac.bbsrc.tgac.miso.core.util.LimsUtils.isStringEmptyOrNull;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.naming.NamingException;
 import javax.servlet.ServletContext;
@@ -46,10 +46,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.support.nativejdbc.CommonsDbcpNativeJdbcExtractor;
 import org.springframework.jndi.JndiObjectFactoryBean;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.authority.AuthorityUtils;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.web.context.WebApplicationContext;
@@ -94,6 +91,8 @@ import uk.ac.bbsrc.tgac.miso.webapp.util.MisoWebUtils;
 public class MisoAppListener implements ServletContextListener {
   protected static final Logger log = LoggerFactory.getLogger(MisoAppListener.class);
 
+  private CacheWarmer cacheWarmer;
+
   /**
    * Called on webapp context init
    * 
@@ -234,49 +233,21 @@ public class MisoAppListener implements ServletContextListener {
     }
 
     if ("true".equals(misoProperties.get("miso.db.caching.precache.enabled"))) {
-      log.info("Precaching. This may take a while.");
-      try {
-        RequestManager rm = (RequestManager) context.getBean("requestManager");
-
-        User userdetails = new User("precacher", "none", true, true, true, true,
-            AuthorityUtils.createAuthorityList("ROLE_ADMIN,ROLE_INTERNAL"));
-        PreAuthenticatedAuthenticationToken newAuthentication = new PreAuthenticatedAuthenticationToken(userdetails,
-            userdetails.getPassword(), userdetails.getAuthorities());
-        newAuthentication.setAuthenticated(true);
-        newAuthentication.setDetails(userdetails);
-
-        try {
-          SecurityContext sc = SecurityContextHolder.getContextHolderStrategy().getContext();
-          sc.setAuthentication(newAuthentication);
-          SecurityContextHolder.getContextHolderStrategy().setContext(sc);
-        } catch (AuthenticationException a) {
-          log.error("security context init", a);
-        }
-
-        log.info("\\_ projects...");
-        log.info("" + rm.listAllProjects().size());
-        log.info("\\_ studies...");
-        log.info("" + rm.listAllStudies().size());
-        log.info("\\_ experiments...");
-        log.info("" + rm.listAllExperiments().size());
-        log.info("\\_ samples...");
-        log.info("" + rm.listAllSamples().size());
-        log.info("\\_ libraries...");
-        log.info("" + rm.listAllLibraries().size());
-        log.info("\\_ dilutions...");
-        log.info("" + rm.listAllLibraryDilutions().size());
-        log.info("" + rm.listAllEmPCRDilutions().size());
-        log.info("\\_ pools...");
-        log.info("" + rm.listAllPools().size());
-        log.info("\\_ plates...");
-        log.info("" + rm.listAllPlates().size());
-        log.info("\\_ sequencer partition containers...");
-        log.info("" + rm.listAllSequencerPartitionContainers().size());
-        log.info("\\_ runs...");
-        log.info("" + rm.listAllRuns().size());
-      } catch (IOException e) {
-        log.info("precache", e);
-      }
+      RequestManager rm = (RequestManager) context.getBean("requestManager");
+
+      User userdetails = new User("precacher", "none", true, true, true, true,
+          AuthorityUtils.createAuthorityList("ROLE_ADMIN,ROLE_INTERNAL"));
+      PreAuthenticatedAuthenticationToken newAuthentication = new PreAuthenticatedAuthenticationToken(userdetails,
+          userdetails.getPassword(), userdetails.getAuthorities());
+      newAuthentication.setAuthenticated(true);
+      newAuthentication.setDetails(userdetails);
+
+      int threads = parseIntProperty(misoProperties, "miso.db.caching.precache.threads", CacheWarmer.DEFAULT_THREADS);
+      int pageSize = parseIntProperty(misoProperties, "miso.db.caching.precache.pageSize", CacheWarmer.DEFAULT_PAGE_SIZE);
+      cacheWarmer = new CacheWarmer(rm, newAuthentication, threads, pageSize);
+      context.getBeanFactory().registerSingleton("cacheWarmer", cacheWarmer);
+      log.info("Precaching in the background.");
+      cacheWarmer.start();
     }
 
     if ("true".equals(misoProperties.get("miso.issuetracker.enabled"))) {
@@ -329,6 +300,9 @@ public class MisoAppListener implements ServletContextListener {
         context.getBeanFactory().registerSingleton("statsTransactionManager", transactionManager);
 
         RunStatsManager rsm = new RunStatsManager(template);
+        int defaultTtl = (int) TimeUnit.MILLISECONDS.toSeconds(RunStatsManager.DEFAULT_SUMMARY_CACHE_TTL);
+        int summaryCacheTtl = parseIntProperty(misoProperties, "miso.statsdb.summaryCacheTtl", defaultTtl);
+        rsm.setSummaryCacheTtl(TimeUnit.SECONDS.toMillis(Math.max(0, summaryCacheTtl)));
         context.getBeanFactory().registerSingleton("runStatsManager", rsm);
       } catch (NamingException e) {
         log.error("Cannot initiate statsdb connection", e);
@@ -346,6 +320,22 @@ public class MisoAppListener implements ServletContextListener {
   public void contextDestroyed(ServletContextEvent event) {
     ServletContext application = event.getServletContext();
     WebApplicationContext context = WebApplicationContextUtils.getRequiredWebApplicationContext(application);
+    if (cacheWarmer != null) {
+      cacheWarmer.stop();
+    }
     log.info("MISO Application Context Destroyed: " + new Date());
   }
+
+  private static int parseIntProperty(Map<String, String> misoProperties, String key, int defaultValue) {
+    String value = misoProperties.get(key);
+    if (isStringEmptyOrNull(value)) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      log.error("Invalid value '" + value + "' for " + key + ". Using " + defaultValue + ".", e);
+      return defaultValue;
+    }
+  }
 }
@@ -340,6 +340,10 @@ public class EditRunController {
         container.setLastModifier(user);
       }
       requestManager.saveRun(run);
+      if (runStatsManager != null) {
+        // the summary report lists the run's containers and partitions
+        runStatsManager.invalidateSummaryStats(run.getAlias());
+      }
       session.setComplete();
       model.clear();
       return "redirect:/miso/run/" + run.getId();
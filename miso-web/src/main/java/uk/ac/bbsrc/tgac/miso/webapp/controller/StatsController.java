@@ -46,7 +46,7 @@ import org.springframework.web.bind.annotation.SessionAttributes;
 import org.springframework.web.bind.support.SessionStatus;
 import org.springframework.web.servlet.ModelAndView;
 
-import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerReference;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerServiceRecord;
 import uk.ac.bbsrc.tgac.miso.core.data.Status;
@@ -140,7 +140,7 @@ public class StatsController {
     SequencerReference sr = requestManager.getSequencerReferenceById(referenceId);
     
     if (sr != null) {
-      Collection<Run> runs = requestManager.listRunsBySequencerId(referenceId);
+      Collection<RunSummary> runs = requestManager.listRunSummaries(referenceId, null, null);
       Collection<SequencerServiceRecord> serviceRecords = requestManager.listSequencerServiceRecordsBySequencerId(referenceId);
       Collection<SequencerReference> otherSequencers = getOtherSequencers(sr.getId());
       
@@ -34,7 +34,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.ModelAndView;
 
-import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerReference;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerServiceRecord;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
@@ -98,7 +98,7 @@ public class ViewSequencerReferenceController {
     }
     else {
       SequencerReference sr = requestManager.getSequencerReferenceById(referenceId);
-      Collection<Run> runs = requestManager.listRunsBySequencerId(referenceId);
+      Collection<RunSummary> runs = requestManager.listRunSummaries(referenceId, null, null);
       Collection<SequencerServiceRecord> serviceRecords = requestManager.listSequencerServiceRecordsBySequencerId(referenceId);
       
       if (sr != null) {
@@ -39,13 +39,10 @@ import org.springframework.web.bind.annotation.SessionAttributes;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import net.sourceforge.fluxion.ajax.util.JSONUtils;
-import uk.ac.bbsrc.tgac.miso.core.data.Experiment;
-import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
-import uk.ac.bbsrc.tgac.miso.core.data.Run;
-import uk.ac.bbsrc.tgac.miso.core.data.Sample;
-import uk.ac.bbsrc.tgac.miso.core.data.Study;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+import uk.ac.bbsrc.tgac.miso.spring.D3GraphUtils;
 import uk.ac.bbsrc.tgac.miso.webapp.controller.EditProjectController;
 
 /**
@@ -63,117 +60,13 @@ public class ProjectD3GraphController {
 
   @RequestMapping(value = "{projectId}", method = RequestMethod.GET)
   public @ResponseBody JSONObject d3graphRest(@PathVariable Long projectId) throws IOException {
-
     try {
-      Project p = requestManager.getProjectById(projectId);
-      JSONObject projectJSON = new JSONObject();
-      projectJSON.put("name", p.getName());
-      projectJSON.put("show", "PROJECT");
-      projectJSON.put("description", p.getAlias());
-      JSONArray projectChildrenArray = new JSONArray();
-      Collection<Sample> samples = requestManager.listAllSamplesByProjectId(p.getProjectId());
-      Collection<Run> runs = requestManager.listAllRunsByProjectId(p.getProjectId());
-      Collection<Study> studies = requestManager.listAllStudiesByProjectId(p.getProjectId());
-
-      JSONObject runJSON = new JSONObject();
-      JSONArray runsArray = new JSONArray();
-
-      runJSON.put("name", "Runs");
-      runJSON.put("description", "");
-      for (Run run : runs) {
-        if (run.getStatus() != null && run.getStatus().getHealth() != null && run.getStatus().getHealth().getKey().equals("Completed")) {
-          runsArray.add(JSONObject.fromObject("{'name': '" + run.getName() + "','description':'" + run.getAlias() + "','color': '1'}"));
-        } else {
-          runsArray.add(JSONObject.fromObject("{'name': '" + run.getName() + "','description':'" + run.getAlias() + "','color': '0'}"));
-        }
-      }
-      runJSON.put("children", runsArray);
-      if (runsArray.size() > 0) {
-        projectChildrenArray.add(runJSON);
+      ProjectGraph graph = requestManager.getProjectGraph(projectId);
+      if (graph == null) {
+        return JSONUtils.SimpleJSONError("Failed: no project with ID " + projectId);
       }
-
-      JSONObject studyJSON = new JSONObject();
-      JSONArray studiesArray = new JSONArray();
-
-      studyJSON.put("name", "Studies");
-      studyJSON.put("description", "");
-      for (Study study : studies) {
-
-        JSONObject substudyJSON = new JSONObject();
-        JSONArray substudiesArray = new JSONArray();
-        substudyJSON.put("name", study.getName());
-        substudyJSON.put("description", study.getAlias());
-        Collection<Experiment> experiments = requestManager.listAllExperimentsByStudyId(study.getId());
-        if (experiments.size() > 0) {
-          JSONObject experimentJSON = new JSONObject();
-          JSONArray experimentsArray = new JSONArray();
-          experimentJSON.put("name", "experiment");
-          experimentJSON.put("description", "");
-          for (Experiment e : experiments) {
-            experimentsArray
-                .add(JSONObject.fromObject("{'name': '" + e.getName() + "','description':'" + e.getAlias() + "','color': '2'}"));
-          }
-          experimentJSON.put("children", experimentsArray);
-          substudiesArray.add(experimentJSON);
-        }
-        if (substudiesArray.size() > 0) {
-          substudyJSON.put("children", substudiesArray);
-        }
-        studiesArray.add(substudyJSON);
-      }
-      studyJSON.put("children", studiesArray);
-
-      if (studiesArray.size() > 0) {
-        projectChildrenArray.add(studyJSON);
-      }
-
-      JSONObject sampleJSON = new JSONObject();
-      JSONArray samplesArray = new JSONArray();
-
-      sampleJSON.put("name", "Samples");
-      sampleJSON.put("description", "");
-      for (Sample sample : samples) {
-        Collection<Library> libraries = requestManager.listAllLibrariesBySampleId(sample.getId());
-        if (libraries.size() == 0) {
-
-          String sampleQC = "0";
-          if (sample.getQcPassed() != null) {
-            if (sample.getQcPassed()) {
-              sampleQC = "1";
-            }
-          }
-          samplesArray.add(JSONObject
-              .fromObject("{'name': '" + sample.getName() + "','description':'" + sample.getAlias() + "','color': '" + sampleQC + "'}"));
-        } else {
-          JSONObject libraryJSON = new JSONObject();
-          JSONArray librariesArray = new JSONArray();
-
-          libraryJSON.put("name", "Libraries");
-
-          for (Library library : libraries) {
-            if (library.getLibraryQCs().size() > 0) {
-              librariesArray.add(
-                  JSONObject.fromObject("{'name': '" + library.getName() + "','description':'" + library.getAlias() + "','color': '1'}"));
-            } else {
-              librariesArray.add(
-                  JSONObject.fromObject("{'name': '" + library.getName() + "','description':'" + library.getAlias() + "','color': '0'}"));
-            }
-          }
-          libraryJSON.put("children", librariesArray);
-
-          JSONObject subsampleJSON = new JSONObject();
-          subsampleJSON.put("name", sample.getName());
-          subsampleJSON.put("description", sample.getAlias());
-          subsampleJSON.put("children", librariesArray);
-          samplesArray.add(subsampleJSON);
-        }
-      }
-      sampleJSON.put("children", samplesArray);
-      if (samplesArray.size() > 0) {
-        projectChildrenArray.add(sampleJSON);
-      }
-
-      projectJSON.put("children", projectChildrenArray);
+      JSONObject projectJSON = D3GraphUtils.projectTree(graph);
+      projectJSON.put("show", "PROJECT");
       return projectJSON;
     } catch (IOException e) {
       log.debug("Failed", e);
@@ -192,7 +85,7 @@ public class ProjectD3GraphController {
 
         JSONObject projectJSON = d3graphRest(p.getProjectId());
         JSONArray projectChildrenArray = (JSONArray) projectJSON.get("children");
-        if (projectChildrenArray.size() > 0) {
+        if (projectChildrenArray != null && projectChildrenArray.size() > 0) {
           projectsArray.add(projectJSON);
         }
       }
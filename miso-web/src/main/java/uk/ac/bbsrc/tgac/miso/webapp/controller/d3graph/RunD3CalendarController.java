@@ -24,22 +24,28 @@
 package uk.ac.bbsrc.tgac.miso.webapp.controller.d3graph;
 
 import java.io.IOException;
-import java.util.Collection;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
 
-import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.SessionAttributes;
 
-import net.sf.json.JSONArray;
-import net.sf.json.JSONObject;
-import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.JsonArrayWriter;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.ObjectMappers;
 import uk.ac.bbsrc.tgac.miso.webapp.controller.EditProjectController;
 
 /**
@@ -54,25 +60,42 @@ public class RunD3CalendarController {
   @Autowired
   private RequestManager requestManager;
 
+  /**
+   * Writes a summary of every run started between the optional from and to dates (yyyy-MM-dd) for the run calendar. Values are all
+   * strings, with "null" for missing dates and "" for the fields of runs with no status, as the calendar script expects.
+   */
   @RequestMapping(method = RequestMethod.GET)
-  public @ResponseBody JSONArray graphd3Rest() throws IOException {
+  public void graphd3Rest(@RequestParam(value = "from", required = false) String from,
+      @RequestParam(value = "to", required = false) String to, HttpServletResponse response) throws IOException {
+    Date fromDate = parseDate(from);
+    Date toDate = parseDate(to);
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    JsonArrayWriter writer = new JsonArrayWriter(ObjectMappers.PLAIN, response.getOutputStream());
+    for (RunSummary r : requestManager.listRunSummaries(null, fromDate, toDate)) {
+      boolean hasStatus = r.getHealth() != null;
+      Map<String, String> run = new LinkedHashMap<>();
+      run.put("ID", String.valueOf(r.getId()));
+      run.put("Name", String.valueOf(r.getName()));
+      run.put("Start", hasStatus ? String.valueOf(r.getStartDate()) : "");
+      run.put("Stop", hasStatus ? String.valueOf(r.getCompletionDate()) : "");
+      run.put("Instrument", String.valueOf(r.getSequencerReferenceId()));
+      run.put("InstrumentName", String.valueOf(r.getInstrumentModel()));
+      run.put("Health", hasStatus ? r.getHealth().getKey() : "");
+      run.put("Description", String.valueOf(r.getDescription()));
+      writer.write(run);
+    }
+    writer.close();
+  }
+
+  private static Date parseDate(String date) throws IOException {
+    if (LimsUtils.isStringEmptyOrNull(date)) {
+      return null;
+    }
     try {
-      Collection<Run> runs = requestManager.listAllRuns();
-      JSONArray runsArray = new JSONArray();
-      for (Run r : runs) {
-        runsArray.add(JSONObject.fromObject(
-            "{'ID':'" + r.getId() + "','Name':'" + r.getName() + "','Start':'" + (r.getStatus() != null ? r.getStatus().getStartDate() : "")
-                + "','Stop':'" + (r.getStatus() != null ? r.getStatus().getCompletionDate() : "") + "','Instrument':'"
-                + r.getSequencerReference().getId() + "','InstrumentName':'" + r.getSequencerReference().getPlatform().getInstrumentModel()
-                + "','Health':'" + (r.getStatus() != null && r.getStatus().getHealth() != null ? r.getStatus().getHealth().getKey() : "")
-                + "','Description':'" + r.getDescription() + "'}"));
-      }
-      return runsArray;
-    } catch (InvalidOperationException e) {
-      log.debug("Failed", e);
-      JSONArray runsArray = new JSONArray();
-      runsArray.add(JSONObject.fromObject("{'Error':" + e + "}"));
-      return runsArray;
+      return new SimpleDateFormat("yyyy-MM-dd").parse(date);
+    } catch (ParseException e) {
+      throw new IOException("Cannot parse date: " + date, e);
     }
   }
 }
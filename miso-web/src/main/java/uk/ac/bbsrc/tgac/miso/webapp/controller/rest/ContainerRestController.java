@@ -33,7 +33,6 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,6 +49,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.Poolable;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.ObjectMappers;
 import uk.ac.bbsrc.tgac.miso.dto.ContainerDto;
 import uk.ac.bbsrc.tgac.miso.dto.DataTablesResponseDto;
 import uk.ac.bbsrc.tgac.miso.dto.Dtos;
@@ -104,8 +104,7 @@ public class ContainerRestController extends RestController {
           int ie = 0;
           for (Experiment experiment : partition.getPool().getExperiments()) {
             ie++;
-            ObjectMapper mappere = new ObjectMapper();
-            sb.append(mappere.writeValueAsString(experiment));
+            sb.append(ObjectMappers.PLAIN.writeValueAsString(experiment));
             if (ie < partition.getPool().getExperiments().size()) {
               sb.append(",");
             }
@@ -117,8 +116,7 @@ public class ContainerRestController extends RestController {
           int id = 0;
           for (Poolable poolable : partition.getPool().getPoolableElements()) {
             id++;
-            ObjectMapper mapperd = new ObjectMapper();
-            sb.append(mapperd.writeValueAsString(poolable));
+            sb.append(ObjectMappers.PLAIN.writeValueAsString(poolable));
             if (id < partition.getPool().getDilutions().size()) {
               sb.append(",");
             }
@@ -163,7 +161,7 @@ public class ContainerRestController extends RestController {
 
       if (!isStringEmptyOrNull(sSearch)) {
         containerSubset = requestManager.getContainersByPageSizeSearch(iDisplayStart, iDisplayLength, sSearch, sSortDir, sortCol);
-        numMatches = Long.valueOf(requestManager.countLibrariesBySearch(sSearch));
+        numMatches = requestManager.countContainersBySearch(sSearch);
       } else {
         containerSubset = requestManager.getContainersByPageAndSize(iDisplayStart, iDisplayLength, sSortDir, sortCol);
         numMatches = numContainers;
@@ -36,7 +36,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.Response.Status;
 
-import org.codehaus.jackson.map.ObjectMapper;
 import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,16 +55,14 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import com.eaglegenomics.simlims.core.User;
 
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.LibraryAdditionalInfo;
-import uk.ac.bbsrc.tgac.miso.core.data.Project;
-import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.TagBarcode;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
 import uk.ac.bbsrc.tgac.miso.core.service.TagBarcodeService;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.ProjectSampleRecursionAvoidanceMixin;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.SampleRecursionAvoidanceMixin;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.UserInfoMixin;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.JsonArrayWriter;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.ObjectMappers;
 import uk.ac.bbsrc.tgac.miso.dto.DataTablesResponseDto;
 import uk.ac.bbsrc.tgac.miso.dto.Dtos;
 import uk.ac.bbsrc.tgac.miso.dto.LibraryDto;
@@ -85,6 +82,8 @@ import uk.ac.bbsrc.tgac.miso.service.security.AuthorizationManager;
 public class LibraryRestController extends RestController {
   protected static final Logger log = LoggerFactory.getLogger(LibraryRestController.class);
 
+  private static final int EXPORT_PAGE_SIZE = 500;
+
   @Autowired
   private RequestManager requestManager;
 
@@ -103,25 +102,30 @@ public class LibraryRestController extends RestController {
 
   @RequestMapping(value = "{libraryId}", method = RequestMethod.GET, produces = "application/json")
   public @ResponseBody String getLibraryById(@PathVariable Long libraryId) throws IOException {
-    ObjectMapper mapper = new ObjectMapper();
     Library l = requestManager.getLibraryById(libraryId);
     if (l == null) {
       throw new RestException("No library found with ID: " + libraryId, Status.NOT_FOUND);
     }
-    mapper.getSerializationConfig().addMixInAnnotations(Project.class, ProjectSampleRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(Sample.class, SampleRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
-    return mapper.writeValueAsString(l);
+    return ObjectMappers.LIBRARY.writeValueAsString(l);
   }
 
   @RequestMapping(method = RequestMethod.GET, produces = "application/json")
-  public @ResponseBody String listAllLibraries() throws IOException {
-    Collection<Library> libraries = requestManager.listAllLibraries();
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.getSerializationConfig().addMixInAnnotations(Project.class, ProjectSampleRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(Sample.class, SampleRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
-    return mapper.writeValueAsString(libraries);
+  public void listAllLibraries(HttpServletResponse response) throws IOException {
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    // stream the libraries a page at a time, so that exporting them all does not hold them all in memory
+    JsonArrayWriter writer = new JsonArrayWriter(ObjectMappers.LIBRARY, response.getOutputStream());
+    long lastId = 0L;
+    KeysetPage<Library> page;
+    do {
+      page = requestManager.listLibrariesAfterId(lastId, EXPORT_PAGE_SIZE);
+      for (Library library : page) {
+        writer.write(library);
+      }
+      // carry on after the unreadable libraries too, which are scanned but not listed
+      lastId = page.getLastScannedId();
+    } while (!page.isExhausted());
+    writer.close();
   }
 
   private Long populateAndSaveLibraryFromDto(LibraryDto libraryDto, Library library, boolean create) throws IOException {
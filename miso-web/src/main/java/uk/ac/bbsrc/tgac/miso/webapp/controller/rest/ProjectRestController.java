@@ -31,7 +31,6 @@ import java.util.Set;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.Response.Status;
 
-import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -55,14 +54,10 @@ import uk.ac.bbsrc.tgac.miso.core.exception.MalformedLibraryException;
 import uk.ac.bbsrc.tgac.miso.core.exception.MalformedLibraryQcException;
 import uk.ac.bbsrc.tgac.miso.core.exception.MalformedSampleQcException;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.LibraryRecursionAvoidanceMixin;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.SampleProjectAvoidanceMixin;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.UserInfoMixin;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.ObjectMappers;
 import uk.ac.bbsrc.tgac.miso.service.SampleGroupService;
 import uk.ac.bbsrc.tgac.miso.webapp.controller.rest.RestException;
 
-import com.eaglegenomics.simlims.core.User;
-
 /**
  * A controller to handle all REST requests for Projects
  * 
@@ -97,7 +92,6 @@ public class ProjectRestController extends RestController {
 
   @RequestMapping(value = "{projectId}", method = RequestMethod.GET, produces = "application/json")
   public @ResponseBody String getProjectById(@PathVariable Long projectId) throws IOException {
-    ObjectMapper mapper = new ObjectMapper();
     Project project = requestManager.getProjectById(projectId);
     if (project == null) {
       throw new RestException("No project found with ID: " + projectId, Status.NOT_FOUND);
@@ -123,10 +117,7 @@ public class ProjectRestController extends RestController {
         }
       }
     }
-    mapper.getSerializationConfig().addMixInAnnotations(Sample.class, SampleProjectAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(Library.class, LibraryRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
-    return mapper.writeValueAsString(project);
+    return ObjectMappers.PROJECT.writeValueAsString(project);
   }
 
   @RequestMapping(value = "{projectId}/libraries", method = RequestMethod.GET, produces = "application/json")
@@ -150,11 +141,7 @@ public class ProjectRestController extends RestController {
       }
     }
 
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.getSerializationConfig().addMixInAnnotations(Sample.class, SampleProjectAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(Library.class, LibraryRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
-    return mapper.writeValueAsString(lp);
+    return ObjectMappers.PROJECT.writeValueAsString(lp);
   }
 
   @RequestMapping(method = RequestMethod.GET, produces = "application/json")
@@ -165,11 +152,7 @@ public class ProjectRestController extends RestController {
       p.setStudies(requestManager.listAllStudiesByProjectId(p.getProjectId()));
     }
 
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.getSerializationConfig().addMixInAnnotations(Sample.class, SampleProjectAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(Library.class, LibraryRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
-    return mapper.writeValueAsString(lp);
+    return ObjectMappers.PROJECT.writeValueAsString(lp);
   }
 
   @RequestMapping(value = "{id}/groups", method = RequestMethod.GET, produces = { "application/json" })
@@ -34,7 +34,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.Response.Status;
 
-import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,8 +55,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
 import uk.ac.bbsrc.tgac.miso.core.util.RunProcessingUtils;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.ContainerRecursionAvoidanceMixin;
-import uk.ac.bbsrc.tgac.miso.core.util.jackson.UserInfoMixin;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.ObjectMappers;
 import uk.ac.bbsrc.tgac.miso.dto.DataTablesResponseDto;
 import uk.ac.bbsrc.tgac.miso.dto.Dtos;
 import uk.ac.bbsrc.tgac.miso.dto.RunDto;
@@ -90,26 +88,20 @@ public class RunRestController {
 
   @RequestMapping(value = "{runId}", method = RequestMethod.GET, produces = "application/json")
   public @ResponseBody String getRunById(@PathVariable Long runId) throws IOException {
-    ObjectMapper mapper = new ObjectMapper();
     Run r = requestManager.getRunById(runId);
     if (r == null) {
       throw new RestException("No run found with ID: " + runId, Status.NOT_FOUND);
     }
-    mapper.getSerializationConfig().addMixInAnnotations(SequencerPartitionContainer.class, ContainerRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
-    return mapper.writeValueAsString(r);
+    return ObjectMappers.RUN.writeValueAsString(r);
   }
 
   @RequestMapping(value = "/alias/{runAlias}", method = RequestMethod.GET, produces = "application/json")
   public @ResponseBody String getRunByAlias(@PathVariable String runAlias) throws IOException {
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.getSerializationConfig().addMixInAnnotations(SequencerPartitionContainer.class, ContainerRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
     Run r = requestManager.getRunByAlias(runAlias);
     if (r == null) {
       throw new RestException("No run found with alias: " + runAlias, Status.NOT_FOUND);
     }
-    return mapper.writeValueAsString(r);
+    return ObjectMappers.RUN.writeValueAsString(r);
   }
 
   @RequestMapping(value = "{runAlias}/samplesheet", method = RequestMethod.GET)
@@ -129,10 +121,7 @@ public class RunRestController {
   @RequestMapping(method = RequestMethod.GET, produces = "application/json")
   public @ResponseBody String listAllRuns() throws IOException {
     Collection<Run> lr = requestManager.listAllRuns();
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.getSerializationConfig().addMixInAnnotations(SequencerPartitionContainer.class, ContainerRecursionAvoidanceMixin.class);
-    mapper.getSerializationConfig().addMixInAnnotations(User.class, UserInfoMixin.class);
-    return mapper.writeValueAsString(lr);
+    return ObjectMappers.RUN.writeValueAsString(lr);
   }
 
   @RequestMapping(value = "/dt", method = RequestMethod.GET, produces = "application/json")
@@ -155,7 +144,7 @@ public class RunRestController {
 
       if (!isStringEmptyOrNull(sSearch)) {
         runSubset = requestManager.getRunsByPageSizeSearch(iDisplayStart, iDisplayLength, sSearch, sSortDir, sortCol);
-        numMatches = Long.valueOf(requestManager.countLibrariesBySearch(sSearch));
+        numMatches = requestManager.countRunsBySearch(sSearch);
       } else {
         runSubset = requestManager.getRunsByPageAndSize(iDisplayStart, iDisplayLength, sSortDir, sortCol);
         numMatches = numRuns;
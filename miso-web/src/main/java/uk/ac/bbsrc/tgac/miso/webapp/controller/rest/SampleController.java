@@ -50,7 +50,10 @@ import org.springframework.web.bind.annotation.SessionAttributes;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.JsonArrayWriter;
+import uk.ac.bbsrc.tgac.miso.core.util.jackson.ObjectMappers;
 import uk.ac.bbsrc.tgac.miso.dto.DataTablesResponseDto;
 import uk.ac.bbsrc.tgac.miso.dto.Dtos;
 import uk.ac.bbsrc.tgac.miso.dto.SampleDto;
@@ -63,6 +66,8 @@ public class SampleController extends RestController {
 
   protected static final Logger log = LoggerFactory.getLogger(SampleController.class);
 
+  private static final int EXPORT_PAGE_SIZE = 500;
+
   @Autowired
   private SampleService sampleService;
 
@@ -81,15 +86,24 @@ public class SampleController extends RestController {
   }
 
   @RequestMapping(value = "/samples", method = RequestMethod.GET, produces = { "application/json" })
-  @ResponseBody
-  public List<SampleDto> getSamples(UriComponentsBuilder uriBuilder) throws IOException {
-    List<Sample> samples = sampleService.getAll();
-    // return all samples
-    List<SampleDto> sampleDtos = Dtos.asSampleDtos(samples);
-    for (SampleDto sampleDto : sampleDtos) {
-      sampleDto.writeUrls(uriBuilder);
-    }
-    return sampleDtos;
+  public void getSamples(UriComponentsBuilder uriBuilder, HttpServletResponse response) throws IOException {
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    // return all samples, streamed a page at a time so that they are never all held in memory
+    JsonArrayWriter writer = new JsonArrayWriter(ObjectMappers.PLAIN, response.getOutputStream());
+    long lastId = 0L;
+    KeysetPage<Sample> page;
+    do {
+      page = sampleService.getAfterId(lastId, EXPORT_PAGE_SIZE);
+      for (Sample sample : page) {
+        SampleDto sampleDto = Dtos.asDto(sample);
+        sampleDto.writeUrls(uriBuilder);
+        writer.write(sampleDto);
+      }
+      // carry on after the unreadable samples too, which are scanned but not listed
+      lastId = page.getLastScannedId();
+    } while (!page.isExhausted());
+    writer.close();
   }
 
   @RequestMapping(value = "/samples/dt", method = RequestMethod.GET, produces = { "application/json" })
@@ -112,7 +126,7 @@ public class SampleController extends RestController {
 
       if (!isStringEmptyOrNull(sSearch)) {
         sampleSubset = sampleService.getByPageAndSizeAndSearch(iDisplayStart, iDisplayLength, sSearch, sortCol, sSortDir);
-        numMatches = new Long(sampleService.getBySearch(sSearch).size());
+        numMatches = sampleService.countBySearch(sSearch);
       } else {
         sampleSubset = sampleService.getByPageAndSize(iDisplayStart, iDisplayLength, sortCol, sSortDir);
         numMatches = numSamples;
@@ -204,11 +204,11 @@
       'viewCacheStats',
       {'url': ajaxurl},
       {'doOnSuccess': function (json) {
-        var stats = "<b>Cache Stats:</b><br/><table class='list'><thead><tr><th>Name</th><th>Elements</th><th>Hits</th><th>Search Times</th><th>Flush</th></tr></thead><tbody>";
+        var stats = "<b>Cache Stats:</b><br/><table class='list'><thead><tr><th>Name</th><th>Elements</th><th>Hits</th><th>Misses</th><th>Evictions</th><th>List Updates</th><th>Search Times</th><th>Flush</th></tr></thead><tbody>";
         for (var key in json.caches) {
           if (json.caches.hasOwnProperty(key)) {
             var cache = json.caches[key];
-            stats += "<tr><td>" + cache.name + "</td><td>" + cache.size + "</td><td>" + cache.hits + "</td><td>" + cache.searchtimes + "</td><td><a href='#' onclick='flushCache(\"" + cache.name + "\");'>Flush</a></td></tr>";
+            stats += "<tr><td>" + cache.name + "</td><td>" + cache.size + "</td><td>" + cache.hits + "</td><td>" + cache.misses + "</td><td>" + cache.evictions + "</td><td>" + cache.listUpdates + "</td><td>" + cache.searchtimes + "</td><td><a href='#' onclick='flushCache(\"" + cache.name + "\");'>Flush</a></td></tr>";
           }
         }
         stats += "</tbody></table>";
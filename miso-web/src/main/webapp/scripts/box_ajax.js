@@ -598,7 +598,7 @@ Box.barcode = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
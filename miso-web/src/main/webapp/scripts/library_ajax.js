@@ -581,7 +581,7 @@ Library.barcode = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
@@ -637,7 +637,7 @@ Library.barcode = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
@@ -111,7 +111,7 @@ Plate.barcode = {
                  },
                  {
                    'doOnSuccess': function (json) {
-                     alert(json.response);
+                     Print.service.jobQueued(json);
                    }
                  }
                );
@@ -846,7 +846,7 @@ Pool.barcode = {
       },
       {
         'doOnSuccess':function (json) {
-          alert(json.response);
+          Print.service.jobQueued(json);
         }
       }
     );
@@ -943,7 +943,7 @@ Pool.barcode = {
                   'url':ajaxurl
                 },
                 {'doOnSuccess':function (json) {
-                    alert(json.response);
+                    Print.service.jobQueued(json);
                   }
                 }
               );
@@ -224,12 +224,48 @@ Print.service = {
       'jobId':jobId,
       'url':ajaxurl},
     {
-      'doOnSuccess': function(json) {
-        alert(json.response);
-      }
+      'doOnSuccess': Print.service.jobQueued
     });
   },
 
+  // tells the user that their print jobs are queued, then watches them so that any that fail are reported
+  jobQueued : function(json) {
+    alert(json.response);
+    if (json.jobId) {
+      Print.service.watchJob(json.jobId);
+    }
+    if (json.jobIds) {
+      for (var i = 0; i < json.jobIds.length; i++) {
+        Print.service.watchJob(json.jobIds[i]);
+      }
+    }
+  },
+
+  // polls the status of a spooled print job until it is sent, alerting if it fails
+  watchJob : function(jobId, attempt) {
+    attempt = attempt || 0;
+    if (attempt >= 60) {
+      return;
+    }
+    setTimeout(function () {
+      Fluxion.doAjax(
+      'printerControllerHelperService',
+      'getPrintJobStatus',
+      {
+        'jobId':jobId,
+        'url':ajaxurl},
+      {
+        'doOnSuccess': function(json) {
+          if (json.status === 'FAIL') {
+            alert("Print job " + jobId + " failed. Check the printer, then reprint the job from the Printers page.");
+          } else if (json.status !== 'OK') {
+            Print.service.watchJob(jobId, attempt + 1);
+          }
+        }
+      });
+    }, 2000);
+  },
+
   printCustomBarcodes: function () {
     var samples = [];
     for (var i = 0; i < arguments.length; i++) {
@@ -275,7 +311,7 @@ Print.service = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
@@ -333,7 +369,7 @@ Print.service = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
@@ -394,7 +430,7 @@ Print.service = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
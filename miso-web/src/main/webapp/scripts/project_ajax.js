@@ -1272,7 +1272,7 @@ Project.barcode = {
         },
         {
           'doOnSuccess': function (json) {
-            alert(json.response);
+            Print.service.jobQueued(json);
           }
         }
       );
@@ -1290,7 +1290,7 @@ Project.barcode = {
         },
         {
           'doOnSuccess': function (json) {
-            alert(json.response);
+            Print.service.jobQueued(json);
           }
         }
       );
@@ -1308,7 +1308,7 @@ Project.barcode = {
         },
         {
           'doOnSuccess': function (json) {
-            alert(json.response);
+            Print.service.jobQueued(json);
           }
         }
       );
@@ -1423,7 +1423,7 @@ Project.barcode = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   });
                 jQuery(this).dialog('close');
@@ -1554,7 +1554,7 @@ Project.barcode = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
@@ -1679,7 +1679,7 @@ Project.barcode = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
@@ -620,7 +620,7 @@ Sample.barcode = {
                   },
                   {
                     'doOnSuccess': function (json) {
-                      alert(json.response);
+                      Print.service.jobQueued(json);
                     }
                   }
                 );
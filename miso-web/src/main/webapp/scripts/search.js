@@ -25,27 +25,58 @@ var Search = Search || {
   dashboardSearch : function(inp, throbber) {
     var t = jQuery(inp);
     var id = t.attr('id');
-    jQuery('#' + id + 'result').html("<img src='/styles/images/ajax-loader.gif'/>");
+    // searchLibraryDilution -> libraryDilution
+    var type = id.charAt(6).toLowerCase() + id.substring(7);
+    var result = jQuery('#' + id + 'result');
+    result.html("<img src='/styles/images/ajax-loader.gif'/>");
+    Search.loadSearchPage(result, type, t.val());
+    return true;
+  },
+
+  loadSearchPage : function(result, type, str, before) {
+    var params = {'type':type, 'str':str, 'url':ajaxurl};
+    if (before) {
+      params.before = before;
+    }
     Fluxion.doAjax(
       'dashboard',
-      id,
-      {'str':t.val(), 'url':ajaxurl},
+      'searchPage',
+      params,
       {
         "doOnSuccess":
           function(json) {
-            if (throbber) {
-              jQuery('#' + id + 'result').html("");
+            if (!before) {
+              result.html("");
             }
-
-            if (!Utils.validation.isNullCheck(json.html)) {
-              jQuery('#' + id + 'result').html(json.html);
+            result.find('a.dashboardmore').remove();
+            for (var i = 0; i < json.results.length; i++) {
+              result.append(Search.renderResult(json.results[i]));
             }
-            else {
-              jQuery('#' + id + 'result').html("No matches");
+            if (!before && json.results.length == 0) {
+              result.html("No matches");
+            }
+            if (json.next) {
+              var more = jQuery('<a class="dashboardmore" href="javascript:void(0);">More...</a>');
+              more.click(function() {
+                jQuery(this).html("<img src='/styles/images/ajax-loader.gif'/>");
+                Search.loadSearchPage(result, type, json.query, json.next);
+              });
+              result.append(more);
             }
           }
       });
-    return true;
+  },
+
+  renderResult : function(r) {
+    var div = jQuery('<div class="dashboard" onMouseOver="this.className=\'dashboardhighlight\'" onMouseOut="this.className=\'dashboard\'"></div>');
+    div.append("Name: ").append(jQuery('<b></b>').text(r.name)).append('<br/>');
+    if (r.library) {
+      div.append("From Library: ").append(jQuery('<b></b>').text(r.library)).append('<br/>');
+    }
+    else {
+      div.append("Alias: ").append(jQuery('<b></b>').text(r.alias)).append('<br/>');
+    }
+    return jQuery('<a class="dashboardresult"></a>').attr('href', r.url).append(div);
   },
 
   loadAll : function() {
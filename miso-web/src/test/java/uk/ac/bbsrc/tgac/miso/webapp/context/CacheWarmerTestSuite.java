@@ -0,0 +1,197 @@
+package uk.ac.bbsrc.tgac.miso.webapp.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
+import uk.ac.bbsrc.tgac.miso.core.data.Library;
+import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.LibraryImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.RunImpl;
+import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+
+public class CacheWarmerTestSuite {
+
+  private static final int LIBRARIES = 5;
+  private static final int RUNS = 3;
+  private static final int PAGE_SIZE = 2;
+
+  private RequestManager requestManager;
+
+  /**
+   * Stubs the RequestManager with libraries numbered 1 to {@link #LIBRARIES}, runs numbered 1 to {@link #RUNS} and no other entities
+   */
+  @Before
+  public void setUp() throws Exception {
+    requestManager = mock(RequestManager.class);
+    when(requestManager.listProjectsAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listStudiesAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listExperimentsAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listSamplesAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listLibraryDilutionsAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listEmPCRDilutionsAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listPoolsAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listPlatesAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+    when(requestManager.listSequencerPartitionContainersAfterId(anyLong(), anyInt())).thenAnswer(new EmptyPage());
+
+    when(requestManager.listLibrariesAfterId(anyLong(), anyInt())).thenAnswer(new Answer<KeysetPage<Library>>() {
+      @Override
+      public KeysetPage<Library> answer(InvocationOnMock invocation) throws Throwable {
+        List<Library> page = new ArrayList<>();
+        for (long id : page(invocation, LIBRARIES)) {
+          Library library = new LibraryImpl();
+          library.setId(id);
+          page.add(library);
+        }
+        return new KeysetPage<>(page, page.isEmpty() ? (Long) invocation.getArguments()[0] : page.get(page.size() - 1).getId());
+      }
+    });
+    when(requestManager.listRunsAfterId(anyLong(), anyInt())).thenAnswer(new Answer<KeysetPage<Run>>() {
+      @Override
+      public KeysetPage<Run> answer(InvocationOnMock invocation) throws Throwable {
+        List<Run> page = new ArrayList<>();
+        for (long id : page(invocation, RUNS)) {
+          Run run = new RunImpl();
+          run.setId(id);
+          page.add(run);
+        }
+        return new KeysetPage<>(page, page.isEmpty() ? (Long) invocation.getArguments()[0] : page.get(page.size() - 1).getId());
+      }
+    });
+  }
+
+  private static class EmptyPage implements Answer<KeysetPage<?>> {
+    @Override
+    public KeysetPage<?> answer(InvocationOnMock invocation) throws Throwable {
+      return new KeysetPage<>(Collections.emptyList(), (Long) invocation.getArguments()[0]);
+    }
+  }
+
+  /**
+   * @return the IDs on the requested page of entities numbered from 1 to total
+   */
+  private static List<Long> page(InvocationOnMock invocation, int total) {
+    long afterId = (Long) invocation.getArguments()[0];
+    int limit = (Integer) invocation.getArguments()[1];
+    List<Long> ids = new ArrayList<>();
+    for (long id = afterId + 1; id <= Math.min(total, afterId + limit); id++) {
+      ids.add(id);
+    }
+    return ids;
+  }
+
+  private static void await(CacheWarmer warmer) throws InterruptedException {
+    for (int i = 0; i < 100 && !warmer.isFinished(); i++) {
+      Thread.sleep(50);
+    }
+    assertTrue(warmer.isFinished());
+  }
+
+  private CacheWarmer warm() throws InterruptedException {
+    CacheWarmer warmer = new CacheWarmer(requestManager, null, 2, PAGE_SIZE);
+    warmer.start();
+    await(warmer);
+    return warmer;
+  }
+
+  @Test
+  public void testEachPageIsLoadedInFullWithOneQuery() throws Exception {
+    CacheWarmer warmer = warm();
+
+    InOrder libraries = inOrder(requestManager);
+    libraries.verify(requestManager).listLibrariesAfterId(0L, PAGE_SIZE);
+    libraries.verify(requestManager).listLibrariesByIdList(Arrays.asList(1L, 2L));
+    libraries.verify(requestManager).listLibrariesAfterId(2L, PAGE_SIZE);
+    libraries.verify(requestManager).listLibrariesByIdList(Arrays.asList(3L, 4L));
+    libraries.verify(requestManager).listLibrariesAfterId(4L, PAGE_SIZE);
+    libraries.verify(requestManager).listLibrariesByIdList(Arrays.asList(5L));
+    libraries.verify(requestManager).listLibrariesAfterId(5L, PAGE_SIZE);
+    libraries.verify(requestManager).listAllLibraries();
+    verify(requestManager, times(3)).listLibrariesByIdList(anyListOf(Long.class));
+
+    verify(requestManager).listRunsByIdList(Arrays.asList(1L, 2L));
+    verify(requestManager).listRunsByIdList(Arrays.asList(3L));
+    verify(requestManager).listAllRuns();
+
+    verify(requestManager, never()).getLibraryById(anyLong());
+    verify(requestManager, never()).getRunById(anyLong());
+    verify(requestManager, never()).getSequencerPartitionContainerById(anyLong());
+    // an empty type needs neither a full load nor more than one page
+    verify(requestManager).listSequencerPartitionContainersAfterId(0L, PAGE_SIZE);
+    verify(requestManager, never()).listSequencerPartitionContainersByIdList(anyListOf(Long.class));
+
+    CacheWarmer.Progress progress = warmer.getProgress().get("libraries");
+    assertEquals(LIBRARIES, progress.getLoaded());
+    assertEquals(LIBRARIES, progress.getTotal());
+    assertTrue(progress.isComplete());
+    assertFalse(progress.isFailed());
+    assertEquals(RUNS, warmer.getProgress().get("runs").getLoaded());
+  }
+
+  @Test
+  public void testUnreadablePageStillAdvances() throws Exception {
+    when(requestManager.listLibrariesAfterId(0L, PAGE_SIZE))
+        .thenReturn(new KeysetPage<>(Collections.<Library> emptyList(), PAGE_SIZE, PAGE_SIZE));
+    CacheWarmer warmer = warm();
+
+    verify(requestManager).listLibrariesAfterId(2L, PAGE_SIZE);
+    verify(requestManager, never()).listLibrariesByIdList(Arrays.asList(1L, 2L));
+    assertEquals(LIBRARIES - PAGE_SIZE, warmer.getProgress().get("libraries").getLoaded());
+  }
+
+  @Test
+  public void testFailedTypeDoesNotStopOthers() throws Exception {
+    when(requestManager.listLibrariesByIdList(anyListOf(Long.class))).thenThrow(new IllegalStateException("broken"));
+    CacheWarmer warmer = warm();
+
+    assertTrue(warmer.getProgress().get("libraries").isFailed());
+    assertFalse(warmer.getProgress().get("libraries").isComplete());
+    verify(requestManager, never()).listAllLibraries();
+    assertTrue(warmer.getProgress().get("runs").isComplete());
+    verify(requestManager).listAllRuns();
+  }
+
+  @Test
+  public void testRestartCarriesOnFromTheCursor() throws Exception {
+    when(requestManager.listLibrariesByIdList(Arrays.asList(3L, 4L))).thenThrow(new IllegalStateException("broken"))
+        .thenReturn(Collections.<Library> emptyList());
+    CacheWarmer warmer = warm();
+    CacheWarmer.Progress progress = warmer.getProgress().get("libraries");
+    assertTrue(progress.isFailed());
+    assertEquals(2L, progress.getCursor());
+
+    warmer.start();
+    await(warmer);
+
+    assertTrue(progress.isComplete());
+    assertFalse(progress.isFailed());
+    assertEquals(LIBRARIES, progress.getLoaded());
+    verify(requestManager, times(1)).listLibrariesAfterId(0L, PAGE_SIZE);
+    verify(requestManager, times(2)).listLibrariesAfterId(eq(2L), anyInt());
+    // the types that completed are not warmed again
+    verify(requestManager, times(1)).listAllRuns();
+    verify(requestManager, times(1)).listRunsAfterId(0L, PAGE_SIZE);
+  }
+}
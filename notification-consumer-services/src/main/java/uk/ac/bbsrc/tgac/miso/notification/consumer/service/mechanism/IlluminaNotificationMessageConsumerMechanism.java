@@ -32,6 +32,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -90,6 +91,8 @@ public class IlluminaNotificationMessageConsumerMechanism
 
   public boolean attemptRunPopulation = true;
 
+  private final SequencerReferenceCache sequencerReferences = new SequencerReferenceCache();
+
   public void setAttemptRunPopulation(boolean attemptRunPopulation) {
     this.attemptRunPopulation = attemptRunPopulation;
   }
@@ -120,6 +123,13 @@ public class IlluminaNotificationMessageConsumerMechanism
   }
 
   private Map<String, Run> processRunJSON(HealthType ht, JSONArray runs, RequestManager requestManager) {
+    RunNotificationBatch batch;
+    try {
+      batch = RunNotificationBatch.load(requestManager, sequencerReferences, runs, "containerId");
+    } catch (IOException e) {
+      log.error("Couldn't look up the runs in this batch", e);
+      return Collections.emptyMap();
+    }
     Map<String, Run> updatedRuns = new HashMap<>();
     List<Run> runsToSave = new ArrayList<>();
     StringBuilder sb = new StringBuilder();
@@ -134,12 +144,7 @@ public class IlluminaNotificationMessageConsumerMechanism
 
       Matcher m = p.matcher(runName);
       if (m.matches()) {
-        try {
-          r = requestManager.getRunByAlias(runName);
-        } catch (IOException ioe) {
-          log.warn("Cannot find run by the alias " + runName
-              + ". This usually means the run hasn't been previously imported. If attemptRunPopulation is false, processing will not take place for this run!");
-        }
+        r = batch.getRun(runName);
       }
 
       try {
@@ -174,16 +179,16 @@ public class IlluminaNotificationMessageConsumerMechanism
 
             SequencerReference sr = null;
             if (run.has(IlluminaTransformer.JSON_SEQUENCER_NAME)) {
-              sr = requestManager.getSequencerReferenceByName(run.getString(IlluminaTransformer.JSON_SEQUENCER_NAME));
+              sr = batch.getSequencerReference(run.getString(IlluminaTransformer.JSON_SEQUENCER_NAME));
               r.getStatus().setInstrumentName(run.getString(IlluminaTransformer.JSON_SEQUENCER_NAME));
               r.setSequencerReference(sr);
             }
             if (r.getSequencerReference() == null) {
-              sr = requestManager.getSequencerReferenceByName(m.group(1));
+              sr = batch.getSequencerReference(m.group(1));
               r.setSequencerReference(sr);
             }
             if (r.getSequencerReference() == null) {
-              sr = requestManager.getSequencerReferenceByName(r.getStatus().getInstrumentName());
+              sr = batch.getSequencerReference(r.getStatus().getInstrumentName());
               r.setSequencerReference(sr);
             }
 
@@ -256,16 +261,16 @@ public class IlluminaNotificationMessageConsumerMechanism
             if (r.getSequencerReference() == null) {
               SequencerReference sr = null;
               if (run.has(IlluminaTransformer.JSON_SEQUENCER_NAME)) {
-                sr = requestManager.getSequencerReferenceByName(run.getString(IlluminaTransformer.JSON_SEQUENCER_NAME));
+                sr = batch.getSequencerReference(run.getString(IlluminaTransformer.JSON_SEQUENCER_NAME));
                 r.getStatus().setInstrumentName(run.getString(IlluminaTransformer.JSON_SEQUENCER_NAME));
                 r.setSequencerReference(sr);
               }
               if (r.getSequencerReference() == null) {
-                sr = requestManager.getSequencerReferenceByName(m.group(1));
+                sr = batch.getSequencerReference(m.group(1));
                 r.setSequencerReference(sr);
               }
               if (r.getSequencerReference() == null) {
-                sr = requestManager.getSequencerReferenceByName(r.getStatus().getInstrumentName());
+                sr = batch.getSequencerReference(r.getStatus().getInstrumentName());
                 r.setSequencerReference(sr);
               }
             }
@@ -316,8 +321,8 @@ public class IlluminaNotificationMessageConsumerMechanism
             Collection<SequencerPartitionContainer<SequencerPoolPartition>> fs = r.getSequencerPartitionContainers();
             if (fs.isEmpty()) {
               if (run.has("containerId") && !isStringEmptyOrNull(run.getString("containerId"))) {
-                Collection<SequencerPartitionContainer<SequencerPoolPartition>> pfs = requestManager
-                    .listSequencerPartitionContainersByBarcode(run.getString("containerId"));
+                Collection<SequencerPartitionContainer<SequencerPoolPartition>> pfs = batch
+                    .getContainersByBarcode(run.getString("containerId"));
                 if (!pfs.isEmpty()) {
                   if (pfs.size() == 1) {
                     SequencerPartitionContainer<SequencerPoolPartition> lf = new ArrayList<SequencerPartitionContainer<SequencerPoolPartition>>(
@@ -437,12 +442,18 @@ public class IlluminaNotificationMessageConsumerMechanism
           }
         } else {
           log.warn("\\_ Run not saved. Saving status: " + is.getRunName());
-          requestManager.saveStatus(is);
+          batch.addStatus(is);
         }
       } catch (IOException ioe) {
         log.error("Couldn't process run", ioe);
       }
     }
+    try {
+      batch.saveStatuses();
+    } catch (IOException e) {
+      log.error("Couldn't save status batch", e);
+    }
+
     try {
       if (runsToSave.size() > 0) {
         int[] saved = requestManager.saveRuns(runsToSave);
@@ -32,6 +32,7 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -86,6 +87,8 @@ public class LS454NotificationMessageConsumerMechanism
 
   public boolean attemptRunPopulation = true;
 
+  private final SequencerReferenceCache sequencerReferences = new SequencerReferenceCache();
+
   public void setAttemptRunPopulation(boolean attemptRunPopulation) {
     this.attemptRunPopulation = attemptRunPopulation;
   }
@@ -111,6 +114,13 @@ public class LS454NotificationMessageConsumerMechanism
   }
 
   private Map<String, Run> processRunJSON(HealthType ht, JSONArray runs, RequestManager requestManager) {
+    RunNotificationBatch batch;
+    try {
+      batch = RunNotificationBatch.load(requestManager, sequencerReferences, runs, null);
+    } catch (IOException e) {
+      log.error("Couldn't look up the runs in this batch", e);
+      return Collections.emptyMap();
+    }
     Map<String, Run> updatedRuns = new HashMap<String, Run>();
     List<Run> runsToSave = new ArrayList<Run>();
 
@@ -144,13 +154,8 @@ public class LS454NotificationMessageConsumerMechanism
           Run r = null;
           Matcher m = p.matcher(runName);
           if (m.matches()) {
-            try {
-              is.setInstrumentName(m.group(2));
-              r = requestManager.getRunByAlias(runName);
-            } catch (IOException ioe) {
-              log.warn(
-                  "Cannot find run by this alias. This usually means the run hasn't been previously imported. If attemptRunPopulation is false, processing will not take place for this run!");
-            }
+            is.setInstrumentName(m.group(2));
+            r = batch.getRun(runName);
           }
 
           try {
@@ -172,13 +177,13 @@ public class LS454NotificationMessageConsumerMechanism
 
                 SequencerReference sr = null;
                 if (run.has("sequencerName")) {
-                  sr = requestManager.getSequencerReferenceByName(run.getString("sequencerName"));
+                  sr = batch.getSequencerReference(run.getString("sequencerName"));
                 }
                 if (sr == null) {
-                  sr = requestManager.getSequencerReferenceByName(m.group(2));
+                  sr = batch.getSequencerReference(m.group(2));
                 }
                 if (sr == null) {
-                  sr = requestManager.getSequencerReferenceByName(r.getStatus().getInstrumentName());
+                  sr = batch.getSequencerReference(r.getStatus().getInstrumentName());
                 }
 
                 if (run.has("completionDate")) {
@@ -220,13 +225,13 @@ public class LS454NotificationMessageConsumerMechanism
                 if (r.getSequencerReference() == null) {
                   SequencerReference sr = null;
                   if (run.has("sequencerName")) {
-                    sr = requestManager.getSequencerReferenceByName(run.getString("sequencerName"));
+                    sr = batch.getSequencerReference(run.getString("sequencerName"));
                   }
                   if (sr == null) {
-                    sr = requestManager.getSequencerReferenceByName(m.group(2));
+                    sr = batch.getSequencerReference(m.group(2));
                   }
                   if (sr == null) {
-                    sr = requestManager.getSequencerReferenceByName(r.getStatus().getInstrumentName());
+                    sr = batch.getSequencerReference(r.getStatus().getInstrumentName());
                   }
 
                   if (sr != null) {
@@ -275,7 +280,7 @@ public class LS454NotificationMessageConsumerMechanism
                     Date startDate = startDateFormat.parse(startDateStr);
                     if (!startDate.equals(r.getStatus().getStartDate())) {
                       r.getStatus().setStartDate(startDate);
-                      requestManager.saveStatus(r.getStatus());
+                      batch.addStatus(r.getStatus());
                     }
 
                     List<SequencerPartitionContainer<SequencerPoolPartition>> fs = ((LS454Run) r).getSequencerPartitionContainers();
@@ -323,7 +328,7 @@ public class LS454NotificationMessageConsumerMechanism
                     Date startDate = df.parse(startDateStr);
                     if (!startDate.equals(r.getStatus().getStartDate())) {
                       r.getStatus().setStartDate(startDate);
-                      requestManager.saveStatus(r.getStatus());
+                      batch.addStatus(r.getStatus());
                     }
                   } catch (ParseException e) {
                     log.error("run JSON", e);
@@ -343,6 +348,12 @@ public class LS454NotificationMessageConsumerMechanism
       }
     }
 
+    try {
+      batch.saveStatuses();
+    } catch (IOException e) {
+      log.error("Couldn't save status batch", e);
+    }
+
     try {
       if (runsToSave.size() > 0) {
         int[] saved = requestManager.saveRuns(runsToSave);
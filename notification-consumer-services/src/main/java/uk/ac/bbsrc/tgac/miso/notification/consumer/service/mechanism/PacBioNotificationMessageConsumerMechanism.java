@@ -33,6 +33,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -81,6 +82,8 @@ public class PacBioNotificationMessageConsumerMechanism
 
   public boolean attemptRunPopulation = true;
 
+  private final SequencerReferenceCache sequencerReferences = new SequencerReferenceCache();
+
   public void setAttemptRunPopulation(boolean attemptRunPopulation) {
     this.attemptRunPopulation = attemptRunPopulation;
   }
@@ -106,6 +109,13 @@ public class PacBioNotificationMessageConsumerMechanism
   }
 
   private Map<String, Run> processRunJSON(HealthType ht, JSONArray runs, RequestManager requestManager) {
+    RunNotificationBatch batch;
+    try {
+      batch = RunNotificationBatch.load(requestManager, sequencerReferences, runs, "plateId");
+    } catch (IOException e) {
+      log.error("Couldn't look up the runs in this batch", e);
+      return Collections.emptyMap();
+    }
     Map<String, Run> updatedRuns = new HashMap<String, Run>();
     List<Run> runsToSave = new ArrayList<Run>();
 
@@ -145,12 +155,7 @@ public class PacBioNotificationMessageConsumerMechanism
 
             Matcher m = p.matcher(runName);
             if (m.matches()) {
-              try {
-                r = requestManager.getRunByAlias(runName);
-              } catch (IOException ioe) {
-                log.warn(
-                    "Cannot find run by this alias. This usually means the run hasn't been previously imported. If attemptRunPopulation is false, processing will not take place for this run!");
-              }
+              r = batch.getRun(runName);
             }
 
             if (attemptRunPopulation) {
@@ -167,7 +172,7 @@ public class PacBioNotificationMessageConsumerMechanism
 
                 SequencerReference sr = null;
                 if (run.has("sequencerName")) {
-                  sr = requestManager.getSequencerReferenceByName(run.getString("sequencerName"));
+                  sr = batch.getSequencerReference(run.getString("sequencerName"));
                 }
 
                 if (sr != null) {
@@ -206,7 +211,7 @@ public class PacBioNotificationMessageConsumerMechanism
                 if (r.getSequencerReference() == null) {
                   SequencerReference sr = null;
                   if (run.has("sequencerName")) {
-                    sr = requestManager.getSequencerReferenceByName(run.getString("sequencerName"));
+                    sr = batch.getSequencerReference(run.getString("sequencerName"));
                   }
 
                   if (sr != null) {
@@ -253,8 +258,8 @@ public class PacBioNotificationMessageConsumerMechanism
                 List<SequencerPartitionContainer<SequencerPoolPartition>> fs = ((PacBioRun) r).getSequencerPartitionContainers();
                 if (fs.isEmpty()) {
                   if (run.has("plateId") && !isStringEmptyOrNull(run.getString("plateId"))) {
-                    Collection<SequencerPartitionContainer<SequencerPoolPartition>> pfs = requestManager
-                        .listSequencerPartitionContainersByBarcode(run.getString("plateId"));
+                    Collection<SequencerPartitionContainer<SequencerPoolPartition>> pfs = batch
+                        .getContainersByBarcode(run.getString("plateId"));
                     if (!pfs.isEmpty()) {
                       if (pfs.size() == 1) {
                         SequencerPartitionContainer<SequencerPoolPartition> lf = new ArrayList<SequencerPartitionContainer<SequencerPoolPartition>>(
@@ -328,7 +333,7 @@ public class PacBioNotificationMessageConsumerMechanism
               }
             } else {
               log.warn("\\_ Run not saved. Saving status: " + is.getRunName());
-              requestManager.saveStatus(is);
+              batch.addStatus(is);
             }
           }
         } catch (IOException e) {
@@ -339,6 +344,12 @@ public class PacBioNotificationMessageConsumerMechanism
       }
     }
 
+    try {
+      batch.saveStatuses();
+    } catch (IOException e) {
+      log.error("Couldn't save status batch", e);
+    }
+
     try {
       if (runsToSave.size() > 0) {
         int[] saved = requestManager.saveRuns(runsToSave);
@@ -0,0 +1,148 @@
+package uk.ac.bbsrc.tgac.miso.notification.consumer.service.mechanism;
+
+import static uk.ac.bbsrc.tgac.miso.core.util.LimsUtils.isStringEmptyOrNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerReference;
+import uk.ac.bbsrc.tgac.miso.core.data.Status;
+import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+
+/**
+ * The existing runs and containers named in one batch of run notifications, each looked up with a single bulk query rather than one query
+ * per run, together with the statuses to be saved for runs that are not, so that those can be written in one batch. Aliases and barcodes
+ * are matched case-insensitively, as the database does.
+ */
+public class RunNotificationBatch {
+  protected static final Logger log = LoggerFactory.getLogger(RunNotificationBatch.class);
+
+  private final RequestManager requestManager;
+  private final SequencerReferenceCache sequencerReferences;
+  private final Map<String, Run> runsByAlias = new HashMap<>();
+  private final Map<String, List<SequencerPartitionContainer<SequencerPoolPartition>>> containersByBarcode = new HashMap<>();
+  private final List<Status> statuses = new ArrayList<>();
+
+  private RunNotificationBatch(RequestManager requestManager, SequencerReferenceCache sequencerReferences) {
+    this.requestManager = requestManager;
+    this.sequencerReferences = sequencerReferences;
+  }
+
+  /**
+   * Looks up the existing runs named in a batch of run notifications, and the containers with the barcodes they give
+   *
+   * @param requestManager
+   *          the RequestManager to look up with
+   * @param sequencerReferences
+   *          the sequencer references to resolve sequencer names against
+   * @param runs
+   *          the run notifications
+   * @param barcodeField
+   *          the field of each run notification that holds its container's barcode, or null if there is none
+   * @return the batch
+   * @throws IOException
+   *           if the runs or containers cannot be retrieved
+   */
+  public static RunNotificationBatch load(RequestManager requestManager, SequencerReferenceCache sequencerReferences, JSONArray runs,
+      String barcodeField) throws IOException {
+    RunNotificationBatch batch = new RunNotificationBatch(requestManager, sequencerReferences);
+    Set<String> aliases = new LinkedHashSet<>();
+    Set<String> barcodes = new LinkedHashSet<>();
+    for (JSONObject run : (Iterable<JSONObject>) runs) {
+      if (run.has("runName") && !isStringEmptyOrNull(run.getString("runName"))) {
+        aliases.add(run.getString("runName"));
+      }
+      if (barcodeField != null && run.has(barcodeField) && !isStringEmptyOrNull(run.getString(barcodeField))) {
+        barcodes.add(run.getString(barcodeField));
+      }
+    }
+    if (!aliases.isEmpty()) {
+      for (Run run : requestManager.listRunsByAliasList(new ArrayList<>(aliases))) {
+        if (run.getAlias() != null) {
+          batch.runsByAlias.put(run.getAlias().toLowerCase(), run);
+        }
+      }
+    }
+    if (!barcodes.isEmpty()) {
+      for (SequencerPartitionContainer<SequencerPoolPartition> container : requestManager
+          .listSequencerPartitionContainersByBarcodeList(new ArrayList<>(barcodes))) {
+        if (container.getIdentificationBarcode() == null) {
+          continue;
+        }
+        String key = container.getIdentificationBarcode().toLowerCase();
+        if (!batch.containersByBarcode.containsKey(key)) {
+          batch.containersByBarcode.put(key, new ArrayList<SequencerPartitionContainer<SequencerPoolPartition>>());
+        }
+        batch.containersByBarcode.get(key).add(container);
+      }
+    }
+    log.debug("Found " + batch.runsByAlias.size() + " of " + aliases.size() + " runs and containers for "
+        + batch.containersByBarcode.size() + " of " + barcodes.size() + " barcodes");
+    return batch;
+  }
+
+  /**
+   * @return the previously saved run with the given alias, or null if it has not been saved
+   */
+  public Run getRun(String alias) {
+    return alias == null ? null : runsByAlias.get(alias.toLowerCase());
+  }
+
+  /**
+   * @return the containers with the given barcode; empty if there are none
+   */
+  public Collection<SequencerPartitionContainer<SequencerPoolPartition>> getContainersByBarcode(String barcode) {
+    List<SequencerPartitionContainer<SequencerPoolPartition>> containers = barcode == null ? null
+        : containersByBarcode.get(barcode.toLowerCase());
+    if (containers == null) {
+      return Collections.emptyList();
+    }
+    return containers;
+  }
+
+  /**
+   * @return the sequencer reference with the first of the given names that matches one, or null if none do
+   */
+  public SequencerReference getSequencerReference(String... names) throws IOException {
+    for (String name : names) {
+      SequencerReference reference = sequencerReferences.get(requestManager, name);
+      if (reference != null) {
+        return reference;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Queues a status to be written by {@link #saveStatuses()}
+   */
+  public void addStatus(Status status) {
+    statuses.add(status);
+  }
+
+  /**
+   * Writes every queued status in one batch
+   */
+  public void saveStatuses() throws IOException {
+    if (!statuses.isEmpty()) {
+      requestManager.saveStatuses(statuses);
+      log.info("Batch saved " + statuses.size() + " statuses");
+      statuses.clear();
+    }
+  }
+}
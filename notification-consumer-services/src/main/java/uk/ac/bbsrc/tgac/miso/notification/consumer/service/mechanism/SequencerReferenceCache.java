@@ -0,0 +1,64 @@
+package uk.ac.bbsrc.tgac.miso.notification.consumer.service.mechanism;
+
+import static uk.ac.bbsrc.tgac.miso.core.util.LimsUtils.isStringEmptyOrNull;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerReference;
+import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+
+/**
+ * Sequencer references by name, kept between notification messages. Every reference is loaded with a single query, and the whole set is
+ * reloaded once it is older than the refresh interval, so that new and edited sequencers are picked up. Names are matched
+ * case-insensitively, as the database does.
+ */
+public class SequencerReferenceCache {
+  protected static final Logger log = LoggerFactory.getLogger(SequencerReferenceCache.class);
+
+  private static final long DEFAULT_REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+  private final long refreshInterval;
+  private Map<String, SequencerReference> byName = Collections.emptyMap();
+  private long loadedAt = 0L;
+
+  public SequencerReferenceCache() {
+    this(DEFAULT_REFRESH_INTERVAL);
+  }
+
+  /**
+   * @param refreshInterval
+   *          how long, in milliseconds, loaded references are used before they are reloaded
+   */
+  public SequencerReferenceCache(long refreshInterval) {
+    this.refreshInterval = refreshInterval;
+  }
+
+  /**
+   * @return the sequencer reference with the given name, or null if there is none or the name is empty
+   */
+  public synchronized SequencerReference get(RequestManager requestManager, String name) throws IOException {
+    if (isStringEmptyOrNull(name)) {
+      return null;
+    }
+    if (System.currentTimeMillis() - loadedAt > refreshInterval) {
+      Map<String, SequencerReference> references = new HashMap<>();
+      for (SequencerReference reference : requestManager.listAllSequencerReferences()) {
+        // a reference without a name can't be looked up
+        if (reference.getName() != null) {
+          references.put(reference.getName().toLowerCase(), reference);
+        }
+      }
+      byName = references;
+      loadedAt = System.currentTimeMillis();
+      log.debug("Loaded " + references.size() + " sequencer references");
+    }
+    return byName.get(name.toLowerCase());
+  }
+}
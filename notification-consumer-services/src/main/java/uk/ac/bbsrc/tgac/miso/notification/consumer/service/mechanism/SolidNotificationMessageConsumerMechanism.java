@@ -31,6 +31,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -76,6 +77,8 @@ public class SolidNotificationMessageConsumerMechanism
 
   public boolean attemptRunPopulation = true;
 
+  private final SequencerReferenceCache sequencerReferences = new SequencerReferenceCache();
+
   public void setAttemptRunPopulation(boolean attemptRunPopulation) {
     this.attemptRunPopulation = attemptRunPopulation;
   }
@@ -101,6 +104,13 @@ public class SolidNotificationMessageConsumerMechanism
   }
 
   private Map<String, Run> processRunJSON(HealthType ht, JSONArray runs, RequestManager requestManager) {
+    RunNotificationBatch batch;
+    try {
+      batch = RunNotificationBatch.load(requestManager, sequencerReferences, runs, "containerId");
+    } catch (IOException e) {
+      log.error("Couldn't look up the runs in this batch", e);
+      return Collections.emptyMap();
+    }
     Map<String, Run> updatedRuns = new HashMap<String, Run>();
     List<Run> runsToSave = new ArrayList<Run>();
     // 2011-01-25 15:37:27.093
@@ -124,12 +134,7 @@ public class SolidNotificationMessageConsumerMechanism
         Run r = null;
         Matcher m = p.matcher(runName);
         if (m.matches()) {
-          try {
-            r = requestManager.getRunByAlias(runName);
-          } catch (IOException ioe) {
-            log.warn(
-                "Cannot find run by this alias. This usually means the run hasn't been previously imported. If attemptRunPopulation is false, processing will not take place for this run!");
-          }
+          r = batch.getRun(runName);
         }
 
         try {
@@ -144,17 +149,17 @@ public class SolidNotificationMessageConsumerMechanism
 
               SequencerReference sr = null;
               if (run.has("sequencerName")) {
-                sr = requestManager.getSequencerReferenceByName(run.getString("sequencerName"));
+                sr = batch.getSequencerReference(run.getString("sequencerName"));
                 r.getStatus().setInstrumentName(run.getString("sequencerName"));
                 r.setSequencerReference(sr);
               }
               if (r.getSequencerReference() == null) {
-                sr = requestManager.getSequencerReferenceByName(m.group(1));
+                sr = batch.getSequencerReference(m.group(1));
                 r.getStatus().setInstrumentName(m.group(1));
                 r.setSequencerReference(sr);
               }
               if (r.getSequencerReference() == null) {
-                sr = requestManager.getSequencerReferenceByName(r.getStatus().getInstrumentName());
+                sr = batch.getSequencerReference(r.getStatus().getInstrumentName());
                 r.setSequencerReference(sr);
               }
 
@@ -196,17 +201,17 @@ public class SolidNotificationMessageConsumerMechanism
               if (r.getSequencerReference() == null) {
                 SequencerReference sr = null;
                 if (run.has("sequencerName")) {
-                  sr = requestManager.getSequencerReferenceByName(run.getString("sequencerName"));
+                  sr = batch.getSequencerReference(run.getString("sequencerName"));
                   r.getStatus().setInstrumentName(run.getString("sequencerName"));
                   r.setSequencerReference(sr);
                 }
                 if (r.getSequencerReference() == null) {
-                  sr = requestManager.getSequencerReferenceByName(m.group(1));
+                  sr = batch.getSequencerReference(m.group(1));
                   r.getStatus().setInstrumentName(m.group(1));
                   r.setSequencerReference(sr);
                 }
                 if (r.getSequencerReference() == null) {
-                  sr = requestManager.getSequencerReferenceByName(r.getStatus().getInstrumentName());
+                  sr = batch.getSequencerReference(r.getStatus().getInstrumentName());
                   r.setSequencerReference(sr);
                 }
               }
@@ -261,8 +266,8 @@ public class SolidNotificationMessageConsumerMechanism
               List<SequencerPartitionContainer<SequencerPoolPartition>> fs = ((SolidRun) r).getSequencerPartitionContainers();
               if (fs.isEmpty()) {
                 if (run.has("containerId") && !isStringEmptyOrNull(run.getString("containerId"))) {
-                  Collection<SequencerPartitionContainer<SequencerPoolPartition>> pfs = requestManager
-                      .listSequencerPartitionContainersByBarcode(run.getString("containerId"));
+                  Collection<SequencerPartitionContainer<SequencerPoolPartition>> pfs = batch
+                      .getContainersByBarcode(run.getString("containerId"));
                   if (!pfs.isEmpty()) {
                     if (pfs.size() == 1) {
                       SequencerPartitionContainer lf = new ArrayList<SequencerPartitionContainer<SequencerPoolPartition>>(pfs).get(0);
@@ -316,6 +321,12 @@ public class SolidNotificationMessageConsumerMechanism
       }
     }
 
+    try {
+      batch.saveStatuses();
+    } catch (IOException e) {
+      log.error("Couldn't save status batch", e);
+    }
+
     try {
       if (runsToSave.size() > 0) {
         int[] saved = requestManager.saveRuns(runsToSave);
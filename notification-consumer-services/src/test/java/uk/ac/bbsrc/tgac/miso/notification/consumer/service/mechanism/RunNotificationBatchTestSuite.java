@@ -0,0 +1,162 @@
+package uk.ac.bbsrc.tgac.miso.notification.consumer.service.mechanism;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import net.sf.json.JSONArray;
+import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerReference;
+import uk.ac.bbsrc.tgac.miso.core.data.Status;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.RunImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.SequencerPartitionContainerImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.SequencerReferenceImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.StatusImpl;
+import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+
+public class RunNotificationBatchTestSuite {
+
+  private static final JSONArray RUNS = JSONArray.fromObject("["
+      + "{\"runName\":\"150101_SN100_0001_AC0000ACXX\",\"containerId\":\"C0000ACXX\"},"
+      + "{\"runName\":\"150102_SN100_0002_BC0001ACXX\",\"containerId\":\"C0001ACXX\"},"
+      + "{\"runName\":\"150101_SN100_0001_AC0000ACXX\",\"containerId\":\"C0000ACXX\"},"
+      + "{\"runName\":\"\"}"
+      + "]");
+
+  private RequestManager requestManager;
+  private SequencerReference first;
+  private SequencerReference second;
+
+  @Before
+  public void setUp() throws Exception {
+    requestManager = mock(RequestManager.class);
+    when(requestManager.listRunsByAliasList(anyListOf(String.class))).thenReturn(Arrays.asList(run("150101_sn100_0001_ac0000acxx")));
+    List<SequencerPartitionContainer<SequencerPoolPartition>> containers = new ArrayList<>();
+    containers.add(container("c0000acxx"));
+    containers.add(container("C0000ACXX"));
+    containers.add(container(null));
+    when(requestManager.listSequencerPartitionContainersByBarcodeList(anyListOf(String.class))).thenReturn(containers);
+
+    first = new SequencerReferenceImpl("SN100", null, null);
+    second = new SequencerReferenceImpl("sn200", null, null);
+    SequencerReference unnamed = new SequencerReferenceImpl(null, null, null);
+    when(requestManager.listAllSequencerReferences()).thenReturn(Arrays.asList(first, unnamed, second));
+  }
+
+  private static Run run(String alias) {
+    Run run = new RunImpl();
+    run.setAlias(alias);
+    return run;
+  }
+
+  private static SequencerPartitionContainer<SequencerPoolPartition> container(String barcode) {
+    SequencerPartitionContainer<SequencerPoolPartition> container = new SequencerPartitionContainerImpl();
+    container.setIdentificationBarcode(barcode);
+    return container;
+  }
+
+  private RunNotificationBatch load() throws Exception {
+    return RunNotificationBatch.load(requestManager, new SequencerReferenceCache(), RUNS, "containerId");
+  }
+
+  @Test
+  public void testOneQueryPerMessage() throws Exception {
+    load();
+    verify(requestManager, times(1)).listRunsByAliasList(Arrays.asList("150101_SN100_0001_AC0000ACXX", "150102_SN100_0002_BC0001ACXX"));
+    verify(requestManager, times(1)).listSequencerPartitionContainersByBarcodeList(Arrays.asList("C0000ACXX", "C0001ACXX"));
+  }
+
+  @Test
+  public void testNoQueryWithoutNames() throws Exception {
+    RunNotificationBatch.load(requestManager, new SequencerReferenceCache(), JSONArray.fromObject("[{\"runName\":\"\"}]"), null);
+    verify(requestManager, never()).listRunsByAliasList(anyListOf(String.class));
+    verify(requestManager, never()).listSequencerPartitionContainersByBarcodeList(anyListOf(String.class));
+  }
+
+  @Test
+  public void testAliasAndBarcodeMatchIgnoreCase() throws Exception {
+    RunNotificationBatch batch = load();
+    assertEquals("150101_sn100_0001_ac0000acxx", batch.getRun("150101_SN100_0001_AC0000ACXX").getAlias());
+    assertNull(batch.getRun("150102_SN100_0002_BC0001ACXX"));
+    assertNull(batch.getRun(null));
+
+    assertEquals(2, batch.getContainersByBarcode("C0000acxx").size());
+    assertTrue(batch.getContainersByBarcode("C0001ACXX").isEmpty());
+    assertTrue(batch.getContainersByBarcode(null).isEmpty());
+  }
+
+  @Test
+  public void testSequencerNamesAreTriedInOrder() throws Exception {
+    RunNotificationBatch batch = load();
+    assertSame(first, batch.getSequencerReference("sn100", "SN200"));
+    assertSame(second, batch.getSequencerReference(null, "SN999", "SN200", "SN100"));
+    assertSame(second, batch.getSequencerReference("", null, "Sn200"));
+    assertNull(batch.getSequencerReference(null, "SN999", ""));
+    // every lookup is answered from the one load
+    verify(requestManager, times(1)).listAllSequencerReferences();
+  }
+
+  @Test
+  public void testStatusesAreSavedInOneBatch() throws Exception {
+    final List<Integer> saved = new ArrayList<>();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        saved.add(((Collection<?>) invocation.getArguments()[0]).size());
+        return null;
+      }
+    }).when(requestManager).saveStatuses(anyCollectionOf(Status.class));
+    RunNotificationBatch batch = load();
+
+    batch.saveStatuses();
+    batch.addStatus(new StatusImpl("150101_SN100_0001_AC0000ACXX"));
+    batch.addStatus(new StatusImpl("150102_SN100_0002_BC0001ACXX"));
+    batch.saveStatuses();
+    batch.saveStatuses();
+    assertEquals(Arrays.asList(2), saved);
+  }
+
+  @Test
+  public void testCacheIsReloadedAfterInterval() throws Exception {
+    SequencerReferenceCache cache = new SequencerReferenceCache(500L);
+    assertSame(first, cache.get(requestManager, "SN100"));
+    assertSame(first, cache.get(requestManager, "SN100"));
+    verify(requestManager, times(1)).listAllSequencerReferences();
+
+    SequencerReference added = new SequencerReferenceImpl("SN300", null, null);
+    when(requestManager.listAllSequencerReferences()).thenReturn(Arrays.asList(first, second, added));
+    assertNull(cache.get(requestManager, "SN300"));
+    Thread.sleep(600L);
+    assertSame(added, cache.get(requestManager, "SN300"));
+    verify(requestManager, times(2)).listAllSequencerReferences();
+  }
+
+  @Test
+  public void testEmptyNamesAreNotLookedUp() throws Exception {
+    SequencerReferenceCache cache = new SequencerReferenceCache();
+    assertNull(cache.get(requestManager, null));
+    assertNull(cache.get(requestManager, ""));
+    verify(requestManager, never()).listAllSequencerReferences();
+  }
+}
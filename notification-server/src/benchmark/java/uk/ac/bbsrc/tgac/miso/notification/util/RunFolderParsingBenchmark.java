@@ -0,0 +1,103 @@
+package uk.ac.bbsrc.tgac.miso.notification.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
+import uk.ac.bbsrc.tgac.miso.core.util.SubmissionUtils;
+
+/**
+ * Compares the DOM-based and streaming ways of reading the Illumina run folder files that the notification server polls. The "dom"
+ * benchmarks reproduce what IlluminaTransformer did before it switched to {@link XmlFields}.
+ * <p/>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec</code> from the notification-server directory. Point <code>runFolder</code> at a
+ * real run folder with <code>-Dbenchmark.args="-p runFolder=/path/to/run"</code> for representative numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RunFolderParsingBenchmark {
+
+  private static final String[] RUN_FILES = { "/RunInfo.xml", "/runParameters.xml", "/Data/reports/Status.xml" };
+  private static final String[] FIELDS = { "RunName", "NumCycles", "Instrument", "FlowcellId", "FlowcellLayout", "Reads/Read", "ScannerID",
+      "Barcode", "ReagentKits/ID" };
+  private static final String CYCLE_TIMES = "/Logs/CycleTimes.txt";
+  private static final Pattern END_IMAGING = Pattern
+      .compile("(\\d{1,2}\\/\\d{1,2}\\/\\d{4})\\s+(\\d{2}:\\d{2}:\\d{2})\\.\\d{3}\\s+[A-z0-9]+\\s+\\d+\\s+End\\s{1}Imaging");
+
+  @Param({ "src/test/resources/runs/111110_h1080_0084_AC08UPACXX_raw", "src/test/resources/runs/111110_h1080_0084_AC08UPACXX_gzip" })
+  public String runFolder;
+
+  private File rootFile;
+
+  @Setup
+  public void setUp() {
+    rootFile = new File(runFolder);
+    if (!rootFile.isDirectory()) {
+      throw new IllegalArgumentException("Not a run folder: " + rootFile.getAbsolutePath());
+    }
+  }
+
+  @Benchmark
+  public void domXml(Blackhole bh) throws ParserConfigurationException, TransformerException, IOException {
+    for (String path : RUN_FILES) {
+      Document doc = PossiblyGzippedFileUtils.getXmlDocument(rootFile, path);
+      if (doc != null) {
+        bh.consume(SubmissionUtils.transform(doc));
+        for (String field : FIELDS) {
+          String name = field.substring(field.indexOf('/') + 1);
+          if (doc.getElementsByTagName(name).getLength() != 0) {
+            bh.consume(doc.getElementsByTagName(name).item(0).getTextContent());
+          }
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void streamingXml(Blackhole bh) throws IOException {
+    for (String path : RUN_FILES) {
+      XmlFields xml = PossiblyGzippedFileUtils.getXmlFields(rootFile, path, FIELDS);
+      if (xml != null) {
+        bh.consume(xml.getXml());
+        for (String field : FIELDS) {
+          bh.consume(xml.getText(field));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public Matcher mappedTailGrep() throws IOException {
+    File log = new File(rootFile, CYCLE_TIMES);
+    return log.exists() ? LimsUtils.tailGrep(log, END_IMAGING, 10) : null;
+  }
+
+  @Benchmark
+  public Matcher reverseTailGrep() throws IOException {
+    return PossiblyGzippedFileUtils.tailGrep(rootFile, CYCLE_TIMES, END_IMAGING, 10);
+  }
+}
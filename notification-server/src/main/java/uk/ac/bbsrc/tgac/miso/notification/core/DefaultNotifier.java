@@ -39,6 +39,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.http.HttpMethod;
 import org.springframework.integration.Message;
@@ -53,7 +54,6 @@ import org.springframework.integration.http.outbound.HttpRequestExecutingMessage
 import org.springframework.integration.http.support.DefaultHttpHeaderMapper;
 import org.springframework.integration.ip.tcp.TcpOutboundGateway;
 import org.springframework.integration.ip.tcp.connection.TcpNetClientConnectionFactory;
-import org.springframework.integration.splitter.MethodInvokingSplitter;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.integration.transformer.HeaderEnricher;
@@ -63,8 +63,10 @@ import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
 import uk.ac.bbsrc.tgac.miso.core.service.integration.ws.pacbio.PacBioServiceWrapper;
 import uk.ac.bbsrc.tgac.miso.core.service.integration.ws.solid.SolidServiceWrapper;
 import uk.ac.bbsrc.tgac.miso.notification.manager.NotificationRequestManager;
+import uk.ac.bbsrc.tgac.miso.notification.util.DeltaNotificationHandler;
 import uk.ac.bbsrc.tgac.miso.notification.util.NotificationMessageEnricher;
 import uk.ac.bbsrc.tgac.miso.notification.util.NotificationUtils;
+import uk.ac.bbsrc.tgac.miso.notification.util.RunStatusTracker;
 import uk.ac.bbsrc.tgac.miso.tools.run.MultiFileQueueMessageSource;
 import uk.ac.bbsrc.tgac.miso.tools.run.RunFolderScanner;
 
@@ -83,6 +85,7 @@ public class DefaultNotifier {
   public static void main(String[] args) {
     log.info("Starting notification system...");
     ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("/notification.xml");
+    context.registerShutdownHook();
 
     ChannelResolver channelResolver = new BeanFactoryChannelResolver(context);
     NotificationUtils notificationUtils = new NotificationUtils();
@@ -140,6 +143,12 @@ public class DefaultNotifier {
           }
 
           RunFolderScanner rfs = (RunFolderScanner) context.getBean(platformType + "StatusRecursiveScanner");
+          if (props.containsKey(platformType + ".scanQuietPeriod")) {
+            rfs.setQuietPeriod(Long.parseLong(props.getProperty(platformType + ".scanQuietPeriod")));
+          }
+          if (props.containsKey(platformType + ".scanStateFile")) {
+            rfs.setStateFile(new File(props.getProperty(platformType + ".scanStateFile")));
+          }
 
           MultiFileQueueMessageSource mfqms = new MultiFileQueueMessageSource();
           mfqms.setBeanName(platformType + "MultiFileQueueMessageSource");
@@ -149,7 +158,13 @@ public class DefaultNotifier {
           mfqms.setDirectories(paths);
           // make sure all the directories are rescanned each poll
           mfqms.setScanEachPoll(false);
+          if (props.containsKey(platformType + ".scanThreads")) {
+            mfqms.setScanThreads(Integer.parseInt(props.getProperty(platformType + ".scanThreads")));
+          }
           mfqms.afterPropertiesSet();
+          // stop the scanning threads when the context is closed
+          ((DefaultListableBeanFactory) context.getBeanFactory()).registerDisposableBean(platformType + "MultiFileQueueMessageSource",
+              mfqms);
 
           SourcePollingChannelAdapter spca = new SourcePollingChannelAdapter();
           spca.setBeanName(platformType + "StatusFileSource");
@@ -203,15 +218,16 @@ public class DefaultNotifier {
           if (props.containsKey(platformType + ".http.statusEndpointURIs")) {
             log.debug("Resolving " + platformType + ".http.statusEndpointURIs ...");
             String statusEndpointURIs = props.getProperty(platformType + ".http.statusEndpointURIs");
-            for (String uri : statusEndpointURIs.split(",")) {
-              // split into multiple messages
-              MethodInvokingSplitter mis = new MethodInvokingSplitter(notificationUtils, "splitMessage");
-              mis.setBeanName(platformType + "Splitter");
-              mis.setBeanFactory(context.getBeanFactory());
-              mis.setChannelResolver(channelResolver);
-              mis.setOutputChannel(signChannel);
-              splitterChannel.subscribe(mis);
 
+            // send only the runs that have changed since they were last accepted, split into multiple messages
+            RunStatusTracker tracker = new RunStatusTracker();
+            if (props.containsKey(platformType + ".deltaStateFile")) {
+              tracker.setStateFile(new File(props.getProperty(platformType + ".deltaStateFile")));
+            }
+            context.getBeanFactory().registerSingleton(platformType + "RunStatusTracker", tracker);
+            splitterChannel.subscribe(new DeltaNotificationHandler(tracker, notificationUtils, signChannel));
+
+            for (String uri : statusEndpointURIs.split(",")) {
               // sign messages and inject url into message headers via HeaderEnricher
               Map<String, SignedHeaderValueMessageProcessor<String>> urlHeaderToSign = new HashMap<String, SignedHeaderValueMessageProcessor<String>>();
               URI su = URI.create(uri);
@@ -38,6 +38,7 @@ import org.springframework.context.support.ClassPathXmlApplicationContext;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import uk.ac.bbsrc.tgac.miso.notification.service.IlluminaTransformer;
+import uk.ac.bbsrc.tgac.miso.notification.util.RunStatusTracker;
 import uk.ac.bbsrc.tgac.miso.tools.run.RunFolderScanner;
 import uk.ac.bbsrc.tgac.miso.tools.run.util.FileSetTransformer;
 
@@ -192,7 +193,7 @@ public class NotificationRequestManager {
           RunFolderScanner rfs = (RunFolderScanner) context.getBean(platformType + "StatusRecursiveScanner");
           if (rfs != null) {
             for (File dataPath : dataPaths.get(platformType)) {
-              for (File runFolder : rfs.listFiles(dataPath)) {
+              for (File runFolder : rfs.listRunFolders(dataPath)) {
                 if (runAlias.equals(runFolder.getName())) {
                   return runFolder;
                 }
@@ -207,6 +208,25 @@ public class NotificationRequestManager {
     }
   }
 
+  /**
+   * Makes the notifier send every run for a platform with its next notification, rather than only those that have changed
+   */
+  public String resync(JSONObject request) throws IllegalStateException, IllegalArgumentException {
+    if (context == null) {
+      throw new IllegalStateException("ApplicationContext not set. Cannot action requests on notification system.");
+    }
+    String platformType = request.has("platform") ? request.getString("platform").toLowerCase() : null;
+    if (isStringEmptyOrNull(platformType)) {
+      throw new IllegalArgumentException("No platformType set. Cannot resync runs.");
+    }
+    if (!context.containsBean(platformType + "RunStatusTracker")) {
+      return "{\"error\":\"No " + platformType + " notifications are being sent\"}";
+    }
+    ((RunFolderScanner) context.getBean(platformType + "StatusRecursiveScanner")).reset();
+    ((RunStatusTracker) context.getBean(platformType + "RunStatusTracker")).resync();
+    return "{\"response\":\"All " + platformType + " runs will be sent with the next notification\"}";
+  }
+
   private Map<String, String> parseRunFolder(String platformType, File path) throws IllegalStateException, IllegalArgumentException {
     if (context != null && dataPaths != null) {
       if (!isStringEmptyOrNull(platformType)) {
@@ -59,14 +59,11 @@ import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameter;
 import org.springframework.integration.Message;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import uk.ac.bbsrc.tgac.miso.core.util.SubmissionUtils;
 import uk.ac.bbsrc.tgac.miso.notification.util.NotificationUtils;
 import uk.ac.bbsrc.tgac.miso.notification.util.PossiblyGzippedFileUtils;
+import uk.ac.bbsrc.tgac.miso.notification.util.XmlFields;
 import uk.ac.bbsrc.tgac.miso.tools.run.util.FileSetTransformer;
 
 /**
@@ -103,6 +100,11 @@ public class IlluminaTransformer implements FileSetTransformer<String, String, F
   private final String runInfoPath = "/RunInfo.xml";
   private final String runParametersPath = "/runParameters.xml";
 
+  private static final String[] STATUS_FIELDS = { "RunName", "NumberOfReads", "NumCycles", "NumberCycles", "ImgCycle", "ScoreCycle",
+      "CallCycle" };
+  private static final String[] RUN_INFO_FIELDS = { "Instrument", "FlowcellId", "Flowcell", "FlowcellLayout", "Reads/Read" };
+  private static final String[] RUN_PARAMS_FIELDS = { "ScannerID", "Barcode", "ReagentKits/ID" };
+
   private final Map<String, String> finishedCache = new HashMap<>();
 
   private final Pattern runCompleteLogPattern = Pattern.compile(
@@ -149,52 +151,52 @@ public class IlluminaTransformer implements FileSetTransformer<String, String, F
               run.put(JSON_FULL_PATH, rootFile.getAbsolutePath());
 
               // Get xml files
-              Document statusDoc = null;
+              XmlFields statusFields = null;
               if (PossiblyGzippedFileUtils.checkExists(rootFile, oldStatusPath)) {
-                statusDoc = PossiblyGzippedFileUtils.getXmlDocument(rootFile, oldStatusPath);
-                if (statusDoc == null) {
+                statusFields = PossiblyGzippedFileUtils.getXmlFields(rootFile, oldStatusPath, STATUS_FIELDS);
+                if (statusFields == null) {
                   run.put(JSON_STATUS,
                       "<error><RunName>" + runName + "</RunName><ErrorMessage>Cannot read status file</ErrorMessage></error>");
                 }
               } else if (PossiblyGzippedFileUtils.checkExists(rootFile, newStatusPath)) {
-                statusDoc = PossiblyGzippedFileUtils.getXmlDocument(rootFile, newStatusPath);
-                if (statusDoc == null) {
+                statusFields = PossiblyGzippedFileUtils.getXmlFields(rootFile, newStatusPath, STATUS_FIELDS);
+                if (statusFields == null) {
                   run.put(JSON_STATUS,
                       "<error><RunName>" + runName + "</RunName><ErrorMessage>Cannot read status file</ErrorMessage></error>");
                 }
               }
-              Document runInfoDoc = PossiblyGzippedFileUtils.getXmlDocument(rootFile, runInfoPath);
-              Document runParamDoc = PossiblyGzippedFileUtils.getXmlDocument(rootFile, runParametersPath);
+              XmlFields runInfo = PossiblyGzippedFileUtils.getXmlFields(rootFile, runInfoPath, RUN_INFO_FIELDS);
+              XmlFields runParams = PossiblyGzippedFileUtils.getXmlFields(rootFile, runParametersPath, RUN_PARAMS_FIELDS);
 
               // Get main stuff from Status.xml
-              if (statusDoc != null) {
-                run.put(JSON_STATUS, SubmissionUtils.transform(statusDoc));
-                if (statusDoc.getElementsByTagName("RunName").getLength() > 0) {
-                  runName = statusDoc.getElementsByTagName("RunName").item(0).getTextContent();
+              if (statusFields != null) {
+                run.put(JSON_STATUS, statusFields.getXml());
+                if (statusFields.has("RunName")) {
+                  runName = statusFields.getText("RunName");
                   run.put(JSON_RUN_NAME, runName);
                 }
 
-                if (statusDoc.getElementsByTagName("NumberOfReads").getLength() != 0) {
-                  numReads = new Integer(statusDoc.getElementsByTagName("NumberOfReads").item(0).getTextContent());
+                if (statusFields.has("NumberOfReads")) {
+                  numReads = new Integer(statusFields.getText("NumberOfReads"));
                 }
               }
 
               // Get main stuff from RunInfo.xml
-              if (runInfoDoc != null) {
-                run.put(JSON_RUN_INFO, SubmissionUtils.transform(runInfoDoc));
-                checkRunInfo(runInfoDoc, run);
+              if (runInfo != null) {
+                run.put(JSON_RUN_INFO, runInfo.getXml());
+                checkRunInfo(runInfo, run);
                 if (numReads == 0) {
-                  numReads = runInfoDoc.getElementsByTagName("Read").getLength();
+                  numReads = runInfo.count("Reads/Read");
                 }
               }
 
               // Get main stuff from runParams.xml
-              if (runParamDoc != null) {
-                run.put(JSON_RUN_PARAMS, SubmissionUtils.transform(runParamDoc));
-                checkRunParams(runParamDoc, run);
+              if (runParams != null) {
+                run.put(JSON_RUN_PARAMS, runParams.getXml());
+                checkRunParams(runParams, run);
               }
 
-              boolean lastCycleComplete = checkCycles(rootFile, run, statusDoc, runInfoDoc);
+              boolean lastCycleComplete = checkCycles(rootFile, run, statusFields, runInfo);
               checkDates(rootFile, run);
               String status = checkRunStatus(run, rootFile, numReads, lastCycleComplete);
               map.get(status).add(run);
@@ -210,10 +212,6 @@ public class IlluminaTransformer implements FileSetTransformer<String, String, F
               }
               map.get(STATUS_COMPLETE).add(finishedCache.get(runName));
             }
-          } catch (ParserConfigurationException e) {
-            log.error("Error configuring parser", e);
-          } catch (TransformerException e) {
-            log.error("Error transforming XML", e);
           } catch (IOException e) {
             log.error("Error with file IO", e);
           }
@@ -244,33 +242,25 @@ public class IlluminaTransformer implements FileSetTransformer<String, String, F
    * Reads a RunInfo document, looks for sequencer name, container ID, and lane count, and adds to the run any of these that are not already
    * included
    * 
-   * @param runInfoDoc
-   *          the RunInfo.xml Document
+   * @param runInfo
+   *          fields extracted from RunInfo.xml
    * @param run
    *          JSON representation of the sequencer run
-   * @throws TransformerException
-   * @throws IOException
-   * @throws ParserConfigurationException
    */
-  private void checkRunInfo(Document runInfoDoc, JSONObject run) {
-    if (!run.has(JSON_SEQUENCER_NAME) && runInfoDoc.getElementsByTagName("Instrument").getLength() != 0) {
-      run.put(JSON_SEQUENCER_NAME, runInfoDoc.getElementsByTagName("Instrument").item(0).getTextContent());
+  private void checkRunInfo(XmlFields runInfo, JSONObject run) {
+    if (!run.has(JSON_SEQUENCER_NAME) && runInfo.has("Instrument")) {
+      run.put(JSON_SEQUENCER_NAME, runInfo.getText("Instrument"));
     }
 
-    if (runInfoDoc.getElementsByTagName("FlowcellId").getLength() != 0) {
-      run.put(JSON_CONTAINER_ID, runInfoDoc.getElementsByTagName("FlowcellId").item(0).getTextContent());
-    } else if (runInfoDoc.getElementsByTagName("Flowcell").getLength() != 0) {
-      run.put(JSON_CONTAINER_ID, runInfoDoc.getElementsByTagName("Flowcell").item(0).getTextContent());
+    if (runInfo.has("FlowcellId")) {
+      run.put(JSON_CONTAINER_ID, runInfo.getText("FlowcellId"));
+    } else if (runInfo.has("Flowcell")) {
+      run.put(JSON_CONTAINER_ID, runInfo.getText("Flowcell"));
     }
 
-    if (runInfoDoc.getElementsByTagName("FlowcellLayout").getLength() != 0) {
-      NamedNodeMap n = runInfoDoc.getElementsByTagName("FlowcellLayout").item(0).getAttributes();
-      if (n.getLength() != 0) {
-        Node attr = n.getNamedItem("LaneCount");
-        if (attr != null) {
-          run.put(JSON_LANE_COUNT, attr.getTextContent());
-        }
-      }
+    String laneCount = runInfo.getAttribute("FlowcellLayout", "LaneCount");
+    if (laneCount != null) {
+      run.put(JSON_LANE_COUNT, laneCount);
     }
   }
 
@@ -278,25 +268,22 @@ public class IlluminaTransformer implements FileSetTransformer<String, String, F
    * Reads the runParameters.xml document, looks for the sequencer name and container ID, and adds to the run any of these that are not
    * already included
    * 
-   * @param runParamDoc
-   *          the runParameters.xml Document
+   * @param runParams
+   *          fields extracted from runParameters.xml
    * @param run
    *          JSON representation of the sequencer run
    * @return true if runParameters.xml is missing, but runParameters.xml* is found, which indicates run failure; false otherwise
-   * @throws TransformerException
-   * @throws IOException
-   * @throws ParserConfigurationException
    */
-  private void checkRunParams(Document runParamDoc, JSONObject run) {
-    if (!run.has(JSON_SEQUENCER_NAME) && runParamDoc.getElementsByTagName("ScannerID").getLength() != 0) {
-      run.put(JSON_SEQUENCER_NAME, runParamDoc.getElementsByTagName("ScannerID").item(0).getTextContent());
+  private void checkRunParams(XmlFields runParams, JSONObject run) {
+    if (!run.has(JSON_SEQUENCER_NAME) && runParams.has("ScannerID")) {
+      run.put(JSON_SEQUENCER_NAME, runParams.getText("ScannerID"));
     }
 
-    if (!run.has(JSON_CONTAINER_ID) && runParamDoc.getElementsByTagName("Barcode").getLength() != 0) {
-      run.put(JSON_CONTAINER_ID, runParamDoc.getElementsByTagName("Barcode").item(0).getTextContent());
+    if (!run.has(JSON_CONTAINER_ID) && runParams.has("Barcode")) {
+      run.put(JSON_CONTAINER_ID, runParams.getText("Barcode"));
     }
 
-    run.put("kits", checkKits(runParamDoc));
+    run.put("kits", checkKits(runParams));
   }
 
   /**
@@ -324,43 +311,40 @@ public class IlluminaTransformer implements FileSetTransformer<String, String, F
    * @param run
    *          JSON representation of the sequencer run
    * @param statusDoc
-   *          Status.xml Document (may be null)
+   *          fields extracted from Status.xml (may be null)
    * @param runInfoDoc
-   *          RunInfo.xml Document (may be null)
+   *          fields extracted from RunInfo.xml (may be null)
    * @return true if the method finds evidence of the final cycle completing; false otherwise
    * @throws FileNotFoundException
    * @throws IOException
    */
-  private boolean checkCycles(File rootFile, JSONObject run, Document statusDoc, Document runInfoDoc)
+  private boolean checkCycles(File rootFile, JSONObject run, XmlFields status, XmlFields runInfo)
       throws FileNotFoundException, IOException {
     String runName = run.getString(JSON_RUN_NAME);
     int numCycles = 0;
 
-    if (statusDoc != null) {
-      if (statusDoc.getElementsByTagName("NumCycles").getLength() != 0) {
-        numCycles = new Integer(statusDoc.getElementsByTagName("NumCycles").item(0).getTextContent());
-      } else if (statusDoc.getElementsByTagName("NumberCycles").getLength() != 0) {
-        numCycles = new Integer(statusDoc.getElementsByTagName("NumberCycles").item(0).getTextContent());
+    if (status != null) {
+      if (status.has("NumCycles")) {
+        numCycles = new Integer(status.getText("NumCycles"));
+      } else if (status.has("NumberCycles")) {
+        numCycles = new Integer(status.getText("NumberCycles"));
       }
       if (numCycles > 0) {
         run.put(JSON_NUM_CYCLES, numCycles);
-        if (statusDoc.getElementsByTagName("ImgCycle").getLength() != 0 && statusDoc.getElementsByTagName("ScoreCycle").getLength() != 0
-            && statusDoc.getElementsByTagName("CallCycle").getLength() != 0) {
-          int imgCycle = new Integer(statusDoc.getElementsByTagName("ImgCycle").item(0).getTextContent());
-          int scoreCycle = new Integer(statusDoc.getElementsByTagName("ScoreCycle").item(0).getTextContent());
-          int callCycle = new Integer(statusDoc.getElementsByTagName("CallCycle").item(0).getTextContent());
+        if (status.has("ImgCycle") && status.has("ScoreCycle") && status.has("CallCycle")) {
+          int imgCycle = new Integer(status.getText("ImgCycle"));
+          int scoreCycle = new Integer(status.getText("ScoreCycle"));
+          int callCycle = new Integer(status.getText("CallCycle"));
           return numCycles == imgCycle && numCycles == scoreCycle && numCycles == callCycle;
         }
       }
     }
 
-    if (numCycles == 0 && runInfoDoc != null) {
-      NodeList nl = runInfoDoc.getElementsByTagName("Read");
-      if (nl.getLength() > 0) {
-        for (int i = 0; i < nl.getLength(); i++) {
-          Element e = (Element) nl.item(i);
-          if (!isStringEmptyOrNull(e.getAttributeNS(null, "NumCycles"))) {
-            numCycles += Integer.parseInt(e.getAttributeNS(null, "NumCycles"));
+    if (numCycles == 0 && runInfo != null) {
+      if (runInfo.has("Reads/Read")) {
+        for (String readCycles : runInfo.getAttributes("Reads/Read", "NumCycles")) {
+          if (!isStringEmptyOrNull(readCycles)) {
+            numCycles += Integer.parseInt(readCycles);
           }
         }
         run.put(JSON_NUM_CYCLES, numCycles);
@@ -625,18 +609,11 @@ public class IlluminaTransformer implements FileSetTransformer<String, String, F
     }
   }
 
-  private JSONArray checkKits(Document runParamDoc) {
+  private JSONArray checkKits(XmlFields runParams) {
     Set<String> rlist = new HashSet<>();
-    NodeList reagents = runParamDoc.getElementsByTagName("ReagentKits");
-    if (reagents.getLength() > 0) {
-      Element rkit = (Element) reagents.item(0);
-      NodeList kits = rkit.getElementsByTagName("ID");
-      for (int i = 0; i < kits.getLength(); i++) {
-        Element e = (Element) kits.item(i);
-        String rs = e.getTextContent();
-        for (String r : rs.split("[,;]")) {
-          if (!isStringEmptyOrNull(r)) rlist.add(r.trim());
-        }
+    for (String rs : runParams.getTexts("ReagentKits/ID")) {
+      for (String r : rs.split("[,;]")) {
+        if (!isStringEmptyOrNull(r)) rlist.add(r.trim());
       }
     }
     return JSONArray.fromObject(rlist);
@@ -66,6 +66,9 @@ public class NotificationRequestService {
   public String processRequest(Object request) {
     if (request instanceof JSONObject) {
       JSONObject j = (JSONObject) request;
+      if ("resync".equals(j.getString("query").toLowerCase())) {
+        return resync(j);
+      }
       if (j.getString("query").toLowerCase().contains("progress")) {
         return queryRunProgress(j);
       }
@@ -84,6 +87,15 @@ public class NotificationRequestService {
     return "{'error':'Unsupported operation'}";
   }
 
+  private String resync(JSONObject request) {
+    try {
+      return notificationRequestManager.resync(request);
+    } catch (Exception ise) {
+      log.error("cannot resync runs", ise);
+      return "{\"error\":\"Cannot resync runs: " + ise.getMessage() + "\"}";
+    }
+  }
+
   private String queryRunProgress(JSONObject request) {
     try {
       return notificationRequestManager.queryRunProgress(request);
@@ -0,0 +1,47 @@
+package uk.ac.bbsrc.tgac.miso.notification.util;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.core.MessageHandler;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Sends on only the runs in a status map that have changed since the LIMS last accepted them, split into chunks. The output channel must
+ * deliver synchronously, so that a chunk is acknowledged only once it has been sent without error. If a chunk fails, the remaining chunks
+ * are not sent and the exception is rethrown; the runs that were not acknowledged are sent again with the next status map.
+ */
+public class DeltaNotificationHandler implements MessageHandler {
+  protected static final Logger log = LoggerFactory.getLogger(DeltaNotificationHandler.class);
+
+  private final RunStatusTracker tracker;
+  private final NotificationUtils notificationUtils;
+  private final MessageChannel outputChannel;
+
+  public DeltaNotificationHandler(RunStatusTracker tracker, NotificationUtils notificationUtils, MessageChannel outputChannel) {
+    this.tracker = tracker;
+    this.notificationUtils = notificationUtils;
+    this.outputChannel = outputChannel;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void handleMessage(Message<?> message) {
+    Map<String, String> changed = tracker.changedRuns((Map<String, String>) message.getPayload());
+    if (changed.isEmpty()) {
+      return;
+    }
+    try {
+      Message<Map<String, String>> delta = MessageBuilder.withPayload(changed).copyHeaders(message.getHeaders()).build();
+      for (Map<String, String> chunk : notificationUtils.splitMessage(delta)) {
+        outputChannel.send(MessageBuilder.withPayload(chunk).copyHeaders(message.getHeaders()).build());
+        tracker.acknowledge(chunk);
+      }
+    } finally {
+      tracker.saveState();
+    }
+  }
+}
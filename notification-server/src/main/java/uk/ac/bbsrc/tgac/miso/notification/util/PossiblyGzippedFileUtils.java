@@ -7,7 +7,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
@@ -18,13 +20,15 @@ import javax.xml.transform.TransformerException;
 
 import org.w3c.dom.Document;
 
-import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
 import uk.ac.bbsrc.tgac.miso.core.util.SubmissionUtils;
 
 public class PossiblyGzippedFileUtils {
 
   private static final String GZIP_EXTENSION = ".gz";
 
+  private static final int TAIL_BLOCK_SIZE = 8192;
+  private static final Charset LOG_CHARSET = Charset.forName("ISO-8859-1");
+
   /**
    * Creates a File representing a gzipped version of the file with the name specified. The extension ".gz" is appended to the provided path
    * 
@@ -141,6 +145,38 @@ public class PossiblyGzippedFileUtils {
     }
   }
 
+  /**
+   * Checks whether an XML file, or a gzipped file of the same name suffixed with ".gz" exists and is readable, and if so, reads it and
+   * extracts the named elements while streaming it. This is much cheaper than {@link #getXmlDocument(File, String)} when only a few
+   * elements are needed.
+   * 
+   * @param rootFile
+   *          the file's parent directory
+   * @param path
+   *          file path relative to rootFile
+   * @param names
+   *          element names to extract; see {@link XmlFields}
+   * @return the XmlFields if the file is readable; null otherwise
+   * @throws IOException
+   *           if the file cannot be read or is not well-formed XML
+   */
+  public static XmlFields getXmlFields(File rootFile, String path, String... names) throws IOException {
+    File file = new File(rootFile, path);
+    if (file.exists()) {
+      if (!file.canRead()) return null;
+      try (InputStream is = new FileInputStream(file)) {
+        return XmlFields.parse(is, names);
+      }
+    }
+
+    // Raw file doesn't exist. Check for Gzipped
+    file = getGzippedFile(rootFile, path);
+    if (!file.exists() || !file.canRead()) return null;
+    try (InputStream is = new FileInputStream(file); GZIPInputStream gs = new GZIPInputStream(is, TAIL_BLOCK_SIZE)) {
+      return XmlFields.parse(gs, names);
+    }
+  }
+
   /**
    * Greps the tail of a raw or gzipped text file, attempting to match a pattern. This method only checks the file it is given. To also
    * check for an alternate raw/gzipped file, see the {@link #tailGrep(File, String, Pattern, int)} method
@@ -159,7 +195,7 @@ public class PossiblyGzippedFileUtils {
     if (PossiblyGzippedFileUtils.isGzipped(file))
       return PossiblyGzippedFileUtils.tailGrepGzipped(file, pattern, lines);
     else
-      return LimsUtils.tailGrep(file, pattern, lines);
+      return tailGrepUncompressed(file, pattern, lines);
   }
 
   /**
@@ -180,13 +216,57 @@ public class PossiblyGzippedFileUtils {
   public static Matcher tailGrep(File rootFile, String path, Pattern pattern, int lines) throws FileNotFoundException, IOException {
     File file = new File(rootFile, path);
     if (!path.endsWith(GZIP_EXTENSION)) {
-      if (file.exists()) return LimsUtils.tailGrep(file, pattern, lines);
+      if (file.exists()) return tailGrepUncompressed(file, pattern, lines);
       // Uncompressed file not found
       file = getGzippedFile(rootFile, path);
     }
     return tailGrepGzipped(file, pattern, lines);
   }
 
+  /**
+   * Greps the tail of an uncompressed text file by reading backwards from the end of the file, one block at a time, until enough lines have
+   * been found. Only the tail is read, however large the file.
+   */
+  private static Matcher tailGrepUncompressed(File file, Pattern pattern, int lines) throws FileNotFoundException, IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      long end = raf.length();
+      long start = end;
+      int newlines = 0;
+      byte[] block = new byte[TAIL_BLOCK_SIZE];
+      search: while (start > 0) {
+        int size = (int) Math.min(TAIL_BLOCK_SIZE, start);
+        long blockStart = start - size;
+        raf.seek(blockStart);
+        raf.readFully(block, 0, size);
+        for (int i = size - 1; i >= 0; i--) {
+          // a newline terminating the last line doesn't start another line
+          if (block[i] == '\n' && blockStart + i != end - 1 && ++newlines == lines) {
+            start = blockStart + i + 1;
+            break search;
+          }
+        }
+        start = blockStart;
+      }
+
+      byte[] tail = new byte[(int) (end - start)];
+      raf.seek(start);
+      raf.readFully(tail);
+
+      // Look for the first instance of the pattern in these lines
+      Matcher m = null;
+      for (String line : new String(tail, LOG_CHARSET).split("\r?\n")) {
+        if (m == null)
+          m = pattern.matcher(line);
+        else
+          m.reset(line);
+        if (m.find()) {
+          return m;
+        }
+      }
+    }
+    return null;
+  }
+
   private static Matcher tailGrepGzipped(File file, Pattern pattern, int lines) throws FileNotFoundException, IOException {
     try (InputStream is = new FileInputStream(file);
         InputStream gis = new GZIPInputStream(is);
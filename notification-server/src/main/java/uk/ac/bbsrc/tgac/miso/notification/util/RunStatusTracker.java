@@ -0,0 +1,175 @@
+package uk.ac.bbsrc.tgac.miso.notification.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Remembers the state of each run as last acknowledged by the LIMS, so that a status notification need only include the runs that have
+ * changed since. A run's state is its status plus the run fields that the LIMS records: the status document (which includes the current
+ * cycle), the cycle count, the start and completion dates and, for PacBio, the cells.
+ * <p/>
+ * Runs that are no longer reported are not forgotten, since an incremental {@link uk.ac.bbsrc.tgac.miso.tools.run.RunFolderScanner}
+ * stops reporting completed runs once they are stable. {@link #resync()} forgets everything, so that every run is sent again.
+ */
+public class RunStatusTracker {
+  protected static final Logger log = LoggerFactory.getLogger(RunStatusTracker.class);
+
+  private static final List<String> STATE_FIELDS = Arrays.asList("status", "numCycles", "startDate", "completionDate", "cells");
+
+  /**
+   * Run name -> digest of the run state last acknowledged
+   */
+  private final ConcurrentMap<String, String> acknowledged = new ConcurrentHashMap<>();
+  private volatile File stateFile;
+  private volatile boolean stateChanged = false;
+
+  /**
+   * Sets the file in which acknowledged run states are persisted, and loads any states already stored there
+   *
+   * @param stateFile
+   *          the state file, which will be created if it does not exist
+   */
+  public void setStateFile(File stateFile) {
+    this.stateFile = stateFile;
+    loadState();
+  }
+
+  /**
+   * @param statusMap
+   *          a status map as produced by a transformer: run status -> JSONArray string of runs
+   * @return a status map containing only the runs whose state differs from the state last acknowledged. Statuses with no changed runs are
+   *         omitted, so the map is empty if nothing has changed.
+   */
+  public Map<String, String> changedRuns(Map<String, String> statusMap) {
+    Map<String, String> changed = new HashMap<>();
+    int total = 0;
+    int count = 0;
+    for (Map.Entry<String, String> entry : statusMap.entrySet()) {
+      JSONArray runs = JSONArray.fromObject(entry.getValue());
+      JSONArray changedRuns = new JSONArray();
+      for (int i = 0; i < runs.size(); i++) {
+        JSONObject run = runs.getJSONObject(i);
+        total++;
+        if (!run.has("runName") || !stateOf(entry.getKey(), run).equals(acknowledged.get(run.getString("runName")))) {
+          changedRuns.add(run);
+        }
+      }
+      if (!changedRuns.isEmpty()) {
+        changed.put(entry.getKey(), changedRuns.toString());
+        count += changedRuns.size();
+      }
+    }
+    log.info(count + " of " + total + " runs have changed since they were last sent");
+    return changed;
+  }
+
+  /**
+   * Records that the LIMS has accepted the runs in a status map
+   *
+   * @param statusMap
+   *          run status -> JSONArray string of runs
+   */
+  public void acknowledge(Map<String, String> statusMap) {
+    for (Map.Entry<String, String> entry : statusMap.entrySet()) {
+      JSONArray runs = JSONArray.fromObject(entry.getValue());
+      for (int i = 0; i < runs.size(); i++) {
+        JSONObject run = runs.getJSONObject(i);
+        if (run.has("runName")) {
+          acknowledged.put(run.getString("runName"), stateOf(entry.getKey(), run));
+          stateChanged = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Forgets every acknowledged run state, so that all runs are sent with the next notification
+   */
+  public void resync() {
+    log.info("Resynchronising " + acknowledged.size() + " runs");
+    acknowledged.clear();
+    stateChanged = true;
+    saveState();
+  }
+
+  private static String stateOf(String status, JSONObject run) {
+    StringBuilder sb = new StringBuilder(status);
+    for (String field : STATE_FIELDS) {
+      sb.append('\u0000');
+      if (run.has(field)) {
+        sb.append(run.get(field));
+      }
+    }
+    try {
+      MessageDigest md = MessageDigest.getInstance("MD5");
+      return DatatypeConverter.printHexBinary(md.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support MD5
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private synchronized void loadState() {
+    if (stateFile == null || !stateFile.exists()) {
+      return;
+    }
+    Properties props = new Properties();
+    try (InputStream in = new FileInputStream(stateFile)) {
+      props.load(in);
+      for (String key : props.stringPropertyNames()) {
+        acknowledged.put(key, props.getProperty(key));
+      }
+      log.info("Loaded " + props.size() + " acknowledged run states from " + stateFile.getAbsolutePath());
+    } catch (IOException e) {
+      log.error("Cannot read run states from " + stateFile.getAbsolutePath() + ". All runs will be resent.", e);
+    }
+  }
+
+  /**
+   * Writes the acknowledged run states to the state file, if one is set and anything has changed
+   */
+  public synchronized void saveState() {
+    if (stateFile == null || !stateChanged) {
+      return;
+    }
+    stateChanged = false;
+    Properties props = new Properties();
+    for (Map.Entry<String, String> entry : acknowledged.entrySet()) {
+      props.setProperty(entry.getKey(), entry.getValue());
+    }
+    File tmp = new File(stateFile.getAbsolutePath() + ".tmp");
+    try (OutputStream out = new FileOutputStream(tmp)) {
+      props.store(out, "Acknowledged run states");
+    } catch (IOException e) {
+      log.error("Cannot write run states to " + tmp.getAbsolutePath(), e);
+      stateChanged = true;
+      return;
+    }
+    if (!tmp.renameTo(stateFile) && !(stateFile.delete() && tmp.renameTo(stateFile))) {
+      log.error("Cannot replace run state file " + stateFile.getAbsolutePath());
+      stateChanged = true;
+    }
+  }
+}
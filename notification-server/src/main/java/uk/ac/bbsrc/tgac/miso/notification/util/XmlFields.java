@@ -0,0 +1,318 @@
+package uk.ac.bbsrc.tgac.miso.notification.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The content of a small XML file, together with selected elements pulled out in a single StAX pass. This avoids building a DOM just to
+ * look up a handful of elements by name.
+ * <p/>
+ * Elements are selected by local name, e.g. "RunName", which keeps the text and attributes of the first occurrence, as
+ * getElementsByTagName(name).item(0) would. A name qualified with an ancestor, e.g. "ReagentKits/ID", keeps every ID element nested
+ * somewhere inside the first ReagentKits element, in document order. Parsing stops as soon as every selected element is complete.
+ */
+public class XmlFields {
+
+  private static final XMLInputFactory inputFactory = createInputFactory();
+
+  private final String xml;
+  private final Map<String, List<Element>> elements;
+
+  private XmlFields(String xml, Map<String, List<Element>> elements) {
+    this.xml = xml;
+    this.elements = elements;
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  /**
+   * Parses XML content, keeping the content as text and extracting the named elements. Once every named element is complete, the rest of
+   * the stream is copied without being parsed.
+   *
+   * @param in
+   *          the raw XML file content; it is read to the end but not closed
+   * @param names
+   *          element names to extract, optionally qualified with an ancestor as "Ancestor/Name"
+   * @return the parsed XmlFields
+   * @throws IOException
+   *           if the content cannot be read or the part that was parsed is not well-formed XML
+   */
+  public static XmlFields parse(InputStream in, String... names) throws IOException {
+    Map<String, List<Element>> found = new HashMap<>();
+    Map<String, Set<String>> ancestorsByName = new HashMap<>();
+    Map<String, List<String>> namesByAncestor = new HashMap<>();
+    for (String name : names) {
+      found.put(name, new ArrayList<Element>());
+      int slash = name.indexOf('/');
+      String local = slash < 0 ? name : name.substring(slash + 1);
+      String ancestor = slash < 0 ? null : name.substring(0, slash);
+      Set<String> ancestors = ancestorsByName.get(local);
+      if (ancestors == null) {
+        ancestors = new HashSet<>();
+        ancestorsByName.put(local, ancestors);
+      }
+      ancestors.add(ancestor);
+      if (ancestor != null) {
+        List<String> qualified = namesByAncestor.get(ancestor);
+        if (qualified == null) {
+          qualified = new ArrayList<>();
+          namesByAncestor.put(ancestor, qualified);
+        }
+        qualified.add(name);
+      }
+    }
+    Set<String> incomplete = new HashSet<>(found.keySet());
+
+    CopyingInputStream copy = new CopyingInputStream(in);
+    String encoding = null;
+    try {
+      XMLStreamReader reader = inputFactory.createXMLStreamReader(copy);
+      try {
+        encoding = reader.getEncoding();
+        // the depth of the first occurrence of each ancestor, while it is open
+        Map<String, Integer> openAncestors = new HashMap<>();
+        Set<String> seenAncestors = new HashSet<>();
+        int depth = 0;
+        Deque<List<Element>> open = new ArrayDeque<>();
+        while (!incomplete.isEmpty() && reader.hasNext()) {
+          switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            String local = reader.getLocalName();
+            if (namesByAncestor.containsKey(local) && seenAncestors.add(local)) {
+              openAncestors.put(local, depth);
+            }
+            Set<String> ancestors = ancestorsByName.get(local);
+            List<Element> matches = null;
+            if (ancestors != null) {
+              for (String ancestor : ancestors) {
+                String name = ancestor == null ? local : ancestor + "/" + local;
+                if (ancestor == null ? found.get(name).isEmpty() : openAncestors.containsKey(ancestor) && !ancestor.equals(local)) {
+                  Element e = new Element(name, attributesOf(reader));
+                  found.get(name).add(e);
+                  if (matches == null) matches = new ArrayList<>();
+                  matches.add(e);
+                }
+              }
+            }
+            depth++;
+            open.push(matches == null ? Collections.<Element> emptyList() : matches);
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            // text belongs to every selected element that is still open, as with DOM's getTextContent
+            for (List<Element> openMatches : open) {
+              for (Element e : openMatches) {
+                e.text.append(reader.getText());
+              }
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            depth--;
+            // an unqualified name is complete after its first occurrence, a qualified one after the first occurrence of its ancestor
+            for (Element e : open.pop()) {
+              if (e.name.indexOf('/') < 0) incomplete.remove(e.name);
+            }
+            String closed = reader.getLocalName();
+            Integer ancestorDepth = openAncestors.get(closed);
+            if (ancestorDepth != null && ancestorDepth == depth) {
+              openAncestors.remove(closed);
+              incomplete.removeAll(namesByAncestor.get(closed));
+            }
+            break;
+          default:
+            break;
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Cannot parse XML", e);
+    }
+    // the parser may have stopped early, but the text is always kept in full
+    copy.drain();
+
+    return new XmlFields(decode(copy.toByteArray(), encoding), found);
+  }
+
+  private static Map<String, String> attributesOf(XMLStreamReader reader) {
+    if (reader.getAttributeCount() == 0) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> attributes = new HashMap<>();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+    }
+    return attributes;
+  }
+
+  /**
+   * Decodes the raw content as the parser saw it: in the detected encoding, without a byte order mark, and with line endings normalised
+   */
+  private static String decode(byte[] content, String encoding) {
+    Charset charset = encoding != null && Charset.isSupported(encoding) ? Charset.forName(encoding) : Charset.forName("UTF-8");
+    String text = new String(content, charset);
+    if (!text.isEmpty() && text.charAt(0) == '\uFEFF') {
+      text = text.substring(1);
+    }
+    return text.replace("\r\n", "\n");
+  }
+
+  /**
+   * @return the full XML content
+   */
+  public String getXml() {
+    return xml;
+  }
+
+  /**
+   * @return the number of occurrences of the named element
+   */
+  public int count(String name) {
+    return get(name).size();
+  }
+
+  /**
+   * @return true if the named element occurs at least once
+   */
+  public boolean has(String name) {
+    return count(name) != 0;
+  }
+
+  /**
+   * @return the text content of the first occurrence of the named element, or null if it does not occur
+   */
+  public String getText(String name) {
+    List<Element> list = get(name);
+    return list.isEmpty() ? null : list.get(0).text.toString();
+  }
+
+  /**
+   * @return the text content of every occurrence of the named element
+   */
+  public List<String> getTexts(String name) {
+    List<String> texts = new ArrayList<>();
+    for (Element e : get(name)) {
+      texts.add(e.text.toString());
+    }
+    return texts;
+  }
+
+  /**
+   * @return the value of an attribute on the first occurrence of the named element, or null if either is missing
+   */
+  public String getAttribute(String name, String attribute) {
+    List<Element> list = get(name);
+    return list.isEmpty() ? null : list.get(0).attributes.get(attribute);
+  }
+
+  /**
+   * @return the value of an attribute on every occurrence of the named element, with null where the attribute is missing
+   */
+  public List<String> getAttributes(String name, String attribute) {
+    List<String> values = new ArrayList<>();
+    for (Element e : get(name)) {
+      values.add(e.attributes.get(attribute));
+    }
+    return values;
+  }
+
+  private List<Element> get(String name) {
+    List<Element> list = elements.get(name);
+    if (list == null) {
+      throw new IllegalArgumentException("Element " + name + " was not extracted");
+    }
+    return list;
+  }
+
+  private static final class Element {
+    private final String name;
+    private final Map<String, String> attributes;
+    private final StringBuilder text = new StringBuilder();
+
+    private Element(String name, Map<String, String> attributes) {
+      this.name = name;
+      this.attributes = attributes;
+    }
+  }
+
+  /**
+   * Keeps a copy of everything read through it, so the content only has to be read once
+   */
+  private static final class CopyingInputStream extends FilterInputStream {
+    private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+    private CopyingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) copy.write(b);
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) copy.write(b, off, read);
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // skipped bytes must still be copied
+      long skipped = 0;
+      while (skipped < n && read() != -1) {
+        skipped++;
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+      // the caller owns the underlying stream
+    }
+
+    private void drain() throws IOException {
+      byte[] buffer = new byte[8192];
+      while (read(buffer, 0, buffer.length) != -1) {
+        // copied by read
+      }
+    }
+
+    private byte[] toByteArray() {
+      return copy.toByteArray();
+    }
+  }
+}
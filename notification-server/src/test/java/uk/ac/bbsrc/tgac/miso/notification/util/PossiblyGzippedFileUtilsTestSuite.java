@@ -0,0 +1,207 @@
+package uk.ac.bbsrc.tgac.miso.notification.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+public class PossiblyGzippedFileUtilsTestSuite {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final String h1080_84_raw = "/runs/111110_h1080_0084_AC08UPACXX_raw";
+  private static final String h1080_84_gzip = "/runs/111110_h1080_0084_AC08UPACXX_gzip";
+  private static final String h1080_84_gzip_only = "/runs/111110_h1080_0084_AC08UPACXX_gzip";
+
+  private static final String runInfo = "RunInfo.xml";
+  private static final String runParameters = "runParameters.xml";
+  private static final String cycleTimes = "/Logs/CycleTimes.txt";
+
+  private String getResourcePath(String path) {
+    return this.getClass().getResource(path).getPath();
+  }
+
+  private File getResourceFile(String path) {
+    return new File(getResourcePath(path));
+  }
+
+  @Test
+  public void testDirectoryExists() {
+    assertTrue(PossiblyGzippedFileUtils.checkExists(null, getResourcePath(h1080_84_raw)));
+  }
+
+  @Test
+  public void testRawFileExists() {
+    assertTrue(PossiblyGzippedFileUtils.checkExists(getResourceFile(h1080_84_raw), runInfo));
+  }
+
+  @Test
+  public void testGzippedFileExists() {
+    assertTrue(PossiblyGzippedFileUtils.checkExists(getResourceFile(h1080_84_gzip), runInfo));
+  }
+
+  @Test
+  public void testFileDoesntExist() {
+    assertFalse(PossiblyGzippedFileUtils.checkExists(null, "NotARealFile"));
+  }
+
+  @Test
+  public void testRawFileReadable() {
+    assertTrue(PossiblyGzippedFileUtils.checkExistsReadable(new File(getResourcePath(h1080_84_raw)), runInfo));
+  }
+
+  @Test
+  public void testGzippedFileReadable() {
+    assertTrue(PossiblyGzippedFileUtils.checkExistsReadable(new File(getResourcePath(h1080_84_gzip)), runInfo));
+  }
+
+  @Test
+  public void testRawXmlRead() throws ParserConfigurationException, TransformerException, IOException {
+    Document xml = PossiblyGzippedFileUtils.getXmlDocument(getResourceFile(h1080_84_raw), runInfo);
+    assertTrue("SN1080".equals(xml.getElementsByTagName("Instrument").item(0).getTextContent()));
+  }
+
+  @Test
+  public void testGzippedXmlRead() throws ParserConfigurationException, TransformerException, IOException {
+    Document xml = PossiblyGzippedFileUtils.getXmlDocument(getResourceFile(h1080_84_gzip), runInfo);
+    assertTrue("SN1080".equals(xml.getElementsByTagName("Instrument").item(0).getTextContent()));
+  }
+
+  @Test
+  public void testRawXmlFields() throws IOException {
+    XmlFields xml = PossiblyGzippedFileUtils.getXmlFields(getResourceFile(h1080_84_raw), runInfo, "Instrument", "FlowcellLayout",
+        "Reads/Read");
+    assertEquals("SN1080", xml.getText("Instrument"));
+    assertEquals("8", xml.getAttribute("FlowcellLayout", "LaneCount"));
+    assertEquals(Arrays.asList("101", "101"), xml.getAttributes("Reads/Read", "NumCycles"));
+    assertTrue(xml.getXml().contains("<Instrument>SN1080</Instrument>"));
+  }
+
+  @Test
+  public void testGzippedXmlFields() throws IOException {
+    XmlFields raw = PossiblyGzippedFileUtils.getXmlFields(getResourceFile(h1080_84_raw), runParameters, "ScannerID", "ReagentKits/ID");
+    XmlFields gzipped = PossiblyGzippedFileUtils.getXmlFields(getResourceFile(h1080_84_gzip_only), runParameters, "ScannerID",
+        "ReagentKits/ID");
+    assertEquals("SN1080", gzipped.getText("ScannerID"));
+    assertEquals(raw.getTexts("ReagentKits/ID"), gzipped.getTexts("ReagentKits/ID"));
+    assertEquals(raw.getXml(), gzipped.getXml());
+  }
+
+  @Test
+  public void testXmlFieldsFirstOccurrence() throws IOException {
+    String content = "<Run><Kits><ID>v3</ID><Name>first</Name><ID>v4;PE</ID></Kits><Kits><ID>v2</ID><Name>second</Name></Kits></Run>";
+    XmlFields xml = XmlFields.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "Name", "Kits/ID");
+    assertEquals(Arrays.asList("first"), xml.getTexts("Name"));
+    // as with the DOM lookup it replaces, IDs outside the first Kits element are ignored
+    assertEquals(Arrays.asList("v3", "v4;PE"), xml.getTexts("Kits/ID"));
+  }
+
+  @Test
+  public void testXmlFieldsStopsParsingWhenComplete() throws IOException {
+    // the content after the Name element is not well-formed, so parsing must stop before it
+    String content = "<Run>\r\n<Name>first</Name>\r\n<Broken></Run>";
+    XmlFields xml = XmlFields.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "Name");
+    assertEquals("first", xml.getText("Name"));
+    assertEquals("<Run>\n<Name>first</Name>\n<Broken></Run>", xml.getXml());
+  }
+
+  @Test(expected = IOException.class)
+  public void testXmlFieldsParsesToEndWhenIncomplete() throws IOException {
+    String content = "<Run>\n<Name>first</Name>\n<Broken></Run>";
+    XmlFields.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "Name", "Missing");
+  }
+
+  @Test
+  public void testMissingXmlFields() throws IOException {
+    assertTrue(PossiblyGzippedFileUtils.getXmlFields(getResourceFile(h1080_84_raw), "NotARealFile.xml", "Instrument") == null);
+  }
+
+  @Test
+  public void testRawTextTailGrep() throws FileNotFoundException, IOException {
+    Pattern p = Pattern
+        .compile("(\\d{1,2}\\/\\d{1,2}\\/\\d{4})\\s+(\\d{2}:\\d{2}:\\d{2})\\.\\d{3}\\s+[A-z0-9]+\\s+202\\s+End\\s{1}Imaging");
+    Matcher m = PossiblyGzippedFileUtils.tailGrep(getResourceFile(h1080_84_raw), cycleTimes, p, 10);
+    assertFalse(m == null);
+    String cycleDateStr = m.group(1) + "," + m.group(2);
+    assertTrue("11/19/2011,15:24:57".equals(cycleDateStr));
+  }
+
+  @Test
+  public void testUncompressedTailGrepAcrossBlocks() throws IOException {
+    File log = temp.newFile("CycleTimes.txt");
+    StringBuilder content = new StringBuilder();
+    for (int i = 1; i <= 1000; i++) {
+      content.append("Cycle ").append(i).append(" done\r\n");
+    }
+    write(log, content.toString());
+    // lines are much shorter than a block, so the tail starts partway through a block
+    assertEquals("991", PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("^Cycle (\\d+) "), 10).group(1));
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("^Cycle 990 "), 10) == null);
+  }
+
+  @Test
+  public void testUncompressedTailGrepLongLine() throws IOException {
+    File log = temp.newFile("CycleTimes.txt");
+    StringBuilder content = new StringBuilder("Cycle 1 start\n");
+    for (int i = 0; i < 20000; i++) {
+      content.append('x');
+    }
+    // a line longer than a block, without a trailing newline
+    content.append(" Cycle 2 end");
+    write(log, content.toString());
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("Cycle 1 start"), 2) != null);
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("Cycle 1 start"), 1) == null);
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("Cycle 2 end$"), 1) != null);
+  }
+
+  @Test
+  public void testUncompressedTailGrepTrailingNewline() throws IOException {
+    File log = temp.newFile("CycleTimes.txt");
+    write(log, "Cycle 1\nCycle 2\nCycle 3\n");
+    // the final newline does not start an empty last line
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("Cycle 2"), 2) != null);
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("Cycle 1"), 2) == null);
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(log, Pattern.compile("Cycle 1"), 100) != null);
+  }
+
+  @Test
+  public void testUncompressedTailGrepEmptyFile() throws IOException {
+    assertTrue(PossiblyGzippedFileUtils.tailGrep(temp.newFile("CycleTimes.txt"), Pattern.compile("Cycle"), 10) == null);
+  }
+
+  private static void write(File file, String content) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write(content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+  }
+
+  @Test
+  public void testGzippedTextTailGrep() throws FileNotFoundException, IOException {
+    Pattern p = Pattern
+        .compile("(\\d{1,2}\\/\\d{1,2}\\/\\d{4})\\s+(\\d{2}:\\d{2}:\\d{2})\\.\\d{3}\\s+[A-z0-9]+\\s+202\\s+End\\s{1}Imaging");
+    Matcher m = PossiblyGzippedFileUtils.tailGrep(getResourceFile(h1080_84_gzip), cycleTimes, p, 10);
+    assertFalse(m == null);
+    String cycleDateStr = m.group(1) + "," + m.group(2);
+    assertTrue("11/19/2011,15:24:57".equals(cycleDateStr));
+  }
+
+}
@@ -0,0 +1,102 @@
+package uk.ac.bbsrc.tgac.miso.notification.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+public class RunStatusTrackerTestSuite {
+
+  @Rule
+  public final TemporaryFolder temp = new TemporaryFolder();
+
+  private static JSONObject run(String name, int numCycles) {
+    JSONObject run = new JSONObject();
+    run.put("runName", name);
+    run.put("numCycles", numCycles);
+    run.put("startDate", "2016-01-01");
+    return run;
+  }
+
+  private static Map<String, String> statusMap(String status, JSONObject... runs) {
+    JSONArray array = new JSONArray();
+    for (JSONObject run : runs) {
+      array.add(run);
+    }
+    Map<String, String> map = new HashMap<>();
+    map.put(status, array.toString());
+    return map;
+  }
+
+  private static int runCount(Map<String, String> statusMap) {
+    int count = 0;
+    for (String runs : statusMap.values()) {
+      count += JSONArray.fromObject(runs).size();
+    }
+    return count;
+  }
+
+  @Test
+  public void testUnacknowledgedRunsAreSent() {
+    RunStatusTracker tracker = new RunStatusTracker();
+    Map<String, String> map = statusMap("Running", run("A", 100), run("B", 200));
+    assertEquals(2, runCount(tracker.changedRuns(map)));
+    // nothing has been acknowledged yet
+    assertEquals(2, runCount(tracker.changedRuns(map)));
+  }
+
+  @Test
+  public void testAcknowledgedRunsAreNotResent() {
+    RunStatusTracker tracker = new RunStatusTracker();
+    tracker.acknowledge(statusMap("Running", run("A", 100), run("B", 200)));
+    assertTrue(tracker.changedRuns(statusMap("Running", run("A", 100), run("B", 200))).isEmpty());
+  }
+
+  @Test
+  public void testChangedRunsAreResent() {
+    RunStatusTracker tracker = new RunStatusTracker();
+    tracker.acknowledge(statusMap("Running", run("A", 100), run("B", 200)));
+
+    Map<String, String> changed = tracker.changedRuns(statusMap("Running", run("A", 100), run("B", 250)));
+    assertEquals(1, runCount(changed));
+    assertEquals("B", JSONArray.fromObject(changed.get("Running")).getJSONObject(0).getString("runName"));
+
+    changed = tracker.changedRuns(statusMap("Completed", run("A", 100)));
+    assertEquals(1, runCount(changed));
+    assertTrue(changed.containsKey("Completed"));
+  }
+
+  @Test
+  public void testResync() {
+    RunStatusTracker tracker = new RunStatusTracker();
+    Map<String, String> map = statusMap("Running", run("A", 100));
+    tracker.acknowledge(map);
+    tracker.resync();
+    assertEquals(1, runCount(tracker.changedRuns(map)));
+  }
+
+  @Test
+  public void testStateFile() throws IOException {
+    File stateFile = new File(temp.getRoot(), "states.properties");
+    Map<String, String> map = statusMap("Running", run("A", 100));
+
+    RunStatusTracker tracker = new RunStatusTracker();
+    tracker.setStateFile(stateFile);
+    tracker.acknowledge(map);
+    tracker.saveState();
+
+    RunStatusTracker reloaded = new RunStatusTracker();
+    reloaded.setStateFile(stateFile);
+    assertTrue(reloaded.changedRuns(map).isEmpty());
+  }
+}
@@ -26,12 +26,24 @@ package uk.ac.bbsrc.tgac.miso.tools.run;
 import java.io.File;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.context.IntegrationObjectSupport;
@@ -77,10 +89,14 @@ import org.springframework.util.Assert;
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  */
-public class MultiFileQueueMessageSource extends IntegrationObjectSupport implements MessageSource<Set<File>> {
+public class MultiFileQueueMessageSource extends IntegrationObjectSupport implements MessageSource<Set<File>>, DisposableBean {
 
   private static final int DEFAULT_INTERNAL_QUEUE_CAPACITY = 5;
 
+  private static final int DEFAULT_SCAN_THREADS = 4;
+
+  private static final long SCAN_SHUTDOWN_TIMEOUT = 30;
+
   private static final Log logger = LogFactory.getLog(MultiFileQueueMessageSource.class);
 
   private volatile Set<File> directories;
@@ -97,6 +113,10 @@ public class MultiFileQueueMessageSource extends IntegrationObjectSupport implem
 
   private volatile boolean scanEachPoll = false;
 
+  private volatile int scanThreads = DEFAULT_SCAN_THREADS;
+
+  private volatile ExecutorService scanExecutor;
+
   /**
    * Creates a MultiFileQueueMessageSource with a naturally ordered queue of unbounded capacity.
    */
@@ -214,6 +234,17 @@ public class MultiFileQueueMessageSource extends IntegrationObjectSupport implem
     this.scanEachPoll = scanEachPoll;
   }
 
+  /**
+   * Optional. Sets the maximum number of input directories that are scanned concurrently. Defaults to 4.
+   * 
+   * @param scanThreads
+   *          the number of scanning threads
+   */
+  public void setScanThreads(int scanThreads) {
+    Assert.isTrue(scanThreads > 0, "scanThreads must be positive");
+    this.scanThreads = scanThreads;
+  }
+
   @Override
   public String getComponentType() {
     return "file:inbound-channel-adapter";
@@ -231,6 +262,48 @@ public class MultiFileQueueMessageSource extends IntegrationObjectSupport implem
       Assert.isTrue(directory.isDirectory(), "Source path [" + directory + "] does not point to a directory.");
       Assert.isTrue(directory.canRead(), "Source directory [" + directory + "] is not readable.");
     }
+
+    shutdownScanExecutor();
+    int threads = Math.min(scanThreads, directories.size());
+    if (threads > 1) {
+      final String prefix = (getComponentName() != null ? getComponentName() : "multiFileQueueMessageSource") + "-scanner-";
+      scanExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, prefix + count.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+  }
+
+  /**
+   * Stops the threads that scan the input directories, waiting for any scan in progress to finish
+   */
+  @Override
+  public void destroy() {
+    shutdownScanExecutor();
+  }
+
+  private synchronized void shutdownScanExecutor() {
+    if (scanExecutor == null) {
+      return;
+    }
+    ExecutorService executor = scanExecutor;
+    scanExecutor = null;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(SCAN_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+        logger.warn("Directory scans did not finish within " + SCAN_SHUTDOWN_TIMEOUT + "s of shutdown. Interrupting them.");
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
   }
 
   @Override
@@ -262,9 +335,11 @@ public class MultiFileQueueMessageSource extends IntegrationObjectSupport implem
   }
 
   private void scanInputDirectories() {
-    for (File directory : directories) {
-      List<File> filteredFiles = scanner.listFiles(directory);
-      Set<File> freshFiles = new HashSet<File>(filteredFiles);
+    long start = System.currentTimeMillis();
+    ExecutorService executor = scanExecutor;
+    Map<File, List<File>> scanned = executor == null ? scanSequentially() : scanConcurrently(executor);
+    for (Map.Entry<File, List<File>> entry : scanned.entrySet()) {
+      Set<File> freshFiles = new HashSet<File>(entry.getValue());
       if (!freshFiles.isEmpty()) {
         toBeReceived.addAll(freshFiles);
         if (logger.isDebugEnabled()) {
@@ -272,6 +347,46 @@ public class MultiFileQueueMessageSource extends IntegrationObjectSupport implem
         }
       }
     }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Scanned " + directories.size() + " directories in " + (System.currentTimeMillis() - start) + "ms");
+    }
+  }
+
+  private Map<File, List<File>> scanSequentially() {
+    Map<File, List<File>> scanned = new LinkedHashMap<File, List<File>>();
+    for (File directory : directories) {
+      scanned.put(directory, scanner.listFiles(directory));
+    }
+    return scanned;
+  }
+
+  private Map<File, List<File>> scanConcurrently(ExecutorService executor) {
+    Map<File, Future<List<File>>> futures = new LinkedHashMap<File, Future<List<File>>>();
+    try {
+      for (final File directory : directories) {
+        futures.put(directory, executor.submit(new Callable<List<File>>() {
+          @Override
+          public List<File> call() {
+            return scanner.listFiles(directory);
+          }
+        }));
+      }
+    } catch (RejectedExecutionException e) {
+      throw new MessagingException("Cannot scan input directories after shutdown", e);
+    }
+
+    Map<File, List<File>> scanned = new LinkedHashMap<File, List<File>>();
+    for (Map.Entry<File, Future<List<File>>> entry : futures.entrySet()) {
+      try {
+        scanned.put(entry.getKey(), entry.getValue().get());
+      } catch (ExecutionException e) {
+        logger.error("Failed to scan " + entry.getKey(), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MessagingException("Interrupted while scanning input directories", e);
+      }
+    }
+    return scanned;
   }
 
   /**
@@ -24,9 +24,20 @@
 package uk.ac.bbsrc.tgac.miso.tools.run;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,7 +48,13 @@ import org.springframework.integration.file.DefaultDirectoryScanner;
 /**
  * uk.ac.bbsrc.tgac.miso.tools.run
  * <p/>
- * Info
+ * Recursively finds run folders matching a pattern.
+ * <p/>
+ * If completion markers are set, the scanner becomes incremental: each completed run folder is fingerprinted by the modification time of
+ * the folder and the modification time and size of its key files, and once a completed folder's fingerprint has been stable for the quiet
+ * period it is no longer returned by {@link #listFiles(File)}. Any change to the fingerprint brings the folder back. Fingerprints can be
+ * persisted to a state file so that archived runs are not rescanned after a restart. {@link #listRunFolders(File)} always returns every run
+ * folder.
  * 
  * @author Rob Davey
  * @date 26/10/11
@@ -46,28 +63,209 @@ import org.springframework.integration.file.DefaultDirectoryScanner;
 public class RunFolderScanner extends DefaultDirectoryScanner {
   private static final Log log = LogFactory.getLog(RunFolderScanner.class);
 
+  private static final long DEFAULT_QUIET_PERIOD = TimeUnit.HOURS.toMillis(1);
+
   private Pattern runDirPattern;
 
+  private volatile List<String> fingerprintFiles = Collections.emptyList();
+  private volatile List<String> completionMarkers = Collections.emptyList();
+  private volatile long quietPeriod = DEFAULT_QUIET_PERIOD;
+  private volatile File stateFile;
+
+  /**
+   * Completed run folder path -> fingerprint|time the fingerprint was first seen
+   */
+  private final ConcurrentMap<String, String> completedFingerprints = new ConcurrentHashMap<String, String>();
+  private volatile boolean stateChanged = false;
+
   public RunFolderScanner(String runDirRegex) {
     runDirPattern = Pattern.compile(runDirRegex);
   }
 
+  /**
+   * Sets the files, relative to a run folder, whose modification times and sizes make up the folder's fingerprint. Gzipped versions of the
+   * files are also checked.
+   * 
+   * @param fingerprintFiles
+   *          relative paths, e.g. "/RunInfo.xml"
+   */
+  public void setFingerprintFiles(List<String> fingerprintFiles) {
+    this.fingerprintFiles = new ArrayList<String>(fingerprintFiles);
+  }
+
+  /**
+   * Sets the files, relative to a run folder, any of which indicate that the run has finished. If none are set, every run folder is returned
+   * on every scan.
+   * 
+   * @param completionMarkers
+   *          relative paths, e.g. "/RTAComplete.txt"
+   */
+  public void setCompletionMarkers(List<String> completionMarkers) {
+    this.completionMarkers = new ArrayList<String>(completionMarkers);
+  }
+
+  /**
+   * @param quietPeriod
+   *          how long, in milliseconds, a completed run folder must remain unchanged before it is skipped
+   */
+  public void setQuietPeriod(long quietPeriod) {
+    this.quietPeriod = quietPeriod;
+  }
+
+  /**
+   * Sets the file in which completed run fingerprints are persisted, and loads any fingerprints already stored there
+   * 
+   * @param stateFile
+   *          the state file, which will be created if it does not exist
+   */
+  public void setStateFile(File stateFile) {
+    this.stateFile = stateFile;
+    loadState();
+  }
+
+  /**
+   * Forgets every completed run fingerprint, so that every run folder is returned by the next scan
+   */
+  public void reset() {
+    completedFingerprints.clear();
+    stateChanged = true;
+    saveState();
+  }
+
+  /**
+   * Lists every run folder beneath the given directory, regardless of whether it has changed since the last scan
+   * 
+   * @param directory
+   *          the directory to search
+   * @return all matching run folders
+   */
+  public List<File> listRunFolders(File directory) {
+    return Arrays.asList(listRunFolders(directory, false));
+  }
+
+  @Override
+  public List<File> listFiles(File directory) throws IllegalArgumentException {
+    List<File> files = super.listFiles(directory);
+    saveState();
+    return files;
+  }
+
   @Override
   protected File[] listEligibleFiles(File directory) throws IllegalArgumentException {
+    return listRunFolders(directory, !completionMarkers.isEmpty());
+  }
+
+  private File[] listRunFolders(File directory, boolean incremental) {
     File[] rootFiles = directory.listFiles();
+    if (rootFiles == null) {
+      log.warn("Cannot list " + directory.getAbsolutePath());
+      return new File[0];
+    }
     List<File> files = new ArrayList<File>(rootFiles.length);
     for (File rootFile : rootFiles) {
       if (rootFile.isDirectory()) {
         Matcher rm = runDirPattern.matcher(rootFile.getAbsolutePath());
         if (rm.matches()) {
-          files.add(rootFile);
+          if (!incremental || hasChanged(rootFile)) {
+            files.add(rootFile);
+          }
         } else {
           if (rm.find()) {
-            files.addAll(Arrays.asList(listEligibleFiles(rootFile)));
+            files.addAll(Arrays.asList(listRunFolders(rootFile, incremental)));
           }
         }
       }
     }
     return files.toArray(new File[files.size()]);
   }
+
+  /**
+   * @return false if the run folder is complete and its fingerprint has not changed for the quiet period; true otherwise
+   */
+  private boolean hasChanged(File runFolder) {
+    String key = runFolder.getAbsolutePath();
+    if (!isComplete(runFolder)) {
+      if (completedFingerprints.remove(key) != null) {
+        stateChanged = true;
+      }
+      return true;
+    }
+
+    String fingerprint = fingerprint(runFolder);
+    long now = System.currentTimeMillis();
+    String previous = completedFingerprints.get(key);
+    if (previous != null) {
+      int sep = previous.lastIndexOf('|');
+      if (sep > 0 && previous.substring(0, sep).equals(fingerprint)) {
+        long firstSeen = Long.parseLong(previous.substring(sep + 1));
+        return now - firstSeen < quietPeriod;
+      }
+    }
+    completedFingerprints.put(key, fingerprint + "|" + now);
+    stateChanged = true;
+    return true;
+  }
+
+  private boolean isComplete(File runFolder) {
+    for (String marker : completionMarkers) {
+      if (new File(runFolder, marker).exists() || new File(runFolder, marker + ".gz").exists()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String fingerprint(File runFolder) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(runFolder.lastModified());
+    for (String path : fingerprintFiles) {
+      appendFileFingerprint(sb, new File(runFolder, path));
+      appendFileFingerprint(sb, new File(runFolder, path + ".gz"));
+    }
+    return sb.toString();
+  }
+
+  private static void appendFileFingerprint(StringBuilder sb, File f) {
+    // lastModified and length are both 0 for missing files
+    sb.append(':').append(f.lastModified()).append(',').append(f.length());
+  }
+
+  private synchronized void loadState() {
+    if (stateFile == null || !stateFile.exists()) {
+      return;
+    }
+    Properties props = new Properties();
+    try (InputStream in = new FileInputStream(stateFile)) {
+      props.load(in);
+      for (String key : props.stringPropertyNames()) {
+        completedFingerprints.put(key, props.getProperty(key));
+      }
+      log.info("Loaded " + props.size() + " completed run fingerprints from " + stateFile.getAbsolutePath());
+    } catch (IOException e) {
+      log.error("Cannot read run folder state from " + stateFile.getAbsolutePath() + ". All run folders will be rescanned.", e);
+    }
+  }
+
+  private synchronized void saveState() {
+    if (stateFile == null || !stateChanged) {
+      return;
+    }
+    stateChanged = false;
+    Properties props = new Properties();
+    for (Map.Entry<String, String> entry : completedFingerprints.entrySet()) {
+      props.setProperty(entry.getKey(), entry.getValue());
+    }
+    File tmp = new File(stateFile.getAbsolutePath() + ".tmp");
+    try (OutputStream out = new FileOutputStream(tmp)) {
+      props.store(out, "Completed run folder fingerprints");
+    } catch (IOException e) {
+      log.error("Cannot write run folder state to " + tmp.getAbsolutePath(), e);
+      stateChanged = true;
+      return;
+    }
+    if (!tmp.renameTo(stateFile) && !(stateFile.delete() && tmp.renameTo(stateFile))) {
+      log.error("Cannot replace run folder state file " + stateFile.getAbsolutePath());
+      stateChanged = true;
+    }
+  }
 }
@@ -0,0 +1,90 @@
+package uk.ac.bbsrc.tgac.miso.tools.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.integration.Message;
+
+public class MultiFileQueueMessageSourceTestSuite {
+
+  private static final String SCANNER_THREAD_PREFIX = "testSource-scanner-";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private MultiFileQueueMessageSource source;
+  private File first;
+  private File second;
+
+  @Before
+  public void setUp() throws Exception {
+    File firstRoot = temp.newFolder("sequencer1");
+    File secondRoot = temp.newFolder("sequencer2");
+    first = new File(firstRoot, "150101_SN100_0001_AC0000ACXX");
+    second = new File(secondRoot, "150101_SN200_0001_AC0001ACXX");
+    assertTrue(first.mkdir());
+    assertTrue(second.mkdir());
+
+    source = new MultiFileQueueMessageSource();
+    source.setBeanName("testSource");
+    source.setScanner(new RunFolderScanner(RunFolderConstants.ILLUMINA_FOLDER_REGEX));
+    source.setDirectories(new HashSet<File>(Arrays.asList(firstRoot, secondRoot)));
+    source.setScanEachPoll(true);
+    source.setScanThreads(2);
+    source.afterPropertiesSet();
+  }
+
+  @After
+  public void tearDown() {
+    source.destroy();
+  }
+
+  private static boolean scannerThreadsAlive() {
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith(SCANNER_THREAD_PREFIX) && thread.isAlive()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testScansAllDirectories() throws Exception {
+    Message<Set<File>> message = source.receive();
+    assertEquals(new HashSet<File>(Arrays.asList(first, second)), message.getPayload());
+    assertTrue(scannerThreadsAlive());
+  }
+
+  @Test
+  public void testDestroyStopsScannerThreads() throws Exception {
+    source.receive();
+    source.destroy();
+
+    // the pool has terminated, but its threads may take a moment to exit
+    for (int i = 0; i < 50 && scannerThreadsAlive(); i++) {
+      Thread.sleep(100);
+    }
+    assertFalse(scannerThreadsAlive());
+    // destroying twice is harmless
+    source.destroy();
+  }
+
+  @Test
+  public void testEmptyScanGivesNoMessage() throws Exception {
+    assertTrue(first.delete());
+    assertTrue(second.delete());
+    assertNull(source.receive());
+  }
+}
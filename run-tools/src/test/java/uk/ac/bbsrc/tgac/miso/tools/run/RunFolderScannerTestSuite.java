@@ -0,0 +1,153 @@
+package uk.ac.bbsrc.tgac.miso.tools.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RunFolderScannerTestSuite {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File root;
+
+  @Before
+  public void setUp() throws Exception {
+    root = temp.newFolder("runs");
+  }
+
+  private static RunFolderScanner scanner() {
+    RunFolderScanner scanner = new RunFolderScanner(RunFolderConstants.ILLUMINA_FOLDER_REGEX);
+    scanner.setCompletionMarkers(Arrays.asList("/RTAComplete.txt"));
+    scanner.setFingerprintFiles(Arrays.asList("/RunInfo.xml", "/RTAComplete.txt"));
+    scanner.setQuietPeriod(0);
+    return scanner;
+  }
+
+  private File runFolder(String name, boolean complete) throws IOException {
+    File folder = new File(root, name);
+    assertTrue(folder.mkdir());
+    write(new File(folder, "RunInfo.xml"), "<RunInfo/>");
+    if (complete) {
+      write(new File(folder, "RTAComplete.txt"), "done");
+    }
+    return folder;
+  }
+
+  private static void write(File file, String content) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static Set<File> set(File... files) {
+    return new HashSet<File>(Arrays.asList(files));
+  }
+
+  private static Set<File> set(List<File> files) {
+    return new HashSet<File>(files);
+  }
+
+  @Test
+  public void testNewFoldersAreListed() throws Exception {
+    RunFolderScanner scanner = scanner();
+    File complete = runFolder("150101_SN100_0001_AC0000ACXX", true);
+    File running = runFolder("150102_SN100_0002_BC0000ACXX", false);
+    // not a run folder
+    assertTrue(new File(root, "logs").mkdir());
+
+    assertEquals(set(complete, running), set(scanner.listFiles(root)));
+
+    File added = runFolder("150103_SN100_0003_AC0001ACXX", true);
+    assertEquals(set(running, added), set(scanner.listFiles(root)));
+  }
+
+  @Test
+  public void testUnchangedCompleteFoldersAreSkipped() throws Exception {
+    RunFolderScanner scanner = scanner();
+    File complete = runFolder("150101_SN100_0001_AC0000ACXX", true);
+    File running = runFolder("150102_SN100_0002_BC0000ACXX", false);
+
+    assertEquals(set(complete, running), set(scanner.listFiles(root)));
+    // runs in progress are always listed, completed runs only while they change
+    assertEquals(set(running), set(scanner.listFiles(root)));
+    assertEquals(set(running), set(scanner.listFiles(root)));
+    assertEquals(set(complete, running), set(scanner.listRunFolders(root)));
+  }
+
+  @Test
+  public void testModifiedFoldersAreListedAgain() throws Exception {
+    RunFolderScanner scanner = scanner();
+    File complete = runFolder("150101_SN100_0001_AC0000ACXX", true);
+    scanner.listFiles(root);
+    assertEquals(Collections.<File> emptyList(), scanner.listFiles(root));
+
+    File runInfo = new File(complete, "RunInfo.xml");
+    write(runInfo, "<RunInfo><Run Id=\"150101_SN100_0001_AC0000ACXX\"/></RunInfo>");
+    assertTrue(runInfo.setLastModified(runInfo.lastModified() + TimeUnit.MINUTES.toMillis(1)));
+    assertEquals(Arrays.asList(complete), scanner.listFiles(root));
+    assertEquals(Collections.<File> emptyList(), scanner.listFiles(root));
+  }
+
+  @Test
+  public void testFoldersAreListedUntilQuiet() throws Exception {
+    RunFolderScanner scanner = scanner();
+    scanner.setQuietPeriod(TimeUnit.HOURS.toMillis(1));
+    File complete = runFolder("150101_SN100_0001_AC0000ACXX", true);
+
+    assertEquals(Arrays.asList(complete), scanner.listFiles(root));
+    assertEquals(Arrays.asList(complete), scanner.listFiles(root));
+  }
+
+  @Test
+  public void testFoldersWithoutCompletionMarkersAreAlwaysListed() throws Exception {
+    RunFolderScanner scanner = new RunFolderScanner(RunFolderConstants.ILLUMINA_FOLDER_REGEX);
+    File complete = runFolder("150101_SN100_0001_AC0000ACXX", true);
+
+    assertEquals(Arrays.asList(complete), scanner.listFiles(root));
+    assertEquals(Arrays.asList(complete), scanner.listFiles(root));
+  }
+
+  @Test
+  public void testStateFileSurvivesRestart() throws Exception {
+    File stateFile = new File(temp.getRoot(), "scan.properties");
+    runFolder("150101_SN100_0001_AC0000ACXX", true);
+    File running = runFolder("150102_SN100_0002_BC0000ACXX", false);
+
+    RunFolderScanner first = scanner();
+    first.setStateFile(stateFile);
+    first.listFiles(root);
+    assertTrue(stateFile.exists());
+
+    RunFolderScanner restarted = scanner();
+    restarted.setStateFile(stateFile);
+    assertEquals(set(running), set(restarted.listFiles(root)));
+  }
+
+  @Test
+  public void testResetListsEveryFolder() throws Exception {
+    RunFolderScanner scanner = scanner();
+    File complete = runFolder("150101_SN100_0001_AC0000ACXX", true);
+    scanner.listFiles(root);
+    assertEquals(Collections.<File> emptyList(), scanner.listFiles(root));
+
+    scanner.reset();
+    assertEquals(Arrays.asList(complete), scanner.listFiles(root));
+  }
+}
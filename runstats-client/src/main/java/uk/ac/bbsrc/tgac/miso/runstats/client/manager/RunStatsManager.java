@@ -25,9 +25,13 @@ package uk.ac.bbsrc.tgac.miso.runstats.client.manager;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -69,8 +73,27 @@ public class RunStatsManager {
 
   ReportsDecorator reportsDecorator;
 
+  private static final int SUMMARY_CACHE_SIZE = 50;
+  public static final long DEFAULT_SUMMARY_CACHE_TTL = 10 * 60 * 1000L;
+
+  private volatile long summaryCacheTtl = DEFAULT_SUMMARY_CACHE_TTL;
+
+  private final Map<String, CachedSummary> summaryCache = Collections
+      .synchronizedMap(new LinkedHashMap<String, CachedSummary>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedSummary> eldest) {
+          return size() > SUMMARY_CACHE_SIZE;
+        }
+      });
+
   public RunStatsManager(DataSource dataSource) {
-    this.reports = new Reports(dataSource);
+    this(new Reports(dataSource));
+  }
+
+  RunStatsManager(Reports reports) {
+    this.reports = reports;
     this.reportsDecorator = new ReportsDecorator(reports);
   }
 
@@ -78,6 +101,21 @@ public class RunStatsManager {
     this(template.getDataSource());
   }
 
+  /**
+   * Sets how long a summary report is served from the cache. Statistics are written to the stats DB by the analysis pipeline, outside
+   * MISO, so this bounds how stale a report can be.
+   * 
+   * @param summaryCacheTtl
+   *          the lifetime of a cached summary report in milliseconds, or 0 to build every report afresh
+   */
+  public void setSummaryCacheTtl(long summaryCacheTtl) {
+    if (summaryCacheTtl < 0) throw new IllegalArgumentException("Summary cache TTL cannot be negative");
+    this.summaryCacheTtl = summaryCacheTtl;
+    if (summaryCacheTtl == 0) {
+      summaryCache.clear();
+    }
+  }
+
   public List<String> listPerBaseSummaryAnalyses() throws RunStatsException {
     try {
       return reports.listPerBaseSummaryAnalyses();
@@ -108,23 +146,57 @@ public class RunStatsManager {
     }
   }
 
+  /**
+   * Retrieves the run-, lane- and barcode-level average values for a run. Reports are cached by run alias for the TTL set by
+   * {@link #setSummaryCacheTtl(long)}, ten minutes by default, and are discarded sooner by {@link #invalidateSummaryStats(String)} when a
+   * run is saved or its progress changes.
+   * 
+   * @param run
+   *          the Run to report on
+   * @return the summary report, or null if no statistics exist for the run
+   */
   public JSONObject getSummaryStatsForRun(Run run) throws RunStatsException {
+    String alias = run.getAlias();
+    CachedSummary cached = summaryCache.get(alias);
+    if (cached != null && !cached.isExpired(summaryCacheTtl)) {
+      return JSONObject.fromObject(cached.json);
+    }
+
+    JSONObject report = buildSummaryStatsForRun(run);
+    if (report != null && summaryCacheTtl > 0) {
+      summaryCache.put(alias, new CachedSummary(report.toString()));
+    }
+    return report;
+  }
+
+  /**
+   * Discards any cached summary report for the given run, e.g. because new statistics have been ingested for it
+   * 
+   * @param runAlias
+   *          the alias of the run whose statistics have changed
+   */
+  public void invalidateSummaryStats(String runAlias) {
+    summaryCache.remove(runAlias);
+  }
+
+  /**
+   * Discards all cached summary reports
+   */
+  public void invalidateAllSummaryStats() {
+    summaryCache.clear();
+  }
+
+  private JSONObject buildSummaryStatsForRun(Run run) {
     JSONObject report = new JSONObject();
-    ReportTable rt;
 
     Map<RunProperty, String> map = new HashMap<RunProperty, String>();
     map.put(RunProperty.run, run.getAlias());
-    try {
-      rt = reports.getAverageValues(map);
-      if (rt == null) {
-        return null;
-      }
-      report.put("runSummary", JSONArray.fromObject(rt.toJSON()));
-    } catch (SQLException e) {
-      log.error("get summary stats for run", e);
-    } catch (IOException e) {
-      log.error("get summary stats for run", e);
+    ReportTable rt = putAverageValues(report, "runSummary", map, "get summary stats for run");
+    if (rt == null) {
+      return null;
     }
+    // nothing can be reported for lanes or barcodes of a run without statistics
+    boolean runHasStats = !rt.isEmpty();
 
     if (!run.getSequencerPartitionContainers().isEmpty()) {
       JSONObject containers = new JSONObject();
@@ -135,45 +207,11 @@ public class RunStatsManager {
         JSONArray partitions = new JSONArray();
         for (SequencerPoolPartition part : container.getPartitions()) {
           JSONObject partition = new JSONObject();
-
-          map.put(RunProperty.lane, Integer.toString(part.getPartitionNumber()));
-
-          try {
-            rt = reports.getAverageValues(map);
-            if (rt != null) {
-              partition.put("partitionSummary", JSONArray.fromObject(rt.toJSON()));
-            }
-          } catch (SQLException e) {
-            log.error("get summary stats for run", e);
-          } catch (IOException e) {
-            log.error("get summary stats for run", e);
+          if (runHasStats) {
+            putPartitionStats(partition, run, part, "get summary stats for run");
+          } else {
+            partition.put("partitionSummary", new JSONArray());
           }
-
-          // clear any previous barcode query
-          map.remove(RunProperty.barcode);
-          if (part.getPool() != null) {
-            Pool<? extends Poolable> pool = part.getPool();
-            for (Dilution d : pool.getDilutions()) {
-              Library l = d.getLibrary();
-              if (!l.getTagBarcodes().isEmpty()) {
-                for (TagBarcode tb : l.getTagBarcodes()) {
-                  map.remove(RunProperty.barcode);
-                  try {
-                    map.put(RunProperty.barcode, tb.getSequence());
-                    rt = reports.getAverageValues(map);
-                    if (rt != null) {
-                      partition.put(tb.getSequence(), JSONArray.fromObject(rt.toJSON()));
-                    }
-                  } catch (SQLException e) {
-                    log.error("get summary stats for run", e);
-                  } catch (IOException e) {
-                    log.error("get summary stats for run", e);
-                  }
-                }
-              }
-            }
-          }
-
           partitions.add(part.getPartitionNumber() - 1, partition);
         }
         f.put("partitions", partitions);
@@ -188,48 +226,15 @@ public class RunStatsManager {
     Map<RunProperty, String> map = new HashMap<RunProperty, String>();
     map.put(RunProperty.run, run.getAlias());
     map.put(RunProperty.lane, String.valueOf(laneNumber));
-    ReportTable rt;
 
     JSONObject partition = new JSONObject();
-    try {
-      rt = reports.getAverageValues(map);
-      if (rt != null) {
-        partition.put("partitionSummary", JSONArray.fromObject(rt.toJSON()));
-      }
-    } catch (SQLException e) {
-      log.error("get summary stats for lane", e);
-    } catch (IOException e) {
-      log.error("get summary stats for lane", e);
-    }
+    ReportTable rt = putAverageValues(partition, "partitionSummary", map, "get summary stats for lane");
 
-    // clear any previous barcode query
-    map.remove(RunProperty.barcode);
-    if (!run.getSequencerPartitionContainers().isEmpty()) {
+    if (rt != null && !rt.isEmpty() && !run.getSequencerPartitionContainers().isEmpty()) {
       for (SequencerPartitionContainer<SequencerPoolPartition> container : run.getSequencerPartitionContainers()) {
         SequencerPoolPartition part = container.getPartitionAt(laneNumber);
         if (part.getPartitionNumber() == laneNumber) {
-          if (part.getPool() != null) {
-            Pool<? extends Poolable> pool = part.getPool();
-            for (Dilution d : pool.getDilutions()) {
-              Library l = d.getLibrary();
-              if (!l.getTagBarcodes().isEmpty()) {
-                for (TagBarcode tb : l.getTagBarcodes()) {
-                  map.remove(RunProperty.barcode);
-                  try {
-                    map.put(RunProperty.barcode, tb.getSequence());
-                    rt = reports.getAverageValues(map);
-                    if (rt != null) {
-                      partition.put(tb.getSequence(), JSONArray.fromObject(rt.toJSON()));
-                    }
-                  } catch (SQLException e) {
-                    log.error("get summary stats for lane", e);
-                  } catch (IOException e) {
-                    log.error("get summary stats for lane", e);
-                  }
-                }
-              }
-            }
-          }
+          putBarcodeStats(partition, map, part, "get summary stats for lane");
           break;
         }
       }
@@ -238,6 +243,65 @@ public class RunStatsManager {
     return partition;
   }
 
+  /**
+   * Adds the lane summary to the partition JSON and, if the lane has any statistics, the summary for each distinct barcode in the lane
+   */
+  private void putPartitionStats(JSONObject partition, Run run, SequencerPoolPartition part, String context) {
+    Map<RunProperty, String> map = new HashMap<RunProperty, String>();
+    map.put(RunProperty.run, run.getAlias());
+    map.put(RunProperty.lane, Integer.toString(part.getPartitionNumber()));
+
+    ReportTable rt = putAverageValues(partition, "partitionSummary", map, context);
+    if (rt != null && !rt.isEmpty()) {
+      putBarcodeStats(partition, map, part, context);
+    }
+  }
+
+  private void putBarcodeStats(JSONObject partition, Map<RunProperty, String> laneMap, SequencerPoolPartition part, String context) {
+    Map<RunProperty, String> map = new HashMap<RunProperty, String>(laneMap);
+    for (String sequence : getTagBarcodeSequences(part)) {
+      map.put(RunProperty.barcode, sequence);
+      putAverageValues(partition, sequence, map, context);
+    }
+  }
+
+  /**
+   * @return the distinct tag barcode sequences of all libraries pooled in the given partition, in pool order
+   */
+  private static Set<String> getTagBarcodeSequences(SequencerPoolPartition part) {
+    Set<String> sequences = new LinkedHashSet<String>();
+    if (part.getPool() != null) {
+      Pool<? extends Poolable> pool = part.getPool();
+      for (Dilution d : pool.getDilutions()) {
+        Library l = d.getLibrary();
+        for (TagBarcode tb : l.getTagBarcodes()) {
+          sequences.add(tb.getSequence());
+        }
+      }
+    }
+    return sequences;
+  }
+
+  /**
+   * Queries the average values for the given filter and, if there are any, adds them to the JSON under the given key
+   * 
+   * @return the queried values, or null if they could not be read
+   */
+  private ReportTable putAverageValues(JSONObject json, String key, Map<RunProperty, String> map, String context) {
+    ReportTable rt = null;
+    try {
+      rt = reports.getAverageValues(map);
+      if (rt != null) {
+        json.put(key, JSONArray.fromObject(rt.toJSON()));
+      }
+    } catch (SQLException e) {
+      log.error(context, e);
+    } catch (IOException e) {
+      log.error(context, e);
+    }
+    return rt;
+  }
+
   public JSONObject getCompleteStatsForLane(String runAlias, int laneNumber) throws RunStatsException {
     return null;
   }
@@ -261,4 +325,17 @@ public class RunStatsManager {
       throw new RunStatsException("Cannot generate D3 plot JSON for run " + run.getAlias() + ": " + e.getMessage());
     }
   }
+
+  private static class CachedSummary {
+    private final String json;
+    private final long created = System.currentTimeMillis();
+
+    private CachedSummary(String json) {
+      this.json = json;
+    }
+
+    private boolean isExpired(long ttl) {
+      return System.currentTimeMillis() - created > ttl;
+    }
+  }
 }
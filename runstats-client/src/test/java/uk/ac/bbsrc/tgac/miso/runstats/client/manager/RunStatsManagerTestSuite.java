@@ -0,0 +1,142 @@
+package uk.ac.bbsrc.tgac.miso.runstats.client.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import uk.ac.bbsrc.tgac.miso.core.data.Run;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
+import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.RunImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.SequencerPartitionContainerImpl;
+import uk.ac.tgac.statsdb.run.ReportTable;
+import uk.ac.tgac.statsdb.run.Reports;
+import uk.ac.tgac.statsdb.run.RunProperty;
+
+public class RunStatsManagerTestSuite {
+
+  private Reports reports;
+  private RunStatsManager sut;
+
+  @Before
+  public void setUp() throws Exception {
+    ReportTable table = mock(ReportTable.class);
+    when(table.isEmpty()).thenReturn(false);
+    when(table.toJSON()).thenReturn("[{\"GC\":\"40\"}]");
+    reports = mock(Reports.class);
+    when(reports.getAverageValues(anyMapOf(RunProperty.class, String.class))).thenReturn(table);
+    sut = new RunStatsManager(reports);
+  }
+
+  private static Run run(String alias) {
+    Run run = new RunImpl();
+    run.setAlias(alias);
+    return run;
+  }
+
+  private void verifyReportsBuilt(int times) throws Exception {
+    verify(reports, times(times)).getAverageValues(anyMapOf(RunProperty.class, String.class));
+  }
+
+  @Test
+  public void testSummaryIsCached() throws Exception {
+    JSONObject first = sut.getSummaryStatsForRun(run("RUN_A"));
+    JSONObject second = sut.getSummaryStatsForRun(run("RUN_A"));
+    assertEquals(first, second);
+    verifyReportsBuilt(1);
+
+    sut.getSummaryStatsForRun(run("RUN_B"));
+    verifyReportsBuilt(2);
+  }
+
+  @Test
+  public void testCachedSummaryIsCopied() throws Exception {
+    sut.getSummaryStatsForRun(run("RUN_A")).put("changed", true);
+    assertFalse(sut.getSummaryStatsForRun(run("RUN_A")).has("changed"));
+  }
+
+  @Test
+  public void testInvalidateSummaryStats() throws Exception {
+    sut.getSummaryStatsForRun(run("RUN_A"));
+    sut.getSummaryStatsForRun(run("RUN_B"));
+    sut.invalidateSummaryStats("RUN_A");
+
+    sut.getSummaryStatsForRun(run("RUN_A"));
+    sut.getSummaryStatsForRun(run("RUN_B"));
+    verifyReportsBuilt(3);
+  }
+
+  @Test
+  public void testInvalidateAllSummaryStats() throws Exception {
+    sut.getSummaryStatsForRun(run("RUN_A"));
+    sut.getSummaryStatsForRun(run("RUN_B"));
+    sut.invalidateAllSummaryStats();
+
+    sut.getSummaryStatsForRun(run("RUN_A"));
+    sut.getSummaryStatsForRun(run("RUN_B"));
+    verifyReportsBuilt(4);
+  }
+
+  @Test
+  public void testMissingSummaryIsNotCached() throws Exception {
+    when(reports.getAverageValues(anyMapOf(RunProperty.class, String.class))).thenReturn(null);
+    assertNull(sut.getSummaryStatsForRun(run("RUN_A")));
+    assertNull(sut.getSummaryStatsForRun(run("RUN_A")));
+    verifyReportsBuilt(2);
+  }
+
+  @Test
+  public void testZeroTtlDisablesCache() throws Exception {
+    sut.getSummaryStatsForRun(run("RUN_A"));
+    sut.setSummaryCacheTtl(0);
+    sut.getSummaryStatsForRun(run("RUN_A"));
+    sut.getSummaryStatsForRun(run("RUN_A"));
+    verifyReportsBuilt(3);
+  }
+
+  @Test
+  public void testLanesOfRunWithoutStatsHavePartitionSummary() throws Exception {
+    ReportTable empty = mock(ReportTable.class);
+    when(empty.isEmpty()).thenReturn(true);
+    when(empty.toJSON()).thenReturn("[]");
+    when(reports.getAverageValues(anyMapOf(RunProperty.class, String.class))).thenReturn(empty);
+    Run run = run("RUN_A");
+    SequencerPartitionContainer<SequencerPoolPartition> container = new SequencerPartitionContainerImpl();
+    container.setId(1L);
+    container.setPartitionLimit(2);
+    container.initEmptyPartitions();
+    run.addSequencerPartitionContainer(container);
+
+    JSONObject report = sut.getSummaryStatsForRun(run);
+    JSONArray partitions = report.getJSONObject("containers").getJSONObject("1").getJSONArray("partitions");
+    assertEquals(2, partitions.size());
+    for (int i = 0; i < partitions.size(); i++) {
+      assertTrue(partitions.getJSONObject(i).has("partitionSummary"));
+    }
+    // the lanes are not queried when the run has no statistics
+    verifyReportsBuilt(1);
+  }
+
+  @Test
+  public void testUnreadableReportIsSkipped() throws Exception {
+    ReportTable broken = mock(ReportTable.class);
+    when(broken.toJSON()).thenThrow(new IOException("broken"));
+    when(reports.getAverageValues(anyMapOf(RunProperty.class, String.class))).thenReturn(broken);
+
+    JSONObject report = sut.getSummaryStatsForRun(run("RUN_A"));
+    assertFalse(report.has("runSummary"));
+  }
+}
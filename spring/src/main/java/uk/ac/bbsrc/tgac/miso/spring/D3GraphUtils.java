@@ -0,0 +1,106 @@
+package uk.ac.bbsrc.tgac.miso.spring;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
+
+/**
+ * Builds the trees drawn by the D3 graph views, shared by the reporting helper and the graph controllers.
+ */
+public class D3GraphUtils {
+
+  /**
+   * Builds the tree of a project's runs, studies with their experiments, and samples with their libraries. Runs are coloured by whether
+   * they have completed, samples by whether they passed QC, and libraries by whether they have been QCed.
+   *
+   * @param graph
+   *          the project's graph, already restricted to what the current user may read
+   * @return the project node
+   */
+  public static JSONObject projectTree(ProjectGraph graph) {
+    JSONObject projectJSON = new JSONObject();
+    projectJSON.put("name", graph.getName());
+    projectJSON.put("description", graph.getAlias());
+    JSONArray projectChildrenArray = new JSONArray();
+
+    JSONArray runsArray = new JSONArray();
+    for (ProjectGraph.Node run : graph.getRuns()) {
+      runsArray.add(leaf(run, run.isPassed() ? "1" : "0"));
+    }
+    if (runsArray.size() > 0) {
+      projectChildrenArray.add(group("Runs", runsArray));
+    }
+
+    Map<Long, List<ProjectGraph.Node>> experimentsByStudyId = graph.getExperimentsByStudyId();
+    JSONArray studiesArray = new JSONArray();
+    for (ProjectGraph.Node study : graph.getStudies()) {
+      JSONObject substudyJSON = new JSONObject();
+      substudyJSON.put("name", study.getName());
+      substudyJSON.put("description", study.getAlias());
+      List<ProjectGraph.Node> experiments = childrenOf(experimentsByStudyId, study);
+      if (experiments.size() > 0) {
+        JSONArray experimentsArray = new JSONArray();
+        for (ProjectGraph.Node experiment : experiments) {
+          experimentsArray.add(leaf(experiment, "2"));
+        }
+        JSONArray substudiesArray = new JSONArray();
+        substudiesArray.add(group("experiment", experimentsArray));
+        substudyJSON.put("children", substudiesArray);
+      }
+      studiesArray.add(substudyJSON);
+    }
+    if (studiesArray.size() > 0) {
+      projectChildrenArray.add(group("Studies", studiesArray));
+    }
+
+    Map<Long, List<ProjectGraph.Node>> librariesBySampleId = graph.getLibrariesBySampleId();
+    JSONArray samplesArray = new JSONArray();
+    for (ProjectGraph.Node sample : graph.getSamples()) {
+      List<ProjectGraph.Node> libraries = childrenOf(librariesBySampleId, sample);
+      if (libraries.isEmpty()) {
+        samplesArray.add(leaf(sample, sample.isPassed() ? "1" : "0"));
+      } else {
+        JSONArray librariesArray = new JSONArray();
+        for (ProjectGraph.Node library : libraries) {
+          librariesArray.add(leaf(library, library.isPassed() ? "1" : "0"));
+        }
+        JSONObject subsampleJSON = new JSONObject();
+        subsampleJSON.put("name", sample.getName());
+        subsampleJSON.put("description", sample.getAlias());
+        subsampleJSON.put("children", librariesArray);
+        samplesArray.add(subsampleJSON);
+      }
+    }
+    if (samplesArray.size() > 0) {
+      projectChildrenArray.add(group("Samples", samplesArray));
+    }
+
+    projectJSON.put("children", projectChildrenArray);
+    return projectJSON;
+  }
+
+  private static List<ProjectGraph.Node> childrenOf(Map<Long, List<ProjectGraph.Node>> children, ProjectGraph.Node parent) {
+    List<ProjectGraph.Node> nodes = children.get(parent.getId());
+    return nodes == null ? Collections.<ProjectGraph.Node> emptyList() : nodes;
+  }
+
+  private static JSONObject leaf(ProjectGraph.Node node, String color) {
+    JSONObject json = new JSONObject();
+    json.put("name", node.getName());
+    json.put("description", node.getAlias());
+    json.put("color", color);
+    return json;
+  }
+
+  private static JSONObject group(String name, JSONArray children) {
+    JSONObject json = new JSONObject();
+    json.put("name", name);
+    json.put("description", "");
+    json.put("children", children);
+    return json;
+  }
+}
@@ -94,7 +94,7 @@ public class BoxControllerHelperService {
     try {
       JSONObject j = new JSONObject();
       JSONArray jsonArray = new JSONArray();
-      for (Box box : requestManager.listAllBoxes()) {
+      for (Box box : requestManager.listAllBoxesWithOccupancy()) {
         JSONArray inner = new JSONArray();
         
         inner.add(TableHelper.hyperLinkify("/miso/box/" + box.getId(), box.getName()));
@@ -666,7 +666,7 @@ public class BoxControllerHelperService {
       }
 
       PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return PrinterControllerHelperService.printJobQueued(pj);
     }
     catch (MisoPrintException e) {
       log.debug("Failed to print barcodes", e);
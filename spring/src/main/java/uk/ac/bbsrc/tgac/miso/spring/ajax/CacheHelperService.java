@@ -54,6 +54,7 @@ import uk.ac.bbsrc.tgac.miso.core.event.manager.PoolAlertManager;
 import uk.ac.bbsrc.tgac.miso.core.event.manager.ProjectAlertManager;
 import uk.ac.bbsrc.tgac.miso.core.event.manager.RunAlertManager;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
+import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheInvalidator;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
 
 /**
@@ -126,19 +127,13 @@ public class CacheHelperService {
   }
 
   public <T extends Nameable> void evictObjectFromCache(T n, Class<T> entityType) {
-    Cache lazyCache = DbUtils.lookupCache(cacheManager, entityType, true);
-    Cache cache = DbUtils.lookupCache(cacheManager, entityType, false);
-    if (lazyCache != null) {
-      DbUtils.updateCaches(lazyCache, n.getId());
-    }
-    if (cache != null) {
-      DbUtils.updateCaches(cache, n.getId());
-    }
+    CacheInvalidator.forManager(cacheManager).evict(entityType, n.getId());
   }
 
   public JSONObject viewCacheStats(HttpSession session, JSONObject json) {
     Map<String, Object> response = new HashMap<String, Object>();
     List<String> cacheNames = Arrays.asList(cacheManager.getCacheNames());
+    CacheInvalidator invalidator = CacheInvalidator.forManager(cacheManager);
     Collections.sort(cacheNames);
     JSONArray caches = new JSONArray();
     for (String s : cacheNames) {
@@ -147,6 +142,10 @@ public class CacheHelperService {
       j.put("name", s);
       j.put("size", c.getSize());
       j.put("hits", c.getLiveCacheStatistics().getCacheHitCount());
+      j.put("misses", c.getLiveCacheStatistics().getCacheMissCount());
+      CacheInvalidator.Stats invalidations = invalidator.getStats(s);
+      j.put("evictions", invalidations == null ? 0 : invalidations.getEvictions());
+      j.put("listUpdates", invalidations == null ? 0 : invalidations.getListUpdates());
       j.put("searchtimes",
           c.getLiveCacheStatistics().getAverageGetTimeMillis() + " (" + c.getLiveCacheStatistics().getMaxGetTimeMillis() + ")");
       caches.add(j);
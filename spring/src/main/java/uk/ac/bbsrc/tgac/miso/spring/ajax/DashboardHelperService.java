@@ -29,8 +29,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.HttpSession;
@@ -47,12 +49,15 @@ import org.springframework.security.ldap.userdetails.InetOrgPerson;
 import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.manager.SecurityManager;
 
+import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import net.sourceforge.fluxion.ajax.Ajaxified;
 import net.sourceforge.fluxion.ajax.util.JSONUtils;
 import uk.ac.bbsrc.tgac.miso.core.data.Experiment;
+import uk.ac.bbsrc.tgac.miso.core.data.KeysetPage;
 import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.Pool;
+import uk.ac.bbsrc.tgac.miso.core.data.Poolable;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
@@ -81,6 +86,12 @@ public class DashboardHelperService {
   @Autowired
   private RequestManager requestManager;
 
+  public static final int SEARCH_PAGE_SIZE = 20;
+  public static final int MAX_SEARCH_PAGE_SIZE = 100;
+  private static final int LEGACY_SEARCH_LIMIT = 50;
+
+  private final Map<String, DashboardSearch<?>> searches = createSearches();
+
   public JSONObject checkUser(HttpSession session, JSONObject json) {
     String username = json.getString("username");
     if (isStringEmptyOrNull(username)) {
@@ -145,194 +156,86 @@ public class DashboardHelperService {
     return JSONUtils.SimpleJSONError("Please supply a valid username to check");
   }
 
-  public JSONObject searchProject(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
+  /**
+   * Searches one entity type for the dashboard, a page at a time. Results are listed newest first and keyed on ID, so each page costs a
+   * bounded query however many rows match.
+   * 
+   * @param json
+   *          "type" (project, study, experiment, run, sample, library, libraryDilution or pool), "str" (the search string), and optionally
+   *          "before" (the "next" value of the previous page) and "limit" (the page size, capped at {@value #MAX_SEARCH_PAGE_SIZE})
+   * @return "results", each with an id, url, name and alias (or library, for dilutions); "query", the search string actually used; and
+   *         "next", if there are more results
+   */
+  public JSONObject searchPage(HttpSession session, JSONObject json) {
+    DashboardSearch<?> search = searches.get(json.optString("type"));
+    if (search == null) {
+      return JSONUtils.SimpleJSONError("Unknown search type: " + json.optString("type"));
+    }
+    long beforeId = json.has("before") ? json.getLong("before") : Long.MAX_VALUE;
+    int limit = Math.max(1, Math.min(json.optInt("limit", SEARCH_PAGE_SIZE), MAX_SEARCH_PAGE_SIZE));
     try {
-      List<Project> projects;
-      StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-        projects = new ArrayList<>(requestManager.listAllProjectsBySearch(searchStr));
-      } else {
-        projects = new ArrayList<>(requestManager.listAllProjectsWithLimit(50));
-      }
-
-      if (projects.size() > 0) {
-        Collections.sort(projects);
-        Collections.reverse(projects);
-        for (Project p : projects) {
-          b.append("<a class=\"dashboardresult\" href=\"/miso/project/" + p.getProjectId()
-              + "\"><div onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-          b.append("Name: <b>" + p.getName() + "</b><br/>");
-          b.append("Alias: <b>" + p.getAlias() + "</b><br/>");
-          b.append("</div></a>");
-        }
-      } else {
-        b.append("No matches");
-      }
-      return JSONUtils.JSONObjectResponse("html", b.toString());
-
+      return search.page(json.optString("str"), beforeId, limit);
     } catch (IOException e) {
       log.debug("Failed", e);
       return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
     }
   }
 
+  public JSONObject searchProject(HttpSession session, JSONObject json) {
+    return searchHtml("project", json.getString("str"));
+  }
 
   public JSONObject searchPool(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
-    try {
-      List<Pool> pools;
-      StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-
-        pools = new ArrayList<Pool>(requestManager.listAllPoolsBySearch(searchStr));
-      } else {
-        pools = new ArrayList<Pool>(requestManager.listAllPoolsWithLimit(50));
-      }
-
-      if (pools.size() > 0) {
-        Collections.sort(pools);
-        Collections.reverse(pools);
-        for (Pool p : pools) {
-          // yuck-o
-          b.append("<a class=\"dashboardresult\" href=\"/miso/pool/" + p.getId()
-              + "\"><div onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-          b.append("Name: <b>" + p.getName() + "</b><br/>");
-          b.append("Alias: <b>" + p.getAlias() + "</b><br/>");
-          b.append("</div></a>");
-        }
-      } else {
-        b.append("No matches");
-      }
-      return JSONUtils.JSONObjectResponse("html", b.toString());
-
-    } catch (IOException e) {
-      log.debug("Failed", e);
-      return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
-    }
+    return searchHtml("pool", json.getString("str"));
   }
 
   public JSONObject searchStudy(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
-    try {
-      List<Study> studies;
-      StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-        studies = new ArrayList<Study>(requestManager.listAllStudiesBySearch(searchStr));
-      } else {
-        studies = new ArrayList<Study>(requestManager.listAllStudiesWithLimit(50));
-      }
-
-      if (studies.size() > 0) {
-        Collections.sort(studies);
-        Collections.reverse(studies);
-        for (Study s : studies) {
-          b.append("<a class=\"dashboardresult\" href=\"/miso/study/" + s.getId()
-              + "\"><div  onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-          b.append("Name: <b>" + s.getName() + "</b><br/>");
-          b.append("Alias: <b>" + s.getAlias() + "</b><br/>");
-          b.append("</div></a>");
-        }
-      } else {
-        b.append("No matches");
-      }
-      return JSONUtils.JSONObjectResponse("html", b.toString());
-    } catch (IOException e) {
-      log.debug("Failed", e);
-      return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
-    }
+    return searchHtml("study", json.getString("str"));
   }
 
   public JSONObject searchExperiment(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
-    try {
-      List<Experiment> experiments;
-      StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-        experiments = new ArrayList<Experiment>(requestManager.listAllExperimentsBySearch(searchStr));
-      } else {
-        experiments = new ArrayList<Experiment>(requestManager.listAllExperimentsWithLimit(50));
-      }
-
-      if (experiments.size() > 0) {
-        Collections.sort(experiments);
-        Collections.reverse(experiments);
-        for (Experiment e : experiments) {
-          b.append("<a class=\"dashboardresult\" href=\"/miso/experiment/" + e.getId()
-              + "\"><div  onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-          b.append("Name: <b>" + e.getName() + "</b><br/>");
-          b.append("Alias: <b>" + e.getAlias() + "</b><br/>");
-          b.append("</div></a>");
-        }
-      } else {
-        b.append("No matches");
-      }
-      return JSONUtils.JSONObjectResponse("html", b.toString());
-    } catch (IOException e) {
-      log.debug("Failed", e);
-      return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
-    }
+    return searchHtml("experiment", json.getString("str"));
   }
 
   public JSONObject searchRun(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
-    try {
-      List<Run> runs;
-      StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-        runs = new ArrayList<Run>(requestManager.listAllRunsBySearch(searchStr));
-      } else {
-        runs = new ArrayList<Run>(requestManager.listAllRunsWithLimit(50));
-      }
-
-      if (runs.size() > 0) {
-        Collections.sort(runs);
-        Collections.reverse(runs);
-        for (Run r : runs) {
-          b.append("<a class=\"dashboardresult\" href=\"/miso/run/" + r.getId()
-              + "\"><div  onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-          b.append("Name: <b>" + r.getName() + "</b><br/>");
-          b.append("Alias: <b>" + r.getAlias() + "</b><br/>");
-          b.append("</div></a>");
-        }
-      } else {
-        b.append("No matches");
-      }
-      return JSONUtils.JSONObjectResponse("html", b.toString());
-    } catch (IOException e) {
-      log.debug("Failed", e);
-      return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
-    }
+    return searchHtml("run", json.getString("str"));
   }
 
   public JSONObject searchLibraryDilution(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
+    return searchHtml("libraryDilution", json.getString("str"));
+  }
+
+  public JSONObject searchLibrary(HttpSession session, JSONObject json) {
+    return searchHtml("library", json.getString("str"));
+  }
+
+  public JSONObject searchSample(HttpSession session, JSONObject json) {
+    return searchHtml("sample", json.getString("str"));
+  }
+
+  /**
+   * Renders the first page of a dashboard search as HTML, for callers that predate {@link #searchPage(HttpSession, JSONObject)}
+   */
+  private JSONObject searchHtml(String type, String searchStr) {
     try {
-      List<LibraryDilution> libraryDilutions;
+      JSONObject page = searches.get(type).page(searchStr, Long.MAX_VALUE, LEGACY_SEARCH_LIMIT);
+      JSONArray results = page.getJSONArray("results");
       StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-        libraryDilutions = new ArrayList<LibraryDilution>(requestManager.listAllLibraryDilutionsBySearchOnly(searchStr));
-      } else {
-        libraryDilutions = new ArrayList<LibraryDilution>(requestManager.listAllLibraryDilutionsWithLimit(50));
-      }
-
-      if (libraryDilutions.size() > 0) {
-        Collections.sort(libraryDilutions);
-        Collections.reverse(libraryDilutions);
-        for (LibraryDilution ld : libraryDilutions) {
-          if (ld != null) {
-            if (ld.getLibrary() != null) {
-              b.append("<a class=\"dashboardresult\" href=\"/miso/library/" + ld.getLibrary().getId()
-                  + "\"><div  onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-              b.append("Name: <b>" + ld.getName() + "</b><br/>");
-              b.append("From Library: <b>" + ld.getLibrary().getAlias() + "(" + ld.getLibrary().getName() + ")</b><br/>");
-              b.append("</div></a>");
-            }
-          }
-        }
-      } else {
+      if (results.isEmpty()) {
         b.append("No matches");
       }
+      for (int i = 0; i < results.size(); i++) {
+        JSONObject r = results.getJSONObject(i);
+        b.append("<a class=\"dashboardresult\" href=\"" + r.getString("url")
+            + "\"><div onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
+        b.append("Name: <b>" + r.getString("name") + "</b><br/>");
+        if (r.has("library")) {
+          b.append("From Library: <b>" + r.getString("library") + "</b><br/>");
+        } else {
+          b.append("Alias: <b>" + r.getString("alias") + "</b><br/>");
+        }
+        b.append("</div></a>");
+      }
       return JSONUtils.JSONObjectResponse("html", b.toString());
     } catch (IOException e) {
       log.debug("Failed", e);
@@ -340,73 +243,209 @@ public class DashboardHelperService {
     }
   }
 
-  public JSONObject searchLibrary(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
-    try {
-      List<Library> libraries;
-      StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-        libraries = new ArrayList<Library>(requestManager.listAllLibrariesBySearch(searchStr));
-        if (libraries.isEmpty()) {
-          // Base64-encoded string, most likely a barcode image beeped in. decode and search
-          libraries = new ArrayList<Library>(requestManager.listAllLibrariesBySearch(new String(Base64.decodeBase64(searchStr))));
+  /**
+   * A paged dashboard search over one entity type
+   */
+  private abstract static class DashboardSearch<T> {
+    private final boolean decodeBarcodes;
+
+    /**
+     * @param decodeBarcodes
+     *          if true, and a search finds nothing, the search string is retried as a Base64-encoded barcode scan
+     */
+    protected DashboardSearch(boolean decodeBarcodes) {
+      this.decodeBarcodes = decodeBarcodes;
+    }
+
+    protected abstract KeysetPage<T> list(String query, long beforeId, int limit) throws IOException;
+
+    protected abstract long idOf(T item);
+
+    /**
+     * @return the JSON for one result, or null if it cannot be shown
+     */
+    protected abstract JSONObject toJson(T item);
+
+    public JSONObject page(String query, long beforeId, int limit) throws IOException {
+      if (query == null) query = "";
+      // fetch one extra to find out whether there is another page
+      KeysetPage<T> items = list(query, beforeId, limit + 1);
+      if (items.getItems().isEmpty() && decodeBarcodes && beforeId == Long.MAX_VALUE && !isStringEmptyOrNull(query)) {
+        query = new String(Base64.decodeBase64(query));
+        items = list(query, beforeId, limit + 1);
+      }
+
+      // count the rows scanned rather than those shown, as unreadable rows have already been removed
+      boolean more = items.getScannedCount() > limit;
+      JSONArray results = new JSONArray();
+      for (T item : items) {
+        if (more && idOf(item) == items.getLastScannedId()) {
+          // the extra row is the lowest ID scanned, and belongs to the next page
+          continue;
         }
-      } else {
-        libraries = new ArrayList<Library>(requestManager.listAllLibrariesWithLimit(50));
-      }
-
-      if (libraries.size() > 0) {
-        Collections.sort(libraries);
-        Collections.reverse(libraries);
-        for (Library l : libraries) {
-          b.append("<a class=\"dashboardresult\" href=\"/miso/library/" + l.getId()
-              + "\"><div  onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-          b.append("Name: <b>" + l.getName() + "</b><br/>");
-          b.append("Alias: <b>" + l.getAlias() + "</b><br/>");
-          b.append("</div></a>");
+        JSONObject result = toJson(item);
+        if (result != null) {
+          results.add(result);
         }
-      } else {
-        b.append("No matches");
       }
-      return JSONUtils.JSONObjectResponse("html", b.toString());
-    } catch (IOException e) {
-      log.debug("Failed", e);
-      return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
+      JSONObject page = new JSONObject();
+      page.put("query", query);
+      page.put("results", results);
+      if (more) {
+        // the next page lists IDs below this, so it starts with the extra row
+        page.put("next", items.getLastScannedId() + 1);
+      }
+      return page;
+    }
+
+    protected static JSONObject result(String url, long id, String name, String alias) {
+      JSONObject result = new JSONObject();
+      result.put("id", id);
+      result.put("url", url + id);
+      result.put("name", name);
+      result.put("alias", alias);
+      return result;
     }
   }
 
-  public JSONObject searchSample(HttpSession session, JSONObject json) {
-    String searchStr = json.getString("str");
-    try {
-      List<Sample> samples;
-      StringBuilder b = new StringBuilder();
-      if (!isStringEmptyOrNull(searchStr)) {
-        samples = new ArrayList<>(requestManager.listAllSamplesBySearch(searchStr));
-        if (samples.isEmpty()) {
-          samples = new ArrayList<>(requestManager.listAllSamplesBySearch(new String(Base64.decodeBase64(searchStr))));
-        }
-      } else {
-        samples = new ArrayList<>(requestManager.listAllSamplesWithLimit(50));
+  private Map<String, DashboardSearch<?>> createSearches() {
+    Map<String, DashboardSearch<?>> map = new HashMap<>();
+    map.put("project", new DashboardSearch<Project>(false) {
+      @Override
+      protected KeysetPage<Project> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listProjectsBySearchBeforeId(query, beforeId, limit);
       }
 
-      if (samples.size() > 0) {
-        Collections.sort(samples);
-        Collections.reverse(samples);
-        for (Sample s : samples) {
-          b.append("<a class=\"dashboardresult\" href=\"/miso/sample/" + s.getId()
-              + "\"><div  onMouseOver=\"this.className=&#39dashboardhighlight&#39\" onMouseOut=\"this.className=&#39dashboard&#39\" class=\"dashboard\">");
-          b.append("Name: <b>" + s.getName() + "</b><br/>");
-          b.append("Alias: <b>" + s.getAlias() + "</b><br/>");
-          b.append("</div></a>");
+      @Override
+      protected long idOf(Project p) {
+        return p.getProjectId();
+      }
+
+      @Override
+      protected JSONObject toJson(Project p) {
+        return result("/miso/project/", p.getProjectId(), p.getName(), p.getAlias());
+      }
+    });
+    map.put("study", new DashboardSearch<Study>(false) {
+      @Override
+      protected KeysetPage<Study> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listStudiesBySearchBeforeId(query, beforeId, limit);
+      }
+
+      @Override
+      protected long idOf(Study s) {
+        return s.getId();
+      }
+
+      @Override
+      protected JSONObject toJson(Study s) {
+        return result("/miso/study/", s.getId(), s.getName(), s.getAlias());
+      }
+    });
+    map.put("experiment", new DashboardSearch<Experiment>(false) {
+      @Override
+      protected KeysetPage<Experiment> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listExperimentsBySearchBeforeId(query, beforeId, limit);
+      }
+
+      @Override
+      protected long idOf(Experiment e) {
+        return e.getId();
+      }
+
+      @Override
+      protected JSONObject toJson(Experiment e) {
+        return result("/miso/experiment/", e.getId(), e.getName(), e.getAlias());
+      }
+    });
+    map.put("run", new DashboardSearch<Run>(false) {
+      @Override
+      protected KeysetPage<Run> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listRunsBySearchBeforeId(query, beforeId, limit);
+      }
+
+      @Override
+      protected long idOf(Run r) {
+        return r.getId();
+      }
+
+      @Override
+      protected JSONObject toJson(Run r) {
+        return result("/miso/run/", r.getId(), r.getName(), r.getAlias());
+      }
+    });
+    map.put("sample", new DashboardSearch<Sample>(true) {
+      @Override
+      protected KeysetPage<Sample> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listSamplesBySearchBeforeId(query, beforeId, limit);
+      }
+
+      @Override
+      protected long idOf(Sample s) {
+        return s.getId();
+      }
+
+      @Override
+      protected JSONObject toJson(Sample s) {
+        return result("/miso/sample/", s.getId(), s.getName(), s.getAlias());
+      }
+    });
+    map.put("library", new DashboardSearch<Library>(true) {
+      @Override
+      protected KeysetPage<Library> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listLibrariesBySearchBeforeId(query, beforeId, limit);
+      }
+
+      @Override
+      protected long idOf(Library l) {
+        return l.getId();
+      }
+
+      @Override
+      protected JSONObject toJson(Library l) {
+        return result("/miso/library/", l.getId(), l.getName(), l.getAlias());
+      }
+    });
+    map.put("libraryDilution", new DashboardSearch<LibraryDilution>(false) {
+      @Override
+      protected KeysetPage<LibraryDilution> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listLibraryDilutionsBySearchBeforeId(query, beforeId, limit);
+      }
+
+      @Override
+      protected long idOf(LibraryDilution ld) {
+        return ld.getId();
+      }
+
+      @Override
+      protected JSONObject toJson(LibraryDilution ld) {
+        if (ld.getLibrary() == null) {
+          return null;
         }
-      } else {
-        b.append("No matches");
+        // dilutions link to their library
+        JSONObject result = result("/miso/library/", ld.getLibrary().getId(), ld.getName(), null);
+        result.put("id", ld.getId());
+        result.put("library", ld.getLibrary().getAlias() + "(" + ld.getLibrary().getName() + ")");
+        return result;
       }
-      return JSONUtils.JSONObjectResponse("html", b.toString());
-    } catch (IOException e) {
-      log.debug("Failed", e);
-      return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
-    }
+    });
+    map.put("pool", new DashboardSearch<Pool<? extends Poolable<?, ?>>>(false) {
+      @Override
+      protected KeysetPage<Pool<? extends Poolable<?, ?>>> list(String query, long beforeId, int limit) throws IOException {
+        return requestManager.listPoolsBySearchBeforeId(query, beforeId, limit);
+      }
+
+      @Override
+      protected long idOf(Pool<? extends Poolable<?, ?>> p) {
+        return p.getId();
+      }
+
+      @Override
+      protected JSONObject toJson(Pool<? extends Poolable<?, ?>> p) {
+        return result("/miso/pool/", p.getId(), p.getName(), p.getAlias());
+      }
+    });
+    return map;
   }
 
   public JSONObject checkAlerts(HttpSession session, JSONObject json) {
@@ -57,17 +57,18 @@ import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.LibraryQC;
 import uk.ac.bbsrc.tgac.miso.core.data.Pool;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
-import uk.ac.bbsrc.tgac.miso.core.data.Study;
 import uk.ac.bbsrc.tgac.miso.core.data.TagBarcode;
 import uk.ac.bbsrc.tgac.miso.core.data.type.HealthType;
 import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
 import uk.ac.bbsrc.tgac.miso.core.data.type.ProgressType;
 import uk.ac.bbsrc.tgac.miso.core.manager.RequestManager;
 import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
+import uk.ac.bbsrc.tgac.miso.spring.D3GraphUtils;
 
 /**
  * uk.ac.bbsrc.tgac.miso.spring.ajax
@@ -1044,112 +1045,11 @@ public class FlexReportingControllerHelperService {
 
   public JSONObject d3graphRest(Long projectId) throws IOException {
     try {
-      Project p = requestManager.getProjectById(projectId);
-      JSONObject projectJSON = new JSONObject();
-      projectJSON.put("name", p.getName());
-      projectJSON.put("description", p.getAlias());
-      JSONArray projectChildrenArray = new JSONArray();
-      Collection<Sample> samples = requestManager.listAllSamplesByProjectId(p.getProjectId());
-      Collection<Run> runs = requestManager.listAllRunsByProjectId(p.getProjectId());
-      Collection<Study> studies = requestManager.listAllStudiesByProjectId(p.getProjectId());
-
-      JSONObject runJSON = new JSONObject();
-      JSONArray runsArray = new JSONArray();
-
-      runJSON.put("name", "Runs");
-      runJSON.put("description", "");
-      for (Run run : runs) {
-        if (run.getStatus() != null && run.getStatus().getHealth() != null && run.getStatus().getHealth().getKey().equals("Completed")) {
-          runsArray.add(JSONObject.fromObject("{'name': '" + run.getName() + "','description':'" + run.getAlias() + "','color': '1'}"));
-        } else {
-          runsArray.add(JSONObject.fromObject("{'name': '" + run.getName() + "','description':'" + run.getAlias() + "','color': '0'}"));
-        }
-      }
-      runJSON.put("children", runsArray);
-      if (runsArray.size() > 0) {
-        projectChildrenArray.add(runJSON);
-      }
-
-      JSONObject studyJSON = new JSONObject();
-      JSONArray studiesArray = new JSONArray();
-
-      studyJSON.put("name", "Studies");
-      studyJSON.put("description", "");
-      for (Study study : studies) {
-        JSONObject substudyJSON = new JSONObject();
-        JSONArray substudiesArray = new JSONArray();
-        substudyJSON.put("name", study.getName());
-        substudyJSON.put("description", study.getAlias());
-        Collection<Experiment> experiments = requestManager.listAllExperimentsByStudyId(study.getId());
-        if (experiments.size() > 0) {
-          JSONObject experimentJSON = new JSONObject();
-          JSONArray experimentsArray = new JSONArray();
-          experimentJSON.put("name", "experiment");
-          experimentJSON.put("description", "");
-          for (Experiment e : experiments) {
-            experimentsArray
-                .add(JSONObject.fromObject("{'name': '" + e.getName() + "','description':'" + e.getAlias() + "','color': '2'}"));
-          }
-          experimentJSON.put("children", experimentsArray);
-          substudiesArray.add(experimentJSON);
-        }
-        if (substudiesArray.size() > 0) {
-          substudyJSON.put("children", substudiesArray);
-        }
-        studiesArray.add(substudyJSON);
-      }
-      studyJSON.put("children", studiesArray);
-
-      if (studiesArray.size() > 0) {
-        projectChildrenArray.add(studyJSON);
-      }
-
-      JSONObject sampleJSON = new JSONObject();
-      JSONArray samplesArray = new JSONArray();
-
-      sampleJSON.put("name", "Samples");
-      sampleJSON.put("description", "");
-      for (Sample sample : samples) {
-        Collection<Library> libraries = requestManager.listAllLibrariesBySampleId(sample.getId());
-        if (libraries.size() == 0) {
-          if (sample.getQcPassed()) {
-            samplesArray
-                .add(JSONObject.fromObject("{'name': '" + sample.getName() + "','description':'" + sample.getAlias() + "','color': '1'}"));
-          } else {
-            samplesArray
-                .add(JSONObject.fromObject("{'name': '" + sample.getName() + "','description':'" + sample.getAlias() + "','color': '0'}"));
-          }
-        } else {
-          JSONObject libraryJSON = new JSONObject();
-          JSONArray librariesArray = new JSONArray();
-
-          libraryJSON.put("name", "Libraries");
-
-          for (Library library : libraries) {
-            if (library.getLibraryQCs().size() > 0) {
-              librariesArray.add(
-                  JSONObject.fromObject("{'name': '" + library.getName() + "','description':'" + library.getAlias() + "','color': '1'}"));
-            } else {
-              librariesArray.add(
-                  JSONObject.fromObject("{'name': '" + library.getName() + "','description':'" + library.getAlias() + "','color': '0'}"));
-            }
-          }
-          libraryJSON.put("children", librariesArray);
-
-          JSONObject subsampleJSON = new JSONObject();
-          subsampleJSON.put("name", sample.getName());
-          subsampleJSON.put("description", sample.getAlias());
-          subsampleJSON.put("children", librariesArray);
-          samplesArray.add(subsampleJSON);
-        }
+      ProjectGraph graph = requestManager.getProjectGraph(projectId);
+      if (graph == null) {
+        return JSONUtils.SimpleJSONError("Failed: no project with ID " + projectId);
       }
-      sampleJSON.put("children", samplesArray);
-      if (samplesArray.size() > 0) {
-        projectChildrenArray.add(sampleJSON);
-      }
-
-      projectJSON.put("children", projectChildrenArray);
-      return projectJSON;
+      return D3GraphUtils.projectTree(graph);
     } catch (IOException e) {
       log.error("Failed", e);
       return JSONUtils.SimpleJSONError("Failed: " + e.getMessage());
@@ -179,7 +179,7 @@ public class PlateControllerHelperService {
         }
       }
       PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return PrinterControllerHelperService.printJobQueued(pj);
     } catch (MisoPrintException e) {
       log.error("print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -45,6 +45,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.manager.SecurityManager;
 
+import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import net.sourceforge.fluxion.ajax.Ajaxified;
 import net.sourceforge.fluxion.ajax.util.JSONUtils;
@@ -306,8 +307,10 @@ public class PrinterControllerHelperService {
     if (json.has("jobId")) {
       try {
         PrintJob pj = printManager.getPrintJob(json.getLong("jobId"));
-        printManager.print(pj.getQueuedElements(), pj.getPrintService().getName(), pj.getPrintUser());
-        return JSONUtils.SimpleJSONResponse("Print job " + pj + " reprinted successfully");
+        PrintJob reprint = printManager.print(pj.getQueuedElements(), pj.getPrintService().getName(), pj.getPrintUser());
+        JSONObject response = JSONUtils.SimpleJSONResponse("Print job " + pj + " queued for reprinting as job " + reprint.getId());
+        response.put("jobId", reprint.getId());
+        return response;
       } catch (IOException e) {
         log.error("cannot retrieve print job", e);
         return JSONUtils.SimpleJSONError("Cannot retrieve print job.");
@@ -320,6 +323,32 @@ public class PrinterControllerHelperService {
     }
   }
 
+  /**
+   * @return a response telling the user that the job is queued, with its jobId so that the page can poll getPrintJobStatus
+   */
+  public static JSONObject printJobQueued(PrintJob pj) {
+    JSONObject response = JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes queued for printing.");
+    response.put("jobId", pj.getId());
+    return response;
+  }
+
+  public JSONObject getPrintJobStatus(HttpSession session, JSONObject json) {
+    if (json.has("jobId")) {
+      try {
+        PrintJob pj = printManager.getPrintJob(json.getLong("jobId"));
+        if (pj == null) {
+          return JSONUtils.SimpleJSONError("No such print job.");
+        }
+        return JSONUtils.JSONObjectResponse("status", pj.getStatus());
+      } catch (IOException e) {
+        log.error("cannot retrieve print job", e);
+        return JSONUtils.SimpleJSONError("Cannot retrieve print job.");
+      }
+    } else {
+      return JSONUtils.SimpleJSONError("No print job specified.");
+    }
+  }
+
   public JSONObject printCustomBarcode(HttpSession session, JSONObject json) {
     try {
       User user = securityManager.getUserByLoginName(SecurityContextHolder.getContext().getAuthentication().getName());
@@ -346,7 +375,7 @@ public class PrinterControllerHelperService {
       if (f != null) thingsToPrint.add(f);
 
       PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return printJobQueued(pj);
     } catch (MisoPrintException e) {
       log.error("failed to print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -378,7 +407,7 @@ public class PrinterControllerHelperService {
       if (f != null) thingsToPrint.add(f);
 
       PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return printJobQueued(pj);
     } catch (MisoPrintException e) {
       log.error("failed to print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -393,6 +422,7 @@ public class PrinterControllerHelperService {
 
       if (json.has("barcodes")) {
         String response = "";
+        JSONArray jobIds = new JSONArray();
         String barcodes = json.getString("barcodes");
         String[] codes = barcodes.split("\n");
         User user = securityManager.getUserByLoginName(SecurityContextHolder.getContext().getAuthentication().getName());
@@ -414,9 +444,12 @@ public class PrinterControllerHelperService {
           if (f != null) thingsToPrint.add(f);
 
           PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-          response += "Job " + pj.getId() + " : Barcodes printed.\n";
+          response += "Job " + pj.getId() + " : Barcodes queued for printing.\n";
+          jobIds.add(pj.getId());
         }
-        return JSONUtils.SimpleJSONResponse(response);
+        JSONObject result = JSONUtils.SimpleJSONResponse(response);
+        result.put("jobIds", jobIds);
+        return result;
       } else {
         return JSONUtils.SimpleJSONResponse("No barcode.");
       }
@@ -43,6 +43,7 @@ import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.eaglegenomics.simlims.core.Note;
@@ -68,6 +69,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.SampleImpl;
 import uk.ac.bbsrc.tgac.miso.core.event.manager.WatchManager;
 import uk.ac.bbsrc.tgac.miso.core.exception.MisoPrintException;
+import uk.ac.bbsrc.tgac.miso.core.manager.DeferredPrintContent;
 import uk.ac.bbsrc.tgac.miso.core.manager.IssueTrackerManager;
 import uk.ac.bbsrc.tgac.miso.core.manager.MisoFilesManager;
 import uk.ac.bbsrc.tgac.miso.core.manager.PrintManager;
@@ -495,19 +497,35 @@ public class ProjectControllerHelperService {
         mps = printManager.getPrintService(serviceName);
       }
 
-      final Queue<File> thingsToPrint = new LinkedList<File>();
-      final Collection<Sample> samples = requestManager.listAllSamplesByProjectId(projectId);
-      for (final Sample sample : samples) {
-        // autosave the barcode if none has been previously generated
-        if (isStringEmptyOrNull(sample.getIdentificationBarcode())) {
-          sample.setLastModifier(user);
-          requestManager.saveSample(sample);
+      // saving and labelling every sample in a project is slow, so it is left to the print worker, which runs as the current user
+      final MisoPrintService<File, Barcodable, PrintContext<File>> labeller = mps;
+      final SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+      securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+      final PrintJob pj = printManager.print(new DeferredPrintContent<Queue<?>>() {
+        @Override
+        public Queue<?> prepare() throws IOException {
+          SecurityContextHolder.setContext(securityContext);
+          try {
+            final Queue<File> thingsToPrint = new LinkedList<File>();
+            final Collection<Sample> samples = requestManager.listAllSamplesByProjectId(projectId);
+            for (final Sample sample : samples) {
+              // autosave the barcode if none has been previously generated
+              if (isStringEmptyOrNull(sample.getIdentificationBarcode())) {
+                sample.setLastModifier(user);
+                requestManager.saveSample(sample);
+              }
+              final File f = labeller.getLabelFor(sample);
+              if (f != null) thingsToPrint.add(f);
+            }
+            return thingsToPrint;
+          } catch (final MisoPrintException e) {
+            throw new IOException(e);
+          } finally {
+            SecurityContextHolder.clearContext();
+          }
         }
-        final File f = mps.getLabelFor(sample);
-        if (f != null) thingsToPrint.add(f);
-      }
-      final PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      }, mps.getName(), user);
+      return PrinterControllerHelperService.printJobQueued(pj);
     } catch (final MisoPrintException e) {
       log.error("print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -552,7 +570,7 @@ public class ProjectControllerHelperService {
         if (f != null) thingsToPrint.add(f);
       }
       final PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return PrinterControllerHelperService.printJobQueued(pj);
     } catch (final MisoPrintException e) {
       log.error("print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -597,7 +615,7 @@ public class ProjectControllerHelperService {
         if (f != null) thingsToPrint.add(f);
       }
       final PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return PrinterControllerHelperService.printJobQueued(pj);
     } catch (final MisoPrintException e) {
       log.error("print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -643,7 +661,7 @@ public class ProjectControllerHelperService {
         if (f != null) thingsToPrint.add(f);
       }
       final PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return PrinterControllerHelperService.printJobQueued(pj);
     } catch (final MisoPrintException e) {
       log.error("print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -687,7 +705,7 @@ public class ProjectControllerHelperService {
         if (f != null) thingsToPrint.add(f);
       }
       final PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return PrinterControllerHelperService.printJobQueued(pj);
     } catch (final MisoPrintException e) {
       log.error("print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -732,7 +750,7 @@ public class ProjectControllerHelperService {
         if (f != null) thingsToPrint.add(f);
       }
       final PrintJob pj = printManager.print(thingsToPrint, mps.getName(), user);
-      return JSONUtils.SimpleJSONResponse("Job " + pj.getId() + " : Barcodes printed.");
+      return PrinterControllerHelperService.printJobQueued(pj);
     } catch (final MisoPrintException e) {
       log.error("print barcodes", e);
       return JSONUtils.SimpleJSONError("Failed to print barcodes: " + e.getMessage());
@@ -169,6 +169,10 @@ public class StatsControllerHelperService {
           if (!run.getStatus().getHealth().equals(HealthType.valueOf(progress))) {
             run.getStatus().setHealth(HealthType.valueOf(progress));
             requestManager.saveRun(run);
+            if (runStatsManager != null) {
+              // statistics are ingested as a run progresses, so a cached report may be out of date
+              runStatsManager.invalidateSummaryStats(runAlias);
+            }
             return response;
           }
           return JSONUtils.SimpleJSONResponse("No run progress change necessary for run " + runAlias);
@@ -284,7 +284,7 @@ public class BoxControllerHelperServiceTestSuite {
     Box box = makeEmptyBox();
     Collection<Box> boxes = new HashSet<>();
     boxes.add(box);
-    when(requestManager.listAllBoxes()).thenReturn(boxes);
+    when(requestManager.listAllBoxesWithOccupancy()).thenReturn(boxes);
     
     JSONObject response = boxControllerHelperService.listAllBoxesTable(null, null);
     assertTrue(response.has("array"));
@@ -5,6 +5,8 @@ import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 
+import com.eaglegenomics.simlims.core.User;
+
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleClass;
 import uk.ac.bbsrc.tgac.miso.core.exception.MisoNamingException;
@@ -51,4 +53,18 @@ public interface SampleDao extends SampleStore {
 
   Long countAll() throws IOException;
 
+  /**
+   * Counts the Samples that {@link #listBySearchOffsetAndNumResults(int, int, String, String, String)} would page through, without
+   * loading them. The reader is a parameter rather than taken from the
+   * {@link uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction} so that cached counts are kept per reader.
+   * 
+   * @param querystr
+   *          the search string
+   * @param reader
+   *          the non-admin User whose read access applies, or null to count every matching Sample
+   * @return the number of matching Samples
+   * @throws IOException
+   */
+  Long countBySearch(String querystr, User reader) throws IOException;
+
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package uk.ac.bbsrc.tgac.miso.persistence.impl;
 import static uk.ac.bbsrc.tgac.miso.core.util.BoxUtils.extractBoxableInformation;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -15,10 +17,13 @@ import org.hibernate.Criteria;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.type.LongType;
 import org.hibernate.type.StringType;
+import org.hibernate.type.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,7 +32,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.eaglegenomics.simlims.core.Note;
 import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.store.SecurityStore;
+import com.googlecode.ehcache.annotations.Cacheable;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
@@ -37,6 +44,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleAdditionalInfo;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleClass;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.SampleImpl;
+import uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction;
 import uk.ac.bbsrc.tgac.miso.core.service.naming.MisoNamingScheme;
 import uk.ac.bbsrc.tgac.miso.core.store.ChangeLogStore;
 import uk.ac.bbsrc.tgac.miso.core.store.LibraryStore;
@@ -46,6 +54,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.Store;
 import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
 import uk.ac.bbsrc.tgac.miso.persistence.SampleDao;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 
 /**
  * This is the Hibernate DAO for Samples and serves as the bridge between Hibernate and the existing SqlStore persistence layers.
@@ -137,7 +146,15 @@ public class HibernateSampleDao implements SampleDao {
   @Override
   public void deleteSample(Sample sample) {
     currentSession().delete(sample);
+    evictProject(sample);
+  }
 
+  /**
+   * Evicts the Project of a Sample, through the CacheInvalidator so that the Project's graph is evicted too
+   */
+  private void evictProject(Sample sample) {
+    Cache cache = cacheManager == null ? null : cacheManager.getCache(LimsUtils.noddyCamelCaseify(Project.class.getSimpleName()) + "Cache");
+    if (cache != null) DbUtils.updateCaches(cache, sample.getProject().getId());
   }
 
   /**
@@ -254,11 +271,50 @@ public class HibernateSampleDao implements SampleDao {
   }
 
   @Override
+  @Cacheable(cacheName = "sampleCountCache")
   public Long countAll() throws IOException {
     Query query = currentSession().createQuery("select count(*) from SampleImpl");
     return (Long) query.uniqueResult();
   }
 
+  @Override
+  @Cacheable(cacheName = "sampleCountCache")
+  public Long countBySearch(String querystr, User reader) throws IOException {
+    Criteria criteria = currentSession().createCriteria(SampleImpl.class);
+    criteria.add(searchRestriction(querystr));
+    if (reader != null) {
+      criteria.add(readableBy(reader));
+    }
+    criteria.setProjection(Projections.rowCount());
+    return (Long) criteria.uniqueResult();
+  }
+
+  /**
+   * @return the restriction used by both the search page query and the search count, so that the two always agree
+   */
+  private static Criterion searchRestriction(String querystr) {
+    return Restrictions.or(Restrictions.ilike("identificationBarcode", querystr + "%"), Restrictions.ilike("name", querystr + "%"),
+        Restrictions.ilike("alias", querystr + "%"));
+  }
+
+  /**
+   * @return a restriction to the samples the given non-admin User can read, with the user and group IDs bound as parameters
+   */
+  private static Criterion readableBy(User reader) {
+    List<Object> args = new ArrayList<>();
+    String sql = ReadableProfilePredicate.forUser("{alias}.securityProfile_profileId", reader, args);
+    Type[] types = new Type[args.size()];
+    Arrays.fill(types, LongType.INSTANCE);
+    return Restrictions.sqlRestriction(sql, args.toArray(), types);
+  }
+
+  /**
+   * @return the string with LIKE wildcards escaped, so that it matches literally
+   */
+  private static String escapeLike(String querystr) {
+    return querystr.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
   public SampleQcStore getSampleQcDao() {
     return sampleQcDao;
   }
@@ -325,6 +381,18 @@ public class HibernateSampleDao implements SampleDao {
     return fetchSqlStore(records);
   }
 
+  @Override
+  public Collection<Sample> listByAliasList(List<String> aliasList) throws IOException {
+    if (aliasList.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Query query = currentSession().createQuery("from SampleImpl where alias in (:aliases)");
+    query.setParameterList("aliases", aliasList, StringType.INSTANCE);
+    @SuppressWarnings("unchecked")
+    List<Sample> records = query.list();
+    return fetchSqlStore(records);
+  }
+
   @Override
   public Collection<Sample> listByExperimentId(long experimentId) throws IOException {
     Query query = currentSession().createQuery("from SampleImpl where experiment.id like :id");
@@ -348,6 +416,43 @@ public class HibernateSampleDao implements SampleDao {
     Criteria criteria = currentSession().createCriteria(Sample.class);
     criteria.add(Restrictions.or(Restrictions.ilike("identificationBarcode", "%" + querystr + "%"),
         Restrictions.ilike("name", "%" + querystr + "%"), Restrictions.ilike("alias", "%" + querystr + "%")));
+    User reader = ReadRestriction.getReader();
+    if (reader != null) {
+      criteria.add(readableBy(reader));
+    }
+    @SuppressWarnings("unchecked")
+    List<Sample> records = criteria.list();
+    return fetchSqlStore(records);
+  }
+
+  @Override
+  public List<Sample> listBySearchBeforeId(String querystr, long beforeId, int limit) throws IOException {
+    Criteria criteria = currentSession().createCriteria(SampleImpl.class);
+    String pattern = "%" + escapeLike(querystr) + "%";
+    criteria.add(Restrictions.or(Restrictions.ilike("identificationBarcode", pattern), Restrictions.ilike("name", pattern),
+        Restrictions.ilike("alias", pattern)));
+    criteria.add(Restrictions.lt("sampleId", beforeId));
+    User reader = ReadRestriction.getReader();
+    if (reader != null) {
+      criteria.add(readableBy(reader));
+    }
+    criteria.addOrder(Order.desc("sampleId"));
+    criteria.setMaxResults(limit);
+    @SuppressWarnings("unchecked")
+    List<Sample> records = criteria.list();
+    return fetchSqlStore(records);
+  }
+
+  @Override
+  public List<Sample> listAfterId(long afterId, int limit) throws IOException {
+    Criteria criteria = currentSession().createCriteria(SampleImpl.class);
+    criteria.add(Restrictions.gt("sampleId", afterId));
+    User reader = ReadRestriction.getReader();
+    if (reader != null) {
+      criteria.add(readableBy(reader));
+    }
+    criteria.addOrder(Order.asc("sampleId"));
+    criteria.setMaxResults(limit);
     @SuppressWarnings("unchecked")
     List<Sample> records = criteria.list();
     return fetchSqlStore(records);
@@ -358,8 +463,7 @@ public class HibernateSampleDao implements SampleDao {
       throws IOException {
     if ("lastModified".equals(sortCol)) sortCol = "derivedInfo.lastModified";
     Criteria criteria = currentSession().createCriteria(SampleImpl.class);
-    criteria.add(Restrictions.or(Restrictions.ilike("identificationBarcode", querystr + "%"), Restrictions.ilike("name", querystr + "%"),
-        Restrictions.ilike("alias", querystr + "%")));
+    criteria.add(searchRestriction(querystr));
     // I don't know why this alias is required, but without it, you can't sort by 'derivedInfo.lastModifier', which is the field on which we
     // want to sort most List X pages
     criteria.createAlias("derivedInfo", "derivedInfo");
@@ -407,8 +511,7 @@ public class HibernateSampleDao implements SampleDao {
    * Write all the non-Hibernate data from a Sample that aren't persisted manually in the controllers.
    */
   private void persistSqlStore(Sample sample) throws IOException {
-    Cache cache = cacheManager == null ? null : cacheManager.getCache(LimsUtils.noddyCamelCaseify(Project.class.getSimpleName()) + "Cache");
-    if (cache != null) cache.remove(DbUtils.hashCodeCacheKeyFor(sample.getProject().getId()));
+    evictProject(sample);
 
     // Now we have to persist all the things that aren't covered by Hibernate. Turns out, just notes.
 
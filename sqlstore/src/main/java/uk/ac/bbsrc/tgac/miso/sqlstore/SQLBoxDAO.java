@@ -26,6 +26,7 @@ import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.store.SecurityStore;
 
 import uk.ac.bbsrc.tgac.miso.core.data.AbstractBox;
@@ -49,16 +50,28 @@ import uk.ac.bbsrc.tgac.miso.core.store.Store;
 import uk.ac.bbsrc.tgac.miso.core.util.BoxUtils;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.SecurityResolver;
 
 @Transactional(rollbackFor = Exception.class)
 public class SQLBoxDAO implements BoxStore {
   public class BoxMapper extends CacheAwareRowMapper<Box> {
+    private final boolean contents;
+
     public BoxMapper() {
-      super(Box.class);
+      this(false);
     }
 
     public BoxMapper(boolean lazy) {
+      this(lazy, true);
+    }
+
+    /**
+     * @param contents
+     *          if false, the boxables and change log are not loaded and the box's tube count is read from a tubeCount column instead
+     */
+    public BoxMapper(boolean lazy, boolean contents) {
       super(Box.class, lazy);
+      this.contents = contents;
     }
 
     @Override
@@ -72,34 +85,27 @@ public class SQLBoxDAO implements BoxStore {
       box.setLocationBarcode(rs.getString("locationBarcode"));
 
       try {
-        box.setLastModifier(securityDAO.getUserById(rs.getLong("lastModifier")));
+        securityResolver().user(rs.getLong("lastModifier"), new SecurityResolver.Callback<User>() {
+          @Override
+          public void resolved(User user) {
+            box.setLastModifier(user);
+          }
+        });
         box.setUse(getUseById(rs.getLong("boxUseId")));
         box.setSize(getSizeById(rs.getLong("boxSizeId")));
-        box.setSecurityProfile(securityProfileDAO.get(rs.getLong("securityProfile_profileId")));
-        box.getBoxables().clear();
-        template.query(BOX_POSITIONS_SELECT, new RowCallbackHandler() {
-
+        securityResolver().profile(rs.getLong("securityProfile_profileId"), new SecurityResolver.Callback<SecurityProfile>() {
           @Override
-          public void processRow(ResultSet inner_rs) throws SQLException {
-            long positionId = inner_rs.getLong("boxPositionId");
-            int row = inner_rs.getInt("row");
-            int column = inner_rs.getInt("column");
-            Boxable item = libraryDAO.getByPositionId(positionId);
-            if (item == null) {
-              try {
-                item = sampleDAO.getByPositionId(positionId);
-              } catch (IOException e) {
-                throw new SQLException("Could not get sample.", e);
-              }
-            }
-            if (item == null) {
-              item = poolDAO.getByPositionId(positionId);
-            }
-            box.getBoxables().put(BoxUtils.getPositionString(row, column), item);
+          public void resolved(SecurityProfile profile) {
+            box.setSecurityProfile(profile);
           }
-
-        }, box.getId());
-        box.getChangeLog().addAll(changeLogDAO.listAllById(TABLE_NAME, rs.getLong("boxId")));
+        });
+        if (contents) {
+          box.getBoxables().clear();
+          box.getBoxables().putAll(getContents(box.getId()));
+          box.getChangeLog().addAll(changeLogDAO.listAllById(TABLE_NAME, rs.getLong("boxId")));
+        } else {
+          box.setTubeCount(rs.getInt("tubeCount"));
+        }
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -141,7 +147,9 @@ public class SQLBoxDAO implements BoxStore {
 
   }
 
-  public static final String BOX_POSITIONS_SELECT = "SELECT boxPositionId, `column`, `row` FROM BoxPosition WHERE boxId = ?";
+  public static final String BOX_CONTENTS_SELECT = "SELECT bp.`column`, bp.`row`, l.libraryId, s.sampleId, p.poolId FROM BoxPosition bp "
+      + "LEFT JOIN Library l ON l.boxPositionId = bp.boxPositionId " + "LEFT JOIN Sample s ON s.boxPositionId = bp.boxPositionId "
+      + "LEFT JOIN Pool p ON p.boxPositionId = bp.boxPositionId " + "WHERE bp.boxId = ?";
 
   private static String TABLE_NAME = "Box";
 
@@ -161,6 +169,10 @@ public class SQLBoxDAO implements BoxStore {
 
   public static final String BOX_SELECT_LIMIT = BOX_SELECT + " ORDER BY boxId DESC LIMIT ?";
 
+  public static final String BOX_SELECT_WITH_OCCUPANCY = "SELECT b.boxId, b.boxUseId, b.boxSizeId, b.name, b.alias, b.description, b.identificationBarcode, "
+      + "b.locationBarcode, b.securityProfile_profileId, b.lastModifier, "
+      + "(SELECT COUNT(*) FROM BoxPosition bp WHERE bp.boxId = b.boxId) AS tubeCount FROM " + TABLE_NAME + " b";
+
   public static final String BOX_USE_SELECT = "SELECT boxUseId, alias FROM BoxUse";
 
   public static final String BOX_USE_ALIAS_SELECT = "SELECT alias " + "FROM BoxUse";
@@ -305,6 +317,10 @@ public class SQLBoxDAO implements BoxStore {
     this.securityDAO = securityDAO;
   }
 
+  private SecurityResolver securityResolver() {
+    return new SecurityResolver(securityDAO, securityProfileDAO);
+  }
+
   @Override
   public void setNamingScheme(MisoNamingScheme<Box> namingScheme) {
     this.namingScheme = namingScheme;
@@ -330,7 +346,12 @@ public class SQLBoxDAO implements BoxStore {
 
   @Override
   public Collection<Box> listAll() throws IOException {
-    return template.query(BOX_SELECT, new BoxMapper());
+    return template.query(BOX_SELECT, securityResolver().extractor(new BoxMapper()));
+  }
+
+  @Override
+  public Collection<Box> listAllWithOccupancy() throws IOException {
+    return template.query(BOX_SELECT_WITH_OCCUPANCY, securityResolver().extractor(new BoxMapper(true, false)));
   }
 
   @Override
@@ -350,12 +371,12 @@ public class SQLBoxDAO implements BoxStore {
 
   @Override
   public Collection<Box> listByAlias(String alias) throws IOException {
-    return template.query(BOX_SELECT_BY_ALIAS, new Object[] { alias }, new BoxMapper(true));
+    return template.query(BOX_SELECT_BY_ALIAS, new Object[] { alias }, securityResolver().extractor(new BoxMapper(true)));
   }
 
   @Override
   public Collection<Box> listWithLimit(long limit) throws IOException {
-    return template.query(BOX_SELECT_LIMIT, new Object[] { limit }, new BoxMapper(true));
+    return template.query(BOX_SELECT_LIMIT, new Object[] { limit }, securityResolver().extractor(new BoxMapper(true)));
   }
 
   @Override
@@ -564,6 +585,57 @@ public class SQLBoxDAO implements BoxStore {
     return box.getId();
   }
 
+  /**
+   * Loads the contents of a box. One query finds which library, sample or pool is in each position, and then the items of each type are
+   * loaded together. A position whose item cannot be found is kept as an empty entry.
+   */
+  private Map<String, Boxable> getContents(long boxId) throws IOException {
+    final Map<String, Boxable> contents = new HashMap<>();
+    final Map<Long, String> libraryPositions = new HashMap<>();
+    final Map<Long, String> samplePositions = new HashMap<>();
+    final Map<Long, String> poolPositions = new HashMap<>();
+    template.query(BOX_CONTENTS_SELECT, new RowCallbackHandler() {
+
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        String position = BoxUtils.getPositionString(rs.getInt("row"), rs.getInt("column"));
+        contents.put(position, null);
+        long libraryId = rs.getLong("libraryId");
+        if (!rs.wasNull()) {
+          libraryPositions.put(libraryId, position);
+          return;
+        }
+        long sampleId = rs.getLong("sampleId");
+        if (!rs.wasNull()) {
+          samplePositions.put(sampleId, position);
+          return;
+        }
+        long poolId = rs.getLong("poolId");
+        if (!rs.wasNull()) {
+          poolPositions.put(poolId, position);
+        }
+      }
+
+    }, boxId);
+
+    if (!libraryPositions.isEmpty()) {
+      for (Library library : libraryDAO.getByIdList(new ArrayList<>(libraryPositions.keySet()))) {
+        contents.put(libraryPositions.get(library.getId()), library);
+      }
+    }
+    if (!samplePositions.isEmpty()) {
+      for (Sample sample : sampleDAO.getByIdList(new ArrayList<>(samplePositions.keySet()))) {
+        contents.put(samplePositions.get(sample.getId()), sample);
+      }
+    }
+    if (!poolPositions.isEmpty()) {
+      for (Pool<? extends Poolable<?, ?>> pool : poolDAO.getByIdList(new ArrayList<>(poolPositions.keySet()))) {
+        contents.put(poolPositions.get(pool.getId()), pool);
+      }
+    }
+    return contents;
+  }
+
   private String generateChangeLog(String verb, Set<Long> ids) {
     if (ids.isEmpty()) return "";
 
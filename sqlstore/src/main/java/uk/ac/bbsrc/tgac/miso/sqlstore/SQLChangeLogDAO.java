@@ -2,9 +2,14 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
@@ -13,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 import uk.ac.bbsrc.tgac.miso.core.data.ChangeLog;
 import uk.ac.bbsrc.tgac.miso.core.store.ChangeLogStore;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
 
 @Transactional(rollbackFor = Exception.class)
 public class SQLChangeLogDAO implements ChangeLogStore {
@@ -34,20 +40,30 @@ public class SQLChangeLogDAO implements ChangeLogStore {
     BOX("BoxChangeLog", "boxId"),
     EXPERIMENT("ExperimentChangeLog", "experimentId"),
     KITDESCRIPTOR("KitDescriptorChangeLog", "kitDescriptorId"),
-    LIBRARY("LibraryChangeLog", "libraryId"),
+    LIBRARY("LibraryChangeLog", "libraryId", "Library"),
     PLATE("PlateChangeLog", "plateId"),
-    POOL("PoolChangeLog", "poolId"),
-    RUN("RunChangeLog", "runId"),
-    SAMPLE("SampleChangeLog", "sampleId"),
-    SEQUENCERPARTITIONCONTAINER("SequencerPartitionContainerChangeLog", "containerId"),
+    POOL("PoolChangeLog", "poolId", "Pool"),
+    RUN("RunChangeLog", "runId", "Run"),
+    SAMPLE("SampleChangeLog", "sampleId", "Sample"),
+    SEQUENCERPARTITIONCONTAINER("SequencerPartitionContainerChangeLog", "containerId", "SequencerPartitionContainer"),
     STUDY("StudyChangeLog", "studyId");
     
     private final String tableName;
     private final String idColumn;
+    private final String entityTableName;
     
     private ChangeLogType(String tableName, String idColumn) {
+      this(tableName, idColumn, null);
+    }
+
+    /**
+     * @param entityTableName
+     *          the table of the logged entity, if it keeps its own lastModified column in step with the log
+     */
+    private ChangeLogType(String tableName, String idColumn, String entityTableName) {
       this.tableName = tableName;
       this.idColumn = idColumn;
+      this.entityTableName = entityTableName;
     }
     
     public String getTableName() {
@@ -57,6 +73,10 @@ public class SQLChangeLogDAO implements ChangeLogStore {
     public String getIdColumn() {
       return idColumn;
     }
+
+    public String getEntityTableName() {
+      return entityTableName;
+    }
     
     public static ChangeLogType get(String type) {
       return ChangeLogType.valueOf(type.toUpperCase());
@@ -65,9 +85,13 @@ public class SQLChangeLogDAO implements ChangeLogStore {
 
   public static final String CHANGELOG_SELECT = "SELECT c.columnsChanged, c.message, c.userId, c.changeTime FROM %s c";
   public static final String CHANGELOG_SELECT_WHERE = CHANGELOG_SELECT + " WHERE c.%s = ? ORDER BY c.changeTime DESC";
+  public static final String CHANGELOG_SELECT_WHERE_IDS = "SELECT c.columnsChanged, c.message, c.userId, c.changeTime, c.%2$s FROM %1$s c"
+      + " WHERE c.%2$s IN (:ids) ORDER BY c.changeTime DESC";
   public static final String CHANGELOG_DELETE_BY_ENTITY_ID = "DELETE FROM %s WHERE %s = ?";
+  public static final String LAST_MODIFIED_REFRESH = "UPDATE %1$s SET lastModified = (SELECT MAX(c.changeTime) FROM %2$s c WHERE c.%3$s = ?) WHERE %3$s = ?";
 
   private JdbcTemplate template;
+  private final int maxQueryParams = 500;
 
   @CoverageIgnore
   public JdbcTemplate getJdbcTemplate() {
@@ -92,10 +116,32 @@ public class SQLChangeLogDAO implements ChangeLogStore {
         new Object[] { id }, new ChangeLogMapper());
   }
   
+  @Override
+  public Map<Long, List<ChangeLog>> listAllByIds(String type, Collection<Long> ids) {
+    final ChangeLogType cl = ChangeLogType.get(type);
+    final Map<Long, List<ChangeLog>> results = new HashMap<>();
+    final ChangeLogMapper mapper = new ChangeLogMapper();
+    DbUtils.queryByIdChunks(template, String.format(CHANGELOG_SELECT_WHERE_IDS, cl.getTableName(), cl.getIdColumn()), ids, maxQueryParams,
+        new RowCallbackHandler() {
+          @Override
+          public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(cl.getIdColumn());
+            List<ChangeLog> changeLogs = results.get(id);
+            if (changeLogs == null) {
+              changeLogs = new ArrayList<>();
+              results.put(id, changeLogs);
+            }
+            changeLogs.add(mapper.mapRow(rs, rs.getRow()));
+          }
+        });
+    return results;
+  }
+
   @Override
   public void deleteAllById(String type, long id) {
     ChangeLogType cl = ChangeLogType.get(type);
     template.update(String.format(CHANGELOG_DELETE_BY_ENTITY_ID, cl.getTableName(), cl.getIdColumn()), new Object[] {id});
+    refreshLastModified(cl, id);
   }
 
   @Override
@@ -109,5 +155,16 @@ public class SQLChangeLogDAO implements ChangeLogStore {
     params.addValue("changeTime", changeLog.getTime());
     SimpleJdbcInsert insert = new SimpleJdbcInsert(template).withTableName(cl.getTableName());
     insert.execute(params);
+    refreshLastModified(cl, objectId);
+  }
+
+  /**
+   * Entries written here may be back-dated, so rather than stamping the entity with the current time, its lastModified is re-derived
+   * from the log
+   */
+  private void refreshLastModified(ChangeLogType cl, long id) {
+    if (cl.getEntityTableName() != null) {
+      template.update(String.format(LAST_MODIFIED_REFRESH, cl.getEntityTableName(), cl.getTableName(), cl.getIdColumn()), id, id);
+    }
   }
 }
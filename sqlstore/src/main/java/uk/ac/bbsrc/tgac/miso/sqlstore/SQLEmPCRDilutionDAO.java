@@ -63,6 +63,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.LibraryStore;
 import uk.ac.bbsrc.tgac.miso.core.store.Store;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -81,6 +82,10 @@ public class SQLEmPCRDilutionDAO implements EmPCRDilutionStore {
   public static String EMPCR_DILUTION_SELECT = "SELECT dilutionId, name, concentration, emPCR_pcrId, identificationBarcode, creationDate, dilutionUserName, securityProfile_profileId "
       + "FROM emPCRDilution";
 
+  public static final String EMPCR_DILUTIONS_SELECT_AFTER_ID = EMPCR_DILUTION_SELECT + " WHERE (dilutionId > ?)";
+
+  public static final String EMPCR_DILUTIONS_AFTER_ID_PAGE = " ORDER BY dilutionId ASC LIMIT ?";
+
   public static String EMPCR_DILUTION_SELECT_BY_LIBRARY_PLATFORM = "SELECT ed.dilutionId, ed.name, ed.concentration, ed.emPCR_pcrId, ed.identificationBarcode, ed.creationDate, ed.dilutionUserName, ed.securityProfile_profileId, e.dilution_dilutionId, l.platformName "
       + "FROM emPCRDilution ed, emPCR e, LibraryDilution ld, Library l " + "WHERE ed.emPCR_pcrId = e.pcrId "
       + "AND ld.dilutionId = e.dilution_dilutionId " + "AND ld.library_libraryId = l.libraryId " + "AND l.platformName = ?";
@@ -222,6 +227,16 @@ public class SQLEmPCRDilutionDAO implements EmPCRDilutionStore {
     return template.query(EMPCR_DILUTION_SELECT, new EmPCRDilutionMapper(true));
   }
 
+  @Override
+  public List<emPCRDilution> listAfterId(long afterId, int limit) throws IOException {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(EMPCR_DILUTIONS_SELECT_AFTER_ID, "securityProfile_profileId", args)
+        + EMPCR_DILUTIONS_AFTER_ID_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), new EmPCRDilutionMapper(true));
+  }
+
   @Override
   public Collection<emPCRDilution> listAllByEmPCRId(long pcrId) throws IOException {
     return template.query(EMPCR_DILUTION_SELECT_BY_PCR_ID, new Object[] { pcrId }, new EmPCRDilutionMapper(true));
@@ -26,6 +26,10 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -36,6 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
@@ -72,6 +77,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.StudyStore;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.BridgeCollectionUpdater;
 
 /**
@@ -90,10 +96,16 @@ public class SQLExperimentDAO implements ExperimentStore {
 
   public static final String EXPERIMENTS_SELECT_LIMIT = EXPERIMENTS_SELECT + " ORDER BY experimentId DESC LIMIT ?";
 
+  public static final String EXPERIMENTS_SELECT_AFTER_ID = EXPERIMENTS_SELECT + " WHERE (experimentId > ?)";
+
+  public static final String EXPERIMENTS_AFTER_ID_PAGE = " ORDER BY experimentId ASC LIMIT ?";
+
   public static final String EXPERIMENT_SELECT_BY_ID = EXPERIMENTS_SELECT + " " + "WHERE experimentId = ?";
 
-  public static final String EXPERIMENTS_SELECT_BY_SEARCH = EXPERIMENTS_SELECT + " WHERE " + "name LIKE ? OR " + "alias LIKE ? OR "
-      + "description LIKE ? ";
+  public static final String EXPERIMENTS_SELECT_BY_SEARCH = EXPERIMENTS_SELECT + " WHERE (" + "name LIKE ? OR " + "alias LIKE ? OR "
+      + "description LIKE ?) ";
+
+  public static final String EXPERIMENTS_SEARCH_PAGE = " AND experimentId < ? ORDER BY experimentId DESC LIMIT ?";
 
   public static final String EXPERIMENT_UPDATE = "UPDATE " + TABLE_NAME
       + " SET name=:name, description=:description, alias=:alias, accession=:accession, title=:title, platform_platformId=:platform_platformId, securityProfile_profileId=:securityProfile_profileId, lastModifier=:lastModifier "
@@ -110,6 +122,9 @@ public class SQLExperimentDAO implements ExperimentStore {
   public static final String EXPERIMENTS_BY_RELATED_POOL = "SELECT e.experimentId, e.name, e.description, e.alias, e.accession, e.title, e.platform_platformId, e.securityProfile_profileId, e.study_studyId, e.lastModifier, pe.experiments_experimentId "
       + "FROM " + TABLE_NAME + " e, Pool_Experiment pe " + "WHERE pe.experiments_experimentId=e.experimentId " + "AND pe.pool_poolId=?";
 
+  public static final String EXPERIMENTS_BY_RELATED_POOLS = "SELECT e.experimentId, e.name, e.description, e.alias, e.accession, e.title, e.platform_platformId, e.securityProfile_profileId, e.study_studyId, e.lastModifier, pe.pool_poolId "
+      + "FROM " + TABLE_NAME + " e, Pool_Experiment pe " + "WHERE pe.experiments_experimentId=e.experimentId " + "AND pe.pool_poolId IN (:ids)";
+
   public static final String EXPERIMENT_BY_RELATED_PARTITION = "SELECT e.experimentId, e.name, e.description, e.alias, e.accession, e.title, e.platform_platformId, e.securityProfile_profileId, e.study_studyId, er.runs_runId, e.lastModifier "
       + "FROM " + TABLE_NAME + " e, _Partition l " + "WHERE e.experimentId=l.experiment_experimentId " + "AND l.partitionId=?";
 
@@ -377,6 +392,16 @@ public class SQLExperimentDAO implements ExperimentStore {
     return template.query(EXPERIMENTS_SELECT, new ExperimentMapper(true));
   }
 
+  @Override
+  public List<Experiment> listAfterId(long afterId, int limit) {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(EXPERIMENTS_SELECT_AFTER_ID, "securityProfile_profileId", args)
+        + EXPERIMENTS_AFTER_ID_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), new ExperimentMapper(true));
+  }
+
   @Override
   public List<Experiment> listAllWithLimit(long limit) throws IOException {
     return template.query(EXPERIMENTS_SELECT_LIMIT, new Object[] { limit }, new ExperimentMapper(true));
@@ -392,7 +417,20 @@ public class SQLExperimentDAO implements ExperimentStore {
   @CoverageIgnore
   public List<Experiment> listBySearch(String query) {
     String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template.query(EXPERIMENTS_SELECT_BY_SEARCH, new Object[] { mySQLQuery, mySQLQuery, mySQLQuery }, new ExperimentMapper(true));
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(EXPERIMENTS_SELECT_BY_SEARCH, "securityProfile_profileId", args);
+    return template.query(sql, args.toArray(), new ExperimentMapper(true));
+  }
+
+  @Override
+  public List<Experiment> listBySearchBeforeId(String query, long beforeId, int limit) {
+    String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(EXPERIMENTS_SELECT_BY_SEARCH, "securityProfile_profileId", args)
+        + EXPERIMENTS_SEARCH_PAGE;
+    args.add(beforeId);
+    args.add(limit);
+    return template.query(sql, args.toArray(), new ExperimentMapper(true));
   }
 
   @Override
@@ -412,6 +450,25 @@ public class SQLExperimentDAO implements ExperimentStore {
     return template.query(EXPERIMENTS_BY_RELATED_POOL, new Object[] { poolId }, new ExperimentMapper(true));
   }
 
+  @Override
+  public Map<Long, Collection<Experiment>> listByPoolIds(Collection<Long> poolIds) {
+    final Map<Long, Collection<Experiment>> results = new HashMap<Long, Collection<Experiment>>();
+    final ExperimentMapper mapper = new ExperimentMapper(true);
+    DbUtils.queryByIdChunks(template, EXPERIMENTS_BY_RELATED_POOLS, poolIds, maxQueryParams, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        long poolId = rs.getLong("pool_poolId");
+        Collection<Experiment> experiments = results.get(poolId);
+        if (experiments == null) {
+          experiments = new ArrayList<Experiment>();
+          results.put(poolId, experiments);
+        }
+        experiments.add(mapper.mapRow(rs, rs.getRow()));
+      }
+    });
+    return results;
+  }
+
   @Override
   @Cacheable(cacheName = "experimentCache", keyGenerator = @KeyGenerator(name = "HashCodeCacheKeyGenerator", properties = {
       @Property(name = "includeMethod", value = "false"), @Property(name = "includeParameterTypes", value = "false") }) )
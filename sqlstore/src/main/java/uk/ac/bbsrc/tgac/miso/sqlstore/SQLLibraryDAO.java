@@ -30,6 +30,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -49,6 +50,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.eaglegenomics.simlims.core.Note;
 import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
 import com.eaglegenomics.simlims.core.store.SecurityStore;
 import com.googlecode.ehcache.annotations.Cacheable;
 import com.googlecode.ehcache.annotations.KeyGenerator;
@@ -89,6 +91,8 @@ import uk.ac.bbsrc.tgac.miso.core.util.BoxUtils;
 import uk.ac.bbsrc.tgac.miso.persistence.LibraryAdditionalInfoDao;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.SecurityResolver;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -105,10 +109,9 @@ public class SQLLibraryDAO implements LibraryStore {
   public static final String LIBRARIES_SELECT = "SELECT l.libraryId, l.name, l.description, l.alias, l.accession, "
       + "l.securityProfile_profileId, l.sample_sampleId, l.identificationBarcode, l.locationBarcode, l.paired, l.libraryType, "
       + "l.librarySelectionType, l.libraryStrategyType, l.platformName, l.concentration, l.creationDate, l.qcPassed, l.lastModifier, "
-      + "lmod.lastModified, l.lowQuality, l.boxPositionId, l.volume, l.emptied, b.boxId, b.alias AS boxAlias, b.locationBarcode AS boxLocation, "
+      + "l.lastModified, l.lowQuality, l.boxPositionId, l.volume, l.emptied, b.boxId, b.alias AS boxAlias, b.locationBarcode AS boxLocation, "
       + "bp.row AS boxRow, bp.column AS boxColumn " + "FROM " + TABLE_NAME + " l "
-      + "LEFT JOIN BoxPosition bp ON bp.boxPositionId = l.boxPositionId " + "LEFT JOIN Box b ON b.boxId = bp.boxId "
-      + "LEFT JOIN (SELECT libraryId, MAX(changeTime) AS lastModified FROM LibraryChangeLog GROUP BY libraryId) lmod ON l.libraryId = lmod.libraryId";
+      + "LEFT JOIN BoxPosition bp ON bp.boxPositionId = l.boxPositionId " + "LEFT JOIN Box b ON b.boxId = bp.boxId";
 
   public static final String LIBRARIES_SELECT_LIMIT = LIBRARIES_SELECT + " ORDER BY l.libraryId DESC LIMIT ?";
 
@@ -116,10 +119,18 @@ public class SQLLibraryDAO implements LibraryStore {
 
   public static final String LIBRARY_SELECT_FROM_ID_LIST = LIBRARIES_SELECT + " WHERE l.libraryId in (";
 
+  public static final String LIBRARIES_SELECT_BY_IDS = LIBRARIES_SELECT + " WHERE l.libraryId IN (:ids)";
+
   public static final String LIBRARY_SELECT_BY_ALIAS = LIBRARIES_SELECT + " WHERE l.alias = ?";
 
-  public static final String LIBRARIES_SELECT_BY_SEARCH = LIBRARIES_SELECT + " WHERE " + "l.identificationBarcode LIKE ? OR "
-      + "l.name LIKE ? OR " + "l.alias LIKE ? OR " + "l.description LIKE ? ";
+  public static final String LIBRARIES_SELECT_BY_SEARCH = LIBRARIES_SELECT + " WHERE (" + "l.identificationBarcode LIKE ? OR "
+      + "l.name LIKE ? OR " + "l.alias LIKE ? OR " + "l.description LIKE ?) ";
+
+  public static final String LIBRARIES_SEARCH_PAGE = " AND l.libraryId < ? ORDER BY l.libraryId DESC LIMIT ?";
+
+  public static final String LIBRARIES_SELECT_AFTER_ID = LIBRARIES_SELECT + " WHERE (l.libraryId > ?)";
+
+  public static final String LIBRARIES_EXPORT_PAGE = " ORDER BY l.libraryId ASC LIMIT ?";
 
   public static final String LIBRARY_SELECT_BY_IDENTIFICATION_BARCODE = LIBRARIES_SELECT + " WHERE l.identificationBarcode = ?";
 
@@ -192,6 +203,7 @@ public class SQLLibraryDAO implements LibraryStore {
 
   protected static final Logger log = LoggerFactory.getLogger(SQLLibraryDAO.class);
   private JdbcTemplate template;
+  private final int maxQueryParams = 500;
   private Store<SecurityProfile> securityProfileDAO;
   private SampleStore sampleDAO;
   private PoolStore poolDAO;
@@ -536,32 +548,35 @@ public class SQLLibraryDAO implements LibraryStore {
 
   @Override
   public List<Library> listByLibraryDilutionId(long dilutionId) throws IOException {
-    return template.query(LIBRARIES_BY_RELATED_DILUTION_ID, new Object[] { dilutionId }, new LibraryMapper(true));
+    return template.query(LIBRARIES_BY_RELATED_DILUTION_ID, new Object[] { dilutionId },
+        securityResolver().extractor(new LibraryMapper(true)));
   }
 
   @Override
   public List<Library> listBySampleId(long sampleId) throws IOException {
-    return template.query(LIBRARIES_SELECT_BY_SAMPLE_ID, new Object[] { sampleId }, new LibraryMapper(true));
+    return template.query(LIBRARIES_SELECT_BY_SAMPLE_ID, new Object[] { sampleId }, securityResolver().extractor(new LibraryMapper(true)));
   }
 
   @Override
   public List<Library> listByProjectId(long projectId) throws IOException {
-    return template.query(LIBRARIES_SELECT_BY_PROJECT_ID, new Object[] { projectId }, new LibraryMapper(true));
+    return template.query(LIBRARIES_SELECT_BY_PROJECT_ID, new Object[] { projectId },
+        securityResolver().extractor(new LibraryMapper(true)));
   }
 
   @Override
   @Cacheable(cacheName = "libraryListCache", keyGenerator = @KeyGenerator(name = "HashCodeCacheKeyGenerator", properties = {
       @Property(name = "includeMethod", value = "false"), @Property(name = "includeParameterTypes", value = "false") }))
   public List<Library> listAll() throws IOException {
-    return template.query(LIBRARIES_SELECT, new LibraryMapper(true));
+    return template.query(LIBRARIES_SELECT, securityResolver().extractor(new LibraryMapper(true)));
   }
 
   @Override
   public List<Library> listAllWithLimit(long limit) throws IOException {
-    return template.query(LIBRARIES_SELECT_LIMIT, new Object[] { limit }, new LibraryMapper(true));
+    return template.query(LIBRARIES_SELECT_LIMIT, new Object[] { limit }, securityResolver().extractor(new LibraryMapper(true)));
   }
 
   @Override
+  @Cacheable(cacheName = "libraryCountCache")
   public int count() throws IOException {
     return template.queryForInt(LIBRARY_COUNT);
   }
@@ -569,8 +584,29 @@ public class SQLLibraryDAO implements LibraryStore {
   @Override
   public List<Library> listBySearch(String query) {
     String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template
-        .query(LIBRARIES_SELECT_BY_SEARCH, new Object[] { mySQLQuery, mySQLQuery, mySQLQuery, mySQLQuery }, new LibraryMapper(true));
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(4, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(LIBRARIES_SELECT_BY_SEARCH, "l.securityProfile_profileId", args);
+    return template.query(sql, args.toArray(), securityResolver().extractor(new LibraryMapper(true)));
+  }
+
+  @Override
+  public List<Library> listBySearchBeforeId(String query, long beforeId, int limit) {
+    String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(4, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(LIBRARIES_SELECT_BY_SEARCH, "l.securityProfile_profileId", args) + LIBRARIES_SEARCH_PAGE;
+    args.add(beforeId);
+    args.add(limit);
+    return template.query(sql, args.toArray(), securityResolver().extractor(new LibraryMapper(true)));
+  }
+
+  @Override
+  public List<Library> listAfterId(long afterId, int limit) {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(LIBRARIES_SELECT_AFTER_ID, "l.securityProfile_profileId", args)
+        + LIBRARIES_EXPORT_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), securityResolver().extractor(new LibraryMapper(true)));
   }
 
   @Override
@@ -584,7 +620,14 @@ public class SQLLibraryDAO implements LibraryStore {
       queryBuilder.append("?");
     }
     queryBuilder.append(")");
-    return template.query(queryBuilder.toString(), new Object[] { idList }, new int[] { Types.BIGINT }, new LibraryMapper(true));
+    return template.query(queryBuilder.toString(), new Object[] { idList }, new int[] { Types.BIGINT },
+        securityResolver().extractor(new LibraryMapper(true)));
+  }
+
+  @Override
+  public List<Library> listByIdList(List<Long> idList) throws IOException {
+    return DbUtils.listByIdChunks(template, LIBRARIES_SELECT_BY_IDS, idList, maxQueryParams,
+        securityResolver().extractor(new LibraryMapper()));
   }
 
   @Override
@@ -702,7 +745,7 @@ public class SQLLibraryDAO implements LibraryStore {
   public String updateSortCol(String sortCol) {
     sortCol = sortCol.replaceAll("[^\\w]", "");
     if ("lastModified".equals(sortCol)) {
-      sortCol = "lmod.lastModified";
+      sortCol = "l.lastModified";
     } else {
       switch (sortCol) {
       case "id":
@@ -735,7 +778,8 @@ public class SQLLibraryDAO implements LibraryStore {
       if (!"asc".equals(sortDir.toLowerCase()) && !"desc".equals(sortDir.toLowerCase())) sortDir = "desc";
       querystr = "%" + querystr.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
       String query = LIBRARIES_SELECT_BY_SEARCH + " ORDER BY " + sortCol + " " + sortDir + " LIMIT " + limit + " OFFSET " + offset;
-      List<Library> rtn = template.query(query, new Object[] { querystr, querystr, querystr, querystr }, new LibraryMapper(true));
+      List<Library> rtn = template.query(query, new Object[] { querystr, querystr, querystr, querystr },
+          securityResolver().extractor(new LibraryMapper(true)));
       return rtn;
     }
   }
@@ -746,10 +790,11 @@ public class SQLLibraryDAO implements LibraryStore {
     sortCol = updateSortCol(sortCol);
     if (!"asc".equals(sortDir.toLowerCase()) && !"desc".equals(sortDir.toLowerCase())) sortDir = "DESC";
     String query = LIBRARIES_SELECT + " ORDER BY " + sortCol + " " + sortDir + " LIMIT " + limit + " OFFSET " + offset;
-    return template.query(query, new LibraryMapper(true));
+    return template.query(query, securityResolver().extractor(new LibraryMapper(true)));
   }
 
   @Override
+  @Cacheable(cacheName = "libraryCountCache")
   public long countLibrariesBySearch(String querystr) throws IOException {
     if (isStringEmptyOrNull(querystr)) {
       return (count());
@@ -775,6 +820,10 @@ public class SQLLibraryDAO implements LibraryStore {
     this.securityDAO = securityDAO;
   }
 
+  private SecurityResolver securityResolver() {
+    return new SecurityResolver(securityDAO, securityProfileDAO);
+  }
+
   public class LibraryMapper extends CacheAwareRowMapper<Library> {
     public LibraryMapper() {
       super(Library.class);
@@ -803,7 +852,7 @@ public class SQLLibraryDAO implements LibraryStore {
         }
       }
 
-      Library library = dataObjectFactory.getLibrary();
+      final Library library = dataObjectFactory.getLibrary();
       library.setId(id);
       library.setName(rs.getString("name"));
       library.setDescription(rs.getString("description"));
@@ -831,8 +880,18 @@ public class SQLLibraryDAO implements LibraryStore {
       }
 
       try {
-        library.setLastModifier(securityDAO.getUserById(rs.getLong("lastModifier")));
-        library.setSecurityProfile(securityProfileDAO.get(rs.getLong("securityProfile_profileId")));
+        securityResolver().user(rs.getLong("lastModifier"), new SecurityResolver.Callback<User>() {
+          @Override
+          public void resolved(User user) {
+            library.setLastModifier(user);
+          }
+        });
+        securityResolver().profile(rs.getLong("securityProfile_profileId"), new SecurityResolver.Callback<SecurityProfile>() {
+          @Override
+          public void resolved(SecurityProfile profile) {
+            library.setSecurityProfile(profile);
+          }
+        });
 
         library.setLibraryType(getLibraryTypeById(rs.getLong("libraryType")));
         library.setLibrarySelectionType(getLibrarySelectionTypeById(rs.getLong("librarySelectionType")));
@@ -875,7 +934,15 @@ public class SQLLibraryDAO implements LibraryStore {
       }
 
       if (isCacheEnabled() && lookupCache(cacheManager) != null) {
-        lookupCache(cacheManager).put(new Element(DbUtils.hashCodeCacheKeyFor(id), library));
+        // in a batch, the last modifier and security profile are only set once every row is mapped
+        final Cache cache = lookupCache(cacheManager);
+        final long libraryId = id;
+        securityResolver().whenResolved(new Runnable() {
+          @Override
+          public void run() {
+            cache.put(new Element(DbUtils.hashCodeCacheKeyFor(libraryId), library));
+          }
+        });
       }
 
       return library;
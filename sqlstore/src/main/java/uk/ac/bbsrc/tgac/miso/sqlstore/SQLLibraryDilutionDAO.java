@@ -26,8 +26,11 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
 
 import javax.persistence.CascadeType;
 
@@ -63,6 +66,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.TargetedResequencingStore;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -86,6 +90,10 @@ public class SQLLibraryDilutionDAO implements LibraryDilutionStore {
 
   public static final String LIBRARY_DILUTIONS_SELECT_LIMIT = LIBRARY_DILUTION_SELECT + " ORDER BY dilutionId DESC LIMIT ?";
 
+  public static final String LIBRARY_DILUTIONS_SELECT_AFTER_ID = LIBRARY_DILUTION_SELECT + " WHERE (dilutionId > ?)";
+
+  public static final String LIBRARY_DILUTIONS_AFTER_ID_PAGE = " ORDER BY dilutionId ASC LIMIT ?";
+
   public static String LIBRARY_DILUTION_SELECT_BY_LIBRARY_PLATFORM = "SELECT ld.dilutionId, ld.name, ld.concentration, "
       + "ld.library_libraryId, ld.identificationBarcode, ld.creationDate, ld.dilutionUserName, ld.securityProfile_profileId, "
       + "ld.targetedResequencingId, l.platformName, ld.lastUpdated "
@@ -126,6 +134,13 @@ public class SQLLibraryDilutionDAO implements LibraryDilutionStore {
       + "ld.targetedResequencingId, ld.lastUpdated "
       + "FROM LibraryDilution ld " + "WHERE ld.name LIKE :search OR ld.identificationBarcode LIKE :search";
 
+  public static final String LIBRARY_DILUTION_SELECT_BY_NAME_OR_BARCODE = "SELECT ld.dilutionId, ld.name, ld.concentration, "
+      + "ld.library_libraryId, ld.identificationBarcode, ld.creationDate, ld.dilutionUserName, ld.securityProfile_profileId, "
+      + "ld.targetedResequencingId, ld.lastUpdated "
+      + "FROM LibraryDilution ld " + "WHERE (ld.name LIKE ? OR ld.identificationBarcode LIKE ?)";
+
+  public static final String LIBRARY_DILUTIONS_SEARCH_PAGE = " AND ld.dilutionId < ? ORDER BY ld.dilutionId DESC LIMIT ?";
+
   protected static final Logger log = LoggerFactory.getLogger(SQLLibraryDilutionDAO.class);
 
   private JdbcTemplate template;
@@ -221,6 +236,18 @@ public class SQLLibraryDilutionDAO implements LibraryDilutionStore {
     return namedTemplate.query(LIBRARY_DILUTION_SELECT_BY_SEARCH_ONLY, params, new LibraryDilutionMapper(true));
   }
 
+  @Override
+  public List<LibraryDilution> listBySearchBeforeId(String query, long beforeId, int limit) {
+    if (query == null) query = "";
+    String squery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(2, squery));
+    String sql = ReadableProfilePredicate.restrict(LIBRARY_DILUTION_SELECT_BY_NAME_OR_BARCODE, "ld.securityProfile_profileId", args)
+        + LIBRARY_DILUTIONS_SEARCH_PAGE;
+    args.add(beforeId);
+    args.add(limit);
+    return template.query(sql, args.toArray(), new LibraryDilutionMapper(true));
+  }
+
   @Override
   public List<LibraryDilution> listByLibraryId(long libraryId) throws IOException {
     return template.query(LIBRARY_DILUTION_SELECT_BY_LIBRARY_ID, new Object[] { libraryId }, new LibraryDilutionMapper(true));
@@ -231,6 +258,16 @@ public class SQLLibraryDilutionDAO implements LibraryDilutionStore {
     return template.query(LIBRARY_DILUTION_SELECT, new LibraryDilutionMapper(true));
   }
 
+  @Override
+  public List<LibraryDilution> listAfterId(long afterId, int limit) throws IOException {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(LIBRARY_DILUTIONS_SELECT_AFTER_ID, "securityProfile_profileId", args)
+        + LIBRARY_DILUTIONS_AFTER_ID_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), new LibraryDilutionMapper(true));
+  }
+
   @Override
   public Collection<LibraryDilution> listAllWithLimit(long limit) throws IOException {
     return template.query(LIBRARY_DILUTIONS_SELECT_LIMIT, new Object[] { limit }, new LibraryDilutionMapper(true));
@@ -26,14 +26,18 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -52,6 +56,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview;
 import uk.ac.bbsrc.tgac.miso.core.factory.DataObjectFactory;
 import uk.ac.bbsrc.tgac.miso.core.store.NoteStore;
 import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -87,11 +92,15 @@ public class SQLNoteDAO implements NoteStore {
   public static final String NOTES_BY_RELATED_POOL = "SELECT n.noteId, n.creationDate, n.internalOnly, n.text, n.owner_userId " + "FROM "
       + TABLE_NAME + " n, Pool_Note pn " + "WHERE n.noteId=pn.notes_noteId " + "AND pn.pool_poolId=?";
 
+  public static final String NOTES_BY_RELATED_POOLS = "SELECT n.noteId, n.creationDate, n.internalOnly, n.text, n.owner_userId, pn.pool_poolId "
+      + "FROM " + TABLE_NAME + " n, Pool_Note pn " + "WHERE n.noteId=pn.notes_noteId " + "AND pn.pool_poolId IN (:ids)";
+
   public static final String NOTE_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE noteId=:noteId";
 
   protected static final Logger log = LoggerFactory.getLogger(SQLNoteDAO.class);
   private SecurityStore securityDAO;
   private JdbcTemplate template;
+  private final int maxQueryParams = 500;
 
   @Autowired
   private DataObjectFactory dataObjectFactory;
@@ -295,6 +304,25 @@ public class SQLNoteDAO implements NoteStore {
     return template.query(NOTES_BY_RELATED_POOL, new Object[] { poolId }, new NoteMapper());
   }
 
+  @Override
+  public Map<Long, List<Note>> listByPoolIds(Collection<Long> poolIds) throws IOException {
+    final Map<Long, List<Note>> results = new HashMap<Long, List<Note>>();
+    final NoteMapper mapper = new NoteMapper();
+    DbUtils.queryByIdChunks(template, NOTES_BY_RELATED_POOLS, poolIds, maxQueryParams, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        long poolId = rs.getLong("pool_poolId");
+        List<Note> notes = results.get(poolId);
+        if (notes == null) {
+          notes = new ArrayList<Note>();
+          results.put(poolId, notes);
+        }
+        notes.add(mapper.mapRow(rs, rs.getRow()));
+      }
+    });
+    return results;
+  }
+
   public class NoteMapper implements RowMapper<Note> {
     @Override
     public Note mapRow(ResultSet rs, int rowNum) throws SQLException {
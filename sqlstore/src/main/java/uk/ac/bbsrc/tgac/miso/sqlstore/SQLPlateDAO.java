@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -75,6 +76,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.TagBarcodeStore;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DaoLookup;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -92,6 +94,10 @@ public class SQLPlateDAO implements PlateStore {
   public static final String PLATE_SELECT = "SELECT plateId, name, description, creationDate, plateMaterialType, identificationBarcode, locationBarcode, size, tagBarcodeId, securityProfile_profileId, lastModifier "
       + "FROM " + TABLE_NAME;
 
+  public static final String PLATES_SELECT_AFTER_ID = PLATE_SELECT + " WHERE (plateId > ?)";
+
+  public static final String PLATES_AFTER_ID_PAGE = " ORDER BY plateId ASC LIMIT ?";
+
   public static final String PLATE_SELECT_BY_ID = PLATE_SELECT + " WHERE plateId = ?";
 
   public static final String PLATE_SELECT_BY_ID_BARCODE = PLATE_SELECT + " WHERE identificationBarcode = ?";
@@ -255,6 +261,15 @@ public class SQLPlateDAO implements PlateStore {
     return template.query(PLATE_SELECT, new PlateMapper());
   }
 
+  @Override
+  public List<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listAfterId(long afterId, int limit) throws IOException {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(PLATES_SELECT_AFTER_ID, "securityProfile_profileId", args) + PLATES_AFTER_ID_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), new PlateMapper());
+  }
+
   @Override
   public List<Plate<? extends List<? extends Plateable>, ? extends Plateable>> listByProjectId(long projectId) throws IOException {
     List<Plate<? extends List<? extends Plateable>, ? extends Plateable>> plates = template.query(PLATES_SELECT_BY_PROJECT_ID,
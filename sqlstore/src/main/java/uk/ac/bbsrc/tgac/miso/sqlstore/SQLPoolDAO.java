@@ -31,7 +31,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -47,6 +50,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -62,11 +66,11 @@ import com.googlecode.ehcache.annotations.KeyGenerator;
 import com.googlecode.ehcache.annotations.Property;
 import com.googlecode.ehcache.annotations.TriggersRemove;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
 import uk.ac.bbsrc.tgac.miso.core.data.AbstractPool;
 import uk.ac.bbsrc.tgac.miso.core.data.Boxable;
+import uk.ac.bbsrc.tgac.miso.core.data.ChangeLog;
 import uk.ac.bbsrc.tgac.miso.core.data.Experiment;
 import uk.ac.bbsrc.tgac.miso.core.data.Plate;
 import uk.ac.bbsrc.tgac.miso.core.data.Pool;
@@ -89,8 +93,11 @@ import uk.ac.bbsrc.tgac.miso.core.store.WatcherStore;
 import uk.ac.bbsrc.tgac.miso.core.util.BoxUtils;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
+import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheInvalidator;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DaoLookup;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.SecurityResolver;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -106,15 +113,16 @@ public class SQLPoolDAO implements PoolStore {
 
   private static final String POOL_CHANGE_LOG_INSERT = "INSERT INTO PoolChangeLog (poolId, columnsChanged, userId, message) VALUES (?, '', ?, ?)";
 
+  private static final String POOL_LAST_MODIFIED_UPDATE = "UPDATE " + TABLE_NAME + " SET lastModified = CURRENT_TIMESTAMP WHERE poolId = ?";
+
   private static final String POOL_COUNT = "SELECT COUNT(*) " + "FROM " + TABLE_NAME + " p";
 
   public static final String POOL_COUNT_BY_PLATFORM = POOL_COUNT + " WHERE p.platformType=?";
 
   private static final String POOL_SELECT = "SELECT p.poolId, p.concentration, p.identificationBarcode, p.name, p.alias, p.creationDate, "
-      + "p.securityProfile_profileId, p.platformType, p.ready, p.qcPassed, p.lastModifier, pmod.lastModified, p.boxPositionId, p.volume, p.emptied, b.boxId, "
+      + "p.securityProfile_profileId, p.platformType, p.ready, p.qcPassed, p.lastModifier, p.lastModified, p.boxPositionId, p.volume, p.emptied, b.boxId, "
       + "b.alias AS boxAlias, b.locationBarcode AS boxLocation, bp.row AS boxRow, bp.column AS boxColumn " + "FROM " + TABLE_NAME + " p "
-      + "LEFT JOIN BoxPosition bp ON bp.boxPositionId = p.boxPositionId " + "LEFT JOIN Box b ON b.boxId = bp.boxId "
-      + "LEFT JOIN (SELECT poolId, MAX(changeTime) AS lastModified FROM PoolChangeLog GROUP BY poolId) pmod ON p.poolId = pmod.poolId";
+      + "LEFT JOIN BoxPosition bp ON bp.boxPositionId = p.boxPositionId " + "LEFT JOIN Box b ON b.boxId = bp.boxId";
 
   public static final String POOL_SELECT_BY_POOL_ID = POOL_SELECT + " WHERE p.poolId=?";
 
@@ -131,6 +139,8 @@ public class SQLPoolDAO implements PoolStore {
 
   public static final String POOL_SELECT_FROM_BARCODE_LIST = POOL_SELECT + " WHERE p.identificationBarcode IN (";
 
+  public static final String POOL_SELECT_FROM_ID_LIST = POOL_SELECT + " WHERE p.poolId IN (";
+
   public static final String POOL_SELECT_BY_BOX_POSITION_ID = POOL_SELECT + " WHERE p.boxPositionId = ?";
 
   public static final String POOL_COUNT_BY_PLATFORM_AND_SEARCH = POOL_COUNT + " WHERE p.platformType=? AND " + "(p.name LIKE ? OR "
@@ -145,6 +155,8 @@ public class SQLPoolDAO implements PoolStore {
 
   public static final String POOL_ELEMENT_SELECT_BY_POOL_ID = "SELECT pool_poolId, elementType, elementId FROM Pool_Elements WHERE pool_poolId = ?";
 
+  public static final String POOL_ELEMENT_SELECT_BY_POOL_IDS = "SELECT pool_poolId, elementType, elementId FROM Pool_Elements WHERE pool_poolId IN (:ids)";
+
   public static final String POOL_EXPERIMENT_DELETE_BY_POOL_ID = "DELETE FROM Pool_Experiment " + "WHERE pool_poolId=:pool_poolId";
 
   public static final String EMPCR_POOL_SELECT_BY_RELATED_PROJECT = POOL_SELECT
@@ -236,10 +248,16 @@ public class SQLPoolDAO implements PoolStore {
 
   public static final String EMPCR_POOL_SELECT_BY_POOL_ID = EMPCR_POOL_SELECT + " AND poolId = ?";
 
-  public static final String POOL_SELECT_BY_SEARCH = POOL_SELECT + " WHERE " + "p.name LIKE ? OR " + "p.alias LIKE ? ";
+  public static final String POOL_SELECT_BY_SEARCH = POOL_SELECT + " WHERE (" + "p.name LIKE ? OR " + "p.alias LIKE ?) ";
+
+  public static final String POOL_SEARCH_PAGE = " AND p.poolId < ? ORDER BY p.poolId DESC LIMIT ?";
 
   public static final String POOL_SELECT_LIMIT = POOL_SELECT + " ORDER BY p.poolId DESC LIMIT ?";
 
+  public static final String POOLS_SELECT_AFTER_ID = POOL_SELECT + " WHERE (p.poolId > ?)";
+
+  public static final String POOLS_AFTER_ID_PAGE = " ORDER BY p.poolId ASC LIMIT ?";
+
   protected static final Logger log = LoggerFactory.getLogger(SQLPoolDAO.class);
 
   private JdbcTemplate template;
@@ -253,6 +271,7 @@ public class SQLPoolDAO implements PoolStore {
   private SecurityStore securityDAO;
   private NoteStore noteDAO;
   private BoxStore boxDAO;
+  private final int maxQueryParams = 500;
 
   @CoverageIgnore
   public ChangeLogStore getChangeLogDAO() {
@@ -339,6 +358,10 @@ public class SQLPoolDAO implements PoolStore {
     this.securityDAO = securityDAO;
   }
 
+  private SecurityResolver securityResolver() {
+    return new SecurityResolver(securityDAO, securityProfileDAO);
+  }
+
   @CoverageIgnore
   public JdbcTemplate getJdbcTemplate() {
     return template;
@@ -404,15 +427,11 @@ public class SQLPoolDAO implements PoolStore {
     pool.setIdentificationBarcode(barcode);
   }
 
-  private void purgeListCache(Pool p, boolean replace) {
-    if (cacheManager != null) {
-      Cache cache = cacheManager.getCache("poolListCache");
-      DbUtils.updateListCache(cache, replace, p, Pool.class);
-    }
-  }
-
-  private void purgeListCache(Pool p) {
-    purgeListCache(p, true);
+  /**
+   * @return the type whose caches hold a poolable element
+   */
+  private static Class<?> cacheTypeOf(Poolable<?, ?> element) {
+    return element instanceof Plate ? Plate.class : element.getClass();
   }
 
   @Override
@@ -517,6 +536,7 @@ public class SQLPoolDAO implements PoolStore {
           }
         }));
     Set<String> newIds = new HashSet<String>();
+    CacheInvalidator.Batch evictions = cacheManager == null ? null : CacheInvalidator.forManager(cacheManager).batch();
     MapSqlParameterSource delparams = new MapSqlParameterSource();
     delparams.addValue("pool_poolId", pool.getId());
     NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(template);
@@ -526,14 +546,6 @@ public class SQLPoolDAO implements PoolStore {
       String type = pool.getPoolableElements().iterator().next().getClass().getSimpleName();
 
       SimpleJdbcInsert eInsert = new SimpleJdbcInsert(template).withTableName("Pool_Elements");
-      String lc = type.substring(0, 1).toLowerCase() + type.substring(1);
-
-      Cache dc = null;
-      Cache ldc = null;
-      if (cacheManager != null) {
-        dc = cacheManager.getCache(lc + "Cache");
-        ldc = cacheManager.getCache("lazy" + type + "Cache");
-      }
 
       for (Poolable<?, ?> d : pool.getPoolableElements()) {
         newIds.add(d.getClass().getSimpleName() + ":" + d.getId());
@@ -550,13 +562,8 @@ public class SQLPoolDAO implements PoolStore {
             if (dao != null) {
               dao.save(d);
             }
-          } else if (this.cascadeType.equals(CascadeType.REMOVE)) {
-            if (d instanceof Plate && cacheManager != null) {
-              dc = cacheManager.getCache("plateCache");
-              ldc = cacheManager.getCache("lazyPlateCache");
-            }
-            if (dc != null) DbUtils.updateCaches(cacheManager, d, Poolable.class);
-            if (ldc != null) DbUtils.updateCaches(cacheManager, d, Poolable.class);
+          } else if (this.cascadeType.equals(CascadeType.REMOVE) && evictions != null) {
+            evictions.entity(cacheTypeOf(d), d.getId());
           }
         }
       }
@@ -570,6 +577,7 @@ public class SQLPoolDAO implements PoolStore {
       String message = pool.getLastModifier().getLoginName() + (oldIds.isEmpty() ? "" : (" Removed: " + buildElementString(oldIds)))
           + (newIds.isEmpty() ? "" : (" Added: " + buildElementString(newIds)));
       template.update(POOL_CHANGE_LOG_INSERT, pool.getId(), pool.getLastModifier().getUserId(), message);
+      template.update(POOL_LAST_MODIFIED_UPDATE, pool.getId());
     }
 
     MapSqlParameterSource poolparams = new MapSqlParameterSource();
@@ -590,8 +598,8 @@ public class SQLPoolDAO implements PoolStore {
         if (this.cascadeType != null) {
           if (this.cascadeType.equals(CascadeType.PERSIST)) {
             experimentDAO.save(e);
-          } else if (this.cascadeType.equals(CascadeType.REMOVE)) {
-            DbUtils.updateCaches(cacheManager, e, Experiment.class);
+          } else if (this.cascadeType.equals(CascadeType.REMOVE) && evictions != null) {
+            evictions.entity(Experiment.class, e.getId());
           }
         }
       }
@@ -609,7 +617,9 @@ public class SQLPoolDAO implements PoolStore {
       }
     }
 
-    purgeListCache(pool);
+    if (evictions != null) {
+      evictions.listEntry("poolListCache", pool, true).run();
+    }
 
     return pool.getId();
   }
@@ -668,6 +678,23 @@ public class SQLPoolDAO implements PoolStore {
     return DbUtils.getByBarcodeList(template, barcodeList, POOL_SELECT_FROM_BARCODE_LIST, new PoolMapper(true));
   }
 
+  @Override
+  public List<Pool<? extends Poolable<?, ?>>> getByIdList(List<Long> idList) throws IOException {
+    if (idList.isEmpty()) {
+      return new ArrayList<>();
+    }
+    StringBuilder queryBuilder = new StringBuilder();
+    queryBuilder.append(POOL_SELECT_FROM_ID_LIST);
+    for (int i = 0; i < idList.size(); i++) {
+      if (i != 0) {
+        queryBuilder.append(", ");
+      }
+      queryBuilder.append("?");
+    }
+    queryBuilder.append(")");
+    return queryBatched(queryBuilder.toString(), idList.toArray(), true);
+  }
+
   @Override
   public Boxable getByPositionId(long positionId) {
     List<Pool<? extends Poolable<?, ?>>> eResults = template
@@ -678,22 +705,19 @@ public class SQLPoolDAO implements PoolStore {
 
   @Override
   public Collection<Pool<? extends Poolable<?, ?>>> listBySampleId(long sampleId) throws IOException {
-    return template.query(POOL_SELECT_BY_RELATED_SAMPLE, new Object[] { sampleId }, new PoolMapper());
+    return queryBatched(POOL_SELECT_BY_RELATED_SAMPLE, new Object[] { sampleId }, false);
   }
 
   @Override
   public Collection<Pool<? extends Poolable<?, ?>>> listByLibraryId(long libraryId) throws IOException {
-    return template.query(POOL_SELECT_BY_RELATED_LIBRARY, new Object[] { libraryId }, new PoolMapper());
+    return queryBatched(POOL_SELECT_BY_RELATED_LIBRARY, new Object[] { libraryId }, false);
   }
 
   @Override
   public Collection<Pool<? extends Poolable<?, ?>>> listByProjectId(long projectId) throws IOException {
-    List<Pool<? extends Poolable<?, ?>>> lpools = template
-        .query(DILUTION_POOL_SELECT_BY_RELATED_PROJECT, new Object[] { projectId }, new PoolMapper());
-    List<Pool<? extends Poolable<?, ?>>> epools = template
-        .query(EMPCR_POOL_SELECT_BY_RELATED_PROJECT, new Object[] { projectId }, new PoolMapper());
-    List<Pool<? extends Poolable<?, ?>>> ppools = template
-        .query(PLATE_POOL_SELECT_BY_RELATED_PROJECT, new Object[] { projectId }, new PoolMapper());
+    List<Pool<? extends Poolable<?, ?>>> lpools = queryBatched(DILUTION_POOL_SELECT_BY_RELATED_PROJECT, new Object[] { projectId }, false);
+    List<Pool<? extends Poolable<?, ?>>> epools = queryBatched(EMPCR_POOL_SELECT_BY_RELATED_PROJECT, new Object[] { projectId }, false);
+    List<Pool<? extends Poolable<?, ?>>> ppools = queryBatched(PLATE_POOL_SELECT_BY_RELATED_PROJECT, new Object[] { projectId }, false);
     lpools.addAll(epools);
     lpools.addAll(ppools);
     return lpools;
@@ -717,12 +741,21 @@ public class SQLPoolDAO implements PoolStore {
   @Cacheable(cacheName = "poolListCache", keyGenerator = @KeyGenerator(name = "HashCodeCacheKeyGenerator", properties = {
       @Property(name = "includeMethod", value = "false"), @Property(name = "includeParameterTypes", value = "false") }))
   public Collection<Pool<? extends Poolable<?, ?>>> listAll() throws IOException {
-    return template.query(POOL_SELECT, new PoolMapper());
+    return queryBatched(POOL_SELECT, new Object[] {}, false);
+  }
+
+  @Override
+  public List<Pool<? extends Poolable<?, ?>>> listAfterId(long afterId, int limit) throws IOException {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(POOLS_SELECT_AFTER_ID, "p.securityProfile_profileId", args) + POOLS_AFTER_ID_PAGE;
+    args.add(limit);
+    return queryBatched(query, args.toArray(), false);
   }
 
   @Override
   public List<Pool<? extends Poolable<?, ?>>> listAllByPlatform(PlatformType platformType) throws IOException {
-    return template.query(POOL_SELECT_BY_PLATFORM, new Object[] { platformType.getKey() }, new PoolMapper());
+    return queryBatched(POOL_SELECT_BY_PLATFORM, new Object[] { platformType.getKey() }, false);
   }
 
   @Override
@@ -731,29 +764,63 @@ public class SQLPoolDAO implements PoolStore {
       query = "";
     }
     query = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template
-        .query(POOL_SELECT_BY_PLATFORM_AND_SEARCH, new Object[] { platformType.getKey(), query, query, query }, new PoolMapper());
+    return queryBatched(POOL_SELECT_BY_PLATFORM_AND_SEARCH, new Object[] { platformType.getKey(), query, query, query }, false);
   }
 
   @Override
   public List<Pool<? extends Poolable<?, ?>>> listReadyByPlatform(PlatformType platformType) throws IOException {
-    return template.query(POOL_SELECT_BY_PLATFORM_AND_READY, new Object[] { platformType.getKey() }, new PoolMapper());
+    return queryBatched(POOL_SELECT_BY_PLATFORM_AND_READY, new Object[] { platformType.getKey() }, false);
   }
 
   @Override
   public List<Pool<? extends Poolable<?, ?>>> listReadyByPlatformAndSearch(PlatformType platformType, String query) throws IOException {
     if (query == null) query = "";
     String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template.query(
-        POOL_SELECT_BY_PLATFORM_AND_READY_AND_SEARCH,
-        new Object[] { platformType.getKey(), mySQLQuery, mySQLQuery, mySQLQuery },
-        new PoolMapper());
+    return queryBatched(POOL_SELECT_BY_PLATFORM_AND_READY_AND_SEARCH,
+        new Object[] { platformType.getKey(), mySQLQuery, mySQLQuery, mySQLQuery }, false);
   }
 
   public Collection<? extends Poolable<?, ?>> listPoolableElementsByPoolId(long poolId) throws IOException {
     return template.query(POOL_ELEMENT_SELECT_BY_POOL_ID, new Object[] { poolId }, new PoolableMapper());
   }
 
+  /**
+   * Lists the poolable elements of several pools with one query per chunk of pool IDs
+   *
+   * @param poolIds
+   *          the IDs of the pools whose elements should be retrieved
+   * @return the poolable elements of each pool, keyed by pool ID. Pools with no elements are absent.
+   */
+  public Map<Long, List<Poolable<?, ?>>> listPoolableElementsByPoolIds(Collection<Long> poolIds) {
+    final Map<Long, List<Poolable<?, ?>>> results = new HashMap<>();
+    final PoolableMapper mapper = new PoolableMapper();
+    DbUtils.queryByIdChunks(template, POOL_ELEMENT_SELECT_BY_POOL_IDS, poolIds, maxQueryParams, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        long poolId = rs.getLong("pool_poolId");
+        List<Poolable<?, ?>> elements = results.get(poolId);
+        if (elements == null) {
+          elements = new ArrayList<>();
+          results.put(poolId, elements);
+        }
+        elements.add(mapper.mapRow(rs, rs.getRow()));
+      }
+    });
+    return results;
+  }
+
+  /**
+   * Runs a pool query in batched mode: the pool rows are mapped first, with their last modifiers and security profiles loaded in bulk, then
+   * the child collections of every pool that wasn't already cached are loaded with one query per relation and stitched onto the pools in
+   * memory.
+   */
+  private List<Pool<? extends Poolable<?, ?>>> queryBatched(String query, Object[] args, boolean lazy) throws IOException {
+    PoolMapper mapper = new PoolMapper(lazy, true);
+    List<Pool<? extends Poolable<?, ?>>> pools = template.query(query, args, securityResolver().extractor(mapper));
+    mapper.completeBatch();
+    return pools;
+  }
+
   @Override
   @TriggersRemove(cacheName = { "poolCache",
       "lazyPoolCache" }, keyGenerator = @KeyGenerator(name = "HashCodeCacheKeyGenerator", properties = {
@@ -765,6 +832,7 @@ public class SQLPoolDAO implements PoolStore {
     NamedParameterJdbcTemplate poolNamedTemplate = new NamedParameterJdbcTemplate(template);
 
     boolean ok = true;
+    CacheInvalidator.Batch evictions = cacheManager == null ? null : CacheInvalidator.forManager(cacheManager).batch();
     if (pool.isDeletable()) {
       changeLogDAO.deleteAllById(TABLE_NAME, pool.getId());
     }
@@ -772,10 +840,6 @@ public class SQLPoolDAO implements PoolStore {
       if (!pool.getDilutions().isEmpty()) {
         Poolable<?, ?> d = pool.getPoolableElements().iterator().next();
         ok = (poolNamedTemplate.update(POOL_ELEMENT_DELETE_BY_POOL_ID, poolparams) == 1);
-        String type = d.getClass().getSimpleName();
-        String lc = type.substring(0, 1).toLowerCase() + type.substring(1);
-        Cache dc = cacheManager.getCache(lc + "Cache");
-        Cache ldc = cacheManager.getCache("lazy" + type + "Cache");
 
         if (this.cascadeType != null) {
           if (this.cascadeType.equals(CascadeType.PERSIST)) {
@@ -783,13 +847,8 @@ public class SQLPoolDAO implements PoolStore {
             if (dao != null) {
               dao.save(d);
             }
-          } else if (this.cascadeType.equals(CascadeType.REMOVE)) {
-            if (d instanceof Plate) {
-              dc = cacheManager.getCache("plateCache");
-              ldc = cacheManager.getCache("lazyPlateCache");
-            }
-            if (dc != null) DbUtils.updateCaches(cacheManager, d, Poolable.class);
-            if (ldc != null) DbUtils.updateCaches(cacheManager, d, Poolable.class);
+          } else if (this.cascadeType.equals(CascadeType.REMOVE) && evictions != null) {
+            evictions.entity(cacheTypeOf(d), d.getId());
           }
         }
       }
@@ -801,26 +860,44 @@ public class SQLPoolDAO implements PoolStore {
           if (this.cascadeType != null) {
             if (this.cascadeType.equals(CascadeType.PERSIST)) {
               experimentDAO.save(e);
-            } else if (this.cascadeType.equals(CascadeType.REMOVE)) {
-              DbUtils.updateCaches(cacheManager, e, Experiment.class);
+            } else if (this.cascadeType.equals(CascadeType.REMOVE) && evictions != null) {
+              evictions.entity(Experiment.class, e.getId());
             }
           }
         }
       }
+      if (evictions != null) {
+        evictions.listRemoval("poolListCache", pool).run();
+      }
       return ok;
     }
     return false;
   }
 
   public class PoolMapper extends CacheAwareRowMapper<Pool<? extends Poolable<?, ?>>> {
+    private final boolean batched;
+    private final Map<Long, Pool<? extends Poolable<?, ?>>> pending = new LinkedHashMap<>();
+
     public PoolMapper() {
       super((Class<Pool<? extends Poolable<?, ?>>>) ((ParameterizedType) new TypeReference<Pool<? extends Poolable<?, ?>>>() {
       }.getType()).getRawType());
+      this.batched = false;
     }
 
     public PoolMapper(boolean lazy) {
+      this(lazy, false);
+    }
+
+    /**
+     * @param lazy
+     *          whether to skip loading experiments, QCs and notes
+     * @param batched
+     *          if true, child collections are not loaded per row; {@link #completeBatch()} must be called once all rows are mapped
+     */
+    public PoolMapper(boolean lazy, boolean batched) {
       super((Class<Pool<? extends Poolable<?, ?>>>) ((ParameterizedType) new TypeReference<Pool<? extends Poolable<?, ?>>>() {
       }.getType()).getRawType(), lazy);
+      this.batched = batched;
     }
 
     @Override
@@ -841,7 +918,7 @@ public class SQLPoolDAO implements PoolStore {
         PlatformType pt = PlatformType.get(rs.getString("platformType"));
         p.setPlatformType(pt);
 
-        if (pt != null) {
+        if (pt != null && !batched) {
           Collection<? extends Poolable<?, ?>> poolables = listPoolableElementsByPoolId(id);
           p.setPoolableElements(poolables);
         }
@@ -858,7 +935,17 @@ public class SQLPoolDAO implements PoolStore {
         p.setBoxPositionId(rs.getLong("boxPositionId"));
         p.setBoxAlias(rs.getString("boxAlias"));
         p.setBoxId(rs.getLong("boxId"));
-        p.setLastModifier(securityDAO.getUserById(rs.getLong("lastModifier")));
+        if (batched) {
+          final Pool<? extends Poolable<?, ?>> pool = p;
+          securityResolver().user(rs.getLong("lastModifier"), new SecurityResolver.Callback<User>() {
+            @Override
+            public void resolved(User user) {
+              pool.setLastModifier(user);
+            }
+          });
+        } else {
+          p.setLastModifier(securityDAO.getUserById(rs.getLong("lastModifier")));
+        }
         int row = rs.getInt("boxRow");
         if (!rs.wasNull()) p.setBoxPosition(BoxUtils.getPositionString(row, rs.getInt("boxColumn")));
         p.setBoxLocation(rs.getString("boxLocation"));
@@ -868,6 +955,18 @@ public class SQLPoolDAO implements PoolStore {
           p.setQcPassed(null);
         }
 
+        if (batched) {
+          final Pool<? extends Poolable<?, ?>> pool = p;
+          securityResolver().profile(rs.getLong("securityProfile_profileId"), new SecurityResolver.Callback<SecurityProfile>() {
+            @Override
+            public void resolved(SecurityProfile profile) {
+              pool.setSecurityProfile(profile);
+            }
+          });
+          pending.put(id, p);
+          return p;
+        }
+        // the owner is needed below, so the profile can't wait for a batch
         p.setSecurityProfile(securityProfileDAO.get(rs.getLong("securityProfile_profileId")));
         p.setWatchers(new HashSet<User>(watcherDAO.getWatchersByEntityName(p.getWatchableIdentifier())));
         if (p.getSecurityProfile() != null && p.getSecurityProfile().getOwner() != null) {
@@ -892,18 +991,82 @@ public class SQLPoolDAO implements PoolStore {
         log.error("Cannot add PoolQC to pool: ", e);
       }
 
+      finishMapping(p);
+      return p;
+    }
+
+    /**
+     * Loads the poolable elements, watchers, experiments, QCs, notes and change logs of every pool mapped in batched mode since the last
+     * call, using one query per relation for the whole set of pool IDs.
+     */
+    public void completeBatch() throws IOException {
+      if (pending.isEmpty()) return;
+
+      Set<Long> ids = pending.keySet();
+      Set<String> watchableIds = new HashSet<>();
+      for (Pool<? extends Poolable<?, ?>> p : pending.values()) {
+        watchableIds.add(p.getWatchableIdentifier());
+      }
+
+      Map<Long, List<Poolable<?, ?>>> elements = listPoolableElementsByPoolIds(ids);
+      Map<String, Collection<User>> watchers = watcherDAO.getWatchersByEntityNames(watchableIds);
+      Collection<User> groupWatchers = watcherDAO.getWatchersByWatcherGroup("PoolWatchers");
+      Map<Long, List<ChangeLog>> changeLogs = changeLogDAO.listAllByIds(TABLE_NAME, ids);
+      Map<Long, Collection<Experiment>> experiments = null;
+      Map<Long, Collection<PoolQC>> qcs = null;
+      Map<Long, List<Note>> notes = null;
+      if (!isLazy()) {
+        experiments = experimentDAO.listByPoolIds(ids);
+        qcs = poolQcDAO.listByPoolIds(ids);
+        notes = noteDAO.listByPoolIds(ids);
+      }
+
+      for (Map.Entry<Long, Pool<? extends Poolable<?, ?>>> entry : pending.entrySet()) {
+        long id = entry.getKey();
+        Pool<? extends Poolable<?, ?>> p = entry.getValue();
+        try {
+          if (p.getPlatformType() != null) {
+            p.setPoolableElements(orEmpty(elements.get(id)));
+          }
+          p.setWatchers(new HashSet<User>(orEmpty(watchers.get(p.getWatchableIdentifier()))));
+          if (p.getSecurityProfile() != null && p.getSecurityProfile().getOwner() != null) {
+            p.addWatcher(p.getSecurityProfile().getOwner());
+          }
+          for (User u : groupWatchers) {
+            p.addWatcher(u);
+          }
+
+          if (!isLazy()) {
+            p.setExperiments(new ArrayList<Experiment>(orEmpty(experiments.get(id))));
+            for (PoolQC qc : orEmpty(qcs.get(id))) {
+              p.addQc(qc);
+            }
+            p.setNotes(new ArrayList<Note>(orEmpty(notes.get(id))));
+          }
+          p.getChangeLog().addAll(orEmpty(changeLogs.get(id)));
+        } catch (MalformedPoolQcException e) {
+          log.error("Cannot add PoolQC to pool: ", e);
+        }
+        finishMapping(p);
+      }
+      pending.clear();
+    }
+
+    private void finishMapping(Pool<? extends Poolable<?, ?>> p) {
       if (poolAlertManager != null) {
         poolAlertManager.push(p);
       }
 
       if (isCacheEnabled() && lookupCache(cacheManager) != null) {
-        lookupCache(cacheManager).put(new Element(DbUtils.hashCodeCacheKeyFor(id), p));
+        lookupCache(cacheManager).put(new Element(DbUtils.hashCodeCacheKeyFor(p.getId()), p));
       }
-
-      return p;
     }
   }
 
+  private static <T> Collection<T> orEmpty(Collection<T> items) {
+    return items == null ? Collections.<T> emptyList() : items;
+  }
+
   public class PoolableMapper implements RowMapper<Poolable<?, ?>> {
     @Override
     public Poolable<?, ?> mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -950,14 +1113,26 @@ public class SQLPoolDAO implements PoolStore {
       rtn = new ArrayList<>();
     } else {
       String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-      rtn = template.query(POOL_SELECT_BY_SEARCH, new Object[] { mySQLQuery, mySQLQuery }, new PoolMapper(true));
+      List<Object> args = new ArrayList<Object>(Collections.nCopies(2, mySQLQuery));
+      String sql = ReadableProfilePredicate.restrict(POOL_SELECT_BY_SEARCH, "p.securityProfile_profileId", args);
+      rtn = queryBatched(sql, args.toArray(), true);
     }
     return rtn;
   }
 
+  @Override
+  public List<Pool<? extends Poolable<?, ?>>> listBySearchBeforeId(String query, long beforeId, int limit) {
+    String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(2, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(POOL_SELECT_BY_SEARCH, "p.securityProfile_profileId", args) + POOL_SEARCH_PAGE;
+    args.add(beforeId);
+    args.add(limit);
+    return queryBatched(sql, args.toArray(), true);
+  }
+
   @Override
   public List<Pool<? extends Poolable<?, ?>>> listAllPoolsWithLimit(int limit) throws IOException {
-    return template.query(POOL_SELECT_LIMIT, new Object[] { limit }, new PoolMapper(true));
+    return queryBatched(POOL_SELECT_LIMIT, new Object[] { limit }, true);
   }
 
   @Override
@@ -966,11 +1141,13 @@ public class SQLPoolDAO implements PoolStore {
   }
 
   @Override
+  @Cacheable(cacheName = "poolCountCache")
   public long countPoolsByPlatform(PlatformType platform) throws IOException {
     return template.queryForLong(POOL_COUNT_BY_PLATFORM, new Object[] { platform.getKey() });
   }
 
   @Override
+  @Cacheable(cacheName = "poolCountCache")
   public long countPoolsBySearch(PlatformType platform, String querystr) throws IOException {
     if (isStringEmptyOrNull(querystr)) {
       return (PlatformType.ILLUMINA.equals(platform) ? countPoolsByPlatform(platform) : count());
@@ -985,7 +1162,7 @@ public class SQLPoolDAO implements PoolStore {
     sortCol = sortCol.replaceAll("[^\\w]", "");
     if ("id".equals(sortCol)) sortCol = "poolId";
     if ("lastModified".equals(sortCol)) {
-      sortCol = "pmod.lastModified";
+      sortCol = "p.lastModified";
     } else {
       sortCol = "p." + sortCol;
     }
@@ -1004,8 +1181,7 @@ public class SQLPoolDAO implements PoolStore {
       querystr = "%" + querystr.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
       String query = POOL_SELECT_BY_PLATFORM_AND_SEARCH + " ORDER BY " + sortCol + " " + sortDir + " LIMIT " + resultsPerPage + " OFFSET "
           + offset;
-      List<Pool<? extends Poolable<?, ?>>> rtn = template
-          .query(query, new Object[] { platform.getKey(), querystr, querystr, querystr }, new PoolMapper(true));
+      List<Pool<? extends Poolable<?, ?>>> rtn = queryBatched(query, new Object[] { platform.getKey(), querystr, querystr, querystr }, true);
       return rtn;
     }
   }
@@ -1017,7 +1193,7 @@ public class SQLPoolDAO implements PoolStore {
     if (offset < 0 || limit < 0) throw new IOException("Limit and Offset must be greater than zero");
     if (!"asc".equals(sortDir.toLowerCase()) && !"desc".equals(sortDir.toLowerCase())) sortDir = "DESC";
     String query = POOL_SELECT_BY_PLATFORM + " ORDER BY " + sortCol + " " + sortDir + " LIMIT " + limit + " OFFSET " + offset;
-    return template.query(query, new Object[] { platform.getKey() }, new PoolMapper(true));
+    return queryBatched(query, new Object[] { platform.getKey() }, true);
   }
 
 }
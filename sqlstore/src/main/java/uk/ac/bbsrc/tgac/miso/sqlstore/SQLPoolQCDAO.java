@@ -26,8 +26,11 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.CascadeType;
 
@@ -38,6 +41,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -74,6 +78,8 @@ public class SQLPoolQCDAO implements PoolQcStore {
 
   public static final String POOL_QC_SELECT_BY_POOL_ID = POOL_QC + " WHERE pool_poolId=? " + "ORDER BY qcDate ASC";
 
+  public static final String POOL_QC_SELECT_BY_POOL_IDS = POOL_QC + " WHERE pool_poolId IN (:ids) " + "ORDER BY pool_poolId, qcDate ASC";
+
   public static final String POOL_QC_UPDATE = "UPDATE " + TABLE_NAME
       + " SET pool_poolId=:pool_poolId, qcUserName=:qcUserName, qcDate=:qcDate, qcMethod=:qcMethod, results=:results " + "WHERE qcId=:qcId";
 
@@ -91,6 +97,7 @@ public class SQLPoolQCDAO implements PoolQcStore {
   private JdbcTemplate template;
   private PoolStore poolDAO;
   private CascadeType cascadeType;
+  private final int maxQueryParams = 500;
 
   @Autowired
   private CacheManager cacheManager;
@@ -182,6 +189,25 @@ public class SQLPoolQCDAO implements PoolQcStore {
     return template.query(POOL_QC_SELECT_BY_POOL_ID, new Object[] { poolId }, new PoolQcMapper(true));
   }
 
+  @Override
+  public Map<Long, Collection<PoolQC>> listByPoolIds(Collection<Long> poolIds) throws IOException {
+    final Map<Long, Collection<PoolQC>> results = new HashMap<Long, Collection<PoolQC>>();
+    final PoolQcMapper mapper = new PoolQcMapper(true);
+    DbUtils.queryByIdChunks(template, POOL_QC_SELECT_BY_POOL_IDS, poolIds, maxQueryParams, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        long poolId = rs.getLong("pool_poolId");
+        Collection<PoolQC> qcs = results.get(poolId);
+        if (qcs == null) {
+          qcs = new ArrayList<PoolQC>();
+          results.put(poolId, qcs);
+        }
+        qcs.add(mapper.mapRow(rs, rs.getRow()));
+      }
+    });
+    return results;
+  }
+
   @Override
   public Collection<PoolQC> listAll() throws IOException {
     return template.query(POOL_QC, new PoolQcMapper(true));
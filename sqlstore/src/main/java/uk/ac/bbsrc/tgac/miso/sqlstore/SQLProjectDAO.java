@@ -26,7 +26,9 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +45,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
@@ -60,6 +63,7 @@ import com.googlecode.ehcache.annotations.TriggersRemove;
 import uk.ac.bbsrc.tgac.miso.core.data.AbstractProject;
 import uk.ac.bbsrc.tgac.miso.core.data.EntityGroup;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.Study;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview;
@@ -80,7 +84,9 @@ import uk.ac.bbsrc.tgac.miso.core.store.WatcherStore;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
 import uk.ac.bbsrc.tgac.miso.persistence.ReferenceGenomeDao;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
+import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheInvalidator;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.BridgeCollectionUpdater;
 
 /**
@@ -100,12 +106,18 @@ public class SQLProjectDAO implements ProjectStore {
 
   public static final String PROJECTS_SELECT_LIMIT = PROJECTS_SELECT + " ORDER BY projectId DESC LIMIT ?";
 
+  public static final String PROJECTS_SELECT_AFTER_ID = PROJECTS_SELECT + " WHERE (projectId > ?)";
+
+  public static final String PROJECTS_AFTER_ID_PAGE = " ORDER BY projectId ASC LIMIT ?";
+
   public static final String PROJECT_SELECT_BY_ID = PROJECTS_SELECT + " WHERE projectId = ?";
 
   public static final String PROJECT_SELECT_BY_ALIAS = PROJECTS_SELECT + " WHERE alias = ?";
 
-  public static final String PROJECTS_SELECT_BY_SEARCH = PROJECTS_SELECT + " WHERE " + "name LIKE ? OR " + "alias LIKE ? OR "
-      + "description LIKE ? ";
+  public static final String PROJECTS_SELECT_BY_SEARCH = PROJECTS_SELECT + " WHERE (" + "name LIKE ? OR " + "alias LIKE ? OR "
+      + "description LIKE ?) ";
+
+  public static final String PROJECTS_SEARCH_PAGE = " AND projectId < ? ORDER BY projectId DESC LIMIT ?";
 
   public static final String PROJECT_UPDATE = "UPDATE " + TABLE_NAME + " "
       + "SET name=:name, alias=:alias, shortName=:shortName, description=:description, creationDate=:creationDate, securityProfile_profileId=:securityProfile_profileId, progress=:progress, referenceGenomeId=:referenceGenomeId "
@@ -142,6 +154,26 @@ public class SQLProjectDAO implements ProjectStore {
       + "INNER JOIN Experiment_Sample exsa ON ex.experimentId = exsa.experiment_experimentId "
       + "LEFT JOIN Sample sa ON exsa.samples_sampleId = sa.sampleId " + "WHERE p.projectId=?";
 
+  // GRAPH: every member query selects the same columns, so that one mapper reads them all
+  public static final String GRAPH_STUDIES_SELECT = "SELECT s.studyId AS id, NULL AS parentId, s.name, s.alias, "
+      + "s.securityProfile_profileId, FALSE AS passed FROM Study s "
+      + "INNER JOIN Project_Study ps ON ps.studies_studyId = s.studyId WHERE ps.Project_projectId = ? ORDER BY s.studyId";
+
+  public static final String GRAPH_EXPERIMENTS_SELECT = "SELECT e.experimentId AS id, e.study_studyId AS parentId, e.name, e.alias, "
+      + "e.securityProfile_profileId, FALSE AS passed FROM Experiment e "
+      + "INNER JOIN Project_Study ps ON ps.studies_studyId = e.study_studyId WHERE ps.Project_projectId = ? ORDER BY e.experimentId";
+
+  public static final String GRAPH_SAMPLES_SELECT = "SELECT sa.sampleId AS id, NULL AS parentId, sa.name, sa.alias, "
+      + "sa.securityProfile_profileId, sa.qcPassed AS passed FROM Sample sa WHERE sa.project_projectId = ? ORDER BY sa.sampleId";
+
+  public static final String GRAPH_LIBRARIES_SELECT = "SELECT l.libraryId AS id, l.sample_sampleId AS parentId, l.name, l.alias, "
+      + "l.securityProfile_profileId, EXISTS (SELECT 1 FROM LibraryQC qc WHERE qc.library_libraryId = l.libraryId) AS passed "
+      + "FROM Library l INNER JOIN Sample sa ON sa.sampleId = l.sample_sampleId WHERE sa.project_projectId = ? ORDER BY l.libraryId";
+
+  public static final String GRAPH_RUNS_SELECT = "SELECT r.runId AS id, NULL AS parentId, r.name, r.alias, "
+      + "r.securityProfile_profileId, rs.health = 'Completed' AS passed FROM Run r LEFT JOIN Status rs ON rs.statusId = r.status_statusId "
+      + "WHERE r.runId IN (" + SQLRunDAO.RUN_IDS_SELECT_BY_PROJECT_ID + ") ORDER BY r.runId";
+
   public static final String ISSUE_KEYS_SELECT_BY_PROJECT_ID = "SELECT issueKey FROM Project_Issues WHERE project_projectId=?";
 
   public static final String PROJECT_ISSUES_DELETE_BY_PROJECT_ID = "DELETE FROM Project_Issues "
@@ -448,6 +480,15 @@ public class SQLProjectDAO implements ProjectStore {
     return template.query(PROJECTS_SELECT, new ProjectMapper(true));
   }
 
+  @Override
+  public List<Project> listAfterId(long afterId, int limit) {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(PROJECTS_SELECT_AFTER_ID, "securityProfile_profileId", args) + PROJECTS_AFTER_ID_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), new ProjectMapper(true));
+  }
+
   @Override
   public List<Project> listAllWithLimit(long limit) throws IOException {
     return template.query(PROJECTS_SELECT_LIMIT, new Object[] { limit }, new ProjectMapper(true));
@@ -517,7 +558,19 @@ public class SQLProjectDAO implements ProjectStore {
   @CoverageIgnore
   public List<Project> listBySearch(String query) {
     String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template.query(PROJECTS_SELECT_BY_SEARCH, new Object[] { mySQLQuery, mySQLQuery, mySQLQuery }, new ProjectMapper(true));
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(PROJECTS_SELECT_BY_SEARCH, "securityProfile_profileId", args);
+    return template.query(sql, args.toArray(), new ProjectMapper(true));
+  }
+
+  @Override
+  public List<Project> listBySearchBeforeId(String query, long beforeId, int limit) {
+    String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(PROJECTS_SELECT_BY_SEARCH, "securityProfile_profileId", args) + PROJECTS_SEARCH_PAGE;
+    args.add(beforeId);
+    args.add(limit);
+    return template.query(sql, args.toArray(), new ProjectMapper(true));
   }
 
   @Override
@@ -532,6 +585,51 @@ public class SQLProjectDAO implements ProjectStore {
     return eResults.size() > 0 ? eResults.get(0) : null;
   }
 
+  /**
+   * Loads the graph with one query per kind of member. Graphs are cached whole and unrestricted; the cache is flushed by
+   * {@link CacheInvalidator} whenever any of the members' caches is evicted from.
+   */
+  @Override
+  @Cacheable(cacheName = CacheInvalidator.PROJECT_GRAPH_CACHE, keyGenerator = @KeyGenerator(name = "HashCodeCacheKeyGenerator",
+      properties = { @Property(name = "includeMethod", value = "false"),
+          @Property(name = "includeParameterTypes", value = "false") }) )
+  public ProjectGraph getGraph(long projectId) throws IOException {
+    List<ProjectGraph> results = template.query(PROJECT_SELECT_BY_ID, new Object[] { projectId }, new RowMapper<ProjectGraph>() {
+      @Override
+      public ProjectGraph mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ProjectGraph graph = new ProjectGraph();
+        graph.setProjectId(rs.getLong("projectId"));
+        graph.setName(rs.getString("name"));
+        graph.setAlias(rs.getString("alias"));
+        graph.setSecurityProfileId(getLongOrNull(rs, "securityProfile_profileId"));
+        return graph;
+      }
+    });
+    if (results.isEmpty()) return null;
+
+    ProjectGraph graph = results.get(0);
+    Object[] params = new Object[] { projectId };
+    graph.setStudies(template.query(GRAPH_STUDIES_SELECT, params, GRAPH_NODE_MAPPER));
+    graph.setExperiments(template.query(GRAPH_EXPERIMENTS_SELECT, params, GRAPH_NODE_MAPPER));
+    graph.setSamples(template.query(GRAPH_SAMPLES_SELECT, params, GRAPH_NODE_MAPPER));
+    graph.setLibraries(template.query(GRAPH_LIBRARIES_SELECT, params, GRAPH_NODE_MAPPER));
+    graph.setRuns(template.query(GRAPH_RUNS_SELECT, params, GRAPH_NODE_MAPPER));
+    return graph;
+  }
+
+  private static final RowMapper<ProjectGraph.Node> GRAPH_NODE_MAPPER = new RowMapper<ProjectGraph.Node>() {
+    @Override
+    public ProjectGraph.Node mapRow(ResultSet rs, int rowNum) throws SQLException {
+      return new ProjectGraph.Node(rs.getLong("id"), getLongOrNull(rs, "parentId"), rs.getString("name"), rs.getString("alias"),
+          getLongOrNull(rs, "securityProfile_profileId"), rs.getBoolean("passed"));
+    }
+  };
+
+  private static Long getLongOrNull(ResultSet rs, String column) throws SQLException {
+    long value = rs.getLong(column);
+    return rs.wasNull() ? null : value;
+  }
+
   @Override
   @CoverageIgnore
   public ProjectOverview getProjectOverviewById(long overviewId) throws IOException {
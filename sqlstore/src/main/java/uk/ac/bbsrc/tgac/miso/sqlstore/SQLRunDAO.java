@@ -31,6 +31,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -41,8 +42,10 @@ import javax.persistence.CascadeType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
@@ -65,10 +68,12 @@ import net.sf.ehcache.Element;
 import uk.ac.bbsrc.tgac.miso.core.data.AbstractRun;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.RunQC;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
 import uk.ac.bbsrc.tgac.miso.core.data.Status;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.StatusImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.type.HealthType;
 import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
 import uk.ac.bbsrc.tgac.miso.core.event.manager.RunAlertManager;
 import uk.ac.bbsrc.tgac.miso.core.exception.MisoNamingException;
@@ -83,8 +88,11 @@ import uk.ac.bbsrc.tgac.miso.core.store.SequencerReferenceStore;
 import uk.ac.bbsrc.tgac.miso.core.store.StatusStore;
 import uk.ac.bbsrc.tgac.miso.core.store.Store;
 import uk.ac.bbsrc.tgac.miso.core.store.WatcherStore;
+import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.IdAllocator;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.BridgeCollectionUpdater;
 
 /**
@@ -99,20 +107,45 @@ import uk.ac.bbsrc.tgac.miso.sqlstore.util.BridgeCollectionUpdater;
 public class SQLRunDAO implements RunStore {
   private static final String TABLE_NAME = "Run";
 
+  private static final String ID_SEQUENCE = "run_id_seq";
+
   public static final String RUNS_SELECT = "SELECT r.runId, r.name, r.alias, r.description, r.accession, r.platformRunId, r.pairedEnd, r.cycles, r.filePath, r.securityProfile_profileId, "
-      + "r.platformType, r.status_statusId, r.sequencerReference_sequencerReferenceId, r.lastModifier, rmod.lastUpdated, r.sequencingParameters_parametersId "
-      + "FROM " + TABLE_NAME + " r "
-      + " LEFT JOIN (SELECT runId, MAX(changeTime) AS lastUpdated FROM RunChangeLog GROUP BY runId) rmod ON r.runId = rmod.runId";
+      + "r.platformType, r.status_statusId, r.sequencerReference_sequencerReferenceId, r.lastModifier, r.lastModified AS lastUpdated, r.sequencingParameters_parametersId "
+      + "FROM " + TABLE_NAME + " r";
 
   public static final String RUNS_SELECT_LIMIT = RUNS_SELECT + " ORDER BY r.runId DESC LIMIT ?";
 
+  public static final String RUNS_SELECT_AFTER_ID = RUNS_SELECT + " WHERE (r.runId > ?)";
+
+  public static final String RUNS_AFTER_ID_PAGE = " ORDER BY r.runId ASC LIMIT ?";
+
+  public static final String RUNS_SELECT_BY_IDS = RUNS_SELECT + " WHERE r.runId IN (:ids)";
+
   public static final String RUN_SELECT_BY_ID = RUNS_SELECT + " WHERE r.runId = ?";
 
   public static final String RUN_SELECT_BY_ALIAS = RUNS_SELECT + " WHERE r.alias = ?";
 
+  public static final String RUNS_SELECT_BY_ALIASES = RUNS_SELECT + " WHERE r.alias IN (:ids)";
+
   public static final String RUN_SELECT_BY_SEQUENCER_ID = RUNS_SELECT + " WHERE r.sequencerReference_sequencerReferenceId = ?";
 
-  public static final String RUNS_SELECT_BY_SEARCH = RUNS_SELECT + " WHERE r.name LIKE ? OR r.alias LIKE ? OR description LIKE ? ";
+  public static final String RUN_SUMMARIES_SELECT = "SELECT r.runId, r.name, r.alias, r.description, s.health, s.startDate, s.completionDate, "
+      + "sr.referenceId, sr.name AS sequencerReferenceName, p.instrumentModel "
+      + "FROM " + TABLE_NAME + " r "
+      + "LEFT JOIN Status s ON s.statusId = r.status_statusId "
+      + "LEFT JOIN SequencerReference sr ON sr.referenceId = r.sequencerReference_sequencerReferenceId "
+      + "LEFT JOIN Platform p ON p.platformId = sr.platformId";
+
+  public static final String RUNS_SELECT_BY_SEARCH = RUNS_SELECT + " WHERE (r.name LIKE ? OR r.alias LIKE ? OR description LIKE ?) ";
+
+  public static final String RUNS_SEARCH_PAGE = " AND r.runId < ? ORDER BY r.runId DESC LIMIT ?";
+
+  public static final String RUN_COUNT = "SELECT COUNT(*) FROM " + TABLE_NAME;
+
+  public static final String RUN_COUNT_BY_ID = RUN_COUNT + " WHERE runId = ?";
+
+  public static final String RUN_COUNT_BY_SEARCH = "SELECT COUNT(*) FROM " + TABLE_NAME + " r "
+      + "WHERE (r.name LIKE ? OR r.alias LIKE ? OR description LIKE ?)";
 
   public static final String RUN_UPDATE = "UPDATE " + TABLE_NAME + " "
       + "SET name=:name, alias=:alias, description=:description, accession=:accession, platformRunId=:platformRunId, "
@@ -135,14 +168,16 @@ public class SQLRunDAO implements RunStore {
   public static final String RUNS_SELECT_BY_STATUS_HEALTH = RUNS_SELECT
       + " WHERE r.status_statusId IN (SELECT statusId FROM Status WHERE health=?)";
 
-  public static String RUNS_SELECT_BY_PROJECT_ID = RUNS_SELECT + " WHERE r.runId IN (SELECT rf.Run_runId FROM Project p "
+  public static final String RUN_IDS_SELECT_BY_PROJECT_ID = "SELECT rf.Run_runId FROM Project p "
       + "INNER JOIN Study st ON st.project_projectId = p.projectId LEFT JOIN Experiment ex ON st.studyId = ex.study_studyId "
       + "INNER JOIN Pool_Experiment pex ON ex.experimentId = pex.experiments_experimentId "
       + "LEFT JOIN Pool pool ON pool.poolId = pex.pool_poolId " + "LEFT JOIN _Partition c ON pool.poolId = c.pool_poolId "
       + "LEFT JOIN SequencerPartitionContainer_Partition fc ON c.partitionId = fc.partitions_partitionId "
       + "LEFT JOIN _Partition l ON pool.poolId = l.pool_poolId "
       + "LEFT JOIN SequencerPartitionContainer fa ON fc.container_containerId = fa.containerId "
-      + "INNER JOIN Run_SequencerPartitionContainer rf ON fa.containerId = rf.containers_containerId WHERE p.projectId=?)";
+      + "INNER JOIN Run_SequencerPartitionContainer rf ON fa.containerId = rf.containers_containerId WHERE p.projectId=?";
+
+  public static String RUNS_SELECT_BY_PROJECT_ID = RUNS_SELECT + " WHERE r.runId IN (" + RUN_IDS_SELECT_BY_PROJECT_ID + ")";
 
   public static String RUNS_SELECT_BY_POOL_ID = RUNS_SELECT + " WHERE r.runId IN (SELECT rf.Run_runId FROM Pool pool "
       + "LEFT JOIN _Partition c ON pool.poolId = c.pool_poolId "
@@ -175,6 +210,7 @@ public class SQLRunDAO implements RunStore {
   };
 
   private JdbcTemplate template;
+  private final int maxQueryParams = 500;
   private Store<SecurityProfile> securityProfileDAO;
   private SequencerReferenceStore sequencerReferenceDAO;
   private RunQcStore runQcDAO;
@@ -339,22 +375,17 @@ public class SQLRunDAO implements RunStore {
     params.addValue("sequencingParameters_parametersId", run.getSequencingParametersId());
 
     if (run.getId() == AbstractRun.UNSAVED_ID) {
-      SimpleJdbcInsert insert = new SimpleJdbcInsert(template).withTableName(TABLE_NAME).usingGeneratedKeyColumns("runId");
+      SimpleJdbcInsert insert = new SimpleJdbcInsert(template).withTableName(TABLE_NAME);
       try {
-        run.setId(DbUtils.getAutoIncrement(template, TABLE_NAME));
+        run.setId(IdAllocator.forDataSource(template.getDataSource()).next(ID_SEQUENCE));
 
         String name = namingScheme.generateNameFor("name", run);
         run.setName(name);
 
         if (namingScheme.validateField("name", run.getName())) {
+          params.addValue("runId", run.getId());
           params.addValue("name", name);
-
-          Number newId = insert.executeAndReturnKey(params);
-          if (newId.longValue() != run.getId()) {
-            log.error("Expected Run ID doesn't match returned value from database insert: rolling back...");
-            new NamedParameterJdbcTemplate(template).update(RUN_DELETE, new MapSqlParameterSource().addValue("runId", newId.longValue()));
-            throw new IOException("Something bad happened. Expected Run ID doesn't match returned value from DB insert");
-          }
+          insert.execute(params);
         } else {
           throw new IOException("Cannot save Run - invalid field:" + run.toString());
         }
@@ -401,26 +432,29 @@ public class SQLRunDAO implements RunStore {
     return run.getId();
   }
 
+  /**
+   * Saves a batch of runs. New runs are given IDs and names up front, so that all of them can be inserted in one batch and all of the
+   * existing runs updated in another, before the runs' containers, notes and watchers are saved. A run that cannot be saved is logged and
+   * skipped.
+   */
   @Override
-  public synchronized int[] saveAll(Collection<Run> runs) throws IOException {
+  public int[] saveAll(Collection<Run> runs) throws IOException {
     log.debug(">>> Entering saveAll with " + runs.size() + " runs");
     NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(template);
+    IdAllocator idAllocator = IdAllocator.forDataSource(template.getDataSource());
+    List<SqlParameterSource> inserts = new ArrayList<SqlParameterSource>();
+    List<Run> insertedRuns = new ArrayList<Run>();
     List<SqlParameterSource> batch = new ArrayList<SqlParameterSource>();
-    long autoIncrement = DbUtils.getAutoIncrement(template, TABLE_NAME);
+    List<Run> saved = new ArrayList<Run>();
 
+    // save every run's status in one batch first, so that each run can refer to its status's ID
+    List<Status> statuses = new ArrayList<Status>();
     for (Run run : runs) {
-      Long securityProfileId = run.getSecurityProfile().getProfileId();
-      if (securityProfileId == null || (this.cascadeType != null)) {// && this.cascadeType.equals(CascadeType.PERSIST))) {
-        securityProfileId = securityProfileDAO.save(run.getSecurityProfile());
-      }
-
-      Long statusId = null;
       if (run.getStatus() != null) {
         Status s = run.getStatus();
-        statusId = s.getId();
         // if no status has ever been saved to the database for this run
         // we want to create one, cascading or not
-        if (statusId == StatusImpl.UNSAVED_ID || (this.cascadeType != null && this.cascadeType.equals(CascadeType.PERSIST))) {
+        if (s.getId() == StatusImpl.UNSAVED_ID || (this.cascadeType != null && this.cascadeType.equals(CascadeType.PERSIST))) {
           if (s.getRunName() == null) {
             s.setRunName(run.getAlias());
           }
@@ -429,11 +463,20 @@ public class SQLRunDAO implements RunStore {
             s.setInstrumentName(run.getSequencerReference().getName());
           }
         }
-        statusId = statusDAO.save(s);
-        run.setStatus(s);
+        statuses.add(s);
       } else {
         log.warn("No status available to save for run: " + run.getAlias());
       }
+    }
+    statusDAO.saveAll(statuses);
+
+    for (Run run : runs) {
+      Long securityProfileId = run.getSecurityProfile().getProfileId();
+      if (securityProfileId == null || (this.cascadeType != null)) {// && this.cascadeType.equals(CascadeType.PERSIST))) {
+        securityProfileId = securityProfileDAO.save(run.getSecurityProfile());
+      }
+
+      Long statusId = run.getStatus() == null ? null : run.getStatus().getId();
 
       try {
         MapSqlParameterSource params = new MapSqlParameterSource();
@@ -452,29 +495,24 @@ public class SQLRunDAO implements RunStore {
         params.addValue("sequencingParameters_parametersId", run.getSequencingParametersId());
 
         if (run.getId() == AbstractRun.UNSAVED_ID) {
-          SimpleJdbcInsert insert = new SimpleJdbcInsert(template).withTableName(TABLE_NAME).usingGeneratedKeyColumns("runId");
           try {
-            run.setId(autoIncrement);
+            run.setId(idAllocator.next(ID_SEQUENCE));
 
             String name = namingScheme.generateNameFor("name", run);
             run.setName(name);
 
             if (namingScheme.validateField("name", run.getName())) {
+              params.addValue("runId", run.getId());
               params.addValue("name", name);
-
-              Number newId = insert.executeAndReturnKey(params);
-              if (newId.longValue() != run.getId()) {
-                log.error("Expected Run ID doesn't match returned value from database insert: rolling back...");
-                new NamedParameterJdbcTemplate(template)
-                    .update(RUN_DELETE, new MapSqlParameterSource().addValue("runId", newId.longValue()));
-                throw new IOException("Something bad happened. Expected Run ID doesn't match returned value from DB insert");
-              }
-              autoIncrement = newId.longValue() + 1;
-              log.debug(run.getName() + ":: Inserted as ID " + run.getId());
+              log.debug(run.getName() + ":: Inserting as ID " + run.getId());
+              inserts.add(params);
+              insertedRuns.add(run);
             } else {
+              run.setId(AbstractRun.UNSAVED_ID);
               throw new IOException("Cannot save Run - invalid field:" + run.toString());
             }
           } catch (MisoNamingException e) {
+            run.setId(AbstractRun.UNSAVED_ID);
             throw new IOException("Cannot save Run - issue with naming scheme", e);
           }
         } else {
@@ -491,8 +529,25 @@ public class SQLRunDAO implements RunStore {
             throw new IOException("Cannot save Run - issue with naming scheme", e);
           }
         }
+        saved.add(run);
+      } catch (IOException e) {
+        log.error("Cannot batch save run: " + run.getName(), e);
+      }
+    }
+
+    if (!inserts.isEmpty()) {
+      try {
+        new SimpleJdbcInsert(template).withTableName(TABLE_NAME).executeBatch(inserts.toArray(new SqlParameterSource[inserts.size()]));
+      } catch (DataAccessException e) {
+        log.error("Cannot batch insert runs; inserting them one at a time", e);
+        insertIndividually(inserts, insertedRuns, saved);
+      }
+    }
+    int[] rows = namedTemplate.batchUpdate(RUN_UPDATE, batch.toArray(new SqlParameterSource[batch.size()]));
 
-        if (this.cascadeType != null) {
+    if (this.cascadeType != null) {
+      for (Run run : saved) {
+        try {
           if (this.cascadeType.equals(CascadeType.PERSIST)) {
             for (SequencerPartitionContainer<SequencerPoolPartition> l : run.getSequencerPartitionContainers()) {
               l.setSecurityProfile(run.getSecurityProfile());
@@ -517,14 +572,12 @@ public class SQLRunDAO implements RunStore {
           for (User u : run.getWatchers()) {
             watcherDAO.saveWatchedEntityUser(run, u);
           }
+        } catch (IOException e) {
+          log.error("Cannot batch save run: " + run.getName(), e);
         }
-      } catch (IOException e) {
-        log.error("Cannot batch save run: " + run.getName(), e);
       }
     }
 
-    int[] rows = namedTemplate.batchUpdate(RUN_UPDATE, batch.toArray(new SqlParameterSource[batch.size()]));
-
     // flush caches
     purgeCaches(runs);
 
@@ -532,12 +585,45 @@ public class SQLRunDAO implements RunStore {
     return rows;
   }
 
+  /**
+   * Inserts runs one at a time after their batch insert failed, skipping any that the batch did insert before failing. A run that still
+   * cannot be inserted is logged, returned to its unsaved ID and removed from the saved runs.
+   */
+  private void insertIndividually(List<SqlParameterSource> inserts, List<Run> insertedRuns, List<Run> saved) {
+    for (int i = 0; i < inserts.size(); i++) {
+      Run run = insertedRuns.get(i);
+      try {
+        if (template.queryForInt(RUN_COUNT_BY_ID, run.getId()) == 0) {
+          new SimpleJdbcInsert(template).withTableName(TABLE_NAME).execute(inserts.get(i));
+        }
+      } catch (DataAccessException e) {
+        log.error("Cannot batch save run: " + run.getName(), e);
+        run.setId(AbstractRun.UNSAVED_ID);
+        saved.remove(run);
+      }
+    }
+  }
+
   @Override
   @Cacheable(cacheName = "runListCache")
   public List<Run> listAll() {
     return template.query(RUNS_SELECT, new RunMapper(true));
   }
 
+  @Override
+  public List<Run> listAfterId(long afterId, int limit) throws IOException {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(RUNS_SELECT_AFTER_ID, "r.securityProfile_profileId", args) + RUNS_AFTER_ID_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), new RunMapper(true));
+  }
+
+  @Override
+  public List<Run> listByIdList(List<Long> idList) throws IOException {
+    return DbUtils.listByIdChunks(template, RUNS_SELECT_BY_IDS, idList, maxQueryParams, new RunMapper());
+  }
+
   @Override
   public List<Run> listAllWithLimit(long limit) throws IOException {
     return template.query(RUNS_SELECT_LIMIT, new Object[] { limit }, new RunMapper(true));
@@ -551,7 +637,19 @@ public class SQLRunDAO implements RunStore {
   @Override
   public List<Run> listBySearch(String query) {
     String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template.query(RUNS_SELECT_BY_SEARCH, new Object[] { mySQLQuery, mySQLQuery, mySQLQuery }, new RunMapper(true));
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(RUNS_SELECT_BY_SEARCH, "r.securityProfile_profileId", args);
+    return template.query(sql, args.toArray(), new RunMapper(true));
+  }
+
+  @Override
+  public List<Run> listBySearchBeforeId(String query, long beforeId, int limit) {
+    String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(RUNS_SELECT_BY_SEARCH, "r.securityProfile_profileId", args) + RUNS_SEARCH_PAGE;
+    args.add(beforeId);
+    args.add(limit);
+    return template.query(sql, args.toArray(), new RunMapper(true));
   }
 
   @Override
@@ -574,6 +672,30 @@ public class SQLRunDAO implements RunStore {
     return template.query(RUN_SELECT_BY_SEQUENCER_ID, new Object[] { sequencerReferenceId }, new RunMapper(true));
   }
 
+  @Override
+  public List<RunSummary> listSummaries(Long sequencerReferenceId, Date from, Date to) throws IOException {
+    List<String> conditions = new ArrayList<>();
+    List<Object> args = new ArrayList<>();
+    if (sequencerReferenceId != null) {
+      conditions.add("r.sequencerReference_sequencerReferenceId = ?");
+      args.add(sequencerReferenceId);
+    }
+    if (from != null) {
+      conditions.add("s.startDate >= ?");
+      args.add(new java.sql.Date(from.getTime()));
+    }
+    if (to != null) {
+      conditions.add("s.startDate <= ?");
+      args.add(new java.sql.Date(to.getTime()));
+    }
+    if (conditions.isEmpty()) {
+      conditions.add("1 = 1");
+    }
+    String query = RUN_SUMMARIES_SELECT + " WHERE (" + LimsUtils.join(conditions, " AND ") + ")";
+    String sql = ReadableProfilePredicate.restrict(query, "r.securityProfile_profileId", args) + " ORDER BY r.runId";
+    return template.query(sql, args.toArray(), new RunSummaryMapper());
+  }
+
   @Override
   @Deprecated
   public List<Run> listByExperimentId(long experimentId) throws IOException {
@@ -622,6 +744,11 @@ public class SQLRunDAO implements RunStore {
     return eResults.size() > 0 ? eResults.get(0) : null;
   }
 
+  @Override
+  public List<Run> listByAliasList(List<String> aliasList) throws IOException {
+    return DbUtils.listByIdChunks(template, RUNS_SELECT_BY_ALIASES, aliasList, maxQueryParams, new RunMapper());
+  }
+
   @Override
   public Run lazyGet(long runId) throws IOException {
     List<Run> eResults = template.query(RUN_SELECT_BY_ID, new Object[] { runId }, new RunMapper(true));
@@ -748,8 +875,9 @@ public class SQLRunDAO implements RunStore {
   }
 
   @Override
+  @Cacheable(cacheName = "runCountCache")
   public long countRuns() throws IOException {
-    return Long.valueOf(listAll().size());
+    return template.queryForLong(RUN_COUNT);
   }
 
   @Override
@@ -779,15 +907,21 @@ public class SQLRunDAO implements RunStore {
   }
 
   @Override
+  @Cacheable(cacheName = "runCountCache")
   public long countBySearch(String querystr) throws IOException {
-    return listBySearch(querystr).size();
+    if (isStringEmptyOrNull(querystr)) {
+      return countRuns();
+    } else {
+      querystr = "%" + querystr.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+      return template.queryForLong(RUN_COUNT_BY_SEARCH, new Object[] { querystr, querystr, querystr });
+    }
   }
 
   public String updateSortCol(String sortCol) {
     sortCol = sortCol.replaceAll("[^\\w]", "");
     if ("lastModified".equals(sortCol) || "lastUpdated".equals(sortCol)) {
       // because for some reason, the field on Run is called "lastUpdated", unlike everything else.
-      sortCol = "rmod.lastUpdated";
+      sortCol = "r.lastModified";
     } else {
       switch (sortCol) {
       case "id":
@@ -805,4 +939,28 @@ public class SQLRunDAO implements RunStore {
     return sortCol;
   }
 
+
+  public class RunSummaryMapper implements RowMapper<RunSummary> {
+    @Override
+    public RunSummary mapRow(ResultSet rs, int rowNum) throws SQLException {
+      RunSummary summary = new RunSummary();
+      summary.setId(rs.getLong("runId"));
+      summary.setName(rs.getString("name"));
+      summary.setAlias(rs.getString("alias"));
+      summary.setDescription(rs.getString("description"));
+      String health = rs.getString("health");
+      if (health != null) {
+        summary.setHealth(HealthType.valueOf(health));
+      }
+      summary.setStartDate(rs.getDate("startDate"));
+      summary.setCompletionDate(rs.getDate("completionDate"));
+      long referenceId = rs.getLong("referenceId");
+      if (!rs.wasNull()) {
+        summary.setSequencerReferenceId(referenceId);
+      }
+      summary.setSequencerReferenceName(rs.getString("sequencerReferenceName"));
+      summary.setInstrumentModel(rs.getString("instrumentModel"));
+      return summary;
+    }
+  }
 }
@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +42,7 @@ import java.util.Set;
 import javax.sql.rowset.serial.SerialBlob;
 import javax.sql.rowset.serial.SerialException;
 
+import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
 
@@ -122,6 +124,14 @@ public class SQLSecurityDAO implements SecurityStore {
 
   protected static final Logger log = LoggerFactory.getLogger(SQLSecurityDAO.class);
 
+  /**
+   * Maps login names to user IDs. The users themselves are held only in userCache, so evicting a user from there is enough to invalidate
+   * both lookups.
+   */
+  private static final String LOGIN_NAME_CACHE = "userLoginNameCache";
+
+  private final int maxQueryParams = 500;
+
   @Autowired
   private PasswordCodecService passwordCodecService;
 
@@ -283,8 +293,22 @@ public class SQLSecurityDAO implements SecurityStore {
 
   @Override
   public User getUserByLoginName(String loginName) throws IOException {
+    Cache loginNameCache = getCache(LOGIN_NAME_CACHE);
+    if (loginName != null && loginNameCache != null) {
+      Element element = loginNameCache.get(loginName);
+      if (element != null) {
+        User cached = getCachedUser((Long) element.getObjectValue());
+        // a user can be renamed, so the entry is only trusted if it still matches
+        if (cached != null && loginName.equals(cached.getLoginName())) {
+          return cached;
+        }
+      }
+    }
     List<User> results = template.query(USER_SELECT_BY_LOGIN_NAME, new Object[] { loginName }, new UserMapper());
     User u = results.size() > 0 ? (User) results.get(0) : null;
+    if (u != null && loginNameCache != null) {
+      loginNameCache.put(new Element(loginName, u.getUserId()));
+    }
     return u;
   }
 
@@ -304,10 +328,16 @@ public class SQLSecurityDAO implements SecurityStore {
   public Collection<User> listUsersByIds(Collection<Long> userIds) throws IOException {
     if (userIds.size() > 0) {
       Set<User> results = new HashSet<User>();
-      for (long userId : userIds) {
-        User u = getUserById(userId);
-        if (u != null) results.add(u);
+      Set<Long> misses = new LinkedHashSet<Long>();
+      for (Long userId : userIds) {
+        User cached = getCachedUser(userId);
+        if (cached != null) {
+          results.add(cached);
+        } else {
+          misses.add(userId);
+        }
       }
+      results.addAll(DbUtils.listByIdChunks(template, USER_SELECT_BY_IDS, misses, maxQueryParams, new UserMapper()));
       return results;
     }
     return Collections.emptySet();
@@ -454,6 +484,20 @@ public class SQLSecurityDAO implements SecurityStore {
     }
   }
 
+  private Cache getCache(String name) {
+    return cacheManager == null ? null : cacheManager.getCache(name);
+  }
+
+  /**
+   * @return the fully loaded user with the given ID from userCache, or null if it is not cached
+   */
+  private User getCachedUser(Long userId) {
+    Cache userCache = getCache("userCache");
+    if (userId == null || userCache == null) return null;
+    Element element = userCache.get(DbUtils.hashCodeCacheKeyFor(userId));
+    return element == null ? null : (User) element.getObjectValue();
+  }
+
   @Override
   public Map<String, Integer> getUserColumnSizes() throws IOException {
     return DbUtils.getColumnSizes(template, USER_TABLE_NAME);
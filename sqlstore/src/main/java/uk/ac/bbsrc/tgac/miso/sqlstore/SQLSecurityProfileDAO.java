@@ -26,18 +26,24 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Element;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -53,7 +59,8 @@ import com.googlecode.ehcache.annotations.KeyGenerator;
 import com.googlecode.ehcache.annotations.Property;
 import com.googlecode.ehcache.annotations.TriggersRemove;
 
-import uk.ac.bbsrc.tgac.miso.core.store.Store;
+import uk.ac.bbsrc.tgac.miso.core.store.SecurityProfileStore;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -64,13 +71,15 @@ import uk.ac.bbsrc.tgac.miso.core.store.Store;
  * @since 0.0.2
  */
 @Transactional(rollbackFor = Exception.class)
-public class SQLSecurityProfileDAO implements Store<SecurityProfile> {
+public class SQLSecurityProfileDAO implements SecurityProfileStore {
   private static final String TABLE_NAME = "SecurityProfile";
 
   public static final String PROFILES_SELECT = "SELECT profileId, allowAllInternal, owner_userId " + "FROM " + TABLE_NAME;
 
   public static final String PROFILE_SELECT_BY_ID = PROFILES_SELECT + " WHERE profileId = ?";
 
+  public static final String PROFILES_SELECT_BY_IDS = PROFILES_SELECT + " WHERE profileId IN (:ids)";
+
   public static final String PROFILE_USERS_GROUPS_DELETE = "DELETE sp, spru, spwu, sprg, spwg FROM " + TABLE_NAME + " sp "
       + "LEFT JOIN SecurityProfile_ReadUser AS spru ON sp.profileId = spru.SecurityProfile_profileId "
       + "LEFT JOIN SecurityProfile_WriteUser AS spwu ON sp.profileId = spwu.SecurityProfile_profileId "
@@ -83,6 +92,12 @@ public class SQLSecurityProfileDAO implements Store<SecurityProfile> {
       + "LEFT JOIN SecurityProfile_ReadGroup sprg ON sp.profileId = sprg.SecurityProfile_profileId "
       + "LEFT JOIN SecurityProfile_WriteGroup spwg ON sp.profileId = spwg.SecurityProfile_profileId " + "WHERE sp.profileId=?";
 
+  public static final String USERS_GROUPS_SELECT_BY_PROFILE_IDS = "SELECT sp.profileId, spru.readUser_userId, spwu.writeUser_userId, sprg.readGroup_groupId, spwg.writeGroup_groupId "
+      + "FROM " + TABLE_NAME + " sp " + "LEFT JOIN SecurityProfile_ReadUser spru ON sp.profileId = spru.SecurityProfile_profileId "
+      + "LEFT JOIN SecurityProfile_WriteUser spwu ON sp.profileId = spwu.SecurityProfile_profileId "
+      + "LEFT JOIN SecurityProfile_ReadGroup sprg ON sp.profileId = sprg.SecurityProfile_profileId "
+      + "LEFT JOIN SecurityProfile_WriteGroup spwg ON sp.profileId = spwg.SecurityProfile_profileId " + "WHERE sp.profileId IN (:ids)";
+
   protected static final Logger log = LoggerFactory.getLogger(SQLSecurityProfileDAO.class);
 
   private SecurityManager securityManager;
@@ -224,6 +239,121 @@ public class SQLSecurityProfileDAO implements Store<SecurityProfile> {
     return get(id);
   }
 
+  @Override
+  public Collection<SecurityProfile> listByIds(Collection<Long> profileIds) throws IOException {
+    Cache cache = cacheManager == null ? null : cacheManager.getCache("securityProfileCache");
+    Map<Long, SecurityProfile> profiles = new HashMap<>();
+    Set<Long> misses = new LinkedHashSet<>();
+    for (Long id : profileIds) {
+      Element element = cache == null ? null : cache.get(DbUtils.hashCodeCacheKeyFor(id));
+      if (element != null) {
+        profiles.put(id, (SecurityProfile) element.getObjectValue());
+      } else {
+        misses.add(id);
+      }
+    }
+
+    if (!misses.isEmpty()) {
+      final Map<Long, SecurityProfile> loaded = new HashMap<>();
+      final Map<Long, Long> ownerIds = new HashMap<>();
+      DbUtils.queryByIdChunks(template, PROFILES_SELECT_BY_IDS, misses, maxQueryParams, new RowCallbackHandler() {
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+          SecurityProfile sp = new SecurityProfile();
+          sp.setProfileId(rs.getLong("profileId"));
+          sp.setAllowAllInternal(rs.getBoolean("allowAllInternal"));
+          loaded.put(sp.getProfileId(), sp);
+          ownerIds.put(sp.getProfileId(), rs.getLong("owner_userId"));
+        }
+      });
+
+      final Map<Long, ProfileMembers> members = new HashMap<>();
+      DbUtils.queryByIdChunks(template, USERS_GROUPS_SELECT_BY_PROFILE_IDS, loaded.keySet(), maxQueryParams, new RowCallbackHandler() {
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+          long profileId = rs.getLong("profileId");
+          ProfileMembers m = members.get(profileId);
+          if (m == null) {
+            m = new ProfileMembers();
+            members.put(profileId, m);
+          }
+          addIfNotNull(m.readUserIds, rs, "readUser_userId");
+          addIfNotNull(m.writeUserIds, rs, "writeUser_userId");
+          addIfNotNull(m.readGroupIds, rs, "readGroup_groupId");
+          addIfNotNull(m.writeGroupIds, rs, "writeGroup_groupId");
+        }
+      });
+
+      Set<Long> userIds = new HashSet<>(ownerIds.values());
+      Set<Long> groupIds = new HashSet<>();
+      for (ProfileMembers m : members.values()) {
+        userIds.addAll(m.readUserIds);
+        userIds.addAll(m.writeUserIds);
+        groupIds.addAll(m.readGroupIds);
+        groupIds.addAll(m.writeGroupIds);
+      }
+      Map<Long, User> users = new HashMap<>();
+      for (User u : securityManager.listUsersByIds(userIds)) {
+        users.put(u.getUserId(), u);
+      }
+      Map<Long, Group> groups = new HashMap<>();
+      if (!groupIds.isEmpty()) {
+        for (Group g : securityManager.listGroupsByIds(groupIds)) {
+          groups.put(g.getGroupId(), g);
+        }
+      }
+
+      for (SecurityProfile sp : loaded.values()) {
+        sp.setOwner(users.get(ownerIds.get(sp.getProfileId())));
+        ProfileMembers m = members.get(sp.getProfileId());
+        if (m != null) {
+          addAllFound(sp.getReadUsers(), m.readUserIds, users);
+          addAllFound(sp.getWriteUsers(), m.writeUserIds, users);
+          addAllFound(sp.getReadGroups(), m.readGroupIds, groups);
+          addAllFound(sp.getWriteGroups(), m.writeGroupIds, groups);
+        }
+        profiles.put(sp.getProfileId(), sp);
+        if (cache != null) {
+          cache.put(new Element(DbUtils.hashCodeCacheKeyFor(sp.getProfileId()), sp));
+        }
+      }
+    }
+
+    List<SecurityProfile> results = new ArrayList<>();
+    for (Long id : new LinkedHashSet<>(profileIds)) {
+      if (profiles.containsKey(id)) {
+        results.add(profiles.get(id));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * The IDs of the users and groups granted access by one profile
+   */
+  private static class ProfileMembers {
+    private final Set<Long> readUserIds = new HashSet<>();
+    private final Set<Long> writeUserIds = new HashSet<>();
+    private final Set<Long> readGroupIds = new HashSet<>();
+    private final Set<Long> writeGroupIds = new HashSet<>();
+  }
+
+  private static void addIfNotNull(Set<Long> ids, ResultSet rs, String column) throws SQLException {
+    long id = rs.getLong(column);
+    if (!rs.wasNull()) {
+      ids.add(id);
+    }
+  }
+
+  private static <T> void addAllFound(Collection<T> target, Set<Long> ids, Map<Long, T> found) {
+    for (Long id : ids) {
+      T item = found.get(id);
+      if (item != null) {
+        target.add(item);
+      }
+    }
+  }
+
   private void fillOutSecurityProfile(SecurityProfile sp) throws IOException {
     List<Map<String, Object>> results = template.queryForList(USERS_GROUPS_SELECT_BY_PROFILE_ID, sp.getProfileId());
     Set<Long> ruIds = new HashSet<Long>();
@@ -72,6 +72,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.Store;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -85,31 +86,42 @@ import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
 public class SQLSequencerPartitionContainerDAO implements SequencerPartitionContainerStore {
   private static final String TABLE_NAME = "SequencerPartitionContainer";
 
-  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT = "SELECT c.containerId, c.platform, c.identificationBarcode, c.locationBarcode, c.validationBarcode, c.securityProfile_profileId, c.lastModifier , cmod.lastModified FROM "
-      + TABLE_NAME + " c "
-      + "LEFT JOIN (SELECT containerId, MAX(changeTime) AS lastModified FROM SequencerPartitionContainerChangeLog GROUP BY containerId) cmod ON c.containerId = cmod.containerId";
+  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT = "SELECT c.containerId, c.platform, c.identificationBarcode, c.locationBarcode, c.validationBarcode, c.securityProfile_profileId, c.lastModifier, c.lastModified FROM "
+      + TABLE_NAME + " c";
+
+  private static final String SEQUENCER_PARTITION_CONTAINERS_SELECT_AFTER_ID = SEQUENCER_PARTITION_CONTAINER_SELECT
+      + " WHERE (c.containerId > ?)";
+
+  private static final String SEQUENCER_PARTITION_CONTAINERS_AFTER_ID_PAGE = " ORDER BY c.containerId ASC LIMIT ?";
+
+  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_IDS = SEQUENCER_PARTITION_CONTAINER_SELECT
+      + " WHERE c.containerId IN (:ids)";
 
   private static final String SEQUENCER_PARTITION_CONTAINER_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE containerId=:containerId";
 
   private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_SEARCH = SEQUENCER_PARTITION_CONTAINER_SELECT
       + " WHERE c.platform LIKE ? OR c.identificationBarcode LIKE ?";
 
+  private static final String SEQUENCER_PARTITION_CONTAINER_COUNT_BY_SEARCH = "SELECT COUNT(*) FROM " + TABLE_NAME
+      + " c WHERE c.platform LIKE ? OR c.identificationBarcode LIKE ?";
+
   private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_ID = SEQUENCER_PARTITION_CONTAINER_SELECT + " WHERE c.containerId=?";
 
-  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_PARTITION_ID = "SELECT c.containerId, c.platform, c.identificationBarcode, c.locationBarcode, c.validationBarcode, c.securityProfile_profileId, c.lastModifier, cmod.lastModified "
+  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_PARTITION_ID = "SELECT c.containerId, c.platform, c.identificationBarcode, c.locationBarcode, c.validationBarcode, c.securityProfile_profileId, c.lastModifier, c.lastModified "
       + "FROM " + TABLE_NAME + " c "
-      + "LEFT JOIN (SELECT containerId, MAX(changeTime) AS lastModified FROM SequencerPartitionContainerChangeLog GROUP BY containerId) cmod ON c.containerId = cmod.containerId "
       + "LEFT JOIN SequencerPartitionContainer_Partition sp ON c.containerId=sp.container_containerId "
       + "WHERE sp.partitions_partitionId=?";
 
-  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_RELATED_RUN = "SELECT DISTINCT c.containerId, c.platform, c.identificationBarcode, c.locationBarcode, c.validationBarcode, c.securityProfile_profileId, c.lastModifier, cmod.lastModified "
+  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_RELATED_RUN = "SELECT DISTINCT c.containerId, c.platform, c.identificationBarcode, c.locationBarcode, c.validationBarcode, c.securityProfile_profileId, c.lastModifier, c.lastModified "
       + "FROM " + TABLE_NAME + " c "
-      + "LEFT JOIN (SELECT containerId, MAX(changeTime) AS lastModified FROM SequencerPartitionContainerChangeLog GROUP BY containerId) cmod ON c.containerId = cmod.containerId "
       + "LEFT JOIN Run_SequencerPartitionContainer rf ON c.containerId=rf.containers_containerId " + "WHERE rf.run_runId=?";
 
   private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_IDENTIFICATION_BARCODE = SEQUENCER_PARTITION_CONTAINER_SELECT
       + " WHERE c.identificationBarcode=? ORDER BY containerId DESC";
 
+  private static final String SEQUENCER_PARTITION_CONTAINER_SELECT_BY_IDENTIFICATION_BARCODES = SEQUENCER_PARTITION_CONTAINER_SELECT
+      + " WHERE c.identificationBarcode IN (:ids) ORDER BY containerId DESC";
+
   private static final String SEQUENCER_PARTITION_CONTAINER_PARTITION_DELETE_BY_SEQUENCER_PARTITION_CONTAINER_ID = "DELETE FROM SequencerPartitionContainer_Partition "
       + "WHERE container_containerId=:container_containerId";
 
@@ -128,6 +140,7 @@ public class SQLSequencerPartitionContainerDAO implements SequencerPartitionCont
   private RunStore runDAO;
   private Store<SecurityProfile> securityProfileDAO;
   private JdbcTemplate template;
+  private final int maxQueryParams = 500;
   private CascadeType cascadeType;
 
   private PlatformStore platformDAO;
@@ -240,6 +253,31 @@ public class SQLSequencerPartitionContainerDAO implements SequencerPartitionCont
     return lp;
   }
 
+  @Override
+  public List<SequencerPartitionContainer<SequencerPoolPartition>> listAfterId(long afterId, int limit) throws IOException {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(SEQUENCER_PARTITION_CONTAINERS_SELECT_AFTER_ID, "c.securityProfile_profileId", args)
+        + SEQUENCER_PARTITION_CONTAINERS_AFTER_ID_PAGE;
+    args.add(limit);
+    List<SequencerPartitionContainer<SequencerPoolPartition>> lp = template.query(query, args.toArray(),
+        new SequencerPartitionContainerMapper(true));
+    for (SequencerPartitionContainer<SequencerPoolPartition> f : lp) {
+      fillInRun(f);
+    }
+    return lp;
+  }
+
+  @Override
+  public List<SequencerPartitionContainer<SequencerPoolPartition>> listByIdList(List<Long> idList) throws IOException {
+    List<SequencerPartitionContainer<SequencerPoolPartition>> lp = DbUtils.listByIdChunks(template,
+        SEQUENCER_PARTITION_CONTAINER_SELECT_BY_IDS, idList, maxQueryParams, new SequencerPartitionContainerMapper());
+    for (SequencerPartitionContainer<SequencerPoolPartition> f : lp) {
+      fillInRun(f);
+    }
+    return lp;
+  }
+
   @Override
   public int count() throws IOException {
     return template.queryForInt("SELECT count(*) FROM " + TABLE_NAME);
@@ -257,6 +295,17 @@ public class SQLSequencerPartitionContainerDAO implements SequencerPartitionCont
     return lp;
   }
 
+  @Override
+  public List<SequencerPartitionContainer<SequencerPoolPartition>> listByBarcodeList(List<String> barcodeList) throws IOException {
+    List<SequencerPartitionContainer<SequencerPoolPartition>> lp = DbUtils.listByIdChunks(template,
+        SEQUENCER_PARTITION_CONTAINER_SELECT_BY_IDENTIFICATION_BARCODES, barcodeList, maxQueryParams,
+        new SequencerPartitionContainerMapper(true));
+    for (SequencerPartitionContainer<SequencerPoolPartition> f : lp) {
+      fillInRun(f);
+    }
+    return lp;
+  }
+
   @Override
   public List<SequencerPartitionContainer<SequencerPoolPartition>> listAllSequencerPartitionContainersByRunId(long runId)
       throws IOException {
@@ -311,7 +360,7 @@ public class SQLSequencerPartitionContainerDAO implements SequencerPartitionCont
   @TriggersRemove(cacheName = { "sequencerPartitionContainerCache",
       "lazySequencerPartitionContainerCache" }, keyGenerator = @KeyGenerator(name = "HashCodeCacheKeyGenerator", properties = {
           @Property(name = "includeMethod", value = "false"), @Property(name = "includeParameterTypes", value = "false") }) )
-  public synchronized long save(SequencerPartitionContainer<SequencerPoolPartition> sequencerPartitionContainer) throws IOException {
+  public long save(SequencerPartitionContainer<SequencerPoolPartition> sequencerPartitionContainer) throws IOException {
     Long securityProfileId = sequencerPartitionContainer.getSecurityProfile().getProfileId();
     if (securityProfileId == null || (this.cascadeType != null)) { // && this.cascadeType.equals(CascadeType.PERSIST))) {
       securityProfileId = securityProfileDAO.save(sequencerPartitionContainer.getSecurityProfile());
@@ -331,7 +380,6 @@ public class SQLSequencerPartitionContainerDAO implements SequencerPartitionCont
 
     if (sequencerPartitionContainer.getId() == AbstractSequencerPartitionContainer.UNSAVED_ID) {
       SimpleJdbcInsert insert = new SimpleJdbcInsert(template).withTableName(TABLE_NAME).usingGeneratedKeyColumns("containerId");
-      sequencerPartitionContainer.setId(DbUtils.getAutoIncrement(template, TABLE_NAME));
       Number newId = insert.executeAndReturnKey(params);
       sequencerPartitionContainer.setId(newId.longValue());
     } else {
@@ -469,17 +517,16 @@ public class SQLSequencerPartitionContainerDAO implements SequencerPartitionCont
   }
 
   @Override
+  @Cacheable(cacheName = "containerCountCache")
   public long countContainers() throws IOException {
     return Long.valueOf(count());
   }
 
   @Override
+  @Cacheable(cacheName = "containerCountCache")
   public long countBySearch(String querystr) throws IOException {
     querystr = "%" + querystr.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template.query(
-        SEQUENCER_PARTITION_CONTAINER_SELECT_BY_SEARCH,
-        new Object[] { querystr, querystr },
-        new SequencerPartitionContainerMapper(true)).size();
+    return template.queryForLong(SEQUENCER_PARTITION_CONTAINER_COUNT_BY_SEARCH, new Object[] { querystr, querystr });
   }
 
   @Override
@@ -521,9 +568,7 @@ public class SQLSequencerPartitionContainerDAO implements SequencerPartitionCont
 
   public String updateSortCol(String sortCol) {
     sortCol = sortCol.replaceAll("[^\\w]", "");
-    if ("lastModified".equals(sortCol)) {
-      sortCol = "cmod." + sortCol;
-    } else if ("id".equals(sortCol)) {
+    if ("id".equals(sortCol)) {
       sortCol = "c.containerId";
     } else {
       sortCol = "c." + sortCol;
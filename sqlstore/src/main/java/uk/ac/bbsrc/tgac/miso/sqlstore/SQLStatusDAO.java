@@ -28,8 +28,15 @@ import java.sql.Blob;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.sql.rowset.serial.SerialBlob;
 import javax.sql.rowset.serial.SerialException;
@@ -38,9 +45,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -49,6 +58,7 @@ import uk.ac.bbsrc.tgac.miso.core.data.type.HealthType;
 import uk.ac.bbsrc.tgac.miso.core.factory.DataObjectFactory;
 import uk.ac.bbsrc.tgac.miso.core.store.StatusStore;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -79,8 +89,11 @@ public class SQLStatusDAO implements StatusStore {
 
   public static final String STATUS_SELECT_BY_HEALTH = STATUSES_SELECT + " " + "WHERE health = ?";
 
+  public static final String STATUS_IDS_SELECT_BY_RUN_NAMES = "SELECT statusId, runName FROM " + TABLE_NAME + " WHERE runName IN (:ids)";
+
   protected static final Logger log = LoggerFactory.getLogger(SQLStatusDAO.class);
   private JdbcTemplate template;
+  private final int maxQueryParams = 500;
 
   @Autowired
   private DataObjectFactory dataObjectFactory;
@@ -100,8 +113,7 @@ public class SQLStatusDAO implements StatusStore {
     this.template = template;
   }
 
-  @Override
-  public long save(Status status) throws IOException {
+  private MapSqlParameterSource toParams(Status status) {
     MapSqlParameterSource params = new MapSqlParameterSource();
     params.addValue("runName", status.getRunName());
     params.addValue("health", status.getHealth().getKey());
@@ -123,6 +135,12 @@ public class SQLStatusDAO implements StatusStore {
     } catch (SQLException e) {
       log.error("status save", e);
     }
+    return params;
+  }
+
+  @Override
+  public long save(Status status) throws IOException {
+    MapSqlParameterSource params = toParams(status);
 
     if (status.getId() == 0L) {
       Status savedStatus = getByRunName(status.getRunName());
@@ -152,6 +170,73 @@ public class SQLStatusDAO implements StatusStore {
     return status.getId();
   }
 
+  @Override
+  public void saveAll(Collection<Status> statuses) throws IOException {
+    // statuses without an ID may already have been saved under the same run name
+    Set<String> unsavedRunNames = new HashSet<>();
+    for (Status status : statuses) {
+      if (status.getId() == 0L) {
+        unsavedRunNames.add(status.getRunName());
+      }
+    }
+    Map<String, Long> savedIds = listIdsByRunName(unsavedRunNames);
+
+    // a run name may appear more than once in the batch, but it must only be inserted once
+    Map<String, MapSqlParameterSource> inserts = new LinkedHashMap<>();
+    Map<String, List<Status>> inserted = new HashMap<>();
+    List<SqlParameterSource> updates = new ArrayList<>();
+    for (Status status : statuses) {
+      MapSqlParameterSource params = toParams(status);
+      if (status.getId() == 0L) {
+        Long savedId = savedIds.get(status.getRunName());
+        if (savedId == null) {
+          if (status.getHealth().equals(HealthType.Running) && status.getStartDate() == null) {
+            // run freshly started
+            params.addValue("startDate", new Date());
+          }
+          inserts.put(status.getRunName(), params);
+          if (!inserted.containsKey(status.getRunName())) {
+            inserted.put(status.getRunName(), new ArrayList<Status>());
+          }
+          inserted.get(status.getRunName()).add(status);
+          continue;
+        }
+        status.setId(savedId);
+      } else if (status.getStartDate() != null) {
+        params.addValue("startDate", new SimpleDateFormat("yyyy-MM-dd").format(status.getStartDate()));
+      }
+      params.addValue("statusId", status.getId());
+      updates.add(params);
+    }
+
+    if (!inserts.isEmpty()) {
+      new SimpleJdbcInsert(template).withTableName(TABLE_NAME)
+          .executeBatch(inserts.values().toArray(new SqlParameterSource[inserts.size()]));
+      for (Map.Entry<String, Long> entry : listIdsByRunName(inserted.keySet()).entrySet()) {
+        for (Status status : inserted.get(entry.getKey())) {
+          status.setId(entry.getValue());
+        }
+      }
+    }
+    if (!updates.isEmpty()) {
+      new NamedParameterJdbcTemplate(template).batchUpdate(STATUS_UPDATE, updates.toArray(new SqlParameterSource[updates.size()]));
+    }
+  }
+
+  private Map<String, Long> listIdsByRunName(Collection<String> runNames) {
+    final Map<String, Long> ids = new HashMap<>();
+    DbUtils.queryByIdChunks(template, STATUS_IDS_SELECT_BY_RUN_NAMES, runNames, maxQueryParams, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        // like getByRunName, use the first status saved under each run name
+        if (!ids.containsKey(rs.getString("runName"))) {
+          ids.put(rs.getString("runName"), rs.getLong("statusId"));
+        }
+      }
+    });
+    return ids;
+  }
+
   @Override
   public List<Status> listAll() {
     List results = template.query(STATUSES_SELECT, new StatusMapper());
@@ -26,6 +26,8 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -67,6 +69,7 @@ import uk.ac.bbsrc.tgac.miso.core.store.StudyStore;
 import uk.ac.bbsrc.tgac.miso.core.util.CoverageIgnore;
 import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheAwareRowMapper;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicate;
 import uk.ac.bbsrc.tgac.miso.sqlstore.util.BridgeCollectionUpdater;
 
 /**
@@ -86,10 +89,16 @@ public class SQLStudyDAO implements StudyStore {
 
   public static final String STUDIES_SELECT_LIMIT = STUDIES_SELECT + " ORDER BY studyId DESC LIMIT ?";
 
+  public static final String STUDIES_SELECT_AFTER_ID = STUDIES_SELECT + " WHERE (studyId > ?)";
+
+  public static final String STUDIES_AFTER_ID_PAGE = " ORDER BY studyId ASC LIMIT ?";
+
   public static final String STUDY_SELECT_BY_ID = STUDIES_SELECT + " " + "WHERE studyId = ?";
 
-  public static final String STUDIES_SELECT_BY_SEARCH = STUDIES_SELECT + " WHERE " + "name LIKE ? OR " + "alias LIKE ? OR "
-      + "description LIKE ? ";
+  public static final String STUDIES_SELECT_BY_SEARCH = STUDIES_SELECT + " WHERE (" + "name LIKE ? OR " + "alias LIKE ? OR "
+      + "description LIKE ?) ";
+
+  public static final String STUDIES_SEARCH_PAGE = " AND studyId < ? ORDER BY studyId DESC LIMIT ?";
 
   public static final String STUDY_UPDATE = "UPDATE " + TABLE_NAME + " "
       + "SET name=:name, description=:description, alias=:alias, accession=:accession, securityProfile_profileId=:securityProfile_profileId, project_projectId=:project_projectId, studyType=:studyType, lastModifier=:lastModifier "
@@ -290,6 +299,15 @@ public class SQLStudyDAO implements StudyStore {
     return template.query(STUDIES_SELECT, new StudyMapper(true));
   }
 
+  @Override
+  public List<Study> listAfterId(long afterId, int limit) {
+    List<Object> args = new ArrayList<>();
+    args.add(afterId);
+    String query = ReadableProfilePredicate.restrict(STUDIES_SELECT_AFTER_ID, "securityProfile_profileId", args) + STUDIES_AFTER_ID_PAGE;
+    args.add(limit);
+    return template.query(query, args.toArray(), new StudyMapper(true));
+  }
+
   @Override
   public List<Study> listAllWithLimit(long limit) throws IOException {
     return template.query(STUDIES_SELECT_LIMIT, new Object[] { limit }, new StudyMapper(true));
@@ -303,7 +321,19 @@ public class SQLStudyDAO implements StudyStore {
   @Override
   public List<Study> listBySearch(String query) {
     String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
-    return template.query(STUDIES_SELECT_BY_SEARCH, new Object[] { mySQLQuery, mySQLQuery, mySQLQuery }, new StudyMapper(true));
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(STUDIES_SELECT_BY_SEARCH, "securityProfile_profileId", args);
+    return template.query(sql, args.toArray(), new StudyMapper(true));
+  }
+
+  @Override
+  public List<Study> listBySearchBeforeId(String query, long beforeId, int limit) {
+    String mySQLQuery = "%" + query.replaceAll("_", Matcher.quoteReplacement("\\_")) + "%";
+    List<Object> args = new ArrayList<Object>(Collections.nCopies(3, mySQLQuery));
+    String sql = ReadableProfilePredicate.restrict(STUDIES_SELECT_BY_SEARCH, "securityProfile_profileId", args) + STUDIES_SEARCH_PAGE;
+    args.add(beforeId);
+    args.add(limit);
+    return template.query(sql, args.toArray(), new StudyMapper(true));
   }
 
   @Override
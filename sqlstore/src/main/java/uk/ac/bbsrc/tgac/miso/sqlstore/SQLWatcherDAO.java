@@ -26,13 +26,19 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -44,6 +50,7 @@ import com.eaglegenomics.simlims.core.manager.SecurityManager;
 
 import uk.ac.bbsrc.tgac.miso.core.data.Watchable;
 import uk.ac.bbsrc.tgac.miso.core.store.WatcherStore;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
 
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
@@ -60,6 +67,8 @@ public class SQLWatcherDAO implements WatcherStore {
 
   private static final String WATCHERS_SELECT_BY_ENTITY_NAME = WATCHER_SELECT + " WHERE entityName = ?";
 
+  private static final String WATCHERS_SELECT_BY_ENTITY_NAMES = WATCHER_SELECT + " WHERE entityName IN (:ids)";
+
   private static final String WATCHED_ENTITIES_BY_USER = WATCHER_SELECT + " WHERE userId = ?";
 
   private static final String WATCHER_DELETE_BY_USER_ID = "DELETE FROM Watcher WHERE entityName=:entityName AND userId=:userId";
@@ -72,6 +81,7 @@ public class SQLWatcherDAO implements WatcherStore {
   private com.eaglegenomics.simlims.core.manager.SecurityManager securityManager;
 
   private JdbcTemplate template;
+  private final int maxQueryParams = 500;
 
   public void setSecurityManager(SecurityManager securityManager) {
     this.securityManager = securityManager;
@@ -95,6 +105,41 @@ public class SQLWatcherDAO implements WatcherStore {
     return template.query(WATCHERS_SELECT_BY_ENTITY_NAME, new Object[] { entityName }, new WatcherMapper());
   }
 
+  @Override
+  public Map<String, Collection<User>> getWatchersByEntityNames(Collection<String> entityNames) throws IOException {
+    final Map<String, Collection<Long>> userIdsByEntity = new HashMap<String, Collection<Long>>();
+    final Set<Long> userIds = new HashSet<Long>();
+    DbUtils.queryByIdChunks(template, WATCHERS_SELECT_BY_ENTITY_NAMES, entityNames, maxQueryParams, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        String entityName = rs.getString("entityName");
+        Collection<Long> ids = userIdsByEntity.get(entityName);
+        if (ids == null) {
+          ids = new ArrayList<Long>();
+          userIdsByEntity.put(entityName, ids);
+        }
+        long userId = rs.getLong("userId");
+        ids.add(userId);
+        userIds.add(userId);
+      }
+    });
+
+    Map<Long, User> usersById = new HashMap<Long, User>();
+    for (User u : securityManager.listUsersByIds(userIds)) {
+      usersById.put(u.getUserId(), u);
+    }
+    Map<String, Collection<User>> results = new HashMap<String, Collection<User>>();
+    for (Map.Entry<String, Collection<Long>> entry : userIdsByEntity.entrySet()) {
+      Collection<User> watchers = new ArrayList<User>();
+      for (Long userId : entry.getValue()) {
+        User u = usersById.get(userId);
+        if (u != null) watchers.add(u);
+      }
+      results.put(entry.getKey(), watchers);
+    }
+    return results;
+  }
+
   @Override
   public boolean removeWatchedEntity(Watchable watchable) throws IOException {
     MapSqlParameterSource eParams = new MapSqlParameterSource();
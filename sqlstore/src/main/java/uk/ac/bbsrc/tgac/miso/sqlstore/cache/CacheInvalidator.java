@@ -0,0 +1,386 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.DbUtils;
+
+/**
+ * Evicts stale entries from the MISO entity caches after a save or removal. Cache names are resolved once per entity type and kept, and
+ * evictions are collected into a {@link Batch} so that each cache is looked up and locked once however many entries are evicted from it.
+ * <p/>
+ * Eviction and list update counts are kept per cache, alongside ehcache's own hit and miss counts, and are reported by {@link #getStats()}.
+ * There is one invalidator per CacheManager, obtained with {@link #forManager(CacheManager)}.
+ * <p/>
+ * Project graphs are derived from many entities whose projects are not known when they are saved, so the whole
+ * {@link #PROJECT_GRAPH_CACHE} is flushed by any batch that touches the cache of a project, study, experiment, sample, library, pool,
+ * container, partition or run. It holds one small entry per project viewed, so rebuilding it is cheap.
+ */
+public class CacheInvalidator {
+  protected static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+  public static final String PROJECT_GRAPH_CACHE = "projectGraphCache";
+
+  private static final Set<String> PROJECT_GRAPH_SOURCES = new HashSet<>(Arrays.asList("projectCache", "lazyProjectCache", "studyCache",
+      "lazyStudyCache", "studyListCache", "experimentCache", "lazyExperimentCache", "experimentListCache", "sampleCache", "lazySampleCache",
+      "sampleListCache", "libraryCache", "lazyLibraryCache", "libraryListCache", "poolCache", "lazyPoolCache", "poolListCache",
+      "sequencerPartitionContainerCache", "lazySequencerPartitionContainerCache", "containerListCache", "partitionListCache", "runCache",
+      "lazyRunCache", "runListCache"));
+
+  private static final Map<CacheManager, CacheInvalidator> instances = new WeakHashMap<>();
+
+  private final CacheManager cacheManager;
+  private final ConcurrentMap<String, CacheRef> caches = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Class<?>, CacheRef[]> entityCaches = new ConcurrentHashMap<>();
+
+  private CacheInvalidator(CacheManager cacheManager) {
+    this.cacheManager = cacheManager;
+  }
+
+  /**
+   * @return the invalidator for the given CacheManager, or null if the manager is null
+   */
+  public static CacheInvalidator forManager(CacheManager cacheManager) {
+    if (cacheManager == null) {
+      return null;
+    }
+    synchronized (instances) {
+      CacheInvalidator invalidator = instances.get(cacheManager);
+      if (invalidator == null) {
+        invalidator = new CacheInvalidator(cacheManager);
+        instances.put(cacheManager, invalidator);
+      }
+      return invalidator;
+    }
+  }
+
+  /**
+   * @return the key under which the @Cacheable entity getters store the entity with this ID
+   */
+  public static Long keyFor(long id) {
+    return DbUtils.hashCodeCacheKeyFor(id);
+  }
+
+  /**
+   * @return the name of the entity cache for a type, e.g. libraryDilutionCache, or lazyLibraryDilutionCache if lazy
+   */
+  public static String cacheNameFor(Class<?> type, boolean lazy) {
+    if (lazy) {
+      return "lazy" + LimsUtils.capitalise(type.getSimpleName()) + "Cache";
+    } else {
+      return LimsUtils.noddyCamelCaseify(type.getSimpleName()) + "Cache";
+    }
+  }
+
+  /**
+   * Starts a new batch of evictions. Nothing is evicted until {@link Batch#run()} is called.
+   */
+  public Batch batch() {
+    return new Batch();
+  }
+
+  /**
+   * Evicts an entity from both the full and lazy caches for its type
+   */
+  public void evict(Class<?> type, long id) {
+    batch().entity(type, id).run();
+  }
+
+  /**
+   * Evicts an entity from a single named cache
+   */
+  public void evict(String cacheName, long id) {
+    batch().entry(cacheName, id).run();
+  }
+
+  /**
+   * Updates the cached listAll result for an entity type, if there is one
+   */
+  public void updateList(String cacheName, Object obj, boolean replace) {
+    batch().listEntry(cacheName, obj, replace).run();
+  }
+
+  /**
+   * @return the counters of every cache that this invalidator has touched, keyed and sorted by cache name
+   */
+  public Map<String, Stats> getStats() {
+    Map<String, Stats> stats = new TreeMap<>();
+    for (CacheRef ref : caches.values()) {
+      if (ref.cache != null) {
+        stats.put(ref.name, ref.stats);
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * @return the counters for a cache, or null if the cache does not exist
+   */
+  public Stats getStats(String cacheName) {
+    CacheRef ref = resolve(cacheName);
+    return ref.cache == null ? null : ref.stats;
+  }
+
+  private CacheRef resolve(String cacheName) {
+    CacheRef ref = caches.get(cacheName);
+    if (ref == null) {
+      // a missing cache is remembered too, so that callers need not check which caches are configured
+      Ehcache cache = cacheManager.getEhcache(cacheName);
+      CacheRef created = new CacheRef(cacheName, cache);
+      ref = caches.putIfAbsent(cacheName, created);
+      if (ref == null) {
+        ref = created;
+      }
+    }
+    return ref;
+  }
+
+  private CacheRef[] resolve(Class<?> type) {
+    CacheRef[] refs = entityCaches.get(type);
+    if (refs == null) {
+      refs = new CacheRef[] { resolve(cacheNameFor(type, false)), resolve(cacheNameFor(type, true)) };
+      entityCaches.putIfAbsent(type, refs);
+    }
+    return refs;
+  }
+
+  /**
+   * Eviction and list update counts for one cache. Hits and misses are read from the cache's own statistics.
+   */
+  public static final class Stats {
+    private final Ehcache cache;
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong evictionMisses = new AtomicLong();
+    private final AtomicLong listUpdates = new AtomicLong();
+
+    private Stats(Ehcache cache) {
+      this.cache = cache;
+    }
+
+    /**
+     * @return the number of entries removed from the cache
+     */
+    public long getEvictions() {
+      return evictions.get();
+    }
+
+    /**
+     * @return the number of evictions requested for entries that were not cached
+     */
+    public long getEvictionMisses() {
+      return evictionMisses.get();
+    }
+
+    /**
+     * @return the number of times a cached list was updated in place
+     */
+    public long getListUpdates() {
+      return listUpdates.get();
+    }
+
+    public long getHits() {
+      return cache.getLiveCacheStatistics().getCacheHitCount();
+    }
+
+    public long getMisses() {
+      return cache.getLiveCacheStatistics().getCacheMissCount();
+    }
+  }
+
+  private static final class CacheRef {
+    private final String name;
+    private final Ehcache cache;
+    private final Stats stats;
+
+    private CacheRef(String name, Ehcache cache) {
+      this.name = name;
+      this.cache = cache;
+      this.stats = cache == null ? null : new Stats(cache);
+    }
+  }
+
+  private static final class ListUpdate {
+    private final Object obj;
+    private final boolean replace;
+    private final boolean remove;
+
+    private ListUpdate(Object obj, boolean replace, boolean remove) {
+      this.obj = obj;
+      this.replace = replace;
+      this.remove = remove;
+    }
+  }
+
+  /**
+   * A set of evictions to make together. Entries are grouped by cache, so duplicates cost nothing and each cache is visited once.
+   */
+  public final class Batch {
+    private final Map<CacheRef, Set<Object>> keys = new LinkedHashMap<>();
+    private final Map<CacheRef, List<ListUpdate>> listUpdates = new LinkedHashMap<>();
+    private boolean projectGraphsStale;
+
+    private Batch() {
+    }
+
+    /**
+     * Adds an entity, to be evicted from both the full and lazy caches for its type
+     */
+    public Batch entity(Class<?> type, long id) {
+      Long key = keyFor(id);
+      for (CacheRef ref : resolve(type)) {
+        add(ref, key);
+      }
+      return this;
+    }
+
+    /**
+     * Adds several entities of the same type, e.g. the dependants of a saved entity
+     */
+    public Batch entities(Class<?> type, Collection<Long> ids) {
+      for (Long id : ids) {
+        entity(type, id);
+      }
+      return this;
+    }
+
+    /**
+     * Adds an entry, to be evicted from one named cache only
+     */
+    public Batch entry(String cacheName, long id) {
+      add(resolve(cacheName), keyFor(id));
+      return this;
+    }
+
+    /**
+     * Adds an object to be replaced in, added to or removed from the cached listAll result held in a list cache
+     *
+     * @param replace
+     *          if true, the object is added or replaced; if false, it is removed if present and added otherwise
+     */
+    public Batch listEntry(String cacheName, Object obj, boolean replace) {
+      addListUpdate(resolve(cacheName), new ListUpdate(obj, replace, false));
+      return this;
+    }
+
+    /**
+     * Adds an object to be removed from the cached listAll result held in a list cache. Unlike {@link #listEntry(String, Object, boolean)},
+     * an object that is not in the cached list is left out of it.
+     */
+    public Batch listRemoval(String cacheName, Object obj) {
+      addListUpdate(resolve(cacheName), new ListUpdate(obj, false, true));
+      return this;
+    }
+
+    private void addListUpdate(CacheRef ref, ListUpdate update) {
+      touch(ref);
+      if (ref.cache == null) return;
+      List<ListUpdate> updates = listUpdates.get(ref);
+      if (updates == null) {
+        updates = new ArrayList<>();
+        listUpdates.put(ref, updates);
+      }
+      updates.add(update);
+    }
+
+    private void add(CacheRef ref, Object key) {
+      touch(ref);
+      if (ref.cache == null) return;
+      Set<Object> set = keys.get(ref);
+      if (set == null) {
+        set = new LinkedHashSet<>();
+        keys.put(ref, set);
+      }
+      set.add(key);
+    }
+
+    private void touch(CacheRef ref) {
+      if (PROJECT_GRAPH_SOURCES.contains(ref.name)) {
+        projectGraphsStale = true;
+      }
+    }
+
+    /**
+     * Makes every eviction and list update in this batch
+     */
+    public void run() {
+      for (Map.Entry<CacheRef, Set<Object>> entry : keys.entrySet()) {
+        CacheRef ref = entry.getKey();
+        if (ref.cache.getSize() == 0) {
+          ref.stats.evictionMisses.addAndGet(entry.getValue().size());
+          continue;
+        }
+        int removed = 0;
+        for (Object key : entry.getValue()) {
+          if (ref.cache.remove(key)) removed++;
+        }
+        ref.stats.evictions.addAndGet(removed);
+        ref.stats.evictionMisses.addAndGet(entry.getValue().size() - removed);
+        log.debug("Removed " + removed + " of " + entry.getValue().size() + " entries from " + ref.name);
+      }
+      for (Map.Entry<CacheRef, List<ListUpdate>> entry : listUpdates.entrySet()) {
+        updateList(entry.getKey(), entry.getValue());
+      }
+      if (projectGraphsStale) {
+        flush(resolve(PROJECT_GRAPH_CACHE));
+      }
+      keys.clear();
+      listUpdates.clear();
+      projectGraphsStale = false;
+    }
+
+    private void flush(CacheRef ref) {
+      if (ref.cache == null) return;
+      int size = ref.cache.getSize();
+      if (size > 0) {
+        ref.cache.removeAll();
+        ref.stats.evictions.addAndGet(size);
+        log.debug("Removed all " + size + " entries from " + ref.name);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateList(CacheRef ref, List<ListUpdate> updates) {
+      List<?> cacheKeys = ref.cache.getKeys();
+      if (cacheKeys.isEmpty()) return;
+      Object cacheKey = cacheKeys.get(0);
+      ref.cache.acquireWriteLockOnKey(cacheKey);
+      try {
+        Element element = ref.cache.get(cacheKey);
+        if (element == null) return;
+        Collection<Object> list = (Collection<Object>) element.getObjectValue();
+        for (ListUpdate update : updates) {
+          if (list.remove(update.obj)) {
+            if (update.replace) {
+              list.add(update.obj);
+            }
+          } else if (!update.remove) {
+            list.add(update.obj);
+          }
+        }
+        ref.cache.put(new Element(cacheKey, list));
+        ref.stats.listUpdates.addAndGet(updates.size());
+      } finally {
+        ref.cache.releaseWriteLockOnKey(cacheKey);
+      }
+    }
+  }
+}
@@ -30,6 +30,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +38,11 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.DatabaseMetaDataCallback;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.MetaDataAccessException;
@@ -48,10 +53,8 @@ import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheException;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
-import net.sf.ehcache.Element;
-import net.sf.ehcache.constructs.blocking.BlockingCache;
 import uk.ac.bbsrc.tgac.miso.core.data.Nameable;
-import uk.ac.bbsrc.tgac.miso.core.util.LimsUtils;
+import uk.ac.bbsrc.tgac.miso.sqlstore.cache.CacheInvalidator;
 
 /**
  * uk.ac.bbsrc.tgac.miso.util
@@ -157,50 +160,28 @@ public class DbUtils {
   }
 
   public static <T> Cache lookupCache(CacheManager cacheManager, Class<T> cacheClass, boolean lazy) {
-    if (lazy) {
-      return cacheManager.getCache("lazy" + LimsUtils.capitalise(cacheClass.getSimpleName()) + "Cache");
-    } else {
-      return cacheManager.getCache(LimsUtils.noddyCamelCaseify(cacheClass.getSimpleName()) + "Cache");
-    }
+    return cacheManager.getCache(CacheInvalidator.cacheNameFor(cacheClass, lazy));
   }
 
   public static void updateCaches(Cache cache, long id) {
-    if (cache != null && cache.getKeys().size() > 0) {
-      log.debug("Removing " + id + " from " + cache.getName());
-      BlockingCache c = new BlockingCache(cache);
-      c.remove(DbUtils.hashCodeCacheKeyFor(id));
+    if (cache != null) {
+      if (cache.getCacheManager() != null) {
+        CacheInvalidator.forManager(cache.getCacheManager()).evict(cache.getName(), id);
+      } else {
+        cache.remove(DbUtils.hashCodeCacheKeyFor(id));
+      }
     }
   }
 
   public static <T extends Nameable> void updateCaches(CacheManager cacheManager, T obj, Class<T> cacheClass) {
-    Cache cache = DbUtils.lookupCache(cacheManager, cacheClass, true);
-    if (cache != null && cache.getKeys().size() > 0) {
-      log.debug("Removing " + cacheClass.getSimpleName() + " " + obj.getId() + " from " + cache.getName());
-      BlockingCache c = new BlockingCache(cache);
-      c.remove(DbUtils.hashCodeCacheKeyFor(obj.getId()));
-    }
-
-    cache = DbUtils.lookupCache(cacheManager, cacheClass, false);
-    if (cache != null && cache.getKeys().size() > 0) {
-      log.debug("Removing " + cacheClass.getSimpleName() + " " + obj.getId() + " from " + cache.getName());
-      BlockingCache c = new BlockingCache(cache);
-      c.remove(DbUtils.hashCodeCacheKeyFor(obj.getId()));
+    if (cacheManager != null) {
+      CacheInvalidator.forManager(cacheManager).evict(cacheClass, obj.getId());
     }
   }
 
   public static <T> void updateListCache(Cache cache, boolean replace, T obj, Class<T> cacheClass) {
-    if (cache != null && cache.getKeys().size() > 0) {
-      BlockingCache c = new BlockingCache(cache);
-      Object cachekey = c.getKeys().get(0);
-      List<T> e = (List<T>) c.get(cachekey).getObjectValue();
-      if (e.remove(obj)) {
-        if (replace) {
-          e.add(obj);
-        }
-      } else {
-        e.add(obj);
-      }
-      c.put(new Element(cachekey, e));
+    if (cache != null && cache.getCacheManager() != null) {
+      CacheInvalidator.forManager(cache.getCacheManager()).updateList(cache.getName(), obj, replace);
     }
   }
 
@@ -217,6 +198,68 @@ public class DbUtils {
     return template.query(queryBuilder.toString(), new Object[] { barcodeList }, new int[] { Types.VARCHAR }, mapper);
   }
 
+  /**
+   * Runs a query that restricts on a named <code>:ids</code> IN-list, splitting the supplied IDs into chunks of at most maxQueryParams so
+   * that the database's parameter limit is never exceeded. Every returned row, from every chunk, is passed to the given handler.
+   *
+   * @param template
+   *          the JdbcTemplate to query with
+   * @param query
+   *          SQL containing an <code>IN (:ids)</code> clause
+   * @param ids
+   *          the IDs to bind to :ids
+   * @param maxQueryParams
+   *          the maximum number of IDs to bind per query
+   * @param handler
+   *          callback receiving each row
+   */
+  public static void queryByIdChunks(JdbcTemplate template, String query, Collection<?> ids, int maxQueryParams,
+      RowCallbackHandler handler) {
+    if (ids == null || ids.isEmpty()) return;
+    NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(template);
+    List<?> idList = new ArrayList<Object>(ids);
+    for (int i = 0; i < idList.size(); i += maxQueryParams) {
+      List<?> chunk = idList.subList(i, Math.min(i + maxQueryParams, idList.size()));
+      namedTemplate.query(query, new MapSqlParameterSource("ids", chunk), handler);
+    }
+  }
+
+  /**
+   * Maps every row returned by {@link #queryByIdChunks(JdbcTemplate, String, Collection, int, RowCallbackHandler)}
+   *
+   * @return the mapped rows, from every chunk
+   */
+  public static <T> List<T> listByIdChunks(JdbcTemplate template, String query, Collection<?> ids, int maxQueryParams,
+      final RowMapper<T> mapper) {
+    final List<T> results = new ArrayList<T>();
+    queryByIdChunks(template, query, ids, maxQueryParams, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        results.add(mapper.mapRow(rs, results.size()));
+      }
+    });
+    return results;
+  }
+
+  /**
+   * Runs {@link #queryByIdChunks(JdbcTemplate, String, Collection, int, RowCallbackHandler)}, handing the rows of each chunk to an
+   * extractor such as {@link SecurityResolver#extractor(RowMapper)}
+   *
+   * @return the extracted rows, from every chunk
+   */
+  public static <T> List<T> listByIdChunks(JdbcTemplate template, String query, Collection<?> ids, int maxQueryParams,
+      ResultSetExtractor<List<T>> extractor) {
+    List<T> results = new ArrayList<T>();
+    if (ids == null || ids.isEmpty()) return results;
+    NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(template);
+    List<?> idList = new ArrayList<Object>(ids);
+    for (int i = 0; i < idList.size(); i += maxQueryParams) {
+      List<?> chunk = idList.subList(i, Math.min(i + maxQueryParams, idList.size()));
+      results.addAll(namedTemplate.query(query, new MapSqlParameterSource("ids", chunk), extractor));
+    }
+    return results;
+  }
+
   public static Long hashCodeCacheKeyFor(Object... datas) {
     return hashCodeCacheKeyGenerator.generateKey(datas);
   }
@@ -0,0 +1,160 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.util;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands out IDs for new entities before they are inserted, so that names derived from the ID can be generated up front. IDs are reserved
+ * from the sequence_data table in blocks, and each block is then used up in memory without going back to the database.
+ * <p/>
+ * A block is reserved in its own short transaction on a separate connection. The sequence row is therefore locked only for the duration of
+ * the reservation, whatever transaction the save is running in, and concurrent saves on any number of application nodes get disjoint IDs.
+ * IDs from a block that is not used up before shutdown, or from a save that fails, are never reused, so IDs may have gaps.
+ * <p/>
+ * There is one allocator per DataSource, obtained with {@link #forDataSource(DataSource)}.
+ */
+public class IdAllocator {
+  protected static final Logger log = LoggerFactory.getLogger(IdAllocator.class);
+
+  public static final int DEFAULT_BLOCK_SIZE = 10;
+
+  private static final String SEQUENCE_RESERVE = "UPDATE sequence_data SET sequence_cur_value = sequence_cur_value + ? WHERE sequence_name = ?";
+
+  private static final String SEQUENCE_SELECT = "SELECT sequence_cur_value FROM sequence_data WHERE sequence_name = ?";
+
+  private static final Map<DataSource, IdAllocator> instances = new WeakHashMap<>();
+
+  private final DataSource dataSource;
+  private final ConcurrentMap<String, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+  private volatile int blockSize = DEFAULT_BLOCK_SIZE;
+
+  IdAllocator(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * @return the allocator for the given DataSource
+   */
+  public static IdAllocator forDataSource(DataSource dataSource) {
+    synchronized (instances) {
+      IdAllocator allocator = instances.get(dataSource);
+      if (allocator == null) {
+        allocator = new IdAllocator(dataSource);
+        instances.put(dataSource, allocator);
+      }
+      return allocator;
+    }
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Sets the number of IDs reserved at a time. A larger block means fewer trips to the database but larger gaps when blocks go unused.
+   */
+  public void setBlockSize(int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Block size must be at least 1");
+    }
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Takes the next unused ID from a sequence, reserving a new block from the database if the current one is used up
+   *
+   * @param sequenceName
+   *          the sequence_name of the sequence_data row to allocate from
+   * @return an ID that has not been handed out before
+   * @throws IOException
+   *           if there is no such sequence or a block cannot be reserved
+   */
+  public long next(String sequenceName) throws IOException {
+    AtomicReference<Block> current = blocksFor(sequenceName);
+    while (true) {
+      Block block = current.get();
+      if (block != null) {
+        long id = block.next.getAndIncrement();
+        if (id < block.limit) {
+          return id;
+        }
+      }
+      // only the thread that finds the block used up reserves the next one; the others retry against it
+      synchronized (current) {
+        if (current.get() == block) {
+          current.set(reserve(sequenceName, blockSize));
+        }
+      }
+    }
+  }
+
+  private AtomicReference<Block> blocksFor(String sequenceName) {
+    AtomicReference<Block> current = blocks.get(sequenceName);
+    if (current == null) {
+      AtomicReference<Block> created = new AtomicReference<>();
+      current = blocks.putIfAbsent(sequenceName, created);
+      if (current == null) {
+        current = created;
+      }
+    }
+    return current;
+  }
+
+  private Block reserve(String sequenceName, int size) throws IOException {
+    try (Connection connection = dataSource.getConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        long limit;
+        try (PreparedStatement update = connection.prepareStatement(SEQUENCE_RESERVE)) {
+          update.setLong(1, size);
+          update.setString(2, sequenceName);
+          if (update.executeUpdate() != 1) {
+            throw new IOException("No ID sequence named " + sequenceName);
+          }
+        }
+        try (PreparedStatement select = connection.prepareStatement(SEQUENCE_SELECT)) {
+          select.setString(1, sequenceName);
+          try (ResultSet rs = select.executeQuery()) {
+            rs.next();
+            limit = rs.getLong(1);
+          }
+        }
+        connection.commit();
+        log.debug("Reserved IDs " + (limit - size) + " to " + (limit - 1) + " from " + sequenceName);
+        return new Block(limit - size, limit);
+      } catch (IOException | SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException e) {
+      throw new IOException("Cannot reserve IDs from " + sequenceName, e);
+    }
+  }
+
+  private static final class Block {
+    private final AtomicLong next;
+    private final long limit;
+
+    private Block(long first, long limit) {
+      this.next = new AtomicLong(first);
+      this.limit = limit;
+    }
+  }
+}
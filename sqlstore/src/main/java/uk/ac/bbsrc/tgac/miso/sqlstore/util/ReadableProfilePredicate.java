@@ -0,0 +1,97 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.eaglegenomics.simlims.core.Group;
+import com.eaglegenomics.simlims.core.User;
+
+import uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction;
+
+/**
+ * Builds SQL restrictions equivalent to {@link com.eaglegenomics.simlims.core.SecurityProfile#userCanRead(User)}, for stores that list
+ * securable objects while a {@link ReadRestriction} is in place.
+ * 
+ * A profile is readable if the User owns it, is named as a read or write user, belongs to a read or write group, or is internal and the
+ * profile allows all internal users. The user and group IDs are bound as parameters: the SQL holds a placeholder for each, and its values
+ * are appended, in order, to the caller's argument list.
+ */
+public class ReadableProfilePredicate {
+
+  private ReadableProfilePredicate() {
+  }
+
+  /**
+   * @param profileIdColumn
+   *          the (qualified) column holding the securityProfile_profileId of the rows being selected
+   * @param user
+   *          the non-admin User whose read access applies
+   * @param args
+   *          the query arguments so far, to which the values of the expression's placeholders are appended
+   * @return a parenthesised boolean SQL expression
+   */
+  public static String forUser(String profileIdColumn, User user, List<Object> args) {
+    long userId = user.getUserId();
+    StringBuilder sb = new StringBuilder("(");
+    sb.append(profileIdColumn).append(" IN (SELECT profileId FROM SecurityProfile WHERE owner_userId = ?");
+    args.add(userId);
+    if (user.isInternal()) {
+      sb.append(" OR allowAllInternal = TRUE");
+    }
+    sb.append(")");
+    sb.append(" OR ").append(profileIdColumn)
+        .append(" IN (SELECT SecurityProfile_profileId FROM SecurityProfile_ReadUser WHERE readUser_userId = ?)");
+    args.add(userId);
+    sb.append(" OR ").append(profileIdColumn)
+        .append(" IN (SELECT SecurityProfile_profileId FROM SecurityProfile_WriteUser WHERE writeUser_userId = ?)");
+    args.add(userId);
+
+    List<Long> groupIds = new ArrayList<Long>();
+    if (user.getGroups() != null) {
+      for (Group g : user.getGroups()) {
+        groupIds.add(g.getGroupId());
+      }
+    }
+    if (!groupIds.isEmpty()) {
+      String placeholders = placeholders(groupIds.size());
+      sb.append(" OR ").append(profileIdColumn)
+          .append(" IN (SELECT SecurityProfile_profileId FROM SecurityProfile_ReadGroup WHERE readGroup_groupId IN (")
+          .append(placeholders).append("))");
+      args.addAll(groupIds);
+      sb.append(" OR ").append(profileIdColumn)
+          .append(" IN (SELECT SecurityProfile_profileId FROM SecurityProfile_WriteGroup WHERE writeGroup_groupId IN (")
+          .append(placeholders).append("))");
+      args.addAll(groupIds);
+    }
+    return sb.append(")").toString();
+  }
+
+  /**
+   * Appends the read restriction for the current thread's {@link ReadRestriction} reader, if any, to a query that already has a WHERE
+   * clause.
+   * 
+   * @param query
+   *          SQL ending in a WHERE clause whose conditions are parenthesised
+   * @param profileIdColumn
+   *          the (qualified) column holding the securityProfile_profileId of the rows being selected
+   * @param args
+   *          the arguments of the query's placeholders, to which those of the restriction are appended if a reader is set
+   * @return the query, restricted to readable rows if a reader is set
+   */
+  public static String restrict(String query, String profileIdColumn, List<Object> args) {
+    User reader = ReadRestriction.getReader();
+    if (reader == null) {
+      return query;
+    }
+    return query + " AND " + forUser(profileIdColumn, reader, args);
+  }
+
+  private static String placeholders(int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (sb.length() > 0) sb.append(", ");
+      sb.append("?");
+    }
+    return sb.toString();
+  }
+}
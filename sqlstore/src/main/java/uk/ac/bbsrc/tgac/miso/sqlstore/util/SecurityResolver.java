@@ -0,0 +1,213 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.util;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
+import com.eaglegenomics.simlims.core.store.SecurityStore;
+
+import uk.ac.bbsrc.tgac.miso.core.store.SecurityProfileStore;
+import uk.ac.bbsrc.tgac.miso.core.store.Store;
+
+/**
+ * Resolves the users and security profiles referenced by rows as they are mapped. Outside a batch, each is looked up as soon as it is
+ * requested. Inside a batch, opened by running a query through {@link #extractor(RowMapper)}, every request made while the rows are mapped
+ * is collected, and once all rows are mapped the users and profiles are loaded with one bulk lookup each and handed to their callbacks.
+ *
+ * Batches belong to the current thread, so a mapper cannot tell whether it is in one and must not read a value it has requested until the
+ * query returns, or until an action passed to {@link #whenResolved(Runnable)} runs. If a batch cannot be resolved, the query fails.
+ */
+public class SecurityResolver {
+  protected static final Logger log = LoggerFactory.getLogger(SecurityResolver.class);
+
+  private static final ThreadLocal<Batch> currentBatch = new ThreadLocal<>();
+
+  /**
+   * Receives a resolved user or profile, which is null if none exists with the requested ID
+   */
+  public interface Callback<T> {
+    public void resolved(T value);
+  }
+
+  private final SecurityStore securityStore;
+  private final Store<SecurityProfile> securityProfileStore;
+
+  public SecurityResolver(SecurityStore securityStore, Store<SecurityProfile> securityProfileStore) {
+    this.securityStore = securityStore;
+    this.securityProfileStore = securityProfileStore;
+  }
+
+  /**
+   * Resolvers over the same stores share their requests in a batch, so a DAO may create one whenever it needs it
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof SecurityResolver)) return false;
+    SecurityResolver other = (SecurityResolver) obj;
+    return securityStore == other.securityStore && securityProfileStore == other.securityProfileStore;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * System.identityHashCode(securityStore) + System.identityHashCode(securityProfileStore);
+  }
+
+  /**
+   * Requests the user with the given ID
+   */
+  public void user(long userId, Callback<User> callback) throws IOException {
+    Batch batch = currentBatch.get();
+    if (batch == null) {
+      callback.resolved(securityStore.getUserById(userId));
+    } else {
+      add(batch.requestsFor(this).users, userId, callback);
+    }
+  }
+
+  /**
+   * Requests the security profile with the given ID
+   */
+  public void profile(long profileId, Callback<SecurityProfile> callback) throws IOException {
+    Batch batch = currentBatch.get();
+    if (batch == null) {
+      callback.resolved(securityProfileStore.get(profileId));
+    } else {
+      add(batch.requestsFor(this).profiles, profileId, callback);
+    }
+  }
+
+  /**
+   * Runs an action once every user and profile requested so far has been handed to its callback: immediately outside a batch, or after the
+   * batch is resolved. Mappers use this to cache an object only once it is complete. If the batch cannot be resolved, the action is never
+   * run.
+   */
+  public void whenResolved(Runnable action) {
+    Batch batch = currentBatch.get();
+    if (batch == null) {
+      action.run();
+    } else {
+      batch.actions.add(action);
+    }
+  }
+
+  /**
+   * Wraps a row mapper so that the users and profiles it requests for all of the rows of a query are resolved together, before the query
+   * returns. Plain queries made by the mapper itself while mapping join the same batch; nested extractors resolve their own.
+   */
+  public <T> ResultSetExtractor<List<T>> extractor(final RowMapper<T> mapper) {
+    return new ResultSetExtractor<List<T>>() {
+      @Override
+      public List<T> extractData(ResultSet rs) throws SQLException {
+        Batch outer = currentBatch.get();
+        Batch batch = new Batch();
+        currentBatch.set(batch);
+        List<T> results = new ArrayList<>();
+        try {
+          int rowNum = 0;
+          while (rs.next()) {
+            results.add(mapper.mapRow(rs, rowNum++));
+          }
+        } finally {
+          if (outer == null) {
+            currentBatch.remove();
+          } else {
+            currentBatch.set(outer);
+          }
+        }
+        try {
+          batch.resolve();
+        } catch (IOException e) {
+          throw new SQLException("Cannot resolve the users and security profiles of the mapped rows", e);
+        }
+        return results;
+      }
+    };
+  }
+
+  private void resolve(Requests requests) throws IOException {
+    if (!requests.users.isEmpty()) {
+      Map<Long, User> users = new HashMap<>();
+      for (User user : securityStore.listUsersByIds(requests.users.keySet())) {
+        users.put(user.getUserId(), user);
+      }
+      for (Map.Entry<Long, List<Callback<User>>> entry : requests.users.entrySet()) {
+        for (Callback<User> callback : entry.getValue()) {
+          callback.resolved(users.get(entry.getKey()));
+        }
+      }
+    }
+    if (!requests.profiles.isEmpty()) {
+      Map<Long, SecurityProfile> profiles = new HashMap<>();
+      if (securityProfileStore instanceof SecurityProfileStore) {
+        for (SecurityProfile profile : ((SecurityProfileStore) securityProfileStore).listByIds(requests.profiles.keySet())) {
+          profiles.put(profile.getProfileId(), profile);
+        }
+      }
+      for (Map.Entry<Long, List<Callback<SecurityProfile>>> entry : requests.profiles.entrySet()) {
+        SecurityProfile profile = profiles.get(entry.getKey());
+        if (profile == null) {
+          // preserves whatever the store returns for a missing profile
+          profile = securityProfileStore.get(entry.getKey());
+        }
+        for (Callback<SecurityProfile> callback : entry.getValue()) {
+          callback.resolved(profile);
+        }
+      }
+    }
+  }
+
+  private static <T> void add(Map<Long, List<Callback<T>>> requests, long id, Callback<T> callback) {
+    List<Callback<T>> callbacks = requests.get(id);
+    if (callbacks == null) {
+      callbacks = new ArrayList<>();
+      requests.put(id, callbacks);
+    }
+    callbacks.add(callback);
+  }
+
+  /**
+   * The outstanding requests made through one resolver
+   */
+  private static class Requests {
+    private final Map<Long, List<Callback<User>>> users = new LinkedHashMap<>();
+    private final Map<Long, List<Callback<SecurityProfile>>> profiles = new LinkedHashMap<>();
+  }
+
+  /**
+   * The outstanding requests made through every resolver while the rows of one query are mapped
+   */
+  private static class Batch {
+    private final Map<SecurityResolver, Requests> requests = new LinkedHashMap<>();
+    private final List<Runnable> actions = new ArrayList<>();
+
+    public Requests requestsFor(SecurityResolver resolver) {
+      Requests r = requests.get(resolver);
+      if (r == null) {
+        r = new Requests();
+        requests.put(resolver, r);
+      }
+      return r;
+    }
+
+    public void resolve() throws IOException {
+      for (Map.Entry<SecurityResolver, Requests> entry : requests.entrySet()) {
+        entry.getKey().resolve(entry.getValue());
+      }
+      for (Runnable action : actions) {
+        action.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,23 @@
+ALTER TABLE Sample ADD COLUMN lastModified DATETIME;
+ALTER TABLE Library ADD COLUMN lastModified DATETIME;
+ALTER TABLE Pool ADD COLUMN lastModified DATETIME;
+ALTER TABLE Run ADD COLUMN lastModified DATETIME;
+ALTER TABLE SequencerPartitionContainer ADD COLUMN lastModified DATETIME;
+
+CREATE INDEX SampleChangeLog_sampleId_changeTime ON SampleChangeLog(sampleId, changeTime);
+CREATE INDEX LibraryChangeLog_libraryId_changeTime ON LibraryChangeLog(libraryId, changeTime);
+CREATE INDEX PoolChangeLog_poolId_changeTime ON PoolChangeLog(poolId, changeTime);
+CREATE INDEX RunChangeLog_runId_changeTime ON RunChangeLog(runId, changeTime);
+CREATE INDEX SequencerPartitionContainerChangeLog_containerId_changeTime ON SequencerPartitionContainerChangeLog(containerId, changeTime);
+
+UPDATE Sample s SET s.lastModified = (SELECT MAX(changeTime) FROM SampleChangeLog scl WHERE scl.sampleId = s.sampleId);
+UPDATE Library l SET l.lastModified = (SELECT MAX(changeTime) FROM LibraryChangeLog lcl WHERE lcl.libraryId = l.libraryId);
+UPDATE Pool p SET p.lastModified = (SELECT MAX(changeTime) FROM PoolChangeLog pcl WHERE pcl.poolId = p.poolId);
+UPDATE Run r SET r.lastModified = (SELECT MAX(changeTime) FROM RunChangeLog rcl WHERE rcl.runId = r.runId);
+UPDATE SequencerPartitionContainer c SET c.lastModified = (SELECT MAX(changeTime) FROM SequencerPartitionContainerChangeLog ccl WHERE ccl.containerId = c.containerId);
+
+CREATE INDEX Sample_lastModified ON Sample(lastModified);
+CREATE INDEX Library_lastModified ON Library(lastModified);
+CREATE INDEX Pool_lastModified ON Pool(lastModified);
+CREATE INDEX Run_lastModified ON Run(lastModified);
+CREATE INDEX SequencerPartitionContainer_lastModified ON SequencerPartitionContainer(lastModified);
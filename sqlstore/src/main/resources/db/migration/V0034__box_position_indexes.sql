@@ -0,0 +1,4 @@
+-- Box contents are resolved by joining BoxPosition to each boxable table on boxPositionId
+CREATE INDEX Sample_boxPositionId ON Sample(boxPositionId);
+CREATE INDEX Library_boxPositionId ON Library(boxPositionId);
+CREATE INDEX Pool_boxPositionId ON Pool(boxPositionId);
@@ -0,0 +1,2 @@
+-- Run IDs are reserved in blocks from sequence_data rather than predicted from the table's auto-increment value
+INSERT INTO sequence_data (sequence_name, sequence_cur_value) SELECT 'run_id_seq', COALESCE(MAX(runId), 0) + 1 FROM Run;
@@ -36,6 +36,7 @@ FOR EACH ROW
     CASE WHEN NEW.emptied <> OLD.emptied THEN CONCAT('emptied: ', OLD.emptied, ' → ', NEW.emptied) END,
     CASE WHEN (NEW.volume IS NULL) <> (OLD.volume IS NULL) OR NEW.volume <> OLD.volume THEN CONCAT('volume: ', COALESCE(OLD.volume, 'n/a'), ' → ', COALESCE(NEW.volume, 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    SET NEW.lastModified = NOW();
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -79,6 +80,7 @@ FOR EACH ROW
      CASE WHEN (NEW.siblingNumber IS NULL) <> (OLD.siblingNumber IS NULL) OR NEW.siblingNumber <> OLD.siblingNumber THEN CONCAT('sibling: ', COALESCE(OLD.siblingNumber, 'n/a'), ' → ', COALESCE(NEW.siblingNumber, 'n/a')) END,
      CASE WHEN (NEW.subprojectId IS NULL) <> (OLD.subprojectId IS NULL) OR NEW.subprojectId <> OLD.subprojectId THEN CONCAT('subproject: ', COALESCE((SELECT alias FROM Subproject WHERE subprojectId = OLD.subprojectId), 'n/a'), ' → ', COALESCE((SELECT alias FROM Subproject WHERE subprojectId = NEW.subprojectId), 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Sample SET lastModified = NOW() WHERE sampleId = NEW.sampleId;
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -109,6 +111,7 @@ FOR EACH ROW
   SET log_message = CONCAT_WS(', ',
      CASE WHEN (NEW.samplePurposeId IS NULL) <> (OLD.samplePurposeId IS NULL) OR NEW.samplePurposeId <> OLD.samplePurposeId THEN CONCAT('purpose: ', COALESCE((SELECT alias FROM SamplePurpose WHERE samplePurposeId = OLD.samplePurposeId), 'n/a'), ' → ', COALESCE((SELECT alias FROM SamplePurpose WHERE samplePurposeId = NEW.samplePurposeId), 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Sample SET lastModified = NOW() WHERE sampleId = NEW.sampleId;
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -133,6 +136,7 @@ FOR EACH ROW
      CASE WHEN (NEW.discards IS NULL) <> (OLD.discards IS NULL) OR NEW.discards <> OLD.discards THEN CONCAT('discards: ', COALESCE(OLD.discards, 'n/a'), ' → ', COALESCE(NEW.discards, 'n/a')) END,
      CASE WHEN (NEW.thickness IS NULL) <> (OLD.thickness IS NULL) OR NEW.thickness <> OLD.thickness THEN CONCAT('thickness: ', COALESCE(OLD.thickness, 'n/a'), ' → ', COALESCE(NEW.thickness, 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Sample SET lastModified = NOW() WHERE sampleId = NEW.sampleId;
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -157,6 +161,7 @@ FOR EACH ROW
   SET log_message = CONCAT_WS(', ',
      CASE WHEN NEW.cutsConsumed <> OLD.cutsConsumed THEN CONCAT('cuts: ', OLD.cutsConsumed, ' → ', NEW.cutsConsumed) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Sample SET lastModified = NOW() WHERE sampleId = NEW.sampleId;
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -180,6 +185,7 @@ FOR EACH ROW
     CASE WHEN (NEW.concentration IS NULL) <> (OLD.concentration IS NULL) OR NEW.concentration <> OLD.concentration THEN CONCAT('concentration: ', COALESCE(OLD.concentration, 'n/a'), ' → ', COALESCE(NEW.concentration, 'n/a')) END,
     CASE WHEN NEW.strStatus <> OLD.strStatus THEN CONCAT('STR status: ', OLD.strStatus, ' → ', NEW.strStatus) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Sample SET lastModified = NOW() WHERE sampleId = NEW.sampleId;
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -209,6 +215,7 @@ FOR EACH ROW
     CASE WHEN (NEW.tissueOriginId IS NULL) <> (OLD.tissueOriginId IS NULL) OR NEW.tissueOriginId <> OLD.tissueOriginId THEN CONCAT('origin: ', COALESCE((SELECT alias FROM TissueOrigin WHERE tissueOriginId = OLD.tissueOriginId), 'n/a'), ' → ', COALESCE((SELECT alias FROM TissueOrigin WHERE tissueOriginId = NEW.tissueOriginId), 'n/a')) END,
     CASE WHEN (NEW.tissueTypeId IS NULL) <> (OLD.tissueTypeId IS NULL) OR NEW.tissueTypeId <> OLD.tissueTypeId THEN CONCAT('type: ', COALESCE((SELECT alias FROM TissueType WHERE tissueTypeId = OLD.tissueTypeId), 'n/a'), ' → ', COALESCE((SELECT alias FROM TissueType WHERE tissueTypeId = NEW.tissueTypeId), 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Sample SET lastModified = NOW() WHERE sampleId = NEW.sampleId;
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -241,6 +248,7 @@ FOR EACH ROW
      CASE WHEN NEW.externalName <> OLD.externalName THEN CONCAT('external name: ', OLD.externalName, ' → ', NEW.externalName) END,
      CASE WHEN NEW.internalName <> OLD.internalName THEN CONCAT('internal name: ', OLD.internalName, ' → ', NEW.internalName) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Sample SET lastModified = NOW() WHERE sampleId = NEW.sampleId;
     INSERT INTO SampleChangeLog(sampleId, columnsChanged, userId, message) VALUES (
       NEW.sampleId,
       COALESCE(CONCAT_WS(',',
@@ -260,8 +268,11 @@ FOR EACH ROW
 
 DROP TRIGGER IF EXISTS BeforeInsertSample//
 CREATE TRIGGER BeforeInsertSample BEFORE INSERT ON Sample
-  FOR EACH ROW
-  SET NEW.boxPositionId = nextval('box_position_seq')//
+FOR EACH ROW
+  BEGIN
+  SET NEW.boxPositionId = nextval('box_position_seq');
+  SET NEW.lastModified = NOW();
+  END//
 
 DROP TRIGGER IF EXISTS SampleInsert//
 CREATE TRIGGER SampleInsert AFTER INSERT ON Sample
@@ -331,6 +342,7 @@ FOR EACH ROW
         CASE WHEN (NEW.sequencerReference_sequencerReferenceId IS NULL) <> (OLD.sequencerReference_sequencerReferenceId IS NULL) OR NEW.sequencerReference_sequencerReferenceId <> OLD.sequencerReference_sequencerReferenceId THEN CONCAT('sequencer: ', COALESCE((SELECT name FROM SequencerReference WHERE referenceId = OLD.sequencerReference_sequencerReferenceId), 'n/a'), ' → ', COALESCE((SELECT name FROM SequencerReference WHERE referenceId = NEW.sequencerReference_sequencerReferenceId), 'n/a')) END,
         CASE WHEN (NEW.status_statusId IS NULL) <> (OLD.status_statusId IS NULL) OR NEW.status_statusId <> OLD.status_statusId THEN 'status' END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    SET NEW.lastModified = NOW();
     INSERT INTO RunChangeLog(runId, columnsChanged, userId, message) VALUES (
       NEW.runId,
       COALESCE(CONCAT_WS(',',
@@ -352,6 +364,11 @@ FOR EACH ROW
   END IF;
   END//
 
+DROP TRIGGER IF EXISTS BeforeInsertRun//
+CREATE TRIGGER BeforeInsertRun BEFORE INSERT ON Run
+  FOR EACH ROW
+  SET NEW.lastModified = NOW()//
+
 DROP TRIGGER IF EXISTS RunInsert//
 CREATE TRIGGER RunInsert AFTER INSERT ON Run
 FOR EACH ROW
@@ -365,8 +382,11 @@ FOR EACH ROW
 
 DROP TRIGGER IF EXISTS BeforeInsertPool//
 CREATE TRIGGER BeforeInsertPool BEFORE INSERT ON Pool
-  FOR EACH ROW
-  SET NEW.boxPositionId = nextval('box_position_seq')//
+FOR EACH ROW
+  BEGIN
+  SET NEW.boxPositionId = nextval('box_position_seq');
+  SET NEW.lastModified = NOW();
+  END//
 
 DROP TRIGGER IF EXISTS PoolChange//
 CREATE TRIGGER PoolChange BEFORE UPDATE ON Pool
@@ -383,6 +403,7 @@ FOR EACH ROW
         CASE WHEN (NEW.qcPassed IS NULL) <> (OLD.qcPassed IS NULL) OR (NEW.qcPassed IS NULL) <> (OLD.qcPassed IS NULL) OR NEW.qcPassed <> OLD.qcPassed THEN CONCAT('QC passed: ', COALESCE(OLD.qcPassed, 'n/a'), ' → ', COALESCE(NEW.qcPassed, 'n/a')) END,
         CASE WHEN NEW.ready <> OLD.ready THEN CONCAT('ready: ', OLD.ready, ' → ', NEW.ready) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    SET NEW.lastModified = NOW();
     INSERT INTO PoolChangeLog(poolId, columnsChanged, userId, message) VALUES (
       NEW.poolId,
       COALESCE(CONCAT_WS(',',
@@ -478,6 +499,7 @@ FOR EACH ROW
         CASE WHEN NEW.emptied <> OLD.emptied THEN CONCAT('emptied: ', OLD.emptied, ' → ', NEW.emptied) END,
         CASE WHEN (NEW.volume IS NULL) <> (OLD.volume IS NULL) OR NEW.volume <> OLD.volume THEN CONCAT('volume: ', COALESCE(OLD.volume, 'n/a'), ' → ', COALESCE(NEW.volume, 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    SET NEW.lastModified = NOW();
     INSERT INTO LibraryChangeLog(libraryId, columnsChanged, userId, message) VALUES (
       NEW.libraryId,
       COALESCE(CONCAT_WS(',',
@@ -519,6 +541,7 @@ FOR EACH ROW
      CASE WHEN (NEW.kitDescriptorId IS NULL) <> (OLD.kitDescriptorId IS NULL) OR NEW.kitDescriptorId <> OLD.kitDescriptorId THEN CONCAT('kit: ', COALESCE((SELECT name FROM KitDescriptor WHERE kitDescriptorId = OLD.kitDescriptorId), 'n/a'), ' → ', COALESCE((SELECT name FROM KitDescriptor WHERE kitDescriptorId = NEW.kitDescriptorId), 'n/a')) END,
      CASE WHEN (NEW.libraryDesign IS NULL) <> (OLD.libraryDesign IS NULL) OR NEW.libraryDesign <> OLD.libraryDesign THEN CONCAT('library design: ', COALESCE((SELECT name FROM LibraryDesign WHERE libraryDesignId = OLD.libraryDesign), 'n/a'), ' → ', COALESCE((SELECT name FROM LibraryDesign WHERE libraryDesignId = NEW.libraryDesign), 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    UPDATE Library SET lastModified = NOW() WHERE libraryId = NEW.libraryId;
     INSERT INTO LibraryChangeLog(libraryId, columnsChanged, userId, message) VALUES (
       NEW.libraryId,
       COALESCE(CONCAT_WS(',',
@@ -540,8 +563,11 @@ FOR EACH ROW
 
 DROP TRIGGER IF EXISTS BeforeInsertLibrary//
 CREATE TRIGGER BeforeInsertLibrary BEFORE INSERT ON Library
-  FOR EACH ROW
-  SET NEW.boxPositionId = nextval('box_position_seq')//
+FOR EACH ROW
+  BEGIN
+  SET NEW.boxPositionId = nextval('box_position_seq');
+  SET NEW.lastModified = NOW();
+  END//
 
 DROP TRIGGER IF EXISTS LibraryInsert//
 CREATE TRIGGER LibraryInsert AFTER INSERT ON Library
@@ -608,6 +634,7 @@ FOR EACH ROW
         CASE WHEN (NEW.platform IS NULL) <> (OLD.platform IS NULL) OR NEW.platform <> OLD.platform THEN CONCAT('platform: ', COALESCE(OLD.platform, 'n/a'), ' → ', COALESCE(NEW.platform, 'n/a')) END,
         CASE WHEN (NEW.validationBarcode IS NULL) <> (OLD.validationBarcode IS NULL) OR NEW.validationBarcode <> OLD.validationBarcode THEN CONCAT('validation barcode: ', COALESCE(OLD.validationBarcode, 'n/a'), ' → ', COALESCE(NEW.validationBarcode, 'n/a')) END);
   IF log_message IS NOT NULL AND log_message <> '' THEN
+    SET NEW.lastModified = NOW();
     INSERT INTO SequencerPartitionContainerChangeLog(containerId, columnsChanged, userId, message) VALUES (
       NEW.containerId,
       COALESCE(CONCAT_WS(',',
@@ -624,6 +651,11 @@ FOR EACH ROW
   END IF;
   END//
 
+DROP TRIGGER IF EXISTS BeforeInsertSequencerPartitionContainer//
+CREATE TRIGGER BeforeInsertSequencerPartitionContainer BEFORE INSERT ON SequencerPartitionContainer
+  FOR EACH ROW
+  SET NEW.lastModified = NOW()//
+
 DROP TRIGGER IF EXISTS SequencerPartitionContainerInsert//
 CREATE TRIGGER SequencerPartitionContainerInsert AFTER INSERT ON SequencerPartitionContainer
 FOR EACH ROW
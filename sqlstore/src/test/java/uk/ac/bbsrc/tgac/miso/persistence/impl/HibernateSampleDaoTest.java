@@ -2,6 +2,13 @@ package uk.ac.bbsrc.tgac.miso.persistence.impl;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.hibernate.SessionFactory;
 import org.junit.Before;
 import org.junit.Test;
@@ -18,6 +25,7 @@ import uk.ac.bbsrc.tgac.miso.AbstractDAOTest;
 import uk.ac.bbsrc.tgac.miso.core.data.SampleAdditionalInfo;
 import uk.ac.bbsrc.tgac.miso.core.data.Sample;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.SampleImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.UserImpl;
 import uk.ac.bbsrc.tgac.miso.core.service.naming.DefaultSampleNamingScheme;
 import uk.ac.bbsrc.tgac.miso.core.store.ChangeLogStore;
 import uk.ac.bbsrc.tgac.miso.core.store.LibraryStore;
@@ -82,4 +90,61 @@ public class HibernateSampleDaoTest extends AbstractDAOTest {
     assertEquals(15L, detailed.getParent().getId());
   }
 
+  @Test
+  public void listByAliasListTest() throws Exception {
+    Collection<Sample> samples = sut.listByAliasList(Arrays.asList("TEST_0001_Bn_P_nn_1-1_D_1", "TEST_0002_Bn_P_nn_1-1_D_1", "nonexistent"));
+    assertEquals(2, samples.size());
+    Set<Long> ids = new HashSet<>();
+    for (Sample sample : samples) {
+      ids.add(sample.getId());
+    }
+    assertEquals(new HashSet<>(Arrays.asList(1L, 3L)), ids);
+  }
+
+  @Test
+  public void listAfterIdTest() throws Exception {
+    List<Sample> first = sut.listAfterId(0L, 3);
+    assertEquals(3, first.size());
+    assertEquals(1L, first.get(0).getId());
+    assertTrue(first.get(0).getId() < first.get(1).getId());
+    assertTrue(first.get(1).getId() < first.get(2).getId());
+
+    List<Sample> next = sut.listAfterId(first.get(2).getId(), 3);
+    assertFalse(next.isEmpty());
+    assertTrue(next.get(0).getId() > first.get(2).getId());
+
+    assertTrue(sut.listAfterId(Long.MAX_VALUE - 1, 3).isEmpty());
+  }
+
+  @Test
+  public void listBySearchBeforeIdWildcardsAreLiteralTest() throws Exception {
+    assertFalse(sut.listBySearchBeforeId("TEST_0002", Long.MAX_VALUE, 100).isEmpty());
+    assertTrue(sut.listBySearchBeforeId("TEST_000_", Long.MAX_VALUE, 100).isEmpty());
+    assertTrue(sut.listBySearchBeforeId("TEST%0002", Long.MAX_VALUE, 100).isEmpty());
+  }
+
+  @Test
+  public void listByAliasListEmptyTest() throws Exception {
+    assertTrue(sut.listByAliasList(Collections.<String> emptyList()).isEmpty());
+  }
+
+  @Test
+  public void countBySearchTest() throws Exception {
+    assertEquals(Long.valueOf(2L), sut.countBySearch("TEST_0002", null));
+    assertEquals(Long.valueOf(0L), sut.countBySearch("nonexistent", null));
+  }
+
+  @Test
+  public void countBySearchRestrictedToReaderTest() throws Exception {
+    UserImpl external = new UserImpl();
+    external.setUserId(100L);
+    external.setExternal(true);
+    assertEquals(Long.valueOf(0L), sut.countBySearch("TEST_0002", external));
+
+    UserImpl internal = new UserImpl();
+    internal.setUserId(100L);
+    internal.setInternal(true);
+    assertEquals(Long.valueOf(2L), sut.countBySearch("TEST_0002", internal));
+  }
+
 }
@@ -26,6 +26,8 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import uk.ac.bbsrc.tgac.miso.sqlstore.util.ReadableProfilePredicateTest;
+
 /**
  * uk.ac.bbsrc.tgac.miso.sqlstore
  * <p/>
@@ -43,7 +45,7 @@ import org.junit.runners.Suite;
     SQLProjectDAOTest.class, SQLNoteDAOTest.class, SQLSequencerReferenceDAOTest.class, SQLRunQCDAOTest.class, SQLEmPCRDAOTest.class,
     SQLSecurityDAOTest.class, SQLSequencerPartitionContainerDAOTest.class, SQLBoxDAOTest.class, SQLSequencerServiceRecordDAOTest.class,
     SQLExperimentDAOTest.class, SQLPlatformDAOTest.class, SQLSequencerServiceRecordDAOTest.class, SQLPoolDAOTest.class,
-    SQLLibraryDAOTest.class, SQLLibraryDilutionDAOTest.class, SQLChangeLogDAOTest.class })
+    SQLLibraryDAOTest.class, SQLLibraryDilutionDAOTest.class, SQLChangeLogDAOTest.class, ReadableProfilePredicateTest.class })
 
 public class AllTestsSuite {
 }
@@ -32,6 +32,7 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -191,6 +192,27 @@ public class SQLBoxDAOTest extends AbstractDAOTest {
     assertEquals(2, iterator.next().getId());
   }
 
+  @Test
+  public void testListAllWithOccupancy() throws Exception {
+    Collection<Box> boxes = dao.listAllWithOccupancy();
+    assertEquals(2, boxes.size());
+    for (Box box : boxes) {
+      assertEquals(1, box.getTubeCount());
+      assertTrue(box.getBoxables().isEmpty());
+    }
+    Mockito.verify(poolDao, Mockito.never()).getByIdList(Matchers.anyListOf(Long.class));
+  }
+
+  @Test
+  public void testGetResolvesContents() throws Exception {
+    mockPoolContents(1L);
+    Box box = dao.get(1);
+    assertEquals(1, box.getTubeCount());
+    assertEquals(1L, box.getBoxable("B02").getId());
+    Mockito.verify(poolDao).getByIdList(Collections.singletonList(1L));
+    Mockito.verify(poolDao, Mockito.never()).getByPositionId(anyLong());
+  }
+
   @Test
   public void testListAllBoxUses() throws IOException {
     Collection<BoxUse> boxUses = dao.listAllBoxUses();
@@ -243,7 +265,7 @@ public class SQLBoxDAOTest extends AbstractDAOTest {
 
   @Test
   public void testEmptyAllTubes() throws Exception {
-    when(poolDao.getByPositionId(1)).thenReturn(new PoolImpl(new UserImpl()));
+    mockPoolContents(1L);
     when(poolDao.getByBarcode(null)).thenReturn(new PoolImpl(new UserImpl()));
     Box box = dao.get(1);
 
@@ -255,7 +277,7 @@ public class SQLBoxDAOTest extends AbstractDAOTest {
 
   @Test
   public void testEmptySingleTube() throws Exception {
-    when(poolDao.getByPositionId(1)).thenReturn(new PoolImpl(new UserImpl()));
+    mockPoolContents(1L);
     when(poolDao.getByBarcode(null)).thenReturn(new PoolImpl(new UserImpl()));
 
     Box box = dao.get(1);
@@ -274,6 +296,12 @@ public class SQLBoxDAOTest extends AbstractDAOTest {
     dao.removeBoxableFromBox(pool);
   }
 
+  private void mockPoolContents(long poolId) throws IOException {
+    Pool<?> pool = new PoolImpl(new UserImpl());
+    pool.setId(poolId);
+    Mockito.doReturn(Collections.singletonList(pool)).when(poolDao).getByIdList(Matchers.anyListOf(Long.class));
+  }
+
   private void mockAutoIncrement(long value) {
     Map<String, Object> rs = new HashMap<>();
     rs.put("Auto_increment", value);
@@ -2,8 +2,10 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.joda.time.format.ISODateTimeFormat;
 import org.junit.Before;
@@ -41,6 +43,15 @@ public class SQLChangeLogDAOTest extends AbstractDAOTest {
     assertEquals(2, list.size());
   }
   
+  @Test
+  public void testListAllByIds() throws Exception {
+    Map<Long, List<ChangeLog>> map = sut.listAllByIds("sample", Arrays.asList(1L, 7L, 9999L));
+    assertEquals(2, map.size());
+    assertEquals(sut.listAllById("sample", 1L).size(), map.get(1L).size());
+    assertEquals("qcPassed", map.get(7L).get(0).getColumnsChanged());
+    assertFalse(map.containsKey(9999L));
+  }
+  
   @Test
   public void testDeleteAllById() throws Exception {
     assertEquals(2, sut.listAllById("sample", 1L).size());
@@ -68,6 +79,22 @@ public class SQLChangeLogDAOTest extends AbstractDAOTest {
     assertEquals(3, newList.size());
   }
   
+  @Test
+  public void testCreateUpdatesLastModified() throws Exception {
+    Date time = new Date(ISODateTimeFormat.dateTimeParser().parseDateTime("2030-01-01T12:00:00").getMillis());
+    ChangeLog cl = new ChangeLog();
+    cl.setColumnsChanged("cols");
+    cl.setSummary("things changed");
+    cl.setUserId(1L);
+    cl.setTime(time);
+
+    sut.create("sample", 1L, cl);
+    assertEquals(time, jdbcTemplate.queryForObject("SELECT lastModified FROM Sample WHERE sampleId = 1", Date.class));
+
+    sut.deleteAllById("sample", 1L);
+    assertNull(jdbcTemplate.queryForObject("SELECT lastModified FROM Sample WHERE sampleId = 1", Date.class));
+  }
+
   @Test
   public void testMapping() throws Exception {
     // (7, 'qcPassed', 1, 'false -> true', '2016-07-07 13:31:01')
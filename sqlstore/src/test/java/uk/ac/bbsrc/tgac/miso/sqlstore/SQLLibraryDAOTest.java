@@ -238,6 +238,36 @@ public class SQLLibraryDAOTest extends AbstractDAOTest {
 
   }
 
+  @Test
+  public void testListAfterId() throws Exception {
+    List<Library> first = dao.listAfterId(0L, 5);
+    assertEquals(5, first.size());
+    assertEquals(1L, first.get(0).getId());
+    assertEquals(5L, first.get(4).getId());
+
+    List<Library> last = dao.listAfterId(12L, 5);
+    assertEquals(2, last.size());
+    assertEquals(13L, last.get(0).getId());
+    assertEquals(14L, last.get(1).getId());
+
+    assertTrue(dao.listAfterId(14L, 5).isEmpty());
+  }
+
+  @Test
+  public void testListBySearchBeforeId() throws Exception {
+    List<Library> first = dao.listBySearchBeforeId("LIB1", Long.MAX_VALUE, 4);
+    assertEquals(4, first.size());
+    assertEquals(14L, first.get(0).getId());
+    assertEquals(11L, first.get(3).getId());
+
+    List<Library> last = dao.listBySearchBeforeId("LIB1", 11L, 4);
+    assertEquals(2, last.size());
+    assertEquals(10L, last.get(0).getId());
+    assertEquals(1L, last.get(1).getId());
+
+    assertTrue(dao.listBySearchBeforeId("LIB_", Long.MAX_VALUE, 100).isEmpty());
+  }
+
   @Test
   public void testCount() throws Exception {
     assertEquals("count incorrect", 14, dao.count());
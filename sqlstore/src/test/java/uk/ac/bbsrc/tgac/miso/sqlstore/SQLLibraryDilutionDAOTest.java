@@ -8,8 +8,10 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,9 +31,11 @@ import uk.ac.bbsrc.tgac.miso.AbstractDAOTest;
 import uk.ac.bbsrc.tgac.miso.core.data.Library;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.LibraryDilution;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.LibraryImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.UserImpl;
 import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
 import uk.ac.bbsrc.tgac.miso.core.exception.MisoNamingException;
 import uk.ac.bbsrc.tgac.miso.core.factory.TgacDataObjectFactory;
+import uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction;
 import uk.ac.bbsrc.tgac.miso.core.service.naming.MisoNamingScheme;
 import uk.ac.bbsrc.tgac.miso.core.store.EmPCRStore;
 import uk.ac.bbsrc.tgac.miso.core.store.LibraryStore;
@@ -72,6 +76,11 @@ public class SQLLibraryDilutionDAOTest extends AbstractDAOTest {
     Mockito.when(namingScheme.validateField(Mockito.anyString(), Mockito.anyString())).thenReturn(true);
   }
 
+  @After
+  public void tearDown() {
+    ReadRestriction.clear();
+  }
+
   private void mockAutoIncrement(long value) {
     Map<String, Object> rs = new HashMap<>();
     rs.put("Auto_increment", value);
@@ -236,6 +245,48 @@ public class SQLLibraryDilutionDAOTest extends AbstractDAOTest {
     assertEquals(14, dao.listAllLibraryDilutionsBySearchOnly(null).size());
   }
 
+  @Test
+  public void testListBySearchBeforeId() throws IOException {
+    List<LibraryDilution> first = dao.listBySearchBeforeId("LDI1", Long.MAX_VALUE, 3);
+    assertEquals(3, first.size());
+    assertEquals(14L, first.get(0).getId());
+    assertEquals(12L, first.get(2).getId());
+
+    List<LibraryDilution> next = dao.listBySearchBeforeId("LDI1", 12L, 3);
+    assertEquals(3, next.size());
+    assertEquals(11L, next.get(0).getId());
+    assertEquals(10L, next.get(1).getId());
+    assertEquals(1L, next.get(2).getId());
+
+    assertTrue(dao.listBySearchBeforeId("LDI1", 1L, 3).isEmpty());
+  }
+
+  @Test
+  public void testListBySearchBeforeIdNullQuery() throws IOException {
+    assertEquals(14, dao.listBySearchBeforeId(null, Long.MAX_VALUE, 100).size());
+  }
+
+  @Test
+  public void testListBySearchBeforeIdUnderscoreIsLiteral() throws IOException {
+    assertTrue(dao.listBySearchBeforeId("LDI_", Long.MAX_VALUE, 100).isEmpty());
+    assertEquals(1, dao.listBySearchBeforeId("TEST_0001_Bn_P", Long.MAX_VALUE, 100).size());
+  }
+
+  @Test
+  public void testListBySearchBeforeIdRestrictedToReader() throws IOException {
+    UserImpl external = new UserImpl();
+    external.setUserId(100L);
+    external.setExternal(true);
+    ReadRestriction.restrictTo(external);
+    assertTrue(dao.listBySearchBeforeId("LDI", Long.MAX_VALUE, 100).isEmpty());
+
+    UserImpl internal = new UserImpl();
+    internal.setUserId(100L);
+    internal.setInternal(true);
+    ReadRestriction.restrictTo(internal);
+    assertEquals(14, dao.listBySearchBeforeId("LDI", Long.MAX_VALUE, 100).size());
+  }
+
   @Test
   public void testListByLibraryId() throws IOException {
     assertEquals(1, dao.listByLibraryId(1L).size());
@@ -9,6 +9,7 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -117,6 +118,14 @@ public class SQLPoolDAOTest extends AbstractDAOTest {
     assertEquals(10, dao.listAll().size());
   }
 
+  @Test
+  public void testListPoolableElementsByPoolIds() throws IOException {
+    Map<Long, List<Poolable<?, ?>>> elements = dao.listPoolableElementsByPoolIds(Arrays.asList(1L, 2L, 100L));
+    assertEquals(2, elements.size());
+    assertEquals(2, elements.get(1L).size());
+    assertEquals(4, elements.get(2L).size());
+  }
+
   @Test
   public void testCount() throws IOException {
     assertEquals(10, dao.count());
@@ -6,8 +6,11 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 import javax.persistence.CascadeType;
 
@@ -114,6 +117,14 @@ public class SQLPoolQCDAOTest extends AbstractDAOTest {
   public void testListByPoolId() throws IOException {
     assertEquals(2, dao.listByPoolId(1L).size());
   }
+
+  @Test
+  public void testListByPoolIds() throws IOException {
+    Map<Long, Collection<PoolQC>> qcs = dao.listByPoolIds(Arrays.asList(1L, 2L, 3L));
+    assertEquals(2, qcs.size());
+    assertEquals(2, qcs.get(1L).size());
+    assertEquals(1, qcs.get(2L).size());
+  }
   
   @Test
   public void testListAllPoolQcTypes() throws IOException {
@@ -6,6 +6,8 @@ package uk.ac.bbsrc.tgac.miso.sqlstore;
 import static org.junit.Assert.fail;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
@@ -41,6 +43,7 @@ import net.sf.ehcache.Element;
 import uk.ac.bbsrc.tgac.miso.AbstractDAOTest;
 import uk.ac.bbsrc.tgac.miso.core.data.Nameable;
 import uk.ac.bbsrc.tgac.miso.core.data.Project;
+import uk.ac.bbsrc.tgac.miso.core.data.ProjectGraph;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectImpl;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.ProjectOverview;
 import uk.ac.bbsrc.tgac.miso.core.data.type.ProgressType;
@@ -345,6 +348,31 @@ public class SQLProjectDAOTest extends AbstractDAOTest {
     // TODO : Implement
   }
 
+  /**
+   * Test method for {@link uk.ac.bbsrc.tgac.miso.sqlstore.SQLProjectDAO#getGraph(long)} .
+   */
+  @Test
+  public void testGetGraph() throws IOException {
+    ProjectGraph graph = projectDAO.getGraph(1L);
+    assertEquals("PRO1", graph.getName());
+    assertEquals(Long.valueOf(1L), graph.getSecurityProfileId());
+    assertEquals(1, graph.getStudies().size());
+    assertEquals(32, graph.getExperiments().size());
+    assertEquals(32, graph.getExperimentsByStudyId().get(1L).size());
+    assertEquals(17, graph.getSamples().size());
+    assertTrue(graph.getSamples().get(0).isPassed());
+    assertEquals(14, graph.getLibraries().size());
+    assertEquals(1, graph.getLibrariesBySampleId().get(1L).size());
+    assertEquals("LIB1", graph.getLibrariesBySampleId().get(1L).get(0).getName());
+    assertTrue(graph.getLibraries().get(0).isPassed());
+    assertEquals(1, graph.getRuns().size());
+  }
+
+  @Test
+  public void testGetGraphNone() throws IOException {
+    assertNull(projectDAO.getGraph(9999L));
+  }
+
   // TODO : Project mapper should be tested but if we move to
   // hibernate this may not be necessary.
 
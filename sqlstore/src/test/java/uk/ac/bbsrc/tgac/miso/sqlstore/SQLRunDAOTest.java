@@ -32,10 +32,11 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -60,10 +61,12 @@ import uk.ac.bbsrc.tgac.miso.AbstractDAOTest;
 import uk.ac.bbsrc.tgac.miso.core.data.AbstractRun;
 import uk.ac.bbsrc.tgac.miso.core.data.Run;
 import uk.ac.bbsrc.tgac.miso.core.data.RunQC;
+import uk.ac.bbsrc.tgac.miso.core.data.RunSummary;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPartitionContainer;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerPoolPartition;
 import uk.ac.bbsrc.tgac.miso.core.data.SequencerReference;
 import uk.ac.bbsrc.tgac.miso.core.data.impl.RunImpl;
+import uk.ac.bbsrc.tgac.miso.core.data.type.HealthType;
 import uk.ac.bbsrc.tgac.miso.core.data.type.PlatformType;
 import uk.ac.bbsrc.tgac.miso.core.exception.MisoNamingException;
 import uk.ac.bbsrc.tgac.miso.core.factory.TgacDataObjectFactory;
@@ -110,7 +113,7 @@ public class SQLRunDAOTest extends AbstractDAOTest {
   @InjectMocks
   private SQLRunDAO dao;
 
-  // Auto-increment sequence doesn't roll back with transactions, so must be tracked
+  // Run IDs are reserved from a sequence that doesn't roll back with transactions, so must be tracked
   private static long nextAutoIncrementId = 5L;
 
   @Before
@@ -150,6 +153,35 @@ public class SQLRunDAOTest extends AbstractDAOTest {
     assertEquals(4, runs.size());
   }
 
+  @Test
+  public void testListSummaries() throws IOException {
+    List<RunSummary> summaries = dao.listSummaries(null, null, null);
+    assertEquals(4, summaries.size());
+    RunSummary first = summaries.get(0);
+    assertEquals(1L, first.getId());
+    assertEquals("RUN1", first.getName());
+    assertEquals("120323_h1179_0070_BC0JHTACXX", first.getAlias());
+    assertEquals(HealthType.Completed, first.getHealth());
+    assertEquals("2012-03-23", first.getStartDate().toString());
+    assertEquals("2012-03-31", first.getCompletionDate().toString());
+    assertEquals(Long.valueOf(1L), first.getSequencerReferenceId());
+  }
+
+  @Test
+  public void testListSummariesByDateRange() throws IOException, ParseException {
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+    List<RunSummary> summaries = dao.listSummaries(null, format.parse("2012-04-01"), format.parse("2012-04-30"));
+    assertEquals(2, summaries.size());
+    assertEquals(2L, summaries.get(0).getId());
+    assertEquals(3L, summaries.get(1).getId());
+  }
+
+  @Test
+  public void testListSummariesBySequencer() throws IOException {
+    assertEquals(4, dao.listSummaries(1L, null, null).size());
+    assertEquals(0, dao.listSummaries(100L, null, null).size());
+  }
+
   @Test
   public void testRunCount() throws IOException {
     assertEquals(4, dao.count());
@@ -179,6 +211,21 @@ public class SQLRunDAOTest extends AbstractDAOTest {
     assertEquals(4, runs.size());
   }
 
+  @Test
+  public void testListBySearchBeforeId() {
+    List<Run> first = dao.listBySearchBeforeId("h1179", Long.MAX_VALUE, 3);
+    assertEquals(3, first.size());
+    assertEquals(4L, first.get(0).getId());
+    assertEquals(2L, first.get(2).getId());
+
+    List<Run> last = dao.listBySearchBeforeId("h1179", 2L, 3);
+    assertEquals(1, last.size());
+    assertEquals(1L, last.get(0).getId());
+
+    assertTrue(dao.listBySearchBeforeId("h1179", 1L, 3).isEmpty());
+    assertEquals(1, dao.listBySearchBeforeId("h1179_0070_", Long.MAX_VALUE, 3).size());
+  }
+
   @Test
   public void testListBySearchNull() {
     exception.expect(NullPointerException.class);
@@ -289,6 +336,16 @@ public class SQLRunDAOTest extends AbstractDAOTest {
     assertNonLazyThings(run);
   }
 
+  @Test
+  public void testListByAliasList() throws IOException {
+    List<String> aliases = new ArrayList<>();
+    aliases.add("120323_h1179_0070_BC0JHTACXX");
+    aliases.add("120412_h1179_0073_BC075RACXX");
+    aliases.add("not_a_run");
+    List<Run> runs = dao.listByAliasList(aliases);
+    assertEquals(2, runs.size());
+  }
+
   @Test
   public void testGetByAliasNone() throws IOException {
     Run run = dao.getByAlias("");
@@ -334,7 +391,6 @@ public class SQLRunDAOTest extends AbstractDAOTest {
     when(mockUser.getUserId()).thenReturn(1L);
     run.setLastModifier(mockUser);
 
-    mockAutoIncrement(nextAutoIncrementId);
     when(namingScheme.generateNameFor("name", run)).thenReturn(runName);
     when(namingScheme.validateField(Mockito.anyString(), Mockito.anyString())).thenReturn(true);
 
@@ -377,7 +433,6 @@ public class SQLRunDAOTest extends AbstractDAOTest {
   public void testSaveNew() throws IOException, MisoNamingException {
     assertNull(dao.get(nextAutoIncrementId));
     Run newRun = makeRun("TestRun");
-    mockAutoIncrement(nextAutoIncrementId);
     Mockito.when(namingScheme.validateField(Matchers.anyString(), Matchers.anyString())).thenReturn(true);
 
     assertEquals(nextAutoIncrementId, dao.save(newRun));
@@ -401,7 +456,6 @@ public class SQLRunDAOTest extends AbstractDAOTest {
     Run run2 = makeRun("TestRun2");
     runs.add(run1);
     runs.add(run2);
-    mockAutoIncrement(autoIncrementId);
     Mockito.when(namingScheme.validateField(Matchers.anyString(), Matchers.anyString())).thenReturn(true);
 
     assertNull(dao.get(autoIncrementId));
@@ -425,9 +479,33 @@ public class SQLRunDAOTest extends AbstractDAOTest {
   }
 
   @Test
-  public void testSaveAllNone() throws IOException {
-    mockAutoIncrement(5L);
+  public void testSaveAllSkipsBadRun() throws MisoNamingException, IOException {
+    Run good1 = makeRun("TestRun1");
+    Run bad = makeRun("TestRunBad");
+    // violates the NOT NULL constraint on description, failing the batch insert
+    bad.setDescription(null);
+    Run good2 = makeRun("TestRun2");
+    Mockito.when(namingScheme.validateField(Matchers.anyString(), Matchers.anyString())).thenReturn(true);
+
+    CacheManager cacheManager = Mockito.mock(CacheManager.class);
+    Mockito.when(cacheManager.getCache(Matchers.anyString())).thenReturn(null);
+    dao.setCacheManager(cacheManager);
 
+    dao.saveAll(Arrays.asList(good1, bad, good2));
+
+    dao.setCacheManager(null);
+    assertEquals(AbstractRun.UNSAVED_ID, Long.valueOf(bad.getId()));
+    Run saved1 = dao.get(good1.getId());
+    assertNotNull(saved1);
+    assertEquals(good1.getAlias(), saved1.getAlias());
+    Run saved2 = dao.get(good2.getId());
+    assertNotNull(saved2);
+    assertEquals(good2.getAlias(), saved2.getAlias());
+    nextAutoIncrementId += 3;
+  }
+
+  @Test
+  public void testSaveAllNone() throws IOException {
     List<Run> runs = new ArrayList<>();
     int[] ids = dao.saveAll(runs);
     assertEquals(1, ids.length);
@@ -460,12 +538,6 @@ public class SQLRunDAOTest extends AbstractDAOTest {
     return run;
   }
 
-  private void mockAutoIncrement(long value) {
-    Map<String, Object> rs = new HashMap<>();
-    rs.put("Auto_increment", value);
-    Mockito.doReturn(rs).when(jdbcTemplate).queryForMap(Matchers.anyString());
-  }
-
   @SuppressWarnings("unchecked") // Safe (for mocks in a unit test)
   private void mockNonLazyThings() throws IOException {
     User mockUser = Mockito.mock(User.class);
@@ -513,6 +585,20 @@ public class SQLRunDAOTest extends AbstractDAOTest {
     assertEquals(0L, dao.countBySearch("; DROP TABLE Run;"));
   }
 
+  @Test
+  public void testCountBySearchMatchesPagedSearch() throws IOException {
+    for (String query : new String[] { "1204", "C0", "RUN", "h1179_0070_", "nonexistent" }) {
+      assertEquals(query, dao.listBySearchOffsetAndNumResults(0, 100, query, "asc", "id").size(), dao.countBySearch(query));
+    }
+  }
+
+  @Test
+  public void testCountBySearchEscapesUnderscore() throws IOException {
+    assertEquals(1L, dao.countBySearch("h1179_0070_"));
+    // would match runs 0070, 0072 and 0073 if the underscore were a wildcard
+    assertEquals(0L, dao.countBySearch("h1179_007_"));
+  }
+
   @Test
   public void testListBySearchWithLimit() throws IOException {
     List<Run> runs = dao.listBySearchOffsetAndNumResults(2, 2, "C0", "asc", "id");
@@ -33,9 +33,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -121,6 +119,16 @@ public class SQLSequencerPartitionContainerDAOTest extends AbstractDAOTest {
     assertEquals(1, spcs.size());
   }
 
+  @Test
+  public void testListByBarcodeList() throws IOException {
+    List<String> barcodes = new ArrayList<>();
+    barcodes.add("C075RACXX");
+    barcodes.add("C0JHTACXX");
+    barcodes.add("A0AAAAAXX");
+    List<SequencerPartitionContainer<SequencerPoolPartition>> spcs = dao.listByBarcodeList(barcodes);
+    assertEquals(2, spcs.size());
+  }
+
   @Test
   public void testListByBarcodeNone() throws IOException {
     List<SequencerPartitionContainer<SequencerPoolPartition>> spcs = dao.listSequencerPartitionContainersByBarcode("A0AAAAAXX");
@@ -214,7 +222,6 @@ public class SQLSequencerPartitionContainerDAOTest extends AbstractDAOTest {
   public void testSaveNew() throws IOException {
     long autoIncrementId = nextAutoIncrementId;
     SequencerPartitionContainer<SequencerPoolPartition> newSPC = makeSPC("ABCDEFXX");
-    mockAutoIncrement(autoIncrementId);
 
     assertEquals(autoIncrementId, dao.save(newSPC));
 
@@ -233,8 +240,6 @@ public class SQLSequencerPartitionContainerDAOTest extends AbstractDAOTest {
     when(mockUser.getUserId()).thenReturn(1L);
     spc.setLastModifier(mockUser);
 
-    mockAutoIncrement(nextAutoIncrementId);
-
     long spcId = dao.save(spc);
     SequencerPartitionContainer<SequencerPoolPartition> insertedSpc = dao.get(spcId);
     assertNotNull(insertedSpc);
@@ -275,12 +280,6 @@ public class SQLSequencerPartitionContainerDAOTest extends AbstractDAOTest {
     return pc;
   }
 
-  private void mockAutoIncrement(long value) {
-    Map<String, Object> rs = new HashMap<>();
-    rs.put("Auto_increment", value);
-    Mockito.doReturn(rs).when(jdbcTemplate).queryForMap(Matchers.anyString());
-  }
-
   @SuppressWarnings("unchecked") // Safe (for mocks in a unit test)
   private void mockNonLazyThings() throws IOException {
     User mockUser = Mockito.mock(User.class);
@@ -318,6 +317,19 @@ public class SQLSequencerPartitionContainerDAOTest extends AbstractDAOTest {
     assertEquals(0L, dao.countBySearch("; DROP TABLE SequencerPartitionContainer;"));
   }
 
+  @Test
+  public void testCountBySearchMatchesPagedSearch() throws IOException {
+    for (String query : new String[] { "C0", "D0VJ9", "16", "C0_", "nonexistent" }) {
+      assertEquals(query, dao.listBySearchOffsetAndNumResults(0, 100, query, "asc", "id").size(), dao.countBySearch(query));
+    }
+  }
+
+  @Test
+  public void testCountBySearchEscapesUnderscore() throws IOException {
+    // would match the three C0 containers if the underscore were a wildcard
+    assertEquals(0L, dao.countBySearch("C0_"));
+  }
+
   @Test
   public void testListBySearchWithLimit() throws IOException {
     List<SequencerPartitionContainer<SequencerPoolPartition>> spcs = dao.listBySearchOffsetAndNumResults(2, 2, "C0", "asc", "id");
@@ -7,6 +7,7 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -93,6 +94,29 @@ public class SQLStatusDAOTest extends AbstractDAOTest {
 
   }
 
+  @Test
+  public void testSaveAll() throws IOException {
+    Status existing = new StatusImpl();
+    existing.setHealth(HealthType.Failed);
+    existing.setRunName("120323_h1179_0070_BC0JHTACXX");
+    existing.setInstrumentName("SN7001179");
+
+    Status fresh = new StatusImpl();
+    fresh.setHealth(HealthType.Running);
+    fresh.setRunName("160101_h1179_0100_ANEWRUNXX");
+    fresh.setInstrumentName("SN7001179");
+
+    dao.saveAll(Arrays.asList(existing, fresh));
+
+    assertEquals(Long.valueOf(1L), existing.getId());
+    assertEquals(HealthType.Failed, dao.get(1L).getHealth());
+    assertFalse(StatusImpl.UNSAVED_ID.equals(fresh.getId()));
+    Status saved = dao.get(fresh.getId());
+    assertEquals("160101_h1179_0100_ANEWRUNXX", saved.getRunName());
+    assertNotNull(saved.getStartDate());
+    assertEquals(5, dao.count());
+  }
+
   /**
    * Test method for {@link uk.ac.bbsrc.tgac.miso.sqlstore.SQLStatusDAO#listAll()}.
    */
@@ -0,0 +1,128 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import uk.ac.bbsrc.tgac.miso.core.data.Sample;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.LibraryDilution;
+
+public class CacheInvalidatorTestSuite {
+
+  private CacheManager cacheManager;
+  private CacheInvalidator invalidator;
+
+  @Before
+  public void setUp() {
+    Configuration config = new Configuration();
+    config.setName("cacheInvalidatorTest");
+    config.addDefaultCache(new CacheConfiguration("default", 100));
+    cacheManager = new CacheManager(config);
+    cacheManager.addCache("libraryDilutionCache");
+    cacheManager.addCache("lazyLibraryDilutionCache");
+    cacheManager.addCache("poolListCache");
+    cacheManager.addCache(CacheInvalidator.PROJECT_GRAPH_CACHE);
+    invalidator = CacheInvalidator.forManager(cacheManager);
+  }
+
+  @After
+  public void tearDown() {
+    cacheManager.shutdown();
+  }
+
+  @Test
+  public void testForManager() {
+    assertSame(invalidator, CacheInvalidator.forManager(cacheManager));
+    assertNull(CacheInvalidator.forManager(null));
+  }
+
+  @Test
+  public void testCacheNames() {
+    assertEquals("libraryDilutionCache", CacheInvalidator.cacheNameFor(LibraryDilution.class, false));
+    assertEquals("lazyLibraryDilutionCache", CacheInvalidator.cacheNameFor(LibraryDilution.class, true));
+  }
+
+  @Test
+  public void testBatchEvictsFullAndLazyEntries() {
+    for (long id = 1; id <= 3; id++) {
+      cacheManager.getCache("libraryDilutionCache").put(new Element(CacheInvalidator.keyFor(id), "full" + id));
+      cacheManager.getCache("lazyLibraryDilutionCache").put(new Element(CacheInvalidator.keyFor(id), "lazy" + id));
+    }
+
+    invalidator.batch().entities(LibraryDilution.class, Arrays.asList(1L, 2L, 2L, 4L)).run();
+
+    assertEquals(1, cacheManager.getCache("libraryDilutionCache").getSize());
+    assertEquals(1, cacheManager.getCache("lazyLibraryDilutionCache").getSize());
+    assertNotNull(cacheManager.getCache("libraryDilutionCache").get(CacheInvalidator.keyFor(3L)));
+    CacheInvalidator.Stats stats = invalidator.getStats("libraryDilutionCache");
+    assertEquals(2, stats.getEvictions());
+    assertEquals(1, stats.getEvictionMisses());
+  }
+
+  @Test
+  public void testProjectGraphsFlushedByMemberEvictions() {
+    Cache graphs = cacheManager.getCache(CacheInvalidator.PROJECT_GRAPH_CACHE);
+    graphs.put(new Element(CacheInvalidator.keyFor(1L), "graph1"));
+    graphs.put(new Element(CacheInvalidator.keyFor(2L), "graph2"));
+
+    // dilutions are not drawn in project graphs
+    invalidator.evict(LibraryDilution.class, 1L);
+    assertEquals(2, graphs.getSize());
+
+    // a sample is, even though its cache is not configured here
+    invalidator.evict(Sample.class, 1L);
+    assertEquals(0, graphs.getSize());
+    assertEquals(2, invalidator.getStats(CacheInvalidator.PROJECT_GRAPH_CACHE).getEvictions());
+
+    graphs.put(new Element(CacheInvalidator.keyFor(1L), "graph1"));
+    invalidator.updateList("poolListCache", "pool", true);
+    assertEquals(0, graphs.getSize());
+  }
+
+  @Test
+  public void testMissingCachesAreIgnored() {
+    invalidator.evict("noSuchCache", 1L);
+    invalidator.updateList("noSuchListCache", "x", true);
+    assertNull(invalidator.getStats("noSuchCache"));
+    assertTrue(!invalidator.getStats().containsKey("noSuchCache"));
+  }
+
+  @Test
+  public void testUpdateList() {
+    List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+    cacheManager.getCache("poolListCache").put(new Element(1L, list));
+
+    invalidator.batch().listEntry("poolListCache", "c", true).listEntry("poolListCache", "a", false).run();
+
+    List<?> cached = (List<?>) cacheManager.getCache("poolListCache").get(1L).getObjectValue();
+    assertEquals(Arrays.asList("b", "c"), cached);
+    assertEquals(2, invalidator.getStats("poolListCache").getListUpdates());
+  }
+
+  @Test
+  public void testListRemoval() {
+    List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+    cacheManager.getCache("poolListCache").put(new Element(1L, list));
+
+    // an object that was never listed must not be added by its removal
+    invalidator.batch().listRemoval("poolListCache", "a").listRemoval("poolListCache", "z").run();
+
+    List<?> cached = (List<?>) cacheManager.getCache("poolListCache").get(1L).getObjectValue();
+    assertEquals(Arrays.asList("b"), cached);
+  }
+}
@@ -0,0 +1,104 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+public class IdAllocatorTestSuite {
+
+  private SimpleDriverDataSource dataSource;
+  private JdbcTemplate template;
+  private IdAllocator allocator;
+
+  @Before
+  public void setUp() {
+    dataSource = new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:idAllocatorTest;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    template = new JdbcTemplate(dataSource);
+    template.execute("CREATE TABLE sequence_data (sequence_name varchar(100) NOT NULL PRIMARY KEY, sequence_cur_value bigint DEFAULT 1)");
+    template.update("INSERT INTO sequence_data (sequence_name, sequence_cur_value) VALUES ('test_seq', 5)");
+    allocator = new IdAllocator(dataSource);
+  }
+
+  @After
+  public void tearDown() {
+    template.execute("DROP TABLE sequence_data");
+  }
+
+  @Test
+  public void testForDataSource() {
+    assertSame(IdAllocator.forDataSource(dataSource), IdAllocator.forDataSource(dataSource));
+  }
+
+  @Test
+  public void testNextReservesBlocks() throws IOException {
+    allocator.setBlockSize(3);
+    assertEquals(5L, allocator.next("test_seq"));
+    assertEquals(8L, template.queryForLong("SELECT sequence_cur_value FROM sequence_data WHERE sequence_name = 'test_seq'"));
+    assertEquals(6L, allocator.next("test_seq"));
+    assertEquals(7L, allocator.next("test_seq"));
+    assertEquals(8L, allocator.next("test_seq"));
+    assertEquals(11L, template.queryForLong("SELECT sequence_cur_value FROM sequence_data WHERE sequence_name = 'test_seq'"));
+  }
+
+  @Test
+  public void testAllocatorsShareSequence() throws IOException {
+    IdAllocator other = new IdAllocator(dataSource);
+    allocator.setBlockSize(2);
+    other.setBlockSize(2);
+    assertEquals(5L, allocator.next("test_seq"));
+    assertEquals(7L, other.next("test_seq"));
+    assertEquals(6L, allocator.next("test_seq"));
+    assertEquals(9L, allocator.next("test_seq"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingSequence() throws IOException {
+    allocator.next("no_such_seq");
+  }
+
+  @Test
+  public void testConcurrentNext() throws Exception {
+    allocator.setBlockSize(7);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<Long>>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(new Callable<List<Long>>() {
+          @Override
+          public List<Long> call() throws IOException {
+            List<Long> ids = new ArrayList<>();
+            for (int j = 0; j < 50; j++) {
+              ids.add(allocator.next("test_seq"));
+            }
+            return ids;
+          }
+        }));
+      }
+      Set<Long> ids = new HashSet<>();
+      for (Future<List<Long>> future : futures) {
+        ids.addAll(future.get());
+      }
+      assertEquals(200, ids.size());
+      assertTrue(Collections.min(ids) >= 5L);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
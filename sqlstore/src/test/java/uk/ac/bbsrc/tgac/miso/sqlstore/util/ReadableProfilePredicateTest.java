@@ -0,0 +1,145 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.eaglegenomics.simlims.core.Group;
+import com.eaglegenomics.simlims.core.User;
+
+import uk.ac.bbsrc.tgac.miso.AbstractDAOTest;
+import uk.ac.bbsrc.tgac.miso.core.data.impl.UserImpl;
+import uk.ac.bbsrc.tgac.miso.core.security.ReadRestriction;
+
+public class ReadableProfilePredicateTest extends AbstractDAOTest {
+
+  private static final String PROFILES_SELECT = "SELECT sp.profileId FROM SecurityProfile sp WHERE (sp.profileId >= 100)";
+
+  private static final long USER_ID = 50L;
+  private static final long GROUP_ID = 60L;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * Adds profiles 100 to 106, each readable by user 50 (or its group 60) in one way only, except 106 which is not readable at all
+   */
+  @Before
+  public void setUp() {
+    for (long id = 100L; id <= 106L; id++) {
+      jdbcTemplate.update("INSERT INTO SecurityProfile(profileId, allowAllInternal, owner_userId) VALUES (?, ?, ?)", id, id == 105L,
+          id == 100L ? USER_ID : 1L);
+    }
+    jdbcTemplate.update("INSERT INTO SecurityProfile_ReadUser(SecurityProfile_profileId, readUser_userId) VALUES (101, ?)", USER_ID);
+    jdbcTemplate.update("INSERT INTO SecurityProfile_WriteUser(SecurityProfile_profileId, writeUser_userId) VALUES (102, ?)", USER_ID);
+    jdbcTemplate.update("INSERT INTO SecurityProfile_ReadGroup(SecurityProfile_profileId, readGroup_groupId) VALUES (103, ?)", GROUP_ID);
+    jdbcTemplate.update("INSERT INTO SecurityProfile_WriteGroup(SecurityProfile_profileId, writeGroup_groupId) VALUES (104, ?)", GROUP_ID);
+  }
+
+  @After
+  public void tearDown() {
+    ReadRestriction.clear();
+  }
+
+  private static UserImpl user(boolean internal, boolean inGroup) {
+    UserImpl user = new UserImpl();
+    user.setUserId(USER_ID);
+    user.setInternal(internal);
+    user.setExternal(!internal);
+    if (inGroup) {
+      Group group = new Group();
+      group.setGroupId(GROUP_ID);
+      user.setGroups(Arrays.asList(group));
+    } else {
+      user.setGroups(Collections.<Group> emptyList());
+    }
+    return user;
+  }
+
+  private List<Long> readableBy(User user) {
+    ReadRestriction.restrictTo(user);
+    List<Object> args = new ArrayList<>();
+    String sql = ReadableProfilePredicate.restrict(PROFILES_SELECT, "sp.profileId", args) + " ORDER BY sp.profileId";
+    return jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+  }
+
+  @Test
+  public void testInternalUserInGroup() {
+    assertEquals(Arrays.asList(100L, 101L, 102L, 103L, 104L, 105L), readableBy(user(true, true)));
+  }
+
+  @Test
+  public void testExternalUserInGroup() {
+    // allowAllInternal does not apply
+    assertEquals(Arrays.asList(100L, 101L, 102L, 103L, 104L), readableBy(user(false, true)));
+  }
+
+  @Test
+  public void testInternalUserWithoutGroups() {
+    assertEquals(Arrays.asList(100L, 101L, 102L, 105L), readableBy(user(true, false)));
+  }
+
+  @Test
+  public void testExternalUserWithoutGroups() {
+    assertEquals(Arrays.asList(100L, 101L, 102L), readableBy(user(false, false)));
+  }
+
+  @Test
+  public void testUnrelatedUser() {
+    UserImpl stranger = user(false, false);
+    stranger.setUserId(USER_ID + 1);
+    assertEquals(Collections.<Long> emptyList(), readableBy(stranger));
+  }
+
+  @Test
+  public void testAdminIsUnrestricted() {
+    UserImpl admin = user(false, false);
+    admin.setAdmin(true);
+    ReadRestriction.restrictTo(admin);
+    assertNull(ReadRestriction.getReader());
+    List<Object> args = new ArrayList<>();
+    assertSame(PROFILES_SELECT, ReadableProfilePredicate.restrict(PROFILES_SELECT, "sp.profileId", args));
+    assertTrue(args.isEmpty());
+    assertEquals(7, readableBy(admin).size());
+  }
+
+  @Test
+  public void testNoReaderIsUnrestricted() {
+    ReadRestriction.restrictTo(user(false, false));
+    ReadRestriction.restrictTo(null);
+    assertNull(ReadRestriction.getReader());
+    List<Object> args = new ArrayList<>();
+    assertSame(PROFILES_SELECT, ReadableProfilePredicate.restrict(PROFILES_SELECT, "sp.profileId", args));
+    assertTrue(args.isEmpty());
+    assertEquals(7, readableBy(null).size());
+  }
+
+  @Test
+  public void testIdsAreBound() {
+    List<Object> args = new ArrayList<>();
+    String sql = ReadableProfilePredicate.forUser("sp.profileId", user(true, true), args);
+    assertFalse(sql, sql.contains(Long.toString(USER_ID)));
+    assertFalse(sql, sql.contains(Long.toString(GROUP_ID)));
+    assertEquals(Arrays.<Object> asList(USER_ID, USER_ID, USER_ID, GROUP_ID, GROUP_ID), args);
+  }
+
+  @Test
+  public void testClear() {
+    ReadRestriction.restrictTo(user(true, true));
+    ReadRestriction.clear();
+    assertNull(ReadRestriction.getReader());
+  }
+}
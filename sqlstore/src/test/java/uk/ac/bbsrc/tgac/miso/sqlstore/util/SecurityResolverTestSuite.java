@@ -0,0 +1,177 @@
+package uk.ac.bbsrc.tgac.miso.sqlstore.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.eaglegenomics.simlims.core.SecurityProfile;
+import com.eaglegenomics.simlims.core.User;
+import com.eaglegenomics.simlims.core.store.SecurityStore;
+
+import uk.ac.bbsrc.tgac.miso.core.data.impl.UserImpl;
+import uk.ac.bbsrc.tgac.miso.core.store.SecurityProfileStore;
+
+public class SecurityResolverTestSuite {
+
+  private SecurityStore securityStore;
+  private SecurityProfileStore securityProfileStore;
+  private User user;
+  private SecurityProfile profile;
+
+  @Before
+  public void setUp() throws IOException {
+    securityStore = mock(SecurityStore.class);
+    securityProfileStore = mock(SecurityProfileStore.class);
+    user = new UserImpl();
+    user.setUserId(1L);
+    profile = new SecurityProfile();
+    profile.setProfileId(2L);
+    when(securityStore.getUserById(1L)).thenReturn(user);
+    when(securityStore.listUsersByIds(anyCollectionOf(Long.class))).thenReturn(Arrays.asList(user));
+    when(securityProfileStore.get(2L)).thenReturn(profile);
+    when(securityProfileStore.listByIds(anyCollectionOf(Long.class))).thenReturn(Arrays.asList(profile));
+  }
+
+  private static class Row {
+    private User lastModifier;
+    private SecurityProfile securityProfile;
+    private boolean completeWhenCached;
+    private boolean cached;
+  }
+
+  /**
+   * Maps every row to a Row referencing user 1 and profile 2, except that the last references user 100, which does not exist
+   */
+  private RowMapper<Row> mapper(final SecurityResolver resolver, final int rows) {
+    return new RowMapper<Row>() {
+      @Override
+      public Row mapRow(ResultSet rs, int rowNum) throws SQLException {
+        final Row row = new Row();
+        try {
+          resolver.user(rowNum == rows - 1 ? 100L : 1L, new SecurityResolver.Callback<User>() {
+            @Override
+            public void resolved(User value) {
+              row.lastModifier = value;
+            }
+          });
+          resolver.profile(2L, new SecurityResolver.Callback<SecurityProfile>() {
+            @Override
+            public void resolved(SecurityProfile value) {
+              row.securityProfile = value;
+            }
+          });
+        } catch (IOException e) {
+          throw new SQLException(e);
+        }
+        resolver.whenResolved(new Runnable() {
+          @Override
+          public void run() {
+            row.completeWhenCached = row.securityProfile != null;
+            row.cached = true;
+          }
+        });
+        return row;
+      }
+    };
+  }
+
+  private static ResultSet resultSet(int rows) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    List<Boolean> more = new ArrayList<>(Collections.nCopies(rows, true));
+    more.add(false);
+    when(rs.next()).thenReturn(more.get(0), more.subList(1, more.size()).toArray(new Boolean[more.size() - 1]));
+    return rs;
+  }
+
+  @Test
+  public void testResolvesImmediatelyOutsideBatch() throws Exception {
+    SecurityResolver resolver = new SecurityResolver(securityStore, securityProfileStore);
+    Row row = mapper(resolver, 2).mapRow(null, 0);
+    assertSame(user, row.lastModifier);
+    assertSame(profile, row.securityProfile);
+    assertTrue(row.cached);
+    assertTrue(row.completeWhenCached);
+    verify(securityStore, never()).listUsersByIds(anyCollectionOf(Long.class));
+  }
+
+  @Test
+  public void testResolvesInBulkInsideBatch() throws Exception {
+    SecurityResolver resolver = new SecurityResolver(securityStore, securityProfileStore);
+    List<Row> rows = resolver.extractor(mapper(resolver, 5)).extractData(resultSet(5));
+
+    assertEquals(5, rows.size());
+    for (int i = 0; i < 4; i++) {
+      assertSame(user, rows.get(i).lastModifier);
+      assertSame(profile, rows.get(i).securityProfile);
+    }
+    assertNull(rows.get(4).lastModifier);
+    for (Row row : rows) {
+      assertTrue(row.cached);
+      assertTrue(row.completeWhenCached);
+    }
+    verify(securityStore, times(1)).listUsersByIds(anyCollectionOf(Long.class));
+    verify(securityProfileStore, times(1)).listByIds(anyCollectionOf(Long.class));
+    verify(securityStore, never()).getUserById(anyLong());
+    verify(securityProfileStore, never()).get(anyLong());
+  }
+
+  @Test
+  public void testResolversOverSameStoresShareBatch() throws Exception {
+    SecurityResolver resolver = new SecurityResolver(securityStore, securityProfileStore);
+    // a DAO may create a new resolver for every row
+    List<Row> rows = resolver.extractor(mapper(new SecurityResolver(securityStore, securityProfileStore), 3)).extractData(resultSet(3));
+
+    assertEquals(3, rows.size());
+    assertSame(user, rows.get(0).lastModifier);
+    verify(securityStore, times(1)).listUsersByIds(anyCollectionOf(Long.class));
+  }
+
+  @Test
+  public void testFailedBatchFailsQuery() throws Exception {
+    when(securityProfileStore.listByIds(anyCollectionOf(Long.class))).thenThrow(new IOException("profiles unavailable"));
+    SecurityResolver resolver = new SecurityResolver(securityStore, securityProfileStore);
+    final List<Row> mapped = new ArrayList<>();
+    final RowMapper<Row> mapper = mapper(resolver, 3);
+    try {
+      resolver.extractor(new RowMapper<Row>() {
+        @Override
+        public Row mapRow(ResultSet rs, int rowNum) throws SQLException {
+          Row row = mapper.mapRow(rs, rowNum);
+          mapped.add(row);
+          return row;
+        }
+      }).extractData(resultSet(3));
+      fail("Query should fail when the profiles cannot be loaded");
+    } catch (SQLException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+
+    assertEquals(3, mapped.size());
+    for (Row row : mapped) {
+      // incomplete rows must not be cached
+      assertFalse(row.cached);
+    }
+  }
+}
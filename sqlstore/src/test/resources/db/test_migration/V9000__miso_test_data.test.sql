@@ -473,8 +473,8 @@ VALUES
 DELETE FROM BoxPosition;
 INSERT INTO `BoxPosition` (`BoxPositionId`, `boxId`, `column`, `row`, `lastModifier`)
 VALUES
-('1', '1', '1', '1', '1'),
-('2', '2', '1', '2', '1');
+('201', '1', '1', '1', '1'),
+('202', '2', '1', '2', '1');
 
 DELETE FROM Submission;
 INSERT INTO `Submission` (`submissionId`, `creationDate`, `submittedDate`, `verified`, `description`, `name`, `title`, `accession`, `alias`, `completed`)
@@ -575,3 +575,13 @@ VALUES (1,'Test Type','for testing',1,'2016-02-19 11:28:00',1,'2016-02-19 11:28:
 DELETE FROM `LibraryAdditionalInfo`;
 INSERT INTO `LibraryAdditionalInfo`(`libraryId`, `kitDescriptorId`, `createdBy`, `creationDate`, `updatedBy`, `lastUpdated`)
 VALUES (1,1,1,'2016-02-19 11:28:00',1,'2016-02-19 11:28:00');
+
+-- no triggers in test databases, so derive lastModified from the change logs inserted above
+UPDATE Sample s SET s.lastModified = (SELECT MAX(changeTime) FROM SampleChangeLog scl WHERE scl.sampleId = s.sampleId);
+UPDATE Library l SET l.lastModified = (SELECT MAX(changeTime) FROM LibraryChangeLog lcl WHERE lcl.libraryId = l.libraryId);
+UPDATE Pool p SET p.lastModified = (SELECT MAX(changeTime) FROM PoolChangeLog pcl WHERE pcl.poolId = p.poolId);
+UPDATE Run r SET r.lastModified = (SELECT MAX(changeTime) FROM RunChangeLog rcl WHERE rcl.runId = r.runId);
+UPDATE SequencerPartitionContainer c SET c.lastModified = (SELECT MAX(changeTime) FROM SequencerPartitionContainerChangeLog ccl WHERE ccl.containerId = c.containerId);
+
+-- start allocating run IDs after the runs inserted above
+UPDATE sequence_data SET sequence_cur_value = (SELECT MAX(runId) + 1 FROM Run) WHERE sequence_name = 'run_id_seq';